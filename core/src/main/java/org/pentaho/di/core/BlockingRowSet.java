@@ -14,6 +14,8 @@
 
 package org.pentaho.di.core;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
@@ -22,7 +24,10 @@ import org.pentaho.di.core.row.RowMetaInterface;
 
 /**
  * Contains a buffer of rows. Getting rows from the buffer or putting rows in the buffer is synchronized to allow
- * concurrent use of multiple Threads.
+ * concurrent use of multiple Threads.<br>
+ * <br>
+ * The waits only use java.util.concurrent locks (never monitors) so that a step running on a virtual thread unmounts
+ * from its carrier thread while it waits for room or rows.
  *
  * @author Matt
  * @since 04-04-2003
@@ -117,6 +122,24 @@ public class BlockingRowSet extends BaseRowSet implements Comparable<RowSet>, Ro
     }
   }
 
+  /**
+   * Waits for the first row like {@link #getRow()} does, then drains the available rows while holding the queue lock
+   * only once.
+   */
+  @Override
+  public List<Object[]> getRows( int max ) {
+    Object[] row = getRow();
+    if ( row == null ) {
+      return new ArrayList<>( 0 );
+    }
+    List<Object[]> rows = new ArrayList<>( Math.max( 1, Math.min( max, queArray.size() + 1 ) ) );
+    rows.add( row );
+    if ( max > 1 ) {
+      queArray.drainTo( rows, max - 1 );
+    }
+    return rows;
+  }
+
   @Override
   public int size() {
     return queArray.size();
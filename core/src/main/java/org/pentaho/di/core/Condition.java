@@ -24,6 +24,7 @@ import java.util.regex.Pattern;
 
 import org.pentaho.di.core.exception.KettleValueException;
 import org.pentaho.di.core.exception.KettleXMLException;
+import org.pentaho.di.core.row.RowChunk;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaAndData;
 import org.pentaho.di.core.row.ValueMetaInterface;
@@ -564,6 +565,170 @@ public class Condition implements Cloneable, XMLInterface {
     return retval;
   }
 
+  /**
+   * Evaluates the condition for all the rows of a chunk. Comparisons of Integer and Number fields with a constant or
+   * with another field of the same type are done straight on the primitive values, everything else is evaluated row by
+   * row.
+   *
+   * @param chunk
+   *          the rows to evaluate
+   * @param result
+   *          receives for every row whether or not the condition evaluates to true
+   */
+  public void evaluate( RowChunk chunk, boolean[] result ) {
+    int size = chunk.size();
+    if ( isAtomic() ) {
+      if ( !evaluatePrimitive( chunk, result ) ) {
+        RowMetaInterface rowMeta = chunk.getRowMeta();
+        for ( int r = 0; r < size; r++ ) {
+          result[r] = evaluate( rowMeta, chunk.get( r ) );
+        }
+      }
+      return;
+    }
+
+    list.get( 0 ).evaluate( chunk, result );
+    boolean[] other = new boolean[size];
+    for ( int i = 1; i < list.size(); i++ ) {
+      Condition cb = list.get( i );
+      cb.evaluate( chunk, other );
+      for ( int r = 0; r < size; r++ ) {
+        switch ( cb.getOperator() ) {
+          case Condition.OPERATOR_OR:
+            result[r] = result[r] || other[r];
+            break;
+          case Condition.OPERATOR_AND:
+            result[r] = result[r] && other[r];
+            break;
+          case Condition.OPERATOR_OR_NOT:
+            result[r] = result[r] || !other[r];
+            break;
+          case Condition.OPERATOR_AND_NOT:
+            result[r] = result[r] && !other[r];
+            break;
+          case Condition.OPERATOR_XOR:
+            result[r] = result[r] ^ other[r];
+            break;
+          default:
+            break;
+        }
+      }
+    }
+    if ( isNegated() ) {
+      for ( int r = 0; r < size; r++ ) {
+        result[r] = !result[r];
+      }
+    }
+  }
+
+  /**
+   * Evaluates an atomic condition on the primitive columns of a chunk, with the same outcome as
+   * {@link #evaluate(RowMetaInterface, Object[])}.
+   *
+   * @return false if the condition can't be evaluated this way
+   */
+  private boolean evaluatePrimitive( RowChunk chunk, boolean[] result ) {
+    int size = chunk.size();
+    if ( function == FUNC_TRUE ) {
+      Arrays.fill( result, 0, size, !negate );
+      return true;
+    }
+
+    RowMetaInterface rowMeta = chunk.getRowMeta();
+    int leftnr = Utils.isEmpty( leftValuename ) ? -1 : rowMeta.indexOfValue( leftValuename );
+    if ( leftnr < 0 ) {
+      Arrays.fill( result, 0, size, false ); // no fields to evaluate
+      return true;
+    }
+    int columnType = chunk.getColumnType( leftnr );
+    ValueMetaInterface fieldMeta = rowMeta.getValueMeta( leftnr );
+    if ( columnType == RowChunk.COLUMN_OBJECT || fieldMeta.isSortedDescending() ) {
+      return false;
+    }
+
+    if ( function == FUNC_NULL || function == FUNC_NOT_NULL ) {
+      for ( int r = 0; r < size; r++ ) {
+        result[r] = chunk.isNull( leftnr, r ) == ( function == FUNC_NULL ) ^ negate;
+      }
+      return true;
+    }
+    if ( function < FUNC_EQUAL || function > FUNC_LARGER_EQUAL ) {
+      return false;
+    }
+
+    // The right hand side: a constant or a field of the same type
+    //
+    int rightnr = -1;
+    long longConstant = 0L;
+    double doubleConstant = 0.0;
+    if ( rightExact != null && rightExact.getValueData() != null ) {
+      ValueMetaInterface exactMeta = rightExact.getValueMeta();
+      if ( exactMeta.getType() != fieldMeta.getType()
+        || exactMeta.getStorageType() != ValueMetaInterface.STORAGE_TYPE_NORMAL ) {
+        return false;
+      }
+      try {
+        if ( columnType == RowChunk.COLUMN_LONG ) {
+          longConstant = exactMeta.getInteger( rightExact.getValueData() );
+        } else {
+          doubleConstant = exactMeta.getNumber( rightExact.getValueData() );
+        }
+      } catch ( KettleValueException e ) {
+        return false;
+      }
+    } else {
+      rightnr = Utils.isEmpty( rightValuename ) ? -1 : rowMeta.indexOfValue( rightValuename );
+      if ( rightnr < 0 || chunk.getColumnType( rightnr ) != columnType ) {
+        return false;
+      }
+    }
+
+    boolean nullsAreNotZero = ( function == FUNC_SMALLER || function == FUNC_SMALLER_EQUAL )
+      && "Y".equalsIgnoreCase( System.getProperty( Const.KETTLE_FILTER_TREAT_NULLS_AS_NOT_ZERO, "N" ) );
+
+    for ( int r = 0; r < size; r++ ) {
+      boolean leftNull = chunk.isNull( leftnr, r );
+      boolean rightNull = rightnr >= 0 && chunk.isNull( rightnr, r );
+      boolean retval;
+      if ( leftNull && nullsAreNotZero ) {
+        retval = false;
+      } else {
+        int cmp;
+        if ( leftNull || rightNull ) {
+          // Just like ValueMetaBase.compare(): null is the smallest value
+          cmp = leftNull && rightNull ? 0 : ( leftNull ? -1 : 1 );
+        } else if ( columnType == RowChunk.COLUMN_LONG ) {
+          cmp = Long.compare( chunk.getLong( leftnr, r ), rightnr >= 0 ? chunk.getLong( rightnr, r ) : longConstant );
+        } else {
+          cmp = Double.compare( chunk.getDouble( leftnr, r ),
+            rightnr >= 0 ? chunk.getDouble( rightnr, r ) : doubleConstant );
+        }
+        switch ( function ) {
+          case FUNC_EQUAL:
+            retval = cmp == 0;
+            break;
+          case FUNC_NOT_EQUAL:
+            retval = cmp != 0;
+            break;
+          case FUNC_SMALLER:
+            retval = cmp < 0;
+            break;
+          case FUNC_SMALLER_EQUAL:
+            retval = cmp <= 0;
+            break;
+          case FUNC_LARGER:
+            retval = cmp > 0;
+            break;
+          default:
+            retval = cmp >= 0;
+            break;
+        }
+      }
+      result[r] = retval ^ negate;
+    }
+    return true;
+  }
+
   public void addCondition( Condition cb ) {
     if ( isAtomic() && getLeftValuename() != null ) {
       /*
@@ -141,6 +141,11 @@ public class Const {
    */
   public static final int ROWS_IN_ROWSET = 10000;
 
+  /**
+   * Maximum number of rows handed over at once by steps that use the row batch API
+   */
+  public static final int ROWS_IN_BATCH = 500;
+
   /**
    * Fetch size in rows when querying a database
    */
@@ -1066,6 +1071,100 @@ public class Const {
    */
   public static final String KETTLE_BATCHING_ROWSET = "KETTLE_BATCHING_ROWSET";
 
+  /**
+   * The name of the variable that optionally contains the maximum number of rows that steps supporting the row batch
+   * API (getRows/putRows) move in one go. Set it to 1 to make these steps behave row by row. (default = 500)
+   */
+  public static final String KETTLE_ROW_BATCH_SIZE = "KETTLE_ROW_BATCH_SIZE";
+
+  /**
+   * The name of the variable that enables the columnar row chunks: Integer and Number fields are passed between the
+   * steps that support it (Calculator, Filter Rows, Group By, Table Output) in primitive arrays instead of boxed values.
+   * (default = N)
+   */
+  public static final String KETTLE_ROW_CHUNKS = "KETTLE_ROW_CHUNKS";
+
+  /**
+   * Set this variable to Y to inflate the members of gzip input made of more than one member, like BGZF files, in
+   * parallel and ahead of the reader: the GZip compression provider and the GZIP CSV Input step. The step also takes
+   * it from the variables of the transformation, the compression provider only from the system properties, like
+   * kettle.properties. (default = N)
+   */
+  public static final String KETTLE_PARALLEL_GZIP_INPUT = "KETTLE_PARALLEL_GZIP_INPUT";
+
+  /**
+   * The name of the variable that optionally contains the kind of threads the step copies of normal transformations run
+   * on: Platform or Virtual. When set it overrides the setting of the transformation. (default = empty)
+   */
+  public static final String KETTLE_STEP_THREADING_TYPE = "KETTLE_STEP_THREADING_TYPE";
+
+  /**
+   * The name of the system property that optionally contains the number of threads in the work-stealing pool that is
+   * shared by all Work Stealing transformations in the JVM. (default = the number of available processors)
+   */
+  public static final String KETTLE_WORK_STEALING_POOL_SIZE = "KETTLE_WORK_STEALING_POOL_SIZE";
+
+  /**
+   * The name of the variable that contains the maximum number of temporary files the Sort Rows step merges at once.
+   * When a sort spills more files than that, they are first merged into fewer, larger files in one or more passes.
+   * (default = 100)
+   */
+  public static final String KETTLE_SORT_MERGE_FAN_IN = "KETTLE_SORT_MERGE_FAN_IN";
+
+  /**
+   * The default maximum number of temporary files the Sort Rows step merges at once.
+   */
+  public static final int SORT_MERGE_FAN_IN = 100;
+
+  /**
+   * The name of the variable that contains the default codec of the temporary files written by the Sort Rows and Group
+   * By steps: None, LZ4, Zstd or GZIP. Steps that select a codec or enable compression themselves ignore it.
+   * (default = None)
+   */
+  public static final String KETTLE_SPILL_COMPRESSION = "KETTLE_SPILL_COMPRESSION";
+
+  /**
+   * The name of the variable that contains the maximum size in MB of a shared lookup cache, used by the Database
+   * Lookup, Dimension Lookup/Update and Combination Lookup/Update steps when they share their cache. (default = 256)
+   */
+  public static final String KETTLE_SHARED_CACHE_SIZE_MB = "KETTLE_SHARED_CACHE_SIZE_MB";
+
+  /**
+   * The name of the variable that contains the number of seconds after which an entry of a shared lookup cache
+   * expires, 0 to keep the entries until they are evicted. (default = 600)
+   */
+  public static final String KETTLE_SHARED_CACHE_TTL = "KETTLE_SHARED_CACHE_TTL";
+
+  /**
+   * The name of the variable that contains the maximum size in MB of all the shared lookup caches of the JVM together.
+   * A new cache gets the room the others leave, up to KETTLE_SHARED_CACHE_SIZE_MB. (default = 1024)
+   */
+  public static final String KETTLE_SHARED_CACHE_TOTAL_SIZE_MB = "KETTLE_SHARED_CACHE_TOTAL_SIZE_MB";
+
+  /**
+   * Set this variable to Y to take the native JDBC connections that don't use pooling from the connection pools of
+   * the server as well, so transformations and jobs reuse the open connections to the same database. (default = N)
+   */
+  public static final String KETTLE_SHARED_CONNECTION_POOL = "KETTLE_SHARED_CONNECTION_POOL";
+
+  /**
+   * The name of the variable that contains the number of seconds after which an idle pooled connection is closed, 0 to
+   * keep the idle connections open. Pools that set their own eviction interval ignore it. (default = 300)
+   */
+  public static final String KETTLE_CONNECTION_POOL_IDLE_TIMEOUT = "KETTLE_CONNECTION_POOL_IDLE_TIMEOUT";
+
+  /**
+   * The name of the variable that contains the maximum number of connections of a connection pool, whatever the pool
+   * size of the connection, 0 for no such limit. (default = 0)
+   */
+  public static final String KETTLE_CONNECTION_POOL_MAX_TOTAL = "KETTLE_CONNECTION_POOL_MAX_TOTAL";
+
+  /**
+   * The name of the variable that contains the maximum number of seconds to wait for a connection of a connection pool
+   * that has none left, 0 to wait as long as it takes. Pools that set their own maximum wait ignore it. (default = 60)
+   */
+  public static final String KETTLE_CONNECTION_POOL_MAX_WAIT = "KETTLE_CONNECTION_POOL_MAX_WAIT";
+
   /**
    * Set this variable to limit max number of files the Text File Output step can have open at one time.
    */
@@ -1076,6 +1175,23 @@ public class Const {
    */
   public static final String KETTLE_FILE_OUTPUT_MAX_STREAM_LIFE = "KETTLE_FILE_OUTPUT_MAX_STREAM_LIFE";
 
+  /**
+   * The name of the variable that contains the size in bytes of the buffer in front of every file the Text File Output
+   * step writes to. (default = 65536)
+   */
+  public static final String KETTLE_FILE_OUTPUT_BUFFER_SIZE = "KETTLE_FILE_OUTPUT_BUFFER_SIZE";
+
+  /**
+   * The default size in bytes of the buffer in front of every file the Text File Output step writes to.
+   */
+  public static final int FILE_OUTPUT_BUFFER_SIZE = 64 * 1024;
+
+  /**
+   * Set this variable to Y to have the Text File Output step hand full buffers to another thread that compresses and
+   * writes them, while the step fills the next buffer. (default = N)
+   */
+  public static final String KETTLE_FILE_OUTPUT_ASYNC_FLUSH = "KETTLE_FILE_OUTPUT_ASYNC_FLUSH";
+
   /**
    * Set this variable to Y to disable standard Kettle logging to the console. (stdout)
    */
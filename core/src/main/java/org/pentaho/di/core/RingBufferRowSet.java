@@ -0,0 +1,338 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.pentaho.di.core.row.RowMetaInterface;
+
+/**
+ * A bounded, lock-free buffer of rows for hops that have exactly one writing thread and one reading thread (a single
+ * source step copy feeding a single target step copy).<br>
+ * <br>
+ * Rows are kept in a power-of-two sized ring. The writer only ever advances the tail, the reader only ever advances the
+ * head so no locks are needed. When the ring is full (or empty) the waiting side first spins and yields for a short
+ * while, then parks until the other side signals it or until the requested timeout expires.<br>
+ * <br>
+ * IMPORTANT: this row set is NOT safe when more than one thread writes or more than one thread reads at the same time.
+ * Use {@link BlockingRowSet} in those situations.
+ *
+ * @since 11.1
+ */
+public class RingBufferRowSet extends BaseRowSet implements Comparable<RowSet>, RowSet {
+
+  /** The number of busy-spin iterations before we start to yield, spinning makes no sense on a single CPU */
+  static final int SPIN_TRIES = Runtime.getRuntime().availableProcessors() > 1 ? 128 : 0;
+
+  /** The number of times we yield the CPU before we start to park the waiting thread */
+  static final int YIELD_TRIES = 16;
+
+  /** The maximum time we park in one go, a safety net in case a wake-up signal gets lost */
+  static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos( 1 );
+
+  private final Object[][] buffer;
+  private final int mask;
+  private final int capacity;
+
+  /** The next position to read from, only advanced by the reader */
+  private final AtomicLong head = new AtomicLong( 0L );
+
+  /** The next position to write to, only advanced by the writer */
+  private final AtomicLong tail = new AtomicLong( 0L );
+
+  /** Reader local copy of the tail, avoids touching the writer's cache line on every read */
+  private long cachedTail;
+
+  /** Writer local copy of the head, avoids touching the reader's cache line on every write */
+  private long cachedHead;
+
+  private volatile Thread waitingReader;
+  private volatile Thread waitingWriter;
+
+  private int timeoutPut;
+  private int timeoutGet;
+
+  /**
+   * Create a new lock-free row set with maxSize capacity.
+   *
+   * @param maxSize
+   *          the maximum number of rows that can be buffered
+   */
+  public RingBufferRowSet( int maxSize ) {
+    super();
+
+    capacity = Math.max( 1, maxSize );
+    int ringSize = 1;
+    while ( ringSize < capacity ) {
+      ringSize <<= 1;
+    }
+    buffer = new Object[ringSize][];
+    mask = ringSize - 1;
+
+    timeoutGet = Const.toInt( System.getProperty( Const.KETTLE_ROWSET_GET_TIMEOUT ), Const.TIMEOUT_GET_MILLIS );
+    timeoutPut = Const.toInt( System.getProperty( Const.KETTLE_ROWSET_PUT_TIMEOUT ), Const.TIMEOUT_PUT_MILLIS );
+  }
+
+  @Override
+  public boolean putRow( RowMetaInterface rowMeta, Object[] rowData ) {
+    return putRowWait( rowMeta, rowData, timeoutPut, TimeUnit.MILLISECONDS );
+  }
+
+  @Override
+  public boolean putRowWait( RowMetaInterface rowMeta, Object[] rowData, long time, TimeUnit tu ) {
+    this.rowMeta = rowMeta;
+    if ( rowData == null ) {
+      // Same as a blocking queue: null rows are never accepted
+      return false;
+    }
+
+    long position = tail.get();
+    if ( position - cachedHead >= capacity ) {
+      cachedHead = head.get();
+      if ( position - cachedHead >= capacity && !awaitRoom( position, tu.toNanos( time ) ) ) {
+        return false;
+      }
+    }
+
+    buffer[ (int) position & mask ] = rowData;
+    // Volatile write: publishes the row and orders against the read of waitingReader below.
+    tail.set( position + 1 );
+
+    Thread reader = waitingReader;
+    if ( reader != null ) {
+      LockSupport.unpark( reader );
+    }
+    return true;
+  }
+
+  /**
+   * Waits for room for the first row, then copies as many rows as fit into the ring and publishes them all at once.
+   */
+  @Override
+  public int putRows( RowMetaInterface rowMeta, List<Object[]> rows ) {
+    this.rowMeta = rowMeta;
+    int nrRows = rows.size();
+    if ( nrRows == 0 ) {
+      return 0;
+    }
+
+    long position = tail.get();
+    if ( position - cachedHead >= capacity ) {
+      cachedHead = head.get();
+      if ( position - cachedHead >= capacity && !awaitRoom( position, TimeUnit.MILLISECONDS.toNanos( timeoutPut ) ) ) {
+        return 0;
+      }
+    }
+
+    int room = (int) ( capacity - ( position - cachedHead ) );
+    int count = 0;
+    for ( Object[] row : rows ) {
+      if ( count >= room || row == null ) {
+        break;
+      }
+      buffer[ (int) ( position + count ) & mask ] = row;
+      count++;
+    }
+    if ( count == 0 ) {
+      return 0;
+    }
+    tail.set( position + count );
+
+    Thread reader = waitingReader;
+    if ( reader != null ) {
+      LockSupport.unpark( reader );
+    }
+    return count;
+  }
+
+  private boolean awaitRoom( long position, long timeoutNanos ) {
+    final long deadline = System.nanoTime() + timeoutNanos;
+    int tries = 0;
+    while ( true ) {
+      cachedHead = head.get();
+      if ( position - cachedHead < capacity ) {
+        return true;
+      }
+      long remaining = deadline - System.nanoTime();
+      if ( remaining <= 0 || Thread.currentThread().isInterrupted() ) {
+        return false;
+      }
+      if ( tries < SPIN_TRIES ) {
+        tries++;
+        Thread.onSpinWait();
+        continue;
+      }
+      if ( tries < SPIN_TRIES + YIELD_TRIES ) {
+        tries++;
+        Thread.yield();
+        continue;
+      }
+      waitingWriter = Thread.currentThread();
+      try {
+        // Re-check after announcing ourselves so we can't miss the reader's signal
+        cachedHead = head.get();
+        if ( position - cachedHead < capacity ) {
+          return true;
+        }
+        LockSupport.parkNanos( this, Math.min( remaining, MAX_PARK_NANOS ) );
+      } finally {
+        waitingWriter = null;
+      }
+    }
+  }
+
+  @Override
+  public Object[] getRow() {
+    return getRowWait( timeoutGet, TimeUnit.MILLISECONDS );
+  }
+
+  @Override
+  public Object[] getRowImmediate() {
+    long position = head.get();
+    if ( position >= cachedTail ) {
+      cachedTail = tail.get();
+      if ( position >= cachedTail ) {
+        return null;
+      }
+    }
+    return take( position );
+  }
+
+  @Override
+  public Object[] getRowWait( long timeout, TimeUnit tu ) {
+    Object[] row = getRowImmediate();
+    if ( row != null ) {
+      return row;
+    }
+
+    final long position = head.get();
+    final long deadline = System.nanoTime() + tu.toNanos( timeout );
+    int tries = 0;
+    while ( true ) {
+      cachedTail = tail.get();
+      if ( position < cachedTail ) {
+        return take( position );
+      }
+      long remaining = deadline - System.nanoTime();
+      if ( remaining <= 0 || Thread.currentThread().isInterrupted() ) {
+        return null;
+      }
+      if ( tries < SPIN_TRIES ) {
+        tries++;
+        Thread.onSpinWait();
+        continue;
+      }
+      if ( tries < SPIN_TRIES + YIELD_TRIES ) {
+        tries++;
+        Thread.yield();
+        continue;
+      }
+      waitingReader = Thread.currentThread();
+      try {
+        // Re-check after announcing ourselves so we can't miss the writer's signal
+        cachedTail = tail.get();
+        if ( position < cachedTail ) {
+          return take( position );
+        }
+        LockSupport.parkNanos( this, Math.min( remaining, MAX_PARK_NANOS ) );
+      } finally {
+        waitingReader = null;
+      }
+    }
+  }
+
+  /**
+   * Waits for the first row like {@link #getRow()} does, then takes all the rows that are available (up to max) and
+   * frees their slots at once.
+   */
+  @Override
+  public List<Object[]> getRows( int max ) {
+    Object[] first = getRow();
+    if ( first == null ) {
+      return new ArrayList<>( 0 );
+    }
+
+    long position = head.get();
+    cachedTail = tail.get();
+    int count = (int) Math.min( Math.max( 0, max - 1 ), cachedTail - position );
+
+    List<Object[]> rows = new ArrayList<>( count + 1 );
+    rows.add( first );
+    if ( count > 0 ) {
+      for ( int i = 0; i < count; i++ ) {
+        int index = (int) ( position + i ) & mask;
+        rows.add( buffer[ index ] );
+        buffer[ index ] = null; // prevent any hold-up to GC
+      }
+      head.set( position + count );
+
+      Thread writer = waitingWriter;
+      if ( writer != null ) {
+        LockSupport.unpark( writer );
+      }
+    }
+    return rows;
+  }
+
+  private Object[] take( long position ) {
+    int index = (int) position & mask;
+    Object[] row = buffer[ index ];
+    buffer[ index ] = null; // prevent any hold-up to GC
+    // Volatile write: frees the slot and orders against the read of waitingWriter below.
+    head.set( position + 1 );
+
+    Thread writer = waitingWriter;
+    if ( writer != null ) {
+      LockSupport.unpark( writer );
+    }
+    return row;
+  }
+
+  @Override
+  public int size() {
+    // Read the head first so that the difference can never be negative
+    long h = head.get();
+    return (int) Math.max( 0L, tail.get() - h );
+  }
+
+  @Override
+  public void setDone() {
+    super.setDone();
+
+    // Wake up a reader that might be waiting for rows that will never arrive
+    Thread reader = waitingReader;
+    if ( reader != null ) {
+      LockSupport.unpark( reader );
+    }
+  }
+
+  @Override
+  public void clear() {
+    long h = head.get();
+    long t = tail.get();
+    for ( long i = h; i < t; i++ ) {
+      buffer[ (int) i & mask ] = null;
+    }
+    head.set( t );
+    cachedHead = t;
+    cachedTail = t;
+    done.set( false );
+  }
+
+}
@@ -14,6 +14,8 @@
 
 package org.pentaho.di.core;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import org.pentaho.di.core.row.RowMetaInterface;
@@ -48,6 +50,29 @@ public interface RowSet {
    */
   boolean putRowWait( RowMetaInterface rowMeta, Object[] rowData, long time, TimeUnit tu );
 
+  /**
+   * Offer a batch of rows to this rowset. If the buffer is full, wait (block) for a small period of time until there is
+   * room for the first row. The remaining rows are only added for as long as there is room in the buffer.<br>
+   * The default implementation adds the rows one by one, row sets that can do better override this method.
+   *
+   * @param rowMeta
+   *          The description of the row data
+   * @param rows
+   *          the rows of data
+   * @return the number of rows, counting from the start of the list, that were added to the rowset.
+   */
+  default int putRows( RowMetaInterface rowMeta, List<Object[]> rows ) {
+    int count = 0;
+    for ( Object[] row : rows ) {
+      boolean added = count == 0 ? putRow( rowMeta, row ) : putRowWait( rowMeta, row, 0, TimeUnit.MILLISECONDS );
+      if ( !added ) {
+        break;
+      }
+      count++;
+    }
+    return count;
+  }
+
   /**
    * Get a row from the input buffer, it blocks for a short period until a new row becomes available. Otherwise, it
    * returns null.
@@ -70,6 +95,28 @@ public interface RowSet {
    */
   Object[] getRowWait( long timeout, TimeUnit tu );
 
+  /**
+   * Get a batch of rows from the input buffer. It blocks for a short period until a first row becomes available, then
+   * adds the rows that are immediately available, up to the given maximum.<br>
+   * The default implementation reads the rows one by one, row sets that can do better override this method.
+   *
+   * @param max
+   *          the maximum number of rows to return
+   * @return a list of rows, empty if no row is available.
+   */
+  default List<Object[]> getRows( int max ) {
+    List<Object[]> rows = new ArrayList<>( Math.max( 1, Math.min( max, size() ) ) );
+    Object[] row = getRow();
+    while ( row != null ) {
+      rows.add( row );
+      if ( rows.size() >= max ) {
+        break;
+      }
+      row = getRowImmediate();
+    }
+    return rows;
+  }
+
   /**
    * @return Set indication that there is no more input
    */
@@ -0,0 +1,116 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.pentaho.di.core.row.RowMetaInterface;
+
+/**
+ * A thread-safe buffer of rows without a size limit: putting a row never waits. Getting a row waits for at most the
+ * given timeout, just like the {@link BlockingRowSet}.<br>
+ * <br>
+ * This row set is meant for engines that schedule the steps themselves and only let a step produce rows when the
+ * buffers it writes to have room, so a step never ties up a (shared) thread while waiting to hand over its rows.
+ *
+ * @since 11.1
+ */
+public class UnboundedRowSet extends BaseRowSet implements Comparable<RowSet>, RowSet {
+
+  private final BlockingQueue<Object[]> queue;
+
+  private int timeoutGet;
+
+  public UnboundedRowSet() {
+    super();
+
+    queue = new LinkedBlockingQueue<>();
+
+    timeoutGet = Const.toInt( System.getProperty( Const.KETTLE_ROWSET_GET_TIMEOUT ), Const.TIMEOUT_GET_MILLIS );
+  }
+
+  @Override
+  public boolean putRow( RowMetaInterface rowMeta, Object[] rowData ) {
+    this.rowMeta = rowMeta;
+    return rowData != null && queue.offer( rowData );
+  }
+
+  @Override
+  public boolean putRowWait( RowMetaInterface rowMeta, Object[] rowData, long time, TimeUnit tu ) {
+    return putRow( rowMeta, rowData );
+  }
+
+  @Override
+  public int putRows( RowMetaInterface rowMeta, List<Object[]> rows ) {
+    this.rowMeta = rowMeta;
+    int count = 0;
+    for ( Object[] row : rows ) {
+      if ( row == null || !queue.offer( row ) ) {
+        break;
+      }
+      count++;
+    }
+    return count;
+  }
+
+  @Override
+  public Object[] getRow() {
+    return getRowWait( timeoutGet, TimeUnit.MILLISECONDS );
+  }
+
+  @Override
+  public Object[] getRowImmediate() {
+    return queue.poll();
+  }
+
+  @Override
+  public Object[] getRowWait( long timeout, TimeUnit tu ) {
+    try {
+      return queue.poll( timeout, tu );
+    } catch ( InterruptedException e ) {
+      return null;
+    }
+  }
+
+  @Override
+  public List<Object[]> getRows( int max ) {
+    Object[] row = getRow();
+    if ( row == null ) {
+      return new ArrayList<>( 0 );
+    }
+    List<Object[]> rows = new ArrayList<>( Math.max( 1, Math.min( max, queue.size() + 1 ) ) );
+    rows.add( row );
+    if ( max > 1 ) {
+      queue.drainTo( rows, max - 1 );
+    }
+    return rows;
+  }
+
+  @Override
+  public int size() {
+    return queue.size();
+  }
+
+  @Override
+  public void clear() {
+    queue.clear();
+    done.set( false );
+  }
+
+}
@@ -0,0 +1,266 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.cache;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongBiFunction;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.pentaho.di.core.RowMetaAndData;
+
+/**
+ * A thread safe cache that can be used by several threads at once, for example the copies of a lookup step or the
+ * same step in transformations that run at the same time. The least recently used entries are evicted when the
+ * estimated size of the entries goes over the maximum size in bytes. Optionally the entries expire a fixed time after
+ * they were stored.
+ * <p>
+ * The keys and values are shared between all the users of the cache, they should not be modified once stored.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ * @see SharedCacheManager
+ * @since 11.1
+ */
+public class SharedCache<K, V> {
+  /**
+   * The estimated overhead of an entry of the cache in bytes
+   */
+  static final long ENTRY_OVERHEAD = 64;
+
+  private final String name;
+  private final long maximumSize;
+  private final long timeToLive;
+  private final ToLongBiFunction<K, V> weigher;
+
+  // In access order, the least recently used entry comes first
+  private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>( 16, 0.75f, true );
+
+  private long estimatedSize;
+  private long hits;
+  private long misses;
+  private long evictions;
+  private long expirations;
+
+  @VisibleForTesting
+  LongSupplier clock = System::currentTimeMillis;
+
+  /**
+   * @param name
+   *          the name of the cache
+   * @param maximumSize
+   *          the maximum estimated size of the entries in bytes
+   * @param timeToLive
+   *          the number of milliseconds after which a stored entry expires, 0 or less to never expire the entries
+   * @param weigher
+   *          estimates the size in bytes of a key and its value
+   */
+  public SharedCache( String name, long maximumSize, long timeToLive, ToLongBiFunction<K, V> weigher ) {
+    this.name = name;
+    this.maximumSize = maximumSize;
+    this.timeToLive = timeToLive;
+    this.weigher = weigher;
+  }
+
+  /**
+   * @return the value stored for the key or null if the key isn't in the cache or has expired
+   */
+  public synchronized V get( K key ) {
+    Entry<V> entry = entries.get( key );
+    if ( entry != null && isExpired( entry ) ) {
+      remove( key, entry );
+      expirations++;
+      entry = null;
+    }
+    if ( entry == null ) {
+      misses++;
+      return null;
+    }
+    hits++;
+    return entry.value;
+  }
+
+  /**
+   * Stores a value for the key, replacing the previous value. The least recently used entries are evicted to make
+   * room. A value that is larger than the cache on its own is not stored.
+   *
+   * @return false if the value is larger than the cache and wasn't stored
+   */
+  public synchronized boolean put( K key, V value ) {
+    Entry<V> previous = entries.remove( key );
+    if ( previous != null ) {
+      estimatedSize -= previous.size;
+    }
+    long size = ENTRY_OVERHEAD + weigher.applyAsLong( key, value );
+    if ( size > maximumSize ) {
+      evictions++;
+      return false;
+    }
+    entries.put( key, new Entry<>( value, size, timeToLive > 0 ? clock.getAsLong() + timeToLive : Long.MAX_VALUE ) );
+    estimatedSize += size;
+    evict();
+    return true;
+  }
+
+  /**
+   * Stores a value for the key unless a value that hasn't expired is stored already.
+   *
+   * @return the value that was stored already or null if the value was stored
+   */
+  public synchronized V putIfAbsent( K key, V value ) {
+    Entry<V> entry = entries.get( key );
+    if ( entry != null && !isExpired( entry ) ) {
+      return entry.value;
+    }
+    put( key, value );
+    return null;
+  }
+
+  /**
+   * Removes the key and its value from the cache.
+   */
+  public synchronized void invalidate( K key ) {
+    Entry<V> entry = entries.get( key );
+    if ( entry != null ) {
+      remove( key, entry );
+    }
+  }
+
+  /**
+   * Removes all the entries from the cache. The statistics are kept.
+   */
+  public synchronized void clear() {
+    entries.clear();
+    estimatedSize = 0;
+  }
+
+  /**
+   * @return the number of entries in the cache, expired entries that weren't removed yet included
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * @return the statistics of the cache at this time
+   */
+  public synchronized SharedCacheStats getStats() {
+    return new SharedCacheStats( name, entries.size(), estimatedSize, maximumSize, hits, misses, evictions,
+      expirations );
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * @return the maximum estimated size of the entries in bytes
+   */
+  public long getMaximumSize() {
+    return maximumSize;
+  }
+
+  /**
+   * @return the number of milliseconds after which a stored entry expires, 0 or less if the entries never expire
+   */
+  public long getTimeToLive() {
+    return timeToLive;
+  }
+
+  /**
+   * Estimates the heap size of a value as stored in a Kettle row: strings, numbers, dates, binaries, rows, rows with
+   * their metadata and collections of rows.
+   *
+   * @return the estimated size in bytes
+   */
+  public static long estimateSize( Object value ) {
+    if ( value == null ) {
+      return 0;
+    }
+    if ( value instanceof String ) {
+      return 40 + 2L * ( (String) value ).length();
+    }
+    if ( value instanceof byte[] ) {
+      return 16 + ( (byte[]) value ).length;
+    }
+    if ( value instanceof Object[] ) {
+      Object[] row = (Object[]) value;
+      long size = 16 + 8L * row.length;
+      for ( Object data : row ) {
+        size += estimateSize( data );
+      }
+      return size;
+    }
+    if ( value instanceof Collection ) {
+      Collection<?> collection = (Collection<?>) value;
+      long size = 16 + 8L * collection.size();
+      for ( Object data : collection ) {
+        size += estimateSize( data );
+      }
+      return size;
+    }
+    if ( value instanceof RowMetaAndData ) {
+      // The metadata is usually shared between the rows
+      return 16 + estimateSize( ( (RowMetaAndData) value ).getData() );
+    }
+    if ( value instanceof BigDecimal ) {
+      return 64 + ( (BigDecimal) value ).unscaledValue().bitLength() / 8;
+    }
+    if ( value instanceof Date ) {
+      return 24;
+    }
+    return 16;
+  }
+
+  private void evict() {
+    Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+    while ( estimatedSize > maximumSize && iterator.hasNext() ) {
+      Entry<V> eldest = iterator.next().getValue();
+      iterator.remove();
+      estimatedSize -= eldest.size;
+      if ( isExpired( eldest ) ) {
+        expirations++;
+      } else {
+        evictions++;
+      }
+    }
+  }
+
+  private boolean isExpired( Entry<V> entry ) {
+    return entry.expires != Long.MAX_VALUE && entry.expires <= clock.getAsLong();
+  }
+
+  private void remove( K key, Entry<V> entry ) {
+    entries.remove( key );
+    estimatedSize -= entry.size;
+  }
+
+  private static class Entry<V> {
+    private final V value;
+    private final long size;
+    private final long expires;
+
+    Entry( V value, long size, long expires ) {
+      this.value = value;
+      this.size = size;
+      this.expires = expires;
+    }
+  }
+}
@@ -0,0 +1,204 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.ToLongBiFunction;
+
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.variables.VariableSpace;
+
+/**
+ * Keeps the named {@link SharedCache}s of the JVM. Steps that find their cache by the same name share the entries,
+ * whether they are copies of the same step or run in different transformations, for example on the same Carte
+ * server. The name should therefore identify everything that determines the cached values: the connection, the
+ * table, the key and the returned fields, etc.
+ * <p>
+ * Every {@link #getCache(String, long, long, ToLongBiFunction)} has to be paired with a
+ * {@link #releaseCache(SharedCache)}, usually when the step is disposed. A cache stays in memory as long as a step
+ * uses it, the last release removes it. The maximum sizes of the caches together stay within a JVM wide maximum, a
+ * new cache only gets the room that is left. There is no new cache once all the room is taken, the step then keeps a
+ * cache of its own.
+ *
+ * @since 11.1
+ */
+public class SharedCacheManager {
+  /**
+   * The default maximum size of a cache in MB
+   */
+  public static final int DEFAULT_CACHE_SIZE_MB = 256;
+
+  /**
+   * The default maximum size of all the caches together in MB
+   */
+  public static final int DEFAULT_TOTAL_SIZE_MB = 1024;
+
+  /**
+   * The default number of seconds after which a cached entry expires
+   */
+  public static final int DEFAULT_CACHE_TTL = 600;
+
+  private static final SharedCacheManager instance = new SharedCacheManager();
+
+  private final Map<String, SharedCache<?, ?>> caches = new HashMap<>();
+  private final Map<String, Integer> references = new HashMap<>();
+  private long maximumTotalSize = DEFAULT_TOTAL_SIZE_MB * 1024L * 1024L;
+
+  SharedCacheManager() {
+  }
+
+  public static SharedCacheManager getInstance() {
+    return instance;
+  }
+
+  /**
+   * Finds the cache with the given name or creates it when it doesn't exist yet. The size and time to live of an
+   * existing cache are not changed. A new cache is smaller than the maximum size if the other caches leave less room,
+   * no cache is created when they leave no room at all: it would store nothing.
+   *
+   * @param name
+   *          the name of the cache
+   * @param maximumSize
+   *          the maximum estimated size of the entries in bytes
+   * @param timeToLive
+   *          the number of milliseconds after which a stored entry expires, 0 or less to never expire the entries
+   * @param weigher
+   *          estimates the size in bytes of a key and its value
+   * @return the cache, to release with {@link #releaseCache(SharedCache)}, or null if the other caches take all the
+   *         room
+   */
+  @SuppressWarnings( "unchecked" )
+  public synchronized <K, V> SharedCache<K, V> getCache( String name, long maximumSize, long timeToLive,
+    ToLongBiFunction<K, V> weigher ) {
+    SharedCache<K, V> cache = (SharedCache<K, V>) caches.get( name );
+    if ( cache == null ) {
+      long room = maximumTotalSize - getTotalMaximumSize();
+      if ( room <= 0 ) {
+        return null;
+      }
+      cache = new SharedCache<>( name, Math.min( maximumSize, room ), timeToLive, weigher );
+      caches.put( name, cache );
+    }
+    references.merge( name, 1, Integer::sum );
+    return cache;
+  }
+
+  /**
+   * Finds the cache with the given name or creates it with the size and time to live of the variables
+   * {@link Const#KETTLE_SHARED_CACHE_SIZE_MB} and {@link Const#KETTLE_SHARED_CACHE_TTL}. The variable
+   * {@link Const#KETTLE_SHARED_CACHE_TOTAL_SIZE_MB} sets the maximum size of all the caches together.
+   *
+   * @param space
+   *          the variables to use
+   */
+  public <K, V> SharedCache<K, V> getCache( String name, VariableSpace space, ToLongBiFunction<K, V> weigher ) {
+    long maximumSize =
+      Const.toLong( space.getVariable( Const.KETTLE_SHARED_CACHE_SIZE_MB ), DEFAULT_CACHE_SIZE_MB ) * 1024 * 1024;
+    long timeToLive = Const.toLong( space.getVariable( Const.KETTLE_SHARED_CACHE_TTL ), DEFAULT_CACHE_TTL ) * 1000;
+    long maximumTotalSize =
+      Const.toLong( space.getVariable( Const.KETTLE_SHARED_CACHE_TOTAL_SIZE_MB ), DEFAULT_TOTAL_SIZE_MB ) * 1024 * 1024;
+    setMaximumTotalSize( maximumTotalSize );
+    return getCache( name, maximumSize, timeToLive, weigher );
+  }
+
+  /**
+   * Releases a cache that was returned by one of the getCache methods. The last release removes the cache and its
+   * entries.
+   */
+  public synchronized void releaseCache( SharedCache<?, ?> cache ) {
+    String name = cache.getName();
+    if ( caches.get( name ) != cache ) {
+      // Removed already
+      return;
+    }
+    int left = references.merge( name, -1, Integer::sum );
+    if ( left <= 0 ) {
+      removeCache( name );
+    }
+  }
+
+  /**
+   * @return the cache with the given name or null if there is no such cache
+   */
+  public synchronized SharedCache<?, ?> findCache( String name ) {
+    return caches.get( name );
+  }
+
+  /**
+   * Removes the cache with the given name, whether it's in use or not. Its entries are released.
+   */
+  public synchronized void removeCache( String name ) {
+    references.remove( name );
+    SharedCache<?, ?> cache = caches.remove( name );
+    if ( cache != null ) {
+      cache.clear();
+    }
+  }
+
+  /**
+   * Removes all the caches.
+   */
+  public synchronized void removeAllCaches() {
+    for ( String name : getCacheNames() ) {
+      removeCache( name );
+    }
+  }
+
+  /**
+   * @param maximumTotalSize
+   *          the maximum size in bytes of all the caches together, it applies to the caches created from now on
+   */
+  public synchronized void setMaximumTotalSize( long maximumTotalSize ) {
+    this.maximumTotalSize = maximumTotalSize;
+  }
+
+  /**
+   * @return the maximum size in bytes of all the caches together
+   */
+  public synchronized long getMaximumTotalSize() {
+    return maximumTotalSize;
+  }
+
+  /**
+   * @return the names of the caches, sorted
+   */
+  public synchronized List<String> getCacheNames() {
+    return new ArrayList<>( new TreeSet<>( caches.keySet() ) );
+  }
+
+  /**
+   * @return the statistics of all the caches, sorted by name
+   */
+  public synchronized List<SharedCacheStats> getStats() {
+    List<SharedCacheStats> stats = new ArrayList<>();
+    for ( String name : getCacheNames() ) {
+      stats.add( caches.get( name ).getStats() );
+    }
+    return Collections.unmodifiableList( stats );
+  }
+
+  private long getTotalMaximumSize() {
+    long total = 0;
+    for ( SharedCache<?, ?> cache : caches.values() ) {
+      total += cache.getMaximumSize();
+    }
+    return total;
+  }
+}
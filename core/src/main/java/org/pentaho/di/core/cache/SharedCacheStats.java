@@ -0,0 +1,98 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.cache;
+
+/**
+ * The statistics of a {@link SharedCache} at a point in time.
+ *
+ * @since 11.1
+ */
+public class SharedCacheStats {
+  private final String name;
+  private final int entryCount;
+  private final long estimatedSize;
+  private final long maximumSize;
+  private final long hitCount;
+  private final long missCount;
+  private final long evictionCount;
+  private final long expirationCount;
+
+  public SharedCacheStats( String name, int entryCount, long estimatedSize, long maximumSize, long hitCount,
+    long missCount, long evictionCount, long expirationCount ) {
+    this.name = name;
+    this.entryCount = entryCount;
+    this.estimatedSize = estimatedSize;
+    this.maximumSize = maximumSize;
+    this.hitCount = hitCount;
+    this.missCount = missCount;
+    this.evictionCount = evictionCount;
+    this.expirationCount = expirationCount;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public int getEntryCount() {
+    return entryCount;
+  }
+
+  /**
+   * @return the estimated size of the entries in bytes
+   */
+  public long getEstimatedSize() {
+    return estimatedSize;
+  }
+
+  /**
+   * @return the maximum estimated size of the entries in bytes
+   */
+  public long getMaximumSize() {
+    return maximumSize;
+  }
+
+  public long getHitCount() {
+    return hitCount;
+  }
+
+  public long getMissCount() {
+    return missCount;
+  }
+
+  /**
+   * @return the number of entries removed or not stored to stay under the maximum size
+   */
+  public long getEvictionCount() {
+    return evictionCount;
+  }
+
+  public long getExpirationCount() {
+    return expirationCount;
+  }
+
+  /**
+   * @return the fraction of the lookups that found a value, 0 if there were no lookups
+   */
+  public double getHitRate() {
+    long lookups = hitCount + missCount;
+    return lookups == 0 ? 0.0 : (double) hitCount / lookups;
+  }
+
+  @Override
+  public String toString() {
+    return String.format( "%s: %d entries, %d of %d bytes, hit rate %.1f%%, %d evictions, %d expirations", name,
+      entryCount, estimatedSize, maximumSize, getHitRate() * 100, evictionCount, expirationCount );
+  }
+}
@@ -2319,6 +2319,42 @@ public abstract class BaseDatabaseMeta implements Cloneable, DatabaseInterfaceEx
     return "DROP TABLE IF EXISTS " + tableName;
   }
 
+  /**
+   * Forms the standard SQL MERGE statement of {@link #getUpsertStatement(String, String, String[], String[], String[])}
+   * for the databases that support it.
+   */
+  protected String getMergeStatement( String tableName, String sourceTableName, String[] keyFields,
+    String[] insertFields, String[] updateFields ) {
+    StringBuilder sql = new StringBuilder( "MERGE INTO " ).append( tableName ).append( " tgt USING " );
+    sql.append( sourceTableName ).append( " src ON ( " );
+    for ( int i = 0; i < keyFields.length; i++ ) {
+      if ( i > 0 ) {
+        sql.append( " AND " );
+      }
+      sql.append( "tgt." ).append( keyFields[ i ] ).append( " = src." ).append( keyFields[ i ] );
+    }
+    sql.append( " )" );
+    if ( updateFields.length > 0 ) {
+      sql.append( " WHEN MATCHED THEN UPDATE SET " );
+      for ( int i = 0; i < updateFields.length; i++ ) {
+        if ( i > 0 ) {
+          sql.append( ", " );
+        }
+        sql.append( "tgt." ).append( updateFields[ i ] ).append( " = src." ).append( updateFields[ i ] );
+      }
+    }
+    sql.append( " WHEN NOT MATCHED THEN INSERT ( " ).append( String.join( ", ", insertFields ) );
+    sql.append( " ) VALUES ( " );
+    for ( int i = 0; i < insertFields.length; i++ ) {
+      if ( i > 0 ) {
+        sql.append( ", " );
+      }
+      sql.append( "src." ).append( insertFields[ i ] );
+    }
+    sql.append( " )" );
+    return sql.toString();
+  }
+
   @Override
   public boolean fullExceptionLog( Exception e ) {
     return true;
@@ -0,0 +1,173 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.database;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.exception.KettleDatabaseException;
+
+/**
+ * Keeps the connection pools of the JVM, for example of a Carte server. A pool is found by the identity of its
+ * connections: the driver, the resolved URL, the user, the password and the pooling properties. Connections with
+ * another name or in another transformation therefore share the pool when they connect to the same database in the
+ * same way, and don't pay the cost of opening a connection again.
+ *
+ * @since 11.1
+ */
+public class ConnectionPoolRegistry {
+  /**
+   * Creates a pool when there is none with the identity yet.
+   */
+  public interface PoolFactory {
+    PooledDataSource createPool() throws KettleDatabaseException;
+  }
+
+  private static final ConnectionPoolRegistry instance = new ConnectionPoolRegistry();
+
+  private final Map<String, PooledDataSource> pools = new ConcurrentHashMap<>();
+
+  ConnectionPoolRegistry() {
+  }
+
+  public static ConnectionPoolRegistry getInstance() {
+    return instance;
+  }
+
+  /**
+   * Builds the identity of the connections of a pool. The password is only kept as a digest.
+   *
+   * @param driverClass
+   *          the class of the JDBC driver
+   * @param url
+   *          the resolved URL
+   * @param username
+   *          the resolved user name
+   * @param password
+   *          the resolved and decrypted password
+   * @param poolingProperties
+   *          the resolved pooling properties
+   * @return the identity of the connections
+   */
+  public static String getIdentity( String driverClass, String url, String username, String password,
+    Properties poolingProperties ) {
+    Map<String, String> properties = new TreeMap<>();
+    if ( poolingProperties != null ) {
+      for ( String key : poolingProperties.stringPropertyNames() ) {
+        properties.put( key, poolingProperties.getProperty( key ) );
+      }
+    }
+    return Const.NVL( driverClass, "" ) + "|" + Const.NVL( url, "" ) + "|" + Const.NVL( username, "" ) + "|"
+      + digest( Const.NVL( password, "" ) ) + "|" + properties;
+  }
+
+  private static String digest( String value ) {
+    try {
+      byte[] hash = MessageDigest.getInstance( "SHA-256" ).digest( value.getBytes( StandardCharsets.UTF_8 ) );
+      StringBuilder hex = new StringBuilder();
+      for ( byte b : hash ) {
+        hex.append( String.format( "%02x", b ) );
+      }
+      return hex.toString();
+    } catch ( NoSuchAlgorithmException e ) {
+      // Every JVM has SHA-256
+      throw new IllegalStateException( e );
+    }
+  }
+
+  /**
+   * Finds the pool with the given identity or creates it when it doesn't exist yet. The settings of an existing pool
+   * are not changed.
+   *
+   * @param identity
+   *          the identity of the connections, see {@link #getIdentity(String, String, String, String, Properties)}
+   * @param factory
+   *          creates the pool when needed
+   * @return the pool
+   */
+  public PooledDataSource getPool( String identity, PoolFactory factory ) throws KettleDatabaseException {
+    PooledDataSource pool = pools.get( identity );
+    if ( pool == null ) {
+      synchronized ( pools ) {
+        pool = pools.get( identity );
+        if ( pool == null ) {
+          pool = factory.createPool();
+          pools.put( identity, pool );
+        }
+      }
+    }
+    return pool;
+  }
+
+  /**
+   * @return the pool with the given identity or null if there is no such pool
+   */
+  public PooledDataSource findPool( String identity ) {
+    return pools.get( identity );
+  }
+
+  /**
+   * Removes the pool with the given identity and closes its idle connections. Borrowed connections are closed when
+   * they are returned.
+   */
+  public void removePool( String identity ) throws KettleDatabaseException {
+    PooledDataSource pool = pools.remove( identity );
+    if ( pool != null ) {
+      try {
+        pool.close();
+      } catch ( SQLException e ) {
+        throw new KettleDatabaseException( "Unable to close connection pool " + pool.getName(), e );
+      }
+    }
+  }
+
+  /**
+   * Removes and closes all the pools.
+   */
+  public void removeAllPools() throws KettleDatabaseException {
+    for ( String identity : new ArrayList<>( pools.keySet() ) ) {
+      removePool( identity );
+    }
+  }
+
+  /**
+   * @return the statistics of all the pools, sorted by name
+   */
+  public List<ConnectionPoolStats> getStats() {
+    Map<String, ConnectionPoolStats> stats = new TreeMap<>();
+    for ( Map.Entry<String, PooledDataSource> entry : pools.entrySet() ) {
+      // The identity keeps pools with the same name apart
+      stats.put( entry.getValue().getName() + entry.getKey(), entry.getValue().getStats() );
+    }
+    return Collections.unmodifiableList( new ArrayList<>( stats.values() ) );
+  }
+
+  /**
+   * @return the number of pools
+   */
+  public int size() {
+    return pools.size();
+  }
+}
@@ -0,0 +1,97 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.database;
+
+/**
+ * The statistics of a connection pool of the {@link ConnectionPoolRegistry} at a point in time.
+ *
+ * @since 11.1
+ */
+public class ConnectionPoolStats {
+  private final String name;
+  private final int activeCount;
+  private final int idleCount;
+  private final int maximumCount;
+  private final long borrowCount;
+  private final long totalBorrowWaitMillis;
+  private final long maximumBorrowWaitMillis;
+
+  public ConnectionPoolStats( String name, int activeCount, int idleCount, int maximumCount, long borrowCount,
+    long totalBorrowWaitMillis, long maximumBorrowWaitMillis ) {
+    this.name = name;
+    this.activeCount = activeCount;
+    this.idleCount = idleCount;
+    this.maximumCount = maximumCount;
+    this.borrowCount = borrowCount;
+    this.totalBorrowWaitMillis = totalBorrowWaitMillis;
+    this.maximumBorrowWaitMillis = maximumBorrowWaitMillis;
+  }
+
+  /**
+   * @return the name of the pool: the user and the URL of the connections
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * @return the number of connections that are borrowed from the pool
+   */
+  public int getActiveCount() {
+    return activeCount;
+  }
+
+  /**
+   * @return the number of open connections waiting in the pool
+   */
+  public int getIdleCount() {
+    return idleCount;
+  }
+
+  /**
+   * @return the maximum number of connections of the pool, negative for no limit
+   */
+  public int getMaximumCount() {
+    return maximumCount;
+  }
+
+  public long getBorrowCount() {
+    return borrowCount;
+  }
+
+  /**
+   * @return the total time in ms spent waiting for a connection, including opening new connections
+   */
+  public long getTotalBorrowWaitMillis() {
+    return totalBorrowWaitMillis;
+  }
+
+  public long getMaximumBorrowWaitMillis() {
+    return maximumBorrowWaitMillis;
+  }
+
+  /**
+   * @return the mean time in ms spent waiting for a connection, 0 if no connection was borrowed
+   */
+  public double getMeanBorrowWaitMillis() {
+    return borrowCount == 0 ? 0.0 : (double) totalBorrowWaitMillis / borrowCount;
+  }
+
+  @Override
+  public String toString() {
+    return String.format( "%s: %d active, %d idle of %d, %d borrowed, wait %.1f ms mean, %d ms max", name,
+      activeCount, idleCount, maximumCount, borrowCount, getMeanBorrowWaitMillis(), maximumBorrowWaitMillis );
+  }
+}
@@ -21,14 +21,17 @@ import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.core.database.util.DatabaseUtil;
 import org.pentaho.di.core.encryption.Encr;
 import org.pentaho.di.core.exception.KettleDatabaseException;
+import org.pentaho.di.core.logging.LogChannel;
 import org.pentaho.di.core.logging.LogChannelInterface;
 import org.pentaho.di.i18n.BaseMessages;
 
 import javax.sql.DataSource;
 
 import java.sql.Connection;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
@@ -57,17 +60,43 @@ public class ConnectionPoolUtil {
   public static final String REMOVE_ABANDONED = "removeAbandoned";
   public static final String REMOVE_ABANDONED_TIMEOUT = "removeAbandonedTimeout";
   public static final String LOG_ABANDONED = "logAbandoned";
+  public static final String CONNECTION_INIT_SQLS = "connectionInitSqls";
   private static Class<?> PKG = Database.class; // for i18n purposes, needed by Translator2!!
 
   private static ConcurrentMap<String, BasicDataSource> dataSources = new ConcurrentHashMap<String, BasicDataSource>();
   private static Map<String, Properties> dataSourcesAttributesMap = new HashMap<>();
 
+  /**
+   * The identities of the pools of the data sources in the {@link ConnectionPoolRegistry}, by the name of the data
+   * source
+   */
+  private static final Map<String, String> poolIdentities = new HashMap<>();
+
+  private static final String DRIVER_PROPERTY_PREFIX = "driver.";
+  private static final String USER_PROPERTY = "user";
+  private static final String PASSWORD_PROPERTY = "password";
+
   // PDI-12947
   private static final ReentrantLock lock = new ReentrantLock();
 
   public static final int defaultInitialNrOfConnections = 5;
   public static final int defaultMaximumNrOfConnections = 10;
 
+  /**
+   * The default number of seconds after which an idle connection is closed
+   */
+  public static final long DEFAULT_IDLE_TIMEOUT = 300;
+
+  /**
+   * The longest interval in ms between two runs of the eviction of idle connections
+   */
+  private static final long MAX_EVICTION_INTERVAL = 60000L;
+
+  /**
+   * The default number of seconds to wait for a connection of a pool that has none left
+   */
+  public static final long DEFAULT_MAX_WAIT = 60;
+
   private static boolean isDataSourceRegistered( DatabaseMeta dbMeta, String partitionId )
     throws KettleDatabaseException {
     try {
@@ -94,8 +123,133 @@ public class ConnectionPoolUtil {
     return dataSources.get( getDataSourceName( dbMeta, partitionId ) );
   }
 
+  /**
+   * Gets the pool of a native connection that doesn't use pooling itself, when the server shares its pools with those
+   * connections, see {@link Const#KETTLE_SHARED_CONNECTION_POOL}. Such a connection has no pool size of its own, so
+   * the pool has no maximum besides {@link Const#KETTLE_CONNECTION_POOL_MAX_TOTAL}: every step of a transformation
+   * keeps its connection while it runs, and the steps would wait for each other forever in a smaller pool. The connect
+   * SQL of the connection is run once on every new connection of the pool, not on every borrow. The pool is shared
+   * by connections with other names as well, so it isn't closed when the settings of a connection change: a pool
+   * nobody uses anymore keeps no connections after the idle timeout, and is closed when the server stops.
+   *
+   * @param url the URL the connection is opened with when it doesn't use a pool
+   * @param connectionProperties the properties of the driver the connection is opened with when it doesn't use a
+   *          pool, with the user and password
+   */
+  public static DataSource getSharedDataSource( LogChannelInterface log, DatabaseMeta dbMeta, String partitionId,
+      String url, Properties connectionProperties ) throws KettleDatabaseException {
+    List<String> initSqls = getConnectionInitSqls( dbMeta );
+    Properties poolingProperties = new Properties();
+    if ( !initSqls.isEmpty() ) {
+      // Connections that run other SQL when they are opened don't share the pool
+      poolingProperties.setProperty( CONNECTION_INIT_SQLS, String.join( ";", initSqls ) );
+    }
+    // Neither do connections with other options of the driver, the password is only kept as a digest
+    for ( String key : connectionProperties.stringPropertyNames() ) {
+      if ( !PASSWORD_PROPERTY.equals( key ) ) {
+        poolingProperties.setProperty( DRIVER_PROPERTY_PREFIX + key, connectionProperties.getProperty( key ) );
+      }
+    }
+    String username = connectionProperties.getProperty( USER_PROPERTY );
+    String identity = ConnectionPoolRegistry.getIdentity( dbMeta.getDriverClass(), url, username,
+      connectionProperties.getProperty( PASSWORD_PROPERTY ), poolingProperties );
+    return ConnectionPoolRegistry.getInstance().getPool( identity, () -> {
+      if ( log.isBasic() ) {
+        log.logBasic( BaseMessages.getString( PKG, "Database.CreatingConnectionPool", dbMeta.getName() ) );
+      }
+
+      PooledDataSource pool = new PooledDataSource( getPoolName( username, url ) );
+      for ( String key : connectionProperties.stringPropertyNames() ) {
+        pool.addConnectionProperty( key, connectionProperties.getProperty( key ) );
+      }
+      pool.setUrl( url );
+      if ( dbMeta.getDatabaseInterface() != null ) {
+        pool.setDriverClassLoader( dbMeta.getDatabaseInterface().getClass().getClassLoader() );
+      }
+      pool.setDriverClassName( dbMeta.getDriverClass() );
+      pool.setInitialSize( 1 );
+      pool.setMaxTotal( -1 );
+      pool.setConnectionInitSqls( initSqls );
+      configurePoolLimits( pool, dbMeta );
+      testDataSource( pool );
+
+      if ( log.isBasic() ) {
+        log.logBasic( BaseMessages.getString( PKG, "Database.CreatedConnectionPool", dbMeta.getName() ) );
+      }
+      return pool;
+    } );
+  }
+
+  /**
+   * @return the statements of the connect SQL of the connection, without comments
+   */
+  @VisibleForTesting
+  static List<String> getConnectionInitSqls( DatabaseMeta dbMeta ) {
+    List<String> initSqls = new ArrayList<>();
+    String sql = dbMeta.environmentSubstitute( dbMeta.getConnectSQL() );
+    if ( Utils.isEmpty( sql ) || Const.onlySpaces( sql ) ) {
+      return initSqls;
+    }
+    SqlScriptParser parser = dbMeta.getDatabaseInterface().createSqlScriptParser();
+    for ( String statement : parser.split( sql ) ) {
+      statement = parser.removeComments( statement );
+      if ( !Const.onlySpaces( statement ) ) {
+        initSqls.add( Const.trim( statement ) );
+      }
+    }
+    return initSqls;
+  }
+
+  /**
+   * Removes a data source, its pool is closed when no other data source uses it
+   */
   public static DataSource removeDataSource( String name ) {
-    return dataSources.remove( name );
+    lock.lock();
+    try {
+      String identity = poolIdentities.remove( name );
+      if ( identity != null ) {
+        closeUnusedPool( identity );
+      }
+      return dataSources.remove( name );
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Removes all the data sources and closes their pools, when the server stops
+   */
+  public static void removeAllDataSources() throws KettleDatabaseException {
+    lock.lock();
+    try {
+      dataSources.clear();
+      dataSourcesAttributesMap.clear();
+      poolIdentities.clear();
+      ConnectionPoolRegistry.getInstance().removeAllPools();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Keeps the identity of the pool of a data source. The pool of the former settings of the data source is closed
+   * when no other data source uses it anymore. Called while holding the lock.
+   */
+  private static void setPoolIdentity( String name, String identity ) {
+    String oldIdentity = poolIdentities.put( name, identity );
+    if ( oldIdentity != null && !oldIdentity.equals( identity ) ) {
+      closeUnusedPool( oldIdentity );
+    }
+  }
+
+  private static void closeUnusedPool( String identity ) {
+    if ( !poolIdentities.containsValue( identity ) ) {
+      try {
+        ConnectionPoolRegistry.getInstance().removePool( identity );
+      } catch ( KettleDatabaseException e ) {
+        LogChannel.GENERAL.logError( e.getMessage(), e );
+      }
+    }
   }
 
   /**
@@ -157,7 +311,6 @@ public class ConnectionPoolUtil {
       ds.setDriverClassLoader( databaseMeta.getDatabaseInterface().getClass().getClassLoader() );
     }
     ds.setDriverClassName( clazz );
-    dataSourcesAttributesMap.put( getDataSourceName( databaseMeta, partitionId ), databaseMeta.getAttributes() );
   }
 
   private static void setCredentials( BasicDataSource ds, DatabaseMeta databaseMeta, String partitionId )
@@ -297,7 +450,8 @@ public class ConnectionPoolUtil {
   }
 
   /**
-   * This methods adds a new data source to cache
+   * This methods adds a new data source to cache. The data source is the pool of the {@link ConnectionPoolRegistry}
+   * with the same connections, it is created when there is no such pool yet.
    *
    * @param log
    * @param databaseMeta
@@ -308,19 +462,98 @@ public class ConnectionPoolUtil {
    */
   private static void addPoolableDataSource( LogChannelInterface log, DatabaseMeta databaseMeta, String partitionId,
       int initialSize, int maximumSize ) throws KettleDatabaseException {
-    if ( log.isBasic() ) {
-      log.logBasic( BaseMessages.getString( PKG, "Database.CreatingConnectionPool", databaseMeta.getName() ) );
-    }
+    String identity = getConnectionIdentity( databaseMeta, partitionId, initialSize, maximumSize );
+    BasicDataSource ds = ConnectionPoolRegistry.getInstance().getPool( identity, () -> {
+      if ( log.isBasic() ) {
+        log.logBasic( BaseMessages.getString( PKG, "Database.CreatingConnectionPool", databaseMeta.getName() ) );
+      }
+
+      PooledDataSource pool = new PooledDataSource( getPoolName( databaseMeta, partitionId ) );
+      configureDataSource( pool, databaseMeta, partitionId, initialSize, maximumSize );
+      configurePoolLimits( pool, databaseMeta );
+      // check if datasource is valid
+      testDataSource( pool );
+
+      if ( log.isBasic() ) {
+        log.logBasic( BaseMessages.getString( PKG, "Database.CreatedConnectionPool", databaseMeta.getName() ) );
+      }
+      return pool;
+    } );
 
-    BasicDataSource ds = new BasicDataSource();
-    configureDataSource( ds, databaseMeta, partitionId, initialSize, maximumSize );
-    // check if datasource is valid
-    testDataSource( ds );
     // register data source
-    dataSources.put( getDataSourceName( databaseMeta, partitionId ), ds );
+    String name = getDataSourceName( databaseMeta, partitionId );
+    dataSources.put( name, ds );
+    dataSourcesAttributesMap.put( name, databaseMeta.getAttributes() );
+    setPoolIdentity( name, identity );
+  }
+
+  /**
+   * @return the identity of the connections of the pool, see {@link ConnectionPoolRegistry#getIdentity}
+   */
+  @VisibleForTesting
+  static String getConnectionIdentity( DatabaseMeta databaseMeta, String partitionId, int initialSize,
+      int maximumSize ) throws KettleDatabaseException {
+    Properties poolingProperties =
+      environmentSubstitute( new Properties( databaseMeta.getConnectionPoolingProperties() ), databaseMeta );
+    // Pools of another size are kept apart, like the settings of the pool
+    if ( Utils.isEmpty( poolingProperties.getProperty( INITIAL_SIZE ) ) ) {
+      poolingProperties.setProperty( INITIAL_SIZE, String.valueOf( initialSize ) );
+    }
+    if ( Utils.isEmpty( poolingProperties.getProperty( MAX_ACTIVE ) ) ) {
+      poolingProperties.setProperty( MAX_ACTIVE, String.valueOf( maximumSize ) );
+    }
+    return ConnectionPoolRegistry.getIdentity( databaseMeta.getDriverClass(),
+      databaseMeta.environmentSubstitute( databaseMeta.getURL( partitionId ) ),
+      databaseMeta.environmentSubstitute( databaseMeta.getUsername() ), getPassword( databaseMeta ),
+      poolingProperties );
+  }
+
+  private static String getPassword( DatabaseMeta databaseMeta ) {
+    return Encr.decryptPasswordOptionallyEncrypted( databaseMeta.environmentSubstitute( databaseMeta.getPassword() ) );
+  }
+
+  /**
+   * @return the name of the pool in the statistics: the user and the URL, never the password
+   */
+  private static String getPoolName( DatabaseMeta databaseMeta, String partitionId ) throws KettleDatabaseException {
+    return getPoolName( databaseMeta.environmentSubstitute( databaseMeta.getUsername() ),
+      databaseMeta.environmentSubstitute( databaseMeta.getURL( partitionId ) ) );
+  }
+
+  private static String getPoolName( String username, String url ) {
+    return Utils.isEmpty( username ) ? Const.NVL( url, "" ) : username + "@" + Const.NVL( url, "" );
+  }
+
+  /**
+   * Applies the limits of the server to a new pool: idle connections are closed after
+   * {@link Const#KETTLE_CONNECTION_POOL_IDLE_TIMEOUT} seconds unless the pool sets its own eviction interval, the
+   * pool has no more than {@link Const#KETTLE_CONNECTION_POOL_MAX_TOTAL} connections, and a caller waits no longer
+   * than {@link Const#KETTLE_CONNECTION_POOL_MAX_WAIT} seconds for a connection unless the pool sets its own maximum
+   * wait.
+   */
+  @SuppressWarnings( "deprecation" )
+  @VisibleForTesting
+  static void configurePoolLimits( BasicDataSource ds, DatabaseMeta databaseMeta ) {
+    long idleTimeout = Const.toLong( databaseMeta.getVariable( Const.KETTLE_CONNECTION_POOL_IDLE_TIMEOUT ),
+      DEFAULT_IDLE_TIMEOUT );
+    Properties properties = databaseMeta.getConnectionPoolingProperties();
+    boolean evictionConfigured =
+      properties != null && !Utils.isEmpty( properties.getProperty( TIME_BETWEEN_EVICTION_RUNS_MILLIS ) );
+    if ( idleTimeout > 0 && !evictionConfigured ) {
+      ds.setMinEvictableIdleTimeMillis( idleTimeout * 1000 );
+      ds.setTimeBetweenEvictionRunsMillis( Math.min( idleTimeout * 1000, MAX_EVICTION_INTERVAL ) );
+    }
+
+    int maxTotal = Const.toInt( databaseMeta.getVariable( Const.KETTLE_CONNECTION_POOL_MAX_TOTAL ), 0 );
+    if ( maxTotal > 0 && ( ds.getMaxTotal() < 0 || ds.getMaxTotal() > maxTotal ) ) {
+      ds.setMaxTotal( maxTotal );
+      ds.setInitialSize( Math.min( ds.getInitialSize(), maxTotal ) );
+    }
 
-    if ( log.isBasic() ) {
-      log.logBasic( BaseMessages.getString( PKG, "Database.CreatedConnectionPool", databaseMeta.getName() ) );
+    long maxWait = Const.toLong( databaseMeta.getVariable( Const.KETTLE_CONNECTION_POOL_MAX_WAIT ), DEFAULT_MAX_WAIT );
+    boolean maxWaitConfigured = properties != null && !Utils.isEmpty( properties.getProperty( MAX_WAIT ) );
+    if ( maxWait > 0 && !maxWaitConfigured ) {
+      ds.setMaxWaitMillis( maxWait * 1000 );
     }
   }
 
@@ -87,6 +87,7 @@ import org.pentaho.di.core.logging.Metrics;
 import org.pentaho.di.core.plugins.DatabasePluginType;
 import org.pentaho.di.core.plugins.PluginInterface;
 import org.pentaho.di.core.plugins.PluginRegistry;
+import org.pentaho.di.core.row.RowChunk;
 import org.pentaho.di.core.row.RowDataUtil;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
@@ -485,7 +486,8 @@ public class Database implements VariableSpace, LoggingObjectInterface, Closeabl
    * <ol>
    * <li>If <code>databaseMeta.getAccessType()</code> returns
    * <code>DatabaseMeta.TYPE_ACCESS_JNDI</code>, then the connection's datasource is looked up in JNDI </li>
-   * <li>If <code>databaseMeta.isUsingConnectionPool()</code>, then the connection's datasource is looked up in the
+   * <li>If <code>databaseMeta.isUsingConnectionPool()</code> or if the variable
+   * {@link Const#KETTLE_SHARED_CONNECTION_POOL} is set, then the connection's datasource is looked up in the
    * pool</li>
    * <li>otherwise, the connection is established via {@linkplain java.sql.DriverManager}</li>
    * </ol>
@@ -504,7 +506,7 @@ public class Database implements VariableSpace, LoggingObjectInterface, Closeabl
         long startJndi = System.currentTimeMillis();
         this.connection = getDataSource( partitionId ).getConnection();
         log.logDetailed( "JNDI connection acquired for database [" + databaseMeta.getName() + "] in " + ( System.currentTimeMillis() - startJndi ) + " ms" );
-      } else if ( databaseMeta.isUsingConnectionPool() ) {
+      } else if ( isUsingConnectionPool() ) {
         log.logDetailed( "Acquiring pooled connection for database [" + databaseMeta.getName() + "]..." );
         long startPool = System.currentTimeMillis();
         this.connection = getDataSource( partitionId ).getConnection();
@@ -517,8 +519,8 @@ public class Database implements VariableSpace, LoggingObjectInterface, Closeabl
         connectUsingClass( databaseMeta.getDriverClass(), partitionId );
       }
 
-      // See if we need to execute extra SQL statement...
-      String sql = environmentSubstitute( databaseMeta.getConnectSQL() );
+      // See if we need to execute extra SQL statement... A shared pool runs it when it opens a connection
+      String sql = isUsingSharedConnectionPool() ? null : environmentSubstitute( databaseMeta.getConnectSQL() );
 
       // only execute if the SQL is not empty, null and is not just a bunch of
       // spaces, tabs, CR etc.
@@ -545,7 +547,7 @@ public class Database implements VariableSpace, LoggingObjectInterface, Closeabl
 
       if ( databaseMeta.getAccessType() == DatabaseMeta.TYPE_ACCESS_JNDI ) {
         this.dataSource = getJNDIDataSource( dsp );
-      } else if ( databaseMeta.isUsingConnectionPool() ) {
+      } else if ( isUsingConnectionPool() ) {
         this.dataSource = getPoolingDataSource( partitionId, dsp );
       }
     } catch ( Exception e ) {
@@ -553,7 +555,33 @@ public class Database implements VariableSpace, LoggingObjectInterface, Closeabl
     }
   }
 
+  /**
+   * @return true if the connection is taken from a pool: when the connection uses pooling or when the server shares
+   *         its pools with the native connections, see {@link Const#KETTLE_SHARED_CONNECTION_POOL}. Partitioned
+   *         connections and dynamic drivers are always opened by the driver.
+   */
+  private boolean isUsingConnectionPool() {
+    return databaseMeta.isUsingConnectionPool() || isUsingSharedConnectionPool();
+  }
+
+  /**
+   * @return true if the connection doesn't use pooling but is taken from the pools the server shares, see
+   *         {@link ConnectionPoolUtil#getSharedDataSource}
+   */
+  private boolean isUsingSharedConnectionPool() {
+    return !databaseMeta.isUsingConnectionPool()
+      && "Y".equalsIgnoreCase( getVariable( Const.KETTLE_SHARED_CONNECTION_POOL, "N" ) )
+      && databaseMeta.getAccessType() == DatabaseMeta.TYPE_ACCESS_NATIVE && !databaseMeta.isPartitioned()
+      && StringUtils.isBlank( databaseMeta.getAttributes().getProperty( DatabaseMeta.ATTRIBUTE_DYNAMIC_DRIVER_ID ) );
+  }
+
   private DataSource getPoolingDataSource( String partitionId, DataSourceProviderInterface dsp ) throws Exception {
+    if ( isUsingSharedConnectionPool() ) {
+      // The pool opens its connections like connectUsingClass does
+      Properties properties = databaseMeta.getConnectionProperties();
+      String url = getConnectionUrl( partitionId, properties );
+      return ConnectionPoolUtil.getSharedDataSource( log, databaseMeta, partitionId, url, properties );
+    }
 
     try {
       return dsp.getPooledDataSourceFromMeta( databaseMeta, DatasourceType.POOLED );
@@ -615,9 +643,7 @@ public class Database implements VariableSpace, LoggingObjectInterface, Closeabl
     }
 
     try {
-      String url = resolveUrl( partitionId );
-      String[] credentials = resolveCredentials( partitionId );
-      url = applyCredentialsToProperties( url, credentials[0], credentials[1], properties );
+      String url = getConnectionUrl( partitionId, properties );
 
       log.logDetailed( "Acquiring JDBC connection for database [" + databaseMeta.getName() + "] using driver class [" + classname + "]..." );
       long startJdbc = System.currentTimeMillis();
@@ -674,6 +700,15 @@ public class Database implements VariableSpace, LoggingObjectInterface, Closeabl
     }
   }
 
+  /**
+   * @return the URL the driver opens the connection with, the user and password are added to the properties
+   */
+  private String getConnectionUrl( String partitionId, Properties properties ) throws KettleDatabaseException {
+    String url = resolveUrl( partitionId );
+    String[] credentials = resolveCredentials( partitionId );
+    return applyCredentialsToProperties( url, credentials[0], credentials[1], properties );
+  }
+
   private String resolveUrl( String partitionId ) throws KettleDatabaseException {
     if ( databaseMeta.isPartitioned() && !Utils.isEmpty( partitionId ) ) {
       return environmentSubstitute( databaseMeta.getURL( partitionId ) );
@@ -993,7 +1028,7 @@ public class Database implements VariableSpace, LoggingObjectInterface, Closeabl
     try {
       if ( connection != null ) {
         connection.close();
-        if ( !databaseMeta.isUsingConnectionPool() ) {
+        if ( !isUsingConnectionPool() ) {
           connection = null;
         }
       }
@@ -1422,6 +1457,67 @@ public class Database implements VariableSpace, LoggingObjectInterface, Closeabl
     }
   }
 
+  /**
+   * Sets the values of one row of a chunk in a prepared statement. Integer and Number values are taken straight out of
+   * the primitive columns of the chunk, they are set the same way {@link #setValue(PreparedStatement,
+   * ValueMetaInterface, Object, int)} would.
+   *
+   * @param rowMeta
+   *          the description of the values to set
+   * @param chunk
+   *          the chunk holding the values
+   * @param row
+   *          the index of the row in the chunk
+   * @param columns
+   *          for every value in rowMeta, the index of its column in the chunk
+   * @param ps
+   *          the prepared statement
+   * @throws KettleDatabaseException
+   */
+  public void setValues( RowMetaInterface rowMeta, RowChunk chunk, int row, int[] columns, PreparedStatement ps )
+    throws KettleDatabaseException {
+    for ( int i = 0; i < rowMeta.size(); i++ ) {
+      ValueMetaInterface v = rowMeta.getValueMeta( i );
+      int column = columns[ i ];
+      int pos = i + 1;
+      int columnType = chunk.getColumnType( column );
+
+      try {
+        if ( columnType == RowChunk.COLUMN_OBJECT || columnType != RowChunk.getColumnType( v ) ) {
+          setValue( ps, v, chunk.getValue( column, row ), pos );
+        } else if ( columnType == RowChunk.COLUMN_LONG ) {
+          if ( chunk.isNull( column, row ) ) {
+            ps.setNull( pos, java.sql.Types.INTEGER );
+          } else if ( databaseMeta.supportsSetLong() ) {
+            ps.setLong( pos, chunk.getLong( column, row ) );
+          } else {
+            double d = chunk.getLong( column, row );
+            if ( databaseMeta.supportsFloatRoundingOnUpdate() && v.getPrecision() >= 0 ) {
+              ps.setDouble( pos, d );
+            } else {
+              ps.setDouble( pos, Const.round( d, v.getPrecision() ) );
+            }
+          }
+        } else {
+          if ( chunk.isNull( column, row ) ) {
+            ps.setNull( pos, java.sql.Types.DOUBLE );
+          } else {
+            double num = chunk.getDouble( column, row );
+            if ( databaseMeta.supportsFloatRoundingOnUpdate() && v.getPrecision() >= 0 ) {
+              num = Const.round( num, v.getPrecision() );
+            }
+            ps.setDouble( pos, num );
+          }
+        }
+      } catch ( SQLException e ) {
+        throw new KettleDatabaseException( "Error setting value #" + pos + " [" + v.toStringMeta()
+          + "] on prepared statement", e );
+      } catch ( KettleDatabaseException e ) {
+        throw new KettleDatabaseException( "offending row : " + rowMeta, e );
+      }
+    }
+  }
+
   /**
    * @param ps The prepared insert statement to use
    * @return The generated keys in auto-increment fields
@@ -1269,6 +1269,88 @@ public interface DatabaseInterface extends Cloneable {
     return "";
   }
 
+  /**
+   * Returns an expression that spreads rows over a number of partitions by hashing a column, used to read a query in
+   * parallel.
+   *
+   * @param columnName
+   *          the quoted name of the column to hash
+   * @param nrPartitions
+   *          the number of partitions
+   * @return an expression with a value from 0 to nrPartitions - 1 for every non null value of the column, or null if
+   *         the database has no hash function
+   */
+  default String getHashPartitionExpression( String columnName, int nrPartitions ) {
+    return null;
+  }
+
+  /**
+   * Returns the statement that creates a temporary table to stage rows in. The table lasts as long as the connection
+   * and only the connection sees its rows.
+   *
+   * @param tableName
+   *          the name of the table, see {@link #getTemporaryTableName(String)}
+   * @param fieldDefinitions
+   *          the definitions of the fields, separated by commas
+   * @return the statement or null if the database has no temporary tables
+   */
+  default String getCreateTemporaryTableStatement( String tableName, String fieldDefinitions ) {
+    return null;
+  }
+
+  /**
+   * @return the name to use for a temporary table, for the databases that recognize temporary tables by their name
+   */
+  default String getTemporaryTableName( String tableName ) {
+    return tableName;
+  }
+
+  /**
+   * Returns a single statement that inserts the rows of a source table into a table, the rows with a key that is in
+   * the table already update it instead. The key needs a unique index or constraint on some databases.
+   *
+   * @param tableName
+   *          the quoted name of the table
+   * @param sourceTableName
+   *          the name of the table with the rows, it has the insert fields
+   * @param keyFields
+   *          the quoted fields of the key, they are insert fields too
+   * @param insertFields
+   *          the quoted fields to insert
+   * @param updateFields
+   *          the quoted fields to update, none to leave the rows that exist as they are
+   * @return the statement or null if the database has no such statement
+   */
+  default String getUpsertStatement( String tableName, String sourceTableName, String[] keyFields,
+    String[] insertFields, String[] updateFields ) {
+    return null;
+  }
+
+  /**
+   * @return the maximum number of values in a list "column IN ( ?, ?, ... )", 0 if there is no limit
+   */
+  default int getMaxInListSize() {
+    return 0;
+  }
+
+  /**
+   * @return the maximum number of parameters of a single statement, 0 if there is no limit
+   */
+  default int getMaxStatementParameters() {
+    return 0;
+  }
+
+  /**
+   * Tells whether strings compare as equal in the database exactly when they are equal in Java. This is not the case
+   * if the default collation ignores case or trailing spaces, a lookup that matches rows on the returned values then
+   * has to find the rows one by one.
+   *
+   * @return true if the "=" of strings is exact by default
+   */
+  default boolean isStringComparisonExact() {
+    return true;
+  }
+
   /**
    * Allows to get the column name for JDBC drivers with different behavior for aliases depending on the connector version.
    *
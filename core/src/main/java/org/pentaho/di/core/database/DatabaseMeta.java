@@ -2336,6 +2336,34 @@ public class DatabaseMeta extends SharedObjectBase implements Cloneable, XMLInte
     return databaseInterface.supportsBatchUpdates();
   }
 
+  /**
+   * Returns the number of keys that can be looked up with a single statement. A single key field is looked up with a
+   * list "key IN ( ?, ?, ... )", more key fields with a condition per key, the conditions combined with OR.
+   *
+   * @param nrParameters
+   *          the number of parameters per key
+   * @param inList
+   *          true if the keys are the values of an IN list
+   * @return the maximum number of keys, at least 1
+   */
+  public int getMaxLookupKeys( int nrParameters, boolean inList ) {
+    int max = Integer.MAX_VALUE;
+    if ( inList && databaseInterface.getMaxInListSize() > 0 ) {
+      max = databaseInterface.getMaxInListSize();
+    }
+    if ( databaseInterface.getMaxStatementParameters() > 0 ) {
+      max = Math.min( max, databaseInterface.getMaxStatementParameters() / Math.max( 1, nrParameters ) );
+    }
+    return Math.max( 1, max );
+  }
+
+  /**
+   * @return true if strings compare as equal in the database exactly when they are equal in Java
+   */
+  public boolean isStringComparisonExact() {
+    return databaseInterface.isStringComparisonExact();
+  }
+
   /**
    * @return true if the database supports a boolean, bit, logical, ... datatype
    */
@@ -38,4 +38,11 @@ public class GreenplumDatabaseMeta extends PostgreSQLDatabaseMeta implements Dat
   public boolean supportsErrorHandlingOnBatchUpdates() {
     return false;
   }
+
+  @Override
+  public String getUpsertStatement( String tableName, String sourceTableName, String[] keyFields,
+    String[] insertFields, String[] updateFields ) {
+    // Only the latest Greenplum versions have ON CONFLICT
+    return null;
+  }
 }
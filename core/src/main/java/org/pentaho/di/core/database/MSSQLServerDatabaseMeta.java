@@ -517,6 +517,44 @@ public class MSSQLServerDatabaseMeta extends BaseDatabaseMeta implements Databas
     return false;
   }
 
+  @Override
+  public String getHashPartitionExpression( String columnName, int nrPartitions ) {
+    return "ABS(CHECKSUM(" + columnName + ") % " + nrPartitions + ")";
+  }
+
+  @Override
+  public String getCreateTemporaryTableStatement( String tableName, String fieldDefinitions ) {
+    return "CREATE TABLE " + tableName + " ( " + fieldDefinitions + " )";
+  }
+
+  /**
+   * Local temporary tables start with #
+   */
+  @Override
+  public String getTemporaryTableName( String tableName ) {
+    return "#" + tableName;
+  }
+
+  @Override
+  public String getUpsertStatement( String tableName, String sourceTableName, String[] keyFields,
+    String[] insertFields, String[] updateFields ) {
+    // A MERGE statement needs to end with a semicolon
+    return getMergeStatement( tableName, sourceTableName, keyFields, insertFields, updateFields ) + ";";
+  }
+
+  @Override
+  public int getMaxStatementParameters() {
+    return 2100;
+  }
+
+  /**
+   * The default collations ignore case and trailing spaces.
+   */
+  @Override
+  public boolean isStringComparisonExact() {
+    return false;
+  }
+
   @Override
   public boolean supportsErrorHandlingOnBatchUpdates() {
     return true;
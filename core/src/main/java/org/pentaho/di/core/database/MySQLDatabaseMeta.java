@@ -68,6 +68,43 @@ public class MySQLDatabaseMeta extends BaseDatabaseMeta implements DatabaseInter
     return " LIMIT " + nrRows;
   }
 
+  @Override public String getHashPartitionExpression( String columnName, int nrPartitions ) {
+    return "MOD(CRC32(" + columnName + "), " + nrPartitions + ")";
+  }
+
+  @Override public String getCreateTemporaryTableStatement( String tableName, String fieldDefinitions ) {
+    return "CREATE TEMPORARY TABLE " + tableName + " ( " + fieldDefinitions + " )";
+  }
+
+  /**
+   * INSERT ... ON DUPLICATE KEY UPDATE, the key needs a unique index or primary key.
+   */
+  @Override public String getUpsertStatement( String tableName, String sourceTableName, String[] keyFields,
+    String[] insertFields, String[] updateFields ) {
+    String fields = String.join( ", ", insertFields );
+    StringBuilder sql = new StringBuilder( "INSERT INTO " ).append( tableName ).append( " ( " ).append( fields );
+    sql.append( " ) SELECT " ).append( fields ).append( " FROM " ).append( sourceTableName );
+    sql.append( " ON DUPLICATE KEY UPDATE " );
+    if ( updateFields.length == 0 ) {
+      // Leaves the row as it is
+      return sql.append( keyFields[ 0 ] ).append( " = " ).append( keyFields[ 0 ] ).toString();
+    }
+    for ( int i = 0; i < updateFields.length; i++ ) {
+      if ( i > 0 ) {
+        sql.append( ", " );
+      }
+      sql.append( updateFields[ i ] ).append( " = VALUES(" ).append( updateFields[ i ] ).append( ")" );
+    }
+    return sql.toString();
+  }
+
+  /**
+   * The default collations ignore case and trailing spaces.
+   */
+  @Override public boolean isStringComparisonExact() {
+    return false;
+  }
+
   /**
    * Returns the minimal SQL to launch in order to determine the layout of the resultset for a given database table
    *
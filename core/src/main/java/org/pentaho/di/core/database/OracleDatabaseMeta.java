@@ -67,6 +67,33 @@ public class OracleDatabaseMeta extends BaseDatabaseMeta implements DatabaseInte
     return " WHERE ROWNUM <= " + nrRows;
   }
 
+  @Override
+  public String getHashPartitionExpression( String columnName, int nrPartitions ) {
+    return "ORA_HASH(" + columnName + ", " + ( nrPartitions - 1 ) + ")";
+  }
+
+  /**
+   * A global temporary table: the table itself stays until it is dropped, the rows are private to the session.
+   */
+  @Override
+  public String getCreateTemporaryTableStatement( String tableName, String fieldDefinitions ) {
+    return "CREATE GLOBAL TEMPORARY TABLE " + tableName + " ( " + fieldDefinitions + " ) ON COMMIT PRESERVE ROWS";
+  }
+
+  @Override
+  public String getUpsertStatement( String tableName, String sourceTableName, String[] keyFields,
+    String[] insertFields, String[] updateFields ) {
+    return getMergeStatement( tableName, sourceTableName, keyFields, insertFields, updateFields );
+  }
+
+  /**
+   * ORA-01795: maximum number of expressions in a list is 1000
+   */
+  @Override
+  public int getMaxInListSize() {
+    return 1000;
+  }
+
   /**
    * Returns the minimal SQL to launch in order to determine the layout of the resultset for a given database table
    *
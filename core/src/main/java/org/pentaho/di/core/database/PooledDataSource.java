@@ -0,0 +1,81 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.pentaho.di.i18n.BaseMessages;
+
+/**
+ * A connection pool of the {@link ConnectionPoolRegistry}. It measures how long the callers wait for a connection:
+ * the time to take an idle connection or to open a new one, or to wait until another caller returns one.
+ *
+ * @since 11.1
+ */
+public class PooledDataSource extends BasicDataSource {
+  private static final Class<?> PKG = Database.class; // for i18n purposes, needed by Translator2!!
+
+  private final String name;
+  private final LongAdder borrowCount = new LongAdder();
+  private final LongAdder borrowWaitNanos = new LongAdder();
+  private final AtomicLong maximumBorrowWaitNanos = new AtomicLong();
+
+  /**
+   * @param name
+   *          the name of the pool in the statistics, without the password
+   */
+  public PooledDataSource( String name ) {
+    this.name = name;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    long start = System.nanoTime();
+    try {
+      return super.getConnection();
+    } catch ( SQLException e ) {
+      if ( e.getCause() instanceof NoSuchElementException ) {
+        // No connection was returned to the pool in time
+        throw new SQLException( BaseMessages.getString( PKG, "Database.ConnectionPoolTimeout", name,
+          TimeUnit.MILLISECONDS.toSeconds( getMaxWaitMillis() ), getNumActive() ), e );
+      }
+      throw e;
+    } finally {
+      long wait = System.nanoTime() - start;
+      borrowCount.increment();
+      borrowWaitNanos.add( wait );
+      maximumBorrowWaitNanos.accumulateAndGet( wait, Math::max );
+    }
+  }
+
+  /**
+   * @return the current statistics of the pool
+   */
+  public ConnectionPoolStats getStats() {
+    return new ConnectionPoolStats( name, getNumActive(), getNumIdle(), getMaxTotal(), borrowCount.sum(),
+      TimeUnit.NANOSECONDS.toMillis( borrowWaitNanos.sum() ),
+      TimeUnit.NANOSECONDS.toMillis( maximumBorrowWaitNanos.get() ) );
+  }
+}
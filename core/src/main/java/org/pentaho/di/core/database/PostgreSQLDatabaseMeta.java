@@ -117,6 +117,49 @@ public class PostgreSQLDatabaseMeta extends BaseDatabaseMeta implements Database
     return " limit " + nrRows;
   }
 
+  @Override
+  public String getHashPartitionExpression( String columnName, int nrPartitions ) {
+    // hashtext() can be negative
+    return "MOD(MOD(HASHTEXT(CAST(" + columnName + " AS TEXT)), " + nrPartitions + ") + " + nrPartitions + ", "
+      + nrPartitions + ")";
+  }
+
+  @Override
+  public String getCreateTemporaryTableStatement( String tableName, String fieldDefinitions ) {
+    return "CREATE TEMPORARY TABLE " + tableName + " ( " + fieldDefinitions + " )";
+  }
+
+  /**
+   * INSERT ... ON CONFLICT, from PostgreSQL 9.5 on. The key needs a unique index or constraint.
+   */
+  @Override
+  public String getUpsertStatement( String tableName, String sourceTableName, String[] keyFields,
+    String[] insertFields, String[] updateFields ) {
+    String fields = String.join( ", ", insertFields );
+    StringBuilder sql = new StringBuilder( "INSERT INTO " ).append( tableName ).append( " ( " ).append( fields );
+    sql.append( " ) SELECT " ).append( fields ).append( " FROM " ).append( sourceTableName );
+    sql.append( " ON CONFLICT ( " ).append( String.join( ", ", keyFields ) ).append( " ) DO " );
+    if ( updateFields.length == 0 ) {
+      return sql.append( "NOTHING" ).toString();
+    }
+    sql.append( "UPDATE SET " );
+    for ( int i = 0; i < updateFields.length; i++ ) {
+      if ( i > 0 ) {
+        sql.append( ", " );
+      }
+      sql.append( updateFields[ i ] ).append( " = EXCLUDED." ).append( updateFields[ i ] );
+    }
+    return sql.toString();
+  }
+
+  /**
+   * The protocol sends the number of parameters as a 2 byte integer.
+   */
+  @Override
+  public int getMaxStatementParameters() {
+    return 32767;
+  }
+
   @Override
   public String getSQLQueryFields( String tableName ) {
     return "SELECT * FROM " + tableName + getLimitClause( 1 );
@@ -133,6 +133,19 @@ public class RedshiftDatabaseMeta extends PostgreSQLDatabaseMeta {
     return "redshift";
   }
 
+  @Override
+  public String getHashPartitionExpression( String columnName, int nrPartitions ) {
+    // Redshift doesn't have hashtext()
+    return "MOD(MOD(FNV_HASH(" + columnName + "), " + nrPartitions + ") + " + nrPartitions + ", " + nrPartitions + ")";
+  }
+
+  @Override
+  public String getUpsertStatement( String tableName, String sourceTableName, String[] keyFields,
+    String[] insertFields, String[] updateFields ) {
+    // Redshift has no ON CONFLICT
+    return null;
+  }
+
   private String getParamIfSet( String param, String val ) {
     if ( !isEmpty( val ) ) {
       return "&" + param + "=" + val;
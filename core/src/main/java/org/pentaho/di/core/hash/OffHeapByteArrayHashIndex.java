@@ -0,0 +1,161 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.hash;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.pentaho.di.core.exception.KettleValueException;
+
+/**
+ * A byte[]/byte[] hash index that keeps both the index and the keys and values in direct memory, so that large lookup
+ * tables don't fill the Java heap or slow down garbage collection. The index uses open addressing with linear probing:
+ * every slot holds the hash code of the key and the address of the record in an {@link OffHeapRecordStore}.
+ * <p>
+ * Direct memory is limited by the -XX:MaxDirectMemorySize JVM option and is released when the index is garbage
+ * collected.
+ *
+ * @since 11.1
+ */
+public class OffHeapByteArrayHashIndex {
+
+  private static final int STANDARD_INDEX_SIZE = 512;
+  private static final float STANDARD_LOAD_FACTOR = 0.75f;
+  private static final int MAXIMUM_INDEX_SIZE = 1 << 26;
+
+  // The hash code (int) and the record address + 1 (long), 0 marks an empty slot
+  private static final int SLOT_SIZE = 12;
+
+  private final OffHeapRecordStore records = new OffHeapRecordStore();
+  private ByteBuffer index;
+  private int indexSize;
+  private int size;
+  private int resizeThresHold;
+
+  /**
+   * Create a new off-heap byte[]/byte[] hash index
+   *
+   * @param size
+   *          the initial size of the hash index
+   */
+  public OffHeapByteArrayHashIndex( int size ) {
+    // Find a suitable capacity being a factor of 2:
+    int factor2Size = 1;
+    while ( factor2Size < size && factor2Size < MAXIMUM_INDEX_SIZE ) {
+      factor2Size <<= 1; // Multiply by 2
+    }
+    allocateIndex( factor2Size );
+  }
+
+  /**
+   * Create a new off-heap byte[]/byte[] hash index
+   */
+  public OffHeapByteArrayHashIndex() {
+    this( STANDARD_INDEX_SIZE );
+  }
+
+  public int getSize() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * @return the number of bytes of direct memory used by the index, the keys and the values
+   */
+  public long getMemoryUsage() {
+    return (long) indexSize * SLOT_SIZE + records.getAllocatedBytes();
+  }
+
+  public byte[] get( byte[] key ) {
+    int hashCode = generateHashCode( key );
+    int slot = hashCode & ( indexSize - 1 );
+    long address;
+    while ( ( address = index.getLong( slot * SLOT_SIZE + 4 ) ) != 0 ) {
+      if ( index.getInt( slot * SLOT_SIZE ) == hashCode && records.keyEquals( address - 1, key ) ) {
+        return records.getValue( address - 1 );
+      }
+      slot = ( slot + 1 ) & ( indexSize - 1 );
+    }
+    return null;
+  }
+
+  public void put( byte[] key, byte[] value ) throws KettleValueException {
+    int hashCode = generateHashCode( key );
+    int slot = hashCode & ( indexSize - 1 );
+    long address;
+    while ( ( address = index.getLong( slot * SLOT_SIZE + 4 ) ) != 0 ) {
+      // If there is an identical entry in there, we replace the value.
+      //
+      if ( index.getInt( slot * SLOT_SIZE ) == hashCode && records.keyEquals( address - 1, key ) ) {
+        index.putLong( slot * SLOT_SIZE + 4, records.replaceValue( address - 1, key, value ) + 1 );
+        return;
+      }
+      slot = ( slot + 1 ) & ( indexSize - 1 );
+    }
+
+    if ( size >= resizeThresHold ) {
+      resize();
+      slot = findEmptySlot( hashCode );
+    }
+    index.putInt( slot * SLOT_SIZE, hashCode );
+    index.putLong( slot * SLOT_SIZE + 4, records.append( key, value ) + 1 );
+    size++;
+  }
+
+  private void resize() throws KettleValueException {
+    if ( indexSize >= MAXIMUM_INDEX_SIZE ) {
+      throw new KettleValueException( "The off-heap hash index is full at " + size + " entries" );
+    }
+
+    // Double the size to keep the size of the index a factor of 2, the stored hash codes tell where the entries go
+    //
+    ByteBuffer oldIndex = index;
+    int oldIndexSize = indexSize;
+    allocateIndex( 2 * oldIndexSize );
+    for ( int i = 0; i < oldIndexSize; i++ ) {
+      long address = oldIndex.getLong( i * SLOT_SIZE + 4 );
+      if ( address != 0 ) {
+        int hashCode = oldIndex.getInt( i * SLOT_SIZE );
+        int slot = findEmptySlot( hashCode );
+        index.putInt( slot * SLOT_SIZE, hashCode );
+        index.putLong( slot * SLOT_SIZE + 4, address );
+      }
+    }
+  }
+
+  private int findEmptySlot( int hashCode ) {
+    int slot = hashCode & ( indexSize - 1 );
+    while ( index.getLong( slot * SLOT_SIZE + 4 ) != 0 ) {
+      slot = ( slot + 1 ) & ( indexSize - 1 );
+    }
+    return slot;
+  }
+
+  private void allocateIndex( int newIndexSize ) {
+    index = ByteBuffer.allocateDirect( newIndexSize * SLOT_SIZE );
+    indexSize = newIndexSize;
+    resizeThresHold = (int) ( newIndexSize * STANDARD_LOAD_FACTOR );
+  }
+
+  public static int generateHashCode( byte[] key ) {
+    // Spread the bits, the index only uses the lowest ones
+    //
+    int hashCode = Arrays.hashCode( key ) * 0x9E3779B9;
+    return hashCode ^ ( hashCode >>> 16 );
+  }
+}
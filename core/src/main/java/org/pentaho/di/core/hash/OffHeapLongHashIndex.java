@@ -0,0 +1,156 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.hash;
+
+import java.nio.ByteBuffer;
+
+import org.pentaho.di.core.exception.KettleValueException;
+
+/**
+ * The specialized version of {@link OffHeapByteArrayHashIndex} for a single long key: the key is kept in the slot of
+ * the open addressing index itself, so a lookup doesn't need to hash or compare byte arrays. Only the values are stored
+ * in the {@link OffHeapRecordStore}.
+ *
+ * @since 11.1
+ */
+public class OffHeapLongHashIndex {
+
+  private static final int STANDARD_INDEX_SIZE = 512;
+  private static final float STANDARD_LOAD_FACTOR = 0.75f;
+  private static final int MAXIMUM_INDEX_SIZE = 1 << 26;
+  private static final byte[] EMPTY_KEY = new byte[0];
+
+  // The key (long) and the record address + 1 (long), 0 marks an empty slot
+  private static final int SLOT_SIZE = 16;
+
+  private final OffHeapRecordStore records = new OffHeapRecordStore();
+  private ByteBuffer index;
+  private int indexSize;
+  private int size;
+  private int resizeThresHold;
+
+  /**
+   * Create a new off-heap long/byte[] hash index
+   *
+   * @param size
+   *          the initial size of the hash index
+   */
+  public OffHeapLongHashIndex( int size ) {
+    // Find a suitable capacity being a factor of 2:
+    int factor2Size = 1;
+    while ( factor2Size < size && factor2Size < MAXIMUM_INDEX_SIZE ) {
+      factor2Size <<= 1; // Multiply by 2
+    }
+    allocateIndex( factor2Size );
+  }
+
+  /**
+   * Create a new off-heap long/byte[] hash index
+   */
+  public OffHeapLongHashIndex() {
+    this( STANDARD_INDEX_SIZE );
+  }
+
+  public int getSize() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * @return the number of bytes of direct memory used by the index, the keys and the values
+   */
+  public long getMemoryUsage() {
+    return (long) indexSize * SLOT_SIZE + records.getAllocatedBytes();
+  }
+
+  public byte[] get( long key ) {
+    int slot = generateHashCode( key ) & ( indexSize - 1 );
+    long address;
+    while ( ( address = index.getLong( slot * SLOT_SIZE + 8 ) ) != 0 ) {
+      if ( index.getLong( slot * SLOT_SIZE ) == key ) {
+        return records.getValue( address - 1 );
+      }
+      slot = ( slot + 1 ) & ( indexSize - 1 );
+    }
+    return null;
+  }
+
+  public void put( long key, byte[] value ) throws KettleValueException {
+    int slot = generateHashCode( key ) & ( indexSize - 1 );
+    long address;
+    while ( ( address = index.getLong( slot * SLOT_SIZE + 8 ) ) != 0 ) {
+      // If there is an identical entry in there, we replace the value.
+      //
+      if ( index.getLong( slot * SLOT_SIZE ) == key ) {
+        index.putLong( slot * SLOT_SIZE + 8, records.replaceValue( address - 1, EMPTY_KEY, value ) + 1 );
+        return;
+      }
+      slot = ( slot + 1 ) & ( indexSize - 1 );
+    }
+
+    if ( size >= resizeThresHold ) {
+      resize();
+      slot = findEmptySlot( key );
+    }
+    index.putLong( slot * SLOT_SIZE, key );
+    index.putLong( slot * SLOT_SIZE + 8, records.append( EMPTY_KEY, value ) + 1 );
+    size++;
+  }
+
+  private void resize() throws KettleValueException {
+    if ( indexSize >= MAXIMUM_INDEX_SIZE ) {
+      throw new KettleValueException( "The off-heap hash index is full at " + size + " entries" );
+    }
+
+    // Double the size to keep the size of the index a factor of 2...
+    //
+    ByteBuffer oldIndex = index;
+    int oldIndexSize = indexSize;
+    allocateIndex( 2 * oldIndexSize );
+    for ( int i = 0; i < oldIndexSize; i++ ) {
+      long address = oldIndex.getLong( i * SLOT_SIZE + 8 );
+      if ( address != 0 ) {
+        long key = oldIndex.getLong( i * SLOT_SIZE );
+        int slot = findEmptySlot( key );
+        index.putLong( slot * SLOT_SIZE, key );
+        index.putLong( slot * SLOT_SIZE + 8, address );
+      }
+    }
+  }
+
+  private int findEmptySlot( long key ) {
+    int slot = generateHashCode( key ) & ( indexSize - 1 );
+    while ( index.getLong( slot * SLOT_SIZE + 8 ) != 0 ) {
+      slot = ( slot + 1 ) & ( indexSize - 1 );
+    }
+    return slot;
+  }
+
+  private void allocateIndex( int newIndexSize ) {
+    index = ByteBuffer.allocateDirect( newIndexSize * SLOT_SIZE );
+    indexSize = newIndexSize;
+    resizeThresHold = (int) ( newIndexSize * STANDARD_LOAD_FACTOR );
+  }
+
+  public static int generateHashCode( long key ) {
+    // Spread the bits, sequential keys would otherwise fill neighbouring slots
+    //
+    int hashCode = Long.hashCode( key ) * 0x9E3779B9;
+    return hashCode ^ ( hashCode >>> 16 );
+  }
+}
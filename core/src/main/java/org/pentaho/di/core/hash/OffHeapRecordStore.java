@@ -0,0 +1,106 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.hash;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append only storage of key/value records in direct byte buffers, outside of the Java heap. The records are written
+ * one after the other in pages of 1MB, a record that doesn't fit in a page gets a page of its own. A record is
+ * addressed by its page number in the high and its offset in the low 32 bits of a long.
+ * <p>
+ * Record layout: the key length (int), the value length (int), the key bytes and the value bytes.
+ *
+ * @since 11.1
+ */
+class OffHeapRecordStore {
+  static final int PAGE_SIZE = 1024 * 1024;
+
+  private static final int HEADER_SIZE = 8;
+
+  private final List<ByteBuffer> pages = new ArrayList<>();
+  private ByteBuffer page;
+  private long allocatedBytes;
+
+  /**
+   * @return the address of the new record
+   */
+  long append( byte[] key, byte[] value ) {
+    int length = HEADER_SIZE + key.length + value.length;
+    if ( page == null || page.remaining() < length ) {
+      page = ByteBuffer.allocateDirect( Math.max( PAGE_SIZE, length ) );
+      pages.add( page );
+      allocatedBytes += page.capacity();
+    }
+    long address = ( (long) ( pages.size() - 1 ) << 32 ) | page.position();
+    page.putInt( key.length ).putInt( value.length ).put( key ).put( value );
+    return address;
+  }
+
+  boolean keyEquals( long address, byte[] key ) {
+    ByteBuffer buffer = getPage( address );
+    int offset = getOffset( address );
+    if ( buffer.getInt( offset ) != key.length ) {
+      return false;
+    }
+    offset += HEADER_SIZE;
+    for ( int i = 0; i < key.length; i++ ) {
+      if ( buffer.get( offset + i ) != key[i] ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  byte[] getValue( long address ) {
+    ByteBuffer buffer = getPage( address );
+    int offset = getOffset( address );
+    byte[] value = new byte[buffer.getInt( offset + 4 )];
+    buffer.get( offset + HEADER_SIZE + buffer.getInt( offset ), value );
+    return value;
+  }
+
+  /**
+   * Overwrites the value of a record, in place if the length is the same.
+   *
+   * @return the address of the record with the new value
+   */
+  long replaceValue( long address, byte[] key, byte[] value ) {
+    ByteBuffer buffer = getPage( address );
+    int offset = getOffset( address );
+    if ( buffer.getInt( offset + 4 ) != value.length ) {
+      return append( key, value );
+    }
+    buffer.put( offset + HEADER_SIZE + buffer.getInt( offset ), value );
+    return address;
+  }
+
+  /**
+   * @return the number of bytes of direct memory allocated for the records
+   */
+  long getAllocatedBytes() {
+    return allocatedBytes;
+  }
+
+  private ByteBuffer getPage( long address ) {
+    return pages.get( (int) ( address >>> 32 ) );
+  }
+
+  private static int getOffset( long address ) {
+    return (int) address;
+  }
+}
@@ -125,6 +125,8 @@ public class Metrics implements MetricsInterface {
     MetricsSnapshotType.START, "METRIC_STEP_INIT", "Initialize a step" );
   public static Metrics METRIC_STEP_INIT_STOP = new Metrics(
     MetricsSnapshotType.STOP, "METRIC_STEP_INIT", "Initialize a step" );
+  public static Metrics METRIC_STEP_OFF_HEAP_MEMORY_MAX = new Metrics(
+    MetricsSnapshotType.MAX, "METRIC_STEP_OFF_HEAP_MEMORY_MAX", "Off-heap memory used by a step (bytes)" );
 
   // Logging back-end
   //
@@ -0,0 +1,560 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.row;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.Semaphore;
+
+/**
+ * A chunk of rows stored column by column, described by a regular RowMetaInterface.<br>
+ * <br>
+ * Integer and Number fields with normal storage are kept in primitive long[] and double[] arrays with a separate null
+ * bitmap so that numeric steps don't have to create a boxed Long or Double for every value. All other fields are kept
+ * as they would be in an Object[] row.<br>
+ * <br>
+ * A chunk is a List of rows: steps that don't know about chunks simply get Object[] rows out of it, these are created
+ * on the fly when asked for. A chunk can therefore travel through the batch row API (getRows/putRows) of the steps:
+ * chunks are only handed over as a whole to steps that support them, for all other steps the conversion to Object[]
+ * rows happens at the boundary.
+ *
+ * @since 11.1
+ */
+public class RowChunk extends AbstractList<Object[]> implements RandomAccess {
+
+  /** The column holds Object values, just like an Object[] row would */
+  public static final int COLUMN_OBJECT = 0;
+
+  /** The column holds the Integer values in a long[] */
+  public static final int COLUMN_LONG = 1;
+
+  /** The column holds the Number values in a double[] */
+  public static final int COLUMN_DOUBLE = 2;
+
+  private final RowMetaInterface rowMeta;
+  private final int[] columnTypes;
+
+  private long[][] longColumns;
+  private double[][] doubleColumns;
+  private Object[][] objectColumns;
+  private long[][] nullBitmaps;
+
+  private int capacity;
+  private int size;
+
+  private Semaphore rowPermits;
+  private int nrRowPermits;
+
+  /**
+   * Creates a new, empty chunk.
+   *
+   * @param rowMeta
+   *          the description of the rows
+   * @param capacity
+   *          the initial number of rows the chunk can hold, it grows when more rows are added
+   */
+  public RowChunk( RowMetaInterface rowMeta, int capacity ) {
+    this( rowMeta, capacity, true );
+  }
+
+  private RowChunk( RowMetaInterface rowMeta, int capacity, boolean allocate ) {
+    this.rowMeta = rowMeta;
+    this.capacity = Math.max( 1, capacity );
+    int nrColumns = rowMeta.size();
+    this.columnTypes = new int[nrColumns];
+    this.longColumns = new long[nrColumns][];
+    this.doubleColumns = new double[nrColumns][];
+    this.objectColumns = new Object[nrColumns][];
+    this.nullBitmaps = new long[nrColumns][];
+    for ( int i = 0; i < nrColumns; i++ ) {
+      columnTypes[i] = getColumnType( rowMeta.getValueMeta( i ) );
+      if ( allocate ) {
+        allocateColumn( i );
+      }
+    }
+  }
+
+  /**
+   * Converts a batch of rows into a chunk. If the batch is already a chunk it is returned as is.
+   *
+   * @param rowMeta
+   *          the description of the rows
+   * @param rows
+   *          the rows to convert
+   * @return the chunk holding the rows
+   */
+  public static RowChunk fromRows( RowMetaInterface rowMeta, List<Object[]> rows ) {
+    if ( rows instanceof RowChunk ) {
+      return (RowChunk) rows;
+    }
+    RowChunk chunk = new RowChunk( rowMeta, rows.size() );
+    for ( Object[] row : rows ) {
+      chunk.addRow( row );
+    }
+    return chunk;
+  }
+
+  /**
+   * Determines how the values of a field are stored in a chunk.
+   *
+   * @param valueMeta
+   *          the field description
+   * @return one of {@link #COLUMN_OBJECT}, {@link #COLUMN_LONG} or {@link #COLUMN_DOUBLE}
+   */
+  public static int getColumnType( ValueMetaInterface valueMeta ) {
+    if ( valueMeta == null || valueMeta.getStorageType() != ValueMetaInterface.STORAGE_TYPE_NORMAL ) {
+      return COLUMN_OBJECT;
+    }
+    switch ( valueMeta.getType() ) {
+      case ValueMetaInterface.TYPE_INTEGER:
+        return COLUMN_LONG;
+      case ValueMetaInterface.TYPE_NUMBER:
+        return COLUMN_DOUBLE;
+      default:
+        return COLUMN_OBJECT;
+    }
+  }
+
+  /**
+   * Wraps this chunk in a single row so that it can be passed through a RowSet. Only steps that support row chunks
+   * should ever be given such a row, see {@link #unwrap(Object[])}.
+   *
+   * @return a row holding nothing but this chunk
+   */
+  public Object[] wrap() {
+    return new Object[] { this };
+  }
+
+  /**
+   * Wraps this chunk like {@link #wrap()} does. The permits are given back when the chunk is unwrapped by the reader,
+   * this way the writer can bound the number of rows waiting in a RowSet as chunks.
+   *
+   * @param permits
+   *          the permits taken by the writer for this chunk
+   * @param nrPermits
+   *          the number of permits taken
+   * @return a row holding nothing but this chunk
+   */
+  public Object[] wrap( Semaphore permits, int nrPermits ) {
+    rowPermits = permits;
+    nrRowPermits = nrPermits;
+    return wrap();
+  }
+
+  /**
+   * @param row
+   *          a row read from a RowSet
+   * @return the chunk wrapped in the row or null if this is a regular row
+   */
+  public static RowChunk unwrap( Object[] row ) {
+    if ( row != null && row.length == 1 && row[0] instanceof RowChunk ) {
+      RowChunk chunk = (RowChunk) row[0];
+      chunk.releaseRowPermits();
+      return chunk;
+    }
+    return null;
+  }
+
+  private void releaseRowPermits() {
+    if ( rowPermits != null ) {
+      rowPermits.release( nrRowPermits );
+      rowPermits = null;
+    }
+  }
+
+  private void allocateColumn( int column ) {
+    switch ( columnTypes[column] ) {
+      case COLUMN_LONG:
+        longColumns[column] = new long[capacity];
+        nullBitmaps[column] = new long[( capacity + 63 ) >>> 6];
+        break;
+      case COLUMN_DOUBLE:
+        doubleColumns[column] = new double[capacity];
+        nullBitmaps[column] = new long[( capacity + 63 ) >>> 6];
+        break;
+      default:
+        objectColumns[column] = new Object[capacity];
+        break;
+    }
+  }
+
+  private void ensureCapacity( int minCapacity ) {
+    if ( minCapacity <= capacity ) {
+      return;
+    }
+    int newCapacity = Math.max( minCapacity, capacity + ( capacity >> 1 ) + 1 );
+    for ( int i = 0; i < columnTypes.length; i++ ) {
+      switch ( columnTypes[i] ) {
+        case COLUMN_LONG:
+          longColumns[i] = Arrays.copyOf( longColumns[i], newCapacity );
+          nullBitmaps[i] = Arrays.copyOf( nullBitmaps[i], ( newCapacity + 63 ) >>> 6 );
+          break;
+        case COLUMN_DOUBLE:
+          doubleColumns[i] = Arrays.copyOf( doubleColumns[i], newCapacity );
+          nullBitmaps[i] = Arrays.copyOf( nullBitmaps[i], ( newCapacity + 63 ) >>> 6 );
+          break;
+        default:
+          objectColumns[i] = Arrays.copyOf( objectColumns[i], newCapacity );
+          break;
+      }
+    }
+    capacity = newCapacity;
+  }
+
+  /**
+   * Adds a row to the end of the chunk, the Integer and Number values are unboxed.
+   *
+   * @param row
+   *          the row to add
+   * @return the index of the new row in the chunk
+   */
+  public int addRow( Object[] row ) {
+    ensureCapacity( size + 1 );
+    int index = size++;
+    for ( int i = 0; i < columnTypes.length; i++ ) {
+      setValue( i, index, i < row.length ? row[i] : null );
+    }
+    return index;
+  }
+
+  /**
+   * Adds a number of empty rows at the end of the chunk, the values are to be set column by column.
+   *
+   * @param nrRows
+   *          the number of rows to add
+   */
+  public void addRows( int nrRows ) {
+    ensureCapacity( size + nrRows );
+    size += nrRows;
+  }
+
+  /**
+   * @return the description of the rows in this chunk
+   */
+  public RowMetaInterface getRowMeta() {
+    return rowMeta;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @param column
+   *          the column index
+   * @return how the values of the column are stored: {@link #COLUMN_OBJECT}, {@link #COLUMN_LONG} or
+   *         {@link #COLUMN_DOUBLE}
+   */
+  public int getColumnType( int column ) {
+    return columnTypes[column];
+  }
+
+  /**
+   * @param column
+   *          the column index
+   * @return true if the values of the column are stored in a primitive array
+   */
+  public boolean isPrimitive( int column ) {
+    return columnTypes[column] != COLUMN_OBJECT;
+  }
+
+  /**
+   * @param column
+   *          the index of a {@link #COLUMN_LONG} column
+   * @return the values of the column, only the first size() values are in use. Null values are flagged in the null
+   *         bitmap.
+   */
+  public long[] getLongs( int column ) {
+    return longColumns[column];
+  }
+
+  /**
+   * @param column
+   *          the index of a {@link #COLUMN_DOUBLE} column
+   * @return the values of the column, only the first size() values are in use. Null values are flagged in the null
+   *         bitmap.
+   */
+  public double[] getDoubles( int column ) {
+    return doubleColumns[column];
+  }
+
+  /**
+   * @param column
+   *          the column index
+   * @param row
+   *          the row index
+   * @return true if the value is null. For object columns that means the value is a null reference.
+   */
+  public boolean isNull( int column, int row ) {
+    long[] bitmap = nullBitmaps[column];
+    if ( bitmap == null ) {
+      return objectColumns[column][row] == null;
+    }
+    return ( bitmap[row >>> 6] & ( 1L << row ) ) != 0;
+  }
+
+  private void setNullFlag( int column, int row, boolean isNull ) {
+    if ( isNull ) {
+      nullBitmaps[column][row >>> 6] |= 1L << row;
+    } else {
+      nullBitmaps[column][row >>> 6] &= ~( 1L << row );
+    }
+  }
+
+  /**
+   * @return the value of a {@link #COLUMN_LONG} column, only meaningful if it's not null
+   */
+  public long getLong( int column, int row ) {
+    return longColumns[column][row];
+  }
+
+  /**
+   * @return the value of a {@link #COLUMN_DOUBLE} column, only meaningful if it's not null
+   */
+  public double getDouble( int column, int row ) {
+    return doubleColumns[column][row];
+  }
+
+  /**
+   * Sets a (non-null) value in a {@link #COLUMN_LONG} column.
+   */
+  public void setLong( int column, int row, long value ) {
+    longColumns[column][row] = value;
+    setNullFlag( column, row, false );
+  }
+
+  /**
+   * Sets a (non-null) value in a {@link #COLUMN_DOUBLE} column.
+   */
+  public void setDouble( int column, int row, double value ) {
+    doubleColumns[column][row] = value;
+    setNullFlag( column, row, false );
+  }
+
+  /**
+   * Sets a value to null, in any kind of column.
+   */
+  public void setNull( int column, int row ) {
+    switch ( columnTypes[column] ) {
+      case COLUMN_LONG:
+        longColumns[column][row] = 0L;
+        setNullFlag( column, row, true );
+        break;
+      case COLUMN_DOUBLE:
+        doubleColumns[column][row] = 0.0;
+        setNullFlag( column, row, true );
+        break;
+      default:
+        objectColumns[column][row] = null;
+        break;
+    }
+  }
+
+  /**
+   * Gets a value the way it would be stored in an Object[] row: primitive values are boxed.
+   *
+   * @param column
+   *          the column index
+   * @param row
+   *          the row index
+   * @return the value
+   */
+  public Object getValue( int column, int row ) {
+    switch ( columnTypes[column] ) {
+      case COLUMN_LONG:
+        return isNull( column, row ) ? null : Long.valueOf( longColumns[column][row] );
+      case COLUMN_DOUBLE:
+        return isNull( column, row ) ? null : Double.valueOf( doubleColumns[column][row] );
+      default:
+        return objectColumns[column][row];
+    }
+  }
+
+  /**
+   * Sets a value the way it would be stored in an Object[] row: Integer and Number values are unboxed.
+   *
+   * @param column
+   *          the column index
+   * @param row
+   *          the row index
+   * @param value
+   *          the value
+   */
+  public void setValue( int column, int row, Object value ) {
+    switch ( columnTypes[column] ) {
+      case COLUMN_LONG:
+        if ( value == null ) {
+          setNull( column, row );
+        } else {
+          setLong( column, row, ( (Number) value ).longValue() );
+        }
+        break;
+      case COLUMN_DOUBLE:
+        if ( value == null ) {
+          setNull( column, row );
+        } else {
+          setDouble( column, row, ( (Number) value ).doubleValue() );
+        }
+        break;
+      default:
+        objectColumns[column][row] = value;
+        break;
+    }
+  }
+
+  /**
+   * Creates an Object[] row out of the values of one row in the chunk.
+   *
+   * @param index
+   *          the row index
+   * @return a new row
+   */
+  @Override
+  public Object[] get( int index ) {
+    if ( index < 0 || index >= size ) {
+      throw new IndexOutOfBoundsException( "Row " + index + " of a chunk of " + size + " rows" );
+    }
+    Object[] row = RowDataUtil.allocateRowData( columnTypes.length );
+    for ( int i = 0; i < columnTypes.length; i++ ) {
+      row[i] = getValue( i, index );
+    }
+    return row;
+  }
+
+  /**
+   * Creates a chunk with extra columns at the end. The existing columns are shared with this chunk, not copied.
+   *
+   * @param newRowMeta
+   *          the description of the new rows: the fields of this chunk followed by the new fields
+   * @return the new chunk, with the same number of rows. The values of the new columns are null.
+   */
+  public RowChunk addColumns( RowMetaInterface newRowMeta ) {
+    RowChunk chunk = new RowChunk( newRowMeta, capacity, false );
+    for ( int i = 0; i < newRowMeta.size(); i++ ) {
+      if ( i < columnTypes.length && chunk.columnTypes[i] == columnTypes[i] ) {
+        chunk.shareColumn( i, this, i );
+      } else {
+        chunk.allocateColumn( i );
+        if ( i < columnTypes.length ) {
+          for ( int r = 0; r < size; r++ ) {
+            chunk.setValue( i, r, getValue( i, r ) );
+          }
+        } else {
+          for ( int r = 0; r < size; r++ ) {
+            chunk.setNull( i, r );
+          }
+        }
+      }
+    }
+    chunk.size = size;
+    return chunk;
+  }
+
+  /**
+   * Creates a chunk with a selection of the columns of this chunk. The columns are shared, not copied.
+   *
+   * @param newRowMeta
+   *          the description of the selected fields
+   * @param columns
+   *          the indexes of the columns in this chunk to keep, in the order of newRowMeta
+   * @return the new chunk, with the same number of rows
+   */
+  public RowChunk selectColumns( RowMetaInterface newRowMeta, int[] columns ) {
+    RowChunk chunk = new RowChunk( newRowMeta, capacity, false );
+    for ( int i = 0; i < columns.length; i++ ) {
+      chunk.columnTypes[i] = columnTypes[columns[i]];
+      chunk.shareColumn( i, this, columns[i] );
+    }
+    chunk.size = size;
+    return chunk;
+  }
+
+  /**
+   * Creates a chunk with the selected rows of this chunk, in the same order.
+   *
+   * @param selected
+   *          for every row in this chunk: true if it should be kept
+   * @return the new chunk or this chunk if all rows are selected
+   */
+  public RowChunk selectRows( boolean[] selected ) {
+    int count = 0;
+    for ( int r = 0; r < size; r++ ) {
+      if ( selected[r] ) {
+        count++;
+      }
+    }
+    if ( count == size ) {
+      return this;
+    }
+    RowChunk chunk = new RowChunk( rowMeta, Math.max( 1, count ) );
+    chunk.size = count;
+    for ( int i = 0; i < columnTypes.length; i++ ) {
+      int target = 0;
+      for ( int r = 0; r < size; r++ ) {
+        if ( !selected[r] ) {
+          continue;
+        }
+        switch ( columnTypes[i] ) {
+          case COLUMN_LONG:
+            if ( isNull( i, r ) ) {
+              chunk.setNull( i, target );
+            } else {
+              chunk.setLong( i, target, longColumns[i][r] );
+            }
+            break;
+          case COLUMN_DOUBLE:
+            if ( isNull( i, r ) ) {
+              chunk.setNull( i, target );
+            } else {
+              chunk.setDouble( i, target, doubleColumns[i][r] );
+            }
+            break;
+          default:
+            chunk.objectColumns[i][target] = objectColumns[i][r];
+            break;
+        }
+        target++;
+      }
+    }
+    return chunk;
+  }
+
+  /**
+   * Creates a chunk with a range of the rows of this chunk.
+   *
+   * @param from
+   *          the index of the first row, inclusive
+   * @param to
+   *          the index of the last row, exclusive
+   * @return the new chunk
+   */
+  public RowChunk selectRows( int from, int to ) {
+    boolean[] selected = new boolean[size];
+    for ( int r = from; r < to; r++ ) {
+      selected[r] = true;
+    }
+    return selectRows( selected );
+  }
+
+  private void shareColumn( int column, RowChunk source, int sourceColumn ) {
+    longColumns[column] = source.longColumns[sourceColumn];
+    doubleColumns[column] = source.doubleColumns[sourceColumn];
+    objectColumns[column] = source.objectColumns[sourceColumn];
+    nullBitmaps[column] = source.nullBitmaps[sourceColumn];
+  }
+}
@@ -0,0 +1,47 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.row.spill;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses spill files with GZIP, the smallest files but also the most CPU intensive codec.
+ *
+ * @since 11.1
+ */
+public class GZIPSpillCodec implements SpillCodec {
+  public static final String NAME = "GZIP";
+
+  private static final int BUFFER_SIZE = 65536;
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public OutputStream compress( OutputStream outputStream ) throws IOException {
+    return new GZIPOutputStream( outputStream, BUFFER_SIZE );
+  }
+
+  @Override
+  public InputStream decompress( InputStream inputStream ) throws IOException {
+    return new GZIPInputStream( inputStream, BUFFER_SIZE );
+  }
+}
@@ -0,0 +1,46 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.row.spill;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorInputStream;
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorOutputStream;
+
+/**
+ * Compresses spill files with the LZ4 frame format, fast enough to keep up with the disk.
+ *
+ * @since 11.1
+ */
+public class LZ4SpillCodec implements SpillCodec {
+  public static final String NAME = "LZ4";
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public OutputStream compress( OutputStream outputStream ) throws IOException {
+    return new FramedLZ4CompressorOutputStream( outputStream );
+  }
+
+  @Override
+  public InputStream decompress( InputStream inputStream ) throws IOException {
+    return new FramedLZ4CompressorInputStream( inputStream );
+  }
+}
@@ -0,0 +1,42 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.row.spill;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Writes spill files without compression.
+ *
+ * @since 11.1
+ */
+public class NoneSpillCodec implements SpillCodec {
+  public static final String NAME = "None";
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public OutputStream compress( OutputStream outputStream ) {
+    return outputStream;
+  }
+
+  @Override
+  public InputStream decompress( InputStream inputStream ) {
+    return inputStream;
+  }
+}
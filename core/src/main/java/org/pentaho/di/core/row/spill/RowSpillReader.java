@@ -0,0 +1,198 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.row.spill;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Date;
+
+import org.pentaho.di.core.exception.KettleEOFException;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.exception.KettleFileException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+
+/**
+ * Reads back the rows of a spill file written by {@link RowSpillWriter}. The codec of the file is taken from its
+ * header, the row layout must be the one the file was written with.
+ *
+ * @since 11.1
+ */
+public class RowSpillReader implements Closeable {
+  private final ValueMetaInterface[] valueMetas;
+  private final DataInputStream inputStream;
+
+  private byte[] buffer = new byte[256];
+
+  /**
+   * Reads the file header, the rows can be read next.
+   *
+   * @param inputStream
+   *          the file to read from, closed when the reader is closed
+   * @param rowMeta
+   *          the layout of the rows in the file
+   */
+  public RowSpillReader( InputStream inputStream, RowMetaInterface rowMeta ) throws KettleFileException {
+    valueMetas = rowMeta.getValueMetaList().toArray( new ValueMetaInterface[rowMeta.size()] );
+    try {
+      DataInputStream header = new DataInputStream( inputStream );
+      if ( header.readInt() != RowSpillWriter.MAGIC ) {
+        throw new KettleFileException( "The file is not a spill file" );
+      }
+      int version = header.readUnsignedByte();
+      if ( version != RowSpillWriter.VERSION ) {
+        throw new KettleFileException( "Unsupported spill file version " + version );
+      }
+      SpillCodec codec = SpillCodecs.getCodec( header.readUTF() );
+
+      this.inputStream = new DataInputStream(
+        new BufferedInputStream( codec.decompress( inputStream ), RowSpillWriter.BUFFER_SIZE ) );
+
+      int nrFields = (int) readVarLong();
+      if ( nrFields != valueMetas.length ) {
+        throw new KettleFileException( "The spill file contains "
+          + nrFields + " fields instead of " + valueMetas.length );
+      }
+      for ( ValueMetaInterface valueMeta : valueMetas ) {
+        int type = (int) readVarLong();
+        int storageType = (int) readVarLong();
+        if ( type != valueMeta.getType() || storageType != valueMeta.getStorageType() ) {
+          throw new KettleFileException( "The layout of the spill file doesn't match field "
+            + valueMeta.toStringMeta() );
+        }
+      }
+    } catch ( KettleFileException e ) {
+      throw e;
+    } catch ( KettleException | IOException e ) {
+      throw new KettleFileException( "Unable to read the header of the spill file", e );
+    }
+  }
+
+  /**
+   * @return the next row or null when all rows have been read.
+   */
+  public Object[] readRow() throws KettleFileException {
+    try {
+      int first = inputStream.read();
+      if ( first < 0 ) {
+        return null;
+      }
+
+      Object[] row = new Object[valueMetas.length];
+      if ( valueMetas.length == 0 ) {
+        return row;
+      }
+
+      int bitmapSize = ( valueMetas.length + 7 ) / 8;
+      byte[] bitmap = new byte[bitmapSize];
+      bitmap[0] = (byte) first;
+      inputStream.readFully( bitmap, 1, bitmapSize - 1 );
+
+      for ( int i = 0; i < valueMetas.length; i++ ) {
+        if ( ( bitmap[i >> 3] & ( 1 << ( i & 7 ) ) ) == 0 ) {
+          row[i] = readValue( valueMetas[i] );
+        }
+      }
+      return row;
+    } catch ( EOFException e ) {
+      throw new KettleFileException( "The spill file ends in the middle of a row", e );
+    } catch ( IOException e ) {
+      throw new KettleFileException( "Unable to read row from the spill file", e );
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    inputStream.close();
+  }
+
+  private Object readValue( ValueMetaInterface valueMeta ) throws IOException, KettleFileException {
+    switch ( valueMeta.getStorageType() ) {
+      case ValueMetaInterface.STORAGE_TYPE_BINARY_STRING:
+        return readBytes();
+      case ValueMetaInterface.STORAGE_TYPE_INDEXED:
+        return (int) unZigZag( readVarLong() );
+      default:
+        break;
+    }
+
+    switch ( valueMeta.getType() ) {
+      case ValueMetaInterface.TYPE_STRING:
+        int length = (int) readVarLong();
+        if ( buffer.length < length ) {
+          buffer = new byte[Math.max( length, buffer.length * 2 )];
+        }
+        inputStream.readFully( buffer, 0, length );
+        return new String( buffer, 0, length, StandardCharsets.UTF_8 );
+      case ValueMetaInterface.TYPE_NUMBER:
+        return Double.longBitsToDouble( inputStream.readLong() );
+      case ValueMetaInterface.TYPE_INTEGER:
+        return unZigZag( readVarLong() );
+      case ValueMetaInterface.TYPE_DATE:
+        return new Date( unZigZag( readVarLong() ) );
+      case ValueMetaInterface.TYPE_TIMESTAMP:
+        Timestamp timestamp = new Timestamp( unZigZag( readVarLong() ) );
+        timestamp.setNanos( (int) readVarLong() );
+        return timestamp;
+      case ValueMetaInterface.TYPE_BIGNUMBER:
+        int scale = (int) unZigZag( readVarLong() );
+        return new BigDecimal( new BigInteger( readBytes() ), scale );
+      case ValueMetaInterface.TYPE_BOOLEAN:
+        return inputStream.readUnsignedByte() != 0;
+      case ValueMetaInterface.TYPE_BINARY:
+        return readBytes();
+      case ValueMetaInterface.TYPE_INET:
+        return InetAddress.getByAddress( readBytes() );
+      default:
+        try {
+          return valueMeta.readData( new DataInputStream( new ByteArrayInputStream( readBytes() ) ) );
+        } catch ( KettleEOFException e ) {
+          throw new KettleFileException( "Unable to read value " + valueMeta.toStringMeta(), e );
+        }
+    }
+  }
+
+  private byte[] readBytes() throws IOException {
+    byte[] bytes = new byte[(int) readVarLong()];
+    inputStream.readFully( bytes );
+    return bytes;
+  }
+
+  private long readVarLong() throws IOException {
+    long value = 0;
+    for ( int shift = 0; shift < 64; shift += 7 ) {
+      int b = inputStream.readUnsignedByte();
+      value |= (long) ( b & 0x7F ) << shift;
+      if ( ( b & 0x80 ) == 0 ) {
+        return value;
+      }
+    }
+    throw new IOException( "Malformed variable length integer in the spill file" );
+  }
+
+  private static long unZigZag( long value ) {
+    return ( value >>> 1 ) ^ -( value & 1 );
+  }
+}
@@ -0,0 +1,246 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.row.spill;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Date;
+
+import org.pentaho.di.core.exception.KettleFileException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+
+/**
+ * Writes rows to a spill file in a compact binary format, to be read back with {@link RowSpillReader}.
+ * <p>
+ * Unlike {@link RowMetaInterface#writeData(DataOutputStream, Object[])} the layout of the rows is written only once, in
+ * the file header. Every row then is a bitmap of its null values followed by the values that are not null: integers,
+ * dates and lengths as variable length integers, numbers as 8 bytes and strings as UTF-8. Everything after the header
+ * goes through the {@link SpillCodec} of the file.
+ * <p>
+ * The file header is made of a magic number, the format version and the name of the codec, so the reader finds the
+ * codec on its own.
+ *
+ * @since 11.1
+ */
+public class RowSpillWriter implements Closeable {
+  static final int MAGIC = 0x4B53504C; // KSPL
+  static final int VERSION = 1;
+  static final int BUFFER_SIZE = 65536;
+
+  private final ValueMetaInterface[] valueMetas;
+  private final OutputStream outputStream;
+
+  private byte[] buffer = new byte[1024];
+  private int length;
+
+  /**
+   * Writes the file header, the rows can be written next.
+   *
+   * @param outputStream
+   *          the file to write to, closed when the writer is closed
+   * @param rowMeta
+   *          the layout of the rows to write
+   * @param codec
+   *          the codec to compress the rows with
+   */
+  public RowSpillWriter( OutputStream outputStream, RowMetaInterface rowMeta, SpillCodec codec )
+    throws KettleFileException {
+    valueMetas = rowMeta.getValueMetaList().toArray( new ValueMetaInterface[rowMeta.size()] );
+    try {
+      DataOutputStream header = new DataOutputStream( outputStream );
+      header.writeInt( MAGIC );
+      header.writeByte( VERSION );
+      header.writeUTF( codec.getName() );
+      header.flush();
+
+      this.outputStream = new BufferedOutputStream( codec.compress( outputStream ), BUFFER_SIZE );
+
+      writeVarLong( valueMetas.length );
+      for ( ValueMetaInterface valueMeta : valueMetas ) {
+        writeVarLong( valueMeta.getType() );
+        writeVarLong( valueMeta.getStorageType() );
+      }
+      flushRow();
+    } catch ( IOException e ) {
+      throw new KettleFileException( "Unable to write the header of the spill file", e );
+    }
+  }
+
+  /**
+   * Writes a row with the layout given to the constructor.
+   */
+  public void writeRow( Object[] row ) throws KettleFileException {
+    try {
+      if ( valueMetas.length == 0 ) {
+        // A marker to be able to count the rows
+        write( 1 );
+      } else {
+        int bitmap = length;
+        ensureCapacity( ( valueMetas.length + 7 ) / 8 );
+        Arrays.fill( buffer, bitmap, bitmap + ( valueMetas.length + 7 ) / 8, (byte) 0 );
+        length += ( valueMetas.length + 7 ) / 8;
+
+        for ( int i = 0; i < valueMetas.length; i++ ) {
+          Object value = row[i];
+          if ( value == null ) {
+            buffer[bitmap + ( i >> 3 )] |= (byte) ( 1 << ( i & 7 ) );
+          } else {
+            writeValue( valueMetas[i], value );
+          }
+        }
+      }
+      flushRow();
+    } catch ( ClassCastException e ) {
+      throw new KettleFileException( "There was a data type error writing row to the spill file", e );
+    } catch ( IOException e ) {
+      throw new KettleFileException( "Unable to write row to the spill file", e );
+    }
+  }
+
+  /**
+   * Compresses the last rows and closes the file.
+   */
+  @Override
+  public void close() throws IOException {
+    outputStream.close();
+  }
+
+  private void writeValue( ValueMetaInterface valueMeta, Object value ) throws IOException, KettleFileException {
+    switch ( valueMeta.getStorageType() ) {
+      case ValueMetaInterface.STORAGE_TYPE_BINARY_STRING:
+        writeBytes( (byte[]) value );
+        return;
+      case ValueMetaInterface.STORAGE_TYPE_INDEXED:
+        writeVarLong( zigZag( (Integer) value ) );
+        return;
+      default:
+        break;
+    }
+
+    switch ( valueMeta.getType() ) {
+      case ValueMetaInterface.TYPE_STRING:
+        writeString( (String) value );
+        break;
+      case ValueMetaInterface.TYPE_NUMBER:
+        writeLong( Double.doubleToRawLongBits( (Double) value ) );
+        break;
+      case ValueMetaInterface.TYPE_INTEGER:
+        writeVarLong( zigZag( (Long) value ) );
+        break;
+      case ValueMetaInterface.TYPE_DATE:
+        writeVarLong( zigZag( ( (Date) value ).getTime() ) );
+        break;
+      case ValueMetaInterface.TYPE_TIMESTAMP:
+        writeVarLong( zigZag( ( (Timestamp) value ).getTime() ) );
+        writeVarLong( ( (Timestamp) value ).getNanos() );
+        break;
+      case ValueMetaInterface.TYPE_BIGNUMBER:
+        BigDecimal number = (BigDecimal) value;
+        writeVarLong( zigZag( number.scale() ) );
+        writeBytes( number.unscaledValue().toByteArray() );
+        break;
+      case ValueMetaInterface.TYPE_BOOLEAN:
+        write( ( (Boolean) value ) ? 1 : 0 );
+        break;
+      case ValueMetaInterface.TYPE_BINARY:
+        writeBytes( (byte[]) value );
+        break;
+      case ValueMetaInterface.TYPE_INET:
+        writeBytes( ( (InetAddress) value ).getAddress() );
+        break;
+      default:
+        // Value types from plugins serialize themselves
+        //
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream dataOutputStream = new DataOutputStream( bytes );
+        valueMeta.writeData( dataOutputStream, value );
+        dataOutputStream.flush();
+        writeBytes( bytes.toByteArray() );
+        break;
+    }
+  }
+
+  private void writeString( String string ) {
+    // Plain ASCII is copied as is, anything else goes through the UTF-8 encoder
+    //
+    int size = string.length();
+    int start = length;
+    writeVarLong( size );
+    ensureCapacity( size );
+    for ( int i = 0; i < size; i++ ) {
+      char c = string.charAt( i );
+      if ( c >= 0x80 ) {
+        length = start;
+        writeBytes( string.getBytes( StandardCharsets.UTF_8 ) );
+        return;
+      }
+      buffer[length + i] = (byte) c;
+    }
+    length += size;
+  }
+
+  private void writeBytes( byte[] bytes ) {
+    writeVarLong( bytes.length );
+    ensureCapacity( bytes.length );
+    System.arraycopy( bytes, 0, buffer, length, bytes.length );
+    length += bytes.length;
+  }
+
+  private void writeLong( long value ) {
+    ensureCapacity( 8 );
+    for ( int shift = 56; shift >= 0; shift -= 8 ) {
+      buffer[length++] = (byte) ( value >>> shift );
+    }
+  }
+
+  private void writeVarLong( long value ) {
+    ensureCapacity( 10 );
+    while ( ( value & ~0x7FL ) != 0 ) {
+      buffer[length++] = (byte) ( ( value & 0x7F ) | 0x80 );
+      value >>>= 7;
+    }
+    buffer[length++] = (byte) value;
+  }
+
+  private void write( int b ) {
+    ensureCapacity( 1 );
+    buffer[length++] = (byte) b;
+  }
+
+  private void ensureCapacity( int extra ) {
+    if ( length + extra > buffer.length ) {
+      buffer = Arrays.copyOf( buffer, Math.max( buffer.length * 2, length + extra ) );
+    }
+  }
+
+  private void flushRow() throws IOException {
+    outputStream.write( buffer, 0, length );
+    length = 0;
+  }
+
+  static long zigZag( long value ) {
+    return ( value << 1 ) ^ ( value >> 63 );
+  }
+}
@@ -0,0 +1,46 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.row.spill;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Compresses the rows that steps spill to temporary files. The name of the codec is stored in the header of every
+ * spill file, so a file can always be read back with the codec it was written with.
+ *
+ * @see SpillCodecs
+ * @since 11.1
+ */
+public interface SpillCodec {
+
+  /**
+   * @return the unique name of the codec, used in the step settings, the KETTLE_SPILL_COMPRESSION variable and the
+   *         spill file header
+   */
+  String getName();
+
+  /**
+   * Wraps a stream so that everything written to it is compressed. Closing the returned stream must close the wrapped
+   * stream as well.
+   */
+  OutputStream compress( OutputStream outputStream ) throws IOException;
+
+  /**
+   * Wraps a stream of compressed data written by {@link #compress(OutputStream)}.
+   */
+  InputStream decompress( InputStream inputStream ) throws IOException;
+}
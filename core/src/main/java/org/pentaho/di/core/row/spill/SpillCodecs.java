@@ -0,0 +1,101 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.row.spill;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.util.Utils;
+import org.pentaho.di.core.variables.VariableSpace;
+
+/**
+ * The registry of the codecs that spill files can be compressed with. None, GZIP, LZ4 and Zstd are always available,
+ * others can be added with {@link #register(SpillCodec)}.
+ *
+ * @since 11.1
+ */
+public class SpillCodecs {
+
+  private static final Map<String, SpillCodec> codecs = new LinkedHashMap<>();
+
+  static {
+    register( new NoneSpillCodec() );
+    register( new GZIPSpillCodec() );
+    register( new LZ4SpillCodec() );
+    register( new ZstdSpillCodec() );
+  }
+
+  private SpillCodecs() {
+  }
+
+  /**
+   * Adds a codec, replacing any codec with the same name.
+   */
+  public static synchronized void register( SpillCodec codec ) {
+    codecs.put( codec.getName().toUpperCase(), codec );
+  }
+
+  /**
+   * @return the names of all the available codecs
+   */
+  public static synchronized String[] getCodecNames() {
+    List<String> names = new ArrayList<>();
+    for ( SpillCodec codec : codecs.values() ) {
+      names.add( codec.getName() );
+    }
+    return names.toArray( new String[names.size()] );
+  }
+
+  /**
+   * Looks up a codec by its name, ignoring case. An empty name means no compression.
+   *
+   * @throws KettleException
+   *           in case there is no codec with that name
+   */
+  public static synchronized SpillCodec getCodec( String name ) throws KettleException {
+    if ( Utils.isEmpty( name ) ) {
+      return codecs.get( NoneSpillCodec.NAME.toUpperCase() );
+    }
+    SpillCodec codec = codecs.get( name.trim().toUpperCase() );
+    if ( codec == null ) {
+      throw new KettleException( "Unknown spill compression codec '" + name + "', use one of "
+        + String.join( ", ", getCodecNames() ) );
+    }
+    return codec;
+  }
+
+  /**
+   * Determines the codec a step spills with: the codec set in the step, otherwise GZIP if the step has the older
+   * compress option switched on, otherwise the default from the {@link Const#KETTLE_SPILL_COMPRESSION} variable.
+   *
+   * @param space
+   *          the variables to resolve the codec name and the default with
+   * @param stepCodec
+   *          the name of the codec set in the step, may be empty
+   * @param compress
+   *          the compress option of the step
+   */
+  public static SpillCodec getCodec( VariableSpace space, String stepCodec, boolean compress ) throws KettleException {
+    String name = space.environmentSubstitute( stepCodec );
+    if ( Utils.isEmpty( name ) ) {
+      name = compress ? GZIPSpillCodec.NAME : space.getVariable( Const.KETTLE_SPILL_COMPRESSION );
+    }
+    return getCodec( name );
+  }
+}
@@ -0,0 +1,304 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.row.value;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+
+/**
+ * Turns the key fields of a row into a single normalized key: a byte array that, compared as unsigned bytes with
+ * {@link #compare(byte[], byte[])}, sorts exactly like {@link RowMetaInterface#compare(Object[], Object[], int[])}.
+ * <p>
+ * The ascending flag, null handling, case sensitivity, whitespace trimming and collator of every key field are folded
+ * into the encoding, so a step can encode a row once and replace the per field comparisons by a plain byte comparison.
+ * Only the standard String, Number, Integer, Date, BigNumber and Boolean value types without a custom comparator are
+ * supported, see {@link #isSupported(RowMetaInterface, int[])}.
+ * <p>
+ * Every field is encoded as a marker byte (0 for null, 1 for a value) followed by a self-delimiting value, all bytes of
+ * a descending field are inverted:
+ * <ul>
+ * <li>Integer and Date: the big endian long with its sign bit flipped</li>
+ * <li>Number: the IEEE 754 bits, flipped so that the order matches {@link Double#compare(double, double)}</li>
+ * <li>Boolean: 0 for false and 1 for true</li>
+ * <li>BigNumber: the sign, the decimal exponent and the significant digits</li>
+ * <li>String: the characters, case folded code points or collation key bytes, with 0x00 escaped as 0x00 0xFF and
+ * ending in 0x00 0x00</li>
+ * </ul>
+ *
+ * @since 11.1
+ */
+public class SortKeyEncoder {
+  private static final int NULL_MARKER = 0;
+  private static final int VALUE_MARKER = 1;
+
+  private final ValueMetaBase[] valueMetas;
+  private final int[] fieldNrs;
+
+  /**
+   * @param rowMeta
+   *          the metadata of the rows to encode
+   * @param fieldNrs
+   *          the indexes of the key fields, in sort order
+   * @throws KettleValueException
+   *           in case one of the key fields can't be encoded
+   */
+  public SortKeyEncoder( RowMetaInterface rowMeta, int[] fieldNrs ) throws KettleValueException {
+    this.fieldNrs = fieldNrs;
+    this.valueMetas = new ValueMetaBase[fieldNrs.length];
+    for ( int i = 0; i < fieldNrs.length; i++ ) {
+      ValueMetaInterface valueMeta = rowMeta.getValueMeta( fieldNrs[i] );
+      if ( !isSupported( valueMeta ) ) {
+        throw new KettleValueException( valueMeta.toStringMeta() + " : Unable to create a sort key for this value" );
+      }
+      valueMetas[i] = (ValueMetaBase) valueMeta;
+    }
+  }
+
+  /**
+   * @return true if all the given key fields can be encoded into a normalized key.
+   */
+  public static boolean isSupported( RowMetaInterface rowMeta, int[] fieldNrs ) {
+    if ( rowMeta == null || fieldNrs == null ) {
+      return false;
+    }
+    for ( int fieldNr : fieldNrs ) {
+      if ( fieldNr < 0 || fieldNr >= rowMeta.size() || !isSupported( rowMeta.getValueMeta( fieldNr ) ) ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return true if the value can be encoded into a normalized key with the same order as
+   *         {@link ValueMetaInterface#compare(Object, Object)}.
+   */
+  public static boolean isSupported( ValueMetaInterface valueMeta ) {
+    if ( !( valueMeta instanceof ValueMetaBase ) || ( (ValueMetaBase) valueMeta ).comparator != null ) {
+      return false;
+    }
+    switch ( valueMeta.getType() ) {
+      case ValueMetaInterface.TYPE_STRING:
+      case ValueMetaInterface.TYPE_INTEGER:
+      case ValueMetaInterface.TYPE_NUMBER:
+      case ValueMetaInterface.TYPE_DATE:
+      case ValueMetaInterface.TYPE_BIGNUMBER:
+      case ValueMetaInterface.TYPE_BOOLEAN:
+        break;
+      default:
+        return false;
+    }
+
+    // Subclasses with their own comparison (timestamps, internet addresses, plugins) keep their own order
+    //
+    try {
+      return valueMeta.getClass().getMethod( "compare", Object.class, Object.class ).getDeclaringClass()
+        == ValueMetaBase.class;
+    } catch ( NoSuchMethodException e ) {
+      return false;
+    }
+  }
+
+  /**
+   * Checks if the keys of two row layouts can be encoded with the same encoder, so that the normalized keys of both
+   * compare like {@link RowMetaInterface#compare(Object[], RowMetaInterface, Object[], int[], int[])}. This requires
+   * key fields of the same type, in normal storage and with the same sort options.
+   */
+  public static boolean isSupported( RowMetaInterface rowMeta1, int[] fieldNrs1, RowMetaInterface rowMeta2,
+    int[] fieldNrs2 ) {
+    if ( !isSupported( rowMeta1, fieldNrs1 ) || !isSupported( rowMeta2, fieldNrs2 )
+      || fieldNrs1.length != fieldNrs2.length ) {
+      return false;
+    }
+    for ( int i = 0; i < fieldNrs1.length; i++ ) {
+      ValueMetaBase v1 = (ValueMetaBase) rowMeta1.getValueMeta( fieldNrs1[i] );
+      ValueMetaBase v2 = (ValueMetaBase) rowMeta2.getValueMeta( fieldNrs2[i] );
+      if ( v1.getType() != v2.getType() || !v1.isStorageNormal() || !v2.isStorageNormal()
+        || v1.isSortedDescending() != v2.isSortedDescending() || v1.isCaseInsensitive() != v2.isCaseInsensitive()
+        || v1.isIgnoreWhitespace() != v2.isIgnoreWhitespace() || v1.isCollatorDisabled() != v2.isCollatorDisabled() ) {
+        return false;
+      }
+      if ( !v1.isCollatorDisabled() && !v1.collator.equals( v2.collator ) ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Encodes the key fields of the row.
+   */
+  public byte[] encode( Object[] row ) throws KettleValueException {
+    return encode( row, fieldNrs );
+  }
+
+  /**
+   * Encodes the values at the given indexes of a row with the key fields of this encoder. This is used to compare rows
+   * of another stream with the same key types, like the second input of a merge join.
+   */
+  public byte[] encode( Object[] row, int[] rowFieldNrs ) throws KettleValueException {
+    Key key = new Key( valueMetas.length * 10 );
+    for ( int i = 0; i < valueMetas.length; i++ ) {
+      ValueMetaBase valueMeta = valueMetas[i];
+      int start = key.length;
+      encodeValue( valueMeta, row[rowFieldNrs[i]], key );
+      if ( valueMeta.isSortedDescending() ) {
+        key.invert( start );
+      }
+    }
+    return key.toByteArray();
+  }
+
+  /**
+   * Compares two normalized keys as unsigned bytes.
+   *
+   * @return 0 if the keys are equal, a negative value if key1 is smaller and a positive value if key1 is larger.
+   */
+  public static int compare( byte[] key1, byte[] key2 ) {
+    return Arrays.compareUnsigned( key1, key2 );
+  }
+
+  private static void encodeValue( ValueMetaBase valueMeta, Object data, Key key ) throws KettleValueException {
+    if ( valueMeta.isNull( data ) ) {
+      key.write( NULL_MARKER );
+      return;
+    }
+    key.write( VALUE_MARKER );
+
+    switch ( valueMeta.getType() ) {
+      case ValueMetaInterface.TYPE_STRING:
+        encodeString( valueMeta, valueMeta.getString( data ), key );
+        break;
+      case ValueMetaInterface.TYPE_INTEGER:
+        key.writeLong( valueMeta.getInteger( data ) ^ Long.MIN_VALUE );
+        break;
+      case ValueMetaInterface.TYPE_NUMBER:
+        long bits = Double.doubleToLongBits( valueMeta.getNumber( data ) );
+        key.writeLong( bits < 0 ? ~bits : bits ^ Long.MIN_VALUE );
+        break;
+      case ValueMetaInterface.TYPE_DATE:
+        key.writeLong( valueMeta.getDate( data ).getTime() ^ Long.MIN_VALUE );
+        break;
+      case ValueMetaInterface.TYPE_BIGNUMBER:
+        encodeBigNumber( valueMeta.getBigNumber( data ), key );
+        break;
+      case ValueMetaInterface.TYPE_BOOLEAN:
+        key.write( valueMeta.getBoolean( data ) ? 1 : 0 );
+        break;
+      default:
+        throw new KettleValueException( valueMeta.toStringMeta() + " : Unable to create a sort key for this value" );
+    }
+  }
+
+  private static void encodeString( ValueMetaBase valueMeta, String string, Key key ) {
+    if ( valueMeta.isIgnoreWhitespace() ) {
+      string = string.trim();
+    }
+
+    if ( !valueMeta.isCollatorDisabled() ) {
+      // Collation keys compare like their byte representation
+      //
+      for ( byte b : valueMeta.collator.getCollationKey( string ).toByteArray() ) {
+        key.writeEscaped( b );
+      }
+    } else if ( valueMeta.isCaseInsensitive() ) {
+      // String.compareToIgnoreCase() compares code points, folded to upper and then to lower case
+      //
+      for ( int i = 0; i < string.length(); ) {
+        int codePoint = string.codePointAt( i );
+        i += Character.charCount( codePoint );
+        codePoint = Character.toLowerCase( Character.toUpperCase( codePoint ) );
+        key.writeEscaped( codePoint >>> 16 );
+        key.writeEscaped( codePoint >>> 8 );
+        key.writeEscaped( codePoint );
+      }
+    } else {
+      // String.compareTo() compares UTF-16 characters
+      //
+      for ( int i = 0; i < string.length(); i++ ) {
+        char c = string.charAt( i );
+        key.writeEscaped( c >>> 8 );
+        key.writeEscaped( c );
+      }
+    }
+    key.write( 0 );
+    key.write( 0 );
+  }
+
+  private static void encodeBigNumber( BigDecimal number, Key key ) {
+    int signum = number.signum();
+    key.write( signum + 1 );
+    if ( signum == 0 ) {
+      return;
+    }
+
+    // The magnitude is 0.d1d2d3... x 10^exponent, a larger exponent or larger digits make a larger number
+    //
+    BigDecimal magnitude = number.abs().stripTrailingZeros();
+    int start = key.length;
+    key.writeLong( ( (long) magnitude.precision() - magnitude.scale() ) ^ Long.MIN_VALUE );
+    String digits = magnitude.unscaledValue().toString();
+    for ( int i = 0; i < digits.length(); i++ ) {
+      key.write( digits.charAt( i ) );
+    }
+    key.write( 0 );
+    if ( signum < 0 ) {
+      key.invert( start );
+    }
+  }
+
+  private static final class Key {
+    private byte[] bytes;
+    private int length;
+
+    Key( int capacity ) {
+      bytes = new byte[Math.max( capacity, 16 )];
+    }
+
+    void write( int b ) {
+      if ( length == bytes.length ) {
+        bytes = Arrays.copyOf( bytes, bytes.length * 2 );
+      }
+      bytes[length++] = (byte) b;
+    }
+
+    void writeEscaped( int b ) {
+      write( b );
+      if ( ( b & 0xFF ) == 0 ) {
+        write( 0xFF );
+      }
+    }
+
+    void writeLong( long value ) {
+      for ( int shift = 56; shift >= 0; shift -= 8 ) {
+        write( (int) ( value >>> shift ) );
+      }
+    }
+
+    void invert( int from ) {
+      for ( int i = from; i < length; i++ ) {
+        bytes[i] = (byte) ~bytes[i];
+      }
+    }
+
+    byte[] toByteArray() {
+      return Arrays.copyOf( bytes, length );
+    }
+  }
+}
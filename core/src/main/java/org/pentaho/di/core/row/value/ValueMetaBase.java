@@ -29,6 +29,7 @@ import org.pentaho.di.core.exception.KettleDatabaseException;
 import org.pentaho.di.core.exception.KettleEOFException;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleFileException;
+import org.pentaho.di.core.exception.KettlePluginException;
 import org.pentaho.di.core.exception.KettleValueException;
 import org.pentaho.di.core.gui.PrimitiveGCInterface;
 import org.pentaho.di.core.logging.KettleLogStore;
@@ -51,6 +52,7 @@ import java.math.BigDecimal;
 import java.net.InetAddress;
 import java.net.SocketTimeoutException;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.sql.Blob;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -93,6 +95,12 @@ public class ValueMetaBase implements ValueMetaInterface {
           EnvUtil.getSystemProperty( Const.KETTLE_DEFAULT_INTEGER_FORMAT ),
           "####0;-####0" );
 
+  /**
+   * True if the default integer format writes the same digits as the text of an integer in a database. A default
+   * format with grouping or padding, set with KETTLE_DEFAULT_INTEGER_FORMAT, keeps integers from a database native.
+   */
+  private static final boolean DEFAULT_INTEGER_FORMAT_IS_PLAIN = isPlainIntegerFormat( DEFAULT_INTEGER_FORMAT_MASK );
+
   public static final String DEFAULT_NUMBER_FORMAT_MASK = Const.NVL(
           EnvUtil.getSystemProperty( Const.KETTLE_DEFAULT_NUMBER_FORMAT ),
           "####0.0#########;-####0.0#########" );
@@ -4729,6 +4737,64 @@ public class ValueMetaBase implements ValueMetaInterface {
     gc.drawText( getString( value ), 0, 0 );
   }
 
+  /**
+   * Enables lazy conversion on a value read from a database: the value keeps the text of the database as a binary
+   * string until a step needs its native value. Steps that only pass the value on, to a text file for example, write
+   * the bytes as they were read. This applies to strings and to integers without a format of their own, as long as the
+   * default integer format writes plain digits. Other values are not changed.
+   *
+   * @param valueMeta
+   *          the value read from a database, with normal storage
+   * @return true if lazy conversion was enabled for the value
+   */
+  public static boolean setLazyConversion( ValueMetaInterface valueMeta ) throws KettlePluginException {
+    switch ( valueMeta.getType() ) {
+      case TYPE_STRING:
+        break;
+      case TYPE_INTEGER:
+        // The database text is passed on as it was read, only the plain default format writes the same text
+        String mask = valueMeta.getConversionMask();
+        if ( !DEFAULT_INTEGER_FORMAT_IS_PLAIN
+          || ( !Utils.isEmpty( mask ) && !mask.equals( DEFAULT_INTEGER_FORMAT_MASK ) ) ) {
+          return false;
+        }
+        valueMeta.setConversionMask( DEFAULT_INTEGER_FORMAT_MASK );
+        valueMeta.setDecimalSymbol( "." );
+        valueMeta.setGroupingSymbol( "" );
+        break;
+      default:
+        return false;
+    }
+
+    // The storage metadata is a copy of the value, as a String, with the same format
+    //
+    ValueMetaInterface storageMetadata = ValueMetaFactory.cloneValueMeta( valueMeta, TYPE_STRING );
+    storageMetadata.setStorageType( STORAGE_TYPE_NORMAL );
+    storageMetadata.setLenientStringToNumber( false );
+    valueMeta.setStorageType( STORAGE_TYPE_BINARY_STRING );
+    valueMeta.setStorageMetadata( storageMetadata );
+    return true;
+  }
+
+  /**
+   * @param mask
+   *          an integer format mask
+   * @return true if the mask formats integers as their plain digits, with a minus sign when negative
+   */
+  static boolean isPlainIntegerFormat( String mask ) {
+    try {
+      DecimalFormat format = new DecimalFormat( mask, DecimalFormatSymbols.getInstance( Locale.US ) );
+      for ( long value : new long[] { 0L, 7L, -12345L, 1234567890123L, Long.MIN_VALUE, Long.MAX_VALUE } ) {
+        if ( !Long.toString( value ).equals( format.format( value ) ) ) {
+          return false;
+        }
+      }
+      return true;
+    } catch ( IllegalArgumentException e ) {
+      return false;
+    }
+  }
+
   @SuppressWarnings( "fallthrough" )
   @Override
   public ValueMetaInterface getValueFromSQLType( DatabaseMeta databaseMeta, String name, java.sql.ResultSetMetaData rm,
@@ -4953,16 +5019,10 @@ public class ValueMetaBase implements ValueMetaInterface {
 
       // See if we need to enable lazy conversion...
       //
-      if ( lazyConversion && valtype == ValueMetaInterface.TYPE_STRING ) {
-        v.setStorageType( ValueMetaInterface.STORAGE_TYPE_BINARY_STRING );
+      if ( lazyConversion ) {
         // TODO set some encoding to go with this.
-
-        // Also set the storage metadata. a copy of the parent, set to String too.
-        //
         try {
-          ValueMetaInterface storageMetaData = ValueMetaFactory.cloneValueMeta( v, ValueMetaInterface.TYPE_STRING );
-          storageMetaData.setStorageType( ValueMetaInterface.STORAGE_TYPE_NORMAL );
-          v.setStorageMetadata( storageMetaData );
+          setLazyConversion( v );
         } catch ( Exception e ) {
           throw new SQLException( e );
         }
@@ -5287,7 +5347,11 @@ public class ValueMetaBase implements ValueMetaInterface {
           data = resultSet.getBigDecimal( index + 1 );
           break;
         case ValueMetaInterface.TYPE_INTEGER:
-          data = Long.valueOf( resultSet.getLong( index + 1 ) );
+          if ( isStorageBinaryString() ) {
+            data = getIntegerBinaryString( resultSet, index + 1 );
+          } else {
+            data = Long.valueOf( resultSet.getLong( index + 1 ) );
+          }
           break;
         case ValueMetaInterface.TYPE_STRING:
           if ( isStorageBinaryString() ) {
@@ -5335,6 +5399,26 @@ public class ValueMetaBase implements ValueMetaInterface {
 
   }
 
+  /**
+   * @return the text of an integer in the result set, as a binary string. A driver that doesn't return the plain
+   *         digits of the integer, "1.0" for example, gets the native value formatted.
+   */
+  private byte[] getIntegerBinaryString( ResultSet resultSet, int columnIndex ) throws SQLException {
+    String string = resultSet.getString( columnIndex );
+    if ( string == null ) {
+      return null;
+    }
+    int start = string.startsWith( "-" ) ? 1 : 0;
+    boolean plain = start < string.length() && string.length() < 19;
+    for ( int i = start; plain && i < string.length(); i++ ) {
+      plain = string.charAt( i ) >= '0' && string.charAt( i ) <= '9';
+    }
+    if ( !plain ) {
+      string = Long.toString( resultSet.getLong( columnIndex ) );
+    }
+    return string.getBytes( StandardCharsets.US_ASCII );
+  }
+
   private Object getNetezzaDateValueWorkaround( DatabaseInterface databaseInterface, ResultSet resultSet, int index )
     throws SQLException, KettleDatabaseException {
     Object data = null;
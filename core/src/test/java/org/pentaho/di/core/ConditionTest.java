@@ -16,11 +16,13 @@ package org.pentaho.di.core;
 
 import org.junit.ClassRule;
 import org.junit.Test;
+import org.pentaho.di.core.row.RowChunk;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaAndData;
 import org.pentaho.di.core.row.value.ValueMetaInteger;
 import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.row.value.ValueMetaString;
 import org.pentaho.di.junit.rules.RestorePDIEnvironment;
 
 import java.util.Arrays;
@@ -358,4 +360,32 @@ public class ConditionTest {
     assertTrue( c.isEmpty() );
   }
 
+  @Test
+  public void testChunkEvaluationMatchesRows() throws Exception {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    rowMeta.addValueMeta( new ValueMetaNumber( "amount" ) );
+    rowMeta.addValueMeta( new ValueMetaNumber( "limit" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "name" ) );
+
+    List<Object[]> rows = Arrays.asList(
+      new Object[] { 1L, 10.0, 5.0, "a" },
+      new Object[] { 2L, null, 5.0, "b" },
+      new Object[] { null, 3.0, null, null },
+      new Object[] { -4L, 5.0, 5.0, "d" } );
+    RowChunk chunk = RowChunk.fromRows( rowMeta, rows );
+
+    Condition condition = new Condition( "id", Condition.FUNC_SMALLER, null,
+      new ValueMetaAndData( new ValueMetaInteger( "constant" ), 2L ) );
+    condition.addCondition( new Condition( Condition.OPERATOR_OR, "amount", Condition.FUNC_LARGER_EQUAL, "limit",
+      null ) );
+    condition.addCondition( new Condition( Condition.OPERATOR_AND_NOT, "name", Condition.FUNC_NULL, null, null ) );
+
+    boolean[] result = new boolean[chunk.size()];
+    condition.evaluate( chunk, result );
+    for ( int r = 0; r < rows.size(); r++ ) {
+      assertEquals( "row " + r, condition.evaluate( rowMeta, rows.get( r ) ), result[r] );
+    }
+  }
+
 }
@@ -0,0 +1,189 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+
+public class RingBufferRowSetTest {
+
+  private RowMetaInterface createRowMeta() {
+    RowMetaInterface rm = new RowMeta();
+    rm.addValueMeta( new ValueMetaInteger( "ROWNR" ) );
+    return rm;
+  }
+
+  @Test
+  public void testBasicCreation() {
+    RowSet set = new RingBufferRowSet( 10 );
+
+    assertFalse( set.isDone() );
+    assertFalse( set.isBlocking() );
+    assertEquals( 0, set.size() );
+    assertNull( set.getRowImmediate() );
+  }
+
+  @Test
+  public void testFifoOrderAndSize() {
+    RowSet set = new RingBufferRowSet( 3 );
+    RowMetaInterface rm = createRowMeta();
+
+    Object[] r1 = new Object[] { 1L };
+    Object[] r2 = new Object[] { 2L };
+    Object[] r3 = new Object[] { 3L };
+    Object[] r4 = new Object[] { 4L };
+
+    assertTrue( set.putRow( rm, r1 ) );
+    assertTrue( set.putRow( rm, r2 ) );
+    assertTrue( set.putRow( rm, r3 ) );
+    assertEquals( 3, set.size() );
+    assertSame( rm, set.getRowMeta() );
+
+    // The capacity is respected even though the ring itself is rounded up to a power of two
+    assertFalse( set.putRowWait( rm, r4, 1, TimeUnit.MILLISECONDS ) );
+    assertEquals( 3, set.size() );
+
+    assertSame( r1, set.getRow() );
+    assertTrue( set.putRowWait( rm, r4, 1, TimeUnit.MILLISECONDS ) );
+    assertSame( r2, set.getRowImmediate() );
+    assertSame( r3, set.getRowWait( 1, TimeUnit.MILLISECONDS ) );
+    assertSame( r4, set.getRow() );
+    assertEquals( 0, set.size() );
+    assertNull( set.getRowWait( 1, TimeUnit.MILLISECONDS ) );
+  }
+
+  @Test
+  public void testNullRowIsRejected() {
+    RowSet set = new RingBufferRowSet( 3 );
+    assertFalse( set.putRow( createRowMeta(), null ) );
+    assertEquals( 0, set.size() );
+  }
+
+  @Test
+  public void testDoneAndClear() {
+    RowSet set = new RingBufferRowSet( 5 );
+    RowMetaInterface rm = createRowMeta();
+    set.putRow( rm, new Object[] { 1L } );
+    set.putRow( rm, new Object[] { 2L } );
+    set.setDone();
+    assertTrue( set.isDone() );
+
+    set.clear();
+    assertFalse( set.isDone() );
+    assertEquals( 0, set.size() );
+    assertNull( set.getRowImmediate() );
+
+    Object[] r3 = new Object[] { 3L };
+    assertTrue( set.putRow( rm, r3 ) );
+    assertSame( r3, set.getRow() );
+  }
+
+  @Test
+  public void testBatches() {
+    RowSet set = new RingBufferRowSet( 4 );
+    RowMetaInterface rm = createRowMeta();
+
+    Object[] r1 = new Object[] { 1L };
+    Object[] r2 = new Object[] { 2L };
+    Object[] r3 = new Object[] { 3L };
+    Object[] r4 = new Object[] { 4L };
+    Object[] r5 = new Object[] { 5L };
+    Object[] r6 = new Object[] { 6L };
+
+    assertEquals( 3, set.putRows( rm, Arrays.asList( r1, r2, r3 ) ) );
+    // Only one more row fits
+    assertEquals( 1, set.putRows( rm, Arrays.asList( r4, r5 ) ) );
+    assertEquals( 4, set.size() );
+
+    List<Object[]> rows = set.getRows( 2 );
+    assertEquals( 2, rows.size() );
+    assertSame( r1, rows.get( 0 ) );
+    assertSame( r2, rows.get( 1 ) );
+
+    assertEquals( 2, set.putRows( rm, Arrays.asList( r5, r6 ) ) );
+    rows = set.getRows( 100 );
+    assertEquals( 4, rows.size() );
+    assertSame( r3, rows.get( 0 ) );
+    assertSame( r6, rows.get( 3 ) );
+
+    assertTrue( set.getRows( 10 ).isEmpty() );
+  }
+
+  @Test
+  public void testNames() {
+    RowSet set = new RingBufferRowSet( 3 );
+    set.setThreadNameFromToCopy( "from", 0, "to", 0 );
+    assertEquals( "from.0 - to.0", set.getName() );
+  }
+
+  @Test( timeout = 30000 )
+  public void testSingleProducerSingleConsumer() throws Exception {
+    final int nrRows = 200000;
+    final RowSet set = new RingBufferRowSet( 16 );
+    final RowMetaInterface rm = createRowMeta();
+    final AtomicReference<String> error = new AtomicReference<>();
+
+    Thread producer = new Thread( () -> {
+      for ( long i = 0; i < nrRows; i++ ) {
+        Object[] row = new Object[] { i };
+        while ( !set.putRow( rm, row ) ) {
+          // keep trying, just like BaseStep does
+        }
+      }
+      set.setDone();
+    } );
+
+    Thread consumer = new Thread( () -> {
+      long expected = 0;
+      while ( true ) {
+        Object[] row = set.getRowWait( 10, TimeUnit.MILLISECONDS );
+        if ( row == null ) {
+          if ( set.isDone() && set.size() == 0 ) {
+            break;
+          }
+          continue;
+        }
+        if ( (Long) row[0] != expected ) {
+          error.set( "Expected row " + expected + " but got " + row[0] );
+          return;
+        }
+        expected++;
+      }
+      if ( expected != nrRows ) {
+        error.set( "Expected " + nrRows + " rows but got " + expected );
+      }
+    } );
+
+    producer.start();
+    consumer.start();
+    producer.join();
+    consumer.join();
+
+    assertNull( error.get() );
+  }
+}
@@ -15,6 +15,9 @@
 package org.pentaho.di.core;
 
 
+import java.util.Arrays;
+import java.util.List;
+
 import org.junit.ClassRule;
 import org.junit.Test;
 import org.pentaho.di.core.row.RowMeta;
@@ -24,6 +27,7 @@ import org.pentaho.di.core.row.value.ValueMetaInteger;
 import org.pentaho.di.junit.rules.RestorePDIEnvironment;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -162,6 +166,38 @@ public class RowSetTest {
      **********************************************************************/
   }
 
+  /**
+   * Batch functionality test.
+   */
+  @Test
+  public void testBatches() {
+    RowSet set = new BlockingRowSet( 3 );
+
+    RowMetaInterface rm = createRowMetaInterface();
+
+    Object[] r1 = new Object[] { 1L };
+    Object[] r2 = new Object[] { 2L };
+    Object[] r3 = new Object[] { 3L };
+    Object[] r4 = new Object[] { 4L };
+
+    // Only 3 rows fit
+    assertEquals( 3, set.putRows( rm, Arrays.asList( r1, r2, r3, r4 ) ) );
+    assertEquals( 3, set.size() );
+
+    List<Object[]> rows = set.getRows( 2 );
+    assertEquals( 2, rows.size() );
+    assertSame( r1, rows.get( 0 ) );
+    assertSame( r2, rows.get( 1 ) );
+
+    assertEquals( 1, set.putRows( rm, Arrays.asList( r4 ) ) );
+    rows = set.getRows( 10 );
+    assertEquals( 2, rows.size() );
+    assertSame( r3, rows.get( 0 ) );
+    assertSame( r4, rows.get( 1 ) );
+
+    assertTrue( set.getRows( 10 ).isEmpty() );
+  }
+
   /**
    * Names test. Just for completeness.
    */
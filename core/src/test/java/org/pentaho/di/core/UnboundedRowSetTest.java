@@ -0,0 +1,104 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+
+public class UnboundedRowSetTest {
+
+  private RowMetaInterface createRowMeta() {
+    RowMetaInterface rm = new RowMeta();
+    rm.addValueMeta( new ValueMetaInteger( "ROWNR" ) );
+    return rm;
+  }
+
+  @Test
+  public void testBasicCreation() {
+    RowSet set = new UnboundedRowSet();
+
+    assertFalse( set.isDone() );
+    assertEquals( 0, set.size() );
+    assertNull( set.getRowImmediate() );
+  }
+
+  @Test
+  public void testPutNeverWaits() {
+    RowSet set = new UnboundedRowSet();
+    RowMetaInterface rm = createRowMeta();
+
+    for ( int i = 0; i < 50000; i++ ) {
+      assertTrue( set.putRowWait( rm, new Object[] { (long) i }, 1, TimeUnit.MILLISECONDS ) );
+    }
+    assertEquals( 50000, set.size() );
+    assertSame( rm, set.getRowMeta() );
+    for ( int i = 0; i < 50000; i++ ) {
+      assertEquals( (long) i, set.getRowImmediate()[0] );
+    }
+    assertNull( set.getRowWait( 1, TimeUnit.MILLISECONDS ) );
+  }
+
+  @Test
+  public void testNullRowIsRejected() {
+    RowSet set = new UnboundedRowSet();
+
+    assertFalse( set.putRow( createRowMeta(), null ) );
+    assertEquals( 0, set.size() );
+  }
+
+  @Test
+  public void testBatches() {
+    RowSet set = new UnboundedRowSet();
+    RowMetaInterface rm = createRowMeta();
+
+    Object[] r1 = new Object[] { 1L };
+    Object[] r2 = new Object[] { 2L };
+    Object[] r3 = new Object[] { 3L };
+    assertEquals( 3, set.putRows( rm, Arrays.asList( r1, r2, r3 ) ) );
+
+    List<Object[]> rows = set.getRows( 2 );
+    assertEquals( 2, rows.size() );
+    assertSame( r1, rows.get( 0 ) );
+    assertSame( r2, rows.get( 1 ) );
+
+    rows = set.getRows( 10 );
+    assertEquals( 1, rows.size() );
+    assertSame( r3, rows.get( 0 ) );
+  }
+
+  @Test
+  public void testClearResetsDone() {
+    RowSet set = new UnboundedRowSet();
+    set.putRow( createRowMeta(), new Object[] { 1L } );
+    set.setDone();
+
+    assertTrue( set.isDone() );
+    set.clear();
+    assertFalse( set.isDone() );
+    assertEquals( 0, set.size() );
+  }
+}
@@ -0,0 +1,203 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.variables.Variables;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class SharedCacheTest {
+  private static final long ENTRY_SIZE = SharedCache.ENTRY_OVERHEAD + 100;
+
+  private AtomicLong time;
+  private SharedCache<String, String> cache;
+
+  @Before
+  public void setUp() {
+    time = new AtomicLong( 1000L );
+    cache = createCache( 3 * ENTRY_SIZE, 0 );
+  }
+
+  @Test
+  public void testLeastRecentlyUsedEntriesAreEvicted() {
+    cache.put( "a", "1" );
+    cache.put( "b", "2" );
+    cache.put( "c", "3" );
+    assertEquals( "1", cache.get( "a" ) );
+    cache.put( "d", "4" );
+
+    assertNull( cache.get( "b" ) );
+    assertEquals( "1", cache.get( "a" ) );
+    assertEquals( "3", cache.get( "c" ) );
+    assertEquals( "4", cache.get( "d" ) );
+
+    SharedCacheStats stats = cache.getStats();
+    assertEquals( 3, stats.getEntryCount() );
+    assertEquals( 3 * ENTRY_SIZE, stats.getEstimatedSize() );
+    assertEquals( 1, stats.getEvictionCount() );
+    assertEquals( 4, stats.getHitCount() );
+    assertEquals( 1, stats.getMissCount() );
+    assertEquals( 0.8, stats.getHitRate(), 0.0001 );
+  }
+
+  @Test
+  public void testReplacedValueIsNotCountedTwice() {
+    cache.put( "a", "1" );
+    cache.put( "a", "2" );
+
+    assertEquals( "2", cache.get( "a" ) );
+    assertEquals( ENTRY_SIZE, cache.getStats().getEstimatedSize() );
+    assertEquals( "2", cache.putIfAbsent( "a", "3" ) );
+    assertNull( cache.putIfAbsent( "b", "3" ) );
+    assertEquals( 2, cache.size() );
+  }
+
+  @Test
+  public void testEntriesExpire() {
+    cache = createCache( 3 * ENTRY_SIZE, 500 );
+    cache.put( "a", "1" );
+    time.addAndGet( 400 );
+    cache.put( "b", "2" );
+    assertEquals( "1", cache.get( "a" ) );
+
+    time.addAndGet( 100 );
+    assertNull( cache.get( "a" ) );
+    assertEquals( "2", cache.get( "b" ) );
+    assertNull( cache.putIfAbsent( "a", "3" ) );
+    assertEquals( "3", cache.get( "a" ) );
+    assertEquals( 1, cache.getStats().getExpirationCount() );
+  }
+
+  @Test
+  public void testTooLargeValueIsNotStored() {
+    cache = createCache( ENTRY_SIZE - 1, 0 );
+    assertFalse( cache.put( "a", "1" ) );
+
+    assertNull( cache.get( "a" ) );
+    assertEquals( 0, cache.getStats().getEstimatedSize() );
+    assertEquals( 1, cache.getStats().getEvictionCount() );
+  }
+
+  @Test
+  public void testInvalidateAndClear() {
+    cache.put( "a", "1" );
+    cache.put( "b", "2" );
+    cache.invalidate( "a" );
+    assertNull( cache.get( "a" ) );
+    assertEquals( ENTRY_SIZE, cache.getStats().getEstimatedSize() );
+
+    cache.clear();
+    assertEquals( 0, cache.size() );
+    assertEquals( 0, cache.getStats().getEstimatedSize() );
+  }
+
+  @Test
+  public void testEstimateSize() {
+    assertEquals( 0, SharedCache.estimateSize( null ) );
+    assertEquals( 46, SharedCache.estimateSize( "abc" ) );
+    assertEquals( 16 + 8 * 2 + 46 + 16, SharedCache.estimateSize( new Object[] { "abc", 1L } ) );
+  }
+
+  @Test
+  public void testManagerSharesCachesByName() {
+    SharedCacheManager manager = new SharedCacheManager();
+    SharedCache<String, String> first = manager.getCache( "lookup", 1000, 0, ( k, v ) -> 1 );
+    SharedCache<String, String> second = manager.getCache( "lookup", 2000, 0, ( k, v ) -> 1 );
+    manager.getCache( "another", 1000, 0, ( k, v ) -> 1 );
+
+    assertSame( first, second );
+    assertEquals( 1000, second.getMaximumSize() );
+    assertEquals( 2, manager.getStats().size() );
+    assertEquals( "another", manager.getCacheNames().get( 0 ) );
+
+    first.put( "a", "1" );
+    manager.removeCache( "lookup" );
+    assertEquals( 0, first.size() );
+    assertNull( manager.findCache( "lookup" ) );
+  }
+
+  @Test
+  public void testLastReleaseRemovesTheCache() {
+    SharedCacheManager manager = new SharedCacheManager();
+    SharedCache<String, String> first = manager.getCache( "lookup", 1000, 0, ( k, v ) -> 1 );
+    SharedCache<String, String> second = manager.getCache( "lookup", 1000, 0, ( k, v ) -> 1 );
+    first.put( "a", "1" );
+
+    manager.releaseCache( first );
+    assertSame( second, manager.findCache( "lookup" ) );
+    assertEquals( "1", second.get( "a" ) );
+
+    manager.releaseCache( second );
+    assertNull( manager.findCache( "lookup" ) );
+    assertEquals( 0, second.size() );
+
+    // A new cache with the same name is not released by the users of the old one
+    SharedCache<String, String> third = manager.getCache( "lookup", 1000, 0, ( k, v ) -> 1 );
+    manager.releaseCache( first );
+    assertSame( third, manager.findCache( "lookup" ) );
+  }
+
+  @Test
+  public void testCachesStayWithinTheTotalSize() {
+    SharedCacheManager manager = new SharedCacheManager();
+    manager.setMaximumTotalSize( 2500 );
+    SharedCache<String, String> first = manager.getCache( "first", 1000, 0, ( k, v ) -> 1 );
+    SharedCache<String, String> second = manager.getCache( "second", 1000, 0, ( k, v ) -> 1 );
+    SharedCache<String, String> third = manager.getCache( "third", 1000, 0, ( k, v ) -> 1 );
+
+    assertEquals( 1000, first.getMaximumSize() );
+    assertEquals( 1000, second.getMaximumSize() );
+    assertEquals( 500, third.getMaximumSize() );
+    // No room is left, the step keeps a cache of its own
+    assertNull( manager.getCache( "fourth", 1000, 0, ( k, v ) -> 1 ) );
+    assertNull( manager.findCache( "fourth" ) );
+    assertSame( second, manager.getCache( "second", 1000, 0, ( k, v ) -> 1 ) );
+
+    manager.releaseCache( first );
+    assertEquals( 1000, manager.getCache( "fifth", 1000, 0, ( k, v ) -> 1 ).getMaximumSize() );
+  }
+
+  @Test
+  public void testVariablesSetTheSizesAndTheTimeToLive() {
+    SharedCacheManager manager = new SharedCacheManager();
+    Variables space = new Variables();
+    SharedCache<String, String> cache = manager.getCache( "defaults", space, ( k, v ) -> 1 );
+    assertEquals( SharedCacheManager.DEFAULT_CACHE_SIZE_MB * 1024L * 1024L, cache.getMaximumSize() );
+    assertEquals( SharedCacheManager.DEFAULT_CACHE_TTL * 1000L, cache.getTimeToLive() );
+
+    space.setVariable( Const.KETTLE_SHARED_CACHE_SIZE_MB, "2" );
+    space.setVariable( Const.KETTLE_SHARED_CACHE_TTL, "0" );
+    space.setVariable( Const.KETTLE_SHARED_CACHE_TOTAL_SIZE_MB, "3" );
+    manager.releaseCache( cache );
+    assertEquals( 2 * 1024L * 1024L, manager.getCache( "first", space, ( k, v ) -> 1 ).getMaximumSize() );
+    cache = manager.getCache( "second", space, ( k, v ) -> 1 );
+    assertEquals( 1024L * 1024L, cache.getMaximumSize() );
+    assertEquals( 0, cache.getTimeToLive() );
+  }
+
+  private SharedCache<String, String> createCache( long maximumSize, long timeToLive ) {
+    SharedCache<String, String> sharedCache = new SharedCache<>( "test", maximumSize, timeToLive, ( k, v ) -> 100 );
+    sharedCache.clock = time::get;
+    return sharedCache;
+  }
+}
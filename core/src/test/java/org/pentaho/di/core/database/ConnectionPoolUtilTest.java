@@ -22,6 +22,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.pentaho.di.core.Const;
 import org.pentaho.di.core.KettleClientEnvironment;
 import org.pentaho.di.core.exception.KettleDatabaseException;
 import org.pentaho.di.core.exception.KettleException;
@@ -33,17 +34,24 @@ import java.sql.Driver;
 import java.sql.DriverManager;
 import java.sql.DriverPropertyInfo;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
 import java.util.Properties;
 import java.util.UUID;
 import java.util.logging.Logger;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -64,6 +72,8 @@ public class ConnectionPoolUtilTest implements Driver {
   @Mock BasicDataSource dataSource;
   final int INITIAL_SIZE = 1;
   final int MAX_SIZE = 10;
+  // The properties of the last connection of the driver
+  private static volatile Properties connectionInfo;
 
 
   public ConnectionPoolUtilTest() {
@@ -209,12 +219,189 @@ public class ConnectionPoolUtilTest implements Driver {
     verify( dataSource, never() ).setDriverClassLoader( any( ClassLoader.class ) );
   }
 
+  @Test
+  public void testConnectionsShareThePool() throws Exception {
+    DatabaseMeta otherMeta = mock( DatabaseMeta.class );
+    for ( DatabaseMeta meta : new DatabaseMeta[] { dbMeta, otherMeta } ) {
+      when( meta.getDriverClass() ).thenReturn( this.getClass().getCanonicalName() );
+      when( meta.getConnectionPoolingProperties() ).thenReturn( new Properties() );
+      when( meta.environmentSubstitute( anyString() ) ).thenAnswer( invocation -> invocation.getArguments()[0] );
+      when( meta.getURL( "" ) ).thenReturn( "jdbc:shared://server/db" );
+      when( meta.getUsername() ).thenReturn( "shared" );
+      when( meta.getPassword() ).thenReturn( PASSWORD );
+      when( meta.getInitialPoolSize() ).thenReturn( 1 );
+      when( meta.getMaximumPoolSize() ).thenReturn( 2 );
+    }
+    when( dbMeta.getName() ).thenReturn( "CP4" );
+    when( otherMeta.getName() ).thenReturn( "CP5" );
+
+    DataSource ds = ConnectionPoolUtil.getDataSource( logChannelInterface, dbMeta, "" );
+    assertSame( ds, ConnectionPoolUtil.getDataSource( logChannelInterface, otherMeta, "" ) );
+
+    Connection connection = ds.getConnection();
+    ConnectionPoolStats stats = ( (PooledDataSource) ds ).getStats();
+    assertEquals( "shared@jdbc:shared://server/db", stats.getName() );
+    assertEquals( 1, stats.getActiveCount() );
+    assertEquals( 2, stats.getMaximumCount() );
+    // The connection of the test of the pool was borrowed as well
+    assertEquals( 2, stats.getBorrowCount() );
+
+    connection.close();
+    ConnectionPoolStats closedStats = ( (PooledDataSource) ds ).getStats();
+    assertEquals( 0, closedStats.getActiveCount() );
+    assertEquals( 1, closedStats.getIdleCount() );
+    assertTrue( ConnectionPoolRegistry.getInstance().getStats().stream()
+      .anyMatch( poolStats -> poolStats.getName().equals( closedStats.getName() ) ) );
+  }
+
+  @Test
+  public void testConnectionIdentity() throws Exception {
+    when( dbMeta.getURL( "" ) ).thenReturn( "jdbc:foo://server:111" );
+    when( dbMeta.getUsername() ).thenReturn( "suzy" );
+    when( dbMeta.getPassword() ).thenReturn( PASSWORD );
+    String identity = ConnectionPoolUtil.getConnectionIdentity( dbMeta, "", 1, 10 );
+
+    assertFalse( identity.contains( PASSWORD ) );
+    assertEquals( identity, ConnectionPoolUtil.getConnectionIdentity( dbMeta, "", 1, 10 ) );
+    assertNotEquals( identity, ConnectionPoolUtil.getConnectionIdentity( dbMeta, "", 1, 20 ) );
+
+    when( dbMeta.getPassword() ).thenReturn( "another" );
+    assertNotEquals( identity, ConnectionPoolUtil.getConnectionIdentity( dbMeta, "", 1, 10 ) );
+  }
+
+  @Test
+  @SuppressWarnings( "deprecation" )
+  public void testConfigurePoolLimits() {
+    when( dbMeta.getVariable( Const.KETTLE_CONNECTION_POOL_IDLE_TIMEOUT ) ).thenReturn( "30" );
+    when( dbMeta.getVariable( Const.KETTLE_CONNECTION_POOL_MAX_TOTAL ) ).thenReturn( "4" );
+    BasicDataSource ds = new BasicDataSource();
+    ds.setInitialSize( 5 );
+    ds.setMaxTotal( 10 );
+
+    ConnectionPoolUtil.configurePoolLimits( ds, dbMeta );
+    assertEquals( 30000L, ds.getMinEvictableIdleTimeMillis() );
+    assertEquals( 30000L, ds.getTimeBetweenEvictionRunsMillis() );
+    assertEquals( 4, ds.getMaxTotal() );
+    assertEquals( 4, ds.getInitialSize() );
+  }
+
+  @Test
+  public void testSharedPoolHasNoMaximumAndRunsTheConnectSqlOnOpen() throws Exception {
+    when( dbMeta.getDatabaseInterface() ).thenReturn( new GenericDatabaseMeta() );
+    when( dbMeta.getName() ).thenReturn( "CP6" );
+    when( dbMeta.getConnectSQL() ).thenReturn( "SET a = 1; -- first\nSET b = 2;" );
+
+    PooledDataSource ds = getSharedDataSource( "jdbc:shared://server/unbounded", getConnectionProperties( null ) );
+    assertEquals( -1, ds.getMaxTotal() );
+    assertEquals( 60000L, ds.getMaxWaitMillis() );
+    assertEquals( Arrays.asList( "SET a = 1", "SET b = 2" ), ds.getConnectionInitSqls() );
+    assertSame( ds, getSharedDataSource( "jdbc:shared://server/unbounded", getConnectionProperties( null ) ) );
+
+    // Connections with other connect SQL don't share the pool
+    when( dbMeta.getConnectSQL() ).thenReturn( "SET a = 2" );
+    assertNotEquals( ds, getSharedDataSource( "jdbc:shared://server/unbounded", getConnectionProperties( null ) ) );
+  }
+
+  @Test
+  public void testWaitForAFullPoolEndsWithAClearError() throws Exception {
+    when( dbMeta.getName() ).thenReturn( "CP7" );
+    when( dbMeta.getVariable( Const.KETTLE_CONNECTION_POOL_MAX_TOTAL ) ).thenReturn( "1" );
+    when( dbMeta.getVariable( Const.KETTLE_CONNECTION_POOL_MAX_WAIT ) ).thenReturn( "1" );
+
+    DataSource ds = getSharedDataSource( "jdbc:shared://server/full", getConnectionProperties( "full" ) );
+    try ( Connection connection = ds.getConnection() ) {
+      ds.getConnection();
+      fail( "the pool has a single connection" );
+    } catch ( SQLException e ) {
+      assertTrue( e.getMessage(), e.getMessage().contains( "full@jdbc:shared://server/full" ) );
+      assertTrue( e.getMessage(), e.getMessage().contains( "1 seconds" ) );
+    }
+  }
+
+  @Test
+  public void testSharedPoolOpensConnectionsLikeTheDriver() throws Exception {
+    when( dbMeta.getName() ).thenReturn( "CP8" );
+    Properties properties = getConnectionProperties( "options" );
+    properties.setProperty( "oracle.jdbc.timezoneAsRegion", "false" );
+
+    PooledDataSource ds = getSharedDataSource( "jdbc:shared://server;instanceName=one", properties );
+    assertEquals( "jdbc:shared://server;instanceName=one", ds.getUrl() );
+    assertEquals( "options@jdbc:shared://server;instanceName=one", ds.getStats().getName() );
+    assertEquals( "false", connectionInfo.getProperty( "oracle.jdbc.timezoneAsRegion" ) );
+    assertEquals( "options", connectionInfo.getProperty( "user" ) );
+    assertSame( ds, getSharedDataSource( "jdbc:shared://server;instanceName=one", (Properties) properties.clone() ) );
+
+    // Connections with other options or another instance don't share the pool
+    assertNotEquals( ds, getSharedDataSource( "jdbc:shared://server;instanceName=one",
+      getConnectionProperties( "options" ) ) );
+    assertNotEquals( ds, getSharedDataSource( "jdbc:shared://server;instanceName=two", properties ) );
+  }
+
+  @Test
+  public void testRemovedOrChangedDataSourceClosesItsPool() throws Exception {
+    when( dbMeta.getName() ).thenReturn( "CP9" );
+    when( dbMeta.getURL( "" ) ).thenReturn( "jdbc:shared://server/removed" );
+    when( dbMeta.getPassword() ).thenReturn( PASSWORD );
+    when( dbMeta.getInitialPoolSize() ).thenReturn( 1 );
+    when( dbMeta.getMaximumPoolSize() ).thenReturn( 2 );
+    when( dbMeta.getAttributes() ).thenReturn( new Properties() );
+
+    BasicDataSource ds = (BasicDataSource) ConnectionPoolUtil.getDataSource( logChannelInterface, dbMeta, "" );
+    // Another size of the pool is another pool, the former one is closed
+    Properties changedAttributes = new Properties();
+    changedAttributes.setProperty( "changed", "Y" );
+    when( dbMeta.getAttributes() ).thenReturn( changedAttributes );
+    when( dbMeta.getMaximumPoolSize() ).thenReturn( 3 );
+    BasicDataSource changed = (BasicDataSource) ConnectionPoolUtil.getDataSource( logChannelInterface, dbMeta, "" );
+    assertNotEquals( ds, changed );
+    assertTrue( ds.isClosed() );
+    assertFalse( changed.isClosed() );
+
+    ConnectionPoolUtil.removeDataSource( ConnectionPoolUtil.getDataSourceName( dbMeta, "" ) );
+    assertTrue( changed.isClosed() );
+  }
+
+  @Test
+  @SuppressWarnings( "deprecation" )
+  public void testConfigurePoolMaxWait() {
+    when( dbMeta.getVariable( Const.KETTLE_CONNECTION_POOL_MAX_WAIT ) ).thenReturn( "5" );
+    BasicDataSource ds = new BasicDataSource();
+    ConnectionPoolUtil.configurePoolLimits( ds, dbMeta );
+    assertEquals( 5000L, ds.getMaxWaitMillis() );
+
+    // The maximum wait of the pool itself is kept
+    Properties properties = new Properties();
+    properties.setProperty( ConnectionPoolUtil.MAX_WAIT, "100" );
+    when( dbMeta.getConnectionPoolingProperties() ).thenReturn( properties );
+    ds = new BasicDataSource();
+    ds.setMaxWaitMillis( 100 );
+    ConnectionPoolUtil.configurePoolLimits( ds, dbMeta );
+    assertEquals( 100L, ds.getMaxWaitMillis() );
+  }
+
+  private PooledDataSource getSharedDataSource( String url, Properties connectionProperties )
+    throws KettleDatabaseException {
+    return (PooledDataSource) ConnectionPoolUtil.getSharedDataSource( logChannelInterface, dbMeta, "", url,
+      connectionProperties );
+  }
+
+  private static Properties getConnectionProperties( String user ) {
+    Properties properties = new Properties();
+    if ( user != null ) {
+      properties.setProperty( "user", user );
+    }
+    properties.setProperty( "password", PASSWORD );
+    return properties;
+  }
+
   @Override
   public Connection connect( String url, Properties info ) throws SQLException {
+    connectionInfo = info;
     String password = info.getProperty( "password" );
     if ( PASSWORD.equals( password )) {
       Connection mockConnection = mock( Connection.class );
       when( mockConnection.isValid( anyInt() ) ).thenReturn( true );
+      lenient().when( mockConnection.createStatement() ).thenReturn( mock( Statement.class ) );
       return mockConnection;
     }
     return null;
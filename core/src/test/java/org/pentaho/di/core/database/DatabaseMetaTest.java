@@ -483,4 +483,20 @@ public class DatabaseMetaTest {
     assertEquals( "5432", origMeta.getDatabasePortNumberString() );
     assertEquals( "Jerry", origMeta.getUsername() );
   }
+
+  @Test
+  public void testGetMaxLookupKeys() {
+    databaseMeta.setDatabaseInterface( new OracleDatabaseMeta() );
+    assertEquals( 1000, databaseMeta.getMaxLookupKeys( 1, true ) );
+    assertEquals( Integer.MAX_VALUE, databaseMeta.getMaxLookupKeys( 2, false ) );
+
+    databaseMeta.setDatabaseInterface( new MSSQLServerDatabaseMeta() );
+    assertEquals( 2100, databaseMeta.getMaxLookupKeys( 1, true ) );
+    assertEquals( 700, databaseMeta.getMaxLookupKeys( 3, false ) );
+    assertFalse( databaseMeta.isStringComparisonExact() );
+
+    databaseMeta.setDatabaseInterface( new H2DatabaseMeta() );
+    assertEquals( Integer.MAX_VALUE, databaseMeta.getMaxLookupKeys( 1, true ) );
+    assertTrue( databaseMeta.isStringComparisonExact() );
+  }
 }
@@ -265,4 +265,13 @@ public class MSSQLServerDatabaseMetaTest {
 
     assertTrue( dbMeta.isUsingDoubleDecimalAsSchemaTableSeparator() );
   }
+
+  @Test
+  public void testUpsertStatement() {
+    assertEquals( "#stage", nativeMeta.getTemporaryTableName( "stage" ) );
+    assertEquals( "MERGE INTO person tgt USING #stage src ON ( tgt.id = src.id ) "
+      + "WHEN NOT MATCHED THEN INSERT ( id, name ) VALUES ( src.id, src.name );",
+      nativeMeta.getUpsertStatement( "person", "#stage", new String[] { "id" }, new String[] { "id", "name" },
+        new String[0] ) );
+  }
 }
@@ -397,4 +397,15 @@ public class MySQLDatabaseMetaTest {
       assert( key.startsWith( "foobar." ) );
     }
   }
+
+  @Test
+  public void testUpsertStatement() {
+    assertEquals( "INSERT INTO person ( id, name, age ) SELECT id, name, age FROM stage "
+      + "ON DUPLICATE KEY UPDATE name = VALUES(name), age = VALUES(age)",
+      nativeMeta.getUpsertStatement( "person", "stage", new String[] { "id" }, new String[] { "id", "name", "age" },
+      new String[] { "name", "age" } ) );
+    assertEquals( "INSERT INTO person ( id ) SELECT id FROM stage ON DUPLICATE KEY UPDATE id = id",
+      nativeMeta.getUpsertStatement( "person", "stage", new String[] { "id" }, new String[] { "id" },
+        new String[0] ) );
+  }
 }
@@ -316,4 +316,15 @@ public class OracleDatabaseMetaTest {
 
     assertTrue( dbMeta.strictBigNumberInterpretation() );
   }
+
+  @Test
+  public void testUpsertStatement() {
+    assertEquals( "CREATE GLOBAL TEMPORARY TABLE stage ( id INTEGER ) ON COMMIT PRESERVE ROWS",
+      nativeMeta.getCreateTemporaryTableStatement( "stage", "id INTEGER" ) );
+    assertEquals( "MERGE INTO person tgt USING stage src ON ( tgt.id = src.id ) "
+      + "WHEN MATCHED THEN UPDATE SET tgt.name = src.name, tgt.age = src.age "
+      + "WHEN NOT MATCHED THEN INSERT ( id, name, age ) VALUES ( src.id, src.name, src.age )",
+      nativeMeta.getUpsertStatement( "person", "stage", new String[] { "id" }, new String[] { "id", "name", "age" },
+      new String[] { "name", "age" } ) );
+  }
 }
@@ -233,4 +233,16 @@ public class PostgreSQLDatabaseMetaTest {
     assertNull( nativeMeta.getSQLUnlockTables(  new String[] { "FOO" } ) );
   }
 
+  @Test
+  public void testUpsertStatement() {
+    assertEquals( "CREATE TEMPORARY TABLE stage ( id INTEGER )",
+      nativeMeta.getCreateTemporaryTableStatement( "stage", "id INTEGER" ) );
+    assertEquals( "INSERT INTO person ( id, name, age ) SELECT id, name, age FROM stage ON CONFLICT ( id ) "
+      + "DO UPDATE SET name = EXCLUDED.name, age = EXCLUDED.age",
+      nativeMeta.getUpsertStatement( "person", "stage", new String[] { "id" }, new String[] { "id", "name", "age" },
+      new String[] { "name", "age" } ) );
+    assertEquals( "INSERT INTO person ( id, name ) SELECT id, name FROM stage ON CONFLICT ( id ) DO NOTHING",
+      nativeMeta.getUpsertStatement( "person", "stage", new String[] { "id" }, new String[] { "id", "name" },
+        new String[0] ) );
+  }
 }
@@ -0,0 +1,74 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.hash;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+import org.pentaho.di.core.exception.KettleValueException;
+
+public class OffHeapByteArrayHashIndexTest {
+
+  @Test
+  public void testPutAndGet() throws KettleValueException {
+    OffHeapByteArrayHashIndex index = new OffHeapByteArrayHashIndex( 0 );
+    assertTrue( index.isEmpty() );
+    for ( int i = 0; i < 10000; i++ ) {
+      index.put( bytes( "key" + i ), bytes( "value" + i ) );
+    }
+    assertFalse( index.isEmpty() );
+    assertEquals( 10000, index.getSize() );
+    for ( int i = 0; i < 10000; i++ ) {
+      assertArrayEquals( bytes( "value" + i ), index.get( bytes( "key" + i ) ) );
+    }
+    assertNull( index.get( bytes( "key10000" ) ) );
+    assertNull( index.get( new byte[0] ) );
+  }
+
+  @Test
+  public void testReplaceValue() throws KettleValueException {
+    OffHeapByteArrayHashIndex index = new OffHeapByteArrayHashIndex();
+    index.put( bytes( "key" ), bytes( "one" ) );
+    index.put( bytes( "key" ), bytes( "two" ) );
+    assertArrayEquals( bytes( "two" ), index.get( bytes( "key" ) ) );
+    index.put( bytes( "key" ), bytes( "three" ) );
+    assertArrayEquals( bytes( "three" ), index.get( bytes( "key" ) ) );
+    index.put( new byte[0], new byte[0] );
+    assertArrayEquals( new byte[0], index.get( new byte[0] ) );
+    assertEquals( 2, index.getSize() );
+  }
+
+  @Test
+  public void testLargeValue() throws KettleValueException {
+    OffHeapByteArrayHashIndex index = new OffHeapByteArrayHashIndex();
+    byte[] value = new byte[OffHeapRecordStore.PAGE_SIZE * 2];
+    value[value.length - 1] = 1;
+    index.put( bytes( "small" ), bytes( "value" ) );
+    index.put( bytes( "large" ), value );
+    assertArrayEquals( value, index.get( bytes( "large" ) ) );
+    assertArrayEquals( bytes( "value" ), index.get( bytes( "small" ) ) );
+    assertTrue( index.getMemoryUsage() > value.length );
+  }
+
+  private static byte[] bytes( String string ) {
+    return string.getBytes( StandardCharsets.UTF_8 );
+  }
+}
@@ -0,0 +1,66 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.hash;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+import org.pentaho.di.core.exception.KettleValueException;
+
+public class OffHeapLongHashIndexTest {
+
+  @Test
+  public void testPutAndGet() throws KettleValueException {
+    OffHeapLongHashIndex index = new OffHeapLongHashIndex( 0 );
+    assertTrue( index.isEmpty() );
+    // Sequential keys, keys sharing their low bits and negative keys
+    for ( long i = 0; i < 10000; i++ ) {
+      index.put( i, bytes( i ) );
+      index.put( i << 32, bytes( -i ) );
+      index.put( -i - 1, bytes( i * 2 ) );
+    }
+    assertFalse( index.isEmpty() );
+    assertEquals( 29999, index.getSize() );
+    for ( long i = 0; i < 10000; i++ ) {
+      assertArrayEquals( bytes( i ), index.get( i ) );
+      assertArrayEquals( bytes( i * 2 ), index.get( -i - 1 ) );
+    }
+    assertArrayEquals( bytes( -9999 ), index.get( 9999L << 32 ) );
+    assertNull( index.get( 10000L ) );
+    assertNull( index.get( Long.MIN_VALUE ) );
+  }
+
+  @Test
+  public void testReplaceValue() throws KettleValueException {
+    OffHeapLongHashIndex index = new OffHeapLongHashIndex();
+    index.put( 1L, bytes( 1L ) );
+    index.put( 1L, bytes( 2L ) );
+    assertArrayEquals( bytes( 2L ), index.get( 1L ) );
+    index.put( 1L, new byte[] { 3 } );
+    assertArrayEquals( new byte[] { 3 }, index.get( 1L ) );
+    assertEquals( 1, index.getSize() );
+    assertTrue( index.getMemoryUsage() > 0 );
+  }
+
+  private static byte[] bytes( long value ) {
+    return ByteBuffer.allocate( 8 ).putLong( value ).array();
+  }
+}
@@ -0,0 +1,176 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.row;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+import org.junit.Test;
+import org.pentaho.di.core.row.value.ValueMetaDate;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.row.value.ValueMetaString;
+
+public class RowChunkTest {
+
+  private RowMetaInterface createRowMeta() {
+    RowMetaInterface rm = new RowMeta();
+    rm.addValueMeta( new ValueMetaInteger( "id" ) );
+    rm.addValueMeta( new ValueMetaNumber( "amount" ) );
+    rm.addValueMeta( new ValueMetaString( "name" ) );
+    rm.addValueMeta( new ValueMetaDate( "date" ) );
+    return rm;
+  }
+
+  private List<Object[]> createRows( int nrRows ) {
+    List<Object[]> rows = new ArrayList<>();
+    for ( int i = 0; i < nrRows; i++ ) {
+      rows.add( new Object[] { i % 7 == 0 ? null : (long) i, i % 5 == 0 ? null : i * 1.5, "name" + i,
+        new Date( i ) } );
+    }
+    return rows;
+  }
+
+  @Test
+  public void testColumnTypes() {
+    RowChunk chunk = new RowChunk( createRowMeta(), 10 );
+
+    assertEquals( RowChunk.COLUMN_LONG, chunk.getColumnType( 0 ) );
+    assertEquals( RowChunk.COLUMN_DOUBLE, chunk.getColumnType( 1 ) );
+    assertEquals( RowChunk.COLUMN_OBJECT, chunk.getColumnType( 2 ) );
+    assertEquals( RowChunk.COLUMN_OBJECT, chunk.getColumnType( 3 ) );
+
+    ValueMetaInterface binaryString = new ValueMetaInteger( "lazy" );
+    binaryString.setStorageType( ValueMetaInterface.STORAGE_TYPE_BINARY_STRING );
+    assertEquals( RowChunk.COLUMN_OBJECT, RowChunk.getColumnType( binaryString ) );
+  }
+
+  @Test
+  public void testRowsRoundTrip() {
+    List<Object[]> rows = createRows( 150 );
+    RowChunk chunk = RowChunk.fromRows( createRowMeta(), rows );
+
+    assertEquals( rows.size(), chunk.size() );
+    for ( int r = 0; r < rows.size(); r++ ) {
+      Object[] row = chunk.get( r );
+      for ( int i = 0; i < 4; i++ ) {
+        assertEquals( rows.get( r )[i], row[i] );
+      }
+      assertEquals( rows.get( r )[0] == null, chunk.isNull( 0, r ) );
+      assertEquals( rows.get( r )[1] == null, chunk.isNull( 1, r ) );
+    }
+    assertSame( chunk, RowChunk.fromRows( createRowMeta(), chunk ) );
+  }
+
+  @Test
+  public void testWrapUnwrap() {
+    RowChunk chunk = RowChunk.fromRows( createRowMeta(), createRows( 3 ) );
+
+    assertSame( chunk, RowChunk.unwrap( chunk.wrap() ) );
+    assertNull( RowChunk.unwrap( new Object[] { 1L } ) );
+    assertNull( RowChunk.unwrap( new Object[] { chunk, 1L } ) );
+    assertNull( RowChunk.unwrap( null ) );
+  }
+
+  @Test
+  public void testUnwrapGivesBackThePermits() {
+    RowChunk chunk = RowChunk.fromRows( createRowMeta(), createRows( 3 ) );
+    Semaphore permits = new Semaphore( 5 );
+    assertTrue( permits.tryAcquire( 3 ) );
+
+    Object[] wrapped = chunk.wrap( permits, 3 );
+    assertEquals( 2, permits.availablePermits() );
+    assertSame( chunk, RowChunk.unwrap( wrapped ) );
+    assertEquals( 5, permits.availablePermits() );
+
+    // Only given back once
+    RowChunk.unwrap( wrapped );
+    assertEquals( 5, permits.availablePermits() );
+  }
+
+  @Test
+  public void testSelectRows() {
+    List<Object[]> rows = createRows( 100 );
+    RowChunk chunk = RowChunk.fromRows( createRowMeta(), rows );
+
+    boolean[] selected = new boolean[chunk.size()];
+    for ( int r = 0; r < selected.length; r++ ) {
+      selected[r] = r % 3 == 0;
+    }
+    RowChunk selection = chunk.selectRows( selected );
+    assertEquals( 34, selection.size() );
+    for ( int r = 0; r < selection.size(); r++ ) {
+      assertArrayEquals( chunk.get( r * 3 ), selection.get( r ) );
+    }
+
+    Arrays.fill( selected, true );
+    assertSame( chunk, chunk.selectRows( selected ) );
+
+    RowChunk range = chunk.selectRows( 10, 20 );
+    assertEquals( 10, range.size() );
+    assertArrayEquals( chunk.get( 10 ), range.get( 0 ) );
+  }
+
+  @Test
+  public void testAddAndSelectColumns() {
+    RowMetaInterface rowMeta = createRowMeta();
+    RowChunk chunk = RowChunk.fromRows( rowMeta, createRows( 10 ) );
+
+    RowMetaInterface extendedMeta = rowMeta.clone();
+    extendedMeta.addValueMeta( new ValueMetaNumber( "total" ) );
+    RowChunk extended = chunk.addColumns( extendedMeta );
+    assertEquals( 10, extended.size() );
+    assertSame( chunk.getLongs( 0 ), extended.getLongs( 0 ) );
+    for ( int r = 0; r < extended.size(); r++ ) {
+      assertTrue( extended.isNull( 4, r ) );
+      extended.setDouble( 4, r, r );
+      assertFalse( extended.isNull( 4, r ) );
+    }
+
+    RowMetaInterface selectedMeta = new RowMeta();
+    selectedMeta.addValueMeta( extendedMeta.getValueMeta( 4 ) );
+    selectedMeta.addValueMeta( extendedMeta.getValueMeta( 0 ) );
+    RowChunk selected = extended.selectColumns( selectedMeta, new int[] { 4, 0 } );
+    assertEquals( RowChunk.COLUMN_DOUBLE, selected.getColumnType( 0 ) );
+    assertEquals( RowChunk.COLUMN_LONG, selected.getColumnType( 1 ) );
+    assertArrayEquals( new Object[] { 3.0, 3L }, selected.get( 3 ) );
+  }
+
+  @Test
+  public void testGrowAndSetNull() {
+    RowChunk chunk = new RowChunk( createRowMeta(), 1 );
+    chunk.addRows( 200 );
+    chunk.setLong( 0, 130, 42L );
+    assertFalse( chunk.isNull( 0, 130 ) );
+    assertEquals( 42L, chunk.getValue( 0, 130 ) );
+
+    chunk.setNull( 0, 130 );
+    assertTrue( chunk.isNull( 0, 130 ) );
+    assertNull( chunk.getValue( 0, 130 ) );
+
+    chunk.setValue( 1, 199, 2 );
+    assertEquals( 2.0, chunk.getValue( 1, 199 ) );
+  }
+}
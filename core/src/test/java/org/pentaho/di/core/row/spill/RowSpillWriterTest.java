@@ -0,0 +1,181 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.row.spill;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.exception.KettleFileException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaBigNumber;
+import org.pentaho.di.core.row.value.ValueMetaBinary;
+import org.pentaho.di.core.row.value.ValueMetaBoolean;
+import org.pentaho.di.core.row.value.ValueMetaDate;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaInternetAddress;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.core.row.value.ValueMetaTimestamp;
+import org.pentaho.di.core.variables.Variables;
+
+public class RowSpillWriterTest {
+
+  private RowMetaInterface createRowMeta() {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "string" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "integer" ) );
+    rowMeta.addValueMeta( new ValueMetaNumber( "number" ) );
+    rowMeta.addValueMeta( new ValueMetaDate( "date" ) );
+    rowMeta.addValueMeta( new ValueMetaTimestamp( "timestamp" ) );
+    rowMeta.addValueMeta( new ValueMetaBigNumber( "bignumber" ) );
+    rowMeta.addValueMeta( new ValueMetaBoolean( "boolean" ) );
+    rowMeta.addValueMeta( new ValueMetaBinary( "binary" ) );
+    rowMeta.addValueMeta( new ValueMetaInternetAddress( "inet" ) );
+    ValueMetaInterface lazy = new ValueMetaInteger( "lazy" );
+    lazy.setStorageType( ValueMetaInterface.STORAGE_TYPE_BINARY_STRING );
+    rowMeta.addValueMeta( lazy );
+    return rowMeta;
+  }
+
+  private List<Object[]> createRows() throws Exception {
+    Timestamp timestamp = new Timestamp( 1234567890123L );
+    timestamp.setNanos( 123456789 );
+    List<Object[]> rows = new ArrayList<>();
+    rows.add( new Object[] { "abc", 42L, 1.5, new Date( 1000L ), timestamp,
+      new BigDecimal( "-12345678901234567890.125" ), true, new byte[] { 0, 1, 2 }, InetAddress.getByName( "127.0.0.1" ),
+      "17".getBytes() } );
+    rows.add( new Object[] { "\u00e9t\u00e9 \u20ac", Long.MIN_VALUE, Double.NaN, new Date( -1000L ), null,
+      BigDecimal.ZERO, false, new byte[0], null, new byte[0] } );
+    rows.add( new Object[10] );
+    rows.add( new Object[] { "", Long.MAX_VALUE, -0.0, null, new Timestamp( -1L ), new BigDecimal( "1E+10" ), null,
+      null, InetAddress.getByName( "::1" ), null } );
+    return rows;
+  }
+
+  private byte[] write( RowMetaInterface rowMeta, List<Object[]> rows, SpillCodec codec ) throws Exception {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    try ( RowSpillWriter writer = new RowSpillWriter( outputStream, rowMeta, codec ) ) {
+      for ( Object[] row : rows ) {
+        writer.writeRow( row );
+      }
+    }
+    return outputStream.toByteArray();
+  }
+
+  private List<Object[]> read( RowMetaInterface rowMeta, byte[] bytes ) throws Exception {
+    List<Object[]> rows = new ArrayList<>();
+    try ( RowSpillReader reader = new RowSpillReader( new ByteArrayInputStream( bytes ), rowMeta ) ) {
+      Object[] row;
+      while ( ( row = reader.readRow() ) != null ) {
+        rows.add( row );
+      }
+    }
+    return rows;
+  }
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    RowMetaInterface rowMeta = createRowMeta();
+    List<Object[]> rows = createRows();
+
+    for ( String name : new String[] { NoneSpillCodec.NAME, GZIPSpillCodec.NAME, LZ4SpillCodec.NAME } ) {
+      List<Object[]> result = read( rowMeta, write( rowMeta, rows, SpillCodecs.getCodec( name ) ) );
+
+      assertEquals( rows.size(), result.size() );
+      for ( int r = 0; r < rows.size(); r++ ) {
+        for ( int i = 0; i < rowMeta.size(); i++ ) {
+          Object expected = rows.get( r )[i];
+          Object actual = result.get( r )[i];
+          if ( expected instanceof byte[] ) {
+            assertArrayEquals( name, (byte[]) expected, (byte[]) actual );
+          } else {
+            assertEquals( name, expected, actual );
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testEmptyRows() throws Exception {
+    RowMetaInterface rowMeta = new RowMeta();
+    List<Object[]> rows = new ArrayList<>();
+    rows.add( new Object[0] );
+    rows.add( new Object[0] );
+
+    assertEquals( 2, read( rowMeta, write( rowMeta, rows, new NoneSpillCodec() ) ).size() );
+  }
+
+  @Test
+  public void testSmallerThanRowMetaWriteData() throws Exception {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "name" ) );
+    List<Object[]> rows = new ArrayList<>();
+    for ( long i = 0; i < 1000; i++ ) {
+      rows.add( new Object[] { i, "name" + i } );
+    }
+
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    DataOutputStream dataOutputStream = new DataOutputStream( outputStream );
+    for ( Object[] row : rows ) {
+      rowMeta.writeData( dataOutputStream, row );
+    }
+    assertTrue( write( rowMeta, rows, new NoneSpillCodec() ).length < outputStream.size() / 2 );
+  }
+
+  @Test( expected = KettleFileException.class )
+  public void testLayoutMismatch() throws Exception {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    byte[] bytes = write( rowMeta, new ArrayList<>(), new NoneSpillCodec() );
+
+    RowMetaInterface otherMeta = new RowMeta();
+    otherMeta.addValueMeta( new ValueMetaString( "id" ) );
+    read( otherMeta, bytes );
+  }
+
+  @Test
+  public void testCodecSelection() throws Exception {
+    Variables space = new Variables();
+    assertSame( SpillCodecs.getCodec( NoneSpillCodec.NAME ), SpillCodecs.getCodec( space, null, false ) );
+    assertSame( SpillCodecs.getCodec( GZIPSpillCodec.NAME ), SpillCodecs.getCodec( space, null, true ) );
+
+    space.setVariable( "KETTLE_SPILL_COMPRESSION", "lz4" );
+    assertSame( SpillCodecs.getCodec( LZ4SpillCodec.NAME ), SpillCodecs.getCodec( space, "", false ) );
+    assertSame( SpillCodecs.getCodec( ZstdSpillCodec.NAME ), SpillCodecs.getCodec( space, "Zstd", true ) );
+  }
+
+  @Test( expected = KettleException.class )
+  public void testUnknownCodec() throws Exception {
+    SpillCodecs.getCodec( "unknown" );
+  }
+}
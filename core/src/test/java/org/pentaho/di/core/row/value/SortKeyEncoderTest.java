@@ -0,0 +1,170 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.row.value;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.Test;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+
+public class SortKeyEncoderTest {
+
+  private static final Object[] STRINGS = { null, "", "a", "A", "ab", "aB", "b", "B", " a ", "a\u0000", "a\u0000b",
+    "\u00e9", "e", "E", "\u0100", "z" };
+  private static final Object[] INTEGERS = { null, Long.MIN_VALUE, -100L, -1L, 0L, 1L, 100L, Long.MAX_VALUE };
+  private static final Object[] NUMBERS = { null, Double.NEGATIVE_INFINITY, -1.5, -0.0, 0.0, 1E-10, 1.5,
+    Double.MAX_VALUE, Double.POSITIVE_INFINITY, Double.NaN };
+  private static final Object[] BIG_NUMBERS = { null, new BigDecimal( "-100" ), new BigDecimal( "-1.15" ),
+    new BigDecimal( "-1.1" ), new BigDecimal( "-0.5" ), BigDecimal.ZERO, new BigDecimal( "0.000" ),
+    new BigDecimal( "0.5" ), new BigDecimal( "1.1" ), new BigDecimal( "1.10" ), new BigDecimal( "1.15" ),
+    new BigDecimal( "1.2" ), new BigDecimal( "99" ), new BigDecimal( "100" ), new BigDecimal( "1E+2" ),
+    new BigDecimal( "12345678901234567890.123" ) };
+  private static final Object[] BOOLEANS = { null, Boolean.FALSE, Boolean.TRUE };
+  private static final Object[] DATES = { null, new Date( -1000L ), new Date( 0L ), new Date( 1000L ) };
+
+  @Test
+  public void testIsSupported() {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "string" ) );
+    rowMeta.addValueMeta( new ValueMetaTimestamp( "timestamp" ) );
+    rowMeta.addValueMeta( new ValueMetaBinary( "binary" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "custom", ( o1, o2 ) -> 0 ) );
+
+    assertTrue( SortKeyEncoder.isSupported( rowMeta, new int[] { 0 } ) );
+    assertFalse( SortKeyEncoder.isSupported( rowMeta, new int[] { 0, 1 } ) );
+    assertFalse( SortKeyEncoder.isSupported( rowMeta, new int[] { 2 } ) );
+    assertFalse( SortKeyEncoder.isSupported( rowMeta, new int[] { 3 } ) );
+    assertFalse( SortKeyEncoder.isSupported( rowMeta, new int[] { 4 } ) );
+    assertFalse( SortKeyEncoder.isSupported( rowMeta, null ) );
+  }
+
+  @Test
+  public void testSingleFieldOrder() throws Exception {
+    for ( boolean descending : new boolean[] { false, true } ) {
+      assertSameOrder( createValueMeta( new ValueMetaString( "s" ), descending ), STRINGS );
+      assertSameOrder( createValueMeta( new ValueMetaInteger( "i" ), descending ), INTEGERS );
+      assertSameOrder( createValueMeta( new ValueMetaNumber( "n" ), descending ), NUMBERS );
+      assertSameOrder( createValueMeta( new ValueMetaBigNumber( "b" ), descending ), BIG_NUMBERS );
+      assertSameOrder( createValueMeta( new ValueMetaBoolean( "f" ), descending ), BOOLEANS );
+      assertSameOrder( createValueMeta( new ValueMetaDate( "d" ), descending ), DATES );
+    }
+  }
+
+  @Test
+  public void testStringOptions() throws Exception {
+    for ( boolean descending : new boolean[] { false, true } ) {
+      ValueMetaInterface caseInsensitive = createValueMeta( new ValueMetaString( "s" ), descending );
+      caseInsensitive.setCaseInsensitive( true );
+      assertSameOrder( caseInsensitive, STRINGS );
+
+      ValueMetaInterface ignoreWhitespace = createValueMeta( new ValueMetaString( "s" ), descending );
+      ignoreWhitespace.setIgnoreWhitespace( true );
+      assertSameOrder( ignoreWhitespace, STRINGS );
+
+      for ( int strength : new int[] { Collator.PRIMARY, Collator.SECONDARY, Collator.TERTIARY } ) {
+        ValueMetaInterface collated = createValueMeta( new ValueMetaString( "s" ), descending );
+        collated.setCollatorDisabled( false );
+        collated.setCollatorLocale( Locale.US );
+        collated.setCollatorStrength( strength );
+        assertSameOrder( collated, STRINGS );
+      }
+    }
+  }
+
+  @Test
+  public void testMultipleFieldOrder() throws Exception {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( createValueMeta( new ValueMetaString( "s" ), false ) );
+    rowMeta.addValueMeta( createValueMeta( new ValueMetaInteger( "i" ), true ) );
+    rowMeta.addValueMeta( createValueMeta( new ValueMetaNumber( "n" ), false ) );
+    rowMeta.addValueMeta( createValueMeta( new ValueMetaBigNumber( "b" ), true ) );
+    Object[][] values = { STRINGS, INTEGERS, NUMBERS, BIG_NUMBERS };
+
+    Random random = new Random( 42 );
+    List<Object[]> rows = new ArrayList<>();
+    for ( int r = 0; r < 300; r++ ) {
+      Object[] row = new Object[values.length];
+      for ( int i = 0; i < values.length; i++ ) {
+        // Few distinct values per field so that later fields decide the order as well
+        row[i] = values[i][random.nextInt( Math.min( 3, values[i].length ) + i )];
+      }
+      rows.add( row );
+    }
+
+    int[] fieldNrs = { 0, 1, 2, 3 };
+    assertSameOrder( rowMeta, fieldNrs, rows );
+    assertSameOrder( rowMeta, new int[] { 3, 0 }, rows );
+  }
+
+  @Test
+  public void testEncodeOtherStream() throws Exception {
+    RowMetaInterface rowMeta1 = new RowMeta();
+    rowMeta1.addValueMeta( new ValueMetaInteger( "id" ) );
+    rowMeta1.addValueMeta( new ValueMetaString( "name" ) );
+    RowMetaInterface rowMeta2 = new RowMeta();
+    rowMeta2.addValueMeta( new ValueMetaString( "other" ) );
+    rowMeta2.addValueMeta( new ValueMetaString( "name" ) );
+    rowMeta2.addValueMeta( new ValueMetaInteger( "id" ) );
+
+    assertTrue( SortKeyEncoder.isSupported( rowMeta1, new int[] { 0, 1 }, rowMeta2, new int[] { 2, 1 } ) );
+    assertFalse( SortKeyEncoder.isSupported( rowMeta1, new int[] { 0, 1 }, rowMeta2, new int[] { 1, 2 } ) );
+    rowMeta2.getValueMeta( 1 ).setCaseInsensitive( true );
+    assertFalse( SortKeyEncoder.isSupported( rowMeta1, new int[] { 0, 1 }, rowMeta2, new int[] { 2, 1 } ) );
+
+    SortKeyEncoder encoder = new SortKeyEncoder( rowMeta1, new int[] { 0, 1 } );
+    byte[] key1 = encoder.encode( new Object[] { 5L, "abc" } );
+    byte[] key2 = encoder.encode( new Object[] { "x", "abc", 5L }, new int[] { 2, 1 } );
+    assertEquals( 0, SortKeyEncoder.compare( key1, key2 ) );
+  }
+
+  private ValueMetaInterface createValueMeta( ValueMetaInterface valueMeta, boolean descending ) {
+    valueMeta.setSortedDescending( descending );
+    return valueMeta;
+  }
+
+  private void assertSameOrder( ValueMetaInterface valueMeta, Object[] values ) throws Exception {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( valueMeta );
+    List<Object[]> rows = new ArrayList<>();
+    for ( Object value : values ) {
+      rows.add( new Object[] { value } );
+    }
+    assertSameOrder( rowMeta, new int[] { 0 }, rows );
+  }
+
+  private void assertSameOrder( RowMetaInterface rowMeta, int[] fieldNrs, List<Object[]> rows ) throws Exception {
+    SortKeyEncoder encoder = new SortKeyEncoder( rowMeta, fieldNrs );
+    for ( Object[] row1 : rows ) {
+      byte[] key1 = encoder.encode( row1 );
+      for ( Object[] row2 : rows ) {
+        int expected = Integer.signum( rowMeta.compare( row1, row2, fieldNrs ) );
+        int actual = Integer.signum( SortKeyEncoder.compare( key1, encoder.encode( row2 ) ) );
+        assertEquals( rowMeta.getString( row1 ) + " <> " + rowMeta.getString( row2 ), expected, actual );
+      }
+    }
+  }
+}
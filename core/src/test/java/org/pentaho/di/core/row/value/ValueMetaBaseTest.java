@@ -319,6 +319,63 @@ public class ValueMetaBaseTest {
       any( ResultSetMetaData.class ), anyInt() );
   }
 
+  @Test
+  public void testLazyConversionOfIntegers() throws Exception {
+    ValueMetaInterface integerMeta = new ValueMetaInteger( "id" );
+    assertTrue( ValueMetaBase.setLazyConversion( integerMeta ) );
+    assertTrue( integerMeta.isStorageBinaryString() );
+
+    when( resultSet.getString( 1 ) ).thenReturn( "-12345" );
+    when( resultSet.getString( 2 ) ).thenReturn( "7.0" );
+    when( resultSet.getLong( 2 ) ).thenReturn( 7L );
+    DatabaseInterface databaseInterface = new PostgreSQLDatabaseMeta();
+
+    byte[] text = (byte[]) integerMeta.getValueFromResultSet( databaseInterface, resultSet, 0 );
+    assertArrayEquals( "-12345".getBytes(), text );
+    assertEquals( Long.valueOf( -12345L ), integerMeta.getInteger( text ) );
+    // The text is passed on as it was read
+    assertTrue( text == integerMeta.getBinaryString( text ) );
+    assertEquals( "-12345", integerMeta.getString( text ) );
+
+    text = (byte[]) integerMeta.getValueFromResultSet( databaseInterface, resultSet, 1 );
+    assertArrayEquals( "7".getBytes(), text );
+    verify( resultSet, never() ).getLong( 1 );
+  }
+
+  @Test
+  public void testLazyConversionOfIntegersWithoutMask() throws Exception {
+    ValueMetaInterface integerMeta = new ValueMetaInteger( "id" );
+    integerMeta.setConversionMask( null );
+    assertTrue( ValueMetaBase.setLazyConversion( integerMeta ) );
+    assertEquals( ValueMetaBase.DEFAULT_INTEGER_FORMAT_MASK, integerMeta.getConversionMask() );
+  }
+
+  @Test
+  public void testPlainIntegerFormat() {
+    assertTrue( ValueMetaBase.isPlainIntegerFormat( "####0;-####0" ) );
+    assertTrue( ValueMetaBase.isPlainIntegerFormat( "#" ) );
+    // grouping, padding and decimals change the text of the database
+    assertFalse( ValueMetaBase.isPlainIntegerFormat( "#,##0;-#,##0" ) );
+    assertFalse( ValueMetaBase.isPlainIntegerFormat( "000000" ) );
+    assertFalse( ValueMetaBase.isPlainIntegerFormat( "#.00" ) );
+  }
+
+  @Test
+  public void testLazyConversionOfOtherTypes() throws Exception {
+    ValueMetaInterface stringMeta = new ValueMetaString( "name" );
+    assertTrue( ValueMetaBase.setLazyConversion( stringMeta ) );
+    assertTrue( stringMeta.isStorageBinaryString() );
+    assertEquals( ValueMetaInterface.STORAGE_TYPE_NORMAL, stringMeta.getStorageMetadata().getStorageType() );
+
+    ValueMetaInterface numberMeta = new ValueMetaNumber( "amount" );
+    assertFalse( ValueMetaBase.setLazyConversion( numberMeta ) );
+    assertFalse( numberMeta.isStorageBinaryString() );
+
+    ValueMetaInterface integerMeta = new ValueMetaInteger( "formatted" );
+    integerMeta.setConversionMask( "#,##0" );
+    assertFalse( ValueMetaBase.setLazyConversion( integerMeta ) );
+  }
+
   @Test
   public void testVerticaTimeType() throws Exception {
     // PDI-12244
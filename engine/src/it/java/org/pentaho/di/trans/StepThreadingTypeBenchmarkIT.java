@@ -0,0 +1,157 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.trans;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.KettleEnvironment;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaFactory;
+import org.pentaho.di.trans.TransMeta.StepThreadingType;
+import org.pentaho.di.trans.step.StepMeta;
+import org.pentaho.di.trans.steps.dummytrans.DummyTransMeta;
+import org.pentaho.di.trans.steps.rowgenerator.RowGeneratorMeta;
+
+/**
+ * Compares platform and virtual step threads on a number of wide transformations running at the same time, the way
+ * a busy Carte server would. For every threading type it reports the peak number of platform threads, the heap in use
+ * and the throughput.<br>
+ * <br>
+ * The size of the benchmark can be changed with the system properties StepThreadingTypeBenchmarkIT.transformations,
+ * StepThreadingTypeBenchmarkIT.branches, StepThreadingTypeBenchmarkIT.depth and StepThreadingTypeBenchmarkIT.rows.
+ */
+public class StepThreadingTypeBenchmarkIT {
+
+  private static final int NR_TRANSFORMATIONS =
+    Integer.getInteger( "StepThreadingTypeBenchmarkIT.transformations", 20 );
+  private static final int NR_BRANCHES = Integer.getInteger( "StepThreadingTypeBenchmarkIT.branches", 25 );
+  private static final int DEPTH = Integer.getInteger( "StepThreadingTypeBenchmarkIT.depth", 4 );
+  private static final int NR_ROWS = Integer.getInteger( "StepThreadingTypeBenchmarkIT.rows", 20000 );
+
+  @BeforeClass
+  public static void init() throws Exception {
+    KettleEnvironment.init( false );
+  }
+
+  @Test
+  public void testPlatformThreads() throws Exception {
+    runBenchmark( StepThreadingType.Platform );
+  }
+
+  @Test
+  public void testVirtualThreads() throws Exception {
+    runBenchmark( StepThreadingType.Virtual );
+  }
+
+  private void runBenchmark( StepThreadingType threadingType ) throws Exception {
+    ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+
+    System.gc();
+    threadBean.resetPeakThreadCount();
+    int threadsBefore = threadBean.getThreadCount();
+    long heapBefore = memoryBean.getHeapMemoryUsage().getUsed();
+    long start = System.nanoTime();
+
+    List<Trans> transList = new ArrayList<>();
+    for ( int i = 0; i < NR_TRANSFORMATIONS; i++ ) {
+      Trans trans = new Trans( generateWideTransformation( "wide-" + i ) );
+      trans.setStepThreadingType( threadingType );
+      trans.execute( null );
+      transList.add( trans );
+    }
+
+    long peakHeap = 0;
+    boolean finished = false;
+    while ( !finished ) {
+      peakHeap = Math.max( peakHeap, memoryBean.getHeapMemoryUsage().getUsed() );
+      finished = true;
+      for ( Trans trans : transList ) {
+        finished &= trans.isFinished();
+      }
+      if ( !finished ) {
+        Thread.sleep( 10 );
+      }
+    }
+    long elapsedMs = Math.max( 1L, ( System.nanoTime() - start ) / 1000000L );
+
+    long rows = 0;
+    for ( Trans trans : transList ) {
+      trans.waitUntilFinished();
+      assertEquals( 0, trans.getErrors() );
+      for ( int b = 0; b < NR_BRANCHES; b++ ) {
+        rows += trans.findRunThread( "dummy-" + b + "-" + ( DEPTH - 1 ) ).getLinesWritten();
+      }
+    }
+    assertEquals( (long) NR_TRANSFORMATIONS * NR_BRANCHES * NR_ROWS, rows );
+
+    int nrStepThreads = NR_TRANSFORMATIONS * NR_BRANCHES * ( DEPTH + 1 );
+    int peakThreads = threadBean.getPeakThreadCount() - threadsBefore;
+    StepThreadingType effectiveType = StepThreadFactory.getEffectiveThreadingType( threadingType );
+    System.out.println( "Step threading type     : " + threadingType.getCode()
+      + ( effectiveType != threadingType ? " (not supported, ran on " + effectiveType.getCode() + ")" : "" ) + Const.CR
+      + "Step copies             : " + nrStepThreads + Const.CR
+      + "Peak platform threads   : " + peakThreads + Const.CR
+      + "Peak heap in use (MB)   : " + ( peakHeap - heapBefore ) / ( 1024 * 1024 ) + Const.CR
+      + "Elapsed time (ms)       : " + elapsedMs + Const.CR
+      + "Throughput (rows/s)     : " + ( rows * 1000L / elapsedMs ) );
+
+    if ( effectiveType == StepThreadingType.Virtual ) {
+      assertTrue( "Virtual step threads should not need a platform thread each", peakThreads < nrStepThreads );
+    }
+  }
+
+  /**
+   * Generates a transformation with NR_BRANCHES parallel branches, each made of a row generator followed by DEPTH
+   * dummy steps.
+   */
+  private TransMeta generateWideTransformation( String name ) {
+    TransMeta transMeta = new TransMeta();
+    transMeta.setName( name );
+    transMeta.setSizeRowset( 1000 );
+    transMeta.setFeedbackShown( false );
+    transMeta.setUsingThreadPriorityManagment( false );
+
+    for ( int b = 0; b < NR_BRANCHES; b++ ) {
+      RowGeneratorMeta generator = new RowGeneratorMeta();
+      generator.allocate( 1 );
+      generator.setRowLimit( Integer.toString( NR_ROWS ) );
+      generator.getFieldName()[0] = "ID";
+      generator.getFieldType()[0] = ValueMetaFactory.getValueMetaName( ValueMetaInterface.TYPE_INTEGER );
+      generator.getFieldLength()[0] = 7;
+      generator.getValue()[0] = "1234";
+
+      StepMeta previous = new StepMeta( "generate-" + b, generator );
+      transMeta.addStep( previous );
+      for ( int d = 0; d < DEPTH; d++ ) {
+        StepMeta dummy = new StepMeta( "dummy-" + b + "-" + d, new DummyTransMeta() );
+        transMeta.addStep( dummy );
+        transMeta.addTransHop( new TransHopMeta( previous, dummy ) );
+        previous = dummy;
+      }
+    }
+    return transMeta;
+  }
+}
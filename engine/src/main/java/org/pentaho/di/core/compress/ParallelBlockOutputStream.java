@@ -0,0 +1,162 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.compress;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.pentaho.di.core.util.ExecutorUtil;
+
+/**
+ * Cuts the data in blocks and compresses every block as an independent frame on a pool of threads. The frames are
+ * written in order. Formats like Zstandard and LZ4 define a stream of concatenated frames to be the same as a single
+ * frame holding all of the data, so any decompressor can read the result.<br>
+ * <br>
+ * {@link #flush()} writes the frames that are ready, it doesn't cut the block that is being filled: flushing after
+ * every row would otherwise ruin the compression.
+ *
+ * @since 11.1
+ */
+public class ParallelBlockOutputStream extends OutputStream {
+  /** The default amount of uncompressed data in a frame */
+  public static final int DEFAULT_BLOCK_SIZE = 4 * 1024 * 1024;
+
+  /**
+   * Compresses a block of data into a complete, independent frame.
+   */
+  public interface BlockCompressor {
+    byte[] compress( byte[] block, int length ) throws IOException;
+  }
+
+  private final OutputStream out;
+  private final BlockCompressor compressor;
+  private final int blockSize;
+  private final int parallelism;
+  private final ExecutorService executor;
+  private final Deque<Future<byte[]>> frames;
+
+  private byte[] block;
+  private int count;
+  private boolean empty;
+  private boolean closed;
+
+  public ParallelBlockOutputStream( OutputStream out, BlockCompressor compressor ) {
+    this( out, compressor, DEFAULT_BLOCK_SIZE, Runtime.getRuntime().availableProcessors() );
+  }
+
+  /**
+   * @param out         the stream to write the frames to
+   * @param compressor  compresses a block into a frame
+   * @param blockSize   the amount of uncompressed data in a frame
+   * @param parallelism the maximum number of blocks being compressed at the same time
+   */
+  public ParallelBlockOutputStream( OutputStream out, BlockCompressor compressor, int blockSize, int parallelism ) {
+    this.out = out;
+    this.compressor = compressor;
+    this.blockSize = blockSize;
+    this.parallelism = Math.max( 1, parallelism );
+    this.executor = ExecutorUtil.getExecutor();
+    this.frames = new ArrayDeque<>();
+    this.block = new byte[ blockSize ];
+    this.empty = true;
+  }
+
+  @Override
+  public void write( int b ) throws IOException {
+    if ( count == blockSize ) {
+      submitBlock();
+    }
+    block[ count++ ] = (byte) b;
+  }
+
+  @Override
+  public void write( byte[] b, int off, int len ) throws IOException {
+    while ( len > 0 ) {
+      if ( count == blockSize ) {
+        submitBlock();
+      }
+      int n = Math.min( len, blockSize - count );
+      System.arraycopy( b, off, block, count, n );
+      count += n;
+      off += n;
+      len -= n;
+    }
+  }
+
+  @Override
+  public void flush() throws IOException {
+    while ( !frames.isEmpty() && frames.peek().isDone() ) {
+      writeFrame( frames.poll() );
+    }
+    out.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if ( closed ) {
+      return;
+    }
+    closed = true;
+    try {
+      // An empty stream still gets a frame, not every decompressor accepts an empty file
+      //
+      if ( count > 0 || empty ) {
+        submitBlock();
+      }
+      while ( !frames.isEmpty() ) {
+        writeFrame( frames.poll() );
+      }
+    } finally {
+      for ( Future<byte[]> frame : frames ) {
+        frame.cancel( true );
+      }
+      out.close();
+    }
+  }
+
+  private void submitBlock() throws IOException {
+    // Don't let the compression fall behind too much, that would only use up memory
+    //
+    if ( frames.size() >= parallelism ) {
+      writeFrame( frames.poll() );
+    }
+    final byte[] data = block;
+    final int length = count;
+    frames.add( executor.submit( () -> compressor.compress( data, length ) ) );
+    block = new byte[ blockSize ];
+    count = 0;
+    empty = false;
+  }
+
+  private void writeFrame( Future<byte[]> frame ) throws IOException {
+    try {
+      out.write( frame.get() );
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException( "Interrupted while compressing" );
+    } catch ( ExecutionException e ) {
+      if ( e.getCause() instanceof IOException ) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException( "Error compressing a block of data", e.getCause() );
+    }
+  }
+}
@@ -0,0 +1,165 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.compress;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+
+import org.pentaho.di.core.util.ExecutorUtil;
+
+/**
+ * Reads another stream on a separate thread, a few blocks ahead of the reader. Put in front of a decompressing stream,
+ * the decompression runs next to the parsing of the data instead of in between.
+ *
+ * @since 11.1
+ */
+public class ReadAheadInputStream extends InputStream {
+  /** The default size of the blocks that are read ahead */
+  public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
+  /** The default number of blocks that are read ahead */
+  public static final int DEFAULT_BLOCKS_AHEAD = 4;
+
+  private static final byte[] END = new byte[ 0 ];
+
+  private final InputStream in;
+  private final int blockSize;
+  private final BlockingQueue<byte[]> blocks;
+
+  private Future<?> reader;
+  private volatile IOException failure;
+
+  private byte[] current;
+  private int position;
+
+  public ReadAheadInputStream( InputStream in ) {
+    this( in, DEFAULT_BLOCK_SIZE, DEFAULT_BLOCKS_AHEAD );
+  }
+
+  /**
+   * @param in          the stream to read ahead of the reader
+   * @param blockSize   the size of the blocks to read
+   * @param blocksAhead the maximum number of blocks to read ahead
+   */
+  public ReadAheadInputStream( InputStream in, int blockSize, int blocksAhead ) {
+    this.in = in;
+    this.blockSize = blockSize;
+    this.blocks = new ArrayBlockingQueue<>( Math.max( 1, blocksAhead ) );
+  }
+
+  @Override
+  public int read() throws IOException {
+    if ( !fill() ) {
+      return -1;
+    }
+    return current[ position++ ] & 0xff;
+  }
+
+  @Override
+  public int read( byte[] b, int off, int len ) throws IOException {
+    if ( len == 0 ) {
+      return 0;
+    }
+    if ( !fill() ) {
+      return -1;
+    }
+    int n = Math.min( len, current.length - position );
+    System.arraycopy( current, position, b, off, n );
+    position += n;
+    return n;
+  }
+
+  @Override
+  public int available() throws IOException {
+    return current == null ? 0 : current.length - position;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if ( reader != null ) {
+      reader.cancel( true );
+    }
+    blocks.clear();
+    current = END;
+    position = 0;
+    in.close();
+  }
+
+  /**
+   * @return false at the end of the stream
+   */
+  private boolean fill() throws IOException {
+    if ( current != null && position < current.length ) {
+      return true;
+    }
+    if ( current == END ) {
+      return false;
+    }
+    if ( reader == null ) {
+      reader = ExecutorUtil.getExecutor().submit( this::readAhead );
+    }
+    try {
+      current = blocks.take();
+      position = 0;
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException( "Interrupted while waiting for data" );
+    }
+    if ( current == END ) {
+      if ( failure != null ) {
+        throw failure;
+      }
+      return false;
+    }
+    return true;
+  }
+
+  private void readAhead() {
+    try {
+      int length = blockSize;
+      while ( length == blockSize ) {
+        byte[] block = new byte[ blockSize ];
+        length = 0;
+        for ( int n = 0; n >= 0 && length < blockSize; n = in.read( block, length, blockSize - length ) ) {
+          length += n;
+        }
+        if ( length > 0 ) {
+          blocks.put( length == blockSize ? block : Arrays.copyOf( block, length ) );
+        }
+      }
+    } catch ( IOException e ) {
+      failure = e;
+    } catch ( RuntimeException | Error e ) {
+      // Nobody looks at the outcome of the task, the reader has to get these
+      failure = new IOException( "Error reading ahead", e );
+    } catch ( InterruptedException e ) {
+      // closed, don't wait for room for the end marker below
+      Thread.currentThread().interrupt();
+    } finally {
+      // The reader always gets the end of the stream, with the failure if there was one
+      //
+      try {
+        blocks.put( END );
+      } catch ( InterruptedException e ) {
+        // closed
+      }
+    }
+  }
+}
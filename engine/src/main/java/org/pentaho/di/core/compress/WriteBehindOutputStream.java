@@ -0,0 +1,102 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.compress;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.pentaho.di.core.util.ExecutorUtil;
+
+/**
+ * Writes to another stream on a separate thread. Every write is handed over as a copy and the writer only waits for
+ * the write before it. Put behind a large buffer and in front of a compressing stream, the compression runs next to
+ * the production of the data instead of in between.
+ *
+ * @since 11.1
+ */
+public class WriteBehindOutputStream extends OutputStream {
+  private final OutputStream out;
+
+  private Future<?> pending;
+  private boolean closed;
+
+  /**
+   * @param out the stream to write to on another thread
+   */
+  public WriteBehindOutputStream( OutputStream out ) {
+    this.out = out;
+  }
+
+  @Override
+  public void write( int b ) throws IOException {
+    write( new byte[] { (byte) b }, 0, 1 );
+  }
+
+  @Override
+  public void write( byte[] b, int off, int len ) throws IOException {
+    if ( len == 0 ) {
+      return;
+    }
+    final byte[] data = Arrays.copyOfRange( b, off, off + len );
+    awaitPending();
+    pending = ExecutorUtil.getExecutor().submit( () -> {
+      out.write( data );
+      return null;
+    } );
+  }
+
+  @Override
+  public void flush() throws IOException {
+    awaitPending();
+    out.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if ( closed ) {
+      return;
+    }
+    closed = true;
+    try {
+      awaitPending();
+    } finally {
+      out.close();
+    }
+  }
+
+  private void awaitPending() throws IOException {
+    if ( pending == null ) {
+      return;
+    }
+    try {
+      pending.get();
+    } catch ( InterruptedException e ) {
+      pending.cancel( true );
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException( "Interrupted while writing" );
+    } catch ( ExecutionException e ) {
+      if ( e.getCause() instanceof IOException ) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException( "Error writing data", e.getCause() );
+    } finally {
+      pending = null;
+    }
+  }
+}
@@ -18,13 +18,16 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.zip.GZIPInputStream;
 
+import org.pentaho.di.core.Const;
 import org.pentaho.di.core.compress.CompressionInputStream;
 import org.pentaho.di.core.compress.CompressionProvider;
+import org.pentaho.di.core.compress.ReadAheadInputStream;
+import org.pentaho.di.core.util.EnvUtil;
 
 public class GZIPCompressionInputStream extends CompressionInputStream {
 
   public GZIPCompressionInputStream( InputStream in, CompressionProvider provider ) throws IOException {
-    super( getDelegate( in ), provider );
+    super( isParallelInflation() ? getParallelDelegate( in ) : getDelegate( in ), provider );
   }
 
   protected static GZIPInputStream getDelegate( InputStream in ) throws IOException {
@@ -37,16 +40,35 @@ public class GZIPCompressionInputStream extends CompressionInputStream {
     return delegate;
   }
 
+  /**
+   * Files made of more than one gzip member have their members inflated in parallel. The inflation runs ahead of the
+   * reader in any case. Used when {@link Const#KETTLE_PARALLEL_GZIP_INPUT} is set.
+   */
+  protected static InputStream getParallelDelegate( InputStream in ) throws IOException {
+    InputStream delegate = null;
+    if ( in instanceof GZIPInputStream || in instanceof ParallelGzipInputStream ) {
+      delegate = in;
+    } else {
+      delegate = new ReadAheadInputStream( new ParallelGzipInputStream( in ) );
+    }
+    return delegate;
+  }
+
+  /**
+   * A compression provider has no variables to look at, only the system properties are taken into account here.
+   */
+  private static boolean isParallelInflation() {
+    return "Y".equalsIgnoreCase( EnvUtil.getSystemProperty( Const.KETTLE_PARALLEL_GZIP_INPUT, "N" ) );
+  }
+
   @Override
   public void close() throws IOException {
-    GZIPInputStream gis = (GZIPInputStream) delegate;
-    gis.close();
+    delegate.close();
   }
 
   @Override
   public int read() throws IOException {
-    GZIPInputStream gis = (GZIPInputStream) delegate;
-    return gis.read();
+    return delegate.read();
   }
 
 }
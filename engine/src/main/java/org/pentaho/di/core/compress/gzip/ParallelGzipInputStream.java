@@ -0,0 +1,541 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.compress.gzip;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+import org.pentaho.di.core.util.ExecutorUtil;
+
+/**
+ * Reads gzip data made of more than one member (concatenated gzip files, BGZF files, the output of block compressing
+ * tools) by inflating a number of members at the same time on a pool of threads. The data is returned in order and
+ * is the same as what {@link java.util.zip.GZIPInputStream} returns.<br>
+ * <br>
+ * The boundaries of the members are found without inflating anything:
+ * <ul>
+ * <li>BGZF members carry their compressed size in the "BC" extra field of the header.</li>
+ * <li>For other members the compressed data is searched for the next gzip header. Such a boundary is only a guess: the
+ * member is inflated in parallel and only accepted if the deflate data ends exactly there and the CRC and the size in
+ * the trailer are correct. If not, the member is inflated the normal way.</li>
+ * </ul>
+ * Members that are too large to keep in memory, like the single member of an ordinary gzip file, are inflated while
+ * they are read, just like {@link java.util.zip.GZIPInputStream} does.
+ *
+ * @since 11.1
+ */
+public class ParallelGzipInputStream extends InputStream {
+  /** The default maximum compressed size of a member that is inflated in parallel */
+  public static final int DEFAULT_MAX_MEMBER_SIZE = 4 * 1024 * 1024;
+
+  private static final int HEADER_SIZE = 10;
+  private static final int TRAILER_SIZE = 8;
+  private static final int MIN_DEFLATE_SIZE = 2;
+  private static final int MAX_DEFLATE_RATIO = 1032;
+  private static final int MAX_INFLATED_SIZE = 64 * 1024 * 1024;
+
+  private static final int FHCRC = 2;
+  private static final int FEXTRA = 4;
+  private static final int FNAME = 8;
+  private static final int FCOMMENT = 16;
+  private static final int FRESERVED = 0xe0;
+
+  private static final byte[] EMPTY = new byte[ 0 ];
+
+  private final InputStream in;
+  private final int maxMemberSize;
+  private final int parallelism;
+  private final ExecutorService executor;
+  private final Deque<Member> members;
+
+  // The compressed data that is read but not handed out to a member yet: [start, end[
+  //
+  private byte[] buffer;
+  private int start;
+  private int end;
+  private boolean eof;
+  private boolean firstMember;
+  private boolean sequentialNext;
+
+  // A member that is inflated while it is read
+  //
+  private Inflater inflater;
+  private CRC32 crc;
+  private long inflatedSize;
+
+  private byte[] current;
+  private int position;
+  private boolean closed;
+
+  public ParallelGzipInputStream( InputStream in ) throws IOException {
+    this( in, DEFAULT_MAX_MEMBER_SIZE, Runtime.getRuntime().availableProcessors() );
+  }
+
+  /**
+   * @param in            the gzip data
+   * @param maxMemberSize the maximum compressed size of a member that is inflated in parallel
+   * @param parallelism   the maximum number of members being inflated at the same time
+   * @throws ZipException if the data doesn't start with a gzip header
+   */
+  public ParallelGzipInputStream( InputStream in, int maxMemberSize, int parallelism ) throws IOException {
+    this.in = in;
+    this.maxMemberSize = maxMemberSize;
+    this.parallelism = Math.max( 1, parallelism );
+    this.executor = ExecutorUtil.getExecutor();
+    this.members = new ArrayDeque<>();
+    this.buffer = new byte[ 64 * 1024 ];
+    this.current = EMPTY;
+    this.firstMember = true;
+
+    // Fail right away on data that isn't gzip, like GZIPInputStream does
+    //
+    readHeader();
+  }
+
+  @Override
+  public int read() throws IOException {
+    if ( position < current.length ) {
+      return current[ position++ ] & 0xff;
+    }
+    byte[] b = new byte[ 1 ];
+    return read( b, 0, 1 ) < 0 ? -1 : b[ 0 ] & 0xff;
+  }
+
+  @Override
+  public int read( byte[] b, int off, int len ) throws IOException {
+    if ( closed ) {
+      throw new IOException( "Stream closed" );
+    }
+    if ( len == 0 ) {
+      return 0;
+    }
+    while ( true ) {
+      if ( position < current.length ) {
+        int n = Math.min( len, current.length - position );
+        System.arraycopy( current, position, b, off, n );
+        position += n;
+        return n;
+      }
+      if ( inflater != null ) {
+        int n = inflateSequentially( b, off, len );
+        if ( n > 0 ) {
+          return n;
+        }
+      } else if ( !nextMember() ) {
+        return -1;
+      }
+    }
+  }
+
+  @Override
+  public int available() throws IOException {
+    return current.length - position;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if ( closed ) {
+      return;
+    }
+    closed = true;
+    for ( Member member : members ) {
+      member.inflated.cancel( true );
+    }
+    members.clear();
+    if ( inflater != null ) {
+      inflater.end();
+      inflater = null;
+    }
+    current = EMPTY;
+    position = 0;
+    in.close();
+  }
+
+  /**
+   * Makes the next member current: either the inflated data of a member that was inflated in parallel or an inflater
+   * for a member that is inflated while it is read.
+   *
+   * @return false at the end of the gzip data
+   */
+  private boolean nextMember() throws IOException {
+    submitMembers();
+    if ( members.isEmpty() ) {
+      if ( !sequentialNext ) {
+        return false;
+      }
+      sequentialNext = false;
+      startSequentialMember();
+      return true;
+    }
+
+    Member member = members.poll();
+    byte[] data = await( member );
+    if ( data == null ) {
+      // The guessed end of the member was wrong: go back to the start of the member and inflate it the normal way.
+      //
+      unread( member );
+      startSequentialMember();
+      return true;
+    }
+    current = data;
+    position = 0;
+    return true;
+  }
+
+  /**
+   * Cuts members from the compressed data and hands them out for inflation until enough members are being inflated.
+   */
+  private void submitMembers() throws IOException {
+    while ( members.size() < parallelism && !sequentialNext ) {
+      int size = nextMemberSize();
+      if ( size < 0 ) {
+        return;
+      }
+      if ( size == 0 ) {
+        sequentialNext = true;
+        return;
+      }
+      final byte[] data = new byte[ size ];
+      System.arraycopy( buffer, start, data, 0, size );
+      start += size;
+      members.add( new Member( data, executor.submit( () -> inflateMember( data ) ) ) );
+    }
+  }
+
+  /**
+   * @return the compressed size of the next member, 0 if the member has to be inflated while it is read or -1 at the
+   * end of the gzip data
+   */
+  private int nextMemberSize() throws IOException {
+    int header = readHeader();
+    if ( header < 0 ) {
+      return -1;
+    }
+    int blockSize = bgzfBlockSize( buffer, start, header );
+    if ( blockSize > 0 ) {
+      if ( !fill( blockSize ) ) {
+        throw new EOFException( "Unexpected end of BGZF block" );
+      }
+      return blockSize;
+    }
+
+    // Look for the header of the next member, if there is one.
+    //
+    int offset = header + MIN_DEFLATE_SIZE + TRAILER_SIZE;
+    while ( true ) {
+      for ( ; offset + HEADER_SIZE <= end - start; offset++ ) {
+        if ( isHeader( buffer, start + offset ) ) {
+          return offset;
+        }
+      }
+      if ( eof ) {
+        return end - start;
+      }
+      if ( end - start >= maxMemberSize ) {
+        return 0;
+      }
+      readMore();
+    }
+  }
+
+  private void startSequentialMember() throws IOException {
+    start += readHeader();
+    inflater = new Inflater( true );
+    crc = new CRC32();
+    inflatedSize = 0L;
+  }
+
+  /**
+   * @return the number of bytes inflated or 0 if the member is finished
+   */
+  private int inflateSequentially( byte[] b, int off, int len ) throws IOException {
+    try {
+      while ( !inflater.finished() ) {
+        if ( inflater.needsInput() ) {
+          if ( !fill( 1 ) ) {
+            throw new EOFException( "Unexpected end of ZLIB input stream" );
+          }
+          inflater.setInput( buffer, start, end - start );
+          start = end;
+        }
+        int n = inflater.inflate( b, off, len );
+        if ( n > 0 ) {
+          crc.update( b, off, n );
+          inflatedSize += n;
+          return n;
+        }
+        if ( inflater.needsDictionary() ) {
+          throw new ZipException( "Invalid gzip data: a preset dictionary is not supported" );
+        }
+      }
+    } catch ( DataFormatException e ) {
+      throw new ZipException( e.getMessage() != null ? e.getMessage() : "Invalid ZLIB data format" );
+    }
+
+    // Give back what the inflater didn't use and check the trailer
+    //
+    start = end - inflater.getRemaining();
+    inflater.end();
+    inflater = null;
+    if ( !fill( TRAILER_SIZE ) ) {
+      throw new EOFException( "Unexpected end of gzip trailer" );
+    }
+    if ( readInt( buffer, start ) != (int) crc.getValue() || readInt( buffer, start + 4 ) != (int) inflatedSize ) {
+      throw new ZipException( "Corrupt GZIP trailer" );
+    }
+    start += TRAILER_SIZE;
+    return 0;
+  }
+
+  /**
+   * Makes sure the header of the next member is in the buffer.
+   *
+   * @return the length of the header or -1 at the end of the gzip data
+   */
+  private int readHeader() throws IOException {
+    int header;
+    try {
+      header = headerLength( buffer, start, end - start );
+      while ( header < 0 ) {
+        if ( eof ) {
+          if ( firstMember ) {
+            throw new EOFException();
+          }
+          return -1;
+        }
+        readMore();
+        header = headerLength( buffer, start, end - start );
+      }
+    } catch ( ZipException e ) {
+      if ( firstMember ) {
+        throw e;
+      }
+      // Like GZIPInputStream we ignore anything after the last member that is not gzip data
+      //
+      start = end;
+      eof = true;
+      return -1;
+    }
+    firstMember = false;
+    return header;
+  }
+
+  private byte[] await( Member member ) throws IOException {
+    try {
+      return member.inflated.get();
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException( "Interrupted while inflating" );
+    } catch ( ExecutionException e ) {
+      throw new IOException( "Error inflating a gzip member", e.getCause() );
+    }
+  }
+
+  /**
+   * Puts the compressed data of the member and of all the members after it back in front of the buffer.
+   */
+  private void unread( Member member ) {
+    int size = member.data.length + ( end - start );
+    for ( Member next : members ) {
+      size += next.data.length;
+    }
+    byte[] data = new byte[ Math.max( size, buffer.length ) ];
+    System.arraycopy( member.data, 0, data, 0, member.data.length );
+    int length = member.data.length;
+    for ( Member next : members ) {
+      next.inflated.cancel( true );
+      System.arraycopy( next.data, 0, data, length, next.data.length );
+      length += next.data.length;
+    }
+    members.clear();
+    System.arraycopy( buffer, start, data, length, end - start );
+    buffer = data;
+    start = 0;
+    end = size;
+    sequentialNext = false;
+  }
+
+  /**
+   * @return true if there are at least min bytes in the buffer, false if the end of the data came first
+   */
+  private boolean fill( int min ) throws IOException {
+    while ( end - start < min && !eof ) {
+      readMore();
+    }
+    return end - start >= min;
+  }
+
+  private void readMore() throws IOException {
+    if ( end == buffer.length ) {
+      int available = end - start;
+      byte[] target = available * 2 > buffer.length ? new byte[ buffer.length * 2 ] : buffer;
+      System.arraycopy( buffer, start, target, 0, available );
+      buffer = target;
+      start = 0;
+      end = available;
+    }
+    int n = in.read( buffer, end, buffer.length - end );
+    if ( n < 0 ) {
+      eof = true;
+    } else {
+      end += n;
+    }
+  }
+
+  /**
+   * Inflates a complete member.
+   *
+   * @return the inflated data or null if the data is not exactly one valid member
+   */
+  static byte[] inflateMember( byte[] member ) throws ZipException {
+    int header = headerLength( member, 0, member.length );
+    if ( header < 0 || member.length - header < TRAILER_SIZE ) {
+      return null;
+    }
+    // The member can still be a wrong guess, so don't trust the size in the trailer too much. Large members are
+    // left to the normal inflation.
+    //
+    int size = readInt( member, member.length - 4 );
+    if ( size < 0 || size > MAX_INFLATED_SIZE || size > (long) MAX_DEFLATE_RATIO * member.length ) {
+      return null;
+    }
+    byte[] data = new byte[ size ];
+    byte[] spare = new byte[ 1 ];
+    int length = 0;
+    Inflater inflater = new Inflater( true );
+    try {
+      inflater.setInput( member, header, member.length - header );
+      while ( !inflater.finished() ) {
+        int n = length < size ? inflater.inflate( data, length, size - length ) : inflater.inflate( spare );
+        if ( n == 0 && ( inflater.needsInput() || inflater.needsDictionary() ) ) {
+          return null;
+        }
+        if ( length == size && n > 0 ) {
+          return null;
+        }
+        length += n;
+      }
+      if ( length != size || inflater.getRemaining() != TRAILER_SIZE ) {
+        return null;
+      }
+    } catch ( DataFormatException e ) {
+      return null;
+    } finally {
+      inflater.end();
+    }
+    CRC32 crc = new CRC32();
+    crc.update( data, 0, size );
+    return readInt( member, member.length - TRAILER_SIZE ) == (int) crc.getValue() ? data : null;
+  }
+
+  /**
+   * @return the length of the gzip header at the offset or -1 if more than length bytes are needed to tell
+   * @throws ZipException if the data is not a gzip header
+   */
+  static int headerLength( byte[] b, int offset, int length ) throws ZipException {
+    if ( length < HEADER_SIZE ) {
+      return -1;
+    }
+    if ( b[ offset ] != (byte) 0x1f || b[ offset + 1 ] != (byte) 0x8b ) {
+      throw new ZipException( "Not in GZIP format" );
+    }
+    if ( b[ offset + 2 ] != 8 ) {
+      throw new ZipException( "Unsupported compression method" );
+    }
+    int flags = b[ offset + 3 ] & 0xff;
+    int header = HEADER_SIZE;
+    if ( ( flags & FEXTRA ) != 0 ) {
+      if ( length < header + 2 ) {
+        return -1;
+      }
+      header += 2 + readShort( b, offset + header );
+    }
+    for ( int flag : new int[] { FNAME, FCOMMENT } ) {
+      if ( ( flags & flag ) != 0 ) {
+        while ( header < length && b[ offset + header ] != 0 ) {
+          header++;
+        }
+        if ( header++ >= length ) {
+          return -1;
+        }
+      }
+    }
+    if ( ( flags & FHCRC ) != 0 ) {
+      header += 2;
+    }
+    return header <= length ? header : -1;
+  }
+
+  /**
+   * @return the compressed size of the member from the BGZF extra field or 0 if the member doesn't have one
+   */
+  static int bgzfBlockSize( byte[] b, int offset, int header ) {
+    if ( ( b[ offset + 3 ] & FEXTRA ) == 0 ) {
+      return 0;
+    }
+    int index = offset + HEADER_SIZE + 2;
+    int extraEnd = index + readShort( b, offset + HEADER_SIZE );
+    while ( index + 4 <= extraEnd ) {
+      int fieldLength = readShort( b, index + 2 );
+      if ( b[ index ] == 'B' && b[ index + 1 ] == 'C' && fieldLength == 2 && index + 6 <= extraEnd ) {
+        return readShort( b, index + 4 ) + 1;
+      }
+      index += 4 + fieldLength;
+    }
+    return 0;
+  }
+
+  /**
+   * @return true if there is something at the offset that looks like the fixed part of a gzip header
+   */
+  static boolean isHeader( byte[] b, int offset ) {
+    if ( b[ offset ] != (byte) 0x1f || b[ offset + 1 ] != (byte) 0x8b || b[ offset + 2 ] != 8
+      || ( b[ offset + 3 ] & FRESERVED ) != 0 ) {
+      return false;
+    }
+    int extraFlags = b[ offset + 8 ] & 0xff;
+    int os = b[ offset + 9 ] & 0xff;
+    return ( extraFlags == 0 || extraFlags == 2 || extraFlags == 4 ) && ( os <= 13 || os == 255 );
+  }
+
+  private static int readShort( byte[] b, int offset ) {
+    return ( b[ offset ] & 0xff ) | ( b[ offset + 1 ] & 0xff ) << 8;
+  }
+
+  private static int readInt( byte[] b, int offset ) {
+    return readShort( b, offset ) | readShort( b, offset + 2 ) << 16;
+  }
+
+  private static final class Member {
+    private final byte[] data;
+    private final Future<byte[]> inflated;
+
+    private Member( byte[] data, Future<byte[]> inflated ) {
+      this.data = data;
+      this.inflated = inflated;
+    }
+  }
+}
@@ -0,0 +1,35 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.compress.lz4;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorInputStream;
+import org.pentaho.di.core.compress.CompressionInputStream;
+import org.pentaho.di.core.compress.CompressionProvider;
+import org.pentaho.di.core.compress.ReadAheadInputStream;
+
+/**
+ * Decompresses LZ4 frame data, all frames of it, on a separate thread ahead of the reader.
+ *
+ * @since 11.1
+ */
+public class LZ4CompressionInputStream extends CompressionInputStream {
+
+  public LZ4CompressionInputStream( InputStream in, CompressionProvider provider ) throws IOException {
+    super( new ReadAheadInputStream( new FramedLZ4CompressorInputStream( in, true ) ), provider );
+  }
+}
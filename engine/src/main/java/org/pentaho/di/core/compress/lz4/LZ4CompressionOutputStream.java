@@ -0,0 +1,44 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.compress.lz4;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorOutputStream;
+import org.pentaho.di.core.compress.CompressionOutputStream;
+import org.pentaho.di.core.compress.CompressionProvider;
+import org.pentaho.di.core.compress.ParallelBlockOutputStream;
+
+/**
+ * Compresses blocks of data into independent LZ4 frames on multiple threads.
+ *
+ * @since 11.1
+ */
+public class LZ4CompressionOutputStream extends CompressionOutputStream {
+
+  public LZ4CompressionOutputStream( OutputStream out, CompressionProvider provider ) {
+    super( new ParallelBlockOutputStream( out, LZ4CompressionOutputStream::compress ), provider );
+  }
+
+  static byte[] compress( byte[] block, int length ) throws IOException {
+    ByteArrayOutputStream frame = new ByteArrayOutputStream( length / 2 + 64 );
+    try ( FramedLZ4CompressorOutputStream lz4 = new FramedLZ4CompressorOutputStream( frame ) ) {
+      lz4.write( block, 0, length );
+    }
+    return frame.toByteArray();
+  }
+}
@@ -0,0 +1,42 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.compress.zstd;
+
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import org.pentaho.di.core.compress.CompressionOutputStream;
+import org.pentaho.di.core.compress.CompressionProvider;
+import org.pentaho.di.core.compress.ParallelBlockOutputStream;
+
+import com.github.luben.zstd.Zstd;
+
+/**
+ * Compresses blocks of data into independent Zstandard frames on multiple threads.
+ *
+ * @since 11.1
+ */
+public class ZstdCompressionOutputStream extends CompressionOutputStream {
+  /** The default level of the zstd command line tool */
+  static final int LEVEL = 3;
+
+  public ZstdCompressionOutputStream( OutputStream out, CompressionProvider provider ) {
+    super( new ParallelBlockOutputStream( out, ZstdCompressionOutputStream::compress ), provider );
+  }
+
+  static byte[] compress( byte[] block, int length ) {
+    return Zstd.compress( length == block.length ? block : Arrays.copyOf( block, length ), LEVEL );
+  }
+}
@@ -0,0 +1,105 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.trans;
+
+import java.lang.reflect.Method;
+
+import org.pentaho.di.trans.TransMeta.StepThreadingType;
+
+/**
+ * Creates the (unstarted) threads the step copies of a normal transformation run on.<br>
+ * <br>
+ * Virtual threads are created through reflection so that the engine still runs on Java runtimes that don't offer them,
+ * in which case platform threads are used instead. Virtual threads are mounted on the shared carrier pool of the JVM,
+ * the size of which is bounded with the jdk.virtualThreadScheduler.parallelism and
+ * jdk.virtualThreadScheduler.maxPoolSize system properties.
+ *
+ * @since 11.1
+ */
+public class StepThreadFactory {
+
+  private static final Method OF_VIRTUAL;
+  private static final Method BUILDER_NAME;
+  private static final Method BUILDER_UNSTARTED;
+
+  static {
+    Method ofVirtual = null;
+    Method builderName = null;
+    Method builderUnstarted = null;
+    try {
+      Class<?> builderClass = Class.forName( "java.lang.Thread$Builder" );
+      ofVirtual = Thread.class.getMethod( "ofVirtual" );
+      builderName = builderClass.getMethod( "name", String.class );
+      builderUnstarted = builderClass.getMethod( "unstarted", Runnable.class );
+    } catch ( ReflectiveOperationException | LinkageError e ) {
+      // Virtual threads are not available in this Java runtime
+      ofVirtual = null;
+    }
+    OF_VIRTUAL = ofVirtual;
+    BUILDER_NAME = builderName;
+    BUILDER_UNSTARTED = builderUnstarted;
+  }
+
+  private StepThreadFactory() {
+  }
+
+  /**
+   * @return true if the Java runtime we're running on supports virtual threads
+   */
+  public static boolean isVirtualThreadSupported() {
+    return OF_VIRTUAL != null;
+  }
+
+  /**
+   * Gets the kind of threads that will actually be used for the requested type: virtual threads fall back to platform
+   * threads when the Java runtime doesn't support them.
+   *
+   * @param threadingType
+   *          the requested kind of threads, null means platform threads
+   * @return the kind of threads that will be created
+   */
+  public static StepThreadingType getEffectiveThreadingType( StepThreadingType threadingType ) {
+    if ( threadingType == StepThreadingType.Virtual && isVirtualThreadSupported() ) {
+      return StepThreadingType.Virtual;
+    }
+    return StepThreadingType.Platform;
+  }
+
+  /**
+   * Creates a new thread that is not yet started.
+   *
+   * @param threadingType
+   *          the kind of thread to create
+   * @param runnable
+   *          the work to run on the thread
+   * @param name
+   *          the name of the thread
+   * @return the new, unstarted thread
+   */
+  public static Thread newThread( StepThreadingType threadingType, Runnable runnable, String name ) {
+    if ( getEffectiveThreadingType( threadingType ) == StepThreadingType.Virtual ) {
+      try {
+        Object builder = OF_VIRTUAL.invoke( null );
+        builder = BUILDER_NAME.invoke( builder, name );
+        return (Thread) BUILDER_UNSTARTED.invoke( builder, runnable );
+      } catch ( ReflectiveOperationException e ) {
+        // Can't really happen once the methods are found, simply use a platform thread in that case
+      }
+    }
+    Thread thread = new Thread( runnable );
+    thread.setName( name );
+    return thread;
+  }
+}
@@ -28,9 +28,11 @@ import org.pentaho.di.core.KettleEnvironment;
 import org.pentaho.di.core.QueueRowSet;
 import org.pentaho.di.core.Result;
 import org.pentaho.di.core.ResultFile;
+import org.pentaho.di.core.RingBufferRowSet;
 import org.pentaho.di.core.RowMetaAndData;
 import org.pentaho.di.core.RowSet;
 import org.pentaho.di.core.SingleRowRowSet;
+import org.pentaho.di.core.UnboundedRowSet;
 import org.pentaho.di.core.bowl.Bowl;
 import org.pentaho.di.core.bowl.DefaultBowl;
 import org.pentaho.di.core.database.Database;
@@ -88,6 +90,8 @@ import org.pentaho.di.repository.Repository;
 import org.pentaho.di.repository.RepositoryDirectoryInterface;
 import org.pentaho.di.resource.ResourceUtil;
 import org.pentaho.di.resource.TopLevelResource;
+import org.pentaho.di.trans.TransMeta.StepThreadingType;
+import org.pentaho.di.trans.TransMeta.TransformationType;
 import org.pentaho.di.trans.cluster.TransSplitter;
 import org.pentaho.di.trans.performance.StepPerformanceSnapShot;
 import org.pentaho.di.trans.step.BaseStep;
@@ -224,6 +228,12 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
    */
   private Trans parentTrans;
 
+  /**
+   * The kind of threads to run the step copies on as set by the run configuration, null to use the transformation
+   * setting.
+   */
+  private StepThreadingType stepThreadingType;
+
   /**
    * The parent logging object interface (this could be a transformation or a job).
    */
@@ -982,6 +992,10 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
                   ValueMetaString.convertStringToBoolean( System.getProperty( Const.KETTLE_BATCHING_ROWSET ) );
                 if ( batchingRowSet != null && batchingRowSet.booleanValue() ) {
                   rowSet = new BlockingBatchingRowSet( transMeta.getSizeRowset() );
+                } else if ( dispatchType == TYPE_DISP_1_1 && transMeta.isUsingLockFreeRowSets() ) {
+                  // Exactly one writer and one reader: no need to lock
+                  //
+                  rowSet = new RingBufferRowSet( transMeta.getSizeRowset() );
                 } else {
                   rowSet = new BlockingRowSet( transMeta.getSizeRowset() );
                 }
@@ -995,6 +1009,12 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
                 rowSet = new QueueRowSet();
                 break;
 
+              case WorkStealing:
+                // The scheduler takes care of the back-pressure, a put must never tie up a pool thread
+                //
+                rowSet = new UnboundedRowSet();
+                break;
+
               default:
                 throw new KettleException( "Unhandled transformation type: " + transMeta.getTransformationType() );
             }
@@ -1029,7 +1049,12 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
           // distribution...
           for ( int s = 0; s < thisCopies; s++ ) {
             for ( int t = 0; t < nextCopies; t++ ) {
-              BlockingRowSet rowSet = new BlockingRowSet( transMeta.getSizeRowset() );
+              RowSet rowSet;
+              if ( transMeta.getTransformationType() == TransformationType.WorkStealing ) {
+                rowSet = new UnboundedRowSet();
+              } else {
+                rowSet = new BlockingRowSet( transMeta.getSizeRowset() );
+              }
               rowSet.setThreadNameFromToCopy( thisStep.getName(), s, nextStep.getName(), t );
               rowsets.add( rowSet );
               if ( log.isDetailed() ) {
@@ -1549,33 +1574,36 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
     switch ( transMeta.getTransformationType() ) {
       case Normal:
 
+        StepThreadingType threadingType = getStepThreadingType();
+        if ( threadingType != StepThreadFactory.getEffectiveThreadingType( threadingType ) ) {
+          log.logBasic( BaseMessages.getString( PKG, "Trans.Log.VirtualThreadsNotSupported" ) );
+        } else if ( log.isDetailed() ) {
+          log.logDetailed(
+            BaseMessages.getString( PKG, "Trans.Log.StepThreadingType", threadingType.getDescription() ) );
+        }
+
         // Now start all the threads...
         //
         for ( int i = 0; i < steps.size(); i++ ) {
           final StepMetaDataCombi combi = steps.get( i );
           RunThread runThread = new RunThread( combi );
-          Thread thread = new Thread( runThread );
-          thread.setName( getName() + " - " + combi.stepname );
-          ExtensionPointHandler.callExtensionPoint( log, KettleExtensionPoint.StepBeforeStart.id, combi );
-          // Call an extension point at the end of the step
-          //
-          combi.step.addStepListener( new StepAdapter() {
-
-            @Override
-            public void stepFinished( Trans trans, StepMeta stepMeta, StepInterface step ) {
-              try {
-                ExtensionPointHandler.callExtensionPoint( log, KettleExtensionPoint.StepFinished.id, combi );
-              } catch ( KettleException e ) {
-                throw new RuntimeException( "Unexpected error in calling extension point upon step finish", e );
-              }
-            }
-
-          } );
+          Thread thread =
+            StepThreadFactory.newThread( threadingType, runThread, getName() + " - " + combi.stepname );
+          callStepStartExtensionPoints( combi );
 
           thread.start();
         }
         break;
 
+      case WorkStealing:
+        // The steps run as tasks on the work-stealing pool shared by all transformations...
+        //
+        for ( StepMetaDataCombi combi : steps ) {
+          callStepStartExtensionPoints( combi );
+        }
+        new WorkStealingTransExecutor( this ).start();
+        break;
+
       case SerialSingleThreaded:
         new Thread( new Runnable() {
           @Override
@@ -1658,6 +1686,31 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
     }
   }
 
+  /**
+   * Calls the StepBeforeStart extension point for a step copy and makes sure the StepFinished extension point is called
+   * when it ends.
+   *
+   * @param combi the step copy that is about to start
+   * @throws KettleException if the StepBeforeStart extension point fails
+   */
+  private void callStepStartExtensionPoints( final StepMetaDataCombi combi ) throws KettleException {
+    ExtensionPointHandler.callExtensionPoint( log, KettleExtensionPoint.StepBeforeStart.id, combi );
+    // Call an extension point at the end of the step
+    //
+    combi.step.addStepListener( new StepAdapter() {
+
+      @Override
+      public void stepFinished( Trans trans, StepMeta stepMeta, StepInterface step ) {
+        try {
+          ExtensionPointHandler.callExtensionPoint( log, KettleExtensionPoint.StepFinished.id, combi );
+        } catch ( KettleException e ) {
+          throw new RuntimeException( "Unexpected error in calling extension point upon step finish", e );
+        }
+      }
+
+    } );
+  }
+
   /**
    * Make attempt to fire all registered listeners if possible.
    *
@@ -3461,6 +3514,9 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
     RowSet rowSet;
     switch ( transMeta.getTransformationType() ) {
       case Normal:
+      case WorkStealing:
+        // The producer runs outside of the engine and may wait for room
+        //
         rowSet = new BlockingRowSet( transMeta.getSizeRowset() );
         break;
       case SerialSingleThreaded:
@@ -5458,6 +5514,40 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
     this.executingUser = executingUser;
   }
 
+  /**
+   * Gets the kind of threads the step copies of this transformation run on. An explicit run configuration setting on
+   * this transformation (or on the transformation that executes it) comes first, then the KETTLE_STEP_THREADING_TYPE
+   * variable and finally the setting of the transformation metadata.
+   *
+   * @return the kind of threads to run the step copies on
+   */
+  public StepThreadingType getStepThreadingType() {
+    for ( Trans trans = this; trans != null; trans = trans.getParentTrans() ) {
+      if ( trans.stepThreadingType != null ) {
+        return trans.stepThreadingType;
+      }
+    }
+    String threadingTypeCode = environmentSubstitute( getVariable( Const.KETTLE_STEP_THREADING_TYPE ) );
+    if ( !Utils.isEmpty( threadingTypeCode ) ) {
+      return StepThreadingType.getStepThreadingTypeByCode( threadingTypeCode );
+    }
+    if ( transMeta != null && transMeta.getStepThreadingType() != null ) {
+      return transMeta.getStepThreadingType();
+    }
+    return StepThreadingType.Platform;
+  }
+
+  /**
+   * Sets the kind of threads the step copies of this transformation (and the transformations it executes) run on,
+   * overriding the setting of the transformation metadata.
+   *
+   * @param stepThreadingType
+   *          the kind of threads to run the step copies on, null to use the transformation setting
+   */
+  public void setStepThreadingType( StepThreadingType stepThreadingType ) {
+    this.stepThreadingType = stepThreadingType;
+  }
+
   @Override
   public boolean isGatheringMetrics() {
     return log != null && log.isGatheringMetrics();
@@ -44,6 +44,7 @@ import org.pentaho.di.core.xml.XMLHandler;
 import org.pentaho.di.repository.RepositoriesMeta;
 import org.pentaho.di.repository.Repository;
 import org.pentaho.di.repository.RepositoryMeta;
+import org.pentaho.di.trans.TransMeta.StepThreadingType;
 import org.pentaho.di.trans.debug.TransDebugMeta;
 import org.w3c.dom.Node;
 
@@ -79,6 +80,7 @@ public class TransExecutionConfiguration implements ExecutionConfiguration {
   private Repository repository;
 
   private boolean gatheringMetrics;
+  private StepThreadingType stepThreadingType;
   private boolean showingSubComponents;
   private boolean setLogfile;
   private boolean setAppendLogfile;
@@ -482,6 +484,9 @@ public class TransExecutionConfiguration implements ExecutionConfiguration {
     xml.append( "    " ).append( XMLHandler.addTagValue( "create_parent_folder", createParentFolder ) );
     xml.append( "    " ).append( XMLHandler.addTagValue( "clear_log", clearingLog ) );
     xml.append( "    " ).append( XMLHandler.addTagValue( "gather_metrics", gatheringMetrics ) );
+    if ( stepThreadingType != null ) {
+      xml.append( "    " ).append( XMLHandler.addTagValue( "step_threading_type", stepThreadingType.getCode() ) );
+    }
     xml.append( "    " ).append( XMLHandler.addTagValue( "show_subcomponents", showingSubComponents ) );
     if ( passedBatchId != null ) {
       xml.append( "    " ).append( XMLHandler.addTagValue( "passedBatchId", passedBatchId ) );
@@ -581,6 +586,9 @@ public class TransExecutionConfiguration implements ExecutionConfiguration {
     createParentFolder = "Y".equalsIgnoreCase( XMLHandler.getTagValue( trecNode, "create_parent_folder" ) );
     clearingLog = "Y".equalsIgnoreCase( XMLHandler.getTagValue( trecNode, "clear_log" ) );
     gatheringMetrics = "Y".equalsIgnoreCase( XMLHandler.getTagValue( trecNode, "gather_metrics" ) );
+    String threadingTypeCode = XMLHandler.getTagValue( trecNode, "step_threading_type" );
+    stepThreadingType =
+      Utils.isEmpty( threadingTypeCode ) ? null : StepThreadingType.getStepThreadingTypeByCode( threadingTypeCode );
     showingSubComponents = "Y".equalsIgnoreCase( XMLHandler.getTagValue( trecNode, "show_subcomponents" ) );
     String sPassedBatchId = XMLHandler.getTagValue( trecNode, "passedBatchId" );
     if ( !StringUtils.isEmpty( sPassedBatchId ) ) {
@@ -747,6 +755,21 @@ public class TransExecutionConfiguration implements ExecutionConfiguration {
     this.gatheringMetrics = gatheringMetrics;
   }
 
+  /**
+   * @return the kind of threads to run the step copies on, or null to use the setting of the transformation
+   */
+  public StepThreadingType getStepThreadingType() {
+    return stepThreadingType;
+  }
+
+  /**
+   * @param stepThreadingType
+   *          the kind of threads to run the step copies on, null to use the setting of the transformation
+   */
+  public void setStepThreadingType( StepThreadingType stepThreadingType ) {
+    this.stepThreadingType = stepThreadingType;
+  }
+
   /**
    * @return the showingSubComponents
    */
@@ -284,6 +284,9 @@ public class TransMeta extends AbstractMeta
    */
   protected boolean usingThreadPriorityManagment;
 
+  /** Whether hops between a single source and a single target step copy use a lock-free row set. */
+  protected boolean usingLockFreeRowSets;
+
   /** The slave-step-copy/partition distribution. Only used for slave transformations in a clustering environment. */
   protected SlaveStepCopyPartitionDistribution slaveStepCopyPartitionDistribution;
 
@@ -320,7 +323,7 @@ public class TransMeta extends AbstractMeta
 
   /**
    * The TransformationType enum describes the various types of transformations in terms of execution, including Normal,
-   * Serial Single-Threaded, and Single-Threaded.
+   * Serial Single-Threaded, Single-Threaded and Work Stealing.
    */
   public enum TransformationType {
 
@@ -333,7 +336,13 @@ public class TransMeta extends AbstractMeta
 
       /** A single-threaded transformation. */
       SingleThreaded( "SingleThreaded", BaseMessages
-        .getString( PKG, "TransMeta.TransformationType.SingleThreaded" ) );
+        .getString( PKG, "TransMeta.TransformationType.SingleThreaded" ) ),
+
+      /**
+       * A transformation whose steps run as tasks on a work-stealing thread pool that is shared by all the
+       * transformations in the JVM.
+       */
+      WorkStealing( "WorkStealing", BaseMessages.getString( PKG, "TransMeta.TransformationType.WorkStealing" ) );
 
     /** The code corresponding to the transformation type. */
     private final String code;
@@ -407,6 +416,94 @@ public class TransMeta extends AbstractMeta
   /** The transformation type. */
   protected TransformationType transformationType;
 
+  /**
+   * The StepThreadingType enum describes the kind of threads the step copies of a normal transformation run on.
+   */
+  public enum StepThreadingType {
+
+    /** Every step copy runs on its own platform (operating system) thread. */
+    Platform( "Platform", BaseMessages.getString( PKG, "TransMeta.StepThreadingType.Platform" ) ),
+
+      /**
+       * Every step copy runs on its own virtual thread. The virtual threads share a small pool of carrier threads, the
+       * size of which can be bounded with the jdk.virtualThreadScheduler.parallelism and
+       * jdk.virtualThreadScheduler.maxPoolSize system properties. Falls back to platform threads when the Java runtime
+       * doesn't support virtual threads.
+       */
+      Virtual( "Virtual", BaseMessages.getString( PKG, "TransMeta.StepThreadingType.Virtual" ) );
+
+    /** The code corresponding to the step threading type. */
+    private final String code;
+
+    /** The description of the step threading type. */
+    private final String description;
+
+    /**
+     * Instantiates a new step threading type.
+     *
+     * @param code
+     *          the code
+     * @param description
+     *          the description
+     */
+    StepThreadingType( String code, String description ) {
+      this.code = code;
+      this.description = description;
+    }
+
+    /**
+     * Gets the code corresponding to the step threading type.
+     *
+     * @return the code
+     */
+    public String getCode() {
+      return code;
+    }
+
+    /**
+     * Gets the description of the step threading type.
+     *
+     * @return the description
+     */
+    public String getDescription() {
+      return description;
+    }
+
+    /**
+     * Gets the step threading type by code.
+     *
+     * @param threadingTypeCode
+     *          the step threading type code
+     * @return the step threading type by code, Platform if the code is unknown
+     */
+    public static StepThreadingType getStepThreadingTypeByCode( String threadingTypeCode ) {
+      if ( threadingTypeCode != null ) {
+        for ( StepThreadingType type : values() ) {
+          if ( type.code.equalsIgnoreCase( threadingTypeCode ) ) {
+            return type;
+          }
+        }
+      }
+      return Platform;
+    }
+
+    /**
+     * Gets the step threading types descriptions.
+     *
+     * @return the step threading types descriptions
+     */
+    public static String[] getStepThreadingTypesDescriptions() {
+      String[] desc = new String[values().length];
+      for ( int i = 0; i < values().length; i++ ) {
+        desc[i] = values()[i].getDescription();
+      }
+      return desc;
+    }
+  }
+
+  /** The kind of threads the step copies run on. */
+  protected StepThreadingType stepThreadingType;
+
   // //////////////////////////////////////////////////////////////////////////
 
   /** A list of localized strings corresponding to string descriptions of the undo/redo actions. */
@@ -741,6 +838,10 @@ public class TransMeta extends AbstractMeta
     //
     usingThreadPriorityManagment = true;
 
+    // Lock-free row sets for 1:1 hops
+    //
+    usingLockFreeRowSets = true;
+
     // The performance monitoring options
     //
     capturingStepPerformanceSnapShots = false;
@@ -751,6 +852,7 @@ public class TransMeta extends AbstractMeta
     loopCache = new HashMap<>();
     previousStepCache = new HashMap<>();
     transformationType = TransformationType.Normal;
+    stepThreadingType = StepThreadingType.Platform;
 
     log = LogChannel.GENERAL;
   }
@@ -2567,6 +2669,8 @@ public class TransMeta extends AbstractMeta
     retval.append( "    " ).append( XMLHandler.addTagValue( "feedback_shown", feedbackShown ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "feedback_size", feedbackSize ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "using_thread_priorities", usingThreadPriorityManagment ) );
+    retval.append( "    " ).append( XMLHandler.addTagValue( "using_lock_free_rowsets", usingLockFreeRowSets ) );
+    retval.append( "    " ).append( XMLHandler.addTagValue( "step_threading_type", stepThreadingType.getCode() ) );
 
     // Performance monitoring
     //
@@ -3680,6 +3784,10 @@ public class TransMeta extends AbstractMeta
         feedbackSize = Const.toInt( XMLHandler.getTagValue( infonode, "feedback_size" ), Const.ROWS_UPDATE );
         usingThreadPriorityManagment =
             !"N".equalsIgnoreCase( XMLHandler.getTagValue( infonode, "using_thread_priorities" ) );
+        usingLockFreeRowSets =
+            !"N".equalsIgnoreCase( XMLHandler.getTagValue( infonode, "using_lock_free_rowsets" ) );
+        stepThreadingType =
+            StepThreadingType.getStepThreadingTypeByCode( XMLHandler.getTagValue( infonode, "step_threading_type" ) );
 
         // Performance monitoring for steps...
         //
@@ -5961,6 +6069,25 @@ public class TransMeta extends AbstractMeta
     this.usingThreadPriorityManagment = usingThreadPriorityManagment;
   }
 
+  /**
+   * Checks whether hops between exactly one source and one target step copy use a lock-free row set.
+   *
+   * @return true if the transformation is using lock-free row sets for 1:1 hops, false otherwise
+   */
+  public boolean isUsingLockFreeRowSets() {
+    return usingLockFreeRowSets;
+  }
+
+  /**
+   * Sets whether hops between exactly one source and one target step copy use a lock-free row set.
+   *
+   * @param usingLockFreeRowSets
+   *          true if the transformation should use lock-free row sets for 1:1 hops, false otherwise
+   */
+  public void setUsingLockFreeRowSets( boolean usingLockFreeRowSets ) {
+    this.usingLockFreeRowSets = usingLockFreeRowSets;
+  }
+
   /**
    * Check a step to see if there are no multiple steps to read from. If so, check to see if the receiving rows are all
    * the same in layout. We only want to ONLY use the DBCache for this to prevent GUI stalls.
@@ -6580,6 +6707,25 @@ public class TransMeta extends AbstractMeta
     this.transformationType = transformationType;
   }
 
+  /**
+   * Gets the kind of threads the step copies of this transformation run on.
+   *
+   * @return the stepThreadingType
+   */
+  public StepThreadingType getStepThreadingType() {
+    return stepThreadingType;
+  }
+
+  /**
+   * Sets the kind of threads the step copies of this transformation run on.
+   *
+   * @param stepThreadingType
+   *          the stepThreadingType to set
+   */
+  public void setStepThreadingType( StepThreadingType stepThreadingType ) {
+    this.stepThreadingType = stepThreadingType;
+  }
+
   /**
    * Utility method to write the XML of this transformation to a file, mostly for testing purposes.
    *
@@ -6764,6 +6910,8 @@ public class TransMeta extends AbstractMeta
         .append( this.isFeedbackShown() )
         .append( this.getFeedbackSize() )
         .append( this.isUsingThreadPriorityManagment() )
+        .append( this.isUsingLockFreeRowSets() )
+        .append( this.getStepThreadingType() )
         .append( this.isCapturingStepPerformanceSnapShots() )
         .append( this.getStepPerformanceCapturingDelay() )
         .append( this.getStepPerformanceCapturingSizeLimit() )
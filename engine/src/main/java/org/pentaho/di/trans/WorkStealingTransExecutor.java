@@ -0,0 +1,394 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.trans;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.RowSet;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.i18n.BaseMessages;
+import org.pentaho.di.trans.TransMeta.TransformationType;
+import org.pentaho.di.trans.step.RunThread;
+import org.pentaho.di.trans.step.StepInterface;
+import org.pentaho.di.trans.step.StepMetaDataCombi;
+import org.pentaho.di.trans.step.errorhandling.StreamInterface;
+
+/**
+ * Runs the steps of a Work Stealing transformation as tasks on a work-stealing thread pool that is shared by all the
+ * transformations in the JVM, instead of giving every step copy its own thread.<br>
+ * <br>
+ * A step copy is scheduled when it is ready: its info steps are finished, its input row sets have rows (or are all
+ * done) and its output row sets have room. It then calls processRow() until it's no longer ready or until it has had
+ * its turn, after which it wakes up the step copies it exchanges rows with. The row sets of these transformations never
+ * block on put so a step never ties up a pool thread waiting for a slow neighbour, the back-pressure comes from the
+ * readiness check instead.<br>
+ * <br>
+ * Only steps that support the single threaded contract (processRow() doesn't wait for rows that aren't there yet) can
+ * run this way. The pool size defaults to the number of available processors and can be changed with the
+ * KETTLE_WORK_STEALING_POOL_SIZE system property.
+ *
+ * @since 11.1
+ */
+public class WorkStealingTransExecutor {
+
+  private static Class<?> PKG = Trans.class; // for i18n purposes, needed by Translator2!!
+
+  /** The maximum number of processRow() calls in one turn, after that the step copy lets the others have a go */
+  static final int ROWS_PER_TURN = 1000;
+
+  /** Idle step copies re-check if they're ready at this interval, this catches rows coming from outside the engine */
+  static final long IDLE_CHECK_INTERVAL_MS = 10L;
+
+  private final Trans trans;
+  private final List<StepTask> tasks;
+  private final AtomicInteger nrActiveTasks;
+  private final ClassLoader contextClassLoader;
+  private final int maxBufferedRows;
+
+  private volatile ScheduledFuture<?> idleCheck;
+
+  /**
+   * The shared pool and timer are only created when the first Work Stealing transformation runs.
+   */
+  private static class Pool {
+    private static final ForkJoinPool POOL = createPool();
+
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor( runnable -> {
+      Thread thread = new Thread( runnable, "Kettle work-stealing idle check" );
+      thread.setDaemon( true );
+      return thread;
+    } );
+
+    private static ForkJoinPool createPool() {
+      int size = Const.toInt( System.getProperty( Const.KETTLE_WORK_STEALING_POOL_SIZE ), -1 );
+      if ( size <= 0 ) {
+        size = Runtime.getRuntime().availableProcessors();
+      }
+      final AtomicInteger threadNr = new AtomicInteger( 0 );
+      ForkJoinPool.ForkJoinWorkerThreadFactory factory = pool -> {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread( pool );
+        thread.setName( "Kettle work-stealing worker-" + threadNr.incrementAndGet() );
+        return thread;
+      };
+      // Async mode: step turns are event-style tasks that are never joined
+      return new ForkJoinPool( size, factory, null, true );
+    }
+  }
+
+  public WorkStealingTransExecutor( Trans trans ) {
+    this.trans = trans;
+    this.tasks = new ArrayList<>();
+    this.nrActiveTasks = new AtomicInteger( 0 );
+    this.contextClassLoader = Thread.currentThread().getContextClassLoader();
+    this.maxBufferedRows = Math.max( 1, trans.getTransMeta().getSizeRowset() );
+  }
+
+  /**
+   * @return the work-stealing pool shared by all Work Stealing transformations in the JVM
+   */
+  public static ForkJoinPool getPool() {
+    return Pool.POOL;
+  }
+
+  /**
+   * Checks whether or not a step can run on the work-stealing pool.
+   *
+   * @param types
+   *          the transformation types the step supports
+   * @return true if the step supports the Work Stealing or Single Threaded transformation type
+   */
+  public static boolean isSupported( TransformationType[] types ) {
+    if ( types != null ) {
+      for ( TransformationType type : types ) {
+        if ( type == TransformationType.WorkStealing || type == TransformationType.SingleThreaded ) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Verifies that all steps can run on the work-stealing pool, then schedules them.
+   *
+   * @throws KettleException
+   *           in case a step doesn't support the Work Stealing transformation type
+   */
+  public void start() throws KettleException {
+    List<StepMetaDataCombi> steps = trans.getSteps();
+    for ( StepMetaDataCombi combi : steps ) {
+      if ( !isSupported( combi.stepMeta.getStepMetaInterface().getSupportedTransformationTypes() ) ) {
+        throw new KettleException( BaseMessages.getString( PKG, "Trans.Exception.StepNotSupportedByWorkStealing",
+          combi.stepname, combi.stepMeta.getStepID() ) );
+      }
+    }
+
+    Map<String, StepTask> taskMap = new HashMap<>();
+    for ( StepMetaDataCombi combi : steps ) {
+      // Sleeping to let the buffers fill up makes no sense on a shared pool thread
+      //
+      combi.step.setUsingThreadPriorityManagment( false );
+
+      StepTask task = new StepTask( combi );
+      tasks.add( task );
+      taskMap.put( getTaskKey( combi.stepname, combi.copy ), task );
+    }
+
+    // Link the step copies that exchange rows so they can wake each other up
+    //
+    for ( RowSet rowSet : trans.getRowsets() ) {
+      StepTask origin = taskMap.get( getTaskKey( rowSet.getOriginStepName(), rowSet.getOriginStepCopy() ) );
+      StepTask destination =
+        taskMap.get( getTaskKey( rowSet.getDestinationStepName(), rowSet.getDestinationStepCopy() ) );
+      if ( origin != null && destination != null && origin != destination ) {
+        origin.neighbours.add( destination );
+        destination.neighbours.add( origin );
+        if ( destination.infoStepNames.contains( rowSet.getOriginStepName() ) ) {
+          // The destination only reads these rows once they're all there, they can't wait for room
+          destination.infoRowSets.add( rowSet );
+          origin.infoOutputRowSets.add( rowSet );
+        }
+      }
+    }
+
+    if ( tasks.isEmpty() ) {
+      return;
+    }
+    nrActiveTasks.set( tasks.size() );
+    idleCheck =
+      Pool.TIMER.scheduleWithFixedDelay( this::wakeAll, IDLE_CHECK_INTERVAL_MS, IDLE_CHECK_INTERVAL_MS,
+        TimeUnit.MILLISECONDS );
+    wakeAll();
+  }
+
+  /**
+   * Waits until a (sub-)transformation is finished. When called from a pool thread the pool is told about it so that it
+   * can add a spare thread, the steps of the (sub-)transformation might need one to make progress.
+   *
+   * @param trans
+   *          the transformation to wait for
+   * @throws KettleException
+   *           in case the wait is interrupted
+   */
+  public static void waitUntilFinished( final Trans trans ) throws KettleException {
+    if ( !( Thread.currentThread() instanceof ForkJoinWorkerThread ) ) {
+      trans.waitUntilFinished();
+      return;
+    }
+    try {
+      ForkJoinPool.managedBlock( new ForkJoinPool.ManagedBlocker() {
+        @Override
+        public boolean block() {
+          trans.waitUntilFinished();
+          return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+          return trans.isFinished();
+        }
+      } );
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new KettleException( e );
+    }
+  }
+
+  private static String getTaskKey( String stepname, int copy ) {
+    return stepname + "." + copy;
+  }
+
+  private void wakeAll() {
+    for ( StepTask task : tasks ) {
+      task.wake();
+    }
+  }
+
+  private void taskFinished() {
+    if ( nrActiveTasks.decrementAndGet() == 0 ) {
+      ScheduledFuture<?> future = idleCheck;
+      if ( future != null ) {
+        future.cancel( false );
+      }
+    }
+  }
+
+  /**
+   * The outcome of one turn of a step copy on the pool.
+   */
+  private enum Turn {
+    /** The step copy is done processing rows */
+    FINISHED,
+    /** The step copy could have continued but let the others have a go */
+    YIELDED,
+    /** The step copy processed rows but now has to wait for its neighbours */
+    IDLE,
+    /** The step copy wasn't ready at all, there's no need to bother its neighbours */
+    WAITING
+  }
+
+  /**
+   * Runs the turns of one step copy. At most one turn of a step copy runs at any given time.
+   */
+  private class StepTask implements Runnable {
+    private final StepMetaDataCombi combi;
+    private final RunThread runThread;
+    private final Set<String> infoStepNames;
+    private final List<RowSet> infoRowSets;
+    private final Set<RowSet> infoOutputRowSets;
+    private final Set<StepTask> neighbours;
+
+    /** True while a turn is queued or running */
+    private final AtomicBoolean scheduled;
+
+    /** True when a neighbour signalled new rows or room since the current turn started */
+    private final AtomicBoolean signalled;
+
+    private boolean started;
+    private volatile boolean finished;
+
+    StepTask( StepMetaDataCombi combi ) {
+      this.combi = combi;
+      this.runThread = new RunThread( combi );
+      this.infoStepNames = new LinkedHashSet<>();
+      for ( StreamInterface stream : combi.stepMeta.getStepMetaInterface().getStepIOMeta().getInfoStreams() ) {
+        if ( stream.getStepname() != null ) {
+          infoStepNames.add( stream.getStepname() );
+        }
+      }
+      this.infoRowSets = new ArrayList<>();
+      this.infoOutputRowSets = Collections.newSetFromMap( new IdentityHashMap<>() );
+      this.neighbours = new LinkedHashSet<>();
+      this.scheduled = new AtomicBoolean( false );
+      this.signalled = new AtomicBoolean( false );
+    }
+
+    void wake() {
+      if ( finished ) {
+        return;
+      }
+      signalled.set( true );
+      if ( scheduled.compareAndSet( false, true ) ) {
+        getPool().execute( this );
+      }
+    }
+
+    @Override
+    public void run() {
+      Thread thread = Thread.currentThread();
+      ClassLoader previousClassLoader = thread.getContextClassLoader();
+      thread.setContextClassLoader( contextClassLoader );
+      try {
+        signalled.set( false );
+        Turn turn = takeTurn();
+        if ( turn == Turn.FINISHED ) {
+          finished = true;
+          runThread.finishProcessing();
+          wakeNeighbours();
+          taskFinished();
+          return;
+        }
+
+        if ( turn != Turn.WAITING ) {
+          wakeNeighbours();
+        }
+        scheduled.set( false );
+        // A neighbour may have signalled us while we were busy, don't lose that wake-up
+        if ( turn == Turn.YIELDED || signalled.get() ) {
+          wake();
+        }
+      } finally {
+        thread.setContextClassLoader( previousClassLoader );
+      }
+    }
+
+    private Turn takeTurn() {
+      StepInterface step = combi.step;
+      try {
+        if ( !started ) {
+          started = true;
+          runThread.startProcessing();
+        }
+        for ( int i = 0; i < ROWS_PER_TURN; i++ ) {
+          if ( !isReady() ) {
+            return i == 0 ? Turn.WAITING : Turn.IDLE;
+          }
+          if ( !step.processRow( combi.meta, combi.data ) || step.isStopped() ) {
+            return Turn.FINISHED;
+          }
+        }
+        return Turn.YIELDED;
+      } catch ( Throwable t ) {
+        runThread.handleFailure( t );
+        return Turn.FINISHED;
+      }
+    }
+
+    /**
+     * @return true if processRow() can be called without having to wait for rows or for room to put rows in
+     */
+    private boolean isReady() {
+      StepInterface step = combi.step;
+      if ( step.isStopped() ) {
+        return true;
+      }
+      if ( step.isPaused() ) {
+        return false;
+      }
+      for ( RowSet rowSet : infoRowSets ) {
+        if ( !rowSet.isDone() ) {
+          return false;
+        }
+      }
+      for ( RowSet rowSet : step.getOutputRowSets() ) {
+        if ( rowSet.size() >= maxBufferedRows && !infoOutputRowSets.contains( rowSet ) ) {
+          return false;
+        }
+      }
+      List<RowSet> inputRowSets = step.getInputRowSets();
+      boolean allDone = true;
+      for ( RowSet rowSet : inputRowSets ) {
+        if ( rowSet.size() > 0 ) {
+          return true;
+        }
+        allDone &= rowSet.isDone();
+      }
+      // No input at all (e.g. a source step) or nothing more will come: processRow() won't wait
+      return allDone;
+    }
+
+    private void wakeNeighbours() {
+      for ( StepTask neighbour : neighbours ) {
+        neighbour.wake();
+      }
+    }
+  }
+}
@@ -340,6 +340,8 @@ public class TransSplitter {
 
     // Priority management
     transMeta.setUsingThreadPriorityManagment( originalTransformation.isUsingThreadPriorityManagment() );
+    transMeta.setUsingLockFreeRowSets( originalTransformation.isUsingLockFreeRowSets() );
+    transMeta.setStepThreadingType( originalTransformation.getStepThreadingType() );
 
     // Unique connections
     transMeta.setUsingUniqueConnections( originalTransformation.isUsingUniqueConnections() );
@@ -31,6 +31,7 @@ import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReadWriteLock;
@@ -55,6 +56,7 @@ import org.pentaho.di.core.logging.LogChannelInterface;
 import org.pentaho.di.core.logging.LogLevel;
 import org.pentaho.di.core.logging.LoggingObjectInterface;
 import org.pentaho.di.core.logging.LoggingObjectType;
+import org.pentaho.di.core.row.RowChunk;
 import org.pentaho.di.core.row.RowDataUtil;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
@@ -238,6 +240,41 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
 
   private final ReentrantReadWriteLock inputRowSetsLock = new ReentrantReadWriteLock();
 
+  /**
+   * The rowset the last row was read from, used to read the rest of a batch from the same rowset
+   */
+  private RowSet lastInputRowSet;
+
+  /**
+   * The maximum number of rows moved in one go by steps using {@link #getRows(int)} and
+   * {@link #putRows(RowMetaInterface, List)}
+   */
+  private int rowBatchSize;
+
+  /**
+   * Whether or not the steps that support it pass rows as columnar chunks, see {@link Const#KETTLE_ROW_CHUNKS}
+   */
+  private Boolean usingRowChunks;
+
+  /**
+   * A row chunk that was received but not yet completely read by {@link #getRow()}
+   */
+  private RowChunk pendingChunk;
+
+  private int pendingChunkIndex;
+
+  /**
+   * The output rowset of which we last checked if its target step accepts row chunks, and the outcome of that check
+   */
+  private RowSet chunkTargetRowSet;
+
+  private boolean chunkTargetSupported;
+
+  /**
+   * Bounds the number of rows waiting as chunks in the chunk target rowset, one permit per row
+   */
+  private Semaphore chunkRowPermits;
+
   /**
    * the rowsets on the output, size() == nr of target steps
    */
@@ -1246,6 +1283,26 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    */
   @Override
   public void putRow( RowMetaInterface rowMeta, Object[] row ) throws KettleStepException {
+    verifyOutputRowMeta( rowMeta );
+    getRowHandler().putRow( rowMeta, row );
+  }
+
+  /**
+   * putRows is used to send a batch of rows to the destination rowset(s). It has the same semantics as calling
+   * {@link #putRow(RowMetaInterface, Object[])} for every row in the list but, when there is a single target rowset,
+   * the whole batch is handed over at once.
+   *
+   * @param rowMeta The row meta-data of the rows
+   * @param rows    The rows to put to the destination rowset(s).
+   * @throws KettleStepException
+   */
+  @Override
+  public void putRows( RowMetaInterface rowMeta, List<Object[]> rows ) throws KettleStepException {
+    verifyOutputRowMeta( rowMeta );
+    getRowHandler().putRows( rowMeta, rows );
+  }
+
+  private void verifyOutputRowMeta( RowMetaInterface rowMeta ) throws KettleStepException {
     if ( rowMeta != null ) {
       if ( !allowEmptyFieldNamesAndTypes ) {
         // check row meta for empty field name (BACKLOG-18004)
@@ -1259,7 +1316,117 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
         }
       }
     }
-    getRowHandler().putRow( rowMeta, row );
+  }
+
+  private void handlePutRows( RowMetaInterface rowMeta, List<Object[]> rows ) throws KettleStepException {
+    // Only the plain case of a single (or no) target rowset without partitioning or custom distribution is done in
+    // one go. Everything else, safe mode included, is handled row by row.
+    //
+    if ( rows.size() <= 1 || paused.get() || stopped.get() || terminator || rowDistribution != null || isInSafeMode()
+      || repartitioning != StepPartitioningMeta.PARTITIONING_METHOD_NONE || outputRowSets.size() > 1 ) {
+      for ( Object[] row : rows ) {
+        putRow( rowMeta, row );
+      }
+      return;
+    }
+
+    waitUntilTransformationIsStarted();
+
+    // call all row listeners...
+    //
+    for ( RowListener listener : rowListeners ) {
+      for ( Object[] row : rows ) {
+        listener.rowWrittenEvent( rowMeta, row );
+      }
+    }
+
+    outputRowSetsLock.readLock().lock();
+    try {
+      // Still update the nr of lines written if there are no more output rowsets
+      //
+      int nrWritten = rows.size();
+      if ( !outputRowSets.isEmpty() ) {
+        RowSet rs = outputRowSets.get( 0 );
+        if ( rows instanceof RowChunk && isRowChunkTarget( rs ) ) {
+          nrWritten = putChunkToRowSet( rs, rowMeta, (RowChunk) rows );
+        } else {
+          nrWritten = putRowsToRowSet( rs, rowMeta, rows );
+        }
+      }
+      synchronized ( statusCountersLock ) {
+        linesWritten += nrWritten;
+      }
+    } finally {
+      outputRowSetsLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * @return the number of rows handed over, less than the number of rows when the step was stopped halfway
+   */
+  private int putRowsToRowSet( RowSet rs, RowMetaInterface rowMeta, List<Object[]> rows ) {
+    RowMetaInterface metaFromRs = rs.getRowMeta();
+    RowMetaInterface toBeSent = metaFromRs == null ? rowMeta.clone() : metaFromRs;
+
+    int nrPut = 0;
+    while ( nrPut < rows.size() ) {
+      nrPut += rs.putRows( toBeSent, nrPut == 0 ? rows : rows.subList( nrPut, rows.size() ) );
+      if ( nrPut < rows.size() && isStopped() && !safeStopped.get() ) {
+        break;
+      }
+    }
+    return nrPut;
+  }
+
+  /**
+   * Checks whether the target step of an output rowset accepts row chunks as a whole.
+   */
+  private boolean isRowChunkTarget( RowSet rs ) {
+    if ( rs != chunkTargetRowSet ) {
+      StepInterface target =
+        trans == null ? null : trans.findStepInterface( rs.getDestinationStepName(), rs.getDestinationStepCopy() );
+      chunkTargetSupported = target != null && target.supportsRowChunks();
+      chunkTargetRowSet = rs;
+      chunkRowPermits = null;
+    }
+    return chunkTargetSupported;
+  }
+
+  /**
+   * @return the number of rows handed over: all rows of the chunk or none when the step was stopped
+   */
+  private int putChunkToRowSet( RowSet rs, RowMetaInterface rowMeta, RowChunk chunk ) {
+    RowMetaInterface metaFromRs = rs.getRowMeta();
+    RowMetaInterface toBeSent = metaFromRs == null ? rowMeta.clone() : metaFromRs;
+
+    // A chunk takes a single slot in the rowset, only let the rowset hold about as many rows as it would otherwise.
+    // The permits for the rows of the chunk are given back when the target step unwraps it.
+    //
+    int sizeRowset = transMeta != null ? transMeta.getSizeRowset() : Const.ROWS_IN_ROWSET;
+    int nrPermits = Math.max( 1, Math.min( chunk.size(), sizeRowset ) );
+    if ( chunkRowPermits == null ) {
+      chunkRowPermits = new Semaphore( Math.max( 1, sizeRowset ) );
+    }
+    Semaphore permits = chunkRowPermits;
+    try {
+      while ( !permits.tryAcquire( nrPermits, Const.TIMEOUT_PUT_MILLIS, TimeUnit.MILLISECONDS ) ) {
+        if ( isStopped() && !safeStopped.get() ) {
+          return 0;
+        }
+      }
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      return 0;
+    }
+
+    Object[] wrapped = chunk.wrap( permits, nrPermits );
+    while ( !rs.putRowWait( toBeSent, wrapped, Const.TIMEOUT_PUT_MILLIS, TimeUnit.MILLISECONDS ) ) {
+      if ( isStopped() && !safeStopped.get() ) {
+        permits.release( nrPermits );
+        return 0;
+      }
+    }
+    return chunk.size();
   }
 
   private void handlePutRow( RowMetaInterface rowMeta, Object[] row ) throws KettleStepException {
@@ -1819,9 +1986,137 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
     return getRowHandler().getRow();
   }
 
+  /**
+   * Reads a batch of rows. This waits for a first row just like {@link #getRow()} does, then adds the rows that are
+   * readily available in the same input rowset, up to the given maximum.
+   *
+   * @param max the maximum number of rows to return
+   * @return a list of at least one row or null if there is no more input.
+   * @throws KettleException
+   */
+  @Override
+  public List<Object[]> getRows( int max ) throws KettleException {
+    return getRowHandler().getRows( max );
+  }
+
+  /**
+   * @return the maximum number of rows to handle in one batch, see {@link Const#KETTLE_ROW_BATCH_SIZE}. In safe mode
+   *         this is always 1 so that every row is read and checked on its own.
+   */
+  protected int getRowBatchSize() {
+    if ( rowBatchSize <= 0 ) {
+      if ( isInSafeMode() ) {
+        rowBatchSize = 1;
+      } else {
+        rowBatchSize = Math.max( 1, Const.toInt( getVariable( Const.KETTLE_ROW_BATCH_SIZE ), Const.ROWS_IN_BATCH ) );
+      }
+    }
+    return rowBatchSize;
+  }
+
+  /**
+   * @return true if the steps that support it should pass rows as columnar chunks, see {@link Const#KETTLE_ROW_CHUNKS}.
+   *         Never in safe mode.
+   */
+  protected boolean isUsingRowChunks() {
+    if ( usingRowChunks == null ) {
+      usingRowChunks = !isInSafeMode() && "Y".equalsIgnoreCase( getVariable( Const.KETTLE_ROW_CHUNKS, "N" ) );
+    }
+    return usingRowChunks;
+  }
+
+  private boolean isInSafeMode() {
+    return trans != null && trans.isSafeModeEnabled();
+  }
+
+  private List<Object[]> handleGetRows( int max ) throws KettleException {
+    lastInputRowSet = null;
+    RowChunk previousChunk = pendingChunk;
+    Object[] first = getRow();
+    if ( first == null ) {
+      return null;
+    }
+
+    // A chunk that just came in is handed over as a whole, the first row we got from it is simply dropped.
+    //
+    if ( pendingChunk != null && pendingChunk != previousChunk && pendingChunk.size() <= max ) {
+      RowChunk chunk = pendingChunk;
+      pendingChunk = null;
+      return chunk;
+    }
+    if ( pendingChunk != null ) {
+      // Hand over the rest of the chunk, starting at the row we just got from it
+      //
+      RowChunk chunk = pendingChunk;
+      int from = pendingChunkIndex - 1;
+      int to = Math.min( chunk.size(), from + Math.max( 1, max ) );
+      pendingChunkIndex = to;
+      if ( to >= chunk.size() ) {
+        pendingChunk = null;
+      }
+      return chunk.selectRows( from, to );
+    }
+
+    RowSet rowSet = lastInputRowSet;
+    int available = max > 1 && rowSet != null && !stopped.get() ? rowSet.size() : 0;
+    if ( available <= 0 ) {
+      List<Object[]> rows = new ArrayList<>( 1 );
+      rows.add( first );
+      return rows;
+    }
+
+    // We're the only reader of this rowset, the rows are there so this doesn't block.
+    //
+    List<Object[]> more = rowSet.getRows( Math.min( max - 1, available ) );
+
+    List<Object[]> rows = new ArrayList<>( more.size() + 1 );
+    rows.add( first );
+    int nrRead = 0;
+    for ( Object[] row : more ) {
+      // Chunks in the middle of a batch are turned into rows, the batch can end up larger than asked for.
+      //
+      RowChunk chunk = RowChunk.unwrap( row );
+      if ( chunk == null ) {
+        rows.add( row );
+        nrRead++;
+      } else {
+        rows.addAll( chunk );
+        nrRead += chunk.size();
+      }
+    }
+    List<Object[]> newRows = rows.subList( 1, rows.size() );
+
+    synchronized ( statusCountersLock ) {
+      linesRead += nrRead;
+    }
+    blockPointer += more.size();
+
+    for ( RowListener listener : rowListeners ) {
+      for ( Object[] row : newRows ) {
+        listener.rowReadEvent( inputRowMeta, row );
+      }
+    }
+
+    return rows;
+  }
+
+  private Object[] nextPendingChunkRow() {
+    Object[] row = pendingChunk.get( pendingChunkIndex++ );
+    if ( pendingChunkIndex >= pendingChunk.size() ) {
+      pendingChunk = null;
+    }
+    return row;
+  }
+
 
   private Object[] handleGetRow() throws KettleException {
 
+    // Rows of a chunk we received earlier come first, these were already counted.
+    //
+    if ( pendingChunk != null && !stopped.get() ) {
+      return nextPendingChunkRow();
+    }
+
     // Are we pausing the step? If so, stall forever...
     //
     while ( paused.get() && !stopped.get() ) {
@@ -1976,6 +2271,20 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
     if ( inputRowMeta == null || prevSteps.length > 1 ) {
       inputRowMeta = inputRowSet.getRowMeta();
     }
+    lastInputRowSet = row != null ? inputRowSet : null;
+
+    // A row chunk sent by a step that knows we support them: hand out its rows one by one.
+    //
+    RowChunk chunk = RowChunk.unwrap( row );
+    if ( chunk != null ) {
+      synchronized ( statusCountersLock ) {
+        linesRead += chunk.size() - 1;
+      }
+      pendingChunk = chunk;
+      pendingChunkIndex = 0;
+      row = nextPendingChunkRow();
+      lastInputRowSet = null;
+    }
 
     if ( row != null ) {
       // OK, before we return the row, let's see if we need to check on mixing
@@ -1986,7 +2295,13 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
       }
 
       for ( RowListener listener : rowListeners ) {
-        listener.rowReadEvent( inputRowMeta, row );
+        if ( chunk != null ) {
+          for ( Object[] chunkRow : chunk ) {
+            listener.rowReadEvent( inputRowMeta, chunkRow );
+          }
+        } else {
+          listener.rowReadEvent( inputRowMeta, row );
+        }
       }
     }
 
@@ -3731,6 +4046,20 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
       && ( lines % getTransMeta().getFeedbackSize() ) == 0;
   }
 
+  /**
+   * Checks the feedback once for a batch of lines.
+   *
+   * @param lines the lines after the batch
+   * @param nrLines the number of lines in the batch
+   * @return true if the batch reached a multiple of the feedback size
+   */
+  protected boolean checkFeedback( long lines, long nrLines ) {
+    long feedbackSize = getTransMeta().getFeedbackSize();
+    return getTransMeta().isFeedbackShown()
+      && ( lines > 0 ) && ( feedbackSize > 0 )
+      && lines / feedbackSize > Math.max( 0L, lines - nrLines ) / feedbackSize;
+  }
+
   /**
    * @return the rowMeta
    */
@@ -4399,6 +4728,14 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
       handlePutRow( rowMeta, row );
     }
 
+    @Override public List<Object[]> getRows( int max ) throws KettleException {
+      return handleGetRows( max );
+    }
+
+    @Override public void putRows( RowMetaInterface rowMeta, List<Object[]> rows ) throws KettleStepException {
+      handlePutRows( rowMeta, rows );
+    }
+
     @Override public void putError( RowMetaInterface rowMeta, Object[] row, long nrErrors, String errorDescriptions,
                                     String fieldNames, String errorCodes ) throws KettleStepException {
       handlePutError( rowMeta, row, nrErrors, errorDescriptions, fieldNames, errorCodes );
@@ -14,6 +14,9 @@
 
 package org.pentaho.di.trans.step;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.pentaho.di.core.RowSet;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleStepException;
@@ -39,6 +42,26 @@ public interface RowHandler {
 
   void putRow( RowMetaInterface rowMeta, Object[] row ) throws KettleStepException;
 
+  /**
+   * Returns at least one row, or null if there is no more input. Handlers that don't support batches simply return the
+   * next row.
+   */
+  default List<Object[]> getRows( int max ) throws KettleException {
+    Object[] row = getRow();
+    if ( row == null ) {
+      return null;
+    }
+    List<Object[]> rows = new ArrayList<>( 1 );
+    rows.add( row );
+    return rows;
+  }
+
+  default void putRows( RowMetaInterface rowMeta, List<Object[]> rows ) throws KettleStepException {
+    for ( Object[] row : rows ) {
+      putRow( rowMeta, row );
+    }
+  }
+
   void putError( RowMetaInterface rowMeta, Object[] row, long nrErrors, String errorDescriptions,
                  String fieldNames, String errorCodes ) throws KettleStepException;
 
@@ -14,6 +14,7 @@
 
 package org.pentaho.di.trans.step;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -293,6 +294,50 @@ public interface StepInterface extends VariableSpace, HasLogChannelInterface {
    */
   Object[] getRow() throws KettleException;
 
+  /**
+   * Put a batch of rows on the destination rowsets. The default implementation simply calls
+   * {@link #putRow(RowMetaInterface, Object[])} for every row.
+   *
+   * @param rowMeta
+   *          The description of the rows
+   * @param rows
+   *          The rows to send to the destination steps
+   */
+  default void putRows( RowMetaInterface rowMeta, List<Object[]> rows ) throws KettleException {
+    for ( Object[] row : rows ) {
+      putRow( rowMeta, row );
+    }
+  }
+
+  /**
+   * Get a batch of rows from the source step(s). At least one row is returned unless there is no more input. The
+   * default implementation returns the single row given by {@link #getRow()}.
+   *
+   * @param max
+   *          the maximum number of rows to return
+   * @return a list of at most max rows or null if there is no more input.
+   */
+  default List<Object[]> getRows( int max ) throws KettleException {
+    Object[] row = getRow();
+    if ( row == null ) {
+      return null;
+    }
+    List<Object[]> rows = new ArrayList<>( 1 );
+    rows.add( row );
+    return rows;
+  }
+
+  /**
+   * Steps that can take a columnar {@link org.pentaho.di.core.row.RowChunk} as a whole from {@link #getRows(int)}
+   * return true. Previous steps then hand over their chunks without turning them into Object[] rows first. The default
+   * is false.
+   *
+   * @return true if this step accepts row chunks
+   */
+  default boolean supportsRowChunks() {
+    return false;
+  }
+
   /**
    * Signal output done to destination steps
    */
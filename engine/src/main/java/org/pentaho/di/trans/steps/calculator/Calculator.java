@@ -20,6 +20,7 @@ import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleFileNotFoundException;
 import org.pentaho.di.core.exception.KettleStepException;
 import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.row.RowChunk;
 import org.pentaho.di.core.row.RowDataUtil;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueDataUtil;
@@ -63,8 +64,8 @@ public class Calculator extends BaseStep implements StepInterface {
     meta = (CalculatorMeta) smi;
     data = (CalculatorData) sdi;
 
-    Object[] r = getRow(); // get row, set busy!
-    if ( r == null ) { // no more input to be expected...
+    List<Object[]> rows = getRows( getRowBatchSize() ); // get rows, set busy!
+    if ( rows == null ) { // no more input to be expected...
       setOutputDone();
       data.clearValuesMetaMapping();
       return false;
@@ -145,38 +146,158 @@ public class Calculator extends BaseStep implements StepInterface {
       for ( int i = 0; i < data.getTempIndexes().length; i++ ) {
         data.getTempIndexes()[i] = tempIndexes.get( i );
       }
-    }
 
-    if ( log.isRowLevel() ) {
-      logRowlevel( BaseMessages.getString( PKG, "Calculator.Log.ReadRow" )
-        + getLinesRead() + " : " + getInputRowMeta().getString( r ) );
+      // Simple arithmetic on Integer and Number fields can be done on whole row chunks at once
+      //
+      data.setChunkCalculation( isUsingRowChunks() && isChunkCalculation() );
+      if ( data.isChunkCalculation() ) {
+        List<Integer> keepIndexes = new ArrayList<>();
+        for ( int i = 0; i < data.getCalcRowMeta().size(); i++ ) {
+          if ( !tempIndexes.contains( i ) ) {
+            keepIndexes.add( i );
+          }
+        }
+        data.setKeepIndexes( keepIndexes.stream().mapToInt( Integer::intValue ).toArray() );
+      }
     }
 
-    try {
-      Object[] row = calcFields( getInputRowMeta(), r );
-      putRow( data.getOutputRowMeta(), row ); // copy row to possible alternate rowset(s).
+    if ( data.isChunkCalculation() && !log.isRowLevel() ) {
+      RowChunk chunk = calcChunk( RowChunk.fromRows( getInputRowMeta(), rows ) );
+      long lineNr = getLinesRead() - rows.size();
+      for ( int r = 0; r < rows.size(); r++ ) {
+        lineNr++;
+        if ( checkFeedback( lineNr ) && log.isBasic() ) {
+          logBasic( BaseMessages.getString( PKG, "Calculator.Log.Linenr", "" + lineNr ) );
+        }
+      }
+      putRows( data.getOutputRowMeta(), chunk );
+      return true;
+    }
 
+    List<Object[]> outputRows = new ArrayList<>( rows.size() );
+    long lineNr = getLinesRead() - rows.size();
+    for ( Object[] r : rows ) {
+      lineNr++;
       if ( log.isRowLevel() ) {
-        logRowlevel( "Wrote row #" + getLinesWritten() + " : " + getInputRowMeta().getString( r ) );
+        logRowlevel( BaseMessages.getString( PKG, "Calculator.Log.ReadRow" )
+          + lineNr + " : " + getInputRowMeta().getString( r ) );
       }
-      if ( checkFeedback( getLinesRead() ) ) {
-        if ( log.isBasic() ) {
-          logBasic( BaseMessages.getString( PKG, "Calculator.Log.Linenr", "" + getLinesRead() ) );
+
+      try {
+        Object[] row = calcFields( getInputRowMeta(), r );
+        outputRows.add( row ); // copy row to possible alternate rowset(s) with the rest of the batch.
+
+        if ( log.isRowLevel() ) {
+          logRowlevel( "Wrote row #" + ( getLinesWritten() + outputRows.size() ) + " : "
+            + getInputRowMeta().getString( r ) );
         }
+        if ( checkFeedback( lineNr ) ) {
+          if ( log.isBasic() ) {
+            logBasic( BaseMessages.getString( PKG, "Calculator.Log.Linenr", "" + lineNr ) );
+          }
+        }
+      } catch ( KettleFileNotFoundException e ) {
+        if ( meta.isFailIfNoFile() ) {
+          putRows( data.getOutputRowMeta(), outputRows );
+          logError( BaseMessages.getString( PKG, "Calculator.Log.NoFile" ) + " : " + e.getFilepath() );
+          setErrors( getErrors() + 1 );
+          return false;
+        }
+      } catch ( KettleException e ) {
+        putRows( data.getOutputRowMeta(), outputRows ); // the rows before this one are fine, pass them on.
+        logError( BaseMessages.getString( PKG, "Calculator.ErrorInStepRunning" + " : " + e.getMessage() ) );
+        throw new KettleStepException( BaseMessages.getString( PKG, "Calculator.ErrorInStepRunning" ), e );
+      }
+    }
+
+    putRows( data.getOutputRowMeta(), outputRows );
+    return true;
+  }
+
+  /**
+   * @return true if all calculations are additions, subtractions, multiplications or divisions of two Integer or two
+   *         Number fields into a field of the same type. These can be calculated on the primitive columns of a chunk.
+   */
+  private boolean isChunkCalculation() {
+    for ( int i = 0; i < meta.getCalculation().length; i++ ) {
+      switch ( meta.getCalculation()[i].getCalcType() ) {
+        case CalculatorMetaFunction.CALC_ADD:
+        case CalculatorMetaFunction.CALC_SUBTRACT:
+        case CalculatorMetaFunction.CALC_MULTIPLY:
+        case CalculatorMetaFunction.CALC_DIVIDE:
+          break;
+        default:
+          return false;
+      }
+      FieldIndexes indexes = data.getFieldIndexes()[i];
+      if ( indexes.indexA < 0 || indexes.indexB < 0 ) {
+        return false;
+      }
+      RowMetaInterface calcRowMeta = data.getCalcRowMeta();
+      int columnType = RowChunk.getColumnType( calcRowMeta.getValueMeta( indexes.indexA ) );
+      if ( columnType == RowChunk.COLUMN_OBJECT
+        || columnType != RowChunk.getColumnType( calcRowMeta.getValueMeta( indexes.indexB ) )
+        || columnType != RowChunk.getColumnType( calcRowMeta.getValueMeta( getInputRowMeta().size() + i ) ) ) {
+        return false;
       }
-    } catch ( KettleFileNotFoundException e ) {
-      if ( meta.isFailIfNoFile() ) {
-        logError( BaseMessages.getString( PKG, "Calculator.Log.NoFile" ) + " : " + e.getFilepath() );
-        setErrors( getErrors() + 1 );
+      // Integer division is left to the row by row calculation, it has its own way of handling a division by zero
+      if ( columnType == RowChunk.COLUMN_LONG
+        && meta.getCalculation()[i].getCalcType() == CalculatorMetaFunction.CALC_DIVIDE ) {
         return false;
       }
-    } catch ( KettleException e ) {
-      logError( BaseMessages.getString( PKG, "Calculator.ErrorInStepRunning" + " : " + e.getMessage() ) );
-      throw new KettleStepException( BaseMessages.getString( PKG, "Calculator.ErrorInStepRunning" ), e );
     }
     return true;
   }
 
+  /**
+   * Calculates all fields for a whole chunk, see {@link #isChunkCalculation()}.
+   *
+   * @param chunk
+   *          the input rows
+   * @return the chunk including the calculations, excluding the temporary values
+   */
+  private RowChunk calcChunk( RowChunk chunk ) {
+    RowChunk calc = chunk.addColumns( data.getCalcRowMeta() );
+    int nrRows = calc.size();
+    for ( int i = 0, index = getInputRowMeta().size(); i < meta.getCalculation().length; i++, index++ ) {
+      int calcType = meta.getCalculation()[i].getCalcType();
+      int indexA = data.getFieldIndexes()[i].indexA;
+      int indexB = data.getFieldIndexes()[i].indexB;
+      if ( calc.getColumnType( index ) == RowChunk.COLUMN_LONG ) {
+        long[] valuesA = calc.getLongs( indexA );
+        long[] valuesB = calc.getLongs( indexB );
+        for ( int r = 0; r < nrRows; r++ ) {
+          if ( calc.isNull( indexA, r ) || calc.isNull( indexB, r ) ) {
+            calc.setNull( index, r );
+          } else if ( calcType == CalculatorMetaFunction.CALC_ADD ) {
+            calc.setLong( index, r, valuesA[r] + valuesB[r] );
+          } else if ( calcType == CalculatorMetaFunction.CALC_SUBTRACT ) {
+            calc.setLong( index, r, valuesA[r] - valuesB[r] );
+          } else {
+            calc.setLong( index, r, valuesA[r] * valuesB[r] );
+          }
+        }
+      } else {
+        double[] valuesA = calc.getDoubles( indexA );
+        double[] valuesB = calc.getDoubles( indexB );
+        for ( int r = 0; r < nrRows; r++ ) {
+          if ( calc.isNull( indexA, r ) || calc.isNull( indexB, r ) ) {
+            calc.setNull( index, r );
+          } else if ( calcType == CalculatorMetaFunction.CALC_ADD ) {
+            calc.setDouble( index, r, valuesA[r] + valuesB[r] );
+          } else if ( calcType == CalculatorMetaFunction.CALC_SUBTRACT ) {
+            calc.setDouble( index, r, valuesA[r] - valuesB[r] );
+          } else if ( calcType == CalculatorMetaFunction.CALC_MULTIPLY ) {
+            calc.setDouble( index, r, valuesA[r] * valuesB[r] );
+          } else {
+            calc.setDouble( index, r, valuesA[r] / valuesB[r] );
+          }
+        }
+      }
+    }
+    return calc.selectColumns( data.getOutputRowMeta(), data.getKeepIndexes() );
+  }
+
   /**
    * @param inputRowMeta
    *          the input row metadata
@@ -660,4 +781,9 @@ public class Calculator extends BaseStep implements StepInterface {
 
     return super.init( smi, sdi );
   }
+
+  @Override
+  public boolean supportsRowChunks() {
+    return isUsingRowChunks();
+  }
 }
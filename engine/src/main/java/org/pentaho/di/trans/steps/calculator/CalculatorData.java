@@ -36,6 +36,9 @@ public class CalculatorData extends BaseStepData implements StepDataInterface {
 
   private int[] tempIndexes;
 
+  private boolean chunkCalculation;
+  private int[] keepIndexes;
+
   private final Map<Integer, ValueMetaInterface> resultMetaMapping;
 
   public CalculatorData() {
@@ -75,6 +78,22 @@ public class CalculatorData extends BaseStepData implements StepDataInterface {
     this.tempIndexes = tempIndexes;
   }
 
+  public boolean isChunkCalculation() {
+    return chunkCalculation;
+  }
+
+  public void setChunkCalculation( boolean chunkCalculation ) {
+    this.chunkCalculation = chunkCalculation;
+  }
+
+  public int[] getKeepIndexes() {
+    return keepIndexes;
+  }
+
+  public void setKeepIndexes( int[] keepIndexes ) {
+    this.keepIndexes = keepIndexes;
+  }
+
   public ValueMetaInterface getValueMetaFor( int resultType, String name ) throws KettlePluginException {
     // don't need any synchronization as data instance belongs only to one step instance
     ValueMetaInterface meta = resultMetaMapping.get( resultType );
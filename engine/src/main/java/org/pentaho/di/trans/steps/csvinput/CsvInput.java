@@ -38,6 +38,7 @@ import org.pentaho.di.core.logging.LogChannelInterface;
 import org.pentaho.di.core.row.RowDataUtil;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.util.ExecutorUtil;
 import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.core.vfs.KettleVFS;
 import org.pentaho.di.i18n.BaseMessages;
@@ -134,8 +135,9 @@ public class CsvInput extends BaseStep implements StepInterface {
     }
 
     // If we are running in parallel, make sure we don't read too much in this step copy...
+    // The memory mapped reader knows the range of rows to read by itself.
     //
-    if ( data.parallel ) {
+    if ( data.parallel && !data.memoryMapped ) {
       if ( data.totalBytesRead >= data.blockToRead ) {
         setOutputDone(); // stop reading
         return false;
@@ -143,7 +145,7 @@ public class CsvInput extends BaseStep implements StepInterface {
     }
 
     try {
-      Object[] outputRowData = readOneRow( false, false ); // get row, set busy!
+      Object[] outputRowData = data.memoryMapped ? readMappedRow() : readOneRow( false, false ); // get row, set busy!
       // no more input to be expected...
       if ( outputRowData == null ) {
         if ( openNextFile() ) {
@@ -291,6 +293,10 @@ public class CsvInput extends BaseStep implements StepInterface {
 
   @Override
   public void dispose( StepMetaInterface smi, StepDataInterface sdi ) {
+    if ( data.mappedReader != null ) {
+      data.mappedReader.close();
+    }
+
     try {
       // Close the previous file...
       //
@@ -348,11 +354,17 @@ public class CsvInput extends BaseStep implements StepInterface {
       }
 
       data.fc = data.fis.getChannel();
-      data.bb = ByteBuffer.allocateDirect( data.preferredBufferSize );
+      if ( data.memoryMapped ) {
+        if ( !openMappedReader( bomSize ) ) {
+          return false; // the rest of the files is read by the other step copies
+        }
+      } else {
+        data.bb = ByteBuffer.allocateDirect( data.preferredBufferSize );
+      }
 
       // If we are running in parallel and we need to skip bytes in the first file, let's do so here.
       //
-      if ( data.parallel ) {
+      if ( data.parallel && !data.memoryMapped ) {
         if ( data.bytesToSkipInFirstFile > 0 ) {
           data.fc.position( data.bytesToSkipInFirstFile );
 
@@ -396,7 +408,9 @@ public class CsvInput extends BaseStep implements StepInterface {
       if ( meta.isHeaderPresent() ) {
         // Standard flat file : skip header
         if ( !data.parallel || data.bytesToSkipInFirstFile <= 0 ) {
-          readOneRow( true, false ); // skip this row.
+          if ( !data.memoryMapped ) {
+            readOneRow( true, false ); // skip this row, the memory mapped reader does this by itself
+          }
           logBasic( BaseMessages.getString( PKG, "CsvInput.Log.HeaderRowSkipped", data.filenames[ data.filenr - 1 ] ) );
           if ( data.fieldsMapping.size() == 0 ) {
             return false;
@@ -419,6 +433,42 @@ public class CsvInput extends BaseStep implements StepInterface {
     }
   }
 
+  /**
+   * Maps the file in memory to read the rows this step copy is responsible for: all rows of the file or, when running
+   * in parallel, the rows that start in the block of this step copy. The rows are parsed in chunks on as many threads
+   * as there are processors.
+   *
+   * @param bomSize the size of the byte order mark at the start of the file
+   * @return false if the file starts after the block of this step copy
+   */
+  private boolean openMappedReader( int bomSize ) throws IOException {
+    long from = 0L;
+    long to = Long.MAX_VALUE;
+    if ( data.parallel ) {
+      long fileOffset = 0L;
+      for ( int i = 0; i < data.filenr; i++ ) {
+        fileOffset += data.fileSizes.get( i );
+      }
+      if ( data.bytesToSkipInFirstFile > 0 ) {
+        from = data.bytesToSkipInFirstFile;
+      }
+      // The last step copy reads up to the end, whatever the rounding of the block size
+      //
+      if ( data.stepNumber < data.totalNumberOfSteps - 1 ) {
+        to = data.endPosition - fileOffset;
+      }
+      if ( to <= from ) {
+        return false;
+      }
+    }
+
+    data.mappedReader =
+      new MappedCsvReader( data.fc, bomSize, from, to, data.delimiter[ 0 ], data.enclosure, data.fieldsMapping.size(),
+        meta.isHeaderPresent(), MappedCsvReader.DEFAULT_CHUNK_SIZE, Runtime.getRuntime().availableProcessors(),
+        ExecutorUtil.getExecutor() );
+    return true;
+  }
+
   protected int getBOMSize( String vfsFilename ) throws Exception {
     int bomSize = 0;
     try ( FileInputStream fis = new FileInputStream( vfsFilename );
@@ -861,6 +911,65 @@ public class CsvInput extends BaseStep implements StepInterface {
     }
   }
 
+  /**
+   * Reads a single row of data from the memory mapped file, the rows are split in fields by the reader already.
+   *
+   * @return a row of data or null if there are no more rows in the file
+   * @throws KettleException
+   */
+  private Object[] readMappedRow() throws KettleException {
+    byte[][] fields = data.mappedReader.nextRow();
+    if ( fields == null ) {
+      return null;
+    }
+
+    Object[] outputRowData = RowDataUtil.allocateRowData( data.outputRowMeta.size() );
+    List<Exception> conversionExceptions = null;
+    List<ValueMetaInterface> exceptionFields = null;
+    for ( int i = 0; i < fields.length; i++ ) {
+      int actualFieldIndex = data.fieldsMapping.fieldMetaIndex( i );
+      if ( actualFieldIndex == FieldsMapping.FIELD_DOES_NOT_EXIST || fields[ i ] == null ) {
+        continue;
+      }
+      if ( meta.isLazyConversionActive() ) {
+        outputRowData[ actualFieldIndex ] = fields[ i ];
+      } else {
+        ValueMetaInterface sourceValueMeta = data.convertRowMeta.getValueMeta( actualFieldIndex );
+        try {
+          outputRowData[ actualFieldIndex ] = sourceValueMeta.convertBinaryStringToNativeType( fields[ i ] );
+        } catch ( KettleValueException e ) {
+          if ( conversionExceptions == null ) {
+            conversionExceptions = new ArrayList<>();
+            exceptionFields = new ArrayList<>();
+          }
+          conversionExceptions.add( e );
+          exceptionFields.add( sourceValueMeta );
+        }
+      }
+    }
+
+    if ( meta.isIncludingFilename() && !Utils.isEmpty( meta.getFilenameField() ) ) {
+      if ( meta.isLazyConversionActive() ) {
+        outputRowData[ data.filenameFieldIndex ] = data.binaryFilename;
+      } else {
+        outputRowData[ data.filenameFieldIndex ] = data.filenames[ data.filenr - 1 ];
+      }
+    }
+
+    if ( data.isAddingRowNumber ) {
+      outputRowData[ data.rownumFieldIndex ] = data.rowNumber++;
+    }
+
+    incrementLinesInput();
+
+    if ( conversionExceptions != null ) {
+      throw new KettleConversionException(
+        "There were " + conversionExceptions.size() + " conversion errors on line " + getLinesInput(),
+        conversionExceptions, exceptionFields, outputRowData );
+    }
+
+    return outputRowData;
+  }
 
   public boolean init( StepMetaInterface smi, StepDataInterface sdi ) {
     meta = (CsvInputMeta) smi;
@@ -909,6 +1018,14 @@ public class CsvInput extends BaseStep implements StepInterface {
         return false;
       }
 
+      // The memory mapped reader looks for single bytes: no multi-byte delimiters, enclosures or encodings.
+      //
+      data.memoryMapped = meta.isMemoryMapped() && data.encodingType == EncodingType.SINGLE
+        && data.delimiter.length == 1 && ( data.enclosure == null || data.enclosure.length == 1 );
+      if ( meta.isMemoryMapped() && !data.memoryMapped ) {
+        logBasic( BaseMessages.getString( PKG, "CsvInput.Log.MemoryMappedNotPossible" ) );
+      }
+
       data.isAddingRowNumber = !Utils.isEmpty( meta.getRowNumField() );
 
       // Handle parallel reading capabilities...
@@ -75,6 +75,9 @@ public class CsvInputData extends BaseStepData implements StepDataInterface {
 
   public FieldsMapping fieldsMapping;
 
+  public boolean memoryMapped;
+  public MappedCsvReader mappedReader;
+
   /**
    * Data class for CsvInput step
    *
@@ -259,6 +262,10 @@ public class CsvInputData extends BaseStepData implements StepDataInterface {
   }
 
   void closeFile() throws KettleException {
+    if ( mappedReader != null ) {
+      mappedReader.close();
+      mappedReader = null;
+    }
     try {
       if ( fc != null ) {
         fc.close();
@@ -0,0 +1,415 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.trans.steps.csvinput;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.exception.KettleFileException;
+
+/**
+ * Reads the rows of a CSV file by mapping it in memory and splitting it in chunks that are parsed on a pool of
+ * threads. The rows are handed out in the order of the file.<br>
+ * <br>
+ * A chunk doesn't know by itself where its first row starts: a newline can be part of an enclosed field. That's why
+ * the enclosures of every chunk are counted first, in parallel as well. If an odd number of enclosures precedes a
+ * chunk, it starts inside an enclosed field. With that knowledge the chunk skips to the first newline outside of an
+ * enclosure and parses all rows that start before the end of the chunk. The last of these rows can end in the next
+ * chunk, which in turn skips it.<br>
+ * <br>
+ * This only works for files where enclosures are balanced: an enclosure in the middle of a field that isn't enclosed
+ * would throw the counting off. Carriage returns and line feeds both end a row, empty lines are skipped.
+ *
+ * @since 11.1
+ */
+public class MappedCsvReader {
+  /** The default size of the chunks a file is split in */
+  public static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+
+  /** The part of the next chunk that is mapped with a chunk at first, for the last row of the chunk */
+  static final int ROW_OVERRUN = 64 * 1024;
+
+  private static final byte CR = '\r';
+  private static final byte LF = '\n';
+  private static final long CR_PATTERN = SwarByteScanner.pattern( CR );
+  private static final long LF_PATTERN = SwarByteScanner.pattern( LF );
+
+  private final FileChannel channel;
+  private final long fileSize;
+  private final long dataStart;
+  private final long endPosition;
+  private final byte delimiter;
+  private final long delimiterPattern;
+  private final boolean hasEnclosure;
+  private final byte enclosure;
+  private final long enclosurePattern;
+  private final int nrFields;
+  private final boolean skipHeader;
+  private final int chunkSize;
+  private final int parallelism;
+  private final Executor executor;
+
+  private final Deque<Future<List<byte[][]>>> chunks;
+  private CompletableFuture<Boolean> nextInEnclosure;
+  private long nextChunkStart;
+  private Iterator<byte[][]> currentRows;
+
+  /**
+   * @param channel     the channel of the file to read
+   * @param dataStart   the position of the data in the file, after a byte order mark
+   * @param from        the rows starting at this position or later are read
+   * @param to          the rows starting before this position are read
+   * @param delimiter   the field delimiter
+   * @param enclosure   the field enclosure or null if the fields aren't enclosed
+   * @param nrFields    the number of fields to keep, the remaining fields of a row are skipped
+   * @param skipHeader  true if the first row of the file is a header row
+   * @param chunkSize   the size of the chunks to parse in parallel
+   * @param parallelism the maximum number of chunks to parse at the same time
+   * @param executor    the executor to parse the chunks with
+   */
+  public MappedCsvReader( FileChannel channel, long dataStart, long from, long to, byte delimiter, byte[] enclosure,
+                          int nrFields, boolean skipHeader, int chunkSize, int parallelism, Executor executor )
+    throws IOException {
+    this.channel = channel;
+    this.fileSize = channel.size();
+    this.dataStart = dataStart;
+    this.endPosition = Math.min( to, fileSize );
+    this.delimiter = delimiter;
+    this.delimiterPattern = SwarByteScanner.pattern( delimiter );
+    this.hasEnclosure = enclosure != null && enclosure.length > 0;
+    this.enclosure = hasEnclosure ? enclosure[ 0 ] : delimiter;
+    this.enclosurePattern = SwarByteScanner.pattern( this.enclosure );
+    this.nrFields = nrFields;
+    this.skipHeader = skipHeader;
+    this.chunkSize = chunkSize;
+    this.parallelism = Math.max( 1, parallelism );
+    this.executor = executor;
+
+    chunks = new ArrayDeque<>();
+    nextChunkStart = Math.max( from, dataStart );
+    nextInEnclosure = CompletableFuture.completedFuture( false );
+
+    // Where do we stand at the start of our range?  The enclosures before it tell us.
+    //
+    for ( long start = dataStart; start < nextChunkStart && hasEnclosure; start += chunkSize ) {
+      nextInEnclosure = addEnclosures( nextInEnclosure, start, Math.min( start + chunkSize, nextChunkStart ) );
+    }
+  }
+
+  /**
+   * @return the fields of the next row, null once all rows in the range are read. Fields that are not in the row are
+   * null.
+   * @throws KettleException in case the file can't be read
+   */
+  public byte[][] nextRow() throws KettleException {
+    while ( currentRows == null || !currentRows.hasNext() ) {
+      submitChunks();
+      Future<List<byte[][]>> chunk = chunks.poll();
+      if ( chunk == null ) {
+        return null;
+      }
+      currentRows = getRows( chunk ).iterator();
+    }
+    return currentRows.next();
+  }
+
+  /**
+   * Stops parsing the chunks that are still pending.
+   */
+  public void close() {
+    for ( Future<List<byte[][]>> chunk : chunks ) {
+      chunk.cancel( true );
+    }
+    chunks.clear();
+    currentRows = null;
+    nextChunkStart = endPosition;
+  }
+
+  private void submitChunks() {
+    while ( chunks.size() < parallelism && nextChunkStart < endPosition ) {
+      final long start = nextChunkStart;
+      final long end = Math.min( start + chunkSize, endPosition );
+      chunks.add( nextInEnclosure.thenApplyAsync( inEnclosure -> parseChunk( start, end, inEnclosure ), executor ) );
+      if ( hasEnclosure ) {
+        nextInEnclosure = addEnclosures( nextInEnclosure, start, end );
+      }
+      nextChunkStart = end;
+    }
+  }
+
+  private CompletableFuture<Boolean> addEnclosures( CompletableFuture<Boolean> inEnclosure, long start, long end ) {
+    CompletableFuture<Integer> count = CompletableFuture.supplyAsync( () -> countEnclosures( start, end ), executor );
+    return inEnclosure.thenCombine( count, ( in, enclosures ) -> in ^ ( ( enclosures & 1 ) == 1 ) );
+  }
+
+  private List<byte[][]> getRows( Future<List<byte[][]>> chunk ) throws KettleException {
+    try {
+      return chunk.get();
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new KettleException( "Interrupted while reading the file", e );
+    } catch ( ExecutionException e ) {
+      throw new KettleFileException( "Error reading the file using a memory map", e.getCause() );
+    }
+  }
+
+  private ByteBuffer map( long position, long size ) {
+    try {
+      return SwarByteScanner.prepare( channel.map( FileChannel.MapMode.READ_ONLY, position, size ) );
+    } catch ( IOException e ) {
+      throw new UncheckedIOException( e );
+    }
+  }
+
+  private int countEnclosures( long start, long end ) {
+    ByteBuffer buffer = map( start, end - start );
+    return SwarByteScanner.count( buffer, 0, buffer.limit(), enclosurePattern );
+  }
+
+  /**
+   * Parses the rows that start in [start, end[. The chunk is mapped with a part of the next chunk, for the last row
+   * that runs into it. A row that runs past the mapped part is parsed again from a mapping that starts at the row and
+   * has twice the room after the chunk, up to 2GB.
+   */
+  private List<byte[][]> parseChunk( long start, long end, boolean inEnclosure ) {
+    // We look at the byte before the chunk as well to know if we're at the start of a row
+    //
+    long base = start > dataStart ? start - 1 : start;
+    int overrun = ROW_OVERRUN;
+    ByteBuffer buffer = map( base, mapSize( base, end, overrun ) );
+    int limit = buffer.limit();
+
+    int position;
+    boolean skipRow = false;
+    if ( start == dataStart ) {
+      position = skipNewlines( buffer, 0, limit );
+      skipRow = skipHeader;
+    } else if ( !inEnclosure && isNewline( buffer.get( 0 ) ) ) {
+      position = skipNewlines( buffer, 1, limit );
+    } else {
+      position = nextRowStart( buffer, 1, limit, inEnclosure );
+    }
+
+    if ( position >= end - base && !skipRow ) {
+      return Collections.emptyList();
+    }
+    List<byte[][]> rows = new ArrayList<>( (int) Math.max( 16, ( end - base - position ) / 64 ) );
+    while ( position < limit && ( position < end - base || skipRow ) ) {
+      int next = parseRow( buffer, position, limit, base + limit >= fileSize, skipRow ? null : rows );
+      if ( next >= 0 ) {
+        position = next;
+        skipRow = false;
+        continue;
+      }
+
+      // The row runs past the mapped part of the file: map again from the start of the row with more room
+      //
+      if ( position == 0 && limit == Integer.MAX_VALUE ) {
+        throw new UncheckedIOException( new IOException(
+          "No end of row found within 2GB, or the enclosures in the file are not balanced" ) );
+      }
+      base += position;
+      overrun = (int) Math.min( 2L * overrun, Integer.MAX_VALUE );
+      buffer = map( base, mapSize( base, end, overrun ) );
+      limit = buffer.limit();
+      position = 0;
+    }
+    return rows;
+  }
+
+  /**
+   * @return the size to map from base: up to the end of the chunk and overrun bytes more, within the file and 2GB
+   */
+  private long mapSize( long base, long end, int overrun ) {
+    return Math.min( fileSize - base, Math.min( end - base + overrun, Integer.MAX_VALUE ) );
+  }
+
+  /**
+   * Parses a single row that starts at the given position.
+   *
+   * @param lastMap true if the buffer maps the file up to its end
+   * @param rows    the list to add the row to, null to skip the row
+   * @return the position of the next row, -1 if the row runs past the end of the buffer and the file doesn't end there
+   */
+  private int parseRow( ByteBuffer buffer, int position, int limit, boolean lastMap, List<byte[][]> rows ) {
+    byte[][] fields = rows == null ? null : new byte[ nrFields ][];
+    int fieldNr = 0;
+    while ( true ) {
+      int stop;
+      byte[] field = null;
+      if ( hasEnclosure && position < limit && buffer.get( position ) == enclosure ) {
+        // An enclosed field: look for the closing enclosure, a doubled enclosure is an escaped one.
+        //
+        int contentStart = position + 1;
+        int closing = contentStart;
+        int escaped = 0;
+        while ( true ) {
+          closing = SwarByteScanner.indexOf( buffer, closing, limit, enclosurePattern, enclosurePattern,
+            enclosurePattern );
+          if ( closing < 0 ) {
+            if ( !lastMap ) {
+              return -1;
+            }
+            closing = limit;
+            break;
+          }
+          if ( closing + 1 >= limit && !lastMap ) {
+            // Can't tell an escaped enclosure from a closing one
+            return -1;
+          }
+          if ( closing + 1 < limit && buffer.get( closing + 1 ) == enclosure ) {
+            escaped++;
+            closing += 2;
+          } else {
+            break;
+          }
+        }
+        int after = Math.min( closing + 1, limit );
+        stop = endOfField( buffer, after, limit, lastMap );
+        if ( stop < 0 ) {
+          return -1;
+        }
+        if ( fields != null && fieldNr < nrFields ) {
+          field = getEnclosedField( buffer, contentStart, closing, escaped, after, stop );
+        }
+      } else {
+        stop = endOfField( buffer, position, limit, lastMap );
+        if ( stop < 0 ) {
+          return -1;
+        }
+        if ( fields != null && fieldNr < nrFields ) {
+          field = getBytes( buffer, position, stop );
+        }
+      }
+      if ( field != null ) {
+        fields[ fieldNr ] = field;
+      }
+      fieldNr++;
+
+      position = stop;
+      if ( position < limit && buffer.get( position ) == delimiter ) {
+        position++;
+        if ( position < limit ) {
+          continue;
+        }
+        if ( !lastMap ) {
+          return -1;
+        }
+        // A delimiter at the very end of the file: one more empty field
+        //
+        if ( fields != null && fieldNr < nrFields ) {
+          fields[ fieldNr ] = new byte[ 0 ];
+        }
+      }
+      break;
+    }
+    if ( rows != null ) {
+      rows.add( fields );
+    }
+    return skipNewlines( buffer, position, limit );
+  }
+
+  /**
+   * @return the position of the delimiter or newline that ends the field, -1 if there is none in the buffer and the
+   * file doesn't end there
+   */
+  private int endOfField( ByteBuffer buffer, int position, int limit, boolean lastMap ) {
+    int stop = SwarByteScanner.indexOf( buffer, position, limit, delimiterPattern, CR_PATTERN, LF_PATTERN );
+    if ( stop < 0 ) {
+      return lastMap ? limit : -1;
+    }
+    return stop;
+  }
+
+  /**
+   * @return the position right after the first newline that is not enclosed, and the empty lines that follow it
+   */
+  private int nextRowStart( ByteBuffer buffer, int position, int limit, boolean inEnclosure ) {
+    long quotePattern = hasEnclosure ? enclosurePattern : LF_PATTERN;
+    while ( position < limit ) {
+      int found = SwarByteScanner.indexOf( buffer, position, limit, quotePattern, CR_PATTERN, LF_PATTERN );
+      if ( found < 0 ) {
+        return limit;
+      }
+      byte b = buffer.get( found );
+      if ( isNewline( b ) ) {
+        if ( !inEnclosure ) {
+          return skipNewlines( buffer, found, limit );
+        }
+      } else {
+        inEnclosure = !inEnclosure;
+      }
+      position = found + 1;
+    }
+    return limit;
+  }
+
+  private static int skipNewlines( ByteBuffer buffer, int position, int limit ) {
+    while ( position < limit && isNewline( buffer.get( position ) ) ) {
+      position++;
+    }
+    return position;
+  }
+
+  private static boolean isNewline( byte b ) {
+    return b == CR || b == LF;
+  }
+
+  /**
+   * Copies [from, to[ out of the buffer. The buffer is mapped for a single chunk so we're free to move its position.
+   */
+  private static byte[] getBytes( ByteBuffer buffer, int from, int to ) {
+    byte[] bytes = new byte[ to - from ];
+    buffer.position( from );
+    buffer.get( bytes );
+    return bytes;
+  }
+
+  /**
+   * @return the content between the enclosures with the escaped enclosures replaced, followed by whatever comes after
+   * the closing enclosure
+   */
+  private byte[] getEnclosedField( ByteBuffer buffer, int from, int closing, int escaped, int after, int stop ) {
+    if ( escaped == 0 && after == stop ) {
+      return getBytes( buffer, from, closing );
+    }
+    byte[] bytes = new byte[ closing - from - escaped + stop - after ];
+    int index = 0;
+    for ( int i = from; i < closing; i++ ) {
+      byte b = buffer.get( i );
+      bytes[ index++ ] = b;
+      if ( b == enclosure ) {
+        i++; // skip the second enclosure
+      }
+    }
+    for ( int i = after; i < stop; i++ ) {
+      bytes[ index++ ] = buffer.get( i );
+    }
+    return bytes;
+  }
+}
@@ -0,0 +1,105 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.trans.steps.csvinput;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Looks for bytes in a buffer eight at a time: a long is read from the buffer and all of its bytes are compared with
+ * the byte we look for in a handful of arithmetic operations (SIMD within a register). The buffers have to be in
+ * little endian order so the first byte of the buffer ends up in the lowest byte of the long.
+ *
+ * @since 11.1
+ */
+final class SwarByteScanner {
+  private static final long ONES = 0x0101010101010101L;
+  private static final long LOW_BITS = 0x7f7f7f7f7f7f7f7fL;
+
+  private SwarByteScanner() {
+  }
+
+  /**
+   * @param buffer the buffer to scan
+   * @return the buffer, in the byte order the scanner expects
+   */
+  static ByteBuffer prepare( ByteBuffer buffer ) {
+    return buffer.order( ByteOrder.LITTLE_ENDIAN );
+  }
+
+  /**
+   * @param b the byte to look for
+   * @return the byte repeated in every byte of a long
+   */
+  static long pattern( byte b ) {
+    return ( b & 0xffL ) * ONES;
+  }
+
+  /**
+   * Sets the high bit of every byte of the word that is equal to the byte of the pattern and clears all other bits.
+   * Unlike the usual "has zero byte" trick there are no false positives: no carry crosses a byte boundary.
+   */
+  static long matches( long word, long pattern ) {
+    long x = word ^ pattern;
+    return ~( ( ( x & LOW_BITS ) + LOW_BITS ) | x | LOW_BITS );
+  }
+
+  /**
+   * Finds the first byte in [from, to[ that is equal to one of the bytes of the three patterns. Pass the same pattern
+   * more than once to look for fewer bytes.
+   *
+   * @return the index of the byte or -1 if there is no such byte
+   */
+  static int indexOf( ByteBuffer buffer, int from, int to, long pattern1, long pattern2, long pattern3 ) {
+    int index = from;
+    while ( index + Long.BYTES <= to ) {
+      long word = buffer.getLong( index );
+      long found = matches( word, pattern1 ) | matches( word, pattern2 ) | matches( word, pattern3 );
+      if ( found != 0 ) {
+        return index + ( Long.numberOfTrailingZeros( found ) >>> 3 );
+      }
+      index += Long.BYTES;
+    }
+    byte b1 = (byte) pattern1;
+    byte b2 = (byte) pattern2;
+    byte b3 = (byte) pattern3;
+    for ( ; index < to; index++ ) {
+      byte b = buffer.get( index );
+      if ( b == b1 || b == b2 || b == b3 ) {
+        return index;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @return the number of bytes in [from, to[ that are equal to the byte of the pattern
+   */
+  static int count( ByteBuffer buffer, int from, int to, long pattern ) {
+    int count = 0;
+    int index = from;
+    while ( index + Long.BYTES <= to ) {
+      count += Long.bitCount( matches( buffer.getLong( index ), pattern ) );
+      index += Long.BYTES;
+    }
+    byte b = (byte) pattern;
+    for ( ; index < to; index++ ) {
+      if ( buffer.get( index ) == b ) {
+        count++;
+      }
+    }
+    return count;
+  }
+}
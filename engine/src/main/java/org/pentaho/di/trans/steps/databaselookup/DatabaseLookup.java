@@ -14,14 +14,26 @@
 
 package org.pentaho.di.trans.steps.databaselookup;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
 import com.google.common.annotations.VisibleForTesting;
 import org.pentaho.di.core.Const;
+import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.cache.SharedCache;
+import org.pentaho.di.core.cache.SharedCacheManager;
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.database.DatabaseMeta;
 import org.pentaho.di.core.exception.KettleDatabaseException;
@@ -71,8 +83,44 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
    */
   @VisibleForTesting
   synchronized Object[] lookupValues( RowMetaInterface inputRowMeta, Object[] row ) throws KettleException {
-    Object[] outputRow = RowDataUtil.resizeArray( row, data.outputRowMeta.size() );
+    Object[] lookupRow = getLookupRow( inputRowMeta, row );
+
+    Object[] add;
+    boolean cacheNow = false;
+    boolean cacheHit = false;
+
+    // First, check if we looked up before
+    if ( meta.isCached() ) {
+      add = data.cache.getRowFromCache( data.lookupMeta, lookupRow );
+      if ( add != null ) {
+        cacheHit = true;
+      }
+    } else {
+      add = null;
+    }
+
+    if ( add == null && ( !isAllDataInCache() || data.hasDBCondition ) ) {
+      // do not go to the database when all rows are in (exception LIKE operator)
+      if ( log.isRowLevel() ) {
+        logRowlevel( BaseMessages.getString( PKG, "DatabaseLookup.Log.AddedValuesToLookupRow1" )
+          + meta.getStreamKeyField1().length
+          + BaseMessages.getString( PKG, "DatabaseLookup.Log.AddedValuesToLookupRow2" )
+          + data.lookupMeta.getString( lookupRow ) );
+      }
+
+      data.db.setValuesLookup( data.lookupMeta, lookupRow );
+      add = data.db.getLookup( meta.isFailingOnMultipleResults() );
+      cacheNow = true;
+    }
 
+    return addLookupResult( inputRowMeta, row, lookupRow, add, cacheHit, cacheNow,
+      cacheNow ? data.db.getReturnRowMeta() : null );
+  }
+
+  /**
+   * @return the key values of the row, converted to the types of the key fields in the lookup table
+   */
+  private Object[] getLookupRow( RowMetaInterface inputRowMeta, Object[] row ) throws KettleException {
     Object[] lookupRow = new Object[ data.lookupMeta.size() ];
     int lookupIndex = 0;
 
@@ -111,35 +159,18 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
         lookupIndex++;
       }
     }
+    return lookupRow;
+  }
 
-    Object[] add;
-    boolean cacheNow = false;
-    boolean cacheHit = false;
-
-    // First, check if we looked up before
-    if ( meta.isCached() ) {
-      add = data.cache.getRowFromCache( data.lookupMeta, lookupRow );
-      if ( add != null ) {
-        cacheHit = true;
-      }
-    } else {
-      add = null;
-    }
-
-    if ( add == null && ( !( meta.isCached() && meta.isLoadingAllDataInCache() ) || data.hasDBCondition ) ) {
-      // do not go to the database when all rows are in (exception LIKE operator)
-      if ( log.isRowLevel() ) {
-        logRowlevel( BaseMessages.getString( PKG, "DatabaseLookup.Log.AddedValuesToLookupRow1" )
-          + meta.getStreamKeyField1().length
-          + BaseMessages.getString( PKG, "DatabaseLookup.Log.AddedValuesToLookupRow2" )
-          + data.lookupMeta.getString( lookupRow ) );
-      }
-
-      data.db.setValuesLookup( data.lookupMeta, lookupRow );
-      add = data.db.getLookup( meta.isFailingOnMultipleResults() );
-      cacheNow = true;
-    }
-
+  /**
+   * Adds the looked up values, or the default values if nothing was found, to the row.
+   *
+   * @param returnedRowMeta the metadata of the values returned by the database
+   * @return the output row or null if the row is eaten or sent to the error handling
+   */
+  private Object[] addLookupResult( RowMetaInterface inputRowMeta, Object[] row, Object[] lookupRow, Object[] add,
+    boolean cacheHit, boolean cacheNow, RowMetaInterface returnedRowMeta ) throws KettleException {
+    Object[] outputRow = RowDataUtil.resizeArray( row, data.outputRowMeta.size() );
 
     if ( add == null ) { // nothing was found, unknown code: add default values
       if ( meta.isEatingRowOnLookupFailure() ) {
@@ -181,7 +212,7 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
         // that should not be a problem.
         //
         for ( int i = 0; i < types.length; i++ ) {
-          ValueMetaInterface returned = data.db.getReturnRowMeta().getValueMeta( i );
+          ValueMetaInterface returned = returnedRowMeta.getValueMeta( i );
           ValueMetaInterface expected = data.returnMeta.getValueMeta( i );
 
           if ( returned != null && types[ i ] > 0 && types[ i ] != returned.getType() ) {
@@ -195,7 +226,7 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
     // Store in cache if we need to!
     // If we already loaded all data into the cache, storing more makes no sense.
     //
-    if ( meta.isCached() && cacheNow && !meta.isLoadingAllDataInCache() && data.allEquals ) {
+    if ( meta.isCached() && cacheNow && !isAllDataInCache() && data.allEquals ) {
       data.cache.storeRowInCache( meta, data.lookupMeta, lookupRow, add );
     }
 
@@ -237,6 +268,11 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
         ValueMetaInterface key = fields.searchValueMeta( keyFields[ i ] );
         if ( key != null ) {
           data.keytypes[ i ] = key.getType();
+          if ( key.getType() == ValueMetaInterface.TYPE_STRING && ( !meta.getDatabaseMeta().isStringComparisonExact()
+            || key.getOriginalColumnType() == Types.CHAR || key.getOriginalColumnType() == Types.NCHAR ) ) {
+            // Padded or case insensitive keys come back different from the ones looked up
+            data.exactKeyComparison = false;
+          }
         } else {
           throw new KettleStepException( BaseMessages.getString(
             PKG, "DatabaseLookup.ERROR0001.FieldRequired5.Exception" )
@@ -347,6 +383,9 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
   public boolean processRow( StepMetaInterface smi, StepDataInterface sdi ) throws KettleException {
     Object[] r = getRow(); // Get row from input rowset & set row busy!
     if ( r == null ) { // no more input to be expected...
+      if ( data.batchRows != null && !data.batchRows.isEmpty() && !lookupBatch() ) {
+        return false;
+      }
       setOutputDone();
       return false;
     }
@@ -405,7 +444,21 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
       }
 
       if ( meta.isCached() ) {
-        data.cache = DefaultCache.newCache( data, meta.getCacheSize() );
+        if ( data.sharingCache ) {
+          SharedCache<RowMetaAndData, Object[]> sharedCache = SharedCacheManager.getInstance().getCache(
+            getSharedCacheName(), this, ( key, value ) -> SharedCache.estimateSize( key )
+              + SharedCache.estimateSize( value ) );
+          if ( sharedCache == null ) {
+            logMinimal( BaseMessages.getString( PKG, "DatabaseLookup.Log.NoRoomForSharedCache" ) );
+            data.sharingCache = false;
+          } else {
+            logBasic( BaseMessages.getString( PKG, "DatabaseLookup.Log.SharedCache", sharedCache.getStats() ) );
+            data.cache = new SharedLookupCache( sharedCache );
+          }
+        }
+        if ( !data.sharingCache ) {
+          data.cache = DefaultCache.newCache( data, meta.getCacheSize() );
+        }
       }
 
       determineFieldsTypesQueryingDb();
@@ -419,7 +472,25 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
       // If the user selected to load all data into the cache at startup, that's what we do now...
       //
       if ( meta.isCached() && meta.isLoadingAllDataInCache() ) {
-        loadAllTableDataIntoTheCache();
+        if ( data.sharingCache ) {
+          // The first copy or transformation loads the data, the others find it in the cache
+          SharedCache<RowMetaAndData, Object[]> sharedCache = ( (SharedLookupCache) data.cache ).getSharedCache();
+          synchronized ( sharedCache ) {
+            if ( sharedCache.size() == 0 ) {
+              loadAllTableDataIntoTheCache();
+            }
+          }
+        } else {
+          loadAllTableDataIntoTheCache();
+        }
+      }
+
+      if ( meta.getLookupBatchSize() > 1 ) {
+        if ( isBatchLookupPossible() ) {
+          data.batchRows = new ArrayList<>( meta.getLookupBatchSize() );
+        } else {
+          logBasic( BaseMessages.getString( PKG, "DatabaseLookup.Log.BatchLookupNotPossible" ) );
+        }
       }
     }
 
@@ -428,40 +499,312 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
         + getInputRowMeta().getString( r ) );
     }
 
+    // Collect the rows of a batch, they are looked up together
+    //
+    if ( data.batchRows != null ) {
+      data.batchRows.add( r );
+      if ( data.batchRows.size() >= meta.getLookupBatchSize() ) {
+        return lookupBatch();
+      }
+      return true;
+    }
+
     try {
       // add new lookup values to the row
-      Object[] outputRow = lookupValues( getInputRowMeta(), r );
+      putLookedUpRow( r, lookupValues( getInputRowMeta(), r ) );
+    } catch ( KettleException e ) {
+      return handleLookupError( r, e );
+    }
+
+    return true;
+  }
+
+  private void putLookedUpRow( Object[] r, Object[] outputRow ) throws KettleStepException {
+    if ( outputRow != null ) {
+      // copy row to output rowset(s);
+      putRow( data.outputRowMeta, outputRow );
+
+      if ( log.isRowLevel() ) {
+        logRowlevel( BaseMessages.getString( PKG, "DatabaseLookup.Log.WroteRowToNextStep" )
+          + getInputRowMeta().getString( r ) );
+      }
+
+      long linesRead = getLinesRead();
+      if ( checkFeedback( linesRead ) ) {
+        logBasic( "linenr " + linesRead );
+      }
+    }
+  }
+
+  /**
+   * @return false if the step needs to stop
+   */
+  private boolean handleLookupError( Object[] r, KettleException e ) throws KettleStepException {
+    if ( getStepMeta().isDoingErrorHandling() ) {
+      putError( getInputRowMeta(), r, 1, e.getMessage(), null, "DBLOOKUPD001" );
+      return true;
+    }
+    logError( BaseMessages.getString( PKG, "DatabaseLookup.ERROR003.UnexpectedErrorDuringProcessing" )
+      + e.getMessage() );
+    setErrors( 1 );
+    stopAll();
+    setOutputDone(); // signal end to receiver(s)
+    return false;
+  }
 
-      if ( outputRow != null ) {
-        // copy row to output rowset(s);
-        putRow( data.outputRowMeta, outputRow );
+  /**
+   * @return true if all the data was loaded in the cache: a key that isn't in the cache isn't in the table either. A
+   *         shared cache can evict entries, missing keys are looked up in the database.
+   */
+  private boolean isAllDataInCache() {
+    return meta.isCached() && meta.isLoadingAllDataInCache() && !data.sharingCache;
+  }
+
+  /**
+   * The name of the shared cache holds everything that determines the cached rows, only the same lookups on the same
+   * database share a cache.
+   *
+   * @return the name of the shared cache of this lookup
+   */
+  String getSharedCacheName() throws KettleException {
+    DatabaseMeta databaseMeta = meta.getDatabaseMeta();
+    StringBuilder name = new StringBuilder( DatabaseLookup.class.getSimpleName() ).append( ':' );
+    name.append( databaseMeta.getURL() ).append( '|' );
+    name.append( databaseMeta.environmentSubstitute( databaseMeta.getUsername() ) ).append( '|' );
+    name.append( databaseMeta.getQuotedSchemaTableCombination( environmentSubstitute( meta.getSchemaName() ),
+      environmentSubstitute( meta.getTablename() ) ) );
+    for ( int i = 0; i < meta.getTableKeyField().length; i++ ) {
+      name.append( '|' ).append( meta.getTableKeyField()[ i ] ).append( ' ' ).append( meta.getKeyCondition()[ i ] );
+    }
+    for ( int i = 0; i < meta.getReturnValueField().length; i++ ) {
+      name.append( '|' ).append( meta.getReturnValueField()[ i ] ).append( ':' )
+        .append( meta.getReturnValueDefaultType()[ i ] ).append( '=' ).append( meta.getReturnValueDefault()[ i ] );
+    }
+    name.append( '|' ).append( Const.NVL( meta.getOrderByClause(), "" ) );
+    name.append( '|' ).append( meta.isFailingOnMultipleResults() );
+    return name.toString();
+  }
+
+  /**
+   * Batches can only be looked up with a list of keys: every condition has to be an equality with a stream field.
+   * The rows found are matched to their keys in Java, so string keys need a database that compares them the same way:
+   * case insensitive collations and CHAR columns that pad the values would leave rows without their lookup result.
+   */
+  private boolean isBatchLookupPossible() {
+    if ( meta.isCached() && meta.isLoadingAllDataInCache() || !data.exactKeyComparison ) {
+      return false;
+    }
+    for ( int i = 0; i < data.conditions.length; i++ ) {
+      if ( data.conditions[ i ] != DatabaseLookupMeta.CONDITION_EQ || data.keynrs[ i ] < 0
+        || data.keynrs2[ i ] >= 0 ) {
+        return false;
+      }
+    }
+    return data.conditions.length > 0;
+  }
+
+  /**
+   * Looks up the collected rows of a batch and passes them on in their original order. The rows that are not in the
+   * cache are looked up with a single query for all their distinct keys.
+   *
+   * @return false if the step needs to stop
+   */
+  private boolean lookupBatch() throws KettleException {
+    List<Object[]> rows = data.batchRows;
+    data.batchRows = new ArrayList<>( meta.getLookupBatchSize() );
 
-        if ( log.isRowLevel() ) {
-          logRowlevel( BaseMessages.getString( PKG, "DatabaseLookup.Log.WroteRowToNextStep" )
-            + getInputRowMeta().getString( r ) );
+    Object[][] lookupRows = new Object[ rows.size() ][];
+    Object[][] adds = new Object[ rows.size() ][];
+    boolean[] cacheHits = new boolean[ rows.size() ];
+    try {
+      Set<RowMetaAndData> keys = new LinkedHashSet<>();
+      for ( int i = 0; i < rows.size(); i++ ) {
+        lookupRows[ i ] = getLookupRow( getInputRowMeta(), rows.get( i ) );
+        if ( meta.isCached() ) {
+          adds[ i ] = data.cache.getRowFromCache( data.lookupMeta, lookupRows[ i ] );
+          cacheHits[ i ] = adds[ i ] != null;
         }
+        if ( !cacheHits[ i ] ) {
+          keys.add( new RowMetaAndData( data.lookupMeta, lookupRows[ i ] ) );
+        }
+      }
 
-        long linesRead = getLinesRead();
-        if ( checkFeedback( linesRead ) ) {
-          logBasic( "linenr " + linesRead );
+      if ( !keys.isEmpty() ) {
+        Map<RowMetaAndData, Object[]> found = lookupKeys( keys );
+        for ( int i = 0; i < rows.size(); i++ ) {
+          if ( !cacheHits[ i ] ) {
+            // Rows with the same key get their own copy, the values are converted in place
+            Object[] add = found.get( new RowMetaAndData( data.lookupMeta, lookupRows[ i ] ) );
+            adds[ i ] = add == null ? null : add.clone();
+          }
         }
       }
     } catch ( KettleException e ) {
-      if ( getStepMeta().isDoingErrorHandling() ) {
-        putError( getInputRowMeta(), r, 1, e.getMessage(), null, "DBLOOKUPD001" );
-      } else {
-        logError( BaseMessages.getString( PKG, "DatabaseLookup.ERROR003.UnexpectedErrorDuringProcessing" )
-          + e.getMessage() );
-        setErrors( 1 );
-        stopAll();
-        setOutputDone(); // signal end to receiver(s)
-        return false;
+      // The whole batch failed
+      for ( Object[] r : rows ) {
+        if ( !handleLookupError( r, e ) ) {
+          return false;
+        }
       }
+      return true;
     }
 
+    for ( int i = 0; i < rows.size(); i++ ) {
+      Object[] r = rows.get( i );
+      try {
+        putLookedUpRow( r, addLookupResult( getInputRowMeta(), r, lookupRows[ i ], adds[ i ], cacheHits[ i ],
+          !cacheHits[ i ], data.batchReturnMeta ) );
+      } catch ( KettleException e ) {
+        if ( !handleLookupError( r, e ) ) {
+          return false;
+        }
+      }
+    }
     return true;
   }
 
+  /**
+   * Looks up the values of a number of keys with as few queries as the database allows, see
+   * {@link DatabaseMeta#getMaxLookupKeys(int, boolean)}.
+   *
+   * @return the first row of values found for every key, in the order of the order by clause
+   */
+  @VisibleForTesting
+  Map<RowMetaAndData, Object[]> lookupKeys( Collection<RowMetaAndData> keys ) throws KettleException {
+    if ( data.maxBatchKeys == 0 ) {
+      int nrKeyFields = meta.getTableKeyField().length;
+      data.maxBatchKeys = Math.min( meta.getLookupBatchSize(),
+        meta.getDatabaseMeta().getMaxLookupKeys( nrKeyFields, nrKeyFields == 1 ) );
+    }
+
+    Map<RowMetaAndData, Object[]> found = new HashMap<>();
+    List<RowMetaAndData> keyList = new ArrayList<>( keys );
+    for ( int start = 0; start < keyList.size(); start += data.maxBatchKeys ) {
+      lookupKeys( keyList.subList( start, Math.min( keyList.size(), start + data.maxBatchKeys ) ), found );
+    }
+    return found;
+  }
+
+  /**
+   * Looks up the values of a number of keys with a single query and adds them to the values found.
+   */
+  private void lookupKeys( List<RowMetaAndData> keys, Map<RowMetaAndData, Object[]> found )
+    throws KettleException {
+    int nrKeyFields = data.lookupMeta.size();
+    RowMetaInterface parameterMeta = new RowMeta();
+    Object[] parameters = new Object[ keys.size() * nrKeyFields ];
+    int index = 0;
+    for ( RowMetaAndData key : keys ) {
+      for ( int i = 0; i < nrKeyFields; i++ ) {
+        parameterMeta.addValueMeta( data.lookupMeta.getValueMeta( i ) );
+        parameters[ index++ ] = key.getData()[ i ];
+      }
+    }
+
+    if ( log.isRowLevel() ) {
+      logRowlevel( BaseMessages.getString( PKG, "DatabaseLookup.Log.LookingUpBatch", keys.size() ) );
+    }
+
+    // Full batches reuse their statement, the last one is usually smaller
+    //
+    PreparedStatement ps;
+    if ( keys.size() == data.maxBatchKeys ) {
+      if ( data.batchStatement == null ) {
+        data.batchStatement = data.db.prepareSQL( getBatchLookupSQL( keys.size() ) );
+      }
+      ps = data.batchStatement;
+    } else {
+      ps = data.db.prepareSQL( getBatchLookupSQL( keys.size() ) );
+    }
+
+    try {
+      ResultSet rs = data.db.openQuery( ps, parameterMeta, parameters );
+      try {
+        RowMetaInterface resultMeta = data.db.getReturnRowMeta();
+        if ( data.batchReturnMeta == null ) {
+          data.batchReturnMeta = new RowMeta();
+          for ( int i = 0; i < data.returnMeta.size(); i++ ) {
+            data.batchReturnMeta.addValueMeta( resultMeta.getValueMeta( nrKeyFields + i ) );
+          }
+        }
+
+        for ( Object[] row = data.db.getRow( rs ); row != null; row = data.db.getRow( rs ) ) {
+          // Map the row back to the key with the types of the lookup
+          //
+          Object[] keyData = new Object[ nrKeyFields ];
+          for ( int i = 0; i < nrKeyFields; i++ ) {
+            ValueMetaInterface keyMeta = data.lookupMeta.getValueMeta( i );
+            ValueMetaInterface returned = resultMeta.getValueMeta( i );
+            keyData[ i ] =
+              keyMeta.getType() == returned.getType() ? row[ i ] : keyMeta.convertData( returned, row[ i ] );
+          }
+          Object[] add = Arrays.copyOfRange( row, nrKeyFields, nrKeyFields + data.returnMeta.size() );
+
+          if ( found.putIfAbsent( new RowMetaAndData( data.lookupMeta, keyData ), add ) != null
+            && meta.isFailingOnMultipleResults() ) {
+            throw new KettleDatabaseException(
+              "Only 1 row was expected as a result of a lookup, and at least 2 were found!" );
+          }
+        }
+      } finally {
+        data.db.closeQuery( rs );
+      }
+    } finally {
+      if ( ps != data.batchStatement ) {
+        data.db.closePreparedStatement( ps );
+      }
+    }
+  }
+
+  /**
+   * Selects the key fields and the return values for a list of keys: "key IN (?, ?, ...)" for a single key field,
+   * "(key1 = ? AND key2 = ?) OR (key1 = ? AND key2 = ?) ..." for composite keys.
+   */
+  @VisibleForTesting
+  String getBatchLookupSQL( int nrKeys ) {
+    DatabaseMeta dbMeta = meta.getDatabaseMeta();
+    String[] keyFields = meta.getTableKeyField();
+
+    StringBuilder sql = new StringBuilder( "SELECT " );
+    for ( int i = 0; i < keyFields.length; i++ ) {
+      if ( i > 0 ) {
+        sql.append( ", " );
+      }
+      sql.append( dbMeta.quoteField( keyFields[ i ] ) );
+    }
+    for ( int i = 0; i < meta.getReturnValueField().length; i++ ) {
+      sql.append( ", " ).append( dbMeta.quoteField( meta.getReturnValueField()[ i ] ) );
+    }
+    sql.append( " FROM " ).append(
+      dbMeta.getQuotedSchemaTableCombination( environmentSubstitute( meta.getSchemaName() ),
+        environmentSubstitute( meta.getTablename() ) ) );
+
+    sql.append( " WHERE " );
+    if ( keyFields.length == 1 ) {
+      sql.append( dbMeta.quoteField( keyFields[ 0 ] ) ).append( " IN ( " );
+      for ( int k = 0; k < nrKeys; k++ ) {
+        sql.append( k > 0 ? ", ?" : "?" );
+      }
+      sql.append( " )" );
+    } else {
+      for ( int k = 0; k < nrKeys; k++ ) {
+        sql.append( k > 0 ? " OR ( " : "( " );
+        for ( int i = 0; i < keyFields.length; i++ ) {
+          if ( i > 0 ) {
+            sql.append( " AND " );
+          }
+          sql.append( dbMeta.quoteField( keyFields[ i ] ) ).append( " = ?" );
+        }
+        sql.append( " )" );
+      }
+    }
+
+    if ( !Utils.isEmpty( meta.getOrderByClause() ) ) {
+      sql.append( " ORDER BY " ).append( meta.getOrderByClause() );
+    }
+    return sql.toString();
+  }
+
   private void loadAllTableDataIntoTheCache() throws KettleException {
     DatabaseMeta dbMeta = meta.getDatabaseMeta();
 
@@ -625,6 +968,9 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
           }
         }
 
+        // Only a cache that finds the rows by their keys can be shared
+        data.sharingCache = meta.isCached() && meta.isSharedCache() && data.allEquals;
+
         return true;
       } catch ( Exception e ) {
         logError( BaseMessages.getString( PKG, "DatabaseLookup.ERROR0004.UnexpectedErrorDuringInit" )
@@ -643,12 +989,27 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
     data = (DatabaseLookupData) sdi;
 
     if ( data.db != null ) {
+      if ( data.batchStatement != null ) {
+        try {
+          data.db.closePreparedStatement( data.batchStatement );
+        } catch ( KettleDatabaseException e ) {
+          logError( e.getMessage() );
+        }
+        data.batchStatement = null;
+      }
       data.db.close();
     }
 
+    if ( data.cache instanceof SharedLookupCache ) {
+      SharedCache<RowMetaAndData, Object[]> sharedCache = ( (SharedLookupCache) data.cache ).getSharedCache();
+      logDetailed( BaseMessages.getString( PKG, "DatabaseLookup.Log.SharedCache", sharedCache.getStats() ) );
+      SharedCacheManager.getInstance().releaseCache( sharedCache );
+    }
+
     // Recover memory immediately, allow in-memory data to be garbage collected
     //
     data.cache = null;
+    data.batchRows = null;
 
     super.dispose( smi, sdi );
   }
@@ -14,6 +14,9 @@
 
 package org.pentaho.di.trans.steps.databaselookup;
 
+import java.sql.PreparedStatement;
+import java.util.List;
+
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.row.RowMetaInterface;
@@ -40,6 +43,13 @@ public class DatabaseLookupData extends BaseStepData implements StepDataInterfac
   public boolean allEquals;
   public int[] conditions;
   public boolean hasDBCondition;
+  public boolean sharingCache; // The cache is shared with other step copies and transformations
+
+  public List<Object[]> batchRows; // The input rows waiting for a batched lookup, null if not batching
+  public PreparedStatement batchStatement; // The statement of a full batch
+  public RowMetaInterface batchReturnMeta; // The returned values of the batched lookups
+  public int maxBatchKeys; // The keys looked up with a single statement, 0 until the first batch
+  public boolean exactKeyComparison = true; // The database matches the keys exactly as they are compared in Java
 
   public DatabaseLookupData() {
     super();
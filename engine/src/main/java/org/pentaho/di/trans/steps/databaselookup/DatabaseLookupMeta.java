@@ -57,6 +57,7 @@ public class DatabaseLookupMeta extends BaseStepMeta implements StepMetaInterfac
   private static final String TAG_CACHE = "cache";
   private static final String TAG_CACHE_LOAD_ALL = "cache_load_all";
   private static final String TAG_CACHE_SIZE = "cache_size";
+  private static final String TAG_CACHE_SHARED = "cache_shared";
   private static final String TAG_CONDITION = "condition";
   private static final String TAG_CONNECTION = "connection";
   private static final String TAG_DEFAULT = "default";
@@ -65,6 +66,7 @@ public class DatabaseLookupMeta extends BaseStepMeta implements StepMetaInterfac
   private static final String TAG_FIELD = "field";
   private static final String TAG_KEY = "key";
   private static final String TAG_LOOKUP = "lookup";
+  private static final String TAG_LOOKUP_BATCH_SIZE = "lookup_batch_size";
   private static final String TAG_LOOKUP_KEY_CONDITION = "lookup_key_condition";
   private static final String TAG_LOOKUP_KEY_FIELD = "lookup_key_field";
   private static final String TAG_LOOKUP_KEY_NAME = "lookup_key_name";
@@ -153,6 +155,12 @@ public class DatabaseLookupMeta extends BaseStepMeta implements StepMetaInterfac
   /** Have the lookup eat the incoming row when nothing gets found */
   private boolean eatingRowOnLookupFailure;
 
+  /** Look up the keys of this many rows with a single query, 0 or 1 looks up every row on its own */
+  private int lookupBatchSize;
+
+  /** Share the cache with the other copies of the step and with the same lookups in other transformations */
+  private boolean sharedCache;
+
   public DatabaseLookupMeta() {
     super(); // allocate BaseStepMeta
   }
@@ -373,6 +381,36 @@ public class DatabaseLookupMeta extends BaseStepMeta implements StepMetaInterfac
     this.failingOnMultipleResults = failOnMultipleResults;
   }
 
+  /**
+   * @return Returns the number of rows looked up with a single query.
+   */
+  public int getLookupBatchSize() {
+    return lookupBatchSize;
+  }
+
+  /**
+   * @param lookupBatchSize
+   *          The number of rows looked up with a single query, 0 or 1 to look up every row on its own.
+   */
+  public void setLookupBatchSize( int lookupBatchSize ) {
+    this.lookupBatchSize = lookupBatchSize;
+  }
+
+  /**
+   * @return Returns true if the cache is shared with the other copies of the step and other transformations.
+   */
+  public boolean isSharedCache() {
+    return sharedCache;
+  }
+
+  /**
+   * @param sharedCache
+   *          true to share the cache with the other copies of the step and the same lookups in other transformations.
+   */
+  public void setSharedCache( boolean sharedCache ) {
+    this.sharedCache = sharedCache;
+  }
+
   @Override
   public void loadXML( Node stepnode, List<DatabaseMeta> databases, IMetaStore metaStore ) throws KettleXMLException {
     streamKeyField1 = null;
@@ -425,6 +463,8 @@ public class DatabaseLookupMeta extends BaseStepMeta implements StepMetaInterfac
       cached = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, TAG_CACHE ) );
       loadingAllDataInCache = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, TAG_CACHE_LOAD_ALL ) );
       cacheSize = Const.toInt( XMLHandler.getTagValue( stepnode, TAG_CACHE_SIZE ), 0 );
+      sharedCache = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, TAG_CACHE_SHARED ) );
+      lookupBatchSize = Const.toInt( XMLHandler.getTagValue( stepnode, TAG_LOOKUP_BATCH_SIZE ), 0 );
       schemaName = XMLHandler.getTagValue( stepnode, TAG_LOOKUP, TAG_SCHEMA );
       tablename = XMLHandler.getTagValue( stepnode, TAG_LOOKUP, TAG_TABLE );
 
@@ -477,6 +517,8 @@ public class DatabaseLookupMeta extends BaseStepMeta implements StepMetaInterfac
     databaseMeta = null;
     cached = false;
     cacheSize = 0;
+    sharedCache = false;
+    lookupBatchSize = 0;
     schemaName = "";
     tablename = BaseMessages.getString( PKG, "DatabaseLookupMeta.Default.TableName" );
 
@@ -523,6 +565,8 @@ public class DatabaseLookupMeta extends BaseStepMeta implements StepMetaInterfac
     retval.append( SPACES4 ).append( XMLHandler.addTagValue( TAG_CACHE, cached ) );
     retval.append( SPACES4 ).append( XMLHandler.addTagValue( TAG_CACHE_LOAD_ALL, loadingAllDataInCache ) );
     retval.append( SPACES4 ).append( XMLHandler.addTagValue( TAG_CACHE_SIZE, cacheSize ) );
+    retval.append( SPACES4 ).append( XMLHandler.addTagValue( TAG_CACHE_SHARED, sharedCache ) );
+    retval.append( SPACES4 ).append( XMLHandler.addTagValue( TAG_LOOKUP_BATCH_SIZE, lookupBatchSize ) );
     retval.append( "    <lookup>" ).append( Const.CR );
     retval.append( SPACES6 ).append( XMLHandler.addTagValue( TAG_SCHEMA, schemaName ) );
     retval.append( SPACES6 ).append( XMLHandler.addTagValue( TAG_TABLE, tablename ) );
@@ -562,6 +606,8 @@ public class DatabaseLookupMeta extends BaseStepMeta implements StepMetaInterfac
       cached = rep.getStepAttributeBoolean( id_step, TAG_CACHE );
       loadingAllDataInCache = rep.getStepAttributeBoolean( id_step, TAG_CACHE_LOAD_ALL );
       cacheSize = (int) rep.getStepAttributeInteger( id_step, TAG_CACHE_SIZE );
+      sharedCache = rep.getStepAttributeBoolean( id_step, TAG_CACHE_SHARED );
+      lookupBatchSize = (int) rep.getStepAttributeInteger( id_step, TAG_LOOKUP_BATCH_SIZE );
       schemaName = rep.getStepAttributeString( id_step, TAG_LOOKUP_SCHEMA );
       tablename = rep.getStepAttributeString( id_step, TAG_LOOKUP_TABLE );
       orderByClause = rep.getStepAttributeString( id_step, TAG_LOOKUP_ORDERBY );
@@ -600,6 +646,8 @@ public class DatabaseLookupMeta extends BaseStepMeta implements StepMetaInterfac
       rep.saveStepAttribute( idTransformation, idStep, TAG_CACHE, cached );
       rep.saveStepAttribute( idTransformation, idStep, TAG_CACHE_LOAD_ALL, loadingAllDataInCache );
       rep.saveStepAttribute( idTransformation, idStep, TAG_CACHE_SIZE, cacheSize );
+      rep.saveStepAttribute( idTransformation, idStep, TAG_CACHE_SHARED, sharedCache );
+      rep.saveStepAttribute( idTransformation, idStep, TAG_LOOKUP_BATCH_SIZE, lookupBatchSize );
       rep.saveStepAttribute( idTransformation, idStep, TAG_LOOKUP_SCHEMA, schemaName );
       rep.saveStepAttribute( idTransformation, idStep, TAG_LOOKUP_TABLE, tablename );
       rep.saveStepAttribute( idTransformation, idStep, TAG_LOOKUP_ORDERBY, orderByClause );
@@ -0,0 +1,51 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.trans.steps.databaselookup;
+
+import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.cache.SharedCache;
+import org.pentaho.di.core.row.RowMetaInterface;
+
+/**
+ * Cache of a {@code DatabaseLookup} step that is shared with the other copies of the step and with the same lookups
+ * in other transformations. Only used when all the conditions are equalities: the rows are found by their keys.
+ *
+ * @since 11.1
+ */
+public class SharedLookupCache implements DatabaseLookupData.Cache {
+  private final SharedCache<RowMetaAndData, Object[]> cache;
+
+  public SharedLookupCache( SharedCache<RowMetaAndData, Object[]> cache ) {
+    this.cache = cache;
+  }
+
+  @Override
+  public Object[] getRowFromCache( RowMetaInterface lookupMeta, Object[] lookupRow ) {
+    return cache.get( new RowMetaAndData( lookupMeta, lookupRow ) );
+  }
+
+  @Override
+  public void storeRowInCache( DatabaseLookupMeta meta, RowMetaInterface lookupMeta, Object[] lookupRow,
+                               Object[] add ) {
+    cache.putIfAbsent( new RowMetaAndData( lookupMeta, lookupRow ), add );
+  }
+
+  /**
+   * @return the shared cache
+   */
+  public SharedCache<RowMetaAndData, Object[]> getSharedCache() {
+    return cache;
+  }
+}
@@ -14,6 +14,7 @@
 
 package org.pentaho.di.trans.steps.dimensionlookup;
 
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
@@ -25,6 +26,8 @@ import java.util.List;
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.cache.SharedCache;
+import org.pentaho.di.core.cache.SharedCacheManager;
 import org.pentaho.di.core.database.DatabaseMeta;
 import org.pentaho.di.core.exception.KettleDatabaseException;
 import org.pentaho.di.core.exception.KettleException;
@@ -56,6 +59,11 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
   private static final int CREATION_METHOD_SEQUENCE = 2;
   private static final int CREATION_METHOD_TABLEMAX = 3;
 
+  /**
+   * The name of the shared cache of the pre-loaded dimensions
+   */
+  static final String SHARED_CACHE_NAME = DimensionLookup.class.getSimpleName();
+
   private int techKeyCreation;
 
   private DimensionLookupMeta meta;
@@ -168,7 +176,7 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
 
       }
 
-      if ( !meta.isUpdate() && meta.isPreloadingCache() ) {
+      if ( meta.isPreloadingCache() ) {
         preloadCache();
       } else {
         // Caching...
@@ -267,54 +275,61 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
     try {
       DatabaseMeta databaseMeta = meta.getDatabaseMeta();
 
-      // tk, version, from, to, natural keys, retrieval fields...
+      // natural keys, tk, version, retrieval fields, from, to
+      // The versions are cached without the natural keys, like the rows returned by the lookup statement.
       //
-      String sql = "SELECT " + databaseMeta.quoteField( meta.getKeyField() );
-      // sql+=", "+databaseMeta.quoteField(meta.getVersionField());
+      String sql = "SELECT ";
       for ( int i = 0; i < meta.getKeyLookup().length; i++ ) {
-        sql += ", " + meta.getKeyLookup()[ i ]; // the natural key field in the table
-      }
-      for ( int i = 0; i < meta.getFieldLookup().length; i++ ) {
-        sql += ", " + meta.getFieldLookup()[ i ]; // the extra fields to retrieve...
+        sql += databaseMeta.quoteField( meta.getKeyLookup()[ i ] ) + ", "; // the natural key field in the table
       }
+      sql += databaseMeta.quoteField( meta.getKeyField() );
+      sql += ", " + databaseMeta.quoteField( meta.getVersionField() );
+      sql += getLookupFieldsSql( databaseMeta ); // the extra fields to retrieve...
       sql += ", " + databaseMeta.quoteField( meta.getDateFrom() ); // extra info in cache
       sql += ", " + databaseMeta.quoteField( meta.getDateTo() ); // extra info in cache
 
       sql += " FROM " + data.schemaTable;
-      logDetailed( "Pre-loading cache by reading from database with: " + Const.CR + sql + Const.CR );
-
-      List<Object[]> rows = data.db.getRows( sql, -1 );
-      RowMetaInterface rowMeta = data.db.getReturnRowMeta();
 
-      data.preloadKeyIndexes = new int[ meta.getKeyLookup().length ];
-      for ( int i = 0; i < data.preloadKeyIndexes.length; i++ ) {
-        data.preloadKeyIndexes[ i ] = rowMeta.indexOfValue( meta.getKeyLookup()[ i ] ); // the field in the table
+      SharedCache<String, PackedDimensionCache> sharedCache = null;
+      if ( meta.isSharedCache() && !meta.isUpdate() ) {
+        sharedCache = SharedCacheManager.getInstance().getCache( SHARED_CACHE_NAME, this,
+          ( key, cache ) -> SharedCache.estimateSize( key ) + cache.getEstimatedSize() );
+        if ( sharedCache == null ) {
+          logMinimal( BaseMessages.getString( PKG, "DimensionLookup.Log.NoRoomForSharedCache" ) );
+        }
       }
-      data.preloadFromDateIndex = rowMeta.indexOfValue( meta.getDateFrom() );
-      data.preloadToDateIndex = rowMeta.indexOfValue( meta.getDateTo() );
-
-      data.preloadCache =
-        new DimensionCache( rowMeta, data.preloadKeyIndexes, data.preloadFromDateIndex, data.preloadToDateIndex );
-      data.preloadCache.setRowCache( rows );
-
-      logDetailed( "Sorting the cache rows..." );
-      data.preloadCache.sortRows();
-      logDetailed( "Sorting of cached rows finished." );
-
-      // Also see what indexes to take to populate the lookup row...
-      // We only ever compare indexes and the lookup date in the cache, the rest is not needed...
-      //
-      data.preloadIndexes = new ArrayList<Integer>();
-      for ( int i = 0; i < meta.getKeyStream().length; i++ ) {
-        int index = data.inputRowMeta.indexOfValue( meta.getKeyStream()[ i ] );
-        if ( index < 0 ) {
-          // Just to be safe...
-          //
-          throw new KettleStepException( BaseMessages.getString(
-            PKG, "DimensionLookup.Exception.KeyFieldNotFound", meta.getFieldStream()[ i ] ) );
+      if ( sharedCache != null ) {
+        // The dimension is read once, the other copies and transformations wait for it and use the same rows.
+        // The cached dimensions are never modified, only evicted to make room for other dimensions.
+        //
+        data.sharedCache = sharedCache;
+        String key = databaseMeta.getURL() + "|" + environmentSubstitute( databaseMeta.getUsername() ) + "|" + sql;
+        synchronized ( sharedCache ) {
+          data.preloadCache = sharedCache.get( key );
+          if ( data.preloadCache == null ) {
+            data.preloadCache = readDimensionCache( sql );
+            if ( !sharedCache.put( key, data.preloadCache ) ) {
+              // The dimension is a single entry, every copy and transformation reads it again
+              logMinimal( BaseMessages.getString( PKG, "DimensionLookup.Log.DimensionLargerThanSharedCache",
+                data.preloadCache.getEstimatedSize() / ( 1024 * 1024 ),
+                sharedCache.getMaximumSize() / ( 1024 * 1024 ) ) );
+            }
+          } else {
+            logDetailed( "Using the pre-loaded cache of another step copy or transformation" );
+          }
+          logDetailed( sharedCache.getStats().toString() );
         }
-        data.preloadIndexes.add( index );
+      } else {
+        data.preloadCache = readDimensionCache( sql );
       }
+      data.preloadFromDateIndex = data.preloadCache.getFromDateIndex();
+      data.preloadToDateIndex = data.preloadCache.getToDateIndex();
+      data.preloadVersion = -1;
+
+      // The rows in the cache are the same as the rows returned by the lookup statement.
+      // The metadata is copied, the type of the technical key can change later on.
+      //
+      data.returnRowMeta = data.preloadCache.getValueRowMeta().clone();
 
       // This is all for now...
     } catch ( Exception e ) {
@@ -322,6 +337,40 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
     }
   }
 
+  /**
+   * Reads the whole dimension table into a packed cache, row by row.
+   *
+   * @return the cache of the dimension
+   */
+  private PackedDimensionCache readDimensionCache( String sql ) throws KettleException {
+    logDetailed( "Pre-loading cache by reading from database with: " + Const.CR + sql + Const.CR );
+
+    int keyCount = meta.getKeyLookup().length;
+    PackedDimensionCache cache = null;
+    ResultSet resultSet = data.db.openQuery( sql );
+    try {
+      RowMetaInterface rowMeta = data.db.getReturnRowMeta();
+      RowMetaInterface keyRowMeta = new RowMeta();
+      RowMetaInterface valueRowMeta = new RowMeta();
+      for ( int i = 0; i < rowMeta.size(); i++ ) {
+        ( i < keyCount ? keyRowMeta : valueRowMeta ).addValueMeta( rowMeta.getValueMeta( i ) );
+      }
+      cache = new PackedDimensionCache( keyRowMeta, valueRowMeta, valueRowMeta.size() - 2, valueRowMeta.size() - 1 );
+
+      for ( Object[] row = data.db.getRow( resultSet ); row != null; row = data.db.getRow( resultSet ) ) {
+        cache.addRow( Arrays.copyOf( row, keyCount ), Arrays.copyOfRange( row, keyCount, rowMeta.size() ) );
+      }
+    } finally {
+      data.db.closeQuery( resultSet );
+    }
+
+    logDetailed( "Sorting the cache rows..." );
+    cache.sortRows();
+    logDetailed( "Sorting of cached rows finished: " + cache.getKeyCount() + " keys, " + cache.size()
+      + " versions, " + cache.getEstimatedSize() + " bytes." );
+    return cache;
+  }
+
   private synchronized Object[] lookupValues( RowMetaInterface rowMeta, Object[] row ) throws KettleException {
     Object[] outputRow = new Object[ data.outputRowMeta.size() ];
 
@@ -342,55 +391,19 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
     //
     valueDate = determineDimensionUpdatedDate( row );
 
-    if ( !meta.isUpdate() && meta.isPreloadingCache() ) {
+    if ( data.preloadCache != null ) {
       // Obtain a result row from the pre-load cache...
       //
-      // Create a row to compare with
-      //
-      RowMetaInterface preloadRowMeta = data.preloadCache.getRowMeta();
-
-      // In this case it's all the same. (simple)
-      //
-      data.returnRowMeta = data.preloadCache.getRowMeta();
-      lookupRowMeta = preloadRowMeta;
-      lookupRow = new Object[ preloadRowMeta.size() ];
-
-      // Assemble the lookup row, convert data if needed...
-      //
-      for ( int i = 0; i < data.preloadIndexes.size(); i++ ) {
-        int from = data.preloadIndexes.get( i ); // Input row index
-        int to = data.preloadCache.getKeyIndexes()[ i ]; // Lookup row index
-
-        // From data type...
-        //
-        ValueMetaInterface fromValueMeta = rowMeta.getValueMeta( from );
-
-        // to date type...
-        //
-        ValueMetaInterface toValueMeta = data.preloadCache.getRowMeta().getValueMeta( to );
-
-        // From value:
-        //
-        Object fromData = row[ from ];
-
-        // To value:
-        //
-        Object toData = toValueMeta.convertData( fromValueMeta, fromData );
-
-        // Set the key in the row...
-        //
-        lookupRow[ to ] = toData;
-      }
-
-      // Also set the lookup date on the "end of date range" (toDate) position
+      // The rows in the cache are the same as the rows returned by the lookup statement.
       //
-      lookupRow[ data.preloadFromDateIndex ] = valueDate;
+      lookupRowMeta = data.preloadCache.getKeyRowMeta();
+      lookupRow = getPreloadKey( rowMeta, row );
 
-      // Look up the row in the pre-load cache...
+      // Look up the version of the key on the lookup date in the pre-load cache...
       //
-      int index = data.preloadCache.lookupRow( lookupRow );
-      if ( index >= 0 ) {
-        returnRow = data.preloadCache.getRow( index );
+      data.preloadVersion = data.preloadCache.lookupRow( lookupRow, valueDate );
+      if ( data.preloadVersion >= 0 ) {
+        returnRow = data.preloadCache.getRow( data.preloadVersion );
       } else {
         returnRow = null; // Nothing found!
       }
@@ -529,6 +542,11 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
         technicalKey =
           dimInsert( data.inputRowMeta, row, technicalKey, true, valueVersion, valueDateFrom, valueDateTo );
 
+        if ( data.preloadCache != null ) {
+          data.preloadCache.addVersion( lookupRow,
+            getPreloadValues( data.inputRowMeta, row, technicalKey, valueVersion, valueDateFrom, valueDateTo ) );
+        }
+
         incrementLinesOutput();
         returnRow = new Object[ data.returnRowMeta.size() ];
         int returnIndex = 0;
@@ -685,7 +703,12 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
             incrementLinesUpdated();
 
             // We need to capture this change in the cache as well...
-            if ( meta.getCacheSize() >= 0 ) {
+            if ( data.preloadCache != null ) {
+              Object[] values = getPreloadValues( rowMeta, row, technicalKey, valueVersion,
+                data.returnRowMeta.getDate( returnRow, data.preloadFromDateIndex ),
+                data.returnRowMeta.getDate( returnRow, data.preloadToDateIndex ) );
+              data.preloadCache.setRow( data.preloadVersion, values );
+            } else if ( meta.getCacheSize() >= 0 ) {
               Object[] values =
                 getCacheValues( rowMeta, row, technicalKey, valueVersion, valueDateFrom, valueDateTo );
               addToCache( lookupRow, values );
@@ -736,7 +759,10 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
           incrementLinesOutput();
 
           // We need to capture this change in the cache as well...
-          if ( meta.getCacheSize() >= 0 ) {
+          if ( data.preloadCache != null ) {
+            data.preloadCache.addVersion( lookupRow,
+              getPreloadValues( rowMeta, row, technicalKey, valueNewVersion, valueDateFrom, valueDateTo ) );
+          } else if ( meta.getCacheSize() >= 0 ) {
             Object[] values =
               getCacheValues( rowMeta, row, technicalKey, valueNewVersion, valueDateFrom, valueDateTo );
             addToCache( lookupRow, values );
@@ -752,6 +778,10 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
            */
           dimPunchThrough( rowMeta, row );
           incrementLinesUpdated();
+
+          if ( data.preloadCache != null ) {
+            punchThroughPreloadCache( rowMeta, row, lookupRow );
+          }
         }
 
         returnRow = new Object[ data.returnRowMeta.size() ];
@@ -841,20 +871,7 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
         + databaseMeta.quoteField( meta.getKeyField() ) + ", "
         + databaseMeta.quoteField( meta.getVersionField() );
 
-    if ( !Utils.isEmpty( meta.getFieldLookup() ) ) {
-      for ( int i = 0; i < meta.getFieldLookup().length; i++ ) {
-        // Don't retrieve the fields without input
-        if ( !Utils.isEmpty( meta.getFieldLookup()[ i ] )
-          && !DimensionLookupMeta.isUpdateTypeWithoutArgument( meta.isUpdate(), meta.getFieldUpdate()[ i ] ) ) {
-          sql += ", " + databaseMeta.quoteField( meta.getFieldLookup()[ i ] );
-
-          if ( !Utils.isEmpty( meta.getFieldStream()[ i ] )
-            && !meta.getFieldLookup()[ i ].equals( meta.getFieldStream()[ i ] ) ) {
-            sql += " AS " + databaseMeta.quoteField( meta.getFieldStream()[ i ] );
-          }
-        }
-      }
-    }
+    sql += getLookupFieldsSql( databaseMeta );
     if ( meta.getCacheSize() >= 0 ) {
       sql +=
         ", " + databaseMeta.quoteField( meta.getDateFrom() ) + ", " + databaseMeta.quoteField( meta.getDateTo() );
@@ -908,6 +925,27 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
     }
   }
 
+  /**
+   * @return the list of the fields to retrieve, starting with a comma, named after the stream fields
+   */
+  private String getLookupFieldsSql( DatabaseMeta databaseMeta ) {
+    String sql = "";
+    if ( !Utils.isEmpty( meta.getFieldLookup() ) ) {
+      for ( int i = 0; i < meta.getFieldLookup().length; i++ ) {
+        // Don't retrieve the fields without input
+        if ( isLookupField( i ) ) {
+          sql += ", " + databaseMeta.quoteField( meta.getFieldLookup()[ i ] );
+
+          if ( !Utils.isEmpty( meta.getFieldStream()[ i ] )
+            && !meta.getFieldLookup()[ i ].equals( meta.getFieldStream()[ i ] ) ) {
+            sql += " AS " + databaseMeta.quoteField( meta.getFieldStream()[ i ] );
+          }
+        }
+      }
+    }
+    return sql;
+  }
+
   protected boolean isAutoIncrement() {
     return techKeyCreation == CREATION_METHOD_AUTOINC;
   }
@@ -1253,6 +1291,12 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
       if ( isDebug() ) {
         logDebug( "Row updated!" );
       }
+
+      // The previous version is closed in the pre-loaded cache as well
+      //
+      if ( data.preloadCache != null && data.preloadVersion >= 0 ) {
+        data.preloadCache.setDateTo( data.preloadVersion, (Date) updateRow[ 0 ] );
+      }
     }
 
     return technicalKey;
@@ -1451,6 +1495,74 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
     data.db.insertRow( data.prepStatementPunchThrough ); // do the actual punch through update
   }
 
+  private boolean isLookupField( int i ) {
+    return !Utils.isEmpty( meta.getFieldLookup()[ i ] )
+      && !DimensionLookupMeta.isUpdateTypeWithoutArgument( meta.isUpdate(), meta.getFieldUpdate()[ i ] );
+  }
+
+  /**
+   * @return the natural key of the row, converted to the data types of the natural key in the pre-loaded cache
+   */
+  private Object[] getPreloadKey( RowMetaInterface rowMeta, Object[] row ) throws KettleValueException {
+    RowMetaInterface keyRowMeta = data.preloadCache.getKeyRowMeta();
+    Object[] key = new Object[ keyRowMeta.size() ];
+    for ( int i = 0; i < data.keynrs.length; i++ ) {
+      ValueMetaInterface valueMeta = rowMeta.getValueMeta( data.keynrs[ i ] );
+      key[ i ] = keyRowMeta.getValueMeta( i ).convertData( valueMeta, row[ data.keynrs[ i ] ] );
+    }
+    return key;
+  }
+
+  /**
+   * The row of a version for the pre-loaded cache, like the row returned by the lookup statement: technical key,
+   * version, lookup fields, date from and date to. The values are converted to the data types of the dimension table.
+   */
+  private Object[] getPreloadValues( RowMetaInterface rowMeta, Object[] row, Long technicalKey, Long valueVersion,
+                                     Date valueDateFrom, Date valueDateTo ) throws KettleValueException {
+    RowMetaInterface valueRowMeta = data.preloadCache.getValueRowMeta();
+    ValueMetaInterface integerMeta = new ValueMetaInteger( meta.getKeyField() );
+    ValueMetaInterface dateMeta = new ValueMetaDate( meta.getDateFrom() );
+
+    Object[] values = new Object[ valueRowMeta.size() ];
+    values[ 0 ] = valueRowMeta.getValueMeta( 0 ).convertData( integerMeta, technicalKey );
+    values[ 1 ] = valueRowMeta.getValueMeta( 1 ).convertData( integerMeta, valueVersion );
+    int index = 2;
+    for ( int i = 0; i < meta.getFieldLookup().length; i++ ) {
+      if ( isLookupField( i ) ) {
+        ValueMetaInterface valueMeta = rowMeta.getValueMeta( data.fieldnrs[ i ] );
+        values[ index ] = valueRowMeta.getValueMeta( index ).convertData( valueMeta, row[ data.fieldnrs[ i ] ] );
+        index++;
+      }
+    }
+    values[ data.preloadFromDateIndex ] =
+      valueRowMeta.getValueMeta( data.preloadFromDateIndex ).convertData( dateMeta, valueDateFrom );
+    values[ data.preloadToDateIndex ] =
+      valueRowMeta.getValueMeta( data.preloadToDateIndex ).convertData( dateMeta, valueDateTo );
+    return values;
+  }
+
+  /**
+   * Changes the punch through fields of all the versions of the natural key in the pre-loaded cache.
+   */
+  private void punchThroughPreloadCache( RowMetaInterface rowMeta, Object[] row, Object[] key )
+    throws KettleValueException {
+    RowMetaInterface valueRowMeta = data.preloadCache.getValueRowMeta();
+    for ( int version : data.preloadCache.getVersions( key ) ) {
+      Object[] values = data.preloadCache.getRow( version );
+      int index = 2;
+      for ( int i = 0; i < meta.getFieldLookup().length; i++ ) {
+        if ( isLookupField( i ) ) {
+          if ( meta.getFieldUpdate()[ i ] == DimensionLookupMeta.TYPE_UPDATE_DIM_PUNCHTHROUGH ) {
+            ValueMetaInterface valueMeta = rowMeta.getValueMeta( data.fieldnrs[ i ] );
+            values[ index ] = valueRowMeta.getValueMeta( index ).convertData( valueMeta, row[ data.fieldnrs[ i ] ] );
+          }
+          index++;
+        }
+      }
+      data.preloadCache.setRow( version, values );
+    }
+  }
+
   /**
    * Keys: - natural key fields Values: - Technical key - lookup fields / extra fields (allows us to compare or
    * retrieve) - Date_from - Date_to
@@ -1727,6 +1839,10 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
         logError( BaseMessages.getString( PKG, "DimensionLookup.Log.ErrorOccurredInProcessing" ) + e.getMessage() );
       }
     }
+    if ( data.sharedCache != null ) {
+      SharedCacheManager.getInstance().releaseCache( data.sharedCache );
+      data.sharedCache = null;
+    }
     super.dispose( smi, sdi );
   }
 }
@@ -18,6 +18,7 @@ import java.sql.PreparedStatement;
 import java.util.Date;
 import java.util.List;
 
+import org.pentaho.di.core.cache.SharedCache;
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.hash.ByteArrayHashMap;
 import org.pentaho.di.core.row.RowMetaInterface;
@@ -74,14 +75,16 @@ public class DimensionLookupData extends BaseDatabaseStepData implements StepDat
 
   public int startDateFieldIndex;
 
-  public int[] preloadKeyIndexes;
-
   public int preloadFromDateIndex;
   public int preloadToDateIndex;
 
-  public DimensionCache preloadCache;
+  public PackedDimensionCache preloadCache;
+  public SharedCache<String, PackedDimensionCache> sharedCache; // The shared pre-loaded dimensions, null if not sharing
 
-  public List<Integer> preloadIndexes;
+  /**
+   * The version of the last row looked up in the pre-loaded cache, -1 if none was found
+   */
+  public int preloadVersion;
 
   public List<Integer> lazyList;
 
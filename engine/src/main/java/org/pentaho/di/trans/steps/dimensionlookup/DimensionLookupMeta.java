@@ -227,6 +227,10 @@ public class DimensionLookupMeta extends BaseDatabaseStepMeta implements StepMet
   @Injection( name = "PRELOAD_CACHE" )
   private boolean preloadingCache;
 
+  /** Share the pre-loaded cache with the other copies of the step and the same lookups in other transformations */
+  @Injection( name = "SHARED_CACHE" )
+  private boolean sharedCache;
+
   public DimensionLookupMeta() {
     super(); // allocate BaseStepMeta
   }
@@ -731,6 +735,7 @@ public class DimensionLookupMeta extends BaseDatabaseStepMeta implements StepMet
 
     cacheSize = 5000;
     preloadingCache = false;
+    sharedCache = false;
   }
 
   @Override
@@ -870,6 +875,7 @@ public class DimensionLookupMeta extends BaseDatabaseStepMeta implements StepMet
 
     retval.append( "      " ).append( XMLHandler.addTagValue( "cache_size", cacheSize ) );
     retval.append( "      " ).append( XMLHandler.addTagValue( "preload_cache", preloadingCache ) );
+    retval.append( "      " ).append( XMLHandler.addTagValue( "shared_cache", sharedCache ) );
 
     retval.append( "      " ).append( XMLHandler.addTagValue( "use_start_date_alternative",
         usingStartDateAlternative ) );
@@ -949,6 +955,7 @@ public class DimensionLookupMeta extends BaseDatabaseStepMeta implements StepMet
 
       cacheSize = Const.toInt( XMLHandler.getTagValue( stepnode, "cache_size" ), -1 );
       preloadingCache = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "preload_cache" ) );
+      sharedCache = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "shared_cache" ) );
       useBatchUpdate = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "useBatch" ) );
 
       usingStartDateAlternative =
@@ -1009,6 +1016,7 @@ public class DimensionLookupMeta extends BaseDatabaseStepMeta implements StepMet
 
       cacheSize = (int) rep.getStepAttributeInteger( id_step, "cache_size" );
       preloadingCache = rep.getStepAttributeBoolean( id_step, "preload_cache" );
+      sharedCache = rep.getStepAttributeBoolean( id_step, "shared_cache" );
       useBatchUpdate = rep.getStepAttributeBoolean( id_step, "useBatch" );
 
       usingStartDateAlternative = rep.getStepAttributeBoolean( id_step, "use_start_date_alternative" );
@@ -1064,6 +1072,7 @@ public class DimensionLookupMeta extends BaseDatabaseStepMeta implements StepMet
 
       rep.saveStepAttribute( id_transformation, id_step, "cache_size", cacheSize );
       rep.saveStepAttribute( id_transformation, id_step, "preload_cache", preloadingCache );
+      rep.saveStepAttribute( id_transformation, id_step, "shared_cache", sharedCache );
       rep.saveStepAttribute( id_transformation, id_step, "useBatch", useBatchUpdate );
 
       rep.saveStepAttribute( id_transformation, id_step, "use_start_date_alternative", usingStartDateAlternative );
@@ -1883,6 +1892,21 @@ public class DimensionLookupMeta extends BaseDatabaseStepMeta implements StepMet
     this.preloadingCache = preloadingCache;
   }
 
+  /**
+   * @return true if the pre-loaded cache is shared with the other copies of the step and other transformations
+   */
+  public boolean isSharedCache() {
+    return sharedCache;
+  }
+
+  /**
+   * @param sharedCache
+   *          true to share the pre-loaded cache with the other copies of the step and other transformations
+   */
+  public void setSharedCache( boolean sharedCache ) {
+    this.sharedCache = sharedCache;
+  }
+
   /**
    * @return the useBatchUpdate
    */
@@ -0,0 +1,413 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.trans.steps.dimensionlookup;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.hash.OffHeapByteArrayHashIndex;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaDate;
+
+/**
+ * A compact cache of all the versions of all the entries of a dimension, filled by reading the whole dimension table.
+ * <p>
+ * The natural keys are kept serialized in a hash table. For every key the cache keeps the numbers of its versions,
+ * sorted on the start of their date range, so the version of a date is found with a binary search. The date ranges
+ * are kept in arrays of primitives and the rows of the versions are serialized: a cached version costs a few dozen
+ * bytes more than its data instead of a row of objects.
+ * <p>
+ * A null start of a date range means -Infinity, a null end means +Infinity. The versions that are inserted or updated
+ * while the dimension is maintained can be added to the cache, so it stays in sync with the table.
+ *
+ * @since 11.1
+ */
+public class PackedDimensionCache {
+  private static final int INITIAL_CAPACITY = 1024;
+  private static final float LOAD_FACTOR = 0.75f;
+  private static final int INSERTION_SORT_THRESHOLD = 32;
+  private static final ValueMetaInterface DATE_META = new ValueMetaDate( "date" );
+
+  private final RowMetaInterface keyRowMeta;
+  private final RowMetaInterface valueRowMeta;
+  private final int fromDateIndex;
+  private final int toDateIndex;
+
+  // The natural keys: the table holds the key numbers + 1, 0 is a free slot
+  //
+  private int[] table;
+  private byte[][] keys;
+  private int[] keyHashCodes;
+  private int keyCount;
+
+  // The version numbers of every key, sorted on the start of the date range once the rows are sorted
+  //
+  private int[][] keyVersions;
+  private int[] keyVersionCounts;
+
+  // The versions
+  //
+  private long[] fromDates;
+  private long[] toDates;
+  private byte[][] rows;
+  private int versionCount;
+  private long rowsSize;
+
+  /**
+   * Create a new empty cache
+   *
+   * @param keyRowMeta
+   *          the description of the natural key
+   * @param valueRowMeta
+   *          the description of the rows of the versions
+   * @param fromDateIndex
+   *          the index of the start of the date range in the rows
+   * @param toDateIndex
+   *          the index of the end of the date range in the rows
+   */
+  public PackedDimensionCache( RowMetaInterface keyRowMeta, RowMetaInterface valueRowMeta, int fromDateIndex,
+                               int toDateIndex ) {
+    this.keyRowMeta = keyRowMeta;
+    this.valueRowMeta = valueRowMeta;
+    this.fromDateIndex = fromDateIndex;
+    this.toDateIndex = toDateIndex;
+
+    table = new int[ INITIAL_CAPACITY * 2 ];
+    keys = new byte[ INITIAL_CAPACITY ][];
+    keyHashCodes = new int[ INITIAL_CAPACITY ];
+    keyVersions = new int[ INITIAL_CAPACITY ][];
+    keyVersionCounts = new int[ INITIAL_CAPACITY ];
+
+    fromDates = new long[ INITIAL_CAPACITY ];
+    toDates = new long[ INITIAL_CAPACITY ];
+    rows = new byte[ INITIAL_CAPACITY ][];
+  }
+
+  /**
+   * Add a version read from the dimension table. The versions can be added in any order, call {@link #sortRows()}
+   * once all the versions are added.
+   *
+   * @param keyData
+   *          the natural key
+   * @param valueData
+   *          the row of the version
+   * @return the number of the version
+   * @throws KettleValueException
+   *           in case the date range can't be read
+   */
+  public int addRow( Object[] keyData, Object[] valueData ) throws KettleValueException {
+    int key = findOrAddKey( RowMeta.extractData( keyRowMeta, keyData ) );
+    int version = storeVersion( valueData );
+    appendVersion( key, version );
+    return version;
+  }
+
+  /**
+   * Sort the versions of every key on the start of their date range.
+   */
+  public void sortRows() {
+    for ( int key = 0; key < keyCount; key++ ) {
+      sortVersions( keyVersions[ key ], keyVersionCounts[ key ] );
+    }
+  }
+
+  /**
+   * Look up the version of a natural key that is valid on a date: the start of its date range is lower than or equal
+   * to the date and the end is higher than the date.
+   *
+   * @param keyData
+   *          the natural key, in the data types of the key metadata
+   * @param date
+   *          the lookup date
+   * @return the number of the version or -1 if no version was found
+   */
+  public int lookupRow( Object[] keyData, Date date ) {
+    int key = findKey( RowMeta.extractData( keyRowMeta, keyData ) );
+    if ( key < 0 ) {
+      return -1;
+    }
+    long time = date == null ? Long.MIN_VALUE : date.getTime();
+    int position = findPosition( key, time ) - 1;
+    if ( position < 0 ) {
+      return -1;
+    }
+    int version = keyVersions[ key ][ position ];
+    return time < toDates[ version ] ? version : -1;
+  }
+
+  /**
+   * @param version
+   *          the number of the version
+   * @return the row of the version
+   */
+  public Object[] getRow( int version ) {
+    return RowMeta.getRow( valueRowMeta, rows[ version ] );
+  }
+
+  /**
+   * Replace the row of a version, for example after an update of the dimension table. The start of the date range
+   * must not change.
+   *
+   * @param version
+   *          the number of the version
+   * @param valueData
+   *          the new row
+   * @throws KettleValueException
+   *           in case the date range can't be read
+   */
+  public void setRow( int version, Object[] valueData ) throws KettleValueException {
+    byte[] row = RowMeta.extractData( valueRowMeta, valueData );
+    rowsSize += row.length - rows[ version ].length;
+    rows[ version ] = row;
+    toDates[ version ] = getToTime( valueData );
+  }
+
+  /**
+   * Change the end of the date range of a version, when the version is closed by a new version.
+   *
+   * @param version
+   *          the number of the version
+   * @param dateTo
+   *          the new end of the date range
+   * @throws KettleValueException
+   *           in case the date range can't be read
+   */
+  public void setDateTo( int version, Date dateTo ) throws KettleValueException {
+    Object[] valueData = getRow( version );
+    valueData[ toDateIndex ] = valueRowMeta.getValueMeta( toDateIndex ).convertData( DATE_META, dateTo );
+    setRow( version, valueData );
+  }
+
+  /**
+   * Add a version that was inserted in the dimension table. The version is placed among the other versions of the key
+   * by the start of its date range, after the versions with the same start.
+   *
+   * @param keyData
+   *          the natural key, in the data types of the key metadata
+   * @param valueData
+   *          the row of the version
+   * @return the number of the version
+   * @throws KettleValueException
+   *           in case the date range can't be read
+   */
+  public int addVersion( Object[] keyData, Object[] valueData ) throws KettleValueException {
+    int key = findOrAddKey( RowMeta.extractData( keyRowMeta, keyData ) );
+    int version = storeVersion( valueData );
+    int position = findPosition( key, fromDates[ version ] );
+    appendVersion( key, version );
+
+    int[] versions = keyVersions[ key ];
+    int count = keyVersionCounts[ key ];
+    System.arraycopy( versions, position, versions, position + 1, count - position - 1 );
+    versions[ position ] = version;
+    return version;
+  }
+
+  /**
+   * @param keyData
+   *          the natural key, in the data types of the key metadata
+   * @return the numbers of all the versions of the key, sorted on the start of their date range
+   */
+  public int[] getVersions( Object[] keyData ) {
+    int key = findKey( RowMeta.extractData( keyRowMeta, keyData ) );
+    if ( key < 0 ) {
+      return new int[ 0 ];
+    }
+    return Arrays.copyOf( keyVersions[ key ], keyVersionCounts[ key ] );
+  }
+
+  /**
+   * @return the number of natural keys in the cache
+   */
+  public int getKeyCount() {
+    return keyCount;
+  }
+
+  /**
+   * @return the number of versions in the cache
+   */
+  public int size() {
+    return versionCount;
+  }
+
+  /**
+   * @return the estimated heap size of the cache in bytes
+   */
+  public long getEstimatedSize() {
+    long size = 4L * table.length + 24L * ( keys.length + rows.length ) + 32L * keyCount + 16L * versionCount;
+    for ( int key = 0; key < keyCount; key++ ) {
+      size += keys[ key ].length + 4L * keyVersions[ key ].length;
+    }
+    return size + rowsSize;
+  }
+
+  /**
+   * @return the description of the natural key
+   */
+  public RowMetaInterface getKeyRowMeta() {
+    return keyRowMeta;
+  }
+
+  /**
+   * @return the description of the rows of the versions
+   */
+  public RowMetaInterface getValueRowMeta() {
+    return valueRowMeta;
+  }
+
+  public int getFromDateIndex() {
+    return fromDateIndex;
+  }
+
+  public int getToDateIndex() {
+    return toDateIndex;
+  }
+
+  private int storeVersion( Object[] valueData ) throws KettleValueException {
+    if ( versionCount == rows.length ) {
+      int capacity = rows.length * 2;
+      fromDates = Arrays.copyOf( fromDates, capacity );
+      toDates = Arrays.copyOf( toDates, capacity );
+      rows = Arrays.copyOf( rows, capacity );
+    }
+    Date from = valueRowMeta.getDate( valueData, fromDateIndex );
+    byte[] row = RowMeta.extractData( valueRowMeta, valueData );
+
+    int version = versionCount++;
+    fromDates[ version ] = from == null ? Long.MIN_VALUE : from.getTime();
+    toDates[ version ] = getToTime( valueData );
+    rows[ version ] = row;
+    rowsSize += row.length;
+    return version;
+  }
+
+  private long getToTime( Object[] valueData ) throws KettleValueException {
+    Date to = valueRowMeta.getDate( valueData, toDateIndex );
+    return to == null ? Long.MAX_VALUE : to.getTime();
+  }
+
+  private void appendVersion( int key, int version ) {
+    int[] versions = keyVersions[ key ];
+    int count = keyVersionCounts[ key ];
+    if ( versions == null ) {
+      versions = new int[ 1 ];
+      keyVersions[ key ] = versions;
+    } else if ( count == versions.length ) {
+      versions = Arrays.copyOf( versions, count * 2 );
+      keyVersions[ key ] = versions;
+    }
+    versions[ count ] = version;
+    keyVersionCounts[ key ] = count + 1;
+  }
+
+  /**
+   * @return the position of the first version of the key that starts after the time
+   */
+  private int findPosition( int key, long time ) {
+    int[] versions = keyVersions[ key ];
+    int low = 0;
+    int high = keyVersionCounts[ key ];
+    while ( low < high ) {
+      int middle = ( low + high ) >>> 1;
+      if ( fromDates[ versions[ middle ] ] <= time ) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  private void sortVersions( int[] versions, int count ) {
+    if ( count <= INSERTION_SORT_THRESHOLD ) {
+      // A dimension entry usually has a handful of versions, stored in order
+      //
+      for ( int i = 1; i < count; i++ ) {
+        int version = versions[ i ];
+        int j = i - 1;
+        while ( j >= 0 && fromDates[ versions[ j ] ] > fromDates[ version ] ) {
+          versions[ j + 1 ] = versions[ j ];
+          j--;
+        }
+        versions[ j + 1 ] = version;
+      }
+    } else {
+      Integer[] sorted = new Integer[ count ];
+      for ( int i = 0; i < count; i++ ) {
+        sorted[ i ] = versions[ i ];
+      }
+      Arrays.sort( sorted, ( a, b ) -> Long.compare( fromDates[ a ], fromDates[ b ] ) );
+      for ( int i = 0; i < count; i++ ) {
+        versions[ i ] = sorted[ i ];
+      }
+    }
+  }
+
+  private int findKey( byte[] key ) {
+    int hashCode = OffHeapByteArrayHashIndex.generateHashCode( key );
+    int mask = table.length - 1;
+    for ( int slot = hashCode & mask; table[ slot ] != 0; slot = ( slot + 1 ) & mask ) {
+      int candidate = table[ slot ] - 1;
+      if ( keyHashCodes[ candidate ] == hashCode && Arrays.equals( keys[ candidate ], key ) ) {
+        return candidate;
+      }
+    }
+    return -1;
+  }
+
+  private int findOrAddKey( byte[] key ) {
+    int hashCode = OffHeapByteArrayHashIndex.generateHashCode( key );
+    int mask = table.length - 1;
+    int slot = hashCode & mask;
+    for ( ; table[ slot ] != 0; slot = ( slot + 1 ) & mask ) {
+      int candidate = table[ slot ] - 1;
+      if ( keyHashCodes[ candidate ] == hashCode && Arrays.equals( keys[ candidate ], key ) ) {
+        return candidate;
+      }
+    }
+
+    if ( keyCount == keys.length ) {
+      int capacity = keys.length * 2;
+      keys = Arrays.copyOf( keys, capacity );
+      keyHashCodes = Arrays.copyOf( keyHashCodes, capacity );
+      keyVersions = Arrays.copyOf( keyVersions, capacity );
+      keyVersionCounts = Arrays.copyOf( keyVersionCounts, capacity );
+    }
+    int newKey = keyCount++;
+    keys[ newKey ] = key;
+    keyHashCodes[ newKey ] = hashCode;
+    table[ slot ] = newKey + 1;
+
+    if ( keyCount > table.length * LOAD_FACTOR ) {
+      rehash( table.length * 2 );
+    }
+    return newKey;
+  }
+
+  private void rehash( int tableSize ) {
+    table = new int[ tableSize ];
+    int mask = tableSize - 1;
+    for ( int key = 0; key < keyCount; key++ ) {
+      int slot = keyHashCodes[ key ] & mask;
+      while ( table[ slot ] != 0 ) {
+        slot = ( slot + 1 ) & mask;
+      }
+      table[ slot ] = key + 1;
+    }
+  }
+}
@@ -14,6 +14,8 @@
 
 package org.pentaho.di.trans.steps.dummytrans;
 
+import java.util.List;
+
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.trans.Trans;
@@ -40,18 +42,21 @@ public class DummyTrans extends BaseStep implements StepInterface {
 
   @Override
   public boolean processRow( StepMetaInterface smi, StepDataInterface sdi ) throws KettleException {
-    Object[] r = getRow(); // get row, set busy!
+    List<Object[]> rows = getRows( getRowBatchSize() ); // get rows, set busy!
     // no more input to be expected...
-    if ( r == null ) {
+    if ( rows == null ) {
       setOutputDone();
       return false;
     }
 
-    putRow( getInputRowMeta(), r ); // copy row to possible alternate rowset(s).
+    putRows( getInputRowMeta(), rows ); // copy rows to possible alternate rowset(s).
 
-    if ( checkFeedback( getLinesRead() ) ) {
-      if ( log.isBasic() ) {
-        logBasic( BaseMessages.getString( PKG, "DummyTrans.Log.LineNumber" ) + getLinesRead() );
+    if ( log.isBasic() ) {
+      long linesRead = getLinesRead();
+      for ( long line = linesRead - rows.size() + 1; line <= linesRead; line++ ) {
+        if ( checkFeedback( line ) ) {
+          logBasic( BaseMessages.getString( PKG, "DummyTrans.Log.LineNumber" ) + line );
+        }
       }
     }
 
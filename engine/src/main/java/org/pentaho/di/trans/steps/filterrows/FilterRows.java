@@ -14,11 +14,13 @@
 
 package org.pentaho.di.trans.steps.filterrows;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowChunk;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.trans.Trans;
@@ -60,14 +62,28 @@ public class FilterRows extends BaseStep implements StepInterface {
     }
   }
 
+  private synchronized boolean[] keepRows( RowChunk chunk ) throws KettleException {
+    boolean[] keep = new boolean[chunk.size()];
+    try {
+      meta.getCondition().evaluate( chunk, keep );
+    } catch ( Exception e ) {
+      String message =
+        BaseMessages.getString( PKG, "FilterRows.Exception.UnexpectedErrorFoundInEvaluationFuction" );
+      logError( message );
+      logError( Const.getStackTracker( e ) );
+      throw new KettleException( message, e );
+    }
+    return keep;
+  }
+
   public boolean processRow( StepMetaInterface smi, StepDataInterface sdi ) throws KettleException {
     meta = (FilterRowsMeta) smi;
     data = (FilterRowsData) sdi;
 
     boolean keep;
 
-    Object[] r = getRow(); // Get next usable row from input rowset(s)!
-    if ( r == null ) { // no more input to be expected...
+    List<Object[]> rows = getRows( getRowBatchSize() ); // Get next usable rows from input rowset(s)!
+    if ( rows == null ) { // no more input to be expected...
 
       setOutputDone();
       return false;
@@ -109,38 +125,69 @@ public class FilterRows extends BaseStep implements StepInterface {
       }
     }
 
-    keep = keepRow( getInputRowMeta(), r ); // Keep this row?
-    if ( !data.chosesTargetSteps ) {
-      if ( keep ) {
-        putRow( data.outputRowMeta, r ); // copy row to output rowset(s);
-      }
-    } else {
-      if ( keep ) {
-        if ( data.trueRowSet != null ) {
-          if ( log.isRowLevel() ) {
-            logRowlevel( "Sending row to true  :" + data.trueStepname + " : " + getInputRowMeta().getString( r ) );
-          }
-          putRowTo( data.outputRowMeta, r, data.trueRowSet );
+    if ( !data.chosesTargetSteps && isUsingRowChunks() ) {
+      // Evaluate the condition column by column and pass the chunk on as a whole
+      //
+      RowChunk chunk = RowChunk.fromRows( getInputRowMeta(), rows );
+      putRows( data.outputRowMeta, chunk.selectRows( keepRows( chunk ) ) );
+      logLineNumbers( getLinesRead() - rows.size(), rows.size() );
+      return true;
+    }
+
+    List<Object[]> keptRows = data.chosesTargetSteps ? null : new ArrayList<>( rows.size() );
+    long lineNr = getLinesRead() - rows.size();
+    for ( Object[] r : rows ) {
+      lineNr++;
+      keep = keepRow( getInputRowMeta(), r ); // Keep this row?
+      if ( !data.chosesTargetSteps ) {
+        if ( keep ) {
+          keptRows.add( r ); // copy row to output rowset(s) with the rest of the batch
         }
       } else {
-        if ( data.falseRowSet != null ) {
-          if ( log.isRowLevel() ) {
-            logRowlevel( "Sending row to false :" + data.falseStepname + " : " + getInputRowMeta().getString( r ) );
+        if ( keep ) {
+          if ( data.trueRowSet != null ) {
+            if ( log.isRowLevel() ) {
+              logRowlevel( "Sending row to true  :" + data.trueStepname + " : " + getInputRowMeta().getString( r ) );
+            }
+            putRowTo( data.outputRowMeta, r, data.trueRowSet );
+          }
+        } else {
+          if ( data.falseRowSet != null ) {
+            if ( log.isRowLevel() ) {
+              logRowlevel( "Sending row to false :" + data.falseStepname + " : " + getInputRowMeta().getString( r ) );
+            }
+            putRowTo( data.outputRowMeta, r, data.falseRowSet );
           }
-          putRowTo( data.outputRowMeta, r, data.falseRowSet );
         }
       }
-    }
 
-    if ( checkFeedback( getLinesRead() ) ) {
-      if ( log.isBasic() ) {
-        logBasic( BaseMessages.getString( PKG, "FilterRows.Log.LineNumber" ) + getLinesRead() );
+      if ( checkFeedback( lineNr ) ) {
+        if ( log.isBasic() ) {
+          logBasic( BaseMessages.getString( PKG, "FilterRows.Log.LineNumber" ) + lineNr );
+        }
       }
     }
 
+    if ( keptRows != null ) {
+      putRows( data.outputRowMeta, keptRows );
+    }
+
     return true;
   }
 
+  private void logLineNumbers( long firstLineNr, int nrLines ) {
+    for ( long lineNr = firstLineNr + 1; lineNr <= firstLineNr + nrLines; lineNr++ ) {
+      if ( checkFeedback( lineNr ) && log.isBasic() ) {
+        logBasic( BaseMessages.getString( PKG, "FilterRows.Log.LineNumber" ) + lineNr );
+      }
+    }
+  }
+
+  @Override
+  public boolean supportsRowChunks() {
+    return isUsingRowChunks();
+  }
+
   /**
    * @see StepInterface#init(org.pentaho.di.trans.step.StepMetaInterface , org.pentaho.di.trans.step.StepDataInterface)
    */
@@ -14,13 +14,10 @@
 
 package org.pentaho.di.trans.steps.groupby;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.net.SocketTimeoutException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -34,11 +31,15 @@ import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleFileException;
 import org.pentaho.di.core.exception.KettlePluginException;
 import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.row.RowChunk;
 import org.pentaho.di.core.row.RowDataUtil;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueDataUtil;
 import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.spill.RowSpillReader;
+import org.pentaho.di.core.row.spill.RowSpillWriter;
+import org.pentaho.di.core.row.spill.SpillCodecs;
 import org.pentaho.di.core.row.value.ValueMetaBase;
 import org.pentaho.di.core.row.value.ValueMetaFactory;
 import org.pentaho.di.core.row.value.ValueMetaInteger;
@@ -85,6 +86,10 @@ public class GroupBy extends BaseStep implements StepInterface {
     meta = (GroupByMeta) smi;
     data = (GroupByData) sdi;
 
+    if ( data.chunkAggregation ) {
+      return processChunk();
+    }
+
     Object[] r = getRow(); // get row!
 
     if ( first ) {
@@ -177,6 +182,10 @@ public class GroupBy extends BaseStep implements StepInterface {
       // Initialize the group metadata
       //
       initGroupMeta( data.inputRowMeta );
+
+      // The first row is handled below, the rest comes in chunks if all aggregates can be calculated that way
+      //
+      data.chunkAggregation = r != null && isUsingRowChunks() && isChunkAggregation();
     }
 
     if ( first || data.newBatch ) {
@@ -265,6 +274,201 @@ public class GroupBy extends BaseStep implements StepInterface {
     return true;
   }
 
+  /**
+   * @return true if the rows don't have to be passed and all aggregates are simple ones of which the subjects are
+   *         stored in the primitive columns of a row chunk, or counts.
+   */
+  private boolean isChunkAggregation() {
+    if ( meta.passAllRows() ) {
+      return false;
+    }
+    for ( int i = 0; i < data.subjectnrs.length; i++ ) {
+      ValueMetaInterface subjMeta = data.inputRowMeta.getValueMeta( data.subjectnrs[ i ] );
+      switch ( meta.getAggregateType()[ i ] ) {
+        case GroupByMeta.TYPE_GROUP_COUNT_ALL:
+        case GroupByMeta.TYPE_GROUP_COUNT_ANY:
+          break;
+        case GroupByMeta.TYPE_GROUP_MIN:
+          if ( minNullIsValued ) {
+            return false;
+          }
+          // fall through
+        case GroupByMeta.TYPE_GROUP_SUM:
+        case GroupByMeta.TYPE_GROUP_AVERAGE:
+        case GroupByMeta.TYPE_GROUP_MAX:
+          if ( RowChunk.getColumnType( subjMeta ) == RowChunk.COLUMN_OBJECT || subjMeta.isSortedDescending() ) {
+            return false;
+          }
+          break;
+        default:
+          return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Reads the next chunk of rows and aggregates them group by group. Just like for single rows, the last row read is
+   * kept as the previous row and is only aggregated when the next row comes in or when the input is done.
+   */
+  private boolean processChunk() throws KettleException {
+    List<Object[]> rows = getRows( getRowBatchSize() );
+    if ( rows == null ) {
+      handleLastOfGroup();
+      setOutputDone();
+      return false;
+    }
+
+    RowChunk chunk = RowChunk.fromRows( data.inputRowMeta, rows );
+    List<Object[]> results = new ArrayList<>();
+    if ( data.newBatch ) {
+      data.newBatch = false;
+      newAggregate( chunk.get( 0 ) );
+    } else {
+      calcAggregate( data.previous );
+      if ( !sameGroup( data.previous, chunk.get( 0 ) ) ) {
+        results.add( buildResult( data.previous ) );
+        newAggregate( chunk.get( 0 ) );
+      }
+    }
+
+    int start = 0;
+    for ( int r = 1; r < chunk.size(); r++ ) {
+      if ( !sameGroup( chunk, r - 1, r ) ) {
+        calcAggregate( chunk, start, r );
+        results.add( buildResult( chunk.get( r - 1 ) ) );
+        newAggregate( chunk.get( r ) );
+        start = r;
+      }
+    }
+    calcAggregate( chunk, start, chunk.size() - 1 );
+    data.previous = chunk.get( chunk.size() - 1 );
+
+    if ( !results.isEmpty() ) {
+      putRows( data.groupAggMeta, results );
+    }
+
+    long lineNr = getLinesRead() - chunk.size();
+    for ( int r = 0; r < chunk.size(); r++ ) {
+      lineNr++;
+      if ( checkFeedback( lineNr ) && log.isBasic() ) {
+        logBasic( BaseMessages.getString( PKG, "GroupBy.LineNumber" ) + lineNr );
+      }
+    }
+
+    return true;
+  }
+
+  // Are the two rows in the chunk of the same group?
+  private boolean sameGroup( RowChunk chunk, int row1, int row2 ) throws KettleValueException {
+    for ( int groupnr : data.groupnrs ) {
+      boolean null1 = chunk.isNull( groupnr, row1 );
+      boolean null2 = chunk.isNull( groupnr, row2 );
+      int cmp;
+      switch ( chunk.getColumnType( groupnr ) ) {
+        case RowChunk.COLUMN_LONG:
+          cmp = null1 || null2 ? Boolean.compare( null1, null2 )
+            : Long.compare( chunk.getLong( groupnr, row1 ), chunk.getLong( groupnr, row2 ) );
+          break;
+        case RowChunk.COLUMN_DOUBLE:
+          cmp = null1 || null2 ? Boolean.compare( null1, null2 )
+            : Double.compare( chunk.getDouble( groupnr, row1 ), chunk.getDouble( groupnr, row2 ) );
+          break;
+        default:
+          cmp = data.inputRowMeta.getValueMeta( groupnr ).compare( chunk.getValue( groupnr, row1 ),
+            chunk.getValue( groupnr, row2 ) );
+          break;
+      }
+      if ( cmp != 0 ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Adds a range of rows of a chunk to the aggregates, see {@link #isChunkAggregation()}. The values are added in the
+   * same order as they would be row by row, so the results are the same.
+   *
+   * @param chunk
+   *          the rows
+   * @param from
+   *          the first row to aggregate, inclusive
+   * @param to
+   *          the last row to aggregate, exclusive
+   */
+  private void calcAggregate( RowChunk chunk, int from, int to ) throws KettleValueException {
+    for ( int i = 0; i < data.subjectnrs.length; i++ ) {
+      int subjnr = data.subjectnrs[ i ];
+      int aggType = meta.getAggregateType()[ i ];
+      if ( aggType == GroupByMeta.TYPE_GROUP_COUNT_ANY ) {
+        data.counts[ i ] += to - from;
+        continue;
+      }
+      if ( aggType == GroupByMeta.TYPE_GROUP_COUNT_ALL ) {
+        ValueMetaInterface subjMeta = data.inputRowMeta.getValueMeta( subjnr );
+        for ( int r = from; r < to; r++ ) {
+          boolean isNull =
+            chunk.isPrimitive( subjnr ) ? chunk.isNull( subjnr, r ) : subjMeta.isNull( chunk.getValue( subjnr, r ) );
+          if ( !isNull ) {
+            data.counts[ i ]++;
+          }
+        }
+        continue;
+      }
+
+      Object value = data.agg[ i ];
+      boolean hasValue = value != null;
+      if ( chunk.getColumnType( subjnr ) == RowChunk.COLUMN_LONG ) {
+        long[] values = chunk.getLongs( subjnr );
+        long acc = hasValue ? ( (Number) value ).longValue() : 0L;
+        for ( int r = from; r < to; r++ ) {
+          if ( chunk.isNull( subjnr, r ) ) {
+            continue;
+          }
+          long v = values[ r ];
+          if ( !hasValue ) {
+            acc = v;
+          } else if ( aggType == GroupByMeta.TYPE_GROUP_MIN ) {
+            acc = Math.min( acc, v );
+          } else if ( aggType == GroupByMeta.TYPE_GROUP_MAX ) {
+            acc = Math.max( acc, v );
+          } else {
+            acc += v;
+          }
+          hasValue = true;
+          if ( aggType == GroupByMeta.TYPE_GROUP_AVERAGE ) {
+            data.counts[ i ]++;
+          }
+        }
+        data.agg[ i ] = hasValue ? Long.valueOf( acc ) : null;
+      } else {
+        double[] values = chunk.getDoubles( subjnr );
+        double acc = hasValue ? ( (Number) value ).doubleValue() : 0.0;
+        for ( int r = from; r < to; r++ ) {
+          if ( chunk.isNull( subjnr, r ) ) {
+            continue;
+          }
+          double v = values[ r ];
+          if ( !hasValue ) {
+            acc = v;
+          } else if ( aggType == GroupByMeta.TYPE_GROUP_MIN ) {
+            acc = Double.compare( v, acc ) < 0 ? v : acc;
+          } else if ( aggType == GroupByMeta.TYPE_GROUP_MAX ) {
+            acc = Double.compare( v, acc ) > 0 ? v : acc;
+          } else {
+            acc += v;
+          }
+          hasValue = true;
+          if ( aggType == GroupByMeta.TYPE_GROUP_AVERAGE ) {
+            data.counts[ i ]++;
+          }
+        }
+        data.agg[ i ] = hasValue ? Double.valueOf( acc ) : null;
+      }
+    }
+  }
+
   private void handleLastOfGroup() throws KettleException {
     if ( meta.passAllRows() ) {
       // ALL ROWS
@@ -790,7 +994,7 @@ public class GroupBy extends BaseStep implements StepInterface {
         }
         data.tempFile = File.createTempFile( getMeta().getPrefix(), ".tmp", new File( pathToTmp ) );
         data.fosToTempFile = new FileOutputStream( data.tempFile );
-        data.dosToTempFile = new DataOutputStream( data.fosToTempFile );
+        data.spillWriter = new RowSpillWriter( data.fosToTempFile, data.inputRowMeta, data.spillCodec );
         data.firstRead = true;
       } catch ( IOException e ) {
         throw new KettleFileException( BaseMessages.getString( PKG, "GroupBy.Exception.UnableToCreateTemporaryFile" ),
@@ -798,7 +1002,7 @@ public class GroupBy extends BaseStep implements StepInterface {
       }
       // OK, save the oldest rows to disk!
       Object[] oldest = data.bufferList.get( 0 );
-      data.inputRowMeta.writeData( data.dosToTempFile, oldest );
+      data.spillWriter.writeRow( oldest );
       data.bufferList.remove( 0 );
       data.rowsOnFile++;
     }
@@ -814,10 +1018,11 @@ public class GroupBy extends BaseStep implements StepInterface {
   private Object[] getRowFromBuffer() throws KettleFileException {
     if ( data.rowsOnFile > 0 ) {
       if ( data.firstRead ) {
-        // Open the inputstream first...
+        // Flush the last rows to the file, then open the inputstream...
+        closeOutput();
         try {
           data.fisToTmpFile = new FileInputStream( data.tempFile );
-          data.disToTmpFile = new DataInputStream( data.fisToTmpFile );
+          data.spillReader = new RowSpillReader( data.fisToTmpFile, data.inputRowMeta );
           data.firstRead = false;
         } catch ( IOException e ) {
           throw new KettleFileException( BaseMessages.getString(
@@ -826,12 +1031,7 @@ public class GroupBy extends BaseStep implements StepInterface {
       }
 
       // Read one row from the file!
-      Object[] row;
-      try {
-        row = data.inputRowMeta.readData( data.disToTmpFile );
-      } catch ( SocketTimeoutException e ) {
-        throw new KettleFileException( e ); // Shouldn't happen on files
-      }
+      Object[] row = data.spillReader.readRow();
       data.rowsOnFile--;
 
       return row;
@@ -848,9 +1048,9 @@ public class GroupBy extends BaseStep implements StepInterface {
 
   private void closeOutput() throws KettleFileException {
     try {
-      if ( data.dosToTempFile != null ) {
-        data.dosToTempFile.close();
-        data.dosToTempFile = null;
+      if ( data.spillWriter != null ) {
+        data.spillWriter.close();
+        data.spillWriter = null;
       }
       if ( data.fosToTempFile != null ) {
         data.fosToTempFile.close();
@@ -869,9 +1069,9 @@ public class GroupBy extends BaseStep implements StepInterface {
         data.fisToTmpFile.close();
         data.fisToTmpFile = null;
       }
-      if ( data.disToTmpFile != null ) {
-        data.disToTmpFile.close();
-        data.disToTmpFile = null;
+      if ( data.spillReader != null ) {
+        data.spillReader.close();
+        data.spillReader = null;
       }
     } catch ( IOException e ) {
       throw new KettleFileException(
@@ -889,6 +1089,13 @@ public class GroupBy extends BaseStep implements StepInterface {
 
       data.rowsOnFile = 0;
 
+      try {
+        data.spillCodec = SpillCodecs.getCodec( this, meta.getSpillCompression(), false );
+      } catch ( KettleException e ) {
+        logError( e.getMessage() );
+        return false;
+      }
+
       return true;
     }
     return false;
@@ -915,6 +1122,11 @@ public class GroupBy extends BaseStep implements StepInterface {
     super.dispose( smi, sdi );
   }
 
+  @Override
+  public boolean supportsRowChunks() {
+    return isUsingRowChunks();
+  }
+
   @Override
   public void batchComplete() throws KettleException {
     handleLastOfGroup();
@@ -14,8 +14,6 @@
 
 package org.pentaho.di.trans.steps.groupby;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -25,6 +23,10 @@ import java.util.Set;
 
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.spill.NoneSpillCodec;
+import org.pentaho.di.core.row.spill.RowSpillReader;
+import org.pentaho.di.core.row.spill.RowSpillWriter;
+import org.pentaho.di.core.row.spill.SpillCodec;
 import org.pentaho.di.trans.step.BaseStepData;
 import org.pentaho.di.trans.step.StepDataInterface;
 
@@ -60,14 +62,16 @@ public class GroupByData extends BaseStepData implements StepDataInterface {
 
   public FileOutputStream fosToTempFile;
 
-  public DataOutputStream dosToTempFile;
+  public RowSpillWriter spillWriter;
+
+  public SpillCodec spillCodec = new NoneSpillCodec();
 
   public int rowsOnFile;
 
   public boolean firstRead;
 
   public FileInputStream fisToTmpFile;
-  public DataInputStream disToTmpFile;
+  public RowSpillReader spillReader;
 
   public Object[] groupResult;
 
@@ -95,6 +99,11 @@ public class GroupByData extends BaseStepData implements StepDataInterface {
 
   public boolean newBatch;
 
+  /**
+   * The aggregates are calculated on whole row chunks, see GroupBy.isChunkAggregation()
+   */
+  public boolean chunkAggregation;
+
   public GroupByData() {
     super();
 
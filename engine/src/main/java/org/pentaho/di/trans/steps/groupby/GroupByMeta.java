@@ -142,6 +142,11 @@ public class GroupByMeta extends BaseStepMeta implements StepMetaInterface {
    */
   private String prefix;
 
+  /**
+   * The codec of the temp files: None, LZ4, Zstd or GZIP, empty to use the KETTLE_SPILL_COMPRESSION variable
+   */
+  private String spillCompression;
+
   /**
    * Indicate that some rows don't need to be considered : TODO: make work in GUI & worker
    */
@@ -356,6 +361,7 @@ public class GroupByMeta extends BaseStepMeta implements StepMetaInterface {
 
       directory = XMLHandler.getTagValue( stepnode, "directory" );
       prefix = XMLHandler.getTagValue( stepnode, "prefix" );
+      spillCompression = XMLHandler.getTagValue( stepnode, "spill_compression" );
 
       addingLineNrInGroup = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "add_linenr" ) );
       lineNrInGroupField = XMLHandler.getTagValue( stepnode, "linenr_fieldname" );
@@ -432,6 +438,7 @@ public class GroupByMeta extends BaseStepMeta implements StepMetaInterface {
   public void setDefault() {
     directory = "%%java.io.tmpdir%%";
     prefix = "grp";
+    spillCompression = null;
 
     passAllRows = false;
     aggregateIgnored = false;
@@ -575,6 +582,7 @@ public class GroupByMeta extends BaseStepMeta implements StepMetaInterface {
     retval.append( "      " ).append( XMLHandler.addTagValue( "field_ignore", aggregateIgnoredField ) );
     retval.append( "      " ).append( XMLHandler.addTagValue( "directory", directory ) );
     retval.append( "      " ).append( XMLHandler.addTagValue( "prefix", prefix ) );
+    retval.append( "      " ).append( XMLHandler.addTagValue( "spill_compression", spillCompression ) );
     retval.append( "      " ).append( XMLHandler.addTagValue( "add_linenr", addingLineNrInGroup ) );
     retval.append( "      " ).append( XMLHandler.addTagValue( "linenr_fieldname", lineNrInGroupField ) );
     retval.append( "      " ).append( XMLHandler.addTagValue( "give_back_row", alwaysGivingBackOneRow ) );
@@ -610,6 +618,7 @@ public class GroupByMeta extends BaseStepMeta implements StepMetaInterface {
       aggregateIgnoredField = rep.getStepAttributeString( id_step, "field_ignore" );
       directory = rep.getStepAttributeString( id_step, "directory" );
       prefix = rep.getStepAttributeString( id_step, "prefix" );
+      spillCompression = rep.getStepAttributeString( id_step, "spill_compression" );
       addingLineNrInGroup = rep.getStepAttributeBoolean( id_step, "add_linenr" );
       lineNrInGroupField = rep.getStepAttributeString( id_step, "linenr_fieldname" );
 
@@ -651,6 +660,7 @@ public class GroupByMeta extends BaseStepMeta implements StepMetaInterface {
       rep.saveStepAttribute( id_transformation, id_step, "field_ignore", aggregateIgnoredField );
       rep.saveStepAttribute( id_transformation, id_step, "directory", directory );
       rep.saveStepAttribute( id_transformation, id_step, "prefix", prefix );
+      rep.saveStepAttribute( id_transformation, id_step, "spill_compression", spillCompression );
       rep.saveStepAttribute( id_transformation, id_step, "add_linenr", addingLineNrInGroup );
       rep.saveStepAttribute( id_transformation, id_step, "linenr_fieldname", lineNrInGroupField );
       rep.saveStepAttribute( id_transformation, id_step, "give_back_row", alwaysGivingBackOneRow );
@@ -730,6 +740,20 @@ public class GroupByMeta extends BaseStepMeta implements StepMetaInterface {
     this.prefix = prefix;
   }
 
+  /**
+   * @return Returns the codec of the temp files, empty to use the KETTLE_SPILL_COMPRESSION variable.
+   */
+  public String getSpillCompression() {
+    return spillCompression;
+  }
+
+  /**
+   * @param spillCompression The codec of the temp files to set: None, LZ4, Zstd or GZIP.
+   */
+  public void setSpillCompression( String spillCompression ) {
+    this.spillCompression = spillCompression;
+  }
+
   /**
    * @return the addingLineNrInGroup
    */
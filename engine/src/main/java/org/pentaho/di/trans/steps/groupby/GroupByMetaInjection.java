@@ -33,7 +33,8 @@ public class GroupByMetaInjection implements StepMetaInjectionInterface {
 
     PASS_ALL_ROWS( ValueMetaInterface.TYPE_STRING, "Pass all rows? (Y/N)" ), TEMP_DIRECTORY(
       ValueMetaInterface.TYPE_STRING, "The temporary directory" ), TEMP_FILE_PREFIX(
-      ValueMetaInterface.TYPE_STRING, "The temporary file prefix" ), GROUP_LINE_NUMBER_ENABLED(
+      ValueMetaInterface.TYPE_STRING, "The temporary file prefix" ), SPILL_COMPRESSION(
+      ValueMetaInterface.TYPE_STRING, "The temporary file codec (None, LZ4, Zstd or GZIP)" ), GROUP_LINE_NUMBER_ENABLED(
       ValueMetaInterface.TYPE_STRING, "Group line number enabled? (Y/N)" ), GROUP_LINE_NUMBER_FIELDNAME(
       ValueMetaInterface.TYPE_STRING, "Group line number field name" ), ALLWAYS_PASS_A_ROW(
       ValueMetaInterface.TYPE_STRING, "Always give back a row? (Y/N)" ),
@@ -89,8 +90,8 @@ public class GroupByMetaInjection implements StepMetaInjectionInterface {
 
     Entry[] topEntries =
       new Entry[] {
-        Entry.PASS_ALL_ROWS, Entry.TEMP_DIRECTORY, Entry.TEMP_FILE_PREFIX, Entry.GROUP_LINE_NUMBER_ENABLED,
-        Entry.GROUP_LINE_NUMBER_FIELDNAME, Entry.ALLWAYS_PASS_A_ROW, };
+        Entry.PASS_ALL_ROWS, Entry.TEMP_DIRECTORY, Entry.TEMP_FILE_PREFIX, Entry.SPILL_COMPRESSION,
+        Entry.GROUP_LINE_NUMBER_ENABLED, Entry.GROUP_LINE_NUMBER_FIELDNAME, Entry.ALLWAYS_PASS_A_ROW, };
     for ( Entry topEntry : topEntries ) {
       all.add( new StepInjectionMetaEntry( topEntry.name(), topEntry.getValueType(), topEntry.getDescription() ) );
     }
@@ -228,6 +229,9 @@ public class GroupByMetaInjection implements StepMetaInjectionInterface {
         case TEMP_FILE_PREFIX:
           meta.setPrefix( lookValue );
           break;
+        case SPILL_COMPRESSION:
+          meta.setSpillCompression( lookValue );
+          break;
         case GROUP_LINE_NUMBER_ENABLED:
           meta.setAddingLineNrInGroup( "Y".equalsIgnoreCase( lookValue ) );
           break;
@@ -15,17 +15,25 @@
 package org.pentaho.di.trans.steps.insertupdate;
 
 import java.sql.SQLException;
+import java.sql.Savepoint;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.UUID;
 import org.apache.commons.lang3.ArrayUtils;
 import org.pentaho.di.core.Const;
+import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.database.DatabaseInterface;
 import org.pentaho.di.core.database.DatabaseMeta;
 import org.pentaho.di.core.exception.KettleDatabaseException;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleStepException;
+import org.pentaho.di.core.exception.KettleValueException;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.trans.Trans;
 import org.pentaho.di.trans.TransMeta;
@@ -174,6 +182,9 @@ public class InsertUpdate extends BaseDatabaseStep implements StepInterface {
     Object[] r = getRow(); // Get row from input rowset & set row busy!
     if ( r == null ) {
       // no more input to be expected...
+      if ( data.batchRows != null && !data.batchRows.isEmpty() && !upsertBatch() ) {
+        return false;
+      }
 
       setOutputDone();
       return false;
@@ -287,6 +298,28 @@ public class InsertUpdate extends BaseDatabaseStep implements StepInterface {
         }
         prepareUpdate( getInputRowMeta() );
       }
+
+      if ( meta.getUpsertBatchSize() > 1 ) {
+        prepareUpsert( getInputRowMeta() );
+      }
+    }
+
+    // Stage the rows of a batch, they are upserted together
+    //
+    if ( data.batchRows != null ) {
+      RowMetaAndData key = getKey( getInputRowMeta(), r );
+      if ( data.batchKeys.contains( key ) ) {
+        // A statement can only upsert a key once, the earlier rows go first
+        if ( !upsertBatch() ) {
+          return false;
+        }
+      }
+      data.batchRows.add( r );
+      data.batchKeys.add( key );
+      if ( data.batchRows.size() >= meta.getUpsertBatchSize() ) {
+        return upsertBatch();
+      }
+      return true;
     }
 
     try {
@@ -322,6 +355,305 @@ public class InsertUpdate extends BaseDatabaseStep implements StepInterface {
 
 
 
+  /**
+   * @return the reason the keys don't allow to upsert the rows with a single statement or null if they do
+   */
+  String getUpsertNotPossibleReason() {
+    if ( meta.getKeyFields().length == 0 ) {
+      return BaseMessages.getString( PKG, "InsertUpdate.Exception.UpsertNotSupported" );
+    }
+    for ( InsertUpdateMeta.KeyField keyField : meta.getKeyFields() ) {
+      if ( !"=".equals( keyField.getKeyCondition() ) ) {
+        return BaseMessages.getString( PKG, "InsertUpdate.Exception.UpsertConditionNotSupported",
+          keyField.getKeyLookup(), keyField.getKeyCondition() );
+      }
+      // The key is matched by the rows that are inserted
+      boolean inserted = false;
+      for ( InsertUpdateMeta.UpdateField updateField : meta.getUpdateFields() ) {
+        inserted |= keyField.getKeyLookup().equalsIgnoreCase( updateField.getUpdateLookup() )
+          && keyField.getKeyStream().equals( updateField.getUpdateStream() );
+      }
+      if ( !inserted ) {
+        return BaseMessages.getString( PKG, "InsertUpdate.Exception.UpsertKeyNotInserted", keyField.getKeyLookup() );
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Prepares the staged upsert: a temporary table with the insert fields, the statement that stages the rows in it and
+   * the upsert statement of the database. The rows are inserted or updated one by one when that isn't possible.
+   */
+  private void prepareUpsert( RowMetaInterface rowMeta ) throws KettleException {
+    String reason = getUpsertNotPossibleReason();
+    if ( reason != null ) {
+      logBasic( BaseMessages.getString( PKG, "InsertUpdate.Log.UpsertNotPossible", reason ) );
+      return;
+    }
+    DatabaseMeta databaseMeta = meta.getDatabaseMeta();
+    DatabaseInterface databaseInterface = databaseMeta.getDatabaseInterface();
+
+    // The temporary table has the fields of the insert, with the types of the stream fields
+    //
+    String stagingTable = databaseInterface.getTemporaryTableName(
+      "kstg_" + Long.toString( UUID.randomUUID().getMostSignificantBits() & Long.MAX_VALUE, 36 ) );
+    String[] insertFields = new String[ data.insertRowMeta.size() ];
+    StringBuilder fieldDefinitions = new StringBuilder();
+    for ( int i = 0; i < insertFields.length; i++ ) {
+      insertFields[ i ] = databaseMeta.quoteField( data.insertRowMeta.getValueMeta( i ).getName() );
+      ValueMetaInterface field = data.insertRowMeta.getValueMeta( i ).clone();
+      field.setName( insertFields[ i ] );
+      if ( i > 0 ) {
+        fieldDefinitions.append( ", " );
+      }
+      fieldDefinitions.append( databaseMeta.getFieldDefinition( field, null, null, false, true, false ) );
+    }
+
+    String[] keyFields = new String[ meta.getKeyFields().length ];
+    for ( int i = 0; i < keyFields.length; i++ ) {
+      keyFields[ i ] = databaseMeta.quoteField( meta.getKeyFields()[ i ].getKeyLookup() );
+    }
+
+    // The key is never updated, it is the same
+    //
+    List<String> updateFields = new ArrayList<>();
+    if ( !meta.isUpdateBypassed() ) {
+      for ( InsertUpdateMeta.UpdateField updateField : meta.getUpdateFields() ) {
+        String field = databaseMeta.quoteField( updateField.getUpdateLookup() );
+        if ( updateField.getUpdate().booleanValue() && Const.indexOfString( field, keyFields ) < 0 ) {
+          updateFields.add( field );
+        }
+      }
+    }
+
+    String createSQL =
+      databaseInterface.getCreateTemporaryTableStatement( stagingTable, fieldDefinitions.toString() );
+    String upsertSQL = databaseInterface.getUpsertStatement( data.schemaTable, stagingTable, keyFields,
+      insertFields, updateFields.toArray( new String[ 0 ] ) );
+    if ( createSQL == null || upsertSQL == null ) {
+      logBasic( BaseMessages.getString( PKG, "InsertUpdate.Log.UpsertNotPossible",
+        BaseMessages.getString( PKG, "InsertUpdate.Exception.UpsertNotSupported" ) ) );
+      return;
+    }
+
+    data.createStagingSQL = createSQL;
+    data.stageSQL = "INSERT INTO " + stagingTable + " ( " + String.join( ", ", insertFields ) + " ) VALUES ( "
+      + String.join( ", ", Collections.nCopies( insertFields.length, "?" ) ) + " )";
+    createStagingTable();
+    data.stagingTable = stagingTable;
+
+    // Databases with transactional DDL, like PostgreSQL, drop the table when the transaction that created it is rolled
+    // back. Nothing was written yet, the creation is committed right away. A connection the steps share is only
+    // committed at the end of the transformation, then the table is created again after a rollback.
+    //
+    if ( !data.db.isAutoCommit() ) {
+      if ( Utils.isEmpty( data.db.getConnectionGroup() ) ) {
+        data.db.commit();
+      } else {
+        data.recreateStagingTable = supportsTransactionalDDL();
+      }
+    }
+
+    data.upsertSQL = upsertSQL;
+    if ( log.isDetailed() ) {
+      logDetailed( "Setting upsert statement to [" + upsertSQL + "]" );
+    }
+
+    // Counts the staged rows with a key that is in the table already
+    //
+    StringBuilder matchSQL = new StringBuilder( "SELECT COUNT(*) FROM " ).append( stagingTable );
+    matchSQL.append( " src WHERE EXISTS ( SELECT 1 FROM " ).append( data.schemaTable ).append( " tgt WHERE " );
+    data.keyRowMeta = new RowMeta();
+    for ( int i = 0; i < keyFields.length; i++ ) {
+      if ( i > 0 ) {
+        matchSQL.append( " AND " );
+      }
+      matchSQL.append( "tgt." ).append( keyFields[ i ] ).append( " = src." ).append( keyFields[ i ] );
+
+      ValueMetaInterface keyMeta = rowMeta.getValueMeta( data.keynrs[ i ] ).clone();
+      keyMeta.setStorageType( ValueMetaInterface.STORAGE_TYPE_NORMAL );
+      data.keyRowMeta.addValueMeta( keyMeta );
+    }
+    data.matchSQL = matchSQL.append( " )" ).toString();
+
+    // A failed batch is undone before its rows go to error handling. Without savepoints that undoes all the rows since
+    // the last commit, rows that were passed on already, so then every batch is committed.
+    //
+    if ( getStepMeta().isDoingErrorHandling() && !data.db.isAutoCommit() ) {
+      data.useSavepoints = supportsSavepoints();
+      data.releaseSavepoint = databaseInterface.releaseSavepoint();
+      data.commitEveryBatch = !data.useSavepoints;
+    }
+
+    data.batchRows = new ArrayList<>( meta.getUpsertBatchSize() );
+    data.batchKeys = new HashSet<>();
+  }
+
+  /**
+   * Creates the staging table and prepares the statement that stages the rows in it.
+   */
+  private void createStagingTable() throws KettleDatabaseException {
+    if ( log.isDetailed() ) {
+      logDetailed( "Creating staging table [" + data.createStagingSQL + "]" );
+    }
+    data.db.execStatement( data.createStagingSQL );
+    data.prepStatementStage = data.db.prepareSQL( data.stageSQL );
+  }
+
+  private boolean supportsTransactionalDDL() {
+    try {
+      return data.db.getDatabaseMetaData().supportsDataDefinitionAndDataManipulationTransactions();
+    } catch ( KettleDatabaseException | SQLException e ) {
+      return false;
+    }
+  }
+
+  private boolean supportsSavepoints() {
+    try {
+      return data.db.getDatabaseMetaData().supportsSavepoints();
+    } catch ( KettleDatabaseException | SQLException e ) {
+      return false;
+    }
+  }
+
+  private RowMetaAndData getKey( RowMetaInterface rowMeta, Object[] row ) throws KettleValueException {
+    Object[] key = new Object[ data.keyRowMeta.size() ];
+    for ( int i = 0; i < key.length; i++ ) {
+      key[ i ] = rowMeta.getValueMeta( data.keynrs[ i ] ).convertToNormalStorageType( row[ data.keynrs[ i ] ] );
+    }
+    return new RowMetaAndData( data.keyRowMeta, key );
+  }
+
+  /**
+   * Stages the rows of the batch with a JDBC batch and upserts them all with a single statement. The rows that match a
+   * row of the table are counted first: they are the updates, the others are the inserts. A batch that fails is undone
+   * before its rows go to error handling, the staging table is emptied whether the batch fails or not.
+   *
+   * @return false if the step needs to stop
+   */
+  private boolean upsertBatch() throws KettleException {
+    List<Object[]> rows = data.batchRows;
+    data.batchRows = new ArrayList<>( meta.getUpsertBatchSize() );
+    data.batchKeys.clear();
+
+    Savepoint savepoint = null;
+    boolean completed = false;
+    try {
+      if ( data.useSavepoints ) {
+        savepoint = data.db.setSavepoint();
+      }
+      for ( Object[] row : rows ) {
+        Object[] insertRow = new Object[ data.valuenrs.length ];
+        for ( int i = 0; i < data.valuenrs.length; i++ ) {
+          insertRow[ i ] = row[ data.valuenrs[ i ] ];
+        }
+        data.db.setValues( data.insertRowMeta, insertRow, data.prepStatementStage );
+        data.db.insertRow( data.prepStatementStage, true, false );
+      }
+      data.db.executeAndClearBatch( data.prepStatementStage );
+
+      RowMetaAndData matched = data.db.getOneRow( data.matchSQL );
+      long updated = matched.getRowMeta().getInteger( matched.getData(), 0 );
+      long inserted = rows.size() - updated;
+      data.db.execStatement( data.upsertSQL );
+      if ( savepoint != null && data.releaseSavepoint ) {
+        data.db.releaseSavepoint( savepoint );
+      }
+
+      setLinesOutput( getLinesOutput() + inserted );
+      if ( meta.isUpdateBypassed() ) {
+        setLinesSkipped( getLinesSkipped() + updated );
+      } else {
+        setLinesUpdated( getLinesUpdated() + updated );
+      }
+      if ( log.isDetailed() ) {
+        logDetailed( BaseMessages.getString( PKG, "InsertUpdate.Log.UpsertBatch", rows.size(), inserted, updated ) );
+      }
+      completed = true;
+    } catch ( KettleException e ) {
+      // The whole batch failed
+      rollbackBatch( savepoint );
+      if ( !getStepMeta().isDoingErrorHandling() ) {
+        logError( BaseMessages.getString( PKG, "InsertUpdate.Log.ErrorInStep" ), e );
+        setErrors( 1 );
+        stopAll();
+        setOutputDone(); // signal end to receiver(s)
+        completed = true;
+        return false;
+      }
+      for ( Object[] row : rows ) {
+        putError( getInputRowMeta(), row, 1, e.toString(), null, "ISU001" );
+      }
+      logBatchFeedback( rows.size() );
+      completed = true;
+      return true;
+    } finally {
+      clearStagingTable( completed );
+    }
+
+    data.uncommittedRows += rows.size();
+    int commitSize = meta.getCommitSize( this );
+    if ( ( data.commitEveryBatch || commitSize > 0 && data.uncommittedRows >= commitSize )
+      && !data.db.isAutoCommit() ) {
+      data.db.commit();
+      data.uncommittedRows = 0;
+    }
+
+    for ( Object[] row : rows ) {
+      putRow( data.outputRowMeta, row );
+    }
+    logBatchFeedback( rows.size() );
+    return true;
+  }
+
+  /**
+   * Undoes a failed batch: back to its savepoint, or without one all the rows since the last commit.
+   */
+  private void rollbackBatch( Savepoint savepoint ) {
+    try {
+      if ( savepoint != null ) {
+        data.db.rollback( savepoint );
+        if ( data.releaseSavepoint ) {
+          data.db.releaseSavepoint( savepoint );
+        }
+      } else if ( !data.db.isAutoCommit() ) {
+        data.db.rollback();
+        data.uncommittedRows = 0;
+        if ( data.recreateStagingTable ) {
+          data.db.closePreparedStatement( data.prepStatementStage );
+          createStagingTable();
+        }
+      }
+    } catch ( KettleDatabaseException e ) {
+      logError( BaseMessages.getString( PKG, "InsertUpdate.Log.UnableToRollbackBatch" ), e );
+    }
+  }
+
+  /**
+   * Clears the staging statement and empties the staging table for the next batch. The rows are deleted rather than
+   * truncated, a truncate commits on some databases.
+   *
+   * @param completed false if the batch ended with an exception, that exception is kept and a failure here is only
+   *          logged
+   */
+  private void clearStagingTable( boolean completed ) throws KettleDatabaseException {
+    try {
+      data.db.clearBatch( data.prepStatementStage );
+      data.db.execStatement( "DELETE FROM " + data.stagingTable );
+    } catch ( KettleDatabaseException e ) {
+      if ( completed ) {
+        throw e;
+      }
+      logError( BaseMessages.getString( PKG, "InsertUpdate.Log.UnableToClearStagingTable" ), e );
+    }
+  }
+
+  private void logBatchFeedback( int nrRows ) {
+    if ( checkFeedback( getLinesRead(), nrRows ) && log.isBasic() ) {
+      logBasic( BaseMessages.getString( PKG, "InsertUpdate.Log.LineNumber" ) + getLinesRead() );
+    }
+  }
+
   public void setLookup( RowMetaInterface rowMeta ) throws KettleDatabaseException {
     data.lookupParameterRowMeta = new RowMeta();
     data.lookupReturnRowMeta = new RowMeta();
@@ -502,7 +834,27 @@ public class InsertUpdate extends BaseDatabaseStep implements StepInterface {
         logError( BaseMessages.getString( PKG, "InsertUpdate.Log.UnableToCommitConnection" ) + e.toString() );
         setErrors( 1 );
       }
+
+      if ( data.stagingTable != null && data.recreateStagingTable && getErrors() > 0 ) {
+        // The rollback dropped the table
+        data.stagingTable = null;
+      }
+      if ( data.stagingTable != null ) {
+        // Some temporary tables outlive the connection, the rows need to go before the table can be dropped
+        try {
+          if ( data.prepStatementStage != null ) {
+            data.db.closePreparedStatement( data.prepStatementStage );
+          }
+          data.db.execStatement(
+            meta.getDatabaseMeta().getDatabaseInterface().getTruncateTableStatement( data.stagingTable ) );
+          data.db.execStatement( "DROP TABLE " + data.stagingTable );
+        } catch ( KettleDatabaseException e ) {
+          logError( e.getMessage() );
+        }
+        data.stagingTable = null;
+      }
     }
+    data.batchRows = null;
     super.dispose( smi, sdi );
   }
 
@@ -14,11 +14,14 @@
 
 package org.pentaho.di.trans.steps.insertupdate;
 
+import org.pentaho.di.core.RowMetaAndData;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.trans.step.BaseDatabaseStepData;
 import org.pentaho.di.trans.step.StepDataInterface;
 
 import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.Set;
 
 /**
  * Stores data for the Insert/Update step.
@@ -44,6 +47,21 @@ public class InsertUpdateData extends BaseDatabaseStepData implements StepDataIn
   public RowMetaInterface lookupReturnRowMeta;
   public RowMetaInterface insertRowMeta;
 
+  public List<Object[]> batchRows; // The input rows waiting for a staged upsert, null if not upserting
+  public Set<RowMetaAndData> batchKeys; // The keys of the batch rows, with normal storage
+  public RowMetaInterface keyRowMeta;
+  public String stagingTable; // The temporary table the rows are staged in
+  public PreparedStatement prepStatementStage;
+  public String createStagingSQL;
+  public String stageSQL; // Stages a row in the staging table
+  public boolean recreateStagingTable; // A rollback drops the staging table, its creation isn't committed
+  public String upsertSQL;
+  public String matchSQL; // Counts the staged rows that update a row of the table
+  public int uncommittedRows; // The rows upserted since the last commit
+  public boolean useSavepoints; // A failed batch is rolled back to a savepoint
+  public boolean releaseSavepoint;
+  public boolean commitEveryBatch; // Error handling without savepoints, a rollback only undoes the failed batch
+
   /**
    * Default constructor.
    */
@@ -31,6 +31,7 @@ import org.pentaho.di.trans.StepWithMappingMeta;
 import org.pentaho.di.trans.Trans;
 import org.pentaho.di.trans.TransMeta;
 import org.pentaho.di.trans.TransMeta.TransformationType;
+import org.pentaho.di.trans.WorkStealingTransExecutor;
 import org.pentaho.di.trans.step.BaseStep;
 import org.pentaho.di.trans.step.RemoteStep;
 import org.pentaho.di.trans.step.RowListener;
@@ -76,6 +77,7 @@ public class Mapping extends BaseStep implements StepInterface {
       switch ( getData().mappingTransMeta.getTransformationType() ) {
         case Normal:
         case SerialSingleThreaded:
+        case WorkStealing:
 
           // Before we start, let's see if there are loose ends to tie up...
           //
@@ -198,8 +200,14 @@ public class Mapping extends BaseStep implements StepInterface {
           // Since everything is running in the MappingThreads we don't have to do
           // anything else here but wait...
           //
-          if ( getTransMeta().getTransformationType() == TransformationType.Normal ) {
-            getData().getMappingTrans().waitUntilFinished();
+          TransformationType parentType = getTransMeta().getTransformationType();
+          if ( parentType == TransformationType.Normal || parentType == TransformationType.WorkStealing ) {
+            if ( parentType == TransformationType.WorkStealing ) {
+              // Let the shared pool compensate for the thread we're blocking
+              WorkStealingTransExecutor.waitUntilFinished( getData().getMappingTrans() );
+            } else {
+              getData().getMappingTrans().waitUntilFinished();
+            }
 
             // Set some statistics from the mapping...
             // This will show up in Spoon, etc.
@@ -292,6 +300,7 @@ public class Mapping extends BaseStep implements StepInterface {
     switch (  mappingData.mappingTransMeta.getTransformationType() ) {
       case Normal:
       case SerialSingleThreaded:
+      case WorkStealing:
         break;
 
       case SingleThreaded:
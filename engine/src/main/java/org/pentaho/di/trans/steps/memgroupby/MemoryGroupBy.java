@@ -14,6 +14,7 @@
 
 package org.pentaho.di.trans.steps.memgroupby;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -22,6 +23,8 @@ import java.util.TreeSet;
 
 import com.google.common.annotations.VisibleForTesting;
 import org.apache.commons.math3.stat.descriptive.rank.Percentile;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemException;
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.core.exception.KettleException;
@@ -31,10 +34,15 @@ import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueDataUtil;
 import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.spill.RowSpillReader;
+import org.pentaho.di.core.row.spill.RowSpillWriter;
+import org.pentaho.di.core.row.spill.SpillCodecs;
+import org.pentaho.di.core.row.value.SortKeyEncoder;
 import org.pentaho.di.core.row.value.ValueMetaBase;
 import org.pentaho.di.core.row.value.ValueMetaInteger;
 import org.pentaho.di.core.row.value.ValueMetaNumber;
 import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.core.vfs.KettleVFS;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.trans.Trans;
 import org.pentaho.di.trans.TransMeta;
@@ -54,6 +62,12 @@ import org.pentaho.di.trans.steps.memgroupby.MemoryGroupByData.HashEntry;
 public class MemoryGroupBy extends BaseStep implements StepInterface {
   private static Class<?> PKG = MemoryGroupByMeta.class; // for i18n purposes, needed by Translator2!!
 
+  /** The number of files the rows of the groups that don't fit in memory are spread over, by hash */
+  static final int SPILL_PARTITIONS = 16;
+
+  /** Every level of spilling partitions on the next 4 bits of the hash, there are 8 levels in 32 bits */
+  static final int MAX_SPILL_LEVEL = 7;
+
   private MemoryGroupByMeta meta;
 
   private MemoryGroupByData data;
@@ -151,6 +165,17 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
       //
       initGroupMeta( data.inputRowMeta );
 
+      // Look up the groups by a binary key of the group values when possible
+      //
+      int[] keyNrs = new int[data.groupMeta.size()];
+      for ( int i = 0; i < keyNrs.length; i++ ) {
+        keyNrs[i] = i;
+      }
+      if ( SortKeyEncoder.isSupported( data.groupMeta, keyNrs ) ) {
+        data.keyEncoder = new SortKeyEncoder( data.groupMeta, keyNrs );
+      }
+
+      data.maxGroups = Const.toInt( environmentSubstitute( meta.getMaxGroupsInMemory() ), 0 );
     }
 
     if ( first ) {
@@ -195,20 +220,7 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
   private void handleLastOfGroup() throws KettleException {
     // Dump the content of the map...
     //
-    for ( HashEntry entry : data.map.keySet() ) {
-      Aggregate aggregate = data.map.get( entry );
-      Object[] aggregateResult = getAggregateResult( aggregate );
-
-      Object[] outputRowData = RowDataUtil.allocateRowData( data.outputRowMeta.size() );
-      int index = 0;
-      for ( int i = 0; i < data.groupMeta.size(); i++ ) {
-        outputRowData[index++] = data.groupMeta.getValueMeta( i ).convertToNormalStorageType( entry.getGroupData()[i] );
-      }
-      for ( int i = 0; i < data.aggMeta.size(); i++ ) {
-        outputRowData[index++] = data.aggMeta.getValueMeta( i ).convertToNormalStorageType( aggregateResult[i] );
-      }
-      putRow( data.outputRowMeta, outputRowData );
-    }
+    putGroups();
 
     // What if we always need to give back one row?
     // This means we give back 0 for count all, count distinct, null for everything else
@@ -230,6 +242,129 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
       }
       putRow( data.outputRowMeta, outputRowData );
     }
+
+    // Then the groups that didn't fit in memory
+    //
+    if ( data.spillFiles != null ) {
+      aggregateSpilledRows();
+    }
+  }
+
+  private void putGroups() throws KettleException {
+    for ( HashEntry entry : data.map.keySet() ) {
+      Aggregate aggregate = data.map.get( entry );
+      Object[] aggregateResult = getAggregateResult( aggregate );
+
+      Object[] outputRowData = RowDataUtil.allocateRowData( data.outputRowMeta.size() );
+      int index = 0;
+      for ( int i = 0; i < data.groupMeta.size(); i++ ) {
+        outputRowData[index++] = data.groupMeta.getValueMeta( i ).convertToNormalStorageType( entry.getGroupData()[i] );
+      }
+      for ( int i = 0; i < data.aggMeta.size(); i++ ) {
+        outputRowData[index++] = data.aggMeta.getValueMeta( i ).convertToNormalStorageType( aggregateResult[i] );
+      }
+      putRow( data.outputRowMeta, outputRowData );
+    }
+  }
+
+  /**
+   * Writes a row of a group that doesn't fit in memory anymore to the partition of its hash. All rows of such a group
+   * end up in the same partition, in the order they came in.
+   */
+  private void spillRow( HashEntry entry, Object[] r ) throws KettleException {
+    if ( data.spillFiles == null ) {
+      if ( log.isDetailed() ) {
+        logDetailed( BaseMessages.getString( PKG, "MemoryGroupBy.Log.SpillingGroups", data.map.size() ) );
+      }
+      data.spillFiles = new FileObject[SPILL_PARTITIONS];
+      data.spillWriters = new RowSpillWriter[SPILL_PARTITIONS];
+    }
+
+    int partition = getSpillPartition( entry.hashCode(), data.spillLevel );
+    if ( data.spillWriters[partition] == null ) {
+      String directory = environmentSubstitute( Const.NVL( meta.getSpillDirectory(), "%%java.io.tmpdir%%" ) );
+      FileObject file = KettleVFS.getInstance( getTransMeta().getBowl() )
+        .createTempFile( "memgroupby", ".tmp", directory, this );
+      data.spillFiles[partition] = file;
+      try {
+        data.spillWriters[partition] =
+          new RowSpillWriter( KettleVFS.getOutputStream( file, false ), data.inputRowMeta, data.spillCodec );
+      } catch ( IOException e ) {
+        throw new KettleException( "Unable to write to spill file " + file, e );
+      }
+    }
+    data.spillWriters[partition].writeRow( r );
+  }
+
+  /**
+   * Aggregates the spilled partitions one after the other. A partition with more groups than fit in memory is spilled
+   * again, on the next bits of the hash.
+   */
+  private void aggregateSpilledRows() throws KettleException {
+    FileObject[] files = data.spillFiles;
+    closeSpillWriters();
+    data.spillFiles = null;
+
+    data.spillLevel++;
+    try {
+      for ( int p = 0; p < files.length && !isStopped(); p++ ) {
+        if ( files[p] == null ) {
+          continue;
+        }
+        if ( log.isDetailed() ) {
+          logDetailed( BaseMessages.getString( PKG, "MemoryGroupBy.Log.AggregatingSpilledRows", files[p] ) );
+        }
+
+        data.map.clear();
+        try ( RowSpillReader reader = new RowSpillReader( KettleVFS.getInputStream( files[p] ), data.inputRowMeta ) ) {
+          for ( Object[] r = reader.readRow(); r != null && !isStopped(); r = reader.readRow() ) {
+            addToAggregate( r );
+          }
+        } catch ( IOException e ) {
+          throw new KettleException( "Unable to read back spill file " + files[p], e );
+        }
+        deleteFile( files[p] );
+        files[p] = null;
+
+        putGroups();
+        if ( data.spillFiles != null ) {
+          aggregateSpilledRows();
+        }
+      }
+      data.map.clear();
+    } finally {
+      data.spillLevel--;
+      for ( FileObject file : files ) {
+        deleteFile( file );
+      }
+    }
+  }
+
+  /**
+   * @return the partition of a hash code for a level of spilling: the next 4 bits of the spread hash code.
+   */
+  static int getSpillPartition( int hash, int level ) {
+    int h = hash * 0x9E3779B9;
+    return ( h >>> ( 28 - level * 4 ) ) & ( SPILL_PARTITIONS - 1 );
+  }
+
+  private void closeSpillWriters() {
+    if ( data.spillWriters != null ) {
+      for ( RowSpillWriter writer : data.spillWriters ) {
+        BaseStep.closeQuietly( writer );
+      }
+      data.spillWriters = null;
+    }
+  }
+
+  private void deleteFile( FileObject file ) {
+    if ( file != null ) {
+      try {
+        file.delete();
+      } catch ( FileSystemException e ) {
+        logError( e.getLocalizedMessage(), e );
+      }
+    }
   }
 
   @VisibleForTesting
@@ -263,6 +398,13 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
 
     Aggregate aggregate = data.map.get( entry );
     if ( aggregate == null ) {
+      // No room for another group: aggregate the rows of this group later on
+      //
+      if ( data.maxGroups > 0 && data.map.size() >= data.maxGroups && data.spillLevel <= MAX_SPILL_LEVEL ) {
+        spillRow( entry, r );
+        return;
+      }
+
       // Create a new value...
       //
       aggregate = new Aggregate();
@@ -576,6 +718,12 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
 
     if ( super.init( smi, sdi ) ) {
       data.map = new HashMap<HashEntry, Aggregate>( 5000 );
+      try {
+        data.spillCodec = SpillCodecs.getCodec( this, null, false );
+      } catch ( KettleException e ) {
+        logError( e.getMessage() );
+        return false;
+      }
       return true;
     }
     return false;
@@ -583,6 +731,13 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
 
   @Override
   public void dispose( StepMetaInterface smi, StepDataInterface sdi ) {
+    closeSpillWriters();
+    if ( data.spillFiles != null ) {
+      for ( FileObject file : data.spillFiles ) {
+        deleteFile( file );
+      }
+      data.spillFiles = null;
+    }
     super.dispose( smi, sdi );
     ( (MemoryGroupByData) sdi ).clear();
   }
@@ -14,11 +14,16 @@
 
 package org.pentaho.di.trans.steps.memgroupby;
 
+import java.util.Arrays;
 import java.util.HashMap;
 
+import org.apache.commons.vfs2.FileObject;
 import org.pentaho.di.core.exception.KettleValueException;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.spill.RowSpillWriter;
+import org.pentaho.di.core.row.spill.SpillCodec;
+import org.pentaho.di.core.row.value.SortKeyEncoder;
 import org.pentaho.di.trans.step.BaseStepData;
 import org.pentaho.di.trans.step.StepDataInterface;
 
@@ -30,17 +35,31 @@ import org.pentaho.di.trans.step.StepDataInterface;
 public class MemoryGroupByData extends BaseStepData implements StepDataInterface {
   public class HashEntry {
     private Object[] groupData;
+    private byte[] key;
+    private int hash;
 
     public HashEntry( Object[] groupData ) {
       this.groupData = groupData;
     }
 
+    /**
+     * Creates an entry that is compared on the binary key of the group instead of the group values.
+     */
+    public HashEntry( Object[] groupData, byte[] key ) {
+      this.groupData = groupData;
+      this.key = key;
+      this.hash = Arrays.hashCode( key );
+    }
+
     public Object[] getGroupData() {
       return groupData;
     }
 
     public boolean equals( Object obj ) {
       HashEntry entry = (HashEntry) obj;
+      if ( key != null ) {
+        return Arrays.equals( key, entry.key );
+      }
 
       try {
         return groupMeta.compare( groupData, entry.groupData ) == 0;
@@ -50,6 +69,9 @@ public class MemoryGroupByData extends BaseStepData implements StepDataInterface
     }
 
     public int hashCode() {
+      if ( key != null ) {
+        return hash;
+      }
       try {
         return groupMeta.hashCode( getHashValue() );
       } catch ( KettleValueException e ) {
@@ -91,13 +113,35 @@ public class MemoryGroupByData extends BaseStepData implements StepDataInterface
 
   public boolean newBatch;
 
+  /** Encodes the group values into binary keys, null if the group fields can't be encoded */
+  public SortKeyEncoder keyEncoder;
+
+  /** The maximum number of groups in the map, 0 or less for no limit */
+  public int maxGroups;
+
+  /** How many times the rows being aggregated were spilled and read back already */
+  public int spillLevel;
+
+  public SpillCodec spillCodec;
+
+  /** The files and writers of the partitions the rows of the groups that didn't fit in the map are spilled to */
+  public FileObject[] spillFiles;
+  public RowSpillWriter[] spillWriters;
+
   public MemoryGroupByData() {
     super();
 
   }
 
   public HashEntry getHashEntry( Object[] groupData ) {
-    return new HashEntry( groupData );
+    if ( keyEncoder == null ) {
+      return new HashEntry( groupData );
+    }
+    try {
+      return new HashEntry( groupData, keyEncoder.encode( groupData ) );
+    } catch ( KettleValueException e ) {
+      throw new RuntimeException( e );
+    }
   }
 
   /**
@@ -139,6 +139,14 @@ public class MemoryGroupByMeta extends BaseStepMeta implements StepMetaInterface
   /** Flag to indicate that we always give back one row. Defaults to true for existing transformations. */
   private boolean alwaysGivingBackOneRow;
 
+  @Injection( name = "MAXGROUPSINMEMORY" )
+  /** The maximum number of groups kept in memory before rows of new groups are spilled to disk, empty for no limit */
+  private String maxGroupsInMemory;
+
+  @Injection( name = "SPILLDIRECTORY" )
+  /** Directory to spill the rows of the groups that don't fit in memory to */
+  private String spillDirectory;
+
   public MemoryGroupByMeta() {
     super(); // allocate BaseStepMeta
   }
@@ -276,6 +284,9 @@ public class MemoryGroupByMeta extends BaseStepMeta implements StepMetaInterface
         valueField[i] = XMLHandler.getTagValue( fnode, "valuefield" );
       }
 
+      maxGroupsInMemory = XMLHandler.getTagValue( stepnode, "max_groups_in_memory" );
+      spillDirectory = XMLHandler.getTagValue( stepnode, "spill_directory" );
+
       String giveBackRow = XMLHandler.getTagValue( stepnode, "give_back_row" );
       if ( Utils.isEmpty( giveBackRow ) ) {
         alwaysGivingBackOneRow = hasNumberOfValues;
@@ -322,6 +333,9 @@ public class MemoryGroupByMeta extends BaseStepMeta implements StepMetaInterface
     int nrfields = 0;
 
     allocate( sizegroup, nrfields );
+
+    maxGroupsInMemory = null;
+    spillDirectory = "%%java.io.tmpdir%%";
   }
 
   @Override
@@ -438,6 +452,8 @@ public class MemoryGroupByMeta extends BaseStepMeta implements StepMetaInterface
     StringBuilder retval = new StringBuilder( 500 );
 
     retval.append( "      " ).append( XMLHandler.addTagValue( "give_back_row", alwaysGivingBackOneRow ) );
+    retval.append( "      " ).append( XMLHandler.addTagValue( "max_groups_in_memory", maxGroupsInMemory ) );
+    retval.append( "      " ).append( XMLHandler.addTagValue( "spill_directory", spillDirectory ) );
 
     retval.append( "      <group>" ).append( Const.CR );
     for ( int i = 0; i < groupField.length; i++ ) {
@@ -487,6 +503,8 @@ public class MemoryGroupByMeta extends BaseStepMeta implements StepMetaInterface
       }
 
       alwaysGivingBackOneRow = rep.getStepAttributeBoolean( id_step, 0, "give_back_row", hasNumberOfValues );
+      maxGroupsInMemory = rep.getStepAttributeString( id_step, "max_groups_in_memory" );
+      spillDirectory = rep.getStepAttributeString( id_step, "spill_directory" );
     } catch ( Exception e ) {
       throw new KettleException( BaseMessages.getString(
         PKG, "MemoryGroupByMeta.Exception.UnexpectedErrorInReadingStepInfoFromRepository" ), e );
@@ -497,6 +515,8 @@ public class MemoryGroupByMeta extends BaseStepMeta implements StepMetaInterface
   public void saveRep( Repository rep, IMetaStore metaStore, ObjectId id_transformation, ObjectId id_step ) throws KettleException {
     try {
       rep.saveStepAttribute( id_transformation, id_step, "give_back_row", alwaysGivingBackOneRow );
+      rep.saveStepAttribute( id_transformation, id_step, "max_groups_in_memory", maxGroupsInMemory );
+      rep.saveStepAttribute( id_transformation, id_step, "spill_directory", spillDirectory );
 
       for ( int i = 0; i < groupField.length; i++ ) {
         rep.saveStepAttribute( id_transformation, id_step, i, "group_name", groupField[i] );
@@ -560,6 +580,36 @@ public class MemoryGroupByMeta extends BaseStepMeta implements StepMetaInterface
     this.alwaysGivingBackOneRow = alwaysGivingBackOneRow;
   }
 
+  /**
+   * @return the maximum number of groups kept in memory, empty or 0 to keep all groups in memory
+   */
+  public String getMaxGroupsInMemory() {
+    return maxGroupsInMemory;
+  }
+
+  /**
+   * @param maxGroupsInMemory
+   *          the maximum number of groups kept in memory before the rows of new groups are spilled to disk
+   */
+  public void setMaxGroupsInMemory( String maxGroupsInMemory ) {
+    this.maxGroupsInMemory = maxGroupsInMemory;
+  }
+
+  /**
+   * @return the directory the rows of the groups that don't fit in memory are spilled to
+   */
+  public String getSpillDirectory() {
+    return spillDirectory;
+  }
+
+  /**
+   * @param spillDirectory
+   *          the directory the rows of the groups that don't fit in memory are spilled to
+   */
+  public void setSpillDirectory( String spillDirectory ) {
+    this.spillDirectory = spillDirectory;
+  }
+
   /**
    * If we use injection we can have different arrays lengths.
    * We need synchronize them for consistency behavior with UI
@@ -20,10 +20,12 @@ import java.util.List;
 
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleStepException;
+import org.pentaho.di.core.exception.KettleValueException;
 import org.pentaho.di.core.row.RowDataUtil;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.value.SortKeyEncoder;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.trans.Trans;
 import org.pentaho.di.trans.TransMeta;
@@ -135,6 +137,15 @@ public class MergeJoin extends BaseStep implements StepInterface {
         }
       }
 
+      // Compare normalized keys when both streams have the same kind of keys, every row is then encoded only once
+      //
+      if ( data.one != null && data.two != null
+        && SortKeyEncoder.isSupported( data.oneMeta, data.keyNrs1, data.twoMeta, data.keyNrs2 ) ) {
+        SortKeyEncoder encoder = new SortKeyEncoder( data.oneMeta, data.keyNrs1 );
+        data.oneKeys = new MergeJoinData.SortKeyCache( encoder, data.keyNrs1 );
+        data.twoKeys = new MergeJoinData.SortKeyCache( encoder, data.keyNrs2 );
+      }
+
       // Calculate one_dummy... defaults to null
       data.one_dummy = RowDataUtil.allocateRowData( data.oneMeta.size() + data.twoMeta.size() );
 
@@ -174,7 +185,7 @@ public class MergeJoin extends BaseStep implements StepInterface {
       if ( data.two == null ) {
         compare = 1;
       } else {
-        int cmp = data.oneMeta.compare( data.one, data.twoMeta, data.two, data.keyNrs1, data.keyNrs2 );
+        int cmp = compareStreams( data.one, data.two );
         compare = cmp > 0 ? 1 : cmp < 0 ? -1 : 0;
       }
     }
@@ -190,12 +201,8 @@ public class MergeJoin extends BaseStep implements StepInterface {
         data.one_next = getRowFrom( data.oneRowSet );
         data.two_next = getRowFrom( data.twoRowSet );
 
-        int compare1 =
-          ( data.one_next == null ) ? -1 : data.oneMeta.compare(
-            data.one, data.one_next, data.keyNrs1, data.keyNrs1 );
-        int compare2 =
-          ( data.two_next == null ) ? -1 : data.twoMeta.compare(
-            data.two, data.two_next, data.keyNrs2, data.keyNrs2 );
+        int compare1 = ( data.one_next == null ) ? -1 : compareOne( data.one, data.one_next );
+        int compare2 = ( data.two_next == null ) ? -1 : compareTwo( data.two, data.two_next );
         if ( compare1 == 0 || compare2 == 0 ) { // Duplicate keys
 
           if ( data.ones == null ) {
@@ -215,8 +222,7 @@ public class MergeJoin extends BaseStep implements StepInterface {
             data.ones.add( data.one_next );
             for ( ; !isStopped(); ) {
               data.one_next = getRowFrom( data.oneRowSet );
-              if ( 0 != ( ( data.one_next == null ) ? -1 : data.oneMeta.compare(
-                data.one, data.one_next, data.keyNrs1, data.keyNrs1 ) ) ) {
+              if ( 0 != ( ( data.one_next == null ) ? -1 : compareOne( data.one, data.one_next ) ) ) {
                 break;
               }
               data.ones.add( data.one_next );
@@ -231,8 +237,7 @@ public class MergeJoin extends BaseStep implements StepInterface {
             data.twos.add( data.two_next );
             for ( ; !isStopped(); ) {
               data.two_next = getRowFrom( data.twoRowSet );
-              if ( 0 != ( ( data.two_next == null ) ? -1 : data.twoMeta.compare(
-                data.two, data.two_next, data.keyNrs2, data.keyNrs2 ) ) ) {
+              if ( 0 != ( ( data.two_next == null ) ? -1 : compareTwo( data.two, data.two_next ) ) ) {
                 break;
               }
               data.twos.add( data.two_next );
@@ -386,6 +391,36 @@ public class MergeJoin extends BaseStep implements StepInterface {
     return true;
   }
 
+  /**
+   * Compares the keys of a row of the first stream with those of a row of the second stream.
+   */
+  private int compareStreams( Object[] one, Object[] two ) throws KettleValueException {
+    if ( data.oneKeys != null ) {
+      return SortKeyEncoder.compare( data.oneKeys.getKey( one ), data.twoKeys.getKey( two ) );
+    }
+    return data.oneMeta.compare( one, data.twoMeta, two, data.keyNrs1, data.keyNrs2 );
+  }
+
+  /**
+   * Compares the keys of two rows of the first stream.
+   */
+  private int compareOne( Object[] one, Object[] next ) throws KettleValueException {
+    if ( data.oneKeys != null ) {
+      return SortKeyEncoder.compare( data.oneKeys.getKey( one ), data.oneKeys.getKey( next ) );
+    }
+    return data.oneMeta.compare( one, next, data.keyNrs1, data.keyNrs1 );
+  }
+
+  /**
+   * Compares the keys of two rows of the second stream.
+   */
+  private int compareTwo( Object[] two, Object[] next ) throws KettleValueException {
+    if ( data.twoKeys != null ) {
+      return SortKeyEncoder.compare( data.twoKeys.getKey( two ), data.twoKeys.getKey( next ) );
+    }
+    return data.twoMeta.compare( two, next, data.keyNrs2, data.keyNrs2 );
+  }
+
   /**
    * @see StepInterface#init(org.pentaho.di.trans.step.StepMetaInterface , org.pentaho.di.trans.step.StepDataInterface)
    */
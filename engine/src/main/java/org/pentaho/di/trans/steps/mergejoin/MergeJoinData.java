@@ -17,7 +17,9 @@ package org.pentaho.di.trans.steps.mergejoin;
 import java.util.List;
 
 import org.pentaho.di.core.RowSet;
+import org.pentaho.di.core.exception.KettleValueException;
 import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.SortKeyEncoder;
 import org.pentaho.di.trans.step.BaseStepData;
 import org.pentaho.di.trans.step.StepDataInterface;
 
@@ -38,6 +40,9 @@ public class MergeJoinData extends BaseStepData implements StepDataInterface {
   public int[] keyNrs1;
   public int[] keyNrs2;
 
+  /** The normalized keys of both streams, null if the keys are compared field by field */
+  public SortKeyCache oneKeys, twoKeys;
+
   public RowSet oneRowSet;
   public RowSet twoRowSet;
 
@@ -56,6 +61,36 @@ public class MergeJoinData extends BaseStepData implements StepDataInterface {
     two_optional = false;
     keyNrs1 = null;
     keyNrs2 = null;
+    oneKeys = null;
+    twoKeys = null;
+  }
+
+  /**
+   * Remembers the normalized keys of the last two rows of a stream, the current row and the next one, so that no row
+   * is encoded twice while looking for duplicate keys.
+   */
+  public static class SortKeyCache {
+    private final SortKeyEncoder encoder;
+    private final int[] keyNrs;
+    private Object[] lastRow, previousRow;
+    private byte[] lastKey, previousKey;
+
+    public SortKeyCache( SortKeyEncoder encoder, int[] keyNrs ) {
+      this.encoder = encoder;
+      this.keyNrs = keyNrs;
+    }
+
+    public byte[] getKey( Object[] row ) throws KettleValueException {
+      if ( row == lastRow ) {
+        return lastKey;
+      }
+      byte[] key = row == previousRow ? previousKey : encoder.encode( row, keyNrs );
+      previousRow = lastRow;
+      previousKey = lastKey;
+      lastRow = row;
+      lastKey = key;
+      return key;
+    }
   }
 
 }
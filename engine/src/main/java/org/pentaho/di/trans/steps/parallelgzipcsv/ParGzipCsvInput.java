@@ -20,7 +20,9 @@ import java.util.List;
 import java.util.zip.GZIPInputStream;
 
 import org.apache.commons.vfs2.FileObject;
+import org.pentaho.di.core.Const;
 import org.pentaho.di.core.ResultFile;
+import org.pentaho.di.core.compress.gzip.ParallelGzipInputStream;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleFileException;
 import org.pentaho.di.core.row.RowDataUtil;
@@ -184,7 +186,7 @@ public class ParGzipCsvInput extends BaseStep implements StepInterface {
       try {
         long bytesSkipped = 0;
         while ( bytesSkipped < bytesToSkip ) {
-          long n = data.gzis.skip( bytesToSkip - bytesSkipped );
+          long n = data.getGzipInputStream().skip( bytesToSkip - bytesSkipped );
           if ( n <= 0 ) {
             // EOF reached...
             //
@@ -280,7 +282,16 @@ public class ParGzipCsvInput extends BaseStep implements StepInterface {
         data.binaryFilename = data.filenames[data.filenr].getBytes();
       }
 
-      data.gzis = new GZIPInputStream( data.fis, data.bufferSize );
+      // Unlike the GZip compression provider, which only sees the system properties, a step can read the variable
+      // from the transformation.
+      //
+      if ( "Y".equalsIgnoreCase( getVariable( Const.KETTLE_PARALLEL_GZIP_INPUT, "N" ) ) ) {
+        data.gzis = null;
+        data.parallelGzis = new ParallelGzipInputStream( data.fis );
+      } else {
+        data.gzis = new GZIPInputStream( data.fis, data.bufferSize );
+        data.parallelGzis = null;
+      }
 
       clearBuffer();
       data.fileReadPosition = 0L;
@@ -324,7 +335,7 @@ public class ParGzipCsvInput extends BaseStep implements StepInterface {
 
           long bytesSkipped = 0L;
           while ( bytesSkipped < bytesToSkip ) {
-            long n = data.gzis.skip( bytesToSkip - bytesSkipped );
+            long n = data.getGzipInputStream().skip( bytesToSkip - bytesSkipped );
             if ( n <= 0 ) {
               // EOF in this file, can't read a block in this step copy
               data.eofReached = true;
@@ -731,8 +742,8 @@ public class ParGzipCsvInput extends BaseStep implements StepInterface {
   public void closeFile() throws KettleException {
 
     try {
-      if ( data.gzis != null ) {
-        data.gzis.close();
+      if ( data.getGzipInputStream() != null ) {
+        data.getGzipInputStream().close();
       }
       if ( data.fis != null ) {
         incrementLinesUpdated();
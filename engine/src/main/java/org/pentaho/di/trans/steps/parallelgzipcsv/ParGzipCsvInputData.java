@@ -18,6 +18,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.zip.GZIPInputStream;
 
+import org.pentaho.di.core.compress.gzip.ParallelGzipInputStream;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.trans.step.BaseStepData;
@@ -48,6 +49,9 @@ public class ParGzipCsvInputData extends BaseStepData implements StepDataInterfa
   public int filenameFieldIndex;
   public int rownumFieldIndex;
   public GZIPInputStream gzis;
+
+  /** Used instead of {@link #gzis} when the members of the file are inflated in parallel */
+  public ParallelGzipInputStream parallelGzis;
   public int bufferSize;
   public byte[] delimiter;
   public byte[] enclosure;
@@ -139,7 +143,7 @@ public class ParGzipCsvInputData extends BaseStepData implements StepDataInterfa
     int leftToRead = size;
     try {
       while ( bytesRead < size ) {
-        int n = gzis.read( byteBuffer, maxBuffer, leftToRead );
+        int n = getGzipInputStream().read( byteBuffer, maxBuffer, leftToRead );
         if ( n < 0 ) {
           // EOF, nothing more to read in combination with the need to get more data means we're done.
           //
@@ -159,4 +163,11 @@ public class ParGzipCsvInputData extends BaseStepData implements StepDataInterfa
       throw new KettleException( "Unable to read " + size + " bytes from the gzipped input file", e );
     }
   }
+
+  /**
+   * @return the stream inflating the current file
+   */
+  public InputStream getGzipInputStream() {
+    return parallelGzis != null ? parallelGzis : gzis;
+  }
 }
@@ -19,10 +19,17 @@ package org.pentaho.di.trans.steps.sort;
  */
 public class RowTempFile {
   public Object[] row;
+  /** The normalized sort key of the row, null when the sort keys can't be normalized */
+  public byte[] key;
   public int fileNumber;
 
   public RowTempFile( Object[] row, int fileNumber ) {
     this.row = row;
     this.fileNumber = fileNumber;
   }
+
+  public RowTempFile( Object[] row, byte[] key, int fileNumber ) {
+    this( row, fileNumber );
+    this.key = key;
+  }
 }
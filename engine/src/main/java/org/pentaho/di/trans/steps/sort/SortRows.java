@@ -14,20 +14,15 @@
 
 package org.pentaho.di.trans.steps.sort;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.net.SocketTimeoutException;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.apache.commons.vfs2.FileObject;
 import org.apache.commons.vfs2.FileSystemException;
@@ -37,6 +32,11 @@ import org.pentaho.di.core.exception.KettleFileException;
 import org.pentaho.di.core.exception.KettleValueException;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.spill.RowSpillReader;
+import org.pentaho.di.core.row.spill.RowSpillWriter;
+import org.pentaho.di.core.row.spill.SpillCodecs;
+import org.pentaho.di.core.row.value.SortKeyEncoder;
+import org.pentaho.di.core.util.ExecutorUtil;
 import org.pentaho.di.core.vfs.KettleVFS;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.trans.Trans;
@@ -124,25 +124,14 @@ public class SortRows extends BaseStep implements StepInterface {
     quickSort( data.buffer );
 
     // Then write them to disk...
-    DataOutputStream dos;
-    GZIPOutputStream gzos;
+    RowSpillWriter writer;
     int p;
 
     try {
-      FileObject fileObject =
-          KettleVFS.getInstance( getTransMeta().getBowl() )
-            .createTempFile( meta.getPrefix(), ".tmp", environmentSubstitute( meta.getDirectory() ), getTransMeta() );
+      FileObject fileObject = createTempFile();
 
       data.files.add( fileObject ); // Remember the files!
-      OutputStream outputStream = KettleVFS.getInstance( getTransMeta().getBowl() )
-        .getOutputStream( fileObject, false );
-      if ( data.compressFiles ) {
-        gzos = new GZIPOutputStream( new BufferedOutputStream( outputStream ) );
-        dos = new DataOutputStream( gzos );
-      } else {
-        dos = new DataOutputStream( new BufferedOutputStream( outputStream, 500000 ) );
-        gzos = null;
-      }
+      writer = getRowSpillWriter( fileObject );
 
       // Just write the data, nothing else
       List<Integer> duplicates = new ArrayList<Integer>();
@@ -167,7 +156,7 @@ public class SortRows extends BaseStep implements StepInterface {
       }
 
       // How many records do we have left?
-      data.bufferSizes.add( data.buffer.size() - duplicates.size() );
+      data.bufferSizes.add( (long) ( data.buffer.size() - duplicates.size() ) );
 
       int duplicatesIndex = 0;
       for ( p = 0; p < data.buffer.size(); p++ ) {
@@ -179,7 +168,7 @@ public class SortRows extends BaseStep implements StepInterface {
           }
         }
         if ( !skip ) {
-          data.outputRowMeta.writeData( dos, data.buffer.get( p ) );
+          writer.writeRow( data.buffer.get( p ) );
         }
       }
 
@@ -200,11 +189,7 @@ public class SortRows extends BaseStep implements StepInterface {
       data.buffer.clear();
 
       // Close temp-file
-      dos.close(); // close data stream
-      if ( gzos != null ) {
-        gzos.close(); // close gzip stream
-      }
-      outputStream.close(); // close file stream
+      writer.close(); // closes the compression and file streams as well
 
       // How much memory do we have left?
       //
@@ -223,10 +208,116 @@ public class SortRows extends BaseStep implements StepInterface {
     data.getBufferIndex = 0;
   }
 
-  private DataInputStream getDataInputStream( GZIPInputStream gzipInputStream ) {
-    DataInputStream result = new DataInputStream( gzipInputStream );
-    data.gzis.add( gzipInputStream );
-    return result;
+  private FileObject createTempFile() throws KettleFileException {
+    return KettleVFS.getInstance( getTransMeta().getBowl() )
+      .createTempFile( meta.getPrefix(), ".tmp", environmentSubstitute( meta.getDirectory() ), getTransMeta() );
+  }
+
+  private RowSpillWriter getRowSpillWriter( FileObject fileObject ) throws KettleFileException, IOException {
+    return new RowSpillWriter( KettleVFS.getInstance( getTransMeta().getBowl() ).getOutputStream( fileObject, false ),
+      data.outputRowMeta, data.spillCodec );
+  }
+
+  private RowSpillReader openTempFile( FileObject fileObject ) throws KettleFileException, IOException {
+    return new RowSpillReader( KettleVFS.getInputStream( fileObject ), data.outputRowMeta );
+  }
+
+  /**
+   * Merges the temporary files in one or more passes until there are no more than the maximum number of files to merge
+   * at once ({@link Const#KETTLE_SORT_MERGE_FAN_IN}) left. The files of a pass are merged in groups, in parallel. The
+   * groups are made of consecutive files so rows with equal keys stay in the order they came in.
+   */
+  void mergeTempFiles() throws KettleException {
+    int fanIn = data.mergeFanIn;
+    int parallelism = Math.max( 1, Runtime.getRuntime().availableProcessors() );
+    while ( fanIn > 1 && data.files.size() > fanIn && !isStopped() ) {
+      int nrGroups = ( data.files.size() + fanIn - 1 ) / fanIn;
+      if ( log.isBasic() ) {
+        logBasic( BaseMessages.getString( PKG, "SortRows.Basic.MergingTempFiles", data.files.size(), nrGroups ) );
+      }
+
+      List<FileObject> mergedFiles = new ArrayList<FileObject>( nrGroups );
+      List<Long> mergedSizes = new ArrayList<Long>( nrGroups );
+      for ( int first = 0; first < nrGroups; first += parallelism ) {
+        List<Callable<FileObject>> merges = new ArrayList<Callable<FileObject>>();
+        for ( int g = first; g < nrGroups && g < first + parallelism; g++ ) {
+          int from = g * fanIn;
+          int to = Math.min( from + fanIn, data.files.size() );
+          List<FileObject> files = new ArrayList<FileObject>( data.files.subList( from, to ) );
+          List<Long> sizes = new ArrayList<Long>( data.bufferSizes.subList( from, to ) );
+          merges.add( () -> mergeTempFiles( files, sizes ) );
+
+          long size = 0;
+          for ( Long fileSize : sizes ) {
+            size += fileSize;
+          }
+          mergedSizes.add( size );
+        }
+        try {
+          for ( Future<FileObject> merge : ExecutorUtil.getExecutor().invokeAll( merges ) ) {
+            mergedFiles.add( merge.get() );
+          }
+        } catch ( InterruptedException e ) {
+          Thread.currentThread().interrupt();
+          throw new KettleException( "Interrupted while merging temp-files!", e );
+        } catch ( ExecutionException e ) {
+          throw new KettleException( "Error merging temp-files!", e.getCause() );
+        }
+      }
+
+      data.files = mergedFiles;
+      data.bufferSizes = mergedSizes;
+    }
+  }
+
+  /**
+   * Merges a group of sorted temporary files into a single new one, the group of files is deleted afterwards.
+   */
+  private FileObject mergeTempFiles( List<FileObject> files, List<Long> sizes ) throws KettleException {
+    if ( files.size() == 1 ) {
+      return files.get( 0 );
+    }
+
+    List<RowSpillReader> inputs = new ArrayList<RowSpillReader>( files.size() );
+    FileObject merged = createTempFile();
+    try ( RowSpillWriter writer = getRowSpillWriter( merged ) ) {
+      long[] remaining = new long[files.size()];
+      PriorityQueue<RowTempFile> heap = new PriorityQueue<RowTempFile>( files.size(), data.comparator );
+      for ( int f = 0; f < files.size(); f++ ) {
+        RowSpillReader reader = openTempFile( files.get( f ) );
+        inputs.add( reader );
+        remaining[f] = sizes.get( f );
+        if ( remaining[f] > 0 ) {
+          Object[] row = reader.readRow();
+          heap.add( new RowTempFile( row, encodeSortKey( row ), f ) );
+        }
+      }
+
+      while ( !heap.isEmpty() && !isStopped() ) {
+        RowTempFile smallest = heap.poll();
+        writer.writeRow( smallest.row );
+        if ( --remaining[smallest.fileNumber] > 0 ) {
+          smallest.row = inputs.get( smallest.fileNumber ).readRow();
+          smallest.key = encodeSortKey( smallest.row );
+          heap.add( smallest );
+        }
+      }
+    } catch ( Exception e ) {
+      throw new KettleException( "Error merging temp-files!", e );
+    } finally {
+      for ( RowSpillReader reader : inputs ) {
+        BaseStep.closeQuietly( reader );
+      }
+    }
+
+    for ( FileObject file : files ) {
+      try {
+        file.delete();
+      } catch ( FileSystemException e ) {
+        logError( e.getLocalizedMessage(), e );
+      }
+    }
+    return merged;
   }
 
   // get sorted rows from available files in iterative manner.
@@ -236,7 +327,16 @@ public class SortRows extends BaseStep implements StepInterface {
     Object[] retval;
 
     // Open all files at once and read one row from each file...
-    if ( data.files.size() > 0 && ( data.dis.size() == 0 || data.fis.size() == 0 ) ) {
+    if ( data.files.size() > 0 && data.readers.size() == 0 ) {
+      try {
+        mergeTempFiles();
+      } catch ( KettleException e ) {
+        logError( BaseMessages.getString( PKG, "SortRows.Error.ErrorReadingBackTempFiles" ), e );
+        setErrors( 1 );
+        stopAll();
+        return null;
+      }
+
       if ( log.isBasic() ) {
         logBasic( BaseMessages.getString( PKG, "SortRows.Basic.OpeningTempFiles", data.files.size() ) );
       }
@@ -248,18 +348,11 @@ public class SortRows extends BaseStep implements StepInterface {
           if ( log.isDetailed() ) {
             logDetailed( BaseMessages.getString( PKG, "SortRows.Detailed.OpeningTempFile", filename ) );
           }
-          InputStream fi = KettleVFS.getInputStream( fileObject );
-          DataInputStream di;
-          data.fis.add( fi );
-          if ( data.compressFiles ) {
-            di = getDataInputStream( new GZIPInputStream( new BufferedInputStream( fi ) ) );
-          } else {
-            di = new DataInputStream( new BufferedInputStream( fi, 50000 ) );
-          }
-          data.dis.add( di );
+          RowSpillReader reader = openTempFile( fileObject );
+          data.readers.add( reader );
 
           // How long is the buffer?
-          int buffersize = data.bufferSizes.get( f );
+          long buffersize = data.bufferSizes.get( f );
 
           if ( log.isDetailed() ) {
             logDetailed( BaseMessages.getString( PKG, "SortRows.Detailed.FromFileExpectingRows",
@@ -267,14 +360,11 @@ public class SortRows extends BaseStep implements StepInterface {
           }
 
           if ( buffersize > 0 ) {
-            Object[] row = data.outputRowMeta.readData( di );
+            Object[] row = reader.readRow();
             data.rowbuffer.add( row ); // new row from input stream
-            data.tempRows.add( new RowTempFile( row, f ) );
+            data.tempRows.add( new RowTempFile( row, encodeSortKey( row ), f ) );
           }
         }
-
-        // Sort the data row buffer
-        Collections.sort( data.tempRows, data.comparator );
       } catch ( Exception e ) {
         logError( BaseMessages.getString( PKG, "SortRows.Error.ErrorReadingBackTempFiles" ), e );
       }
@@ -305,34 +395,26 @@ public class SortRows extends BaseStep implements StepInterface {
           }
         }
 
-        RowTempFile rowTempFile = data.tempRows.remove( 0 );
+        RowTempFile rowTempFile = data.tempRows.poll();
         retval = rowTempFile.row;
         int smallest = rowTempFile.fileNumber;
 
         // now get another Row for position smallest
 
         FileObject file = data.files.get( smallest );
-        DataInputStream di = data.dis.get( smallest );
-        InputStream fi = data.fis.get( smallest );
+        RowSpillReader reader = data.readers.get( smallest );
 
         try {
-          Object[] row2 = data.outputRowMeta.readData( di );
-          RowTempFile extra = new RowTempFile( row2, smallest );
-
-          int index = Collections.binarySearch( data.tempRows, extra, data.comparator );
-          if ( index < 0 ) {
-            data.tempRows.add( index * ( -1 ) - 1, extra );
-          } else {
-            data.tempRows.add( index, extra );
-          }
-        } catch ( KettleFileException fe ) { // empty file or EOF mostly
-          GZIPInputStream gzfi = ( data.compressFiles ) ? data.gzis.get( smallest ) : null;
+          rowTempFile.row = reader.readRow();
+        } catch ( KettleFileException e ) {
+          throw new KettleValueException( e );
+        }
+        if ( rowTempFile.row != null ) {
+          rowTempFile.key = encodeSortKey( rowTempFile.row );
+          data.tempRows.add( rowTempFile );
+        } else { // all rows of the file are read
           try {
-            di.close();
-            fi.close();
-            if ( gzfi != null ) {
-              gzfi.close();
-            }
+            reader.close();
             file.delete();
           } catch ( IOException e ) {
             logError( BaseMessages.getString( PKG, "SortRows.Error.UnableToCloseFile", smallest, file.toString() ) );
@@ -342,23 +424,16 @@ public class SortRows extends BaseStep implements StepInterface {
           }
 
           data.files.remove( smallest );
-          data.dis.remove( smallest );
-          data.fis.remove( smallest );
-
-          if ( gzfi != null ) {
-            data.gzis.remove( smallest );
-          }
+          data.readers.remove( smallest );
 
           // Also update all file numbers in in data.tempRows if they are larger
-          // than smallest.
+          // than smallest. This doesn't change their order.
           //
           for ( RowTempFile rtf : data.tempRows ) {
             if ( rtf.fileNumber > smallest ) {
               rtf.fileNumber--;
             }
           }
-        } catch ( SocketTimeoutException e ) {
-          throw new KettleValueException( e ); // should never happen on local files
         }
       }
     }
@@ -413,6 +488,7 @@ public class SortRows extends BaseStep implements StepInterface {
       meta.getFields( getTransMeta().getBowl(), data.outputRowMeta, getStepname(), null, null, this, repository,
         metaStore );
       data.comparator = new RowTemapFileComparator( data.outputRowMeta, data.fieldnrs );
+      data.tempRows = new PriorityQueue<RowTempFile>( 11, data.comparator );
 
       for ( int i = 0; i < fieldNames.length; i++ ) {
         data.fieldnrs[i] = inputRowMeta.indexOfValue( fieldNames[i] );
@@ -432,6 +508,9 @@ public class SortRows extends BaseStep implements StepInterface {
         i++;
       }
       data.rowComparator = new RowObjectArrayComparator( data.outputRowMeta, data.fieldnrs );
+      if ( SortKeyEncoder.isSupported( data.outputRowMeta, data.fieldnrs ) ) {
+        data.sortKeyEncoder = new SortKeyEncoder( data.outputRowMeta, data.fieldnrs );
+      }
     } // end if first
 
     // it is not first row and it is null
@@ -569,8 +648,14 @@ public class SortRows extends BaseStep implements StepInterface {
     data.rowbuffer = new ArrayList<Object[]>( 5000 );
 
     data.compressFiles = getBooleanValueOfVariable( meta.getCompressFilesVariable(), meta.getCompressFiles() );
+    try {
+      data.spillCodec = SpillCodecs.getCodec( this, meta.getSpillCompression(), data.compressFiles );
+    } catch ( KettleException e ) {
+      logError( e.getMessage() );
+      return false;
+    }
 
-    data.tempRows = new ArrayList<RowTempFile>();
+    data.mergeFanIn = Const.toInt( getVariable( Const.KETTLE_SORT_MERGE_FAN_IN ), Const.SORT_MERGE_FAN_IN );
 
     data.minSortSize = 5000;
 
@@ -590,16 +675,10 @@ public class SortRows extends BaseStep implements StepInterface {
     data.getBufferIndex = 0;
     data.rowbuffer.clear();
 
-    // close any open DataInputStream objects
-    if ( ( data.dis != null ) && ( data.dis.size() > 0 ) ) {
-      for ( DataInputStream dis : data.dis ) {
-        BaseStep.closeQuietly( dis );
-      }
-    }
-    // close any open InputStream objects
-    if ( ( data.fis != null ) && ( data.fis.size() > 0 ) ) {
-      for ( InputStream is : data.fis ) {
-        BaseStep.closeQuietly( is );
+    // close any open temp file readers
+    if ( data.readers != null ) {
+      for ( RowSpillReader reader : data.readers ) {
+        BaseStep.closeQuietly( reader );
       }
     }
     // remove temp files
@@ -620,7 +699,27 @@ public class SortRows extends BaseStep implements StepInterface {
    */
   void quickSort( List<Object[]> elements ) throws KettleException {
     if ( elements.size() > 0 ) {
-      Collections.sort( elements, data.rowComparator );
+      // Sort on all available cores, just like Collections.sort() this is a stable sort
+      //
+      if ( data.sortKeyEncoder != null ) {
+        // Encode the keys once so that every comparison is a plain byte comparison
+        //
+        SortKeyRow[] rows = new SortKeyRow[elements.size()];
+        for ( int i = 0; i < rows.length; i++ ) {
+          Object[] row = elements.get( i );
+          rows[i] = new SortKeyRow( data.sortKeyEncoder.encode( row ), row );
+        }
+        Arrays.parallelSort( rows );
+        for ( int i = 0; i < rows.length; i++ ) {
+          elements.set( i, rows[i].row );
+        }
+      } else {
+        Object[][] rows = elements.toArray( new Object[elements.size()][] );
+        Arrays.parallelSort( rows, data.rowComparator );
+        for ( int i = 0; i < rows.length; i++ ) {
+          elements.set( i, rows[i] );
+        }
+      }
 
       long nrConversions = 0L;
       for ( ValueMetaInterface valueMeta : data.outputRowMeta.getValueMetaList() ) {
@@ -665,6 +764,13 @@ public class SortRows extends BaseStep implements StepInterface {
     return getInputRowMeta().compare( previous, r, data.groupnrs ) == 0;
   }
 
+  /**
+   * @return the normalized sort key of the row or null if the sort keys can't be normalized
+   */
+  private byte[] encodeSortKey( Object[] row ) throws KettleValueException {
+    return data.sortKeyEncoder == null ? null : data.sortKeyEncoder.encode( row );
+  }
+
   private void setPrevious( Object[] r ) throws KettleException {
     if ( r != null ) {
       this.data.previous = getInputRowMeta().cloneRow( r );
@@ -689,7 +795,10 @@ public class SortRows extends BaseStep implements StepInterface {
     @Override
     public int compare( RowTempFile o1, RowTempFile o2 ) {
       try {
-        return rowMeta.compare( o1.row, o2.row, fieldNrs );
+        int cmp = o1.key != null
+          ? SortKeyEncoder.compare( o1.key, o2.key ) : rowMeta.compare( o1.row, o2.row, fieldNrs );
+        // Equal rows come out of the oldest temp file first
+        return cmp != 0 ? cmp : Integer.compare( o1.fileNumber, o2.fileNumber );
       } catch ( KettleValueException e ) {
         logError( "Error comparing rows: " + e.toString() );
         return 0;
@@ -712,4 +821,19 @@ public class SortRows extends BaseStep implements StepInterface {
       }
     }
   }
+
+  private static final class SortKeyRow implements Comparable<SortKeyRow> {
+    private final byte[] key;
+    private final Object[] row;
+
+    SortKeyRow( byte[] key, Object[] row ) {
+      this.key = key;
+      this.row = row;
+    }
+
+    @Override
+    public int compareTo( SortKeyRow other ) {
+      return SortKeyEncoder.compare( key, other.key );
+    }
+  }
 }
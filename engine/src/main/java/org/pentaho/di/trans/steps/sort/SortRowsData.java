@@ -14,15 +14,16 @@
 
 package org.pentaho.di.trans.steps.sort;
 
-import java.io.DataInputStream;
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
-import java.util.zip.GZIPInputStream;
+import java.util.PriorityQueue;
 
 import org.apache.commons.vfs2.FileObject;
 import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.spill.RowSpillReader;
+import org.pentaho.di.core.row.spill.SpillCodec;
+import org.pentaho.di.core.row.value.SortKeyEncoder;
 import org.pentaho.di.trans.step.BaseStepData;
 import org.pentaho.di.trans.step.StepDataInterface;
 
@@ -35,25 +36,28 @@ public class SortRowsData extends BaseStepData implements StepDataInterface {
   public List<Object[]> buffer;
   public int getBufferIndex;
 
-  public List<InputStream> fis;
-  public List<GZIPInputStream> gzis;
-  public List<DataInputStream> dis;
+  public List<RowSpillReader> readers;
   public List<Object[]> rowbuffer;
-  public List<Integer> bufferSizes;
+  public List<Long> bufferSizes;
 
-  // To store rows and file references
-  public List<RowTempFile> tempRows;
+  // To store rows and file references, the smallest row comes first
+  public PriorityQueue<RowTempFile> tempRows;
+
+  // The maximum number of temp files to merge at once
+  public int mergeFanIn;
 
   public int[] fieldnrs; // the corresponding field numbers;
   public FileObject fil;
   public RowMetaInterface outputRowMeta;
   public int sortSize;
   public boolean compressFiles;
+  public SpillCodec spillCodec;
   public int[] convertKeysToNative;
   public boolean convertAnyKeysToNative;
 
   Comparator<RowTempFile> comparator;
   Comparator<Object[]> rowComparator;
+  SortKeyEncoder sortKeyEncoder;
 
   public int freeCounter;
   public int freeMemoryPct;
@@ -72,10 +76,8 @@ public class SortRowsData extends BaseStepData implements StepDataInterface {
     super();
 
     files = new ArrayList<FileObject>();
-    fis = new ArrayList<InputStream>();
-    gzis = new ArrayList<GZIPInputStream>();
-    dis = new ArrayList<DataInputStream>();
-    bufferSizes = new ArrayList<Integer>();
+    readers = new ArrayList<RowSpillReader>();
+    bufferSizes = new ArrayList<Long>();
 
     previous = null; // Heroic
   }
@@ -114,6 +114,10 @@ public class SortRowsMeta extends BaseStepMeta implements StepMetaInterface, Ser
   /** The variable to use to set the compressFiles option boolean */
   private String compressFilesVariable;
 
+  /** The codec of the temporary files: None, LZ4, Zstd or GZIP, empty to use the compress option */
+  @Injection( name = "SPILL_COMPRESSION" )
+  private String spillCompression;
+
   public SortRowsMeta() {
     super(); // allocate BaseStepMeta
   }
@@ -218,6 +222,7 @@ public class SortRowsMeta extends BaseStepMeta implements StepMetaInterface, Ser
       freeMemoryLimit = XMLHandler.getTagValue( stepnode, "free_memory" );
       compressFiles = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "compress" ) );
       compressFilesVariable = XMLHandler.getTagValue( stepnode, "compress_variable" );
+      spillCompression = XMLHandler.getTagValue( stepnode, "spill_compression" );
       onlyPassingUniqueRows = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "unique_rows" ) );
 
       Node fields = XMLHandler.getSubNode( stepnode, "fields" );
@@ -254,6 +259,7 @@ public class SortRowsMeta extends BaseStepMeta implements StepMetaInterface, Ser
     freeMemoryLimit = null;
     compressFiles = false;
     compressFilesVariable = null;
+    spillCompression = null;
     onlyPassingUniqueRows = false;
 
     int nrfields = 0;
@@ -284,6 +290,7 @@ public class SortRowsMeta extends BaseStepMeta implements StepMetaInterface, Ser
     retval.append( "      " ).append( XMLHandler.addTagValue( "free_memory", freeMemoryLimit ) );
     retval.append( "      " ).append( XMLHandler.addTagValue( "compress", compressFiles ) );
     retval.append( "      " ).append( XMLHandler.addTagValue( "compress_variable", compressFilesVariable ) );
+    retval.append( "      " ).append( XMLHandler.addTagValue( "spill_compression", spillCompression ) );
     retval.append( "      " ).append( XMLHandler.addTagValue( "unique_rows", onlyPassingUniqueRows ) );
 
     retval.append( "    <fields>" ).append( Const.CR );
@@ -313,6 +320,7 @@ public class SortRowsMeta extends BaseStepMeta implements StepMetaInterface, Ser
 
       compressFiles = rep.getStepAttributeBoolean( id_step, "compress" );
       compressFilesVariable = rep.getStepAttributeString( id_step, "compress_variable" );
+      spillCompression = rep.getStepAttributeString( id_step, "spill_compression" );
 
       onlyPassingUniqueRows = rep.getStepAttributeBoolean( id_step, "unique_rows" );
 
@@ -366,6 +374,7 @@ public class SortRowsMeta extends BaseStepMeta implements StepMetaInterface, Ser
       rep.saveStepAttribute( id_transformation, id_step, "free_memory", freeMemoryLimit );
       rep.saveStepAttribute( id_transformation, id_step, "compress", compressFiles );
       rep.saveStepAttribute( id_transformation, id_step, "compress_variable", compressFilesVariable );
+      rep.saveStepAttribute( id_transformation, id_step, "spill_compression", spillCompression );
       rep.saveStepAttribute( id_transformation, id_step, "unique_rows", onlyPassingUniqueRows );
 
       for ( int i = 0; i < fieldName.length; i++ ) {
@@ -575,6 +584,22 @@ public class SortRowsMeta extends BaseStepMeta implements StepMetaInterface, Ser
     this.compressFilesVariable = compressFilesVariable;
   }
 
+  /**
+   * @return the name of the codec of the temporary files, empty to use the compress option or the
+   *         KETTLE_SPILL_COMPRESSION variable
+   */
+  public String getSpillCompression() {
+    return spillCompression;
+  }
+
+  /**
+   * @param spillCompression
+   *          the name of the codec of the temporary files: None, LZ4, Zstd or GZIP
+   */
+  public void setSpillCompression( String spillCompression ) {
+    this.spillCompression = spillCompression;
+  }
+
   /**
    * @return the caseSensitive
    */
@@ -21,6 +21,7 @@ public class RowSetRow {
   private RowSet rowSet;
   private RowMetaInterface rowMeta;
   private Object[] rowData;
+  private byte[] key;
 
   /**
    * @param rowSet
@@ -77,4 +78,19 @@ public class RowSetRow {
   public void setRowMeta( RowMetaInterface rowMeta ) {
     this.rowMeta = rowMeta;
   }
+
+  /**
+   * @return the normalized sort key of the row data, null if the sort fields can't be normalized
+   */
+  public byte[] getKey() {
+    return key;
+  }
+
+  /**
+   * @param key
+   *          the normalized sort key to set
+   */
+  public void setKey( byte[] key ) {
+    this.key = key;
+  }
 }
@@ -23,6 +23,7 @@ import org.pentaho.di.core.RowSet;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleStepException;
 import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.row.value.SortKeyEncoder;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.trans.Trans;
 import org.pentaho.di.trans.TransMeta;
@@ -85,10 +86,6 @@ public class SortedMerge extends BaseStep implements StepInterface {
         RowSet rowSet = inputRowSets.get( i );
         Object[] row = getRowFrom( rowSet );
         if ( row != null ) {
-          // Add this row to the sortedBuffer...
-          // Which is not yet sorted, we'll get to that later.
-          //
-          data.sortedBuffer.add( new RowSetRow( rowSet, rowSet.getRowMeta(), row ) );
           if ( data.rowMeta == null ) {
             data.rowMeta = rowSet.getRowMeta().clone();
           }
@@ -110,12 +107,26 @@ public class SortedMerge extends BaseStep implements StepInterface {
 
               data.rowMeta.getValueMeta( data.fieldIndices[f] ).setSortedDescending( !meta.getAscending()[f] );
             }
+
+            // Compare normalized keys if the sort fields allow it, every row is then encoded only once
+            //
+            if ( SortKeyEncoder.isSupported( rowSet.getRowMeta(), data.fieldIndices ) ) {
+              data.sortKeyEncoder = new SortKeyEncoder( rowSet.getRowMeta(), data.fieldIndices );
+            }
           }
+
+          // Add this row to the sortedBuffer...
+          // Which is not yet sorted, we'll get to that later.
+          //
+          data.sortedBuffer.add( createRowSetRow( rowSet, row ) );
         }
 
         data.comparator = new Comparator<RowSetRow>() {
 
           public int compare( RowSetRow o1, RowSetRow o2 ) {
+            if ( o1.getKey() != null ) {
+              return SortKeyEncoder.compare( o1.getKey(), o2.getKey() );
+            }
             try {
               return o1.getRowMeta().compare( o1.getRowData(), o2.getRowData(), data.fieldIndices );
             } catch ( KettleValueException e ) {
@@ -153,7 +164,7 @@ public class SortedMerge extends BaseStep implements StepInterface {
     if ( extraRow != null ) {
       // Add this one to the sortedBuffer
       //
-      RowSetRow add = new RowSetRow( smallestRow.getRowSet(), smallestRow.getRowSet().getRowMeta(), extraRow );
+      RowSetRow add = createRowSetRow( smallestRow.getRowSet(), extraRow );
       int index = Collections.binarySearch( data.sortedBuffer, add, data.comparator );
       if ( index < 0 ) {
         data.sortedBuffer.add( -index - 1, add );
@@ -176,6 +187,14 @@ public class SortedMerge extends BaseStep implements StepInterface {
     return outputRowData;
   }
 
+  private RowSetRow createRowSetRow( RowSet rowSet, Object[] row ) throws KettleValueException {
+    RowSetRow rowSetRow = new RowSetRow( rowSet, rowSet.getRowMeta(), row );
+    if ( data.sortKeyEncoder != null ) {
+      rowSetRow.setKey( data.sortKeyEncoder.encode( row ) );
+    }
+    return rowSetRow;
+  }
+
   public boolean processRow( StepMetaInterface smi, StepDataInterface sdi ) throws KettleException {
     meta = (SortedMergeMeta) smi;
     data = (SortedMergeData) sdi;
@@ -18,6 +18,7 @@ import java.util.Comparator;
 import java.util.List;
 
 import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.SortKeyEncoder;
 import org.pentaho.di.trans.step.BaseStepData;
 import org.pentaho.di.trans.step.StepDataInterface;
 
@@ -32,6 +33,7 @@ public class SortedMergeData extends BaseStepData implements StepDataInterface {
   public RowMetaInterface rowMeta;
   public List<RowSetRow> sortedBuffer;
   public Comparator<RowSetRow> comparator;
+  public SortKeyEncoder sortKeyEncoder;
 
   public SortedMergeData() {
     super();
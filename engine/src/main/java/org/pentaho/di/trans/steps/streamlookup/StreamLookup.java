@@ -20,10 +20,14 @@ import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleStepException;
 import org.pentaho.di.core.exception.KettleValueException;
 import org.pentaho.di.core.hash.ByteArrayHashIndex;
+import org.pentaho.di.core.hash.OffHeapByteArrayHashIndex;
+import org.pentaho.di.core.hash.OffHeapLongHashIndex;
+import org.pentaho.di.core.logging.Metrics;
 import org.pentaho.di.core.row.RowDataUtil;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.value.SortKeyEncoder;
 import org.pentaho.di.core.row.value.ValueMetaFactory;
 import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.i18n.BaseMessages;
@@ -210,6 +214,10 @@ public class StreamLookup extends BaseStep implements StepInterface {
       rowData = getRowFrom( rowSet );
     }
 
+    if ( meta.isUsingOffHeapStore() ) {
+      reportOffHeapMemoryUsage();
+    }
+
     return true;
   }
 
@@ -286,7 +294,9 @@ public class StreamLookup extends BaseStep implements StepInterface {
 
   private void addToCache( RowMetaInterface keyMeta, Object[] keyData, RowMetaInterface valueMeta,
     Object[] valueData ) throws KettleValueException {
-    if ( meta.isMemoryPreservationActive() ) {
+    if ( meta.isUsingOffHeapStore() ) {
+      addToOffHeapStore( keyMeta, keyData, valueMeta, valueData );
+    } else if ( meta.isMemoryPreservationActive() ) {
       if ( meta.isUsingSortedList() ) {
         KeyValue keyValue = new KeyValue( keyData, valueData );
         int idx = Collections.binarySearch( data.list, keyValue, data.comparator );
@@ -327,8 +337,79 @@ public class StreamLookup extends BaseStep implements StepInterface {
     }
   }
 
+  private void addToOffHeapStore( RowMetaInterface keyMeta, Object[] keyData, RowMetaInterface valueMeta,
+    Object[] valueData ) throws KettleValueException {
+    if ( data.offHeapLongIndex == null && data.offHeapIndex == null ) {
+      if ( keyMeta.size() == 1 && keyMeta.getValueMeta( 0 ).getType() == ValueMetaInterface.TYPE_INTEGER ) {
+        data.offHeapLongIndex = new OffHeapLongHashIndex();
+      } else {
+        data.offHeapIndex = new OffHeapByteArrayHashIndex();
+        int[] keyNrs = new int[keyMeta.size()];
+        for ( int i = 0; i < keyNrs.length; i++ ) {
+          keyNrs[i] = i;
+        }
+        if ( SortKeyEncoder.isSupported( keyMeta, keyNrs ) ) {
+          data.offHeapKeyEncoder = new SortKeyEncoder( keyMeta, keyNrs );
+        }
+      }
+    }
+
+    byte[] value = RowMeta.extractData( valueMeta, valueData );
+    if ( data.offHeapLongIndex != null ) {
+      Long key = keyMeta.getInteger( keyData, 0 );
+      if ( key == null ) {
+        data.offHeapNullKeyValue = value;
+      } else {
+        data.offHeapLongIndex.put( key, value );
+      }
+    } else {
+      data.offHeapIndex.put( getOffHeapKey( keyMeta, keyData ), value );
+    }
+  }
+
+  private Object[] getFromOffHeapStore( RowMetaInterface keyMeta, Object[] keyData ) throws KettleValueException {
+    byte[] value = null;
+    if ( data.offHeapLongIndex != null ) {
+      Long key = keyMeta.getInteger( keyData, 0 );
+      value = key == null ? data.offHeapNullKeyValue : data.offHeapLongIndex.get( key );
+    } else if ( data.offHeapIndex != null ) {
+      value = data.offHeapIndex.get( getOffHeapKey( keyMeta, keyData ) );
+    }
+    if ( value == null ) {
+      return null;
+    }
+    return RowMeta.getRow( data.cacheValueMeta, value );
+  }
+
+  private byte[] getOffHeapKey( RowMetaInterface keyMeta, Object[] keyData ) throws KettleValueException {
+    if ( data.offHeapKeyEncoder != null ) {
+      return data.offHeapKeyEncoder.encode( keyData );
+    }
+    return RowMeta.extractData( keyMeta, keyData );
+  }
+
+  private void reportOffHeapMemoryUsage() {
+    int size = 0;
+    long memoryUsage = 0L;
+    if ( data.offHeapLongIndex != null ) {
+      size = data.offHeapLongIndex.getSize();
+      memoryUsage = data.offHeapLongIndex.getMemoryUsage();
+    } else if ( data.offHeapIndex != null ) {
+      size = data.offHeapIndex.getSize();
+      memoryUsage = data.offHeapIndex.getMemoryUsage();
+    }
+    if ( log.isDetailed() ) {
+      logDetailed( BaseMessages.getString( PKG, "StreamLookup.Log.OffHeapStoreSize", size, memoryUsage ) );
+    }
+    if ( log.isGatheringMetrics() ) {
+      log.snap( Metrics.METRIC_STEP_OFF_HEAP_MEMORY_MAX, getStepname(), memoryUsage );
+    }
+  }
+
   private Object[] getFromCache( RowMetaInterface keyMeta, Object[] keyData ) throws KettleValueException {
-    if ( meta.isMemoryPreservationActive() ) {
+    if ( meta.isUsingOffHeapStore() ) {
+      return getFromOffHeapStore( keyMeta, keyData );
+    } else if ( meta.isMemoryPreservationActive() ) {
       if ( meta.isUsingSortedList() ) {
         KeyValue keyValue = new KeyValue( keyData, null );
         int idx = Collections.binarySearch( data.list, keyValue, data.comparator );
@@ -475,6 +556,8 @@ public class StreamLookup extends BaseStep implements StepInterface {
     data.list = null;
     data.hashIndex = null;
     data.longIndex = null;
+    data.offHeapLongIndex = null;
+    data.offHeapIndex = null;
 
     super.dispose( smi, sdi );
   }
@@ -24,7 +24,10 @@ import org.pentaho.di.core.RowMetaAndData;
 import org.pentaho.di.core.exception.KettleValueException;
 import org.pentaho.di.core.hash.ByteArrayHashIndex;
 import org.pentaho.di.core.hash.LongHashIndex;
+import org.pentaho.di.core.hash.OffHeapByteArrayHashIndex;
+import org.pentaho.di.core.hash.OffHeapLongHashIndex;
 import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.SortKeyEncoder;
 import org.pentaho.di.trans.step.BaseStepData;
 import org.pentaho.di.trans.step.StepDataInterface;
 import org.pentaho.di.trans.step.errorhandling.StreamInterface;
@@ -66,6 +69,16 @@ public class StreamLookupData extends BaseStepData implements StepDataInterface
   public ByteArrayHashIndex hashIndex;
   public LongHashIndex longIndex;
 
+  /** The lookup data kept outside of the Java heap: by a single Integer key or by the encoded keys */
+  public OffHeapLongHashIndex offHeapLongIndex;
+  public OffHeapByteArrayHashIndex offHeapIndex;
+
+  /** Encodes the keys of the off-heap index, the serialized keys are used if the key types can't be encoded */
+  public SortKeyEncoder offHeapKeyEncoder;
+
+  /** The value of the null key, which the single Integer key index can't hold */
+  public byte[] offHeapNullKeyValue;
+
   public RowMetaInterface lookupMeta;
 
   public RowMetaInterface infoMeta;
@@ -223,7 +223,7 @@ public class TableInput extends BaseDatabaseStep implements StepInterface {
     }
   }
 
-  private boolean doQuery( RowMetaInterface parametersMeta, Object[] parameters ) throws KettleDatabaseException {
+  private boolean doQuery( RowMetaInterface parametersMeta, Object[] parameters ) throws KettleException {
     boolean success = true;
 
     // Open the query with the optional parameters received from the source steps.
@@ -234,6 +234,19 @@ public class TableInput extends BaseDatabaseStep implements StepInterface {
       sql = meta.getSQL();
     }
 
+    // Only read the rows of this step copy, the range bounds are extra parameters
+    if ( data.partitioner != null ) {
+      if ( data.partitioner.isRange() ) {
+        data.partitioner.setBounds( getPartitionBounds( sql, parametersMeta, parameters ) );
+      }
+      sql = data.partitioner.getPartitionSQL( sql );
+      if ( !data.partitioner.getParametersMeta().isEmpty() ) {
+        parameters = RowDataUtil.addRowData( parameters, parametersMeta.size(), data.partitioner.getParameters() );
+        parametersMeta = parametersMeta.clone();
+        parametersMeta.addRowMeta( data.partitioner.getParametersMeta() );
+      }
+    }
+
     if ( log.isDetailed() ) {
       logDetailed( BaseMessages.getString( PKG, "TableInput.Log.SqlQuery", sql ) );
     }
@@ -273,6 +286,40 @@ public class TableInput extends BaseDatabaseStep implements StepInterface {
     return success;
   }
 
+  /**
+   * Queries the minimum and maximum of the partition column. All the copies have to split the same bounds, so the
+   * first copy to get here queries them for the others, unless the query runs for every input row.
+   */
+  private RowMetaAndData getPartitionBounds( String sql, RowMetaInterface parametersMeta, Object[] parameters )
+    throws KettleDatabaseException {
+    String boundsSQL = data.partitioner.getBoundsSQL( sql );
+    if ( meta.isExecuteEachInputRow() ) {
+      return queryPartitionBounds( boundsSQL, parametersMeta, parameters );
+    }
+
+    Map<String, Object> extensionDataMap = getTrans().getExtensionDataMap();
+    String key = TableInputPartitioner.class.getName() + "/" + getStepname();
+    synchronized ( extensionDataMap ) {
+      RowMetaAndData bounds = (RowMetaAndData) extensionDataMap.get( key );
+      if ( bounds == null ) {
+        bounds = queryPartitionBounds( boundsSQL, parametersMeta, parameters );
+        extensionDataMap.put( key, bounds );
+      }
+      return bounds;
+    }
+  }
+
+  private RowMetaAndData queryPartitionBounds( String boundsSQL, RowMetaInterface parametersMeta,
+    Object[] parameters ) throws KettleDatabaseException {
+    if ( log.isDetailed() ) {
+      logDetailed( BaseMessages.getString( PKG, "TableInput.Log.SqlQuery", boundsSQL ) );
+    }
+    if ( parametersMeta.isEmpty() ) {
+      return data.db.getOneRow( boundsSQL );
+    }
+    return data.db.getOneRow( boundsSQL, parametersMeta, parameters );
+  }
+
   public void dispose( StepMetaInterface smi, StepDataInterface sdi ) {
     dbLock.lock();
     try {
@@ -333,6 +380,23 @@ public class TableInput extends BaseDatabaseStep implements StepInterface {
         if ( meta.getDatabaseMeta().isRequiringTransactionsOnQueries() ) {
           data.db.setCommitSize( 100 ); // needed for PGSQL it seems...
         }
+
+        String partitionMethod = environmentSubstitute( meta.getPartitionMethod() );
+        if ( !Utils.isEmpty( partitionMethod ) && getUniqueStepCountAcrossSlaves() > 1 ) {
+          try {
+            data.partitioner =
+              new TableInputPartitioner( meta.getDatabaseMeta(), environmentSubstitute( meta.getPartitionColumn() ),
+                partitionMethod, getUniqueStepNrAcrossSlaves(), getUniqueStepCountAcrossSlaves() );
+          } catch ( KettleException e ) {
+            logError( e.getMessage() );
+            return false;
+          }
+          if ( log.isBasic() ) {
+            logBasic( BaseMessages.getString( PKG, "TableInput.Log.PartitionedRead",
+              String.valueOf( getUniqueStepNrAcrossSlaves() + 1 ), String.valueOf( getUniqueStepCountAcrossSlaves() ),
+              partitionMethod, meta.getPartitionColumn() ) );
+          }
+        }
         return true;
       }
       return false;
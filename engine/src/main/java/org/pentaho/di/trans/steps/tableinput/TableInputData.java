@@ -36,6 +36,8 @@ public class TableInputData extends BaseDatabaseStepData implements StepDataInte
   public RowSet rowSet;
   public boolean isCanceled;
   public StreamInterface infoStream;
+  /** Splits the rows over the step copies, null if every copy runs the whole query */
+  public TableInputPartitioner partitioner;
 
   public TableInputData() {
     super();
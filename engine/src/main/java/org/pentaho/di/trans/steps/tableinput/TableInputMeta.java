@@ -33,7 +33,7 @@ import org.pentaho.di.core.row.RowDataUtil;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
-import org.pentaho.di.core.row.value.ValueMetaFactory;
+import org.pentaho.di.core.row.value.ValueMetaBase;
 import org.pentaho.di.core.variables.VariableSpace;
 import org.pentaho.di.core.xml.XMLHandler;
 import org.pentaho.di.i18n.BaseMessages;
@@ -86,8 +86,22 @@ public class TableInputMeta extends BaseDatabaseStepMeta implements StepMetaInte
   @Injection( name = "CACHED_ROW_META" )
   private boolean cachedRowMetaActive;
 
+  /** The column to split the rows of the query over the step copies with, reading them in parallel */
+  @Injection( name = "PARTITION_COLUMN" )
+  private String partitionColumn;
+
+  /** How to split the rows over the step copies: RANGE, HASH or empty to let every copy run the whole query */
+  @Injection( name = "PARTITION_METHOD" )
+  private String partitionMethod;
+
   private RowMetaInterface cachedRowMeta;
 
+  /** Every step copy reads a range of values between the minimum and maximum of the partition column */
+  public static final String PARTITION_METHOD_RANGE = "RANGE";
+
+  /** Every step copy reads the rows where the hash of the partition column modulo the number of copies matches */
+  public static final String PARTITION_METHOD_HASH = "HASH";
+
   public TableInputMeta() {
     super();
   }
@@ -182,6 +196,8 @@ public class TableInputMeta extends BaseDatabaseStepMeta implements StepMetaInte
       variableReplacementActive = "Y".equals( XMLHandler.getTagValue( stepnode, "variables_active" ) );
       lazyConversionActive = "Y".equals( XMLHandler.getTagValue( stepnode, "lazy_conversion_active" ) );
       cachedRowMetaActive = "Y".equals( XMLHandler.getTagValue( stepnode, "cached_row_meta_active" ) );
+      partitionColumn = XMLHandler.getTagValue( stepnode, "partition_column" );
+      partitionMethod = XMLHandler.getTagValue( stepnode, "partition_method" );
       cachedRowMeta = new RowMeta( XMLHandler.getSubNode( stepnode, RowMeta.XML_META_TAG ) );
 
     } catch ( Exception e ) {
@@ -269,12 +285,7 @@ public class TableInputMeta extends BaseDatabaseStepMeta implements StepMetaInte
       for ( int i = 0; i < row.size(); i++ ) {
         ValueMetaInterface v = row.getValueMeta( i );
         try {
-          if ( v.getType() == ValueMetaInterface.TYPE_STRING ) {
-            ValueMetaInterface storageMeta = ValueMetaFactory.cloneValueMeta( v );
-            storageMeta.setStorageType( ValueMetaInterface.STORAGE_TYPE_NORMAL );
-            v.setStorageMetadata( storageMeta );
-            v.setStorageType( ValueMetaInterface.STORAGE_TYPE_BINARY_STRING );
-          }
+          ValueMetaBase.setLazyConversion( v );
         } catch ( KettlePluginException e ) {
           throw new KettleStepException( "Unable to clone meta for lazy conversion: " + Const.CR + v, e );
         }
@@ -302,6 +313,8 @@ public class TableInputMeta extends BaseDatabaseStepMeta implements StepMetaInte
     retval.append( "    " + XMLHandler.addTagValue( "variables_active", variableReplacementActive ) );
     retval.append( "    " + XMLHandler.addTagValue( "lazy_conversion_active", lazyConversionActive ) );
     retval.append( "    " + XMLHandler.addTagValue( "cached_row_meta_active", cachedRowMetaActive ) );
+    retval.append( "    " + XMLHandler.addTagValue( "partition_column", partitionColumn ) );
+    retval.append( "    " + XMLHandler.addTagValue( "partition_method", partitionMethod ) );
     storeCachedRowMeta( retval );
     return retval.toString();
   }
@@ -355,6 +368,8 @@ public class TableInputMeta extends BaseDatabaseStepMeta implements StepMetaInte
       variableReplacementActive = rep.getStepAttributeBoolean( id_step, "variables_active" );
       lazyConversionActive = rep.getStepAttributeBoolean( id_step, "lazy_conversion_active" );
       cachedRowMetaActive = rep.getStepAttributeBoolean( id_step, "cached_row_meta_active" );
+      partitionColumn = rep.getStepAttributeString( id_step, "partition_column" );
+      partitionMethod = rep.getStepAttributeString( id_step, "partition_method" );
 
       String sRowMeta = rep.getStepAttributeString( id_step, RowMeta.XML_META_TAG );
       if ( sRowMeta != null ) {
@@ -381,6 +396,8 @@ public class TableInputMeta extends BaseDatabaseStepMeta implements StepMetaInte
       rep.saveStepAttribute( id_transformation, id_step, "variables_active", variableReplacementActive );
       rep.saveStepAttribute( id_transformation, id_step, "lazy_conversion_active", lazyConversionActive );
       rep.saveStepAttribute( id_transformation, id_step, "cached_row_meta_active", cachedRowMetaActive );
+      rep.saveStepAttribute( id_transformation, id_step, "partition_column", partitionColumn );
+      rep.saveStepAttribute( id_transformation, id_step, "partition_method", partitionMethod );
       if ( cachedRowMeta != null ) {
         rep.saveStepAttribute( id_transformation, id_step, RowMeta.XML_META_TAG, cachedRowMeta.getMetaXML() );
       }
@@ -621,6 +638,34 @@ public class TableInputMeta extends BaseDatabaseStepMeta implements StepMetaInte
     this.cachedRowMeta = cachedRowMeta;
   }
 
+  /**
+   * @return the column to split the rows of the query over the step copies with
+   */
+  public String getPartitionColumn() {
+    return partitionColumn;
+  }
+
+  /**
+   * @param partitionColumn the column to split the rows of the query over the step copies with
+   */
+  public void setPartitionColumn( String partitionColumn ) {
+    this.partitionColumn = partitionColumn;
+  }
+
+  /**
+   * @return RANGE, HASH or empty if every step copy runs the whole query
+   */
+  public String getPartitionMethod() {
+    return partitionMethod;
+  }
+
+  /**
+   * @param partitionMethod RANGE, HASH or empty if every step copy runs the whole query
+   */
+  public void setPartitionMethod( String partitionMethod ) {
+    this.partitionMethod = partitionMethod;
+  }
+
   /**
    * Returns the Input/Output metadata for this step. The generator step only produces output, does not accept input!
    */
@@ -0,0 +1,213 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.trans.steps.tableinput;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.util.Utils;
+
+/**
+ * Splits the rows of a Table Input query over the copies of the step, so that every copy reads a disjoint part of
+ * the rows on its own connection.
+ * <p>
+ * With a range partitioning the minimum and maximum of the partition column are split in equal ranges, the first
+ * copy also reads the null values and the first and last ranges are open so rows outside of the bounds are read too.
+ * With a hash partitioning every copy reads the rows where the hash of the column, computed by the database, modulo
+ * the number of copies equals the copy number.
+ *
+ * @since 11.1
+ */
+public class TableInputPartitioner {
+  private static final String ALIAS = "pdi_partition";
+
+  private final String column;
+  private final boolean hash;
+  private final int partitionNr;
+  private final int nrPartitions;
+
+  private RowMetaInterface parametersMeta = new RowMeta();
+  private List<Object> parameters = new ArrayList<>();
+  private String condition;
+
+  /**
+   * @param partitionMethod
+   *          {@link TableInputMeta#PARTITION_METHOD_RANGE} or {@link TableInputMeta#PARTITION_METHOD_HASH}
+   * @param partitionNr
+   *          the number of the step copy, from 0 to nrPartitions - 1
+   */
+  public TableInputPartitioner( DatabaseMeta databaseMeta, String column, String partitionMethod, int partitionNr,
+    int nrPartitions ) throws KettleException {
+    if ( Utils.isEmpty( column ) ) {
+      throw new KettleException( "A partition column is needed to split the rows over the step copies" );
+    }
+    this.column = databaseMeta.quoteField( column );
+    this.partitionNr = partitionNr;
+    this.nrPartitions = nrPartitions;
+
+    if ( TableInputMeta.PARTITION_METHOD_HASH.equalsIgnoreCase( partitionMethod ) ) {
+      hash = true;
+      String expression = databaseMeta.getDatabaseInterface().getHashPartitionExpression( this.column, nrPartitions );
+      if ( expression == null ) {
+        throw new KettleException( "Database connection [" + databaseMeta.getName()
+          + "] has no hash function to partition on, use a range partitioning instead" );
+      }
+      condition = expression + " = " + partitionNr;
+      if ( partitionNr == 0 ) {
+        condition = "(" + condition + " OR " + this.column + " IS NULL)";
+      }
+    } else if ( TableInputMeta.PARTITION_METHOD_RANGE.equalsIgnoreCase( partitionMethod ) ) {
+      hash = false;
+    } else {
+      throw new KettleException( "Unknown partition method [" + partitionMethod + "], use "
+        + TableInputMeta.PARTITION_METHOD_RANGE + " or " + TableInputMeta.PARTITION_METHOD_HASH );
+    }
+  }
+
+  /**
+   * @return true if the bounds of the column have to be set before the query can be partitioned
+   */
+  public boolean isRange() {
+    return !hash;
+  }
+
+  /**
+   * @return the query for the minimum and maximum of the partition column
+   */
+  public String getBoundsSQL( String sql ) {
+    return "SELECT MIN(" + column + "), MAX(" + column + ") FROM (" + stripSQL( sql ) + ") " + ALIAS;
+  }
+
+  /**
+   * Computes the range of this copy from the minimum and maximum of the partition column.
+   *
+   * @param minMax
+   *          the minimum and maximum, null or both null when the query returns no rows
+   */
+  public void setBounds( RowMetaAndData minMax ) throws KettleException {
+    parametersMeta = new RowMeta();
+    parameters = new ArrayList<>();
+
+    RowMetaInterface boundsMeta = minMax == null ? null : minMax.getRowMeta();
+    Object[] bounds = minMax == null ? null : minMax.getData();
+    if ( boundsMeta == null || bounds == null || boundsMeta.isNull( bounds, 0 ) || boundsMeta.isNull( bounds, 1 ) ) {
+      // No rows, or only nulls: they are all read by the first copy
+      condition = partitionNr == 0 ? null : "1 = 0";
+      return;
+    }
+    ValueMetaInterface valueMeta = boundsMeta.getValueMeta( 0 );
+    Object min = valueMeta.convertToNormalStorageType( bounds[0] );
+    Object max = boundsMeta.getValueMeta( 1 ).convertToNormalStorageType( bounds[1] );
+
+    StringBuilder range = new StringBuilder();
+    if ( partitionNr > 0 ) {
+      range.append( column ).append( " >= ?" );
+      addParameter( valueMeta, getBoundary( valueMeta, min, max, partitionNr ) );
+    }
+    if ( partitionNr < nrPartitions - 1 ) {
+      if ( range.length() > 0 ) {
+        range.append( " AND " );
+      }
+      range.append( column ).append( " < ?" );
+      addParameter( valueMeta, getBoundary( valueMeta, min, max, partitionNr + 1 ) );
+    }
+    if ( partitionNr == 0 ) {
+      range.insert( 0, "(" ).append( " OR " ).append( column ).append( " IS NULL)" );
+    }
+    condition = range.toString();
+  }
+
+  /**
+   * @return the query that only returns the rows of this copy, the extra parameters follow the ones of the query
+   */
+  public String getPartitionSQL( String sql ) {
+    if ( condition == null ) {
+      return sql;
+    }
+    return "SELECT * FROM (" + stripSQL( sql ) + ") " + ALIAS + " WHERE " + condition;
+  }
+
+  /**
+   * @return the metadata of the range bounds to add to the parameters of the query
+   */
+  public RowMetaInterface getParametersMeta() {
+    return parametersMeta;
+  }
+
+  /**
+   * @return the range bounds to add to the parameters of the query
+   */
+  public Object[] getParameters() {
+    return parameters.toArray();
+  }
+
+  private void addParameter( ValueMetaInterface valueMeta, Object value ) {
+    ValueMetaInterface parameterMeta = valueMeta.clone();
+    parameterMeta.setName( ALIAS + "_" + parameters.size() );
+    parameterMeta.setStorageType( ValueMetaInterface.STORAGE_TYPE_NORMAL );
+    parametersMeta.addValueMeta( parameterMeta );
+    parameters.add( value );
+  }
+
+  /**
+   * @return the start of range nr out of nrPartitions between min and max
+   */
+  Object getBoundary( ValueMetaInterface valueMeta, Object min, Object max, int nr ) throws KettleException {
+    switch ( valueMeta.getType() ) {
+      case ValueMetaInterface.TYPE_INTEGER:
+        return getLongBoundary( (Long) min, (Long) max, nr );
+      case ValueMetaInterface.TYPE_NUMBER:
+        double low = (Double) min;
+        return low + ( (Double) max - low ) * nr / nrPartitions;
+      case ValueMetaInterface.TYPE_BIGNUMBER:
+        BigDecimal bigLow = (BigDecimal) min;
+        return bigLow.add( ( (BigDecimal) max ).subtract( bigLow ).multiply( BigDecimal.valueOf( nr ) )
+          .divide( BigDecimal.valueOf( nrPartitions ), MathContext.DECIMAL128 ) );
+      case ValueMetaInterface.TYPE_DATE:
+        return new Date( getLongBoundary( ( (Date) min ).getTime(), ( (Date) max ).getTime(), nr ) );
+      case ValueMetaInterface.TYPE_TIMESTAMP:
+        return new Timestamp( getLongBoundary( ( (Date) min ).getTime(), ( (Date) max ).getTime(), nr ) );
+      default:
+        throw new KettleException( "Can't split the values of partition column " + column + " of type "
+          + valueMeta.getTypeDesc() + " in ranges, use a numeric or date column or a hash partitioning" );
+    }
+  }
+
+  private long getLongBoundary( long min, long max, int nr ) {
+    // The span can be larger than a long
+    BigInteger span = BigInteger.valueOf( max ).subtract( BigInteger.valueOf( min ) ).add( BigInteger.ONE );
+    return BigInteger.valueOf( min ).add( span.multiply( BigInteger.valueOf( nr ) )
+      .divide( BigInteger.valueOf( nrPartitions ) ) ).longValue();
+  }
+
+  private static String stripSQL( String sql ) {
+    String stripped = sql.trim();
+    while ( stripped.endsWith( ";" ) ) {
+      stripped = stripped.substring( 0, stripped.length() - 1 ).trim();
+    }
+    return stripped;
+  }
+}
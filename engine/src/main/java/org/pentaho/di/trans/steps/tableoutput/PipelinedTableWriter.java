@@ -0,0 +1,360 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.trans.steps.tableoutput;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+
+import org.pentaho.di.core.database.Database;
+import org.pentaho.di.core.exception.KettleDatabaseBatchException;
+import org.pentaho.di.core.exception.KettleDatabaseException;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMetaInterface;
+
+/**
+ * Inserts the batches of a Table Output step on dedicated writer connections, so that the step thread can read and
+ * convert the next rows while the database works on the previous ones. Every writer has its own {@link Database} and
+ * its own prepared statement: a batch holds the rows of one commit and is committed on the connection of its writer.
+ * <p>
+ * The batches are inserted at the same time but committed in the order they were submitted: a writer commits its
+ * batch only once the batch before it is committed, and rolls it back if that one failed. The committed rows are thus
+ * always the rows up to the first batch that failed, without gaps, like a step that commits on its own connection.
+ * <p>
+ * The batches are handed off through a bounded queue and at most a fixed number of batches are in flight. The step
+ * thread gets the batches back in the order they were submitted, so the rows are passed on in their original order
+ * once they are committed. Only the step thread calls the methods of this class.
+ *
+ * @since 11.1
+ */
+public class PipelinedTableWriter {
+
+  /**
+   * The rows of one commit and, once it is written, the outcome.
+   */
+  public static class Batch {
+    private final List<Object[]> insertRows = new ArrayList<>();
+    private final List<Object[]> inputRows = new ArrayList<>();
+    private final CountDownLatch written = new CountDownLatch( 1 );
+    // The batch submitted before this one, it is committed first. Cleared once it is.
+    private volatile Batch previous;
+
+    // Set by the writer thread, visible to the step thread after the latch
+    private final List<Object[]> addedRows = new ArrayList<>();
+    private final List<Object[]> failedRows = new ArrayList<>();
+    private final List<String> failedRowMessages = new ArrayList<>();
+    private KettleDatabaseBatchException batchException;
+    private KettleException failure;
+
+    public void addRow( Object[] insertRow, Object[] inputRow ) {
+      insertRows.add( insertRow );
+      inputRows.add( inputRow );
+    }
+
+    public int size() {
+      return insertRows.size();
+    }
+
+    /**
+     * @return the input rows that made it into the JDBC batch, in the order of the update counts
+     */
+    public List<Object[]> getAddedRows() {
+      return addedRows;
+    }
+
+    /**
+     * @return the input rows that could not be added to the JDBC batch
+     */
+    public List<Object[]> getFailedRows() {
+      return failedRows;
+    }
+
+    public List<String> getFailedRowMessages() {
+      return failedRowMessages;
+    }
+
+    /**
+     * @return the exception of the batch execution, only set when the step does error handling
+     */
+    public KettleDatabaseBatchException getBatchException() {
+      return batchException;
+    }
+
+    /**
+     * @return the error that stops the step, the batch is rolled back. A batch submitted after a batch that failed is
+     *         rolled back as well.
+     */
+    public KettleException getFailure() {
+      return failure;
+    }
+  }
+
+  private static final Batch END = new Batch();
+
+  private final boolean keepingFailedRows;
+  private final boolean doingErrorHandling;
+  private final int maxBatchesInFlight;
+
+  private final BlockingQueue<Batch> queue;
+  private final Deque<Batch> inFlight = new ArrayDeque<>();
+  private final List<Writer> writers = new ArrayList<>();
+  private Batch lastSubmitted;
+
+  /**
+   * @param databases
+   *          the connected writer connections, auto commit disabled
+   * @param sql
+   *          the insert statement
+   * @param insertRowMeta
+   *          the metadata of the rows to insert
+   * @param keepingFailedRows
+   *          true to go on with the batch when a row can't be added, false to fail the batch
+   * @param doingErrorHandling
+   *          true to commit the rows that could be inserted when the batch execution fails
+   * @param maxBatchesInFlight
+   *          the maximum number of submitted batches that are not yet taken back
+   */
+  public PipelinedTableWriter( List<Database> databases, String sql, RowMetaInterface insertRowMeta,
+    boolean keepingFailedRows, boolean doingErrorHandling, int maxBatchesInFlight ) throws KettleException {
+    this.keepingFailedRows = keepingFailedRows;
+    this.doingErrorHandling = doingErrorHandling;
+    this.maxBatchesInFlight = Math.max( 1, maxBatchesInFlight );
+    this.queue = new ArrayBlockingQueue<>( this.maxBatchesInFlight + databases.size() );
+
+    for ( Database db : databases ) {
+      // Every writer converts the values with its own metadata, value metadata is not thread safe
+      writers.add( new Writer( db, db.prepareSQL( sql ), insertRowMeta.clone() ) );
+    }
+    for ( int i = 0; i < writers.size(); i++ ) {
+      Thread thread = new Thread( writers.get( i ), "Table Output writer " + ( i + 1 ) );
+      thread.setDaemon( true );
+      writers.get( i ).thread = thread;
+      thread.start();
+    }
+  }
+
+  /**
+   * Hands the batch off to the writers. If the maximum number of batches is in flight, this waits for the oldest one
+   * and returns it, it has to be handled before the next one.
+   *
+   * @return the oldest batch if it had to be taken back, null otherwise
+   */
+  public Batch submit( Batch batch ) throws KettleException {
+    Batch oldest = null;
+    if ( inFlight.size() >= maxBatchesInFlight ) {
+      oldest = takeWritten();
+    }
+    batch.previous = lastSubmitted;
+    lastSubmitted = batch;
+    inFlight.add( batch );
+    put( batch );
+    return oldest;
+  }
+
+  /**
+   * @return the oldest batch if it is written, null if it isn't or if there are no batches in flight
+   */
+  public Batch pollWritten() {
+    Batch oldest = inFlight.peek();
+    if ( oldest != null && oldest.written.getCount() == 0 ) {
+      return inFlight.poll();
+    }
+    return null;
+  }
+
+  /**
+   * Waits for the oldest batch to be written.
+   *
+   * @return the oldest batch or null if there are no batches in flight
+   */
+  public Batch takeWritten() throws KettleException {
+    Batch oldest = inFlight.poll();
+    if ( oldest != null ) {
+      try {
+        oldest.written.await();
+      } catch ( InterruptedException e ) {
+        Thread.currentThread().interrupt();
+        throw new KettleException( "Interrupted while waiting for a batch to be written", e );
+      }
+    }
+    return oldest;
+  }
+
+  public int getBatchesInFlight() {
+    return inFlight.size();
+  }
+
+  /**
+   * Stops the writers once they are done with the submitted batches and closes the writer connections.
+   *
+   * @param rollback
+   *          true to roll back what isn't committed yet
+   */
+  public void close( boolean rollback ) throws KettleException {
+    KettleException error = null;
+    if ( rollback ) {
+      // Don't write what is going to be rolled back anyway, a writer could be waiting for one of these batches
+      List<Batch> dropped = new ArrayList<>();
+      queue.drainTo( dropped );
+      for ( Batch batch : dropped ) {
+        batch.failure = new KettleException( "The batch is not written, the rows are rolled back" );
+        batch.written.countDown();
+      }
+    }
+    try {
+      for ( int i = 0; i < writers.size(); i++ ) {
+        put( END );
+      }
+      for ( Writer writer : writers ) {
+        writer.thread.join();
+      }
+    } catch ( KettleException e ) {
+      error = e;
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      error = new KettleException( "Interrupted while waiting for the writers to finish", e );
+    }
+
+    for ( Writer writer : writers ) {
+      try {
+        if ( rollback || error != null ) {
+          writer.db.rollback();
+        }
+        writer.db.closePreparedStatement( writer.insertStatement );
+      } catch ( KettleDatabaseException e ) {
+        if ( error == null ) {
+          error = e;
+        }
+      } finally {
+        writer.db.disconnect();
+      }
+    }
+    inFlight.clear();
+
+    if ( error != null ) {
+      throw error;
+    }
+  }
+
+  private void put( Batch batch ) throws KettleException {
+    try {
+      queue.put( batch );
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new KettleException( "Interrupted while handing a batch to the writers", e );
+    }
+  }
+
+  private class Writer implements Runnable {
+    private final Database db;
+    private final PreparedStatement insertStatement;
+    private final RowMetaInterface insertRowMeta;
+    private Thread thread;
+
+    Writer( Database db, PreparedStatement insertStatement, RowMetaInterface insertRowMeta ) {
+      this.db = db;
+      this.insertStatement = insertStatement;
+      this.insertRowMeta = insertRowMeta;
+    }
+
+    @Override
+    public void run() {
+      try {
+        for ( Batch batch = queue.take(); batch != END; batch = queue.take() ) {
+          try {
+            write( batch );
+          } catch ( KettleException e ) {
+            batch.failure = e;
+          } catch ( RuntimeException e ) {
+            batch.failure = new KettleException( "Unexpected error writing a batch", e );
+          } finally {
+            batch.written.countDown();
+          }
+        }
+      } catch ( InterruptedException e ) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    private void write( Batch batch ) throws KettleException {
+      for ( int i = 0; i < batch.size(); i++ ) {
+        try {
+          db.setValues( insertRowMeta, batch.insertRows.get( i ), insertStatement );
+          db.insertRow( insertStatement, true, false ); // no commit, the whole batch is committed below
+          batch.addedRows.add( batch.inputRows.get( i ) );
+        } catch ( KettleDatabaseException e ) {
+          if ( !keepingFailedRows ) {
+            db.clearBatch( insertStatement );
+            db.rollback();
+            throw new KettleException( "Error inserting row into table with values: "
+              + insertRowMeta.getString( batch.insertRows.get( i ) ), e );
+          }
+          batch.failedRows.add( batch.inputRows.get( i ) );
+          batch.failedRowMessages.add( e.toString() );
+        }
+      }
+
+      try {
+        insertStatement.executeBatch();
+        insertStatement.clearBatch();
+      } catch ( SQLException e ) {
+        KettleDatabaseBatchException be = Database.createKettleDatabaseBatchException( "Error updating batch", e );
+        db.clearBatch( insertStatement );
+        if ( !doingErrorHandling ) {
+          db.rollback();
+          throw be;
+        }
+        batch.batchException = be;
+      }
+
+      waitForPrevious( batch );
+      if ( batch.batchException != null ) {
+        // The rows that could be inserted are committed, the others go to the error handling
+        db.commit( true );
+      } else {
+        db.commit();
+      }
+    }
+
+    /**
+     * Waits until the batch submitted before this one is committed. This batch is rolled back if that one failed, the
+     * committed rows would have a gap otherwise.
+     */
+    private void waitForPrevious( Batch batch ) throws KettleException {
+      Batch previous = batch.previous;
+      batch.previous = null;
+      if ( previous == null ) {
+        return;
+      }
+      try {
+        previous.written.await();
+      } catch ( InterruptedException e ) {
+        Thread.currentThread().interrupt();
+        db.rollback();
+        throw new KettleException( "Interrupted while waiting for the previous batch to be committed", e );
+      }
+      if ( previous.failure != null ) {
+        db.rollback();
+        throw new KettleException( "The batch is rolled back, a batch before it failed", previous.failure );
+      }
+    }
+  }
+}
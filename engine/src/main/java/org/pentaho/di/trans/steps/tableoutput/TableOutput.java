@@ -24,6 +24,8 @@ import org.pentaho.di.core.exception.KettleDatabaseBatchException;
 import org.pentaho.di.core.exception.KettleDatabaseException;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleStepException;
+import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.row.RowChunk;
 import org.pentaho.di.core.row.RowDataUtil;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
@@ -38,6 +40,7 @@ import org.pentaho.di.trans.step.*;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -68,8 +71,23 @@ public class TableOutput extends BaseDatabaseStep implements StepInterface {
     meta = (TableOutputMeta) smi;
     data = (TableOutputData) sdi;
 
+    if ( data.chunkInsert ) {
+      return processChunk();
+    }
+
     Object[] r = getRow(); // this also waits for a previous step to be finished.
     if ( r == null ) { // no more input to be expected...
+      if ( data.pipelinedWriter != null ) {
+        try {
+          flushPipeline();
+        } catch ( KettleException e ) {
+          logError( "Because of an error, this step can't continue: ", e );
+          setErrors( 1 );
+          stopAll();
+          setOutputDone(); // signal end to receiver(s)
+          return false;
+        }
+      }
       // truncate the table if there are no rows at all coming into this step
       if ( first && meta.truncateTable() ) {
         truncateTable();
@@ -117,10 +135,34 @@ public class TableOutput extends BaseDatabaseStep implements StepInterface {
           }
         }
       }
+
+      int writerConnections = getWriterConnections();
+      if ( writerConnections > 0 ) {
+        startPipelinedWriters( writerConnections );
+      }
+
+      // The first row is inserted below, the rest comes in chunks if we can
+      //
+      data.chunkInsert = data.pipelinedWriter == null && isUsingRowChunks() && isChunkInsert();
+      if ( data.chunkInsert ) {
+        if ( meta.specifyFields() ) {
+          data.chunkColumns = data.valuenrs;
+        } else {
+          data.chunkColumns = new int[data.insertRowMeta.size()];
+          for ( int i = 0; i < data.chunkColumns.length; i++ ) {
+            data.chunkColumns[i] = i;
+          }
+        }
+      }
     }
 
     try {
-      Object[] outputRowData = writeToTable( getInputRowMeta(), r );
+      Object[] outputRowData;
+      if ( data.pipelinedWriter != null ) {
+        outputRowData = writeToPipeline( getInputRowMeta(), r );
+      } else {
+        outputRowData = writeToTable( getInputRowMeta(), r );
+      }
       if ( outputRowData != null ) {
         putRow( data.outputRowMeta, outputRowData ); // in case we want it go further...
         incrementLinesOutput();
@@ -142,6 +184,269 @@ public class TableOutput extends BaseDatabaseStep implements StepInterface {
     return true;
   }
 
+  /**
+   * @return the number of writer connections to insert the batches on, 0 to insert on the step thread
+   */
+  private int getWriterConnections() throws KettleDatabaseException {
+    int writerConnections = Const.toInt( environmentSubstitute( meta.getWriterConnections() ), 0 );
+    if ( writerConnections <= 0 ) {
+      return 0;
+    }
+    // Every batch is a commit of its own on one of the connections, so only a single table in batch mode works
+    //
+    if ( !data.batchMode || !data.db.getUseBatchInsert( data.batchMode ) || meta.isTableNameInField()
+      || meta.isPartitioningEnabled() ) {
+      logBasic( BaseMessages.getString( PKG, "TableOutput.Log.PipelinedWritesNotPossible" ) );
+      return 0;
+    }
+    return writerConnections;
+  }
+
+  private void startPipelinedWriters( int writerConnections ) throws KettleException {
+    // The writers need to see the truncated table
+    //
+    if ( meta.truncateTable() ) {
+      data.db.commit();
+    }
+
+    String sql =
+      data.db.getInsertStatement( environmentSubstitute( meta.getSchemaName() ), data.tableName, data.insertRowMeta );
+    if ( log.isDetailed() ) {
+      logDetailed( "Prepared statement : " + sql );
+    }
+
+    List<Database> databases = new ArrayList<>();
+    try {
+      for ( int i = 0; i < writerConnections; i++ ) {
+        Database db = new Database( this, data.databaseMeta );
+        db.shareVariablesWith( this );
+        db.setCommitSize( data.commitSize );
+        databases.add( db );
+        db.connect( getPartitionID() );
+        db.setAutoCommit();
+      }
+
+      // Every writer can work on a batch while another one waits in the queue
+      //
+      data.pipelinedWriter = new PipelinedTableWriter( databases, sql, data.insertRowMeta,
+        getStepMeta().isDoingErrorHandling() || meta.ignoreErrors(), getStepMeta().isDoingErrorHandling(),
+        2 * writerConnections );
+    } catch ( KettleException e ) {
+      for ( Database db : databases ) {
+        db.disconnect();
+      }
+      throw e;
+    }
+    data.pipelineBatch = new PipelinedTableWriter.Batch();
+
+    if ( log.isBasic() ) {
+      logBasic( BaseMessages.getString( PKG, "TableOutput.Log.PipelinedWrites", writerConnections ) );
+    }
+  }
+
+  /**
+   * Adds the row to the current batch of the writer connections, see {@link PipelinedTableWriter}. The rows are passed
+   * on once their batch is committed.
+   *
+   * @return always null, the row is passed on later
+   */
+  protected Object[] writeToPipeline( RowMetaInterface rowMeta, Object[] r ) throws KettleException {
+    Object[] insertRowData = r;
+    if ( meta.specifyFields() ) {
+      insertRowData = new Object[data.valuenrs.length];
+      for ( int idx = 0; idx < data.valuenrs.length; idx++ ) {
+        insertRowData[idx] = r[data.valuenrs[idx]];
+      }
+    }
+    data.pipelineBatch.addRow( insertRowData, r );
+
+    if ( data.pipelineBatch.size() >= data.commitSize ) {
+      submitPipelineBatch();
+    }
+
+    // Pass on what is committed in the meantime
+    //
+    for ( PipelinedTableWriter.Batch batch = data.pipelinedWriter.pollWritten(); batch != null;
+          batch = data.pipelinedWriter.pollWritten() ) {
+      putWrittenBatch( batch );
+    }
+    return null;
+  }
+
+  private void submitPipelineBatch() throws KettleException {
+    PipelinedTableWriter.Batch oldest = data.pipelinedWriter.submit( data.pipelineBatch );
+    data.pipelineBatch = new PipelinedTableWriter.Batch();
+    if ( oldest != null ) {
+      putWrittenBatch( oldest );
+    }
+  }
+
+  /**
+   * Submits the last rows and waits until all batches are written.
+   */
+  private void flushPipeline() throws KettleException {
+    if ( data.pipelineBatch.size() > 0 ) {
+      submitPipelineBatch();
+    }
+    for ( PipelinedTableWriter.Batch batch = data.pipelinedWriter.takeWritten(); batch != null;
+          batch = data.pipelinedWriter.takeWritten() ) {
+      putWrittenBatch( batch );
+    }
+  }
+
+  /**
+   * Passes on the rows of a written batch and sends the rows that failed to the error handling, just like
+   * {@link #writeToTable(RowMetaInterface, Object[])} does after a commit.
+   */
+  private void putWrittenBatch( PipelinedTableWriter.Batch batch ) throws KettleException {
+    if ( batch.getFailure() != null ) {
+      setErrors( getErrors() + 1 );
+      throw new KettleException( "Error batch inserting rows into table [" + data.tableName + "]",
+        batch.getFailure() );
+    }
+
+    for ( int i = 0; i < batch.getFailedRows().size(); i++ ) {
+      Object[] row = batch.getFailedRows().get( i );
+      String errorMessage = batch.getFailedRowMessages().get( i );
+      if ( getStepMeta().isDoingErrorHandling() ) {
+        putError( getInputRowMeta(), row, 1, errorMessage, null, "TOP001" );
+      } else {
+        logIgnoredError( getInputRowMeta(), row, errorMessage );
+      }
+    }
+
+    KettleDatabaseBatchException be = batch.getBatchException();
+    if ( be != null ) {
+      data.batchBuffer.addAll( batch.getAddedRows() );
+      processBatchException( be.toString(), be.getUpdateCounts(), be.getExceptionsList() );
+    } else {
+      for ( Object[] row : batch.getAddedRows() ) {
+        putRow( data.outputRowMeta, row );
+        incrementLinesOutput();
+      }
+    }
+  }
+
+  private void logIgnoredError( RowMetaInterface rowMeta, Object[] r, String message ) throws KettleValueException {
+    if ( data.warnings < 20 ) {
+      if ( log.isBasic() ) {
+        logBasic( "WARNING: Couldn't insert row into table: "
+          + rowMeta.getString( r ) + Const.CR + message );
+      }
+    } else if ( data.warnings == 20 ) {
+      if ( log.isBasic() ) {
+        logBasic( "FINAL WARNING (no more then 20 displayed): Couldn't insert row into table: "
+          + rowMeta.getString( r ) + Const.CR + message );
+      }
+    }
+    data.warnings++;
+  }
+
+  /**
+   * Chunks of rows are only inserted in plain batch mode: a single table, no generated keys, no savepoints and no error
+   * handling, so that a row never has to be dealt with on its own.
+   */
+  private boolean isChunkInsert() {
+    return data.batchMode && data.db.getUseBatchInsert( data.batchMode ) && !meta.isTableNameInField()
+      && !meta.isPartitioningEnabled() && !meta.isReturningGeneratedKeys() && !data.useSafePoints
+      && !getStepMeta().isDoingErrorHandling() && !meta.ignoreErrors() && !isRowLevel();
+  }
+
+  private boolean processChunk() throws KettleException {
+    List<Object[]> rows = getRows( getRowBatchSize() );
+    if ( rows == null ) {
+      return false;
+    }
+
+    try {
+      writeChunkToTable( RowChunk.fromRows( getInputRowMeta(), rows ) );
+
+      long lineNr = getLinesRead() - rows.size();
+      for ( int r = 0; r < rows.size(); r++ ) {
+        lineNr++;
+        if ( checkFeedback( lineNr ) && log.isBasic() ) {
+          logBasic( "linenr " + lineNr );
+        }
+      }
+    } catch ( KettleException e ) {
+      logError( "Because of an error, this step can't continue: ", e );
+      setErrors( 1 );
+      stopAll();
+      setOutputDone(); // signal end to receiver(s)
+      return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * Adds the rows of a chunk to the insert batch, see {@link #isChunkInsert()}. The rows are passed on once they are
+   * committed, just like in {@link #writeToTable(RowMetaInterface, Object[])}.
+   */
+  protected void writeChunkToTable( RowChunk chunk ) throws KettleException {
+    PreparedStatement insertStatement = data.preparedStatements.get( data.tableName );
+    Integer commitCounter = data.commitCounterMap.get( data.tableName );
+    int counter = commitCounter == null ? 0 : commitCounter;
+    int uncommitted = 0;
+
+    try {
+      for ( int r = 0; r < chunk.size(); r++ ) {
+        data.db.setValues( data.insertRowMeta, chunk, r, data.chunkColumns, insertStatement );
+        data.db.insertRow( insertStatement, data.batchMode, false ); // no commit, it is handled below
+        counter++;
+        if ( ( counter % data.commitSize ) == 0 ) {
+          try {
+            insertStatement.executeBatch();
+            data.db.commit();
+            insertStatement.clearBatch();
+          } catch ( SQLException ex ) {
+            throw Database.createKettleDatabaseBatchException( "Error updating batch", ex );
+          }
+          counter = 0;
+
+          // All rows up to this one are safe
+          //
+          data.chunkBuffer.add( chunk.selectRows( uncommitted, r + 1 ) );
+          uncommitted = r + 1;
+          putBufferedRows();
+        }
+      }
+    } catch ( KettleDatabaseException dbe ) {
+      setErrors( getErrors() + 1 );
+      data.db.clearBatch( insertStatement );
+      data.db.rollback();
+      // The buffered rows were rolled back, they must not be passed on when the step is disposed
+      data.batchBuffer.clear();
+      data.chunkBuffer.clear();
+      throw new KettleException( "Error batch inserting rows into table [" + data.tableName + "]", dbe );
+    }
+
+    data.commitCounterMap.put( data.tableName, Integer.valueOf( counter ) );
+    if ( uncommitted < chunk.size() ) {
+      data.chunkBuffer.add( chunk.selectRows( uncommitted, chunk.size() ) );
+    }
+  }
+
+  /**
+   * Passes on the rows in the batch buffer and the buffered chunks, in the order they were received.
+   */
+  private void putBufferedRows() throws KettleStepException {
+    for ( int i = 0; i < data.batchBuffer.size(); i++ ) {
+      Object[] row = data.batchBuffer.get( i );
+      putRow( data.outputRowMeta, row );
+      incrementLinesOutput();
+    }
+    data.batchBuffer.clear();
+
+    for ( RowChunk chunk : data.chunkBuffer ) {
+      putRows( data.outputRowMeta, chunk );
+      for ( int i = 0; i < chunk.size(); i++ ) {
+        incrementLinesOutput();
+      }
+    }
+    data.chunkBuffer.clear();
+  }
+
   protected Object[] writeToTable( RowMetaInterface rowMeta, Object[] r ) throws KettleException {
 
     if ( r == null ) { // Stop: last line or error encountered
@@ -363,18 +668,7 @@ public class TableOutput extends BaseDatabaseStep implements StepInterface {
         errorMessage = dbe.toString();
       } else {
         if ( meta.ignoreErrors() ) {
-          if ( data.warnings < 20 ) {
-            if ( log.isBasic() ) {
-              logBasic( "WARNING: Couldn't insert row into table: "
-                + rowMeta.getString( r ) + Const.CR + dbe.getMessage() );
-            }
-          } else if ( data.warnings == 20 ) {
-            if ( log.isBasic() ) {
-              logBasic( "FINAL WARNING (no more then 20 displayed): Couldn't insert row into table: "
-                + rowMeta.getString( r ) + Const.CR + dbe.getMessage() );
-            }
-          }
-          data.warnings++;
+          logIgnoredError( rowMeta, r, dbe.getMessage() );
         } else {
           setErrors( getErrors() + 1 );
           data.db.rollback();
@@ -429,6 +723,11 @@ public class TableOutput extends BaseDatabaseStep implements StepInterface {
     return log.isRowLevel();
   }
 
+  @Override
+  public boolean supportsRowChunks() {
+    return isUsingRowChunks();
+  }
+
   private void processBatchException( String errorMessage, int[] updateCounts, List<Exception> exceptionsList ) throws KettleException {
     // There was an error with the commit
     // We should put all the failing rows out there...
@@ -554,6 +853,9 @@ public class TableOutput extends BaseDatabaseStep implements StepInterface {
     data = (TableOutputData) sdi;
 
     if ( data.db != null ) {
+      if ( data.pipelinedWriter != null ) {
+        closePipelinedWriters();
+      }
       try {
         for ( String schemaTable : data.preparedStatements.keySet() ) {
           // Get a commit counter per prepared statement to keep track of separate tables, etc.
@@ -567,13 +869,7 @@ public class TableOutput extends BaseDatabaseStep implements StepInterface {
 
           data.db.emptyAndCommit( insertStatement, data.batchMode, batchCounter );
         }
-        for ( int i = 0; i < data.batchBuffer.size(); i++ ) {
-          Object[] row = data.batchBuffer.get( i );
-          putRow( data.outputRowMeta, row );
-          incrementLinesOutput();
-        }
-        // Clear the buffer
-        data.batchBuffer.clear();
+        putBufferedRows();
       } catch ( KettleDatabaseBatchException be ) {
         if ( getStepMeta().isDoingErrorHandling() ) {
           // Right at the back we are experiencing a batch commit problem...
@@ -610,6 +906,29 @@ public class TableOutput extends BaseDatabaseStep implements StepInterface {
     }
   }
 
+  /**
+   * Writes and passes on the rows that are left, unless there were errors, and closes the writer connections.
+   */
+  private void closePipelinedWriters() {
+    try {
+      if ( getErrors() == 0 ) {
+        flushPipeline();
+      }
+    } catch ( KettleException e ) {
+      logError( "Unexpected error writing the last batches.", e );
+      setErrors( 1 );
+      stopAll();
+    }
+    try {
+      data.pipelinedWriter.close( getErrors() > 0 );
+    } catch ( KettleException e ) {
+      logError( "Unexpected error closing the writer connections.", e );
+      setErrors( 1 );
+      stopAll();
+    }
+    data.pipelinedWriter = null;
+  }
+
   /**
    * Allows subclasses of TableOuput to get hold of the step meta
    *
@@ -25,6 +25,7 @@ import java.util.Map;
 
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.row.RowChunk;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.trans.step.BaseDatabaseStepData;
 import org.pentaho.di.trans.step.BaseStepData;
@@ -57,6 +58,21 @@ public class TableOutputData extends BaseDatabaseStepData implements StepDataInt
   public int indexOfTableNameField;
 
   public List<Object[]> batchBuffer;
+
+  /** Inserts whole row chunks, see TableOutput.isChunkInsert() */
+  public boolean chunkInsert;
+
+  /** The chunks inserted but not yet committed, these come after the rows in the batch buffer */
+  public List<RowChunk> chunkBuffer;
+
+  /** For every value to insert, the index of its column in the input chunk */
+  public int[] chunkColumns;
+
+  /** Inserts the batches on dedicated connections, null to insert on the step thread */
+  public PipelinedTableWriter pipelinedWriter;
+
+  /** The rows of the batch that is filled before it goes to the writer connections */
+  public PipelinedTableWriter.Batch pipelineBatch;
   public boolean sendToErrorRow;
   public RowMetaInterface outputRowMeta;
   public RowMetaInterface insertRowMeta;
@@ -83,6 +99,7 @@ public class TableOutputData extends BaseDatabaseStepData implements StepDataInt
     indexOfTableNameField = -1;
 
     batchBuffer = new ArrayList<Object[]>();
+    chunkBuffer = new ArrayList<RowChunk>();
     commitCounterMap = new HashMap<String, Integer>();
 
     releaseSavepoint = true;
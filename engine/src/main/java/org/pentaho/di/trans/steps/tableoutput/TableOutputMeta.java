@@ -73,6 +73,13 @@ public class TableOutputMeta extends BaseDatabaseStepMeta implements StepMetaInt
   @Injection( name = "COMMIT_SIZE" )
   private String commitSize;
 
+  /**
+   * The number of dedicated connections that insert the batches while the step goes on reading rows, 0 to insert on
+   * the step thread
+   */
+  @Injection( name = "WRITER_CONNECTIONS" )
+  private String writerConnections;
+
   @Injection( name = "TRUNCATE_TABLE" )
   public void metaSetTruncateTable( String value ) {
     setTruncateTable( "Y".equalsIgnoreCase( value ) );
@@ -349,6 +356,20 @@ public class TableOutputMeta extends BaseDatabaseStepMeta implements StepMetaInt
     this.commitSize = commitSize;
   }
 
+  /**
+   * @return Returns the number of writer connections, 0 to insert on the step thread.
+   */
+  public String getWriterConnections() {
+    return writerConnections;
+  }
+
+  /**
+   * @param writerConnections The number of writer connections to set.
+   */
+  public void setWriterConnections( String writerConnections ) {
+    this.writerConnections = writerConnections;
+  }
+
   /**
    * @return the table name
    */
@@ -446,6 +467,7 @@ public class TableOutputMeta extends BaseDatabaseStepMeta implements StepMetaInt
       schemaName = XMLHandler.getTagValue( stepnode, "schema" );
       tableName = XMLHandler.getTagValue( stepnode, "table" );
       commitSize = XMLHandler.getTagValue( stepnode, "commit" );
+      writerConnections = XMLHandler.getTagValue( stepnode, "writer_connections" );
       truncateTable = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "truncate" ) );
       ignoreErrors = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "ignore_errors" ) );
       useBatchUpdate = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "use_batch" ) );
@@ -485,6 +507,7 @@ public class TableOutputMeta extends BaseDatabaseStepMeta implements StepMetaInt
     databaseMeta = null;
     tableName = "";
     commitSize = "1000";
+    writerConnections = "0";
 
     partitioningEnabled = false;
     partitioningMonthly = true;
@@ -504,6 +527,7 @@ public class TableOutputMeta extends BaseDatabaseStepMeta implements StepMetaInt
     retval.append( "    " + XMLHandler.addTagValue( "schema", schemaName ) );
     retval.append( "    " + XMLHandler.addTagValue( "table", tableName ) );
     retval.append( "    " + XMLHandler.addTagValue( "commit", commitSize ) );
+    retval.append( "    " + XMLHandler.addTagValue( "writer_connections", writerConnections ) );
     retval.append( "    " + XMLHandler.addTagValue( "truncate", truncateTable ) );
     retval.append( "    " + XMLHandler.addTagValue( "ignore_errors", ignoreErrors ) );
     retval.append( "    " + XMLHandler.addTagValue( "use_batch", useBatchUpdate ) );
@@ -541,6 +565,7 @@ public class TableOutputMeta extends BaseDatabaseStepMeta implements StepMetaInt
       schemaName = rep.getStepAttributeString( id_step, "schema" );
       tableName = rep.getStepAttributeString( id_step, "table" );
       commitSize = rep.getStepAttributeString( id_step, "commit" );
+      writerConnections = rep.getStepAttributeString( id_step, "writer_connections" );
       truncateTable = rep.getStepAttributeBoolean( id_step, "truncate" );
       ignoreErrors = rep.getStepAttributeBoolean( id_step, "ignore_errors" );
       useBatchUpdate = rep.getStepAttributeBoolean( id_step, "use_batch" );
@@ -580,6 +605,7 @@ public class TableOutputMeta extends BaseDatabaseStepMeta implements StepMetaInt
       rep.saveStepAttribute( id_transformation, id_step, "schema", schemaName );
       rep.saveStepAttribute( id_transformation, id_step, "table", tableName );
       rep.saveStepAttribute( id_transformation, id_step, "commit", commitSize );
+      rep.saveStepAttribute( id_transformation, id_step, "writer_connections", writerConnections );
       rep.saveStepAttribute( id_transformation, id_step, "truncate", truncateTable );
       rep.saveStepAttribute( id_transformation, id_step, "ignore_errors", ignoreErrors );
       rep.saveStepAttribute( id_transformation, id_step, "use_batch", useBatchUpdate );
@@ -0,0 +1,151 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.trans.steps.textfileoutput;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.text.FieldPosition;
+import java.util.Arrays;
+import java.util.Date;
+
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaDate;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.util.Utils;
+
+/**
+ * Encodes the values of one field straight into a reusable byte buffer, giving the same bytes as
+ * {@link ValueMetaInterface#getBinaryString(Object)} (or {@link String#getBytes(String)} for strings) without creating
+ * a String and a byte array for every value. Integers, numbers and dates are formatted with the formatters of the
+ * value metadata itself.<br>
+ * <br>
+ * Only values that come out as ASCII in an ASCII compatible encoding are handled, for anything else
+ * {@link #encode(ValueMetaInterface, Object)} returns -1 and the value has to be converted the usual way.
+ *
+ * @since 11.1
+ */
+public class TextFileFieldEncoder {
+  private static final String ASCII;
+
+  static {
+    StringBuilder ascii = new StringBuilder();
+    for ( char c = 0; c < 0x80; c++ ) {
+      ascii.append( c );
+    }
+    ASCII = ascii.toString();
+  }
+
+  private final ValueMetaInterface valueMeta;
+  private final StringBuffer text;
+  private final FieldPosition fieldPosition;
+
+  private byte[] buffer;
+
+  private TextFileFieldEncoder( ValueMetaInterface valueMeta ) {
+    this.valueMeta = valueMeta;
+    this.text = new StringBuffer();
+    this.fieldPosition = new FieldPosition( 0 );
+    this.buffer = new byte[ 64 ];
+  }
+
+  /**
+   * @param valueMeta the metadata of the field
+   * @param encoding  the encoding of the file, empty for the default encoding
+   * @return an encoder for the values of the field or null if they always have to be converted the usual way
+   */
+  public static TextFileFieldEncoder create( ValueMetaInterface valueMeta, String encoding ) {
+    if ( valueMeta == null || valueMeta.getStorageType() != ValueMetaInterface.STORAGE_TYPE_NORMAL ) {
+      return null;
+    }
+
+    // Strings are written in the encoding of the file, the other types in the encoding of the value metadata
+    //
+    if ( valueMeta.isString() ) {
+      boolean asIs = valueMeta.getTrimType() == ValueMetaInterface.TRIM_TYPE_NONE && valueMeta.getLength() < 0;
+      return asIs && isAsciiCompatible( encoding ) ? new TextFileFieldEncoder( valueMeta ) : null;
+    }
+
+    // Exactly these classes, subclasses might convert their values differently
+    //
+    Class<?> type = valueMeta.getClass();
+    boolean formatted = type == ValueMetaInteger.class || type == ValueMetaDate.class
+      || ( type == ValueMetaNumber.class && valueMeta.getStorageMetadata() == null );
+    return formatted && isAsciiCompatible( valueMeta.getStringEncoding() ) ? new TextFileFieldEncoder( valueMeta )
+      : null;
+  }
+
+  /**
+   * @param valueMeta the metadata of the value, has to be the metadata the encoder was created for
+   * @param valueData the value
+   * @return the number of bytes in the buffer or -1 if the value has to be converted the usual way
+   */
+  public int encode( ValueMetaInterface valueMeta, Object valueData ) {
+    if ( valueMeta != this.valueMeta || valueData == null ) {
+      return -1;
+    }
+    if ( valueData instanceof String ) {
+      return encode( (String) valueData );
+    }
+
+    // The formatters aren't thread safe: lock them the way the value metadata does
+    //
+    text.setLength( 0 );
+    synchronized ( valueMeta ) {
+      if ( valueData instanceof Long ) {
+        valueMeta.getDecimalFormat( false ).format( ( (Long) valueData ).longValue(), text, fieldPosition );
+      } else if ( valueData instanceof Double ) {
+        valueMeta.getDecimalFormat( false ).format( ( (Double) valueData ).doubleValue(), text, fieldPosition );
+      } else if ( valueData instanceof Date ) {
+        valueMeta.getDateFormat().format( (Date) valueData, text, fieldPosition );
+      } else {
+        return -1;
+      }
+    }
+    return encode( text );
+  }
+
+  /**
+   * @return the buffer holding the bytes of the last value encoded
+   */
+  public byte[] getBuffer() {
+    return buffer;
+  }
+
+  private int encode( CharSequence chars ) {
+    int length = chars.length();
+    if ( length > buffer.length ) {
+      buffer = new byte[ Math.max( length, buffer.length * 2 ) ];
+    }
+    for ( int i = 0; i < length; i++ ) {
+      char c = chars.charAt( i );
+      if ( c >= 0x80 ) {
+        return -1;
+      }
+      buffer[ i ] = (byte) c;
+    }
+    return length;
+  }
+
+  private static boolean isAsciiCompatible( String encoding ) {
+    try {
+      Charset charset = Utils.isEmpty( encoding ) ? Charset.defaultCharset() : Charset.forName( encoding );
+      return Arrays.equals( ASCII.getBytes( charset ), ASCII.getBytes( StandardCharsets.US_ASCII ) );
+    } catch ( IllegalArgumentException e ) {
+      // Unknown encoding: the usual conversion reports it
+      return false;
+    }
+  }
+}
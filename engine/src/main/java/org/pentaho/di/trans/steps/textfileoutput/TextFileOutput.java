@@ -30,6 +30,7 @@ import org.pentaho.di.core.WriterOutputStream;
 import org.pentaho.di.core.compress.CompressionOutputStream;
 import org.pentaho.di.core.compress.CompressionProvider;
 import org.pentaho.di.core.compress.CompressionProviderFactory;
+import org.pentaho.di.core.compress.WriteBehindOutputStream;
 import org.pentaho.di.core.compress.zip.ZIPCompressionProvider;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleFileException;
@@ -192,7 +193,7 @@ public class TextFileOutput extends BaseStep implements StepInterface {
             }
           }
 
-          BufferedOutputStream bufferedOutputStream = new BufferedOutputStream( compressionOutputStream, 5000 );
+          BufferedOutputStream bufferedOutputStream = createBufferedOutputStream( compressionOutputStream );
 
           fileStreams = data.new FileStream( fileOutputStream, compressionOutputStream, bufferedOutputStream );
 
@@ -212,7 +213,7 @@ public class TextFileOutput extends BaseStep implements StepInterface {
           CompressionProvider compressionProvider = getCompressionProvider();
           CompressionOutputStream compressionOutputStream = compressionProvider.createOutputStream( fileOutputStream );
           compressionOutputStream.addEntry( filename, environmentSubstitute( meta.getExtension() ) );
-          BufferedOutputStream bufferedOutputStream = new BufferedOutputStream( compressionOutputStream, 5000 );
+          BufferedOutputStream bufferedOutputStream = createBufferedOutputStream( compressionOutputStream );
 
           fileStreams.setFileOutputStream( fileOutputStream );
           fileStreams.setCompressedOutputStream( compressionOutputStream );
@@ -238,6 +239,19 @@ public class TextFileOutput extends BaseStep implements StepInterface {
     }
   }
 
+  /**
+   * Puts a buffer in front of the stream of a file. The size of the buffer is set with
+   * {@link Const#KETTLE_FILE_OUTPUT_BUFFER_SIZE}. With {@link Const#KETTLE_FILE_OUTPUT_ASYNC_FLUSH} a full buffer is
+   * written to the stream on another thread while the next one is filled.
+   */
+  protected BufferedOutputStream createBufferedOutputStream( OutputStream outputStream ) {
+    int bufferSize = Const.toInt( getVariable( Const.KETTLE_FILE_OUTPUT_BUFFER_SIZE ), Const.FILE_OUTPUT_BUFFER_SIZE );
+    if ( "Y".equalsIgnoreCase( getVariable( Const.KETTLE_FILE_OUTPUT_ASYNC_FLUSH, "N" ) ) ) {
+      outputStream = new WriteBehindOutputStream( outputStream );
+    }
+    return new BufferedOutputStream( outputStream, bufferSize > 0 ? bufferSize : Const.FILE_OUTPUT_BUFFER_SIZE );
+  }
+
   public String getOutputFileName( Object[] row ) throws KettleException {
     String filename = null;
     if ( row == null ) {
@@ -466,6 +480,9 @@ public class TextFileOutput extends BaseStep implements StepInterface {
 
   public void writeRow( RowMetaInterface rowMeta, Object[] r ) throws KettleStepException {
     try {
+      if ( data.fieldEncoders == null ) {
+        data.fieldEncoders = createFieldEncoders( rowMeta );
+      }
       if ( Utils.isEmpty( meta.getOutputFields() ) ) {
         /*
          * Write all values in stream to text file.
@@ -480,7 +497,7 @@ public class TextFileOutput extends BaseStep implements StepInterface {
           // no special null value default was specified since no fields are specified at all
           // As such, we pass null
           //
-          writeField( v, valueData, null );
+          writeField( v, valueData, null, getFieldEncoder( i ) );
         }
       } else {
         /*
@@ -493,7 +510,7 @@ public class TextFileOutput extends BaseStep implements StepInterface {
 
           ValueMetaInterface v = meta.getMetaWithFieldOptions()[ i ];
           Object valueData = r[ data.fieldnrs[ i ] ];
-          writeField( v, valueData, data.binaryNullValue[ i ] );
+          writeField( v, valueData, data.binaryNullValue[ i ], getFieldEncoder( i ) );
         }
       }
 
@@ -506,6 +523,94 @@ public class TextFileOutput extends BaseStep implements StepInterface {
     }
   }
 
+  /**
+   * Creates the encoders that write the values of the fields without converting them to a String and a byte array
+   * first. The fast path is only taken with a separator and an enclosure of at most one byte.
+   */
+  private TextFileFieldEncoder[] createFieldEncoders( RowMetaInterface rowMeta ) {
+    if ( meta.isFastDump() || data.binarySeparator == null || data.binarySeparator.length > 1
+      || data.binaryEnclosure == null || data.binaryEnclosure.length > 1 ) {
+      return new TextFileFieldEncoder[ 0 ];
+    }
+    ValueMetaInterface[] valueMetas =
+      Utils.isEmpty( meta.getOutputFields() ) ? rowMeta.getValueMetaList().toArray( new ValueMetaInterface[ 0 ] )
+        : meta.getMetaWithFieldOptions();
+    TextFileFieldEncoder[] encoders = new TextFileFieldEncoder[ valueMetas.length ];
+    for ( int i = 0; i < valueMetas.length; i++ ) {
+      encoders[ i ] = TextFileFieldEncoder.create( valueMetas[ i ], meta.getEncoding() );
+    }
+    return encoders;
+  }
+
+  private TextFileFieldEncoder getFieldEncoder( int index ) {
+    return index < data.fieldEncoders.length ? data.fieldEncoders[ index ] : null;
+  }
+
+  private void writeField( ValueMetaInterface v, Object valueData, byte[] nullString, TextFileFieldEncoder encoder )
+    throws KettleStepException {
+    if ( encoder != null ) {
+      try {
+        if ( nullString == null || !v.isNull( valueData ) ) {
+          int length = encoder.encode( v, valueData );
+          if ( length >= 0 ) {
+            writeEncodedField( encoder.getBuffer(), length );
+            return;
+          }
+        }
+      } catch ( Exception e ) {
+        throw new KettleStepException( "Error writing field content to file", e );
+      }
+    }
+    writeField( v, valueData, nullString );
+  }
+
+  /**
+   * Writes an encoded value. Whether or not to enclose the value and where the enclosures are that need to be doubled
+   * is found in a single pass over the bytes.
+   */
+  private void writeEncodedField( byte[] bytes, int length ) throws IOException {
+    if ( length == 0 ) {
+      return;
+    }
+    boolean hasEnclosure = data.binaryEnclosure.length > 0;
+    boolean hasSeparator = data.binarySeparator.length > 0;
+    byte enclosure = hasEnclosure ? data.binaryEnclosure[ 0 ] : 0;
+    byte separator = hasSeparator ? data.binarySeparator[ 0 ] : 0;
+
+    int firstEnclosure = -1;
+    boolean separatorFound = false;
+    for ( int i = 0; i < length; i++ ) {
+      if ( hasEnclosure && bytes[ i ] == enclosure ) {
+        firstEnclosure = i;
+        break;
+      }
+      separatorFound |= hasSeparator && bytes[ i ] == separator;
+    }
+
+    boolean writeEnclosures = ( meta.isEnclosureForced() && !meta.isPadded() )
+      || ( !meta.isEnclosureFixDisabled() && ( firstEnclosure >= 0 || separatorFound ) );
+    if ( !writeEnclosures ) {
+      data.writer.write( bytes, 0, length );
+      return;
+    }
+
+    data.writer.write( data.binaryEnclosure );
+    int from = 0;
+    if ( firstEnclosure >= 0 ) {
+      for ( int i = firstEnclosure; i < length; i++ ) {
+        if ( bytes[ i ] == enclosure ) {
+          data.writer.write( bytes, from, i + 1 - from );
+          data.writer.write( data.binaryEnclosure ); // write enclosure a second time
+          from = i + 1;
+        }
+      }
+    }
+    if ( from < length ) {
+      data.writer.write( bytes, from, length - from );
+    }
+    data.writer.write( data.binaryEnclosure );
+  }
+
   private byte[] formatField( ValueMetaInterface v, Object valueData ) throws KettleValueException {
     if ( v.isString() ) {
       if ( v.isStorageBinaryString() && v.getTrimType() == ValueMetaInterface.TRIM_TYPE_NONE && v.getLength() < 0
@@ -411,6 +411,8 @@ public class TextFileOutputData extends BaseStepData implements StepDataInterfac
 
   public byte[][] binaryNullValue;
 
+  public TextFileFieldEncoder[] fieldEncoders;
+
   public boolean oneFileOpened;
 
   public int fileNameFieldIndex;
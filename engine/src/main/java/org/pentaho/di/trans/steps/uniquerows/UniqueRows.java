@@ -14,9 +14,12 @@
 
 package org.pentaho.di.trans.steps.uniquerows;
 
+import java.util.Arrays;
+
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.row.RowDataUtil;
 import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.SortKeyEncoder;
 import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.trans.Trans;
@@ -96,6 +99,9 @@ public class UniqueRows extends BaseStep implements StepInterface {
               + "," + meta.getCompareFields()[i];
         }
       }
+      if ( data.fieldnrs.length > 0 && SortKeyEncoder.isSupported( data.outputRowMeta, data.fieldnrs ) ) {
+        data.sortKeyEncoder = new SortKeyEncoder( data.outputRowMeta, data.fieldnrs );
+      }
       if ( data.sendDuplicateRows && !Utils.isEmpty( meta.getErrorDescription() ) ) {
         data.realErrorDescription = environmentSubstitute( meta.getErrorDescription() );
       }
@@ -105,13 +111,23 @@ public class UniqueRows extends BaseStep implements StepInterface {
     //
     if ( data.previous == null ) {
       data.previous = data.inputRowMeta.cloneRow( r );
+      data.previousKey = null;
     }
 
     boolean isEqual = false;
+    byte[] key = null;
 
     if ( meta.getCompareFields() == null || meta.getCompareFields().length == 0 ) {
       // Compare the complete row...
       isEqual = data.outputRowMeta.compare( r, data.previous ) == 0;
+    } else if ( data.sortKeyEncoder != null ) {
+      // The key of the previous row is kept, so every row is encoded only once
+      //
+      key = data.sortKeyEncoder.encode( r );
+      if ( data.previousKey == null ) {
+        data.previousKey = data.sortKeyEncoder.encode( data.previous );
+      }
+      isEqual = Arrays.equals( key, data.previousKey );
     } else {
       isEqual = data.outputRowMeta.compare( r, data.previous, data.fieldnrs ) == 0;
     }
@@ -120,6 +136,7 @@ public class UniqueRows extends BaseStep implements StepInterface {
       putRow( data.outputRowMeta, outputRow ); // copy row to possible alternate
                                                // rowset(s).
       data.previous = data.inputRowMeta.cloneRow( r );
+      data.previousKey = key;
       data.counter = 1;
     } else {
       data.counter++;
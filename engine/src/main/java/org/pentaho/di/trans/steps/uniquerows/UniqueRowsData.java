@@ -15,6 +15,7 @@
 package org.pentaho.di.trans.steps.uniquerows;
 
 import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.SortKeyEncoder;
 import org.pentaho.di.trans.step.BaseStepData;
 import org.pentaho.di.trans.step.StepDataInterface;
 
@@ -28,7 +29,9 @@ public class UniqueRowsData extends BaseStepData implements StepDataInterface {
   public RowMetaInterface inputRowMeta;
   public long counter;
   public Object[] previous;
+  public byte[] previousKey;
   public int[] fieldnrs;
+  public SortKeyEncoder sortKeyEncoder;
   public String compareFields;
   public String realErrorDescription;
   public boolean sendDuplicateRows;
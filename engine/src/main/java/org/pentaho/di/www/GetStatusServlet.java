@@ -16,6 +16,8 @@ package org.pentaho.di.www;
 
 import org.owasp.encoder.Encode;
 import org.pentaho.di.core.Const;
+import org.pentaho.di.core.database.ConnectionPoolRegistry;
+import org.pentaho.di.core.database.ConnectionPoolStats;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.xml.XMLHandler;
 import org.pentaho.di.i18n.BaseMessages;
@@ -30,6 +32,7 @@ import java.io.PrintWriter;
 import java.lang.management.OperatingSystemMXBean;
 import java.lang.management.RuntimeMXBean;
 import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
@@ -540,6 +543,36 @@ public class GetStatusServlet extends BaseHttpServlet implements CartePluginInte
         out.println( "</pre>" );
       }
 
+      // The connection pools of the server
+      //
+      List<ConnectionPoolStats> poolStatsList = ConnectionPoolRegistry.getInstance().getStats();
+      if ( !poolStatsList.isEmpty() ) {
+        out.println( "<div class=\"row\" style=\"padding: 0px 0px 30px 0px;\">" );
+        htmlClass = useLightTheme ? "h3" : "div";
+        out.println( "<div><" + htmlClass + " class=\"workspaceHeading\">"
+          + BaseMessages.getString( PKG, "GetStatusServlet.ConnectionPools.Title" ) + "</" + htmlClass + "></div>" );
+        out.println( "<table class=\"pentaho-table\" border=\"" + tableBorder + "\">" );
+        out.print( "<tr>" );
+        for ( String column : new String[] { "Name", "Active", "Idle", "Maximum", "Borrowed", "MeanWait",
+          "MaximumWait" } ) {
+          out.print( " <th class=\"cellTableHeader\">"
+            + BaseMessages.getString( PKG, "GetStatusServlet.ConnectionPools." + column ) + "</th>" );
+        }
+        out.print( " </tr>" );
+        for ( ConnectionPoolStats poolStats : poolStatsList ) {
+          String tdClass = "class=\"cellTableCell cellTableEvenRowCell\"";
+          out.print( "<tr> <td " + tdClass + ">" + Encode.forHtml( poolStats.getName() ) + "</td>"
+            + " <td " + tdClass + ">" + poolStats.getActiveCount() + "</td>"
+            + " <td " + tdClass + ">" + poolStats.getIdleCount() + "</td>"
+            + " <td " + tdClass + ">" + poolStats.getMaximumCount() + "</td>"
+            + " <td " + tdClass + ">" + poolStats.getBorrowCount() + "</td>"
+            + " <td " + tdClass + ">" + String.format( "%.1f", poolStats.getMeanBorrowWaitMillis() ) + "</td>"
+            + " <td " + tdClass + ">" + poolStats.getMaximumBorrowWaitMillis() + "</td> </tr>" );
+        }
+        out.print( "</table>" );
+        out.println( "</div>" );
+      }
+
       out.println( "<div class=\"row\" style=\"padding: 0px 0px 30px 0px;\">" );
       htmlClass = useLightTheme ? "h3" : "div";
       out.println( "<div><" + htmlClass + " class=\"workspaceHeading\">"
@@ -1013,6 +1046,7 @@ public class GetStatusServlet extends BaseHttpServlet implements CartePluginInte
     serverStatus.setOsArchitecture( osArch );
     serverStatus.setMemoryFree( freeMemory );
     serverStatus.setMemoryTotal( totalMemory );
+    serverStatus.setConnectionPoolStatsList( new ArrayList<>( ConnectionPoolRegistry.getInstance().getStats() ) );
   }
 
   public String toString() {
@@ -18,6 +18,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.pentaho.di.core.Const;
+import org.pentaho.di.core.database.ConnectionPoolStats;
 import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.xml.XMLHandler;
@@ -26,6 +27,7 @@ import org.w3c.dom.Node;
 
 public class SlaveServerStatus {
   public static final String XML_TAG = "serverstatus";
+  public static final String CONNECTION_POOL_XML_TAG = "connectionpool";
 
   private String statusDescription;
   private String errorDescription;
@@ -51,6 +53,8 @@ public class SlaveServerStatus {
 
   private String osArchitecture;
 
+  private List<ConnectionPoolStats> connectionPoolStatsList = new ArrayList<>();
+
   public SlaveServerStatus() {
     transStatusList = new ArrayList<SlaveServerTransStatus>();
     jobStatusList = new ArrayList<SlaveServerJobStatus>();
@@ -108,6 +112,20 @@ public class SlaveServerStatus {
     }
     xml.append( "  </jobstatuslist>" ).append( Const.CR );
 
+    xml.append( "  <connectionpoollist>" ).append( Const.CR );
+    for ( ConnectionPoolStats poolStats : connectionPoolStatsList ) {
+      xml.append( "    " ).append( XMLHandler.openTag( CONNECTION_POOL_XML_TAG ) );
+      xml.append( XMLHandler.addTagValue( "name", poolStats.getName(), false ) );
+      xml.append( XMLHandler.addTagValue( "active", poolStats.getActiveCount(), false ) );
+      xml.append( XMLHandler.addTagValue( "idle", poolStats.getIdleCount(), false ) );
+      xml.append( XMLHandler.addTagValue( "max_total", poolStats.getMaximumCount(), false ) );
+      xml.append( XMLHandler.addTagValue( "borrowed", poolStats.getBorrowCount(), false ) );
+      xml.append( XMLHandler.addTagValue( "borrow_wait", poolStats.getTotalBorrowWaitMillis(), false ) );
+      xml.append( XMLHandler.addTagValue( "max_borrow_wait", poolStats.getMaximumBorrowWaitMillis(), false ) );
+      xml.append( XMLHandler.closeTag( CONNECTION_POOL_XML_TAG ) ).append( Const.CR );
+    }
+    xml.append( "  </connectionpoollist>" ).append( Const.CR );
+
     xml.append( "</" + XML_TAG + ">" ).append( Const.CR );
 
     return xml.toString();
@@ -148,6 +166,19 @@ public class SlaveServerStatus {
       Node jobStatusNode = XMLHandler.getSubNodeByNr( listJobsNode, SlaveServerJobStatus.XML_TAG, i );
       jobStatusList.add( new SlaveServerJobStatus( jobStatusNode ) );
     }
+
+    Node listPoolsNode = XMLHandler.getSubNode( statusNode, "connectionpoollist" );
+    int nrPools = XMLHandler.countNodes( listPoolsNode, CONNECTION_POOL_XML_TAG );
+    for ( int i = 0; i < nrPools; i++ ) {
+      Node poolNode = XMLHandler.getSubNodeByNr( listPoolsNode, CONNECTION_POOL_XML_TAG, i );
+      connectionPoolStatsList.add( new ConnectionPoolStats( XMLHandler.getTagValue( poolNode, "name" ),
+        Const.toInt( XMLHandler.getTagValue( poolNode, "active" ), 0 ),
+        Const.toInt( XMLHandler.getTagValue( poolNode, "idle" ), 0 ),
+        Const.toInt( XMLHandler.getTagValue( poolNode, "max_total" ), -1 ),
+        Const.toLong( XMLHandler.getTagValue( poolNode, "borrowed" ), 0L ),
+        Const.toLong( XMLHandler.getTagValue( poolNode, "borrow_wait" ), 0L ),
+        Const.toLong( XMLHandler.getTagValue( poolNode, "max_borrow_wait" ), 0L ) ) );
+    }
   }
 
   public static SlaveServerStatus fromXML( String xml ) throws KettleException {
@@ -344,4 +375,15 @@ public class SlaveServerStatus {
   public String getOsArchitecture() {
     return osArchitecture;
   }
+
+  /**
+   * @return the statistics of the connection pools of the server
+   */
+  public List<ConnectionPoolStats> getConnectionPoolStatsList() {
+    return connectionPoolStatsList;
+  }
+
+  public void setConnectionPoolStatsList( List<ConnectionPoolStats> connectionPoolStatsList ) {
+    this.connectionPoolStatsList = connectionPoolStatsList;
+  }
 }
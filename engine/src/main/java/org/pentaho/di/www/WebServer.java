@@ -47,6 +47,8 @@ import org.pentaho.di.cluster.SlaveServer;
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.core.KettleEnvironment;
+import org.pentaho.di.core.database.ConnectionPoolUtil;
+import org.pentaho.di.core.exception.KettleDatabaseException;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.extension.ExtensionPointHandler;
 import org.pentaho.di.core.extension.KettleExtensionPoint;
@@ -318,6 +320,14 @@ public class WebServer {
         // Stop the server...
         //
         server.stop();
+
+        // Close the connection pools, no transformation uses them anymore
+        //
+        try {
+          ConnectionPoolUtil.removeAllDataSources();
+        } catch ( KettleDatabaseException e ) {
+          log.logError( "Error closing the connection pools", e );
+        }
         KettleEnvironment.shutdown();
         if ( webServerShutdownHandler != null ) {
           webServerShutdownHandler.shutdownWebServer();
@@ -0,0 +1,117 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.compress;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.pentaho.di.core.plugins.PluginRegistry;
+import org.pentaho.di.junit.rules.RestorePDIEngineEnvironment;
+
+/**
+ * The tests shared by the providers that write their data as independent frames with a
+ * {@link ParallelBlockOutputStream}.
+ */
+public abstract class AbstractBlockCompressionProviderTest {
+  @ClassRule public static RestorePDIEngineEnvironment env = new RestorePDIEngineEnvironment();
+
+  protected CompressionProvider provider;
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    PluginRegistry.addPluginType( CompressionPluginType.getInstance() );
+    PluginRegistry.init( false );
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    provider = CompressionProviderFactory.getInstance().getCompressionProviderByName( getProviderName() );
+  }
+
+  protected abstract String getProviderName();
+
+  protected abstract String getDescription();
+
+  protected abstract String getDefaultExtension();
+
+  protected abstract ParallelBlockOutputStream.BlockCompressor getBlockCompressor();
+
+  @Test
+  public void testGetProviderAttributes() {
+    assertEquals( getProviderName(), provider.getName() );
+    assertEquals( getDescription(), provider.getDescription() );
+    assertTrue( provider.supportsInput() );
+    assertTrue( provider.supportsOutput() );
+    assertEquals( getDefaultExtension(), provider.getDefaultExtension() );
+  }
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try ( OutputStream outStream = provider.createOutputStream( out ) ) {
+      outStream.write( "Test".getBytes( StandardCharsets.UTF_8 ) );
+    }
+
+    try ( InputStream inStream = provider.createInputStream( new ByteArrayInputStream( out.toByteArray() ) ) ) {
+      assertEquals( "Test", IOUtils.toString( inStream, StandardCharsets.UTF_8 ) );
+    }
+  }
+
+  @Test
+  public void testEmptyRoundTrip() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    provider.createOutputStream( out ).close();
+
+    try ( InputStream inStream = provider.createInputStream( new ByteArrayInputStream( out.toByteArray() ) ) ) {
+      assertEquals( -1, inStream.read() );
+    }
+  }
+
+  /**
+   * Many small blocks, compressed as separate frames, read back as a single stream.
+   */
+  @Test
+  public void testFramesReadAsOneStream() throws IOException {
+    StringBuilder text = new StringBuilder();
+    for ( int i = 0; i < 10000; i++ ) {
+      text.append( "row " ).append( i ).append( ";some text to compress\n" );
+    }
+    byte[] data = text.toString().getBytes( StandardCharsets.UTF_8 );
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try ( OutputStream outStream = new ParallelBlockOutputStream( out, getBlockCompressor(), 1000, 4 ) ) {
+      for ( int i = 0; i < data.length; i += 777 ) {
+        outStream.write( data, i, Math.min( 777, data.length - i ) );
+      }
+    }
+
+    try ( InputStream inStream = provider.createInputStream( new ByteArrayInputStream( out.toByteArray() ) ) ) {
+      assertArrayEquals( data, IOUtils.toByteArray( inStream ) );
+    }
+  }
+}
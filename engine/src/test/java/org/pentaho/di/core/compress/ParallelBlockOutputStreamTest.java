@@ -0,0 +1,159 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.compress;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+import org.pentaho.di.core.compress.ParallelBlockOutputStream.BlockCompressor;
+
+public class ParallelBlockOutputStreamTest {
+
+  /**
+   * Writes every block as "[block]" so the frames are easy to check.
+   */
+  private static final BlockCompressor BRACKETS = ( block, length ) ->
+    ( "[" + new String( block, 0, length, StandardCharsets.US_ASCII ) + "]" ).getBytes( StandardCharsets.US_ASCII );
+
+  @Test
+  public void testFramesAreWrittenInOrder() throws IOException {
+    // The first blocks take the longest to compress
+    //
+    BlockCompressor slowFirst = ( block, length ) -> {
+      try {
+        Thread.sleep( ( 'f' - block[ 0 ] ) * 20L );
+      } catch ( InterruptedException e ) {
+        Thread.currentThread().interrupt();
+      }
+      return BRACKETS.compress( block, length );
+    };
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try ( OutputStream stream = new ParallelBlockOutputStream( out, slowFirst, 3, 4 ) ) {
+      stream.write( "aaabbbcccdddeee".getBytes( StandardCharsets.US_ASCII ) );
+    }
+    assertEquals( "[aaa][bbb][ccc][ddd][eee]", out.toString( "US-ASCII" ) );
+  }
+
+  @Test
+  public void testWriteSingleBytes() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try ( OutputStream stream = new ParallelBlockOutputStream( out, BRACKETS, 4, 2 ) ) {
+      for ( byte b : "abcdefghij".getBytes( StandardCharsets.US_ASCII ) ) {
+        stream.write( b );
+      }
+    }
+    assertEquals( "[abcd][efgh][ij]", out.toString( "US-ASCII" ) );
+  }
+
+  @Test
+  public void testEmptyStreamGetsAFrame() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new ParallelBlockOutputStream( out, BRACKETS, 4, 2 ).close();
+    assertEquals( "[]", out.toString( "US-ASCII" ) );
+  }
+
+  /**
+   * Flushing writes the frames that are ready but leaves the block that is being filled alone.
+   */
+  @Test( timeout = 10000 )
+  public void testFlushWritesReadyFrames() throws Exception {
+    FlushCountingStream out = new FlushCountingStream();
+    ParallelBlockOutputStream stream = new ParallelBlockOutputStream( out, BRACKETS, 4, 4 );
+    stream.write( "abcdefg".getBytes( StandardCharsets.US_ASCII ) );
+
+    stream.flush();
+    assertEquals( 1, out.flushes );
+    while ( out.size() < "[abcd]".length() ) {
+      Thread.sleep( 10 );
+      stream.flush();
+    }
+    assertEquals( "[abcd]", out.toString( "US-ASCII" ) );
+
+    stream.write( 'h' );
+    stream.write( 'i' );
+    while ( out.size() < "[abcd][efgh]".length() ) {
+      Thread.sleep( 10 );
+      stream.flush();
+    }
+    assertEquals( "[abcd][efgh]", out.toString( "US-ASCII" ) );
+
+    stream.close();
+    assertEquals( "[abcd][efgh][i]", out.toString( "US-ASCII" ) );
+  }
+
+  @Test
+  public void testCompressionFailureIsPassedOn() throws IOException {
+    IOException failure = new IOException( "broken" );
+    BlockCompressor failSecond = ( block, length ) -> {
+      if ( block[ 0 ] == 'b' ) {
+        throw failure;
+      }
+      return BRACKETS.compress( block, length );
+    };
+
+    FlushCountingStream out = new FlushCountingStream();
+    OutputStream stream = new ParallelBlockOutputStream( out, failSecond, 3, 4 );
+    try {
+      stream.write( "aaabbbccc".getBytes( StandardCharsets.US_ASCII ) );
+      stream.close();
+      fail( "The failure should have been passed on" );
+    } catch ( IOException e ) {
+      assertSame( failure, e );
+    }
+    assertEquals( "[aaa]", out.toString( "US-ASCII" ) );
+    assertTrue( out.closed );
+  }
+
+  @Test
+  public void testRuntimeCompressionFailureIsPassedOn() throws IOException {
+    IllegalStateException failure = new IllegalStateException( "broken" );
+    BlockCompressor failing = ( block, length ) -> {
+      throw failure;
+    };
+
+    OutputStream stream = new ParallelBlockOutputStream( new ByteArrayOutputStream(), failing, 3, 4 );
+    stream.write( new byte[ 2 ] );
+    try {
+      stream.close();
+      fail( "The failure should have been passed on" );
+    } catch ( IOException e ) {
+      assertSame( failure, e.getCause() );
+    }
+  }
+
+  private static class FlushCountingStream extends ByteArrayOutputStream {
+    private int flushes;
+    private boolean closed;
+
+    @Override
+    public void flush() {
+      flushes++;
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+}
@@ -0,0 +1,171 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.compress;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+public class ReadAheadInputStreamTest {
+
+  @Test
+  public void testReadsAllData() throws IOException {
+    byte[] data = createData( 10005 );
+    for ( int blockSize : new int[] { 1, 100, 10005, 20000 } ) {
+      try ( InputStream in = new ReadAheadInputStream( new ByteArrayInputStream( data ), blockSize, 2 ) ) {
+        assertArrayEquals( data, IOUtils.toByteArray( in ) );
+        assertEquals( -1, in.read() );
+      }
+    }
+  }
+
+  @Test
+  public void testSingleBytes() throws IOException {
+    byte[] data = createData( 300 );
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try ( InputStream in = new ReadAheadInputStream( new ByteArrayInputStream( data ), 7, 2 ) ) {
+      for ( int b = in.read(); b >= 0; b = in.read() ) {
+        out.write( b );
+      }
+    }
+    assertArrayEquals( data, out.toByteArray() );
+  }
+
+  /**
+   * The data read before the failure is handed over, then the failure itself.
+   */
+  @Test
+  public void testFailureIsPassedOn() throws IOException {
+    IOException failure = new IOException( "broken" );
+    byte[] data = createData( 250 );
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try ( InputStream in = new ReadAheadInputStream( new FailingInputStream( data, failure ), 100, 4 ) ) {
+      byte[] buffer = new byte[ 64 ];
+      for ( int n = in.read( buffer ); n >= 0; n = in.read( buffer ) ) {
+        out.write( buffer, 0, n );
+      }
+      fail( "The failure should have been passed on" );
+    } catch ( IOException e ) {
+      assertSame( failure, e );
+    }
+    assertArrayEquals( createData( 200 ), out.toByteArray() );
+  }
+
+  @Test
+  public void testRuntimeFailureIsPassedOn() throws IOException {
+    IllegalStateException failure = new IllegalStateException( "broken" );
+    try ( InputStream in = new ReadAheadInputStream( new FailingInputStream( new byte[ 0 ], failure ), 100, 4 ) ) {
+      in.read();
+      fail( "The failure should have been passed on" );
+    } catch ( IOException e ) {
+      assertSame( failure, e.getCause() );
+    }
+  }
+
+  /**
+   * Closing the stream halfway stops the thread reading ahead, even when it waits for room to put the next block.
+   */
+  @Test( timeout = 10000 )
+  public void testCloseMidStream() throws Exception {
+    AtomicLong bytesRead = new AtomicLong();
+    AtomicBoolean closed = new AtomicBoolean();
+    InputStream endless = new InputStream() {
+      @Override
+      public int read() {
+        bytesRead.incrementAndGet();
+        return 'x';
+      }
+
+      @Override
+      public void close() {
+        closed.set( true );
+      }
+    };
+
+    InputStream in = new ReadAheadInputStream( endless, 10, 2 );
+    byte[] buffer = new byte[ 5 ];
+    assertEquals( 5, in.read( buffer ) );
+    in.close();
+    assertTrue( closed.get() );
+    assertEquals( -1, in.read() );
+    assertEquals( -1, in.read( buffer ) );
+
+    // The thread reading ahead stops
+    //
+    long before;
+    do {
+      before = bytesRead.get();
+      Thread.sleep( 50 );
+    } while ( bytesRead.get() != before );
+  }
+
+  private static byte[] createData( int length ) {
+    byte[] data = new byte[ length ];
+    for ( int i = 0; i < length; i++ ) {
+      data[ i ] = (byte) ( i * 31 );
+    }
+    return data;
+  }
+
+  /**
+   * Returns the data, then throws the failure.
+   */
+  private static class FailingInputStream extends InputStream {
+    private final InputStream data;
+    private final Exception failure;
+
+    FailingInputStream( byte[] data, Exception failure ) {
+      this.data = new ByteArrayInputStream( data );
+      this.failure = failure;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = data.read();
+      if ( b < 0 ) {
+        throwFailure();
+      }
+      return b;
+    }
+
+    @Override
+    public int read( byte[] b, int off, int len ) throws IOException {
+      int n = data.read( b, off, len );
+      if ( n < 0 ) {
+        throwFailure();
+      }
+      return n;
+    }
+
+    private void throwFailure() throws IOException {
+      if ( failure instanceof IOException ) {
+        throw (IOException) failure;
+      }
+      throw (RuntimeException) failure;
+    }
+  }
+}
@@ -0,0 +1,201 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.compress.gzip;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.compress.ReadAheadInputStream;
+
+public class ParallelGzipInputStreamTest {
+
+  @Test
+  public void testSingleMember() throws Exception {
+    byte[] data = createData( 300000 );
+    assertArrayEquals( data, inflate( gzip( data, Deflater.DEFAULT_COMPRESSION ), 1000, 4 ) );
+    assertArrayEquals( data, inflate( gzip( data, Deflater.DEFAULT_COMPRESSION ), 1000000, 4 ) );
+  }
+
+  @Test
+  public void testConcatenatedMembers() throws Exception {
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    for ( int i = 0; i < 50; i++ ) {
+      byte[] data = createData( i * 997 );
+      expected.write( data );
+      compressed.write( gzip( data, i % 10 ) );
+    }
+    for ( int maxMemberSize : new int[] { 100, 10000, 1000000 } ) {
+      for ( int parallelism = 1; parallelism <= 4; parallelism++ ) {
+        assertArrayEquals( expected.toByteArray(), inflate( compressed.toByteArray(), maxMemberSize, parallelism ) );
+      }
+    }
+  }
+
+  @Test
+  public void testBgzfBlocks() throws Exception {
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    for ( int i = 0; i < 20; i++ ) {
+      byte[] data = createData( 5000 + i );
+      expected.write( data );
+      compressed.write( bgzf( data ) );
+    }
+    compressed.write( bgzf( new byte[ 0 ] ) ); // the BGZF end of file marker
+    assertArrayEquals( expected.toByteArray(), inflate( compressed.toByteArray(), 100, 4 ) );
+  }
+
+  @Test
+  public void testHeaderInsideTheData() throws Exception {
+    // Stored data isn't compressed: the gzip header in the data is found as a possible start of the next member
+    //
+    byte[] data = new byte[ 1000 ];
+    byte[] header = gzip( new byte[ 0 ], Deflater.DEFAULT_COMPRESSION );
+    System.arraycopy( header, 0, data, 500, header.length );
+    byte[] tail = "tail".getBytes( StandardCharsets.UTF_8 );
+
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    compressed.write( gzip( data, Deflater.NO_COMPRESSION ) );
+    compressed.write( gzip( tail, Deflater.DEFAULT_COMPRESSION ) );
+
+    byte[] expected = Arrays.copyOf( data, data.length + tail.length );
+    System.arraycopy( tail, 0, expected, data.length, tail.length );
+    assertArrayEquals( expected, inflate( compressed.toByteArray(), 100000, 4 ) );
+  }
+
+  @Test
+  public void testTrailingGarbageIsIgnored() throws Exception {
+    byte[] data = createData( 1000 );
+    byte[] compressed = gzip( data, Deflater.DEFAULT_COMPRESSION );
+    byte[] withGarbage = Arrays.copyOf( compressed, compressed.length + 20 );
+    Arrays.fill( withGarbage, compressed.length, withGarbage.length, (byte) 'x' );
+    assertArrayEquals( data, inflate( withGarbage, 100000, 4 ) );
+  }
+
+  @Test( expected = ZipException.class )
+  public void testNotGzip() throws Exception {
+    new ParallelGzipInputStream( new ByteArrayInputStream( "not gzip at all".getBytes( StandardCharsets.UTF_8 ) ) );
+  }
+
+  @Test
+  public void testCorruptTrailer() throws Exception {
+    byte[] compressed = gzip( createData( 1000 ), Deflater.DEFAULT_COMPRESSION );
+    compressed[ compressed.length - 5 ]++;
+    for ( int maxMemberSize : new int[] { 100, 100000 } ) {
+      try {
+        inflate( compressed, maxMemberSize, 4 );
+        fail( "A corrupt trailer should be reported" );
+      } catch ( ZipException e ) {
+        assertEquals( "Corrupt GZIP trailer", e.getMessage() );
+      }
+    }
+  }
+
+  @Test
+  public void testThroughCompressionProvider() throws Exception {
+    byte[] data = createData( 100000 );
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    compressed.write( gzip( data, Deflater.DEFAULT_COMPRESSION ) );
+    compressed.write( gzip( data, Deflater.DEFAULT_COMPRESSION ) );
+
+    try ( InputStream delegate =
+            GZIPCompressionInputStream.getParallelDelegate( new ByteArrayInputStream( compressed.toByteArray() ) ) ) {
+      assertTrue( delegate instanceof ReadAheadInputStream );
+    }
+    for ( String parallel : new String[] { "N", "Y" } ) {
+      System.setProperty( Const.KETTLE_PARALLEL_GZIP_INPUT, parallel );
+      try ( InputStream in = new GZIPCompressionInputStream( new ByteArrayInputStream( compressed.toByteArray() ),
+        new GZIPCompressionProvider() ) ) {
+        byte[] result = IOUtils.toByteArray( in );
+        assertEquals( 2 * data.length, result.length );
+        assertArrayEquals( data, Arrays.copyOfRange( result, data.length, result.length ) );
+      } finally {
+        System.clearProperty( Const.KETTLE_PARALLEL_GZIP_INPUT );
+      }
+    }
+  }
+
+  private static byte[] inflate( byte[] compressed, int maxMemberSize, int parallelism ) throws IOException {
+    try ( InputStream in =
+            new ParallelGzipInputStream( new ByteArrayInputStream( compressed ), maxMemberSize, parallelism ) ) {
+      return IOUtils.toByteArray( in );
+    }
+  }
+
+  private static byte[] createData( int size ) {
+    Random random = new Random( size );
+    byte[] data = new byte[ size ];
+    for ( int i = 0; i < size; i++ ) {
+      data[ i ] = (byte) ( 'a' + random.nextInt( 1 + i % 26 ) );
+    }
+    return data;
+  }
+
+  private static byte[] gzip( byte[] data, int level ) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try ( GZIPOutputStream gzip = new GZIPOutputStream( out ) {
+      {
+        def.setLevel( level );
+      }
+    } ) {
+      gzip.write( data );
+    }
+    return out.toByteArray();
+  }
+
+  private static byte[] bgzf( byte[] data ) {
+    Deflater deflater = new Deflater( Deflater.DEFAULT_COMPRESSION, true );
+    deflater.setInput( data );
+    deflater.finish();
+    byte[] deflated = new byte[ data.length + 1024 ];
+    int length = deflater.deflate( deflated );
+    deflater.end();
+
+    CRC32 crc = new CRC32();
+    crc.update( data );
+    int blockSize = 18 + length + 8;
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    out.write( new byte[] { 0x1f, (byte) 0x8b, 8, 4, 0, 0, 0, 0, 0, (byte) 0xff, 6, 0, 'B', 'C', 2, 0 }, 0, 16 );
+    writeShort( out, blockSize - 1 );
+    out.write( deflated, 0, length );
+    writeShort( out, (int) crc.getValue() );
+    writeShort( out, (int) ( crc.getValue() >>> 16 ) );
+    writeShort( out, data.length );
+    writeShort( out, data.length >>> 16 );
+    return out.toByteArray();
+  }
+
+  private static void writeShort( ByteArrayOutputStream out, int value ) {
+    out.write( value & 0xff );
+    out.write( ( value >>> 8 ) & 0xff );
+  }
+}
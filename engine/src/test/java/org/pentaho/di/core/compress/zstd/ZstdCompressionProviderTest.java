@@ -0,0 +1,49 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.compress.zstd;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.pentaho.di.core.compress.AbstractBlockCompressionProviderTest;
+import org.pentaho.di.core.compress.ParallelBlockOutputStream;
+
+public class ZstdCompressionProviderTest extends AbstractBlockCompressionProviderTest {
+
+  @Override
+  protected String getProviderName() {
+    return "Zstd";
+  }
+
+  @Override
+  protected String getDescription() {
+    return "Zstandard compression";
+  }
+
+  @Override
+  protected String getDefaultExtension() {
+    return "zst";
+  }
+
+  @Override
+  protected ParallelBlockOutputStream.BlockCompressor getBlockCompressor() {
+    return ZstdCompressionOutputStream::compress;
+  }
+
+  @Test
+  public void testProviderType() {
+    assertTrue( provider instanceof ZstdCompressionProvider );
+  }
+}
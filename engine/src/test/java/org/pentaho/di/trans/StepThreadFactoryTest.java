@@ -0,0 +1,62 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.trans;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+import org.pentaho.di.trans.TransMeta.StepThreadingType;
+
+public class StepThreadFactoryTest {
+
+  @Test
+  public void testPlatformThread() throws Exception {
+    AtomicBoolean ran = new AtomicBoolean( false );
+    Thread thread = StepThreadFactory.newThread( StepThreadingType.Platform, () -> ran.set( true ), "platform step" );
+
+    assertEquals( "platform step", thread.getName() );
+    assertEquals( Thread.State.NEW, thread.getState() );
+    thread.start();
+    thread.join();
+    assertTrue( ran.get() );
+  }
+
+  @Test
+  public void testVirtualThreadOrFallback() throws Exception {
+    AtomicBoolean ran = new AtomicBoolean( false );
+    Thread thread = StepThreadFactory.newThread( StepThreadingType.Virtual, () -> ran.set( true ), "virtual step" );
+
+    assertEquals( "virtual step", thread.getName() );
+    assertEquals( Thread.State.NEW, thread.getState() );
+    if ( !StepThreadFactory.isVirtualThreadSupported() ) {
+      assertEquals( StepThreadingType.Platform,
+        StepThreadFactory.getEffectiveThreadingType( StepThreadingType.Virtual ) );
+    }
+    thread.start();
+    thread.join();
+    assertTrue( ran.get() );
+  }
+
+  @Test
+  public void testNullMeansPlatform() {
+    assertEquals( StepThreadingType.Platform, StepThreadFactory.getEffectiveThreadingType( null ) );
+    Thread thread = StepThreadFactory.newThread( null, () -> { }, "step" );
+    assertFalse( thread.isAlive() );
+  }
+}
@@ -19,6 +19,7 @@ import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import org.junit.ClassRule;
@@ -36,6 +37,7 @@ import org.pentaho.di.junit.rules.RestorePDIEngineEnvironment;
 import org.pentaho.di.repository.RepositoriesMeta;
 import org.pentaho.di.repository.Repository;
 import org.pentaho.di.repository.RepositoryMeta;
+import org.pentaho.di.trans.TransMeta.StepThreadingType;
 
 import java.util.HashMap;
 import java.util.List;
@@ -181,4 +183,15 @@ public class TransExecutionConfigurationTest {
       assertEquals( "xml-copy", tec.getPassedBatchId(), tecCopy.getPassedBatchId() );
     }
   }
+
+  @Test
+  public void testStepThreadingTypeXml() throws Exception {
+    TransExecutionConfiguration tec = new TransExecutionConfiguration();
+    Node node = XMLHandler.getSubNode( XMLHandler.loadXMLString( tec.getXML() ), TransExecutionConfiguration.XML_TAG );
+    assertNull( "no override by default", new TransExecutionConfiguration( node ).getStepThreadingType() );
+
+    tec.setStepThreadingType( StepThreadingType.Virtual );
+    node = XMLHandler.getSubNode( XMLHandler.loadXMLString( tec.getXML() ), TransExecutionConfiguration.XML_TAG );
+    assertEquals( StepThreadingType.Virtual, new TransExecutionConfiguration( node ).getStepThreadingType() );
+  }
 }
@@ -980,6 +980,35 @@ public class TransMetaTest {
         deserializedTransMeta.getFilename() == null || deserializedTransMeta.getFilename().isEmpty() );
   }
 
+  @Test
+  public void testLockFreeRowSetsXmlRoundTrip() throws Exception {
+    TransMeta source = new TransMeta();
+    assertTrue( "Lock-free row sets are enabled by default", source.isUsingLockFreeRowSets() );
+    source.setUsingLockFreeRowSets( false );
+
+    Node transNode = XMLHandler.getSubNode( XMLHandler.loadXMLString( source.getXML() ), TransMeta.XML_TAG );
+    assertFalse( new TransMeta( transNode, null ).isUsingLockFreeRowSets() );
+
+    source.setUsingLockFreeRowSets( true );
+    transNode = XMLHandler.getSubNode( XMLHandler.loadXMLString( source.getXML() ), TransMeta.XML_TAG );
+    assertTrue( new TransMeta( transNode, null ).isUsingLockFreeRowSets() );
+  }
+
+  @Test
+  public void testStepThreadingTypeXmlRoundTrip() throws Exception {
+    TransMeta source = new TransMeta();
+    assertEquals( TransMeta.StepThreadingType.Platform, source.getStepThreadingType() );
+    source.setStepThreadingType( TransMeta.StepThreadingType.Virtual );
+
+    Node transNode = XMLHandler.getSubNode( XMLHandler.loadXMLString( source.getXML() ), TransMeta.XML_TAG );
+    assertEquals( TransMeta.StepThreadingType.Virtual, new TransMeta( transNode, null ).getStepThreadingType() );
+
+    assertEquals( TransMeta.StepThreadingType.Platform,
+      TransMeta.StepThreadingType.getStepThreadingTypeByCode( null ) );
+    assertEquals( TransMeta.StepThreadingType.Virtual,
+      TransMeta.StepThreadingType.getStepThreadingTypeByCode( "virtual" ) );
+  }
+
   /**
    * getUsedDatabaseConnectionNames throws NullPointerException when a step returns a null DatabaseMeta
    * in its getUsedDatabaseConnections array.
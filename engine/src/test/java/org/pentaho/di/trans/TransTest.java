@@ -1191,4 +1191,28 @@ public class TransTest {
 
     assertFalse( trans.isVfs() );
   }
+
+  @Test
+  public void testStepThreadingTypeResolution() {
+    trans = new Trans( meta );
+    assertEquals( TransMeta.StepThreadingType.Platform, trans.getStepThreadingType() );
+
+    // The transformation setting
+    meta.setStepThreadingType( TransMeta.StepThreadingType.Virtual );
+    assertEquals( TransMeta.StepThreadingType.Virtual, trans.getStepThreadingType() );
+
+    // The variable overrides the transformation setting
+    trans.setVariable( Const.KETTLE_STEP_THREADING_TYPE, "Platform" );
+    assertEquals( TransMeta.StepThreadingType.Platform, trans.getStepThreadingType() );
+
+    // The run configuration of the parent transformation overrides the variable
+    Trans parentTrans = new Trans();
+    parentTrans.setStepThreadingType( TransMeta.StepThreadingType.Virtual );
+    trans.setParentTrans( parentTrans );
+    assertEquals( TransMeta.StepThreadingType.Virtual, trans.getStepThreadingType() );
+
+    // The run configuration of the transformation itself comes first
+    trans.setStepThreadingType( TransMeta.StepThreadingType.Platform );
+    assertEquals( TransMeta.StepThreadingType.Platform, trans.getStepThreadingType() );
+  }
 }
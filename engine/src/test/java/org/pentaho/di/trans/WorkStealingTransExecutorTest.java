@@ -0,0 +1,150 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.trans;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.pentaho.di.core.RowSet;
+import org.pentaho.di.core.UnboundedRowSet;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.logging.LogChannelInterface;
+import org.pentaho.di.trans.TransMeta.TransformationType;
+import org.pentaho.di.trans.step.StepDataInterface;
+import org.pentaho.di.trans.step.StepIOMetaInterface;
+import org.pentaho.di.trans.step.StepInterface;
+import org.pentaho.di.trans.step.StepMeta;
+import org.pentaho.di.trans.step.StepMetaDataCombi;
+import org.pentaho.di.trans.step.StepMetaInterface;
+
+public class WorkStealingTransExecutorTest {
+
+  private static final int NR_ROWS = 25000;
+  private static final int SIZE_ROWSET = 100;
+  private static final TransformationType[] SINGLE_THREADED = new TransformationType[] {
+    TransformationType.SingleThreaded };
+
+  @Test
+  public void testIsSupported() {
+    assertTrue( WorkStealingTransExecutor.isSupported( new TransformationType[] {
+      TransformationType.Normal, TransformationType.SingleThreaded } ) );
+    assertTrue( WorkStealingTransExecutor.isSupported( new TransformationType[] { TransformationType.WorkStealing } ) );
+    assertFalse( WorkStealingTransExecutor.isSupported( new TransformationType[] { TransformationType.Normal } ) );
+    assertFalse( WorkStealingTransExecutor.isSupported( null ) );
+  }
+
+  @Test
+  public void testTransformationTypeCode() {
+    assertEquals( TransformationType.WorkStealing,
+      TransformationType.getTransformationTypeByCode( TransformationType.WorkStealing.getCode() ) );
+  }
+
+  @Test( expected = KettleException.class )
+  public void testUnsupportedStep() throws Exception {
+    StepMetaDataCombi combi = createCombi( "normal only", new TransformationType[] { TransformationType.Normal } );
+    new WorkStealingTransExecutor( createTrans( Collections.singletonList( combi ), new ArrayList<>() ) ).start();
+  }
+
+  @Test
+  public void testRowsFlowWithBackPressure() throws Exception {
+    RowSet rowSet = new UnboundedRowSet();
+    rowSet.setThreadNameFromToCopy( "producer", 0, "consumer", 0 );
+    AtomicInteger maxBuffered = new AtomicInteger( 0 );
+    AtomicInteger consumed = new AtomicInteger( 0 );
+
+    StepMetaDataCombi producer = createCombi( "producer", SINGLE_THREADED );
+    AtomicInteger produced = new AtomicInteger( 0 );
+    when( producer.step.getOutputRowSets() ).thenReturn( Collections.singletonList( rowSet ) );
+    when( producer.step.processRow( any(), any() ) ).thenAnswer( invocation -> {
+      if ( produced.get() >= NR_ROWS ) {
+        rowSet.setDone();
+        return false;
+      }
+      rowSet.putRow( null, new Object[] { (long) produced.getAndIncrement() } );
+      maxBuffered.accumulateAndGet( rowSet.size(), Math::max );
+      return true;
+    } );
+
+    StepMetaDataCombi consumer = createCombi( "consumer", SINGLE_THREADED );
+    when( consumer.step.getInputRowSets() ).thenReturn( Collections.singletonList( rowSet ) );
+    when( consumer.step.processRow( any(), any() ) ).thenAnswer( invocation -> {
+      Object[] row = rowSet.getRowImmediate();
+      if ( row != null ) {
+        consumed.incrementAndGet();
+        return true;
+      }
+      return !( rowSet.isDone() && rowSet.size() == 0 );
+    } );
+
+    Trans trans = createTrans( Arrays.asList( producer, consumer ), Collections.singletonList( rowSet ) );
+    new WorkStealingTransExecutor( trans ).start();
+
+    verify( producer.step, timeout( 10000 ) ).markStop();
+    verify( consumer.step, timeout( 10000 ) ).markStop();
+    verify( consumer.step, never() ).setErrors( 1 );
+    assertEquals( NR_ROWS, consumed.get() );
+    // The producer only gets a turn while there's room in its output buffer
+    assertTrue( maxBuffered.get() <= SIZE_ROWSET );
+  }
+
+  private StepMetaDataCombi createCombi( String name, TransformationType[] supportedTypes ) {
+    StepIOMetaInterface ioMeta = mock( StepIOMetaInterface.class );
+    when( ioMeta.getInfoStreams() ).thenReturn( new ArrayList<>() );
+    StepMetaInterface meta = mock( StepMetaInterface.class );
+    when( meta.getSupportedTransformationTypes() ).thenReturn( supportedTypes );
+    when( meta.getStepIOMeta() ).thenReturn( ioMeta );
+    StepMeta stepMeta = mock( StepMeta.class );
+    when( stepMeta.getStepMetaInterface() ).thenReturn( meta );
+    when( stepMeta.getStepID() ).thenReturn( name );
+
+    StepInterface step = mock( StepInterface.class );
+    when( step.getLogChannel() ).thenReturn( mock( LogChannelInterface.class ) );
+    when( step.getInputRowSets() ).thenReturn( new ArrayList<>() );
+    when( step.getOutputRowSets() ).thenReturn( new ArrayList<>() );
+
+    StepMetaDataCombi combi = new StepMetaDataCombi();
+    combi.stepname = name;
+    combi.copy = 0;
+    combi.stepMeta = stepMeta;
+    combi.meta = meta;
+    combi.data = mock( StepDataInterface.class );
+    combi.step = step;
+    return combi;
+  }
+
+  private Trans createTrans( List<StepMetaDataCombi> steps, List<RowSet> rowSets ) {
+    TransMeta transMeta = mock( TransMeta.class );
+    when( transMeta.getSizeRowset() ).thenReturn( SIZE_ROWSET );
+    Trans trans = mock( Trans.class );
+    when( trans.getTransMeta() ).thenReturn( transMeta );
+    when( trans.getSteps() ).thenReturn( steps );
+    when( trans.getRowsets() ).thenReturn( rowSets );
+    return trans;
+  }
+}
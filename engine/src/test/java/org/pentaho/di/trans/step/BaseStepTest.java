@@ -487,6 +487,86 @@ public class BaseStepTest {
       0 } );
   }
 
+  @Test
+  public void getRowsAndPutRowsMoveBatches() throws KettleException {
+    BaseStep baseStepSpy =
+      spy( new BaseStep( mockHelper.stepMeta, mockHelper.stepDataInterface,
+        0, mockHelper.transMeta, mockHelper.trans ) );
+    doNothing().when( baseStepSpy ).waitUntilTransformationIsStarted();
+    doNothing().when( baseStepSpy ).openRemoteInputStepSocketsOnce();
+
+    RowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "x" ) );
+    BlockingRowSet input = new BlockingRowSet( 10 );
+    for ( long i = 0; i < 5; i++ ) {
+      input.putRow( rowMeta, new Object[] { i } );
+    }
+    BlockingRowSet output = new BlockingRowSet( 10 );
+    baseStepSpy.setInputRowSets( new ArrayList<>( List.of( input ) ) );
+    baseStepSpy.setOutputRowSets( new ArrayList<>( List.of( output ) ) );
+
+    List<Object[]> rows = baseStepSpy.getRows( 3 );
+    assertEquals( 3, rows.size() );
+    assertEquals( 0L, rows.get( 0 )[ 0 ] );
+    assertEquals( 2L, rows.get( 2 )[ 0 ] );
+    assertEquals( 3, baseStepSpy.getLinesRead() );
+    assertEquals( 2, input.size() );
+
+    baseStepSpy.putRows( rowMeta, rows );
+    assertEquals( 3, output.size() );
+    assertEquals( 3, baseStepSpy.getLinesWritten() );
+    assertEquals( 0L, output.getRow()[ 0 ] );
+  }
+
+  @Test
+  public void putRowsCountsOnlyTheRowsHandedOverWhenStopped() throws KettleException {
+    BaseStep baseStepSpy =
+      spy( new BaseStep( mockHelper.stepMeta, mockHelper.stepDataInterface,
+        0, mockHelper.transMeta, mockHelper.trans ) );
+    doNothing().when( baseStepSpy ).waitUntilTransformationIsStarted();
+
+    RowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "x" ) );
+    // The step is stopped while the rowset is full
+    BlockingRowSet output = new BlockingRowSet( 2 ) {
+      @Override
+      public int putRows( RowMetaInterface rowMeta, List<Object[]> rows ) {
+        int nrPut = super.putRows( rowMeta, rows );
+        baseStepSpy.setStopped( true );
+        return nrPut;
+      }
+    };
+    baseStepSpy.setOutputRowSets( new ArrayList<>( List.of( output ) ) );
+
+    List<Object[]> rows = new ArrayList<>();
+    for ( long i = 0; i < 5; i++ ) {
+      rows.add( new Object[] { i } );
+    }
+    baseStepSpy.putRows( rowMeta, rows );
+    assertEquals( 2, output.size() );
+    assertEquals( 2, baseStepSpy.getLinesWritten() );
+  }
+
+  @Test
+  public void getRowsAndPutRowsWithRowHandlerGoRowByRow() throws KettleException {
+    BaseStep baseStep =
+      new BaseStep( mockHelper.stepMeta, mockHelper.stepDataInterface,
+        0, mockHelper.transMeta, mockHelper.trans );
+    baseStep.setRowHandler( rowHandlerWithDefaultMethods() );
+
+    List<Object[]> rows = baseStep.getRows( 10 );
+    assertEquals( 1, rows.size() );
+
+    RowHandler handler = spy( rowHandlerWithDefaultMethods() );
+    baseStep.setRowHandler( handler );
+    RowMetaInterface rowMeta = new RowMeta();
+    Object[] row1 = new Object[] { 1L };
+    Object[] row2 = new Object[] { 2L };
+    baseStep.putRows( rowMeta, Arrays.asList( row1, row2 ) );
+    verify( handler ).putRow( rowMeta, row1 );
+    verify( handler ).putRow( rowMeta, row2 );
+  }
+
   @Test
   public void testGetRowSafeModeEnabled() throws KettleException {
     Trans transMock = mock( Trans.class );
@@ -0,0 +1,132 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.trans.steps.calculator;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.KettleEnvironment;
+import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.core.variables.Variables;
+import org.pentaho.di.junit.rules.RestorePDIEngineEnvironment;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.TransTestFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Runs the calculator on many small row chunks and compares the result with the row by row calculation.
+ */
+public class CalculatorRowChunksTest {
+  @ClassRule public static RestorePDIEngineEnvironment env = new RestorePDIEngineEnvironment();
+
+  private static final String STEPNAME = "Calculator";
+  private static final int NR_ROWS = 1000;
+
+  @BeforeClass
+  public static void before() throws KettleException {
+    KettleEnvironment.init( false );
+  }
+
+  @Test
+  public void testChunkCalculationGivesTheSameRows() throws KettleException {
+    CalculatorMeta meta = createMeta(
+      calc( "sum", CalculatorMetaFunction.CALC_ADD, "a", "b", ValueMetaInterface.TYPE_INTEGER, false ),
+      calc( "diff", CalculatorMetaFunction.CALC_SUBTRACT, "a", "b", ValueMetaInterface.TYPE_INTEGER, false ),
+      calc( "tmp", CalculatorMetaFunction.CALC_MULTIPLY, "a", "b", ValueMetaInterface.TYPE_INTEGER, true ),
+      calc( "product", CalculatorMetaFunction.CALC_MULTIPLY, "tmp", "a", ValueMetaInterface.TYPE_INTEGER, false ),
+      calc( "plus", CalculatorMetaFunction.CALC_ADD, "x", "y", ValueMetaInterface.TYPE_NUMBER, false ),
+      calc( "ratio", CalculatorMetaFunction.CALC_DIVIDE, "x", "y", ValueMetaInterface.TYPE_NUMBER, false ) );
+
+    assertSameRows( execute( meta, false ), execute( meta, true ) );
+  }
+
+  @Test
+  public void testOtherCalculationsFallBackToRows() throws KettleException {
+    CalculatorMeta meta = createMeta(
+      calc( "sum", CalculatorMetaFunction.CALC_ADD, "a", "b", ValueMetaInterface.TYPE_INTEGER, false ),
+      calc( "quotient", CalculatorMetaFunction.CALC_DIVIDE, "a", "c", ValueMetaInterface.TYPE_INTEGER, false ),
+      calc( "text", CalculatorMetaFunction.CALC_ADD, "name", "name", ValueMetaInterface.TYPE_STRING, false ) );
+
+    assertSameRows( execute( meta, false ), execute( meta, true ) );
+  }
+
+  private static CalculatorMeta createMeta( CalculatorMetaFunction... functions ) {
+    CalculatorMeta meta = new CalculatorMeta();
+    meta.setDefault();
+    meta.setCalculation( functions );
+    return meta;
+  }
+
+  private static CalculatorMetaFunction calc( String fieldName, int calcType, String fieldA, String fieldB,
+                                              int valueType, boolean removedFromResult ) {
+    return new CalculatorMetaFunction( fieldName, calcType, fieldA, fieldB, null, valueType, -1, -1,
+      removedFromResult, null, null, null, null );
+  }
+
+  private static List<RowMetaAndData> execute( CalculatorMeta meta, boolean rowChunks ) throws KettleException {
+    TransMeta transMeta = TransTestFactory.generateTestTransformation( null, meta, STEPNAME );
+    Variables variables = new Variables();
+    variables.setVariable( Const.KETTLE_ROW_CHUNKS, rowChunks ? "Y" : "N" );
+    variables.setVariable( Const.KETTLE_ROW_BATCH_SIZE, "7" );
+    return TransTestFactory.executeTestTransformation( transMeta, TransTestFactory.INJECTOR_STEPNAME, STEPNAME,
+      TransTestFactory.DUMMY_STEPNAME, createInput(), variables, null );
+  }
+
+  private static List<RowMetaAndData> createInput() {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "a" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "b" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "c" ) );
+    rowMeta.addValueMeta( new ValueMetaNumber( "x" ) );
+    rowMeta.addValueMeta( new ValueMetaNumber( "y" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "name" ) );
+
+    List<RowMetaAndData> rows = new ArrayList<>();
+    for ( int i = 0; i < NR_ROWS; i++ ) {
+      rows.add( new RowMetaAndData( rowMeta,
+        i % 13 == 0 ? null : Long.valueOf( i - 500 ),
+        i % 17 == 0 ? null : Long.valueOf( i * 31L % 97 ),
+        Long.valueOf( i % 9 + 1 ),
+        i % 11 == 0 ? null : Double.valueOf( i / 3.0 ),
+        Double.valueOf( i % 5 == 0 ? 0.0 : i * 0.7 - 100 ),
+        i % 19 == 0 ? null : "row" + i ) );
+    }
+    return rows;
+  }
+
+  private static void assertSameRows( List<RowMetaAndData> expected, List<RowMetaAndData> actual ) {
+    assertEquals( expected.size(), actual.size() );
+    for ( int i = 0; i < expected.size(); i++ ) {
+      RowMetaInterface rowMeta = expected.get( i ).getRowMeta();
+      assertArrayEquals( rowMeta.getFieldNames(), actual.get( i ).getRowMeta().getFieldNames() );
+      assertArrayEquals( "row " + i, Arrays.copyOf( expected.get( i ).getData(), rowMeta.size() ),
+        Arrays.copyOf( actual.get( i ).getData(), rowMeta.size() ) );
+    }
+  }
+}
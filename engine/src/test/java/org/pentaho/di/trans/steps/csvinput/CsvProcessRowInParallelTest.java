@@ -263,6 +263,27 @@ public class CsvProcessRowInParallelTest extends CsvInputUnitTestBase {
     assertEquals( 11, t1 + t2 + t3 + t4 );
   }
 
+  /**
+   * The third step copy starts to read in the middle of an enclosed new line: a memory mapped read counts the
+   * enclosures in front of it to know it has to skip that row.
+   */
+  @Test
+  public void memoryMapped_NewLinesInEnclosures_3Threads() throws Exception {
+    final int totalNumberOfSteps = 3;
+
+    final String fileContent =
+            "a;\"1\r\n1\"\r\n"
+          + "b;\"2\r\n2\"\r\n"
+          + "c;\"3\r\n3\"\r\n"
+          + "d;4\r\n";
+
+    File sharedFile = createTestFile( "UTF-8", fileContent );
+
+    assertEquals( 2, createAndRunOneMappedStep( sharedFile, 0, totalNumberOfSteps ) );
+    assertEquals( 1, createAndRunOneMappedStep( sharedFile, 1, totalNumberOfSteps ) );
+    assertEquals( 1, createAndRunOneMappedStep( sharedFile, 2, totalNumberOfSteps ) );
+  }
+
   /**
    * So as not to heap up list of taken parameters, we are passing combi, but we expect to see CsvInput class instances
    * in it's content.
@@ -305,18 +326,27 @@ public class CsvProcessRowInParallelTest extends CsvInputUnitTestBase {
 
   private int createAndRunOneStep( File sharedFile, int stepNr, int totalNumberOfSteps, boolean headersPresent, String delimiter )
     throws Exception {
-    StepMetaDataCombi combiStep1 = createBaseCombi( sharedFile, headersPresent, delimiter );
+    StepMetaDataCombi combiStep1 = createBaseCombi( sharedFile, headersPresent, delimiter, false );
+    configureData( (CsvInputData) combiStep1.data, stepNr, totalNumberOfSteps );
+
+    return processRows( combiStep1 );
+  }
+
+  private int createAndRunOneMappedStep( File sharedFile, int stepNr, int totalNumberOfSteps ) throws Exception {
+    StepMetaDataCombi combiStep1 = createBaseCombi( sharedFile, false, ";", true );
     configureData( (CsvInputData) combiStep1.data, stepNr, totalNumberOfSteps );
 
     return processRows( combiStep1 );
   }
 
-  private StepMetaDataCombi createBaseCombi( File sharedFile, boolean headerPresent, String delimiter ) {
+  private StepMetaDataCombi createBaseCombi( File sharedFile, boolean headerPresent, String delimiter,
+                                             boolean memoryMapped ) {
 
     StepMetaDataCombi combi = new StepMetaDataCombi();
 
     CsvInputData data = new CsvInputData();
     CsvInputMeta meta = createMeta( sharedFile, createInputFileFields( "Field_000", "Field_001" ), headerPresent, delimiter );
+    meta.setMemoryMapped( memoryMapped );
 
     CsvInput csvInput = createCsvInput();
     csvInput.init( meta, data );
@@ -0,0 +1,153 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.trans.steps.csvinput;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+
+public class MappedCsvReaderTest {
+  private static final String CONTENT =
+      "id;name;note\r\n"
+    + "1;\"a\";x\r\n"
+    + "2;\"b;\"\"quoted\"\"\";y\n"
+    + "\r\n"
+    + "3;\"multi\r\nline\";z\r"
+    + "4;;\n"
+    + "5;e";
+
+  private static final List<List<String>> ROWS = Arrays.asList(
+    Arrays.asList( "1", "a", "x" ),
+    Arrays.asList( "2", "b;\"quoted\"", "y" ),
+    Arrays.asList( "3", "multi\r\nline", "z" ),
+    Arrays.asList( "4", "", "" ),
+    Arrays.asList( "5", "e", null ) );
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private ExecutorService executor;
+  private File file;
+
+  @Before
+  public void setUp() throws Exception {
+    executor = Executors.newFixedThreadPool( 4 );
+    file = folder.newFile( "mapped.csv" );
+    Files.write( file.toPath(), CONTENT.getBytes( StandardCharsets.UTF_8 ) );
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testChunkSizeDoesNotChangeTheRows() throws Exception {
+    for ( int chunkSize = 1; chunkSize <= CONTENT.length() + 1; chunkSize++ ) {
+      assertEquals( "chunk size " + chunkSize, ROWS, read( 0L, Long.MAX_VALUE, chunkSize ) );
+    }
+  }
+
+  @Test
+  public void testRangesSplitTheRows() throws Exception {
+    for ( long split = 0; split <= CONTENT.length(); split++ ) {
+      List<List<String>> rows = read( 0L, split, 3 );
+      rows.addAll( read( split, Long.MAX_VALUE, 5 ) );
+      assertEquals( "split at " + split, ROWS, rows );
+    }
+  }
+
+  @Test
+  public void testRowsLongerThanTheMappedOverrunAreMappedAgain() throws Exception {
+    // Fields of several times the overrun, with newlines and escaped enclosures all along the enclosed one
+    StringBuilder plain = new StringBuilder();
+    StringBuilder enclosed = new StringBuilder();
+    StringBuilder escaped = new StringBuilder();
+    for ( int i = 0; i < 5 * MappedCsvReader.ROW_OVERRUN; i++ ) {
+      plain.append( (char) ( 'a' + i % 26 ) );
+      char c = i % 1000 == 0 ? '"' : i % 777 == 0 ? '\n' : (char) ( 'A' + i % 26 );
+      enclosed.append( c );
+      escaped.append( c == '"' ? "\"\"" : String.valueOf( c ) );
+    }
+    String content = "id;name;note\n"
+      + "1;" + plain + ";x\n"
+      + "2;\"" + escaped + "\";" + plain + "\n"
+      + "3;short;y\n"
+      + "4;" + plain + ";";
+    Files.write( file.toPath(), content.getBytes( StandardCharsets.UTF_8 ) );
+    List<List<String>> expected = Arrays.asList(
+      Arrays.asList( "1", plain.toString(), "x" ),
+      Arrays.asList( "2", enclosed.toString(), plain.toString() ),
+      Arrays.asList( "3", "short", "y" ),
+      Arrays.asList( "4", plain.toString(), "" ) );
+
+    for ( int chunkSize : new int[] { 1000, MappedCsvReader.ROW_OVERRUN - 1, 3 * MappedCsvReader.ROW_OVERRUN,
+      MappedCsvReader.DEFAULT_CHUNK_SIZE } ) {
+      assertEquals( "chunk size " + chunkSize, expected, read( 0L, Long.MAX_VALUE, chunkSize ) );
+    }
+  }
+
+  @Test
+  public void testScannerFindsAllBytes() {
+    byte[] bytes = new byte[ 1000 ];
+    new Random( 42 ).nextBytes( bytes );
+    ByteBuffer buffer = SwarByteScanner.prepare( ByteBuffer.wrap( bytes ) );
+    long pattern = SwarByteScanner.pattern( (byte) 0x80 );
+
+    int count = 0;
+    int expectedIndex = -1;
+    for ( int i = 3; i < bytes.length; i++ ) {
+      if ( bytes[ i ] == (byte) 0x80 ) {
+        count++;
+        expectedIndex = expectedIndex < 0 ? i : expectedIndex;
+      }
+    }
+    assertEquals( count, SwarByteScanner.count( buffer, 3, bytes.length, pattern ) );
+    assertEquals( expectedIndex, SwarByteScanner.indexOf( buffer, 3, bytes.length, pattern, pattern, pattern ) );
+  }
+
+  private List<List<String>> read( long from, long to, int chunkSize ) throws Exception {
+    List<List<String>> rows = new ArrayList<>();
+    try ( FileInputStream fis = new FileInputStream( file ) ) {
+      MappedCsvReader reader =
+        new MappedCsvReader( fis.getChannel(), 0L, from, to, (byte) ';', new byte[] { '"' }, 3, true, chunkSize, 2,
+          executor );
+      for ( byte[][] fields = reader.nextRow(); fields != null; fields = reader.nextRow() ) {
+        List<String> row = new ArrayList<>();
+        for ( byte[] field : fields ) {
+          row.add( field == null ? null : new String( field, StandardCharsets.UTF_8 ) );
+        }
+        rows.add( row );
+      }
+    }
+    return rows;
+  }
+}
@@ -23,11 +23,13 @@ import org.junit.Test;
 import org.mockito.ArgumentMatchers;
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.KettleEnvironment;
+import org.pentaho.di.core.RowMetaAndData;
 import org.pentaho.di.core.RowSet;
 import org.pentaho.di.core.bowl.Bowl;
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.database.DatabaseMeta;
 import org.pentaho.di.core.database.MySQLDatabaseMeta;
+import org.pentaho.di.core.exception.KettleDatabaseException;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.logging.LoggingObjectInterface;
 import org.pentaho.di.core.row.RowMeta;
@@ -53,20 +55,25 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
+import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.nullable;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doCallRealMethod;
@@ -74,6 +81,7 @@ import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -437,6 +445,172 @@ public class DatabaseLookupUTest {
     assertNotNull( data.cache.getRowFromCache( data.lookupMeta, new Object[] { 3L } ) );
   }
 
+  @Test
+  public void batchLookupSQL_UsesInListForSingleKey_AndConjunctionsForCompositeKeys() throws Exception {
+    DatabaseLookupMeta meta = createBatchTestMeta( new String[] { "id" } );
+    DatabaseLookup step = createBatchStep( meta, new DatabaseLookupData() );
+
+    assertEquals( "SELECT id, val FROM lookuptable WHERE id IN ( ?, ?, ? ) ORDER BY id",
+      step.getBatchLookupSQL( 3 ) );
+
+    meta.setTableKeyField( new String[] { "id", "version" } );
+    assertEquals( "SELECT id, version, val FROM lookuptable WHERE ( id = ? AND version = ? ) OR "
+      + "( id = ? AND version = ? ) ORDER BY id", step.getBatchLookupSQL( 2 ) );
+  }
+
+  @Test
+  public void batchLookup_MapsFirstRowToEveryKey() throws Exception {
+    DatabaseLookupMeta meta = createBatchTestMeta( new String[] { "id" } );
+    Database db = mock( Database.class );
+    DatabaseLookupData data = createBatchData( db );
+    PreparedStatement ps = mock( PreparedStatement.class );
+    ResultSet rs = mock( ResultSet.class );
+    doReturn( ps ).when( db ).prepareSQL( anyString() );
+    doReturn( rs ).when( db ).openQuery( eq( ps ), any( RowMetaInterface.class ), any( Object[].class ) );
+    doReturn( new Object[] { 2L, "two" }, new Object[] { 1L, "one" }, new Object[] { 1L, "uno" }, null )
+      .when( db ).getRow( rs );
+
+    DatabaseLookup step = createBatchStep( meta, data );
+    List<RowMetaAndData> keys = new ArrayList<>();
+    for ( long id = 1L; id <= 3L; id++ ) {
+      keys.add( new RowMetaAndData( data.lookupMeta, id ) );
+    }
+    Map<RowMetaAndData, Object[]> found = step.lookupKeys( keys );
+
+    assertEquals( 2, found.size() );
+    assertArrayEquals( new Object[] { "one" }, found.get( keys.get( 0 ) ) );
+    assertArrayEquals( new Object[] { "two" }, found.get( keys.get( 1 ) ) );
+    assertNull( found.get( keys.get( 2 ) ) );
+    verify( db ).openQuery( eq( ps ), any( RowMetaInterface.class ), eq( new Object[] { 1L, 2L, 3L } ) );
+    verify( db ).closeQuery( rs );
+    // A full batch keeps its statement for the next one
+    verify( db, never() ).closePreparedStatement( ps );
+    assertEquals( "val", data.batchReturnMeta.getValueMeta( 0 ).getName() );
+  }
+
+  @Test( expected = KettleDatabaseException.class )
+  public void batchLookup_FailsOnMultipleResults() throws Exception {
+    DatabaseLookupMeta meta = createBatchTestMeta( new String[] { "id" } );
+    meta.setFailingOnMultipleResults( true );
+    Database db = mock( Database.class );
+    DatabaseLookupData data = createBatchData( db );
+    ResultSet rs = mock( ResultSet.class );
+    doReturn( rs ).when( db ).openQuery( nullable( PreparedStatement.class ), any( RowMetaInterface.class ),
+      any( Object[].class ) );
+    doReturn( new Object[] { 1L, "one" }, new Object[] { 1L, "uno" }, null ).when( db ).getRow( rs );
+
+    createBatchStep( meta, data ).lookupKeys(
+      Collections.singletonList( new RowMetaAndData( data.lookupMeta, 1L ) ) );
+  }
+
+  @Test
+  public void batchLookup_SplitsKeysOverTheStatementsTheDatabaseAllows() throws Exception {
+    DatabaseLookupMeta meta = createBatchTestMeta( new String[] { "id" } );
+    meta.setLookupBatchSize( 5 );
+    doReturn( 2 ).when( meta.getDatabaseMeta() ).getMaxLookupKeys( 1, true );
+    Database db = mock( Database.class );
+    DatabaseLookupData data = createBatchData( db );
+    PreparedStatement full = mock( PreparedStatement.class );
+    PreparedStatement last = mock( PreparedStatement.class );
+    ResultSet rs = mock( ResultSet.class );
+    doReturn( full ).when( db ).prepareSQL( "SELECT id, val FROM lookuptable WHERE id IN ( ?, ? ) ORDER BY id" );
+    doReturn( last ).when( db ).prepareSQL( "SELECT id, val FROM lookuptable WHERE id IN ( ? ) ORDER BY id" );
+    doReturn( rs ).when( db ).openQuery( any( PreparedStatement.class ), any( RowMetaInterface.class ),
+      any( Object[].class ) );
+    doReturn( new Object[] { 1L, "one" }, null, new Object[] { 4L, "four" }, null, new Object[] { 5L, "five" }, null )
+      .when( db ).getRow( rs );
+
+    DatabaseLookup step = createBatchStep( meta, data );
+    List<RowMetaAndData> keys = new ArrayList<>();
+    for ( long id = 1L; id <= 5L; id++ ) {
+      keys.add( new RowMetaAndData( data.lookupMeta, id ) );
+    }
+    Map<RowMetaAndData, Object[]> found = step.lookupKeys( keys );
+
+    assertEquals( 3, found.size() );
+    assertArrayEquals( new Object[] { "one" }, found.get( keys.get( 0 ) ) );
+    assertArrayEquals( new Object[] { "four" }, found.get( keys.get( 3 ) ) );
+    assertArrayEquals( new Object[] { "five" }, found.get( keys.get( 4 ) ) );
+    verify( db ).openQuery( eq( full ), any( RowMetaInterface.class ), eq( new Object[] { 1L, 2L } ) );
+    verify( db ).openQuery( eq( full ), any( RowMetaInterface.class ), eq( new Object[] { 3L, 4L } ) );
+    verify( db ).openQuery( eq( last ), any( RowMetaInterface.class ), eq( new Object[] { 5L } ) );
+    // The two full statements are the same one
+    verify( db, times( 1 ) ).prepareSQL( "SELECT id, val FROM lookuptable WHERE id IN ( ?, ? ) ORDER BY id" );
+    verify( db, never() ).closePreparedStatement( full );
+    verify( db ).closePreparedStatement( last );
+  }
+
+  @Test
+  public void batchLookup_NotForStringKeysTheDatabaseComparesDifferently() throws Exception {
+    DatabaseLookupMeta meta = createBatchTestMeta( new String[] { "code" } );
+    DatabaseLookupData data = new DatabaseLookupData();
+    data.db = mock( Database.class );
+    RowMeta tableFields = new RowMeta();
+    ValueMetaString code = new ValueMetaString( "code" );
+    tableFields.addValueMeta( code );
+    doReturn( tableFields ).when( data.db ).getTableFields( "lookuptable" );
+    DatabaseLookup step = createBatchStep( meta, data );
+    step.setInputRowMeta( new RowMeta() );
+
+    step.determineFieldsTypesQueryingDb();
+    assertTrue( data.exactKeyComparison );
+
+    // Fixed length columns are padded with spaces
+    code.setOriginalColumnType( Types.CHAR );
+    step.determineFieldsTypesQueryingDb();
+    assertFalse( data.exactKeyComparison );
+
+    // Case insensitive collations
+    data.exactKeyComparison = true;
+    code.setOriginalColumnType( Types.VARCHAR );
+    doReturn( false ).when( meta.getDatabaseMeta() ).isStringComparisonExact();
+    step.determineFieldsTypesQueryingDb();
+    assertFalse( data.exactKeyComparison );
+  }
+
+  private DatabaseLookupMeta createBatchTestMeta( String[] tableKeyFields ) {
+    DatabaseMeta dbMeta = mock( DatabaseMeta.class );
+    doAnswer( invocation -> invocation.getArguments()[ 0 ] ).when( dbMeta ).quoteField( anyString() );
+    doReturn( "lookuptable" ).when( dbMeta ).getQuotedSchemaTableCombination( nullable( String.class ),
+      nullable( String.class ) );
+    doReturn( Integer.MAX_VALUE ).when( dbMeta ).getMaxLookupKeys( anyInt(), anyBoolean() );
+    doReturn( true ).when( dbMeta ).isStringComparisonExact();
+
+    DatabaseLookupMeta meta = new DatabaseLookupMeta();
+    meta.setDefault();
+    meta.setDatabaseMeta( dbMeta );
+    meta.setTableKeyField( tableKeyFields );
+    meta.setReturnValueField( new String[] { "val" } );
+    meta.setOrderByClause( "id" );
+    meta.setLookupBatchSize( 3 );
+    return meta;
+  }
+
+  /**
+   * Step data looking up "val" by "id" in the given database, the query returns the key and the value.
+   */
+  private DatabaseLookupData createBatchData( Database db ) throws Exception {
+    DatabaseLookupData data = new DatabaseLookupData();
+    data.lookupMeta = new RowMeta();
+    data.lookupMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    data.returnMeta = new RowMeta();
+    data.returnMeta.addValueMeta( new ValueMetaString( "val" ) );
+
+    RowMeta resultMeta = new RowMeta();
+    resultMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    resultMeta.addValueMeta( new ValueMetaString( "val" ) );
+    doReturn( resultMeta ).when( db ).getReturnRowMeta();
+    data.db = db;
+    return data;
+  }
+
+  private DatabaseLookup createBatchStep( DatabaseLookupMeta meta, DatabaseLookupData data ) {
+    DatabaseLookup step = new DatabaseLookup( mockHelper.stepMeta, data, 0, mockHelper.transMeta, mockHelper.trans );
+    setInternalState( step, "meta", meta );
+    setInternalState( step, "data", data );
+    return step;
+  }
+
   private void testIncrementLinesClusteredVariations( boolean isClustered, Boolean isExecutingClustered,
                                                       int wantedNumberOfInvocations ) {
 
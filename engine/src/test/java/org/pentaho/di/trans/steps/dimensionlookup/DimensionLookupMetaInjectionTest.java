@@ -166,6 +166,12 @@ public class DimensionLookupMetaInjectionTest extends BaseMetadataInjectionTest<
         return meta.isPreloadingCache();
       }
     } );
+    check( "SHARED_CACHE", new BooleanGetter() {
+      @Override
+      public boolean get() {
+        return meta.isSharedCache();
+      }
+    } );
     check( "CONNECTION_NAME", new StringGetter() {
       public String get() {
         return "My Connection";
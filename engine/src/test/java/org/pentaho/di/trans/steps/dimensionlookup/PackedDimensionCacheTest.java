@@ -0,0 +1,124 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.trans.steps.dimensionlookup;
+
+import java.util.Date;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaDate;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaString;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class PackedDimensionCacheTest {
+  private static final Date D1 = new Date( 1425300000000L );
+  private static final Date D2 = new Date( D1.getTime() + 3600000L );
+  private static final Date D3 = new Date( D1.getTime() + 3600000L * 2 );
+  private static final Date D4 = new Date( D1.getTime() + 3600000L * 3 );
+
+  private PackedDimensionCache cache;
+  private int a1;
+  private int a2;
+  private int a3;
+  private int b1;
+
+  @Before
+  public void setUp() throws Exception {
+    RowMetaInterface keyRowMeta = new RowMeta();
+    keyRowMeta.addValueMeta( new ValueMetaString( "key" ) );
+
+    RowMetaInterface valueRowMeta = new RowMeta();
+    valueRowMeta.addValueMeta( new ValueMetaInteger( "tk" ) );
+    valueRowMeta.addValueMeta( new ValueMetaInteger( "version" ) );
+    valueRowMeta.addValueMeta( new ValueMetaString( "name" ) );
+    valueRowMeta.addValueMeta( new ValueMetaDate( "date_from" ) );
+    valueRowMeta.addValueMeta( new ValueMetaDate( "date_to" ) );
+
+    cache = new PackedDimensionCache( keyRowMeta, valueRowMeta, 3, 4 );
+
+    // Not in order, like the rows of the table
+    //
+    a3 = cache.addRow( key( "a" ), version( 3L, 3L, "a3", D3, null ) );
+    b1 = cache.addRow( key( "b" ), version( 4L, 1L, "b1", D2, D3 ) );
+    a1 = cache.addRow( key( "a" ), version( 1L, 1L, "a1", null, D2 ) );
+    a2 = cache.addRow( key( "a" ), version( 2L, 2L, "a2", D2, D3 ) );
+    cache.sortRows();
+  }
+
+  @Test
+  public void testLookupFindsTheVersionOfTheDate() {
+    assertEquals( a1, cache.lookupRow( key( "a" ), D1 ) );
+    assertEquals( a2, cache.lookupRow( key( "a" ), D2 ) );
+    assertEquals( a3, cache.lookupRow( key( "a" ), D3 ) );
+    assertEquals( a3, cache.lookupRow( key( "a" ), D4 ) );
+
+    assertEquals( -1, cache.lookupRow( key( "b" ), D1 ) );
+    assertEquals( b1, cache.lookupRow( key( "b" ), D2 ) );
+    assertEquals( -1, cache.lookupRow( key( "b" ), D3 ) );
+    assertEquals( -1, cache.lookupRow( key( "c" ), D2 ) );
+
+    assertArrayEquals( version( 2L, 2L, "a2", D2, D3 ), cache.getRow( a2 ) );
+    assertEquals( 2, cache.getKeyCount() );
+    assertEquals( 4, cache.size() );
+  }
+
+  @Test
+  public void testAddVersion() throws Exception {
+    cache.setDateTo( a3, D4 );
+    int a4 = cache.addVersion( key( "a" ), version( 5L, 4L, "a4", D4, null ) );
+    int c1 = cache.addVersion( key( "c" ), version( 6L, 1L, "c1", null, null ) );
+
+    assertEquals( a3, cache.lookupRow( key( "a" ), D3 ) );
+    assertEquals( a4, cache.lookupRow( key( "a" ), D4 ) );
+    assertEquals( c1, cache.lookupRow( key( "c" ), D1 ) );
+    assertArrayEquals( version( 3L, 3L, "a3", D3, D4 ), cache.getRow( a3 ) );
+    assertArrayEquals( new int[] { a1, a2, a3, a4 }, cache.getVersions( key( "a" ) ) );
+  }
+
+  @Test
+  public void testSetRow() throws Exception {
+    cache.setRow( b1, version( 4L, 1L, "b1 updated", D2, null ) );
+
+    assertEquals( b1, cache.lookupRow( key( "b" ), D4 ) );
+    assertEquals( "b1 updated", cache.getRow( b1 )[ 2 ] );
+    assertEquals( 0, cache.getVersions( key( "c" ) ).length );
+  }
+
+  @Test
+  public void testManyKeys() throws Exception {
+    for ( long i = 0; i < 10000; i++ ) {
+      cache.addVersion( key( "key" + i ), version( i + 10, 1L, null, D1, null ) );
+    }
+
+    assertEquals( 10002, cache.getKeyCount() );
+    for ( long i = 0; i < 10000; i++ ) {
+      assertEquals( i + 10, cache.getRow( cache.lookupRow( key( "key" + i ), D2 ) )[ 0 ] );
+    }
+    assertEquals( a1, cache.lookupRow( key( "a" ), D1 ) );
+  }
+
+  private static Object[] key( String key ) {
+    return new Object[] { key };
+  }
+
+  private static Object[] version( Long tk, Long version, String name, Date from, Date to ) {
+    return new Object[] { tk, version, name, from, to };
+  }
+}
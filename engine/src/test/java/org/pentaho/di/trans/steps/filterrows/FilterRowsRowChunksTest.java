@@ -0,0 +1,126 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.trans.steps.filterrows;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.pentaho.di.core.Condition;
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.KettleEnvironment;
+import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaAndData;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.core.variables.Variables;
+import org.pentaho.di.junit.rules.RestorePDIEngineEnvironment;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.TransTestFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Filters many small row chunks and compares the result with the row by row evaluation of the condition.
+ */
+public class FilterRowsRowChunksTest {
+  @ClassRule public static RestorePDIEngineEnvironment env = new RestorePDIEngineEnvironment();
+
+  private static final String STEPNAME = "Filter rows";
+  private static final int NR_ROWS = 1000;
+
+  @BeforeClass
+  public static void before() throws KettleException {
+    KettleEnvironment.init( false );
+  }
+
+  @Test
+  public void testPrimitiveConditionKeepsTheSameRows() throws KettleException {
+    Condition condition = new Condition();
+    condition.addCondition( new Condition( "a", Condition.FUNC_LARGER, null,
+      new ValueMetaAndData( new ValueMetaInteger( "constant" ), 100L ) ) );
+    condition.addCondition( new Condition( Condition.OPERATOR_AND, "x", Condition.FUNC_SMALLER_EQUAL, null,
+      new ValueMetaAndData( new ValueMetaNumber( "constant" ), 250.5 ) ) );
+    condition.addCondition( new Condition( Condition.OPERATOR_OR, "a", Condition.FUNC_EQUAL, "b", null ) );
+
+    List<RowMetaAndData> expected = execute( condition, false );
+    assertTrue( expected.size() > 0 && expected.size() < NR_ROWS );
+    assertSameRows( expected, execute( condition, true ) );
+  }
+
+  @Test
+  public void testMixedConditionKeepsTheSameRows() throws KettleException {
+    Condition condition = new Condition();
+    condition.addCondition( new Condition( "a", Condition.FUNC_NULL, null, null ) );
+    condition.addCondition( new Condition( Condition.OPERATOR_OR, "name", Condition.FUNC_CONTAINS, null,
+      new ValueMetaAndData( new ValueMetaString( "constant" ), "7" ) ) );
+    condition.addCondition( new Condition( Condition.OPERATOR_AND_NOT, "x", Condition.FUNC_LARGER, null,
+      new ValueMetaAndData( new ValueMetaInteger( "constant" ), 300L ) ) );
+
+    List<RowMetaAndData> expected = execute( condition, false );
+    assertTrue( expected.size() > 0 && expected.size() < NR_ROWS );
+    assertSameRows( expected, execute( condition, true ) );
+  }
+
+  private static List<RowMetaAndData> execute( Condition condition, boolean rowChunks ) throws KettleException {
+    FilterRowsMeta meta = new FilterRowsMeta();
+    meta.setDefault();
+    meta.setCondition( (Condition) condition.clone() );
+
+    TransMeta transMeta = TransTestFactory.generateTestTransformation( null, meta, STEPNAME );
+    Variables variables = new Variables();
+    variables.setVariable( Const.KETTLE_ROW_CHUNKS, rowChunks ? "Y" : "N" );
+    variables.setVariable( Const.KETTLE_ROW_BATCH_SIZE, "7" );
+    return TransTestFactory.executeTestTransformation( transMeta, TransTestFactory.INJECTOR_STEPNAME, STEPNAME,
+      TransTestFactory.DUMMY_STEPNAME, createInput(), variables, null );
+  }
+
+  private static List<RowMetaAndData> createInput() {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "a" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "b" ) );
+    rowMeta.addValueMeta( new ValueMetaNumber( "x" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "name" ) );
+
+    List<RowMetaAndData> rows = new ArrayList<>();
+    for ( int i = 0; i < NR_ROWS; i++ ) {
+      rows.add( new RowMetaAndData( rowMeta,
+        i % 13 == 0 ? null : Long.valueOf( i % 200 ),
+        i % 17 == 0 ? null : Long.valueOf( i % 7 * 20 ),
+        i % 11 == 0 ? null : Double.valueOf( i / 2.0 ),
+        "row" + i ) );
+    }
+    return rows;
+  }
+
+  private static void assertSameRows( List<RowMetaAndData> expected, List<RowMetaAndData> actual ) {
+    assertEquals( expected.size(), actual.size() );
+    for ( int i = 0; i < expected.size(); i++ ) {
+      RowMetaInterface rowMeta = expected.get( i ).getRowMeta();
+      assertArrayEquals( rowMeta.getFieldNames(), actual.get( i ).getRowMeta().getFieldNames() );
+      assertArrayEquals( "row " + i, Arrays.copyOf( expected.get( i ).getData(), rowMeta.size() ),
+        Arrays.copyOf( actual.get( i ).getData(), rowMeta.size() ) );
+    }
+  }
+}
@@ -0,0 +1,174 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.trans.steps.groupby;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.KettleEnvironment;
+import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.core.variables.Variables;
+import org.pentaho.di.junit.rules.RestorePDIEngineEnvironment;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.TransTestFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Aggregates many small row chunks and compares the result with the row by row aggregation. The groups have sizes
+ * of 1 up to more than a chunk, so group boundaries fall both within chunks and on the edges between them.
+ */
+public class GroupByRowChunksTest {
+  @ClassRule public static RestorePDIEngineEnvironment env = new RestorePDIEngineEnvironment();
+
+  private static final String STEPNAME = "Group by";
+  private static final String BATCH_SIZE = "7";
+  private static final int[] GROUP_SIZES = { 1, 2, 6, 7, 8, 15, 3, 1, 14 };
+
+  @BeforeClass
+  public static void before() throws KettleException {
+    KettleEnvironment.init( false );
+  }
+
+  @Test
+  public void testChunkAggregationGivesTheSameGroups() throws KettleException {
+    GroupByMeta meta = createMeta( new String[] { "g" },
+      aggregate( "sum_n", "n", GroupByMeta.TYPE_GROUP_SUM ),
+      aggregate( "avg_x", "x", GroupByMeta.TYPE_GROUP_AVERAGE ),
+      aggregate( "min_n", "n", GroupByMeta.TYPE_GROUP_MIN ),
+      aggregate( "max_x", "x", GroupByMeta.TYPE_GROUP_MAX ),
+      aggregate( "count_n", "n", GroupByMeta.TYPE_GROUP_COUNT_ALL ),
+      aggregate( "count_rows", "n", GroupByMeta.TYPE_GROUP_COUNT_ANY ) );
+
+    List<RowMetaAndData> expected = execute( meta, createInput( 500 ), false );
+    assertEquals( countGroups( 500 ), expected.size() );
+    assertSameRows( expected, execute( meta, createInput( 500 ), true ) );
+  }
+
+  @Test
+  public void testGroupsOnStringAndNumberKeys() throws KettleException {
+    GroupByMeta meta = createMeta( new String[] { "name", "x" },
+      aggregate( "sum_n", "n", GroupByMeta.TYPE_GROUP_SUM ),
+      aggregate( "count_rows", "n", GroupByMeta.TYPE_GROUP_COUNT_ANY ) );
+
+    assertSameRows( execute( meta, createInput( 300 ), false ), execute( meta, createInput( 300 ), true ) );
+  }
+
+  @Test
+  public void testSingleGroupSpanningAllChunks() throws KettleException {
+    GroupByMeta meta = createMeta( new String[0],
+      aggregate( "sum_n", "n", GroupByMeta.TYPE_GROUP_SUM ),
+      aggregate( "max_x", "x", GroupByMeta.TYPE_GROUP_MAX ),
+      aggregate( "count_rows", "n", GroupByMeta.TYPE_GROUP_COUNT_ANY ) );
+
+    List<RowMetaAndData> expected = execute( meta, createInput( 400 ), false );
+    assertEquals( 1, expected.size() );
+    assertSameRows( expected, execute( meta, createInput( 400 ), true ) );
+  }
+
+  @Test
+  public void testOtherAggregatesFallBackToRows() throws KettleException {
+    GroupByMeta meta = createMeta( new String[] { "g" },
+      aggregate( "sum_n", "n", GroupByMeta.TYPE_GROUP_SUM ),
+      aggregate( "first_name", "name", GroupByMeta.TYPE_GROUP_FIRST ) );
+
+    assertSameRows( execute( meta, createInput( 200 ), false ), execute( meta, createInput( 200 ), true ) );
+  }
+
+  private static String[] aggregate( String name, String subject, int type ) {
+    return new String[] { name, subject, Integer.toString( type ) };
+  }
+
+  private static GroupByMeta createMeta( String[] groupFields, String[]... aggregates ) {
+    GroupByMeta meta = new GroupByMeta();
+    meta.setDefault();
+    meta.allocate( groupFields.length, aggregates.length );
+    meta.setGroupField( groupFields );
+    for ( int i = 0; i < aggregates.length; i++ ) {
+      meta.getAggregateField()[ i ] = aggregates[ i ][ 0 ];
+      meta.getSubjectField()[ i ] = aggregates[ i ][ 1 ];
+      meta.getAggregateType()[ i ] = Integer.parseInt( aggregates[ i ][ 2 ] );
+    }
+    return meta;
+  }
+
+  private static List<RowMetaAndData> execute( GroupByMeta meta, List<RowMetaAndData> input, boolean rowChunks )
+    throws KettleException {
+    TransMeta transMeta = TransTestFactory.generateTestTransformation( null, meta, STEPNAME );
+    Variables variables = new Variables();
+    variables.setVariable( Const.KETTLE_ROW_CHUNKS, rowChunks ? "Y" : "N" );
+    variables.setVariable( Const.KETTLE_ROW_BATCH_SIZE, BATCH_SIZE );
+    return TransTestFactory.executeTestTransformation( transMeta, TransTestFactory.INJECTOR_STEPNAME, STEPNAME,
+      TransTestFactory.DUMMY_STEPNAME, input, variables, null );
+  }
+
+  /**
+   * @return sorted rows in groups of {@link #GROUP_SIZES}, every group has its own value of g, name and x
+   */
+  private static List<RowMetaAndData> createInput( int nrRows ) {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "g" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "name" ) );
+    rowMeta.addValueMeta( new ValueMetaNumber( "x" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "n" ) );
+
+    List<RowMetaAndData> rows = new ArrayList<>();
+    long group = 0;
+    int left = GROUP_SIZES[ 0 ];
+    for ( int i = 0; i < nrRows; i++ ) {
+      if ( left == 0 ) {
+        group++;
+        left = GROUP_SIZES[ (int) ( group % GROUP_SIZES.length ) ];
+      }
+      left--;
+      rows.add( new RowMetaAndData( rowMeta,
+        Long.valueOf( group ),
+        String.format( "group%05d", group ),
+        Double.valueOf( group / 4.0 ),
+        i % 5 == 0 ? null : Long.valueOf( i * 37L % 101 - 50 ) ) );
+    }
+    return rows;
+  }
+
+  private static int countGroups( int nrRows ) {
+    int nrGroups = 0;
+    for ( int rows = 0; rows < nrRows; nrGroups++ ) {
+      rows += GROUP_SIZES[ nrGroups % GROUP_SIZES.length ];
+    }
+    return nrGroups;
+  }
+
+  private static void assertSameRows( List<RowMetaAndData> expected, List<RowMetaAndData> actual ) {
+    assertEquals( expected.size(), actual.size() );
+    for ( int i = 0; i < expected.size(); i++ ) {
+      RowMetaInterface rowMeta = expected.get( i ).getRowMeta();
+      assertArrayEquals( rowMeta.getFieldNames(), actual.get( i ).getRowMeta().getFieldNames() );
+      assertArrayEquals( "group " + i, Arrays.copyOf( expected.get( i ).getData(), rowMeta.size() ),
+        Arrays.copyOf( actual.get( i ).getData(), rowMeta.size() ) );
+    }
+  }
+}
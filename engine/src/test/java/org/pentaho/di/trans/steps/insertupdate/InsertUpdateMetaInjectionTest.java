@@ -50,6 +50,11 @@ public class InsertUpdateMetaInjectionTest extends BaseMetadataInjectionTest<Ins
         return meta.isUpdateBypassed();
       }
     } );
+    check( "UPSERT_BATCH_SIZE", new IntGetter() {
+      public int get() {
+        return meta.getUpsertBatchSize();
+      }
+    } );
     check( "KEY_STREAM", new StringGetter() {
       public String get() {
         return meta.getKeyFields()[ 0 ].getKeyStream();
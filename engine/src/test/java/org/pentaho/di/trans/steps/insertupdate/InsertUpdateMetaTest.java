@@ -160,7 +160,7 @@ public class InsertUpdateMetaTest {
   public void setUpLoadSave() throws Exception {
     List<String> attributes =
       Arrays.asList( "schemaName", "tableName", "databaseMeta", "keyFields", "updateFields", "commitSize",
-        "updateBypassed" );
+        "updateBypassed", "upsertBatchSize" );
 
     Map<String, String> getterMap = new HashMap<String, String>() {
       {
@@ -176,6 +176,7 @@ public class InsertUpdateMetaTest {
         put( "update", "getUpdate" );
         put( "commitSize", "getCommitSizeVar" );
         put( "updateBypassed", "isUpdateBypassed" );
+        put( "upsertBatchSize", "getUpsertBatchSize" );
       }
     };
 
@@ -193,6 +194,7 @@ public class InsertUpdateMetaTest {
         put( "update", "setUpdate" );
         put( "commitSize", "setCommitSize" );
         put( "updateBypassed", "setUpdateBypassed" );
+        put( "upsertBatchSize", "setUpsertBatchSize" );
       }
     };
     FieldLoadSaveValidator<String[]> stringArrayLoadSaveValidator =
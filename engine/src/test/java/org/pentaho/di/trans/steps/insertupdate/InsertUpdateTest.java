@@ -0,0 +1,260 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.trans.steps.insertupdate;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.database.Database;
+import org.pentaho.di.core.exception.KettleDatabaseException;
+import org.pentaho.di.core.logging.LoggingObjectInterface;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.trans.step.RowHandler;
+import org.pentaho.di.trans.steps.mock.StepMockHelper;
+
+import java.sql.PreparedStatement;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class InsertUpdateTest {
+  private StepMockHelper<InsertUpdateMeta, InsertUpdateData> smh;
+  private InsertUpdate step;
+
+  @Before
+  public void setUp() {
+    smh = new StepMockHelper<>( "insertUpdate", InsertUpdateMeta.class, InsertUpdateData.class );
+    when( smh.logChannelInterfaceFactory.create( any(), any( LoggingObjectInterface.class ) ) ).thenReturn(
+      smh.logChannelInterface );
+
+    step = new InsertUpdate( smh.stepMeta, smh.stepDataInterface, 0, smh.transMeta, smh.trans );
+    step.init( smh.initStepMetaInterface, smh.initStepDataInterface );
+    doReturn( new InsertUpdateMeta.UpdateField[] { updateField( "id", "id_in" ), updateField( "name", "name_in" ) } )
+      .when( smh.initStepMetaInterface ).getUpdateFields();
+  }
+
+  @After
+  public void cleanUp() {
+    smh.cleanUp();
+  }
+
+  @Test
+  public void testUpsertWithInsertedEqualKeys() {
+    setKeyFields( keyField( "id", "=", "id_in" ) );
+    assertNull( step.getUpsertNotPossibleReason() );
+  }
+
+  @Test
+  public void testUpsertNeedsEqualKeys() {
+    setKeyFields( keyField( "id", "<>", "id_in" ) );
+    assertNotNull( step.getUpsertNotPossibleReason() );
+  }
+
+  @Test
+  public void testUpsertNeedsInsertedKeys() {
+    setKeyFields( keyField( "id", "=", "name_in" ) );
+    assertNotNull( step.getUpsertNotPossibleReason() );
+
+    setKeyFields( keyField( "code", "=", "code_in" ) );
+    assertNotNull( step.getUpsertNotPossibleReason() );
+
+    setKeyFields();
+    assertNotNull( step.getUpsertNotPossibleReason() );
+  }
+
+  @Test
+  public void testFailedBatchIsRolledBackBeforeItsRowsGoToErrorHandling() throws Exception {
+    Database db = mock( Database.class );
+    PreparedStatement stageStatement = mock( PreparedStatement.class );
+    Savepoint savepoint = mock( Savepoint.class );
+    doReturn( savepoint ).when( db ).setSavepoint();
+    doThrow( new KettleDatabaseException( "Duplicate key" ) ).when( db ).execStatement( "UPSERT" );
+    doReturn( true ).when( smh.stepMeta ).isDoingErrorHandling();
+
+    List<Object[]> rows = Arrays.asList( new Object[] { 1L }, new Object[] { 2L } );
+    InsertUpdateData data = createBatchData( db, stageStatement, rows );
+    data.useSavepoints = true;
+    data.releaseSavepoint = true;
+    ListRowHandler handler = new ListRowHandler();
+    step.setRowHandler( handler );
+    step.first = false;
+
+    // No more input, the pending batch is upserted
+    step.processRow( smh.processRowsStepMetaInterface, data );
+
+    InOrder order = inOrder( db );
+    order.verify( db ).rollback( savepoint );
+    order.verify( db ).releaseSavepoint( savepoint );
+    order.verify( db ).clearBatch( stageStatement );
+    order.verify( db ).execStatement( "DELETE FROM stage" );
+    verify( db, never() ).rollback();
+    verify( db, never() ).commit();
+    assertEquals( rows, handler.errors );
+    assertTrue( handler.output.isEmpty() );
+    assertEquals( 0, step.getErrors() );
+  }
+
+  @Test
+  public void testFailedBatchWithoutErrorHandlingStopsAndClearsTheStagingTable() throws Exception {
+    Database db = mock( Database.class );
+    PreparedStatement stageStatement = mock( PreparedStatement.class );
+    doThrow( new KettleDatabaseException( "Duplicate key" ) ).when( db ).execStatement( "UPSERT" );
+
+    InsertUpdateData data = createBatchData( db, stageStatement, Arrays.asList( new Object[] { 1L } ) );
+    ListRowHandler handler = new ListRowHandler();
+    step.setRowHandler( handler );
+    step.first = false;
+
+    step.processRow( smh.processRowsStepMetaInterface, data );
+
+    InOrder order = inOrder( db );
+    order.verify( db ).rollback();
+    order.verify( db ).clearBatch( stageStatement );
+    order.verify( db ).execStatement( "DELETE FROM stage" );
+    assertEquals( 1, step.getErrors() );
+    assertTrue( handler.output.isEmpty() );
+  }
+
+  @Test
+  public void testRollbackCreatesTheUncommittedStagingTableAgain() throws Exception {
+    Database db = mock( Database.class );
+    PreparedStatement stageStatement = mock( PreparedStatement.class );
+    PreparedStatement newStageStatement = mock( PreparedStatement.class );
+    doThrow( new KettleDatabaseException( "Duplicate key" ) ).when( db ).execStatement( "UPSERT" );
+    doReturn( newStageStatement ).when( db ).prepareSQL( "STAGE" );
+
+    InsertUpdateData data = createBatchData( db, stageStatement, Arrays.asList( new Object[] { 1L } ) );
+    data.createStagingSQL = "CREATE";
+    data.stageSQL = "STAGE";
+    data.recreateStagingTable = true;
+    step.setRowHandler( new ListRowHandler() );
+    step.first = false;
+
+    step.processRow( smh.processRowsStepMetaInterface, data );
+
+    InOrder order = inOrder( db );
+    order.verify( db ).rollback();
+    order.verify( db ).closePreparedStatement( stageStatement );
+    order.verify( db ).execStatement( "CREATE" );
+    order.verify( db ).prepareSQL( "STAGE" );
+    order.verify( db ).clearBatch( newStageStatement );
+    order.verify( db ).execStatement( "DELETE FROM stage" );
+    assertEquals( newStageStatement, data.prepStatementStage );
+  }
+
+  @Test
+  public void testFailureToEmptyTheStagingTableKeepsTheBatchFailure() throws Exception {
+    Database db = mock( Database.class );
+    PreparedStatement stageStatement = mock( PreparedStatement.class );
+    InsertUpdateData data = createBatchData( db, stageStatement, Arrays.asList( new Object[] { 1L } ) );
+    IllegalStateException failure = new IllegalStateException( "Connection lost" );
+    doThrow( failure ).when( db ).getOneRow( "MATCH" );
+    doThrow( new KettleDatabaseException( "Not connected" ) ).when( db ).execStatement( "DELETE FROM stage" );
+    step.setRowHandler( new ListRowHandler() );
+    step.first = false;
+
+    try {
+      step.processRow( smh.processRowsStepMetaInterface, data );
+      fail( "the batch failed" );
+    } catch ( IllegalStateException e ) {
+      assertSame( failure, e );
+    }
+  }
+
+  private static InsertUpdateData createBatchData( Database db, PreparedStatement stageStatement,
+                                                   List<Object[]> rows ) throws KettleDatabaseException {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+
+    InsertUpdateData data = new InsertUpdateData();
+    data.db = db;
+    data.valuenrs = new int[] { 0 };
+    data.insertRowMeta = rowMeta;
+    data.outputRowMeta = rowMeta;
+    data.prepStatementStage = stageStatement;
+    data.stagingTable = "stage";
+    data.upsertSQL = "UPSERT";
+    data.matchSQL = "MATCH";
+    data.batchRows = new ArrayList<>( rows );
+    data.batchKeys = new HashSet<>();
+
+    RowMetaInterface countMeta = new RowMeta();
+    countMeta.addValueMeta( new ValueMetaInteger( "matched" ) );
+    doReturn( new RowMetaAndData( countMeta, 0L ) ).when( db ).getOneRow( "MATCH" );
+    return data;
+  }
+
+  private void setKeyFields( InsertUpdateMeta.KeyField... keyFields ) {
+    doReturn( keyFields ).when( smh.initStepMetaInterface ).getKeyFields();
+  }
+
+  private static InsertUpdateMeta.KeyField keyField( String lookup, String condition, String stream ) {
+    InsertUpdateMeta.KeyField keyField = new InsertUpdateMeta.KeyField();
+    keyField.setKeyLookup( lookup );
+    keyField.setKeyCondition( condition );
+    keyField.setKeyStream( stream );
+    return keyField;
+  }
+
+  private static InsertUpdateMeta.UpdateField updateField( String lookup, String stream ) {
+    InsertUpdateMeta.UpdateField updateField = new InsertUpdateMeta.UpdateField();
+    updateField.setUpdateLookup( lookup );
+    updateField.setUpdateStream( stream );
+    updateField.setUpdate( true );
+    return updateField;
+  }
+
+  private static class ListRowHandler implements RowHandler {
+    private final List<Object[]> output = new ArrayList<>();
+    private final List<Object[]> errors = new ArrayList<>();
+
+    @Override
+    public Object[] getRow() {
+      return null;
+    }
+
+    @Override
+    public void putRow( RowMetaInterface rowMeta, Object[] row ) {
+      output.add( row );
+    }
+
+    @Override
+    public void putError( RowMetaInterface rowMeta, Object[] row, long nrErrors, String errorDescriptions,
+                          String fieldNames, String errorCodes ) {
+      errors.add( row );
+    }
+  }
+}
@@ -17,8 +17,12 @@ package org.pentaho.di.trans.steps.memgroupby;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
@@ -27,7 +31,10 @@ import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -39,10 +46,13 @@ import org.mockito.ArgumentCaptor;
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.KettleClientEnvironment;
 import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.bowl.DefaultBowl;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.spill.LZ4SpillCodec;
+import org.pentaho.di.core.row.spill.SpillCodecs;
 import org.pentaho.di.core.row.value.ValueMetaDate;
 import org.pentaho.di.core.row.value.ValueMetaInteger;
 import org.pentaho.di.core.row.value.ValueMetaNumber;
@@ -315,6 +325,72 @@ public class MemoryGroupByAggregationTest {
     assertThat( output.getInteger( "value_count_distinct" ), is( 3L ) );
   }
 
+  @Test
+  public void testSpillGroupsToDisk() throws Exception {
+    RowMetaInterface inputMeta = new RowMeta();
+    inputMeta.addValueMeta( new ValueMetaString( "key" ) );
+    inputMeta.addValueMeta( new ValueMetaInteger( "value" ) );
+    List<Object[]> rows = new ArrayList<>();
+    for ( long i = 0; i < 1000; i++ ) {
+      rows.add( new Object[] { "key" + ( i * 7 % 100 ), i } );
+    }
+
+    Map<String, List<Object>> inMemory = runGroupedStep( inputMeta, rows, null );
+    assertEquals( 100, inMemory.size() );
+
+    // Only 3 groups fit in memory, the partitions of the other groups are spilled again
+    //
+    assertEquals( inMemory, runGroupedStep( inputMeta, rows, "3" ) );
+  }
+
+  private Map<String, List<Object>> runGroupedStep( RowMetaInterface inputMeta, List<Object[]> rows,
+    String maxGroupsInMemory ) throws KettleException {
+    int[] types = { MemoryGroupByMeta.TYPE_GROUP_SUM, MemoryGroupByMeta.TYPE_GROUP_FIRST,
+      MemoryGroupByMeta.TYPE_GROUP_LAST };
+    MemoryGroupByMeta meta = new MemoryGroupByMeta();
+    meta.allocate( 1, types.length );
+    meta.getGroupField()[0] = "key";
+    for ( int i = 0; i < types.length; i++ ) {
+      meta.getAggregateField()[i] = "value_" + i;
+      meta.getSubjectField()[i] = "value";
+      meta.getAggregateType()[i] = types[i];
+    }
+    meta.setMaxGroupsInMemory( maxGroupsInMemory );
+    meta.setSpillDirectory( System.getProperty( "java.io.tmpdir" ) );
+
+    MemoryGroupByData data = new MemoryGroupByData();
+    data.map = Maps.newHashMap();
+    data.spillCodec = SpillCodecs.getCodec( LZ4SpillCodec.NAME );
+
+    TransMeta transMeta = mock( TransMeta.class );
+    StepMeta stepMeta = new StepMeta( STEP_NAME, meta );
+    when( transMeta.findStep( STEP_NAME ) ).thenReturn( stepMeta );
+    when( transMeta.getBowl() ).thenReturn( DefaultBowl.getInstance() );
+
+    MemoryGroupBy step = spy( new MemoryGroupBy( stepMeta, data, 0, transMeta, mock( Trans.class ) ) );
+    step.copyVariablesFrom( variables );
+    doNothing().when( step ).setOutputDone();
+
+    // Every group comes out exactly once
+    Map<String, List<Object>> output = new HashMap<>();
+    doAnswer( invocation -> {
+      Object[] row = invocation.getArgument( 1 );
+      assertNull( output.put( (String) row[0], Arrays.asList( row[1], row[2], row[3] ) ) );
+      return null;
+    } ).when( step ).putRow( any(), any() );
+
+    doReturn( inputMeta ).when( step ).getInputRowMeta();
+    for ( Object[] row : rows ) {
+      doReturn( row ).when( step ).getRow();
+      assertTrue( step.processRow( meta, data ) );
+    }
+    doReturn( null ).when( step ).getRow();
+    assertFalse( step.processRow( meta, data ) );
+    assertNull( data.spillFiles );
+
+    return output;
+  }
+
   private RowMetaAndData runStep() throws KettleException {
     // Allocate meta
     List<String> aggKeys = ImmutableList.copyOf( aggregates.keySet() );
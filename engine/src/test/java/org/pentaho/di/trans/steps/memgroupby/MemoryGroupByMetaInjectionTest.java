@@ -64,5 +64,17 @@ public class MemoryGroupByMetaInjectionTest extends BaseMetadataInjectionTest<Me
           return meta.isAlwaysGivingBackOneRow();
         }
       } );
+    check( "MAXGROUPSINMEMORY", new StringGetter() {
+      @Override
+      public String get() {
+        return meta.getMaxGroupsInMemory();
+      }
+    } );
+    check( "SPILLDIRECTORY", new StringGetter() {
+      @Override
+      public String get() {
+        return meta.getSpillDirectory();
+      }
+    } );
   }
 }
@@ -16,7 +16,10 @@ package org.pentaho.di.trans.steps.selectvalues;
 
 import java.math.BigDecimal;
 import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
@@ -25,6 +28,7 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.ClassRule;
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.KettleEnvironment;
 import org.pentaho.di.core.RowSet;
@@ -51,9 +55,14 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
@@ -328,6 +337,32 @@ public class SelectValuesTest {
     assertTrue( properException );
   }
 
+  @Test
+  public void errorRowKeepsItsPlaceInABatch() throws Exception {
+    Object[] row1 = new Object[] { "1" };
+    Object[] row2 = new Object[] { "2" };
+    Object[] row3 = new Object[] { "3" };
+    List<Object[]> rows = Arrays.asList( row1, row2, row3 );
+    doReturn( rows ).when( step ).getRows( anyInt() );
+    doNothing().when( step ).putRows( any( RowMetaInterface.class ), anyList() );
+    doNothing().when( step ).putError( any(), any(), anyLong(), any(), any(), any() );
+
+    SelectValuesMeta stepMeta = new SelectValuesMeta();
+    stepMeta.allocate( 0, 0, 0 );
+    SelectValuesData stepData = new SelectValuesData();
+    stepData.metadata = true;
+    doReturn( row1 ).when( step ).metadataValues( any(), same( row1 ) );
+    doThrow( new KettleStepException( "row 2" ) ).when( step ).metadataValues( any(), same( row2 ) );
+    doReturn( row3 ).when( step ).metadataValues( any(), same( row3 ) );
+
+    assertTrue( step.processRow( stepMeta, stepData ) );
+
+    InOrder order = inOrder( step );
+    order.verify( step ).putRows( any(), eq( Collections.singletonList( row1 ) ) );
+    order.verify( step ).putError( any(), eq( row2 ), anyLong(), any(), any(), eq( "SELECT001" ) );
+    order.verify( step ).putRows( any(), eq( Collections.singletonList( row3 ) ) );
+  }
+
   public static class SelectValuesHandler extends SelectValues {
     private RowMetaInterface rowMeta;
     private RowSet rowset;
@@ -65,6 +65,12 @@ public class SortRowsMetaInjectionTest extends BaseMetadataInjectionTest<SortRow
         return meta.getCompressFiles();
       }
     } );
+    check( "SPILL_COMPRESSION", new StringGetter() {
+      @Override
+      public String get() {
+        return meta.getSpillCompression();
+      }
+    } );
     check( "NAME", new StringGetter() {
       @Override
       public String get() {
@@ -0,0 +1,128 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.trans.steps.sort;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.KettleEnvironment;
+import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.core.variables.Variables;
+import org.pentaho.di.junit.rules.RestorePDIEngineEnvironment;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.TransTestFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Sorts more rows than fit in memory, so they are spilled to many temp files, and merges them in several passes.
+ */
+public class SortRowsTest {
+  @ClassRule public static RestorePDIEngineEnvironment env = new RestorePDIEngineEnvironment();
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private static final String STEPNAME = "Sort rows";
+  private static final int NR_ROWS = 1000;
+
+  @BeforeClass
+  public static void before() throws KettleException {
+    KettleEnvironment.init( false );
+  }
+
+  @Test
+  public void testMergeInPassesKeepsOrderAndEqualKeysInInputOrder() throws KettleException {
+    // 100 temp files of 10 rows, merged 3 at a time takes several passes
+    List<RowMetaAndData> output = execute( "10", "3", new String[] { "key" }, new boolean[] { true } );
+
+    List<RowMetaAndData> expected = createInput();
+    expected.sort( Comparator.comparing( row -> (Long) row.getData()[ 0 ] ) );
+    assertSameRows( expected, output );
+    assertEquals( 0, tempFolder.getRoot().list().length );
+  }
+
+  @Test
+  public void testMergeInPassesGivesTheSameRowsAsInMemory() throws KettleException {
+    String[] fields = { "name", "key" };
+    boolean[] ascending = { false, true };
+    List<RowMetaAndData> inMemory = execute( "100000", "3", fields, ascending );
+
+    assertSameRows( inMemory, execute( "7", "2", fields, ascending ) );
+    assertSameRows( inMemory, execute( "7", "5", fields, ascending ) );
+    assertSameRows( inMemory, execute( "7", "1000", fields, ascending ) );
+    assertEquals( 0, tempFolder.getRoot().list().length );
+  }
+
+  private List<RowMetaAndData> execute( String sortSize, String fanIn, String[] fields, boolean[] ascending )
+    throws KettleException {
+    SortRowsMeta meta = new SortRowsMeta();
+    meta.setDefault();
+    meta.setDirectory( tempFolder.getRoot().getAbsolutePath() );
+    meta.setPrefix( "sorttest" );
+    meta.setSortSize( sortSize );
+    meta.allocate( fields.length );
+    for ( int i = 0; i < fields.length; i++ ) {
+      meta.getFieldName()[ i ] = fields[ i ];
+      meta.getAscending()[ i ] = ascending[ i ];
+      meta.getCaseSensitive()[ i ] = true;
+    }
+
+    TransMeta transMeta = TransTestFactory.generateTestTransformation( null, meta, STEPNAME );
+    Variables variables = new Variables();
+    variables.setVariable( Const.KETTLE_SORT_MERGE_FAN_IN, fanIn );
+    List<RowMetaAndData> output = TransTestFactory.executeTestTransformation( transMeta,
+      TransTestFactory.INJECTOR_STEPNAME, STEPNAME, TransTestFactory.DUMMY_STEPNAME, createInput(), variables, null );
+    assertEquals( NR_ROWS, output.size() );
+    return output;
+  }
+
+  /**
+   * @return rows with many equal keys, the sequence number tells the input order
+   */
+  private static List<RowMetaAndData> createInput() {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "key" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "name" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "seq" ) );
+
+    List<RowMetaAndData> rows = new ArrayList<>();
+    for ( int i = 0; i < NR_ROWS; i++ ) {
+      rows.add( new RowMetaAndData( rowMeta, Long.valueOf( i * 7919L % 50 ), "name" + ( i % 3 ), Long.valueOf( i ) ) );
+    }
+    return rows;
+  }
+
+  private static void assertSameRows( List<RowMetaAndData> expected, List<RowMetaAndData> actual ) {
+    assertEquals( expected.size(), actual.size() );
+    for ( int i = 0; i < expected.size(); i++ ) {
+      for ( int f = 0; f < 3; f++ ) {
+        assertEquals( "row " + i, expected.get( i ).getData()[ f ], actual.get( i ).getData()[ f ] );
+      }
+    }
+  }
+}
@@ -60,6 +60,16 @@ public class TableInputMetaInjectionTest extends BaseMetadataInjectionTest<Table
         return meta.isCachedRowMetaActive();
       }
     } );
+    check( "PARTITION_COLUMN", new StringGetter() {
+      public String get() {
+        return meta.getPartitionColumn();
+      }
+    } );
+    check( "PARTITION_METHOD", new StringGetter() {
+      public String get() {
+        return meta.getPartitionMethod();
+      }
+    } );
     skipPropertyTest( "CONNECTIONNAME" );
   }
 }
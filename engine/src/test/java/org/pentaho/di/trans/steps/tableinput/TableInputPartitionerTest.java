@@ -0,0 +1,130 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.trans.steps.tableinput;
+
+import java.util.Date;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.database.GenericDatabaseMeta;
+import org.pentaho.di.core.database.PostgreSQLDatabaseMeta;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaDate;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TableInputPartitionerTest {
+  private static final String SQL = "SELECT id, name FROM customers;";
+
+  private DatabaseMeta databaseMeta;
+
+  @Before
+  public void setUp() {
+    databaseMeta = mock( DatabaseMeta.class );
+    when( databaseMeta.quoteField( anyString() ) ).thenAnswer( invocation -> invocation.getArguments()[0] );
+    doReturn( new PostgreSQLDatabaseMeta() ).when( databaseMeta ).getDatabaseInterface();
+  }
+
+  @Test
+  public void testRangesCoverAllValues() throws Exception {
+    RowMetaAndData bounds = createBounds( new ValueMetaInteger( "min" ), new ValueMetaInteger( "max" ), 1L, 10L );
+
+    TableInputPartitioner first = createPartitioner( TableInputMeta.PARTITION_METHOD_RANGE, 0, 3 );
+    assertTrue( first.isRange() );
+    assertEquals( "SELECT MIN(id), MAX(id) FROM (SELECT id, name FROM customers) pdi_partition",
+      first.getBoundsSQL( SQL ) );
+    first.setBounds( bounds );
+    assertEquals( "SELECT * FROM (SELECT id, name FROM customers) pdi_partition WHERE (id < ? OR id IS NULL)",
+      first.getPartitionSQL( SQL ) );
+    assertArrayEquals( new Object[] { 4L }, first.getParameters() );
+
+    TableInputPartitioner middle = createPartitioner( TableInputMeta.PARTITION_METHOD_RANGE, 1, 3 );
+    middle.setBounds( bounds );
+    assertEquals( "SELECT * FROM (SELECT id, name FROM customers) pdi_partition WHERE id >= ? AND id < ?",
+      middle.getPartitionSQL( SQL ) );
+    assertArrayEquals( new Object[] { 4L, 7L }, middle.getParameters() );
+    assertEquals( 2, middle.getParametersMeta().size() );
+
+    TableInputPartitioner last = createPartitioner( TableInputMeta.PARTITION_METHOD_RANGE, 2, 3 );
+    last.setBounds( bounds );
+    assertEquals( "SELECT * FROM (SELECT id, name FROM customers) pdi_partition WHERE id >= ?",
+      last.getPartitionSQL( SQL ) );
+    assertArrayEquals( new Object[] { 7L }, last.getParameters() );
+  }
+
+  @Test
+  public void testDateRanges() throws Exception {
+    RowMetaAndData bounds =
+      createBounds( new ValueMetaDate( "min" ), new ValueMetaDate( "max" ), new Date( 0L ), new Date( 999L ) );
+    TableInputPartitioner partitioner = createPartitioner( TableInputMeta.PARTITION_METHOD_RANGE, 1, 2 );
+    partitioner.setBounds( bounds );
+
+    assertArrayEquals( new Object[] { new Date( 500L ) }, partitioner.getParameters() );
+  }
+
+  @Test
+  public void testEmptyQueryIsReadByFirstCopy() throws Exception {
+    RowMetaAndData bounds = createBounds( new ValueMetaInteger( "min" ), new ValueMetaInteger( "max" ), null, null );
+
+    TableInputPartitioner first = createPartitioner( TableInputMeta.PARTITION_METHOD_RANGE, 0, 2 );
+    first.setBounds( bounds );
+    assertEquals( SQL, first.getPartitionSQL( SQL ) );
+
+    TableInputPartitioner second = createPartitioner( TableInputMeta.PARTITION_METHOD_RANGE, 1, 2 );
+    second.setBounds( bounds );
+    assertEquals( "SELECT * FROM (SELECT id, name FROM customers) pdi_partition WHERE 1 = 0",
+      second.getPartitionSQL( SQL ) );
+    assertEquals( 0, second.getParameters().length );
+  }
+
+  @Test
+  public void testHashPartitioning() throws Exception {
+    TableInputPartitioner partitioner = createPartitioner( TableInputMeta.PARTITION_METHOD_HASH, 2, 4 );
+
+    assertEquals( "SELECT * FROM (SELECT id, name FROM customers) pdi_partition "
+      + "WHERE MOD(MOD(HASHTEXT(CAST(id AS TEXT)), 4) + 4, 4) = 2", partitioner.getPartitionSQL( SQL ) );
+    assertEquals( 0, partitioner.getParameters().length );
+  }
+
+  @Test( expected = KettleException.class )
+  public void testHashPartitioningNeedsHashFunction() throws Exception {
+    doReturn( new GenericDatabaseMeta() ).when( databaseMeta ).getDatabaseInterface();
+    createPartitioner( TableInputMeta.PARTITION_METHOD_HASH, 0, 2 );
+  }
+
+  private TableInputPartitioner createPartitioner( String method, int partitionNr, int nrPartitions )
+    throws KettleException {
+    return new TableInputPartitioner( databaseMeta, "id", method, partitionNr, nrPartitions );
+  }
+
+  private static RowMetaAndData createBounds( ValueMetaInterface minMeta,
+    ValueMetaInterface maxMeta, Object min, Object max ) {
+    RowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta( minMeta );
+    rowMeta.addValueMeta( maxMeta );
+    return new RowMetaAndData( rowMeta, min, max );
+  }
+}
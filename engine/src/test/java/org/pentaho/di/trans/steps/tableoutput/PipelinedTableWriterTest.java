@@ -0,0 +1,212 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.trans.steps.tableoutput;
+
+import java.sql.BatchUpdateException;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.database.Database;
+import org.pentaho.di.core.exception.KettleDatabaseException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaString;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PipelinedTableWriterTest {
+
+  private RowMetaInterface rowMeta;
+  private PreparedStatement ps;
+  private Database db1;
+  private Database db2;
+
+  @Before
+  public void setUp() throws Exception {
+    rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "name" ) );
+
+    ps = mock( PreparedStatement.class );
+    db1 = mock( Database.class );
+    doReturn( ps ).when( db1 ).prepareSQL( anyString() );
+    db2 = mock( Database.class );
+    doReturn( ps ).when( db2 ).prepareSQL( anyString() );
+  }
+
+  @Test
+  public void testBatchesAreTakenBackInSubmitOrder() throws Exception {
+    PipelinedTableWriter writer =
+      new PipelinedTableWriter( Arrays.asList( db1, db2 ), "INSERT", rowMeta, false, false, 2 );
+
+    PipelinedTableWriter.Batch first = createBatch( "a", "b" );
+    PipelinedTableWriter.Batch second = createBatch( "c", "d" );
+    PipelinedTableWriter.Batch third = createBatch( "e" );
+    assertNull( writer.submit( first ) );
+    assertNull( writer.submit( second ) );
+    // The third one has to wait for the first one, at most 2 are in flight
+    assertSame( first, writer.submit( third ) );
+    assertEquals( 2, writer.getBatchesInFlight() );
+
+    assertSame( second, writer.takeWritten() );
+    assertSame( third, writer.takeWritten() );
+    assertNull( writer.takeWritten() );
+    writer.close( false );
+
+    assertEquals( 2, first.getAddedRows().size() );
+    assertEquals( "c", second.getAddedRows().get( 0 )[ 0 ] );
+    assertEquals( 1, third.getAddedRows().size() );
+    verify( ps, times( 3 ) ).executeBatch();
+    verify( db1, never() ).rollback();
+    verify( db1 ).disconnect();
+    verify( db2 ).disconnect();
+  }
+
+  @Test
+  public void testFailedBatchIsCommittedWithErrorHandling() throws Exception {
+    when( ps.executeBatch() ).thenThrow(
+      new BatchUpdateException( new int[] { 1, Statement.EXECUTE_FAILED } ) );
+    PipelinedTableWriter writer =
+      new PipelinedTableWriter( Arrays.asList( db1 ), "INSERT", rowMeta, true, true, 1 );
+
+    PipelinedTableWriter.Batch batch = createBatch( "a", "b" );
+    writer.submit( batch );
+    assertSame( batch, writer.takeWritten() );
+    writer.close( false );
+
+    assertNull( batch.getFailure() );
+    assertNotNull( batch.getBatchException() );
+    assertEquals( 2, batch.getAddedRows().size() );
+    verify( db1 ).commit( true );
+  }
+
+  @Test
+  public void testRowErrorFailsBatchWithoutErrorHandling() throws Exception {
+    when( db1.insertRow( ps, true, false ) ).thenReturn( false )
+      .thenThrow( new KettleDatabaseException( "row error" ) );
+    PipelinedTableWriter writer =
+      new PipelinedTableWriter( Arrays.asList( db1 ), "INSERT", rowMeta, false, false, 1 );
+
+    PipelinedTableWriter.Batch batch = createBatch( "a", "b" );
+    writer.submit( batch );
+    writer.takeWritten();
+    writer.close( true );
+
+    assertNotNull( batch.getFailure() );
+    verify( ps, never() ).executeBatch();
+    verify( db1, times( 2 ) ).rollback();
+  }
+
+  @Test
+  public void testRowErrorIsKeptWhenKeepingFailedRows() throws Exception {
+    when( db1.insertRow( ps, true, false ) ).thenReturn( false )
+      .thenThrow( new KettleDatabaseException( "row error" ) );
+    PipelinedTableWriter writer =
+      new PipelinedTableWriter( Arrays.asList( db1 ), "INSERT", rowMeta, true, true, 1 );
+
+    PipelinedTableWriter.Batch batch = createBatch( "a", "b" );
+    writer.submit( batch );
+    writer.takeWritten();
+    writer.close( false );
+
+    assertNull( batch.getFailure() );
+    assertEquals( 1, batch.getAddedRows().size() );
+    assertEquals( "b", batch.getFailedRows().get( 0 )[ 0 ] );
+    verify( ps ).executeBatch();
+    verify( db1 ).commit();
+  }
+
+  @Test
+  public void testBatchAfterAFailedBatchIsRolledBack() throws Exception {
+    KettleDatabaseException rowError = new KettleDatabaseException( "row error" );
+    for ( Database db : Arrays.asList( db1, db2 ) ) {
+      doThrow( rowError ).when( db ).setValues( any( RowMetaInterface.class ),
+        argThat( (Object[] row) -> "bad".equals( row[ 0 ] ) ), any( PreparedStatement.class ) );
+    }
+    PipelinedTableWriter writer =
+      new PipelinedTableWriter( Arrays.asList( db1, db2 ), "INSERT", rowMeta, false, false, 2 );
+
+    PipelinedTableWriter.Batch first = createBatch( "a", "bad" );
+    PipelinedTableWriter.Batch second = createBatch( "c" );
+    writer.submit( first );
+    writer.submit( second );
+    assertSame( first, writer.takeWritten() );
+    assertSame( second, writer.takeWritten() );
+    writer.close( true );
+
+    assertNotNull( first.getFailure() );
+    assertSame( first.getFailure(), second.getFailure().getCause() );
+    verify( db1, never() ).commit();
+    verify( db2, never() ).commit();
+  }
+
+  @Test
+  public void testBatchesAreCommittedInSubmitOrder() throws Exception {
+    List<Object> commits = Collections.synchronizedList( new ArrayList<>() );
+    ThreadLocal<Object> batchRow = new ThreadLocal<>();
+    for ( Database db : Arrays.asList( db1, db2 ) ) {
+      doAnswer( invocation -> {
+        batchRow.set( ( (Object[]) invocation.getArgument( 1 ) )[ 0 ] );
+        return null;
+      } ).when( db ).setValues( any( RowMetaInterface.class ), any( Object[].class ), any( PreparedStatement.class ) );
+      doAnswer( invocation -> commits.add( batchRow.get() ) ).when( db ).commit();
+    }
+    // The first batch is executed slowly, the second one would be committed first
+    when( ps.executeBatch() ).thenAnswer( invocation -> {
+      if ( "a".equals( batchRow.get() ) ) {
+        Thread.sleep( 200 );
+      }
+      return new int[] { 1 };
+    } );
+    PipelinedTableWriter writer =
+      new PipelinedTableWriter( Arrays.asList( db1, db2 ), "INSERT", rowMeta, false, false, 2 );
+
+    writer.submit( createBatch( "a" ) );
+    writer.submit( createBatch( "b" ) );
+    writer.takeWritten();
+    writer.takeWritten();
+    writer.close( false );
+
+    assertEquals( Arrays.asList( "a", "b" ), commits );
+  }
+
+  private PipelinedTableWriter.Batch createBatch( String... names ) {
+    PipelinedTableWriter.Batch batch = new PipelinedTableWriter.Batch();
+    for ( String name : names ) {
+      Object[] row = new Object[] { name };
+      batch.addRow( row, row );
+    }
+    return batch;
+  }
+}
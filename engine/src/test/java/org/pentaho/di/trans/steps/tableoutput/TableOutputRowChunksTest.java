@@ -0,0 +1,251 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.trans.steps.tableoutput;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.database.Database;
+import org.pentaho.di.core.exception.KettleDatabaseException;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowChunk;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.trans.Trans;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.step.RowHandler;
+import org.pentaho.di.trans.step.StepMeta;
+import org.pentaho.di.trans.step.StepPartitioningMeta;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Inserts rows in chunks and compares the statements, the rows passed on and the error rows with those of the row by
+ * row insert.
+ */
+public class TableOutputRowChunksTest {
+  private static final int NR_ROWS = 50;
+  private static final int CHUNK_SIZE = 4;
+  private static final int COMMIT_SIZE = 3;
+
+  private RowMetaInterface rowMeta;
+  private StepMeta stepMeta;
+  private TableOutputMeta meta;
+  private Database db;
+  private PreparedStatement insertStatement;
+  private List<Object[]> inserted;
+
+  @Before
+  public void setUp() throws Exception {
+    rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    rowMeta.addValueMeta( new ValueMetaNumber( "amount" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "name" ) );
+
+    meta = mock( TableOutputMeta.class );
+
+    stepMeta = mock( StepMeta.class );
+    doReturn( "Table output" ).when( stepMeta ).getName();
+    doReturn( mock( StepPartitioningMeta.class ) ).when( stepMeta ).getTargetStepPartitioningMeta();
+    doReturn( meta ).when( stepMeta ).getStepMetaInterface();
+
+    insertStatement = mock( PreparedStatement.class );
+    inserted = new ArrayList<>();
+    db = mock( Database.class );
+    doReturn( true ).when( db ).getUseBatchInsert( anyBoolean() );
+    doAnswer( invocation -> inserted.add( ( (Object[]) invocation.getArguments()[ 1 ] ).clone() ) )
+      .when( db ).setValues( any( RowMetaInterface.class ), any( Object[].class ), any( PreparedStatement.class ) );
+    doAnswer( invocation -> {
+      RowChunk chunk = (RowChunk) invocation.getArguments()[ 1 ];
+      int[] columns = (int[]) invocation.getArguments()[ 3 ];
+      Object[] row = chunk.get( (Integer) invocation.getArguments()[ 2 ] );
+      Object[] values = new Object[ columns.length ];
+      for ( int i = 0; i < columns.length; i++ ) {
+        values[ i ] = row[ columns[ i ] ];
+      }
+      return inserted.add( values );
+    } ).when( db ).setValues( any( RowMetaInterface.class ), any( RowChunk.class ), anyInt(), any( int[].class ),
+      any( PreparedStatement.class ) );
+  }
+
+  @Test
+  public void testChunksInsertAndPassOnTheSameRows() throws Exception {
+    ListRowHandler rows = run( false );
+    List<Object[]> rowsInserted = new ArrayList<>( inserted );
+    inserted.clear();
+
+    ListRowHandler chunks = run( true );
+    assertTrue( chunks.readChunks );
+    assertSameRows( rowsInserted, inserted );
+    assertSameRows( createInput(), rows.output );
+    assertSameRows( rows.output, chunks.output );
+  }
+
+  @Test
+  public void testErrorHandlingFallsBackToRows() throws Exception {
+    doReturn( true ).when( stepMeta ).isDoingErrorHandling();
+    doAnswer( invocation -> {
+      Object[] row = inserted.get( inserted.size() - 1 );
+      if ( (Long) row[ 0 ] % 10 == 3 ) {
+        throw new KettleDatabaseException( "Duplicate key " + row[ 0 ] );
+      }
+      return null;
+    } ).when( db ).insertRow( any( PreparedStatement.class ), anyBoolean(), anyBoolean() );
+
+    ListRowHandler rows = run( false );
+    ListRowHandler chunks = run( true );
+
+    assertFalse( chunks.readChunks );
+    assertEquals( NR_ROWS / 10, rows.errors.size() );
+    assertSameRows( rows.errors, chunks.errors );
+    assertSameRows( rows.output, chunks.output );
+  }
+
+  @Test
+  public void testErrorInChunkStopsAndPassesOnlyCommittedRows() throws Exception {
+    // The first batch of the step holds the first row and two rows of the first chunk, the second batch fails
+    when( insertStatement.executeBatch() ).thenReturn( new int[ COMMIT_SIZE ] )
+      .thenThrow( new SQLException( "Connection lost" ) );
+
+    TableOutput step = createStep( true );
+    TableOutputData data = createData();
+    ListRowHandler handler = new ListRowHandler( createInput() );
+    step.setRowHandler( handler );
+    while ( step.processRow( meta, data ) ) {
+      // keep inserting
+    }
+
+    assertTrue( step.isStopped() );
+    assertEquals( 1, step.getErrors() );
+    verify( db ).clearBatch( insertStatement );
+    verify( db ).rollback();
+
+    step.dispose( meta, data );
+    assertSameRows( createInput().subList( 0, COMMIT_SIZE ), handler.output );
+    assertEquals( COMMIT_SIZE, step.getLinesOutput() );
+  }
+
+  private ListRowHandler run( boolean rowChunks ) throws KettleException {
+    TableOutput step = createStep( rowChunks );
+    TableOutputData data = createData();
+    ListRowHandler handler = new ListRowHandler( createInput() );
+    step.setRowHandler( handler );
+    while ( step.processRow( meta, data ) ) {
+      // keep inserting
+    }
+    step.dispose( meta, data );
+    assertEquals( 0, step.getErrors() );
+    assertEquals( handler.output.size(), step.getLinesOutput() );
+    return handler;
+  }
+
+  private TableOutput createStep( boolean rowChunks ) {
+    TransMeta transMeta = mock( TransMeta.class );
+    doReturn( stepMeta ).when( transMeta ).findStep( anyString() );
+
+    TableOutput step = new TableOutput( stepMeta, new TableOutputData(), 0, transMeta, mock( Trans.class ) );
+    step.setVariable( Const.KETTLE_ROW_CHUNKS, rowChunks ? "Y" : "N" );
+    step.setInputRowMeta( rowMeta );
+    return step;
+  }
+
+  private TableOutputData createData() {
+    TableOutputData data = new TableOutputData();
+    data.db = db;
+    data.batchMode = true;
+    data.commitSize = COMMIT_SIZE;
+    data.tableName = "target";
+    data.preparedStatements.put( data.tableName, insertStatement );
+    return data;
+  }
+
+  private List<Object[]> createInput() {
+    List<Object[]> input = new ArrayList<>();
+    for ( int i = 0; i < NR_ROWS; i++ ) {
+      input.add( new Object[] { Long.valueOf( i ), i % 7 == 0 ? null : Double.valueOf( i * 1.5 ), "row" + i } );
+    }
+    return input;
+  }
+
+  private static void assertSameRows( List<Object[]> expected, List<Object[]> actual ) {
+    assertEquals( expected.size(), actual.size() );
+    for ( int i = 0; i < expected.size(); i++ ) {
+      assertArrayEquals( "row " + i, expected.get( i ), actual.get( i ) );
+    }
+  }
+
+  /**
+   * Hands out the input rows in chunks of {@link #CHUNK_SIZE} and keeps the rows passed on and the error rows.
+   */
+  private static class ListRowHandler implements RowHandler {
+    private final List<Object[]> input;
+    private int next;
+    private boolean readChunks;
+    private final List<Object[]> output = new ArrayList<>();
+    private final List<Object[]> errors = new ArrayList<>();
+
+    ListRowHandler( List<Object[]> input ) {
+      this.input = input;
+    }
+
+    @Override
+    public Object[] getRow() {
+      return next < input.size() ? input.get( next++ ) : null;
+    }
+
+    @Override
+    public List<Object[]> getRows( int max ) {
+      readChunks = true;
+      if ( next >= input.size() ) {
+        return null;
+      }
+      int end = Math.min( input.size(), next + Math.min( max, CHUNK_SIZE ) );
+      List<Object[]> rows = new ArrayList<>( input.subList( next, end ) );
+      next = end;
+      return rows;
+    }
+
+    @Override
+    public void putRow( RowMetaInterface rowMeta, Object[] row ) {
+      output.add( row );
+    }
+
+    @Override
+    public void putError( RowMetaInterface rowMeta, Object[] row, long nrErrors, String errorDescriptions,
+                          String fieldNames, String errorCodes ) {
+      errors.add( row );
+    }
+  }
+}
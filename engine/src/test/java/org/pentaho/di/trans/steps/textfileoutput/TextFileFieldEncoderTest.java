@@ -0,0 +1,112 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.trans.steps.textfileoutput;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import org.junit.Test;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaBigNumber;
+import org.pentaho.di.core.row.value.ValueMetaDate;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.row.value.ValueMetaString;
+
+public class TextFileFieldEncoderTest {
+
+  @Test
+  public void testIntegers() throws Exception {
+    ValueMetaInteger plain = new ValueMetaInteger( "plain" );
+    ValueMetaInteger masked = new ValueMetaInteger( "masked", 9, 0 );
+    masked.setConversionMask( "#,##0;(#)" );
+    masked.setGroupingSymbol( "." );
+    for ( ValueMetaInterface valueMeta : new ValueMetaInterface[] { plain, masked } ) {
+      for ( long value : new long[] { 0L, 7L, -12L, 1234567L, Long.MIN_VALUE, Long.MAX_VALUE } ) {
+        assertEncoded( valueMeta, value );
+      }
+    }
+  }
+
+  @Test
+  public void testNumbers() throws Exception {
+    ValueMetaNumber plain = new ValueMetaNumber( "plain" );
+    ValueMetaNumber masked = new ValueMetaNumber( "masked", 12, 3 );
+    masked.setConversionMask( "0.000" );
+    masked.setDecimalSymbol( "," );
+    for ( ValueMetaInterface valueMeta : new ValueMetaInterface[] { plain, masked } ) {
+      for ( double value : new double[] { 0.0, -1.5, 3.14159, 1e12, -0.001 } ) {
+        assertEncoded( valueMeta, value );
+      }
+    }
+  }
+
+  @Test
+  public void testDates() throws Exception {
+    ValueMetaDate plain = new ValueMetaDate( "plain" );
+    ValueMetaDate masked = new ValueMetaDate( "masked" );
+    masked.setConversionMask( "yyyyMMdd HH:mm:ss.SSS" );
+    for ( ValueMetaInterface valueMeta : new ValueMetaInterface[] { plain, masked } ) {
+      assertEncoded( valueMeta, new Date( 0L ) );
+      assertEncoded( valueMeta, new Date( 1234567890123L ) );
+    }
+  }
+
+  @Test
+  public void testStrings() throws Exception {
+    ValueMetaString valueMeta = new ValueMetaString( "string" );
+    TextFileFieldEncoder encoder = TextFileFieldEncoder.create( valueMeta, "UTF-8" );
+    assertNotNull( encoder );
+
+    String value = "a longer value, \"with\" quotes and more than sixty-four characters in it";
+    int length = encoder.encode( valueMeta, value );
+    assertArrayEquals( value.getBytes( "UTF-8" ), Arrays.copyOf( encoder.getBuffer(), length ) );
+
+    // Not ASCII: the usual conversion takes over
+    assertEquals( -1, encoder.encode( valueMeta, "café" ) );
+    assertEquals( -1, encoder.encode( valueMeta, null ) );
+    assertEquals( -1, encoder.encode( new ValueMetaString( "other" ), value ) );
+  }
+
+  @Test
+  public void testNoEncoder() {
+    ValueMetaString padded = new ValueMetaString( "padded", 10, 0 );
+    assertNull( TextFileFieldEncoder.create( padded, "UTF-8" ) );
+
+    ValueMetaString trimmed = new ValueMetaString( "trimmed" );
+    trimmed.setTrimType( ValueMetaInterface.TRIM_TYPE_BOTH );
+    assertNull( TextFileFieldEncoder.create( trimmed, "UTF-8" ) );
+
+    ValueMetaString binaryString = new ValueMetaString( "binaryString" );
+    binaryString.setStorageType( ValueMetaInterface.STORAGE_TYPE_BINARY_STRING );
+    assertNull( TextFileFieldEncoder.create( binaryString, "UTF-8" ) );
+
+    assertNull( TextFileFieldEncoder.create( new ValueMetaString( "utf16" ), "UTF-16" ) );
+    assertNull( TextFileFieldEncoder.create( new ValueMetaBigNumber( "bigNumber" ), "UTF-8" ) );
+  }
+
+  private static void assertEncoded( ValueMetaInterface valueMeta, Object value ) throws Exception {
+    TextFileFieldEncoder encoder = TextFileFieldEncoder.create( valueMeta, null );
+    assertNotNull( encoder );
+    int length = encoder.encode( valueMeta, value );
+    assertArrayEquals( valueMeta.getName() + " " + value, valueMeta.getBinaryString( value ),
+      Arrays.copyOf( encoder.getBuffer(), length ) );
+  }
+}
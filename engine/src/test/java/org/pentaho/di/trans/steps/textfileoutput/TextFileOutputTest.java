@@ -70,6 +70,7 @@ import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
 import org.pentaho.di.core.row.value.ValueMetaBase;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
 import org.pentaho.di.core.row.value.ValueMetaString;
 import org.pentaho.di.core.variables.VariableSpace;
 import org.pentaho.di.junit.rules.RestorePDIEngineEnvironment;
@@ -964,6 +965,44 @@ public class TextFileOutputTest {
     byte[] str = new byte[1];
     assertFalse(textFileOutput.isWriteEnclosureForWriteField(str));
   }
+
+  @Test
+  public void testWriteRowEncodesFieldsDirectly() throws Exception {
+    TextFileOutputMeta meta = new TextFileOutputMeta();
+    meta.setDefault();
+    meta.setEncoding( StandardCharsets.UTF_8.name() );
+    meta.setEnclosureForced( false );
+    meta.setEnclosureFixDisabled( false );
+
+    TextFileOutputData data = new TextFileOutputData();
+    data.binarySeparator = ";".getBytes();
+    data.binaryEnclosure = "\"".getBytes();
+    data.binaryNewline = "\n".getBytes();
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    data.writer = baos;
+
+    TextFileOutput textFileOutput =
+      new TextFileOutputTestHandler( stepMockHelper.stepMeta, data, 0, stepMockHelper.transMeta,
+        stepMockHelper.trans );
+    textFileOutput.meta = meta;
+    textFileOutput.data = data;
+
+    RowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "separator" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "enclosures" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "integer" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "notAscii" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "null" ) );
+
+    textFileOutput.writeRow( rowMeta, new Object[] { "a;b", "say \"hi\"", 42L, "café", null } );
+    textFileOutput.writeRow( rowMeta, new Object[] { "c", "\"", -7L, "d", "e" } );
+
+    assertEquals( "\"a;b\";\"say \"\"hi\"\"\";42;café;\nc;\"\"\"\";-7;d;e\n",
+      baos.toString( StandardCharsets.UTF_8.name() ) );
+    assertNotNull( data.fieldEncoders[ 0 ] );
+    assertNotNull( data.fieldEncoders[ 2 ] );
+  }
+
   private void setUpFields( TextFileField[] textFileFields, int index, String name, int type ) {
     textFileFields[ index ] = new TextFileField();
     textFileFields[ index ].setName( name );
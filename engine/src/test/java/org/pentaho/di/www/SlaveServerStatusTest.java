@@ -0,0 +1,51 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.www;
+
+import java.util.Collections;
+
+import org.junit.Test;
+import org.pentaho.di.core.database.ConnectionPoolStats;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SlaveServerStatusTest {
+
+  @Test
+  public void testConnectionPoolStatsXML() throws Exception {
+    SlaveServerStatus status = new SlaveServerStatus( "Online" );
+    status.setConnectionPoolStatsList( Collections.singletonList(
+      new ConnectionPoolStats( "sa@jdbc:h2:mem:test", 2, 3, 10, 40, 120, 35 ) ) );
+
+    SlaveServerStatus read = SlaveServerStatus.fromXML( status.getXML() );
+    assertEquals( 1, read.getConnectionPoolStatsList().size() );
+    ConnectionPoolStats stats = read.getConnectionPoolStatsList().get( 0 );
+    assertEquals( "sa@jdbc:h2:mem:test", stats.getName() );
+    assertEquals( 2, stats.getActiveCount() );
+    assertEquals( 3, stats.getIdleCount() );
+    assertEquals( 10, stats.getMaximumCount() );
+    assertEquals( 40, stats.getBorrowCount() );
+    assertEquals( 3.0, stats.getMeanBorrowWaitMillis(), 0.0001 );
+    assertEquals( 35, stats.getMaximumBorrowWaitMillis() );
+  }
+
+  @Test
+  public void testStatusWithoutConnectionPools() throws Exception {
+    SlaveServerStatus read = SlaveServerStatus.fromXML(
+      "<serverstatus><statusdesc>Online</statusdesc></serverstatus>" );
+    assertTrue( read.getConnectionPoolStatsList().isEmpty() );
+  }
+}
@@ -14,18 +14,30 @@
 
 package org.pentaho.di.trans.steps.combinationlookup;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.annotations.VisibleForTesting;
 
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.cache.SharedCache;
+import org.pentaho.di.core.cache.SharedCacheManager;
 import org.pentaho.di.core.database.DatabaseMeta;
 import org.pentaho.di.core.exception.KettleConfigException;
 import org.pentaho.di.core.exception.KettleDatabaseException;
@@ -100,18 +112,72 @@ public class CombinationLookup extends BaseDatabaseStep implements StepInterface
     }
   }
 
-  private Long lookupInCache( RowMetaInterface rowMeta, Object[] row ) {
+  private Long lookupInCache( RowMetaInterface rowMeta, Object[] row ) throws KettleValueException {
     // Short circuit if cache is disabled.
     if ( meta.getCacheSize() == -1 ) {
       return null;
     }
 
+    // The keys read from the database are shared, the keys we inserted ourselves are not
+    //
+    if ( data.sharedCache != null ) {
+      Long tk = data.sharedCache.get( getSharedCacheKey( rowMeta, row ) );
+      if ( tk != null ) {
+        return tk;
+      }
+    }
+
     // try to find the row in the cache...
     //
     Long tk = data.cache.get( new RowMetaAndData( rowMeta, row ) );
     return tk;
   }
 
+  /**
+   * Adds a key read from the database to the shared cache, or to the cache of this step if it isn't shared.
+   */
+  private void addReadKeyToCache( RowMetaInterface rowMeta, Object[] row, Long tk ) throws KettleValueException {
+    if ( data.sharedCache == null ) {
+      addToCache( rowMeta, row, tk );
+      return;
+    }
+    data.sharedCache.put( getSharedCacheKey( rowMeta, row ), tk );
+
+    if ( isRowLevel() ) {
+      logRowlevel( "Shared cache store: key=" + rowMeta.getString( row ) + "    key=" + tk );
+    }
+  }
+
+  /**
+   * The keys of the shared cache have normal storage, they are compared with the keys of other transformations.
+   */
+  private RowMetaAndData getSharedCacheKey( RowMetaInterface rowMeta, Object[] row ) throws KettleValueException {
+    Object[] key = new Object[ row.length ];
+    for ( int i = 0; i < row.length; i++ ) {
+      key[ i ] = rowMeta.getValueMeta( i ).convertToNormalStorageType( row[ i ] );
+    }
+    return new RowMetaAndData( data.sharedKeyMeta, key );
+  }
+
+  /**
+   * @return the name of the shared cache: only the same lookups on the same table share a cache
+   */
+  String getSharedCacheName() throws KettleDatabaseException {
+    DatabaseMeta databaseMeta = meta.getDatabaseMeta();
+    StringBuilder name = new StringBuilder( CombinationLookup.class.getSimpleName() ).append( ':' );
+    name.append( databaseMeta.getURL() ).append( '|' );
+    name.append( databaseMeta.environmentSubstitute( databaseMeta.getUsername() ) ).append( '|' );
+    name.append( databaseMeta.getQuotedSchemaTableCombination( data.realSchemaName, data.realTableName ) );
+    for ( String keyLookup : meta.getKeyLookup() ) {
+      name.append( '|' ).append( keyLookup );
+    }
+    name.append( '|' ).append( meta.getTechnicalKeyField() );
+    if ( meta.useHash() ) {
+      name.append( '|' ).append( meta.getHashField() );
+    }
+    return name.toString();
+  }
+
   /**
    * Adds a row to the cache In case we are doing updates, we need to store the complete rows from the database. These
    * are the values we need to store
@@ -208,40 +274,15 @@ public class CombinationLookup extends BaseDatabaseStep implements StepInterface
     Long val_hash = null;
     Object[] hashRow = null;
 
-    Object[] lookupRow = new Object[ data.lookupRowMeta.size() ];
-    int lookupIndex = 0;
-
     if ( meta.useHash() || meta.getCacheSize() >= 0 ) {
-      hashRow = new Object[ data.hashRowMeta.size() ];
-      for ( int i = 0; i < meta.getKeyField().length; i++ ) {
-        hashRow[ i ] = row[ data.keynrs[ i ] ];
-      }
+      hashRow = getHashRow( row );
 
       if ( meta.useHash() ) {
         val_hash = new Long( data.hashRowMeta.oldXORHashCode( hashRow ) );
-        lookupRow[ lookupIndex ] = val_hash;
-        lookupIndex++;
       }
     }
 
-    for ( int i = 0; i < meta.getKeyField().length; i++ ) {
-      // Determine the index of this Key Field in the row meta/data
-      int rowIndex = data.keynrs[ i ];
-      lookupRow[ lookupIndex ] = row[ rowIndex ]; // KEYi = ?
-      lookupIndex++;
-
-      if ( meta.getDatabaseMeta().requiresCastToVariousForIsNull()
-        && rowMeta.getValueMeta( rowIndex ).getType() == ValueMetaInterface.TYPE_STRING ) {
-        lookupRow[ lookupIndex ] =
-          rowMeta.getValueMeta( rowIndex ).isNull( row[ rowIndex ] ) ? null : "NotNull"; // KEYi IS
-        // NULL or
-        // ? IS
-        // NULL
-      } else {
-        lookupRow[ lookupIndex ] = row[ data.keynrs[ i ] ]; // KEYi IS NULL or ? IS NULL
-      }
-      lookupIndex++;
-    }
+    Object[] lookupRow = getLookupRow( rowMeta, row, val_hash );
 
     // Before doing the actual lookup in the database, see if it's not in the cache...
     val_key = lookupInCache( data.hashRowMeta, hashRow );
@@ -252,28 +293,7 @@ public class CombinationLookup extends BaseDatabaseStep implements StepInterface
 
       if ( add == null ) { // The dimension entry was not found, we need to add it!
         // First try to use an AUTOINCREMENT field
-        switch ( getTechKeyCreation() ) {
-          case CREATION_METHOD_TABLEMAX:
-            // Use our own counter: what's the next value for the technical key?
-            val_key =
-              data.db.getNextValue( getTransMeta().getCounters(), data.realSchemaName, data.realTableName, meta
-                .getTechnicalKeyField() );
-            break;
-          case CREATION_METHOD_AUTOINC:
-            val_key = new Long( 0 ); // value to accept new key...
-            break;
-          case CREATION_METHOD_SEQUENCE:
-            val_key =
-              data.db.getNextSequenceValue( data.realSchemaName, meta.getSequenceFrom(), meta
-                .getTechnicalKeyField() );
-            if ( val_key != null && isRowLevel() ) {
-              logRowlevel( BaseMessages.getString( PKG, "CombinationLookup.Log.FoundNextSequenceValue" )
-                + val_key.toString() );
-            }
-            break;
-          default:
-            break;
-        }
+        val_key = getNextTechnicalKey();
 
         val_key = combiInsert( rowMeta, row, val_key, val_hash );
         incrementLinesOutput();
@@ -288,10 +308,88 @@ public class CombinationLookup extends BaseDatabaseStep implements StepInterface
         // Entry already exists...
         //
         val_key = data.db.getReturnRowMeta().getInteger( add, 0 ); // Sometimes it's not an integer, believe it or not.
-        addToCache( data.hashRowMeta, hashRow, val_key );
+        addReadKeyToCache( data.hashRowMeta, hashRow, val_key );
       }
     }
 
+    return getOutputRow( rowMeta, row, val_key );
+  }
+
+  /**
+   * @return the key fields of the row, in the order of the key lookup fields
+   */
+  private Object[] getHashRow( Object[] row ) {
+    Object[] hashRow = new Object[ data.hashRowMeta.size() ];
+    for ( int i = 0; i < meta.getKeyField().length; i++ ) {
+      hashRow[ i ] = row[ data.keynrs[ i ] ];
+    }
+    return hashRow;
+  }
+
+  /**
+   * @return the parameters of the lookup statement: the hash code if it is used and the key fields, twice
+   */
+  private Object[] getLookupRow( RowMetaInterface rowMeta, Object[] row, Long val_hash ) {
+    Object[] lookupRow = new Object[ data.lookupRowMeta.size() ];
+    int lookupIndex = 0;
+
+    if ( meta.useHash() ) {
+      lookupRow[ lookupIndex ] = val_hash;
+      lookupIndex++;
+    }
+
+    for ( int i = 0; i < meta.getKeyField().length; i++ ) {
+      // Determine the index of this Key Field in the row meta/data
+      int rowIndex = data.keynrs[ i ];
+      lookupRow[ lookupIndex ] = row[ rowIndex ]; // KEYi = ?
+      lookupIndex++;
+
+      if ( meta.getDatabaseMeta().requiresCastToVariousForIsNull()
+        && rowMeta.getValueMeta( rowIndex ).getType() == ValueMetaInterface.TYPE_STRING ) {
+        lookupRow[ lookupIndex ] =
+          rowMeta.getValueMeta( rowIndex ).isNull( row[ rowIndex ] ) ? null : "NotNull"; // KEYi IS
+        // NULL or
+        // ? IS
+        // NULL
+      } else {
+        lookupRow[ lookupIndex ] = row[ data.keynrs[ i ] ]; // KEYi IS NULL or ? IS NULL
+      }
+      lookupIndex++;
+    }
+    return lookupRow;
+  }
+
+  /**
+   * @return the technical key of a new combination, 0 when it is generated by the database
+   */
+  private Long getNextTechnicalKey() throws KettleDatabaseException {
+    Long val_key = null;
+    switch ( getTechKeyCreation() ) {
+      case CREATION_METHOD_TABLEMAX:
+        // Use our own counter: what's the next value for the technical key?
+        val_key =
+          data.db.getNextValue( getTransMeta().getCounters(), data.realSchemaName, data.realTableName, meta
+            .getTechnicalKeyField() );
+        break;
+      case CREATION_METHOD_AUTOINC:
+        val_key = new Long( 0 ); // value to accept new key...
+        break;
+      case CREATION_METHOD_SEQUENCE:
+        val_key =
+          data.db.getNextSequenceValue( data.realSchemaName, meta.getSequenceFrom(), meta
+            .getTechnicalKeyField() );
+        if ( val_key != null && isRowLevel() ) {
+          logRowlevel( BaseMessages.getString( PKG, "CombinationLookup.Log.FoundNextSequenceValue" )
+            + val_key.toString() );
+        }
+        break;
+      default:
+        break;
+    }
+    return val_key;
+  }
+
+  private Object[] getOutputRow( RowMetaInterface rowMeta, Object[] row, Long val_key ) {
     Object[] outputRow = new Object[ data.outputRowMeta.size() ];
     int outputIndex = 0;
 
@@ -316,10 +414,395 @@ public class CombinationLookup extends BaseDatabaseStep implements StepInterface
     return outputRow;
   }
 
+  /**
+   * Looks up the collected rows of a batch and passes them on in their original order. The distinct combinations that
+   * are not in the cache are looked up with a single query, the new ones are inserted in one JDBC batch.
+   *
+   * @return false if the step needs to stop
+   */
+  private boolean processBatch() throws KettleException {
+    List<Object[]> rows = data.batchRows;
+    data.batchRows = new ArrayList<>( meta.getBatchSize() );
+
+    Long[] keys = new Long[ rows.size() ];
+    try {
+      // The combinations that are not in the cache, with the first row that has them
+      //
+      Map<RowMetaAndData, Object[]> combinations = new LinkedHashMap<>();
+      for ( int i = 0; i < rows.size(); i++ ) {
+        Object[] hashRow = getHashRow( rows.get( i ) );
+        keys[ i ] = lookupInCache( data.hashRowMeta, hashRow );
+        if ( keys[ i ] == null ) {
+          combinations.putIfAbsent( getSharedCacheKey( data.hashRowMeta, hashRow ), rows.get( i ) );
+        }
+      }
+
+      if ( !combinations.isEmpty() ) {
+        Map<RowMetaAndData, Long> found = lookupCombinations( combinations.values() );
+
+        List<Object[]> newRows = new ArrayList<>();
+        for ( Map.Entry<RowMetaAndData, Object[]> combination : combinations.entrySet() ) {
+          Long tk = found.get( combination.getKey() );
+          if ( tk != null ) {
+            addReadKeyToCache( data.hashRowMeta, getHashRow( combination.getValue() ), tk );
+          } else {
+            newRows.add( combination.getValue() );
+          }
+        }
+
+        if ( !newRows.isEmpty() ) {
+          found.putAll( insertCombinations( newRows ) );
+        }
+
+        for ( int i = 0; i < rows.size(); i++ ) {
+          if ( keys[ i ] == null ) {
+            keys[ i ] = found.get( getSharedCacheKey( data.hashRowMeta, getHashRow( rows.get( i ) ) ) );
+          }
+        }
+      }
+    } catch ( KettleException e ) {
+      return handleBatchError( rows, e );
+    }
+
+    for ( int i = 0; i < rows.size(); i++ ) {
+      putRow( data.outputRowMeta, getOutputRow( getInputRowMeta(), rows.get( i ), keys[ i ] ) );
+    }
+    logBatchFeedback( rows.size() );
+    return true;
+  }
+
+  /**
+   * Handles a batch that failed. Its inserts were rolled back, the combinations are looked up again: the rows with a
+   * combination in the table now, for example inserted by another transformation, are passed on, the others are
+   * handled as errors.
+   *
+   * @return false if the step needs to stop
+   */
+  private boolean handleBatchError( List<Object[]> rows, KettleException e ) throws KettleException {
+    Map<RowMetaAndData, Long> found;
+    try {
+      Map<RowMetaAndData, Object[]> combinations = new LinkedHashMap<>();
+      for ( Object[] row : rows ) {
+        combinations.putIfAbsent( getSharedCacheKey( data.hashRowMeta, getHashRow( row ) ), row );
+      }
+      found = lookupCombinations( combinations.values() );
+    } catch ( KettleException lookupError ) {
+      found = Collections.emptyMap();
+    }
+
+    for ( Object[] r : rows ) {
+      Object[] hashRow = getHashRow( r );
+      Long tk = found.get( getSharedCacheKey( data.hashRowMeta, hashRow ) );
+      if ( tk != null ) {
+        addReadKeyToCache( data.hashRowMeta, hashRow, tk );
+        putRow( data.outputRowMeta, getOutputRow( getInputRowMeta(), r, tk ) );
+      } else if ( !handleError( r, e ) ) {
+        return false;
+      }
+    }
+    logBatchFeedback( rows.size() );
+    return true;
+  }
+
+  private void logBatchFeedback( int nrRows ) {
+    if ( checkFeedback( getLinesRead(), nrRows ) && log.isBasic() ) {
+      logBasic( BaseMessages.getString( PKG, "CombinationLookup.Log.LineNumber" ) + getLinesRead() );
+    }
+  }
+
+  /**
+   * Inserts the new combinations of a batch with a single JDBC batch. Keys generated by the database are read back
+   * with a lookup of the inserted combinations. When the batch fails, the inserts since the last commit are rolled
+   * back.
+   *
+   * @param newRows
+   *          the first row of every new combination
+   * @return the technical keys of the new combinations
+   */
+  private Map<RowMetaAndData, Long> insertCombinations( List<Object[]> newRows ) throws KettleException {
+    if ( log.isDetailed() ) {
+      logDetailed( BaseMessages.getString( PKG, "CombinationLookup.Log.InsertingBatch", newRows.size() ) );
+    }
+    prepareCombiInsert( getInputRowMeta() );
+
+    Map<RowMetaAndData, Long> inserted;
+    try {
+      inserted = executeInserts( newRows );
+    } catch ( KettleException e ) {
+      rollbackInserts();
+      throw e;
+    }
+
+    for ( Object[] row : newRows ) {
+      Object[] hashRow = getHashRow( row );
+      Long val_key = inserted.get( getSharedCacheKey( data.hashRowMeta, hashRow ) );
+      if ( isRowLevel() ) {
+        logRowlevel( BaseMessages.getString( PKG, "CombinationLookup.Log.AddedDimensionEntry" ) + val_key );
+      }
+      addToCache( data.hashRowMeta, hashRow, val_key );
+    }
+
+    // The batch was executed, commit every commit size rows
+    //
+    data.uncommittedRows += newRows.size();
+    if ( meta.getCommitSize() > 0 && data.uncommittedRows >= meta.getCommitSize() && !data.db.isAutoCommit() ) {
+      data.db.commit();
+      data.uncommittedRows = 0;
+    }
+    return inserted;
+  }
+
+  /**
+   * Executes the inserts of the new combinations as a JDBC batch.
+   *
+   * @return the technical keys of the new combinations
+   */
+  @SuppressWarnings( "deprecation" )
+  private Map<RowMetaAndData, Long> executeInserts( List<Object[]> newRows ) throws KettleException {
+    Map<RowMetaAndData, Long> inserted = new HashMap<>();
+    for ( Object[] row : newRows ) {
+      Object[] hashRow = getHashRow( row );
+      Long val_hash = meta.useHash() ? new Long( data.hashRowMeta.oldXORHashCode( hashRow ) ) : null;
+      Long val_key = getNextTechnicalKey();
+
+      data.db.setValues( data.insertRowMeta, getInsertRow( row, val_key, val_hash ), data.prepStatementInsert );
+      data.db.insertRow( data.prepStatementInsert, true, false );
+      incrementLinesOutput();
+
+      inserted.put( getSharedCacheKey( data.hashRowMeta, hashRow ), val_key );
+    }
+    data.db.executeAndClearBatch( data.prepStatementInsert );
+
+    if ( isAutoIncrement() ) {
+      // The batch doesn't reliably return the generated keys, they are looked up
+      //
+      inserted = lookupCombinations( newRows );
+      if ( inserted.size() < newRows.size() ) {
+        throw new KettleDatabaseException( "Unable to retrieve auto-increment of combi insert key : "
+          + meta.getTechnicalKeyField() );
+      }
+    }
+    return inserted;
+  }
+
+  /**
+   * Discards the inserts of a batch that failed: the JDBC batch is cleared and the transaction is rolled back. The
+   * rows inserted since the last commit are gone with it, so the cached keys are cleared too.
+   */
+  private void rollbackInserts() {
+    try {
+      data.db.clearBatch( data.prepStatementInsert );
+      if ( !data.db.isAutoCommit() ) {
+        data.db.rollback();
+      }
+    } catch ( KettleDatabaseException e ) {
+      logError( BaseMessages.getString( PKG, "CombinationLookup.Log.UnexpectedError" ) + " : " + e.toString() );
+    }
+    data.uncommittedRows = 0;
+    if ( data.cache != null ) {
+      data.cache.clear();
+    }
+    if ( data.sharedCache != null ) {
+      data.sharedCache.clear();
+    }
+    logBasic( BaseMessages.getString( PKG, "CombinationLookup.Log.BatchRolledBack" ) );
+  }
+
+  /**
+   * Looks up the technical keys of a number of combinations with as few queries as the database allows, see
+   * {@link DatabaseMeta#getMaxLookupKeys(int, boolean)}. When there are several dimension entries for a combination,
+   * the smallest technical key is used.
+   *
+   * @param rows
+   *          a row with every combination to look up, the combinations are distinct
+   * @return the technical keys found, by the combination with normal storage
+   */
+  @VisibleForTesting
+  @SuppressWarnings( "deprecation" )
+  Map<RowMetaAndData, Long> lookupCombinations( Collection<Object[]> rows ) throws KettleException {
+    // With a hash code only the distinct hash codes are parameters, the keys are compared here
+    //
+    List<Object[]> conditions = new ArrayList<>();
+    if ( meta.useHash() ) {
+      Set<Long> hashCodes = new LinkedHashSet<>();
+      for ( Object[] row : rows ) {
+        hashCodes.add( new Long( data.hashRowMeta.oldXORHashCode( getHashRow( row ) ) ) );
+      }
+      for ( Long hashCode : hashCodes ) {
+        conditions.add( new Object[] { hashCode } );
+      }
+    } else {
+      for ( Object[] row : rows ) {
+        conditions.add( getLookupRow( getInputRowMeta(), row, null ) );
+      }
+    }
+
+    if ( isRowLevel() ) {
+      logRowlevel( BaseMessages.getString( PKG, "CombinationLookup.Log.LookingUpBatch", rows.size() ) );
+    }
+
+    if ( data.maxBatchConditions == 0 ) {
+      int nrParameters = meta.useHash() ? 1 : data.lookupRowMeta.size();
+      data.maxBatchConditions = Math.min( meta.getBatchSize(),
+        meta.getDatabaseMeta().getMaxLookupKeys( nrParameters, meta.useHash() ) );
+    }
+
+    Map<RowMetaAndData, Long> found = new HashMap<>();
+    for ( int start = 0; start < conditions.size(); start += data.maxBatchConditions ) {
+      lookupConditions( conditions.subList( start, Math.min( conditions.size(), start + data.maxBatchConditions ) ),
+        found );
+    }
+    return found;
+  }
+
+  /**
+   * Looks up the technical keys of a number of conditions with a single query and adds them to the keys found.
+   *
+   * @param conditions
+   *          the hash codes or the parameters of the lookup statement
+   */
+  private void lookupConditions( List<Object[]> conditions, Map<RowMetaAndData, Long> found )
+    throws KettleException {
+    RowMetaInterface parameterMeta = new RowMeta();
+    List<Object> parameters = new ArrayList<>();
+    for ( Object[] condition : conditions ) {
+      if ( meta.useHash() ) {
+        parameterMeta.addValueMeta( new ValueMetaInteger( meta.getHashField() ) );
+      } else {
+        parameterMeta.addRowMeta( data.lookupRowMeta );
+      }
+      parameters.addAll( Arrays.asList( condition ) );
+    }
+    int nrConditions = conditions.size();
+
+    // Full batches reuse their statement, the last one is usually smaller
+    //
+    PreparedStatement ps;
+    if ( nrConditions == data.maxBatchConditions ) {
+      if ( data.prepStatementBatchLookup == null ) {
+        data.prepStatementBatchLookup = data.db.prepareSQL( getBatchLookupSQL( nrConditions ) );
+      }
+      ps = data.prepStatementBatchLookup;
+    } else {
+      ps = data.db.prepareSQL( getBatchLookupSQL( nrConditions ) );
+    }
+
+    try {
+      ResultSet rs = data.db.openQuery( ps, parameterMeta, parameters.toArray() );
+      try {
+        RowMetaInterface resultMeta = data.db.getReturnRowMeta();
+        for ( Object[] row = data.db.getRow( rs ); row != null; row = data.db.getRow( rs ) ) {
+          incrementLinesInput();
+
+          // Map the row back to the combination with the types of the key fields
+          //
+          Object[] key = new Object[ data.sharedKeyMeta.size() ];
+          for ( int i = 0; i < key.length; i++ ) {
+            ValueMetaInterface keyMeta = data.sharedKeyMeta.getValueMeta( i );
+            ValueMetaInterface returned = resultMeta.getValueMeta( i + 1 );
+            key[ i ] =
+              keyMeta.getType() == returned.getType() ? row[ i + 1 ] : keyMeta.convertData( returned, row[ i + 1 ] );
+          }
+          Long tk = resultMeta.getInteger( row, 0 );
+          found.merge( new RowMetaAndData( data.sharedKeyMeta, key ), tk, Math::min );
+        }
+      } finally {
+        data.db.closeQuery( rs );
+      }
+    } finally {
+      if ( ps != data.prepStatementBatchLookup ) {
+        data.db.closePreparedStatement( ps );
+      }
+    }
+  }
+
+  /**
+   * The combinations a batch finds in the database are matched to its rows in Java, so string keys need a database
+   * that compares them the same way. Case insensitive collations and CHAR columns that pad the values would find
+   * combinations that don't match the keys of the rows, those would be inserted again.
+   *
+   * @return true if the rows can be looked up and inserted in batches
+   */
+  @VisibleForTesting
+  boolean isBatchPossible() throws KettleDatabaseException {
+    RowMetaInterface fields = data.db.getTableFields( data.schemaTable );
+    if ( fields == null ) {
+      return false;
+    }
+    for ( String keyLookup : meta.getKeyLookup() ) {
+      ValueMetaInterface column = fields.searchValueMeta( keyLookup );
+      if ( column == null ) {
+        return false;
+      }
+      if ( column.getType() == ValueMetaInterface.TYPE_STRING && ( !meta.getDatabaseMeta().isStringComparisonExact()
+        || column.getOriginalColumnType() == Types.CHAR || column.getOriginalColumnType() == Types.NCHAR ) ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Selects the technical key and the key fields of a number of combinations: "hash IN (?, ?, ...)" when the hash code
+   * is used, otherwise the conditions of the lookup statement of every combination, combined with OR.
+   */
+  @VisibleForTesting
+  String getBatchLookupSQL( int nrConditions ) {
+    DatabaseMeta databaseMeta = meta.getDatabaseMeta();
+
+    StringBuilder sql = new StringBuilder( "SELECT " );
+    sql.append( databaseMeta.quoteField( meta.getTechnicalKeyField() ) );
+    for ( String keyLookup : meta.getKeyLookup() ) {
+      sql.append( ", " ).append( databaseMeta.quoteField( keyLookup ) );
+    }
+    sql.append( " FROM " ).append( data.schemaTable ).append( " WHERE " );
+
+    if ( meta.useHash() ) {
+      sql.append( databaseMeta.quoteField( meta.getHashField() ) ).append( " IN ( " );
+      for ( int c = 0; c < nrConditions; c++ ) {
+        sql.append( c > 0 ? ", ?" : "?" );
+      }
+      sql.append( " )" );
+    } else {
+      for ( int c = 0; c < nrConditions; c++ ) {
+        sql.append( c > 0 ? " OR ( " : "( " );
+        for ( int i = 0; i < meta.getKeyLookup().length; i++ ) {
+          String keyLookup = databaseMeta.quoteField( meta.getKeyLookup()[ i ] );
+          if ( i > 0 ) {
+            sql.append( " AND " );
+          }
+          sql.append( "( " ).append( keyLookup ).append( " = ? OR ( " ).append( keyLookup ).append( " IS NULL AND " );
+          sql.append( databaseMeta.requiresCastToVariousForIsNull() ? "CAST(? AS VARCHAR(256)) IS NULL" : "? IS NULL" );
+          sql.append( " ) )" );
+        }
+        sql.append( " )" );
+      }
+    }
+    return sql.toString();
+  }
+
+  /**
+   * @return false if the step needs to stop
+   */
+  private boolean handleError( Object[] r, KettleException e ) throws KettleStepException {
+    if ( getStepMeta().isDoingErrorHandling() ) {
+      putError( getInputRowMeta(), r, 1L, Const.getStackTracker( e ), null, "CBL001" );
+      return true;
+    }
+    logError( BaseMessages.getString( PKG, "CombinationLookup.Log.ErrorInStepRunning" ) + e.getMessage() );
+    setErrors( 1 );
+    stopAll();
+    setOutputDone(); // signal end to receiver(s)
+    return false;
+  }
+
   public boolean processRow( StepMetaInterface smi, StepDataInterface sdi ) throws KettleException {
     Object[] r = getRow(); // Get row from input rowset & set row busy!
     // if no more input to be expected set done
     if ( r == null ) {
+      if ( data.batchRows != null && !data.batchRows.isEmpty() && !processBatch() ) {
+        return false;
+      }
       setOutputDone();
       return false;
     }
@@ -369,8 +852,53 @@ public class CombinationLookup extends BaseDatabaseStep implements StepInterface
         data.hashRowMeta.addValueMeta( getInputRowMeta().getValueMeta( data.keynrs[ i ] ) ); // KEYi = ?
       }
 
+      boolean sharingCache = meta.isSharedCache() && meta.getCacheSize() >= 0;
+      if ( sharingCache || meta.getBatchSize() > 1 ) {
+        data.sharedKeyMeta = new RowMeta();
+        for ( ValueMetaInterface valueMeta : data.hashRowMeta.getValueMetaList() ) {
+          ValueMetaInterface keyMeta = valueMeta.clone();
+          keyMeta.setStorageType( ValueMetaInterface.STORAGE_TYPE_NORMAL );
+          data.sharedKeyMeta.addValueMeta( keyMeta );
+        }
+      }
+      if ( meta.getBatchSize() > 1 ) {
+        if ( isBatchPossible() ) {
+          data.batchRows = new ArrayList<>( meta.getBatchSize() );
+        } else {
+          logBasic( BaseMessages.getString( PKG, "CombinationLookup.Log.BatchNotPossible" ) );
+        }
+      }
+      if ( sharingCache ) {
+        data.sharedCache = SharedCacheManager.getInstance().getCache( getSharedCacheName(), this,
+          ( key, tk ) -> SharedCache.estimateSize( key ) + SharedCache.estimateSize( tk ) );
+        if ( data.sharedCache == null ) {
+          logMinimal( BaseMessages.getString( PKG, "CombinationLookup.Log.NoRoomForSharedCache" ) );
+        } else {
+          logBasic( BaseMessages.getString( PKG, "CombinationLookup.Log.SharedCache", data.sharedCache.getStats() ) );
+        }
+      }
+
       setCombiLookup( getInputRowMeta() );
-      preloadCache( data.hashRowMeta );
+      if ( data.sharedCache != null ) {
+        // The first copy or transformation preloads the cache, the others find the keys in it
+        synchronized ( data.sharedCache ) {
+          if ( data.sharedCache.size() == 0 ) {
+            preloadCache( data.sharedKeyMeta );
+          }
+        }
+      } else {
+        preloadCache( data.hashRowMeta );
+      }
+    }
+
+    // Collect the rows of a batch, they are looked up and inserted together
+    //
+    if ( data.batchRows != null ) {
+      data.batchRows.add( r );
+      if ( data.batchRows.size() >= meta.getBatchSize() ) {
+        return processBatch();
+      }
+      return true;
     }
 
     try {
@@ -383,15 +911,7 @@ public class CombinationLookup extends BaseDatabaseStep implements StepInterface
         }
       }
     } catch ( KettleException e ) {
-      if ( getStepMeta().isDoingErrorHandling() ) {
-        putError( getInputRowMeta(), r, 1L, Const.getStackTracker( e ), null, "CBL001" );
-      } else {
-        logError( BaseMessages.getString( PKG, "CombinationLookup.Log.ErrorInStepRunning" ) + e.getMessage() );
-        setErrors( 1 );
-        stopAll();
-        setOutputDone(); // signal end to receiver(s)
-        return false;
-      }
+      return handleError( r, e );
     }
 
     return true;
@@ -477,136 +997,11 @@ public class CombinationLookup extends BaseDatabaseStep implements StepInterface
     String debug = "Combination insert";
     DatabaseMeta databaseMeta = meta.getDatabaseMeta();
     try {
-      if ( data.prepStatementInsert == null ) { // first time: construct prepared statement
-        debug = "First: construct prepared statement";
-
-        data.insertRowMeta = new RowMeta();
-
-        /*
-         * Construct the SQL statement...
-         *
-         * INSERT INTO d_test(keyfield, [crcfield,] keylookup[]) VALUES(val_key, [val_crc], row values with keynrs[]) ;
-         */
-
-        String sql = "";
-        sql += "INSERT INTO " + data.schemaTable + ( "( " );
-        boolean comma = false;
-
-        if ( !isAutoIncrement() ) {
-          // NO AUTOINCREMENT
-          sql += databaseMeta.quoteField( meta.getTechnicalKeyField() );
-          data.insertRowMeta.addValueMeta( new ValueMetaInteger( meta.getTechnicalKeyField() ) );
-          comma = true;
-        } else if ( databaseMeta.needsPlaceHolder() ) {
-          sql += "0"; // placeholder on informix! Will be replaced in table by real autoinc value.
-          data.insertRowMeta.addValueMeta( new ValueMetaInteger( meta.getTechnicalKeyField() ) );
-          comma = true;
-        }
-
-        if ( meta.useHash() ) {
-          if ( comma ) {
-            sql += ", ";
-          }
-          sql += databaseMeta.quoteField( meta.getHashField() );
-          data.insertRowMeta.addValueMeta( new ValueMetaInteger( meta.getHashField() ) );
-          comma = true;
-        }
-
-        if ( !Utils.isEmpty( meta.getLastUpdateField() ) ) {
-          if ( comma ) {
-            sql += ", ";
-          }
-          sql += databaseMeta.quoteField( meta.getLastUpdateField() );
-          data.insertRowMeta
-            .addValueMeta( new ValueMetaDate( meta.getLastUpdateField() ) );
-          comma = true;
-        }
-
-        for ( int i = 0; i < meta.getKeyLookup().length; i++ ) {
-          if ( comma ) {
-            sql += ", ";
-          }
-          sql += databaseMeta.quoteField( meta.getKeyLookup()[ i ] );
-          data.insertRowMeta.addValueMeta( rowMeta.getValueMeta( data.keynrs[ i ] ) );
-          comma = true;
-        }
-
-        sql += ") VALUES (";
-
-        comma = false;
-
-        if ( !isAutoIncrement() ) {
-          sql += '?';
-          comma = true;
-        }
-        if ( meta.useHash() ) {
-          if ( comma ) {
-            sql += ',';
-          }
-          sql += '?';
-          comma = true;
-        }
-        if ( !Utils.isEmpty( meta.getLastUpdateField() ) ) {
-          if ( comma ) {
-            sql += ',';
-          }
-          sql += '?';
-          comma = true;
-        }
-
-        for ( int i = 0; i < meta.getKeyLookup().length; i++ ) {
-          if ( comma ) {
-            sql += ',';
-          } else {
-            comma = true;
-          }
-          sql += '?';
-        }
-
-        sql += " )";
-
-        String sqlStatement = sql;
-        try {
-          debug = "First: prepare statement";
-          if ( isAutoIncrement() && databaseMeta.supportsAutoGeneratedKeys() ) {
-            logDetailed( "SQL with return keys: " + sqlStatement );
-            data.prepStatementInsert =
-              data.db.getConnection().prepareStatement(
-                databaseMeta.stripCR( sqlStatement ), Statement.RETURN_GENERATED_KEYS );
-          } else {
-            logDetailed( "SQL without return keys: " + sqlStatement );
-            data.prepStatementInsert =
-              data.db.getConnection().prepareStatement( databaseMeta.stripCR( sqlStatement ) );
-          }
-        } catch ( SQLException ex ) {
-          throw new KettleDatabaseException( "Unable to prepare combi insert statement : "
-            + Const.CR + sqlStatement, ex );
-        } catch ( Exception ex ) {
-          throw new KettleDatabaseException( "Unable to prepare combi insert statement : "
-            + Const.CR + sqlStatement, ex );
-        }
-      }
+      debug = "First: prepare statement";
+      prepareCombiInsert( rowMeta );
 
       debug = "Create new insert row rins";
-      Object[] insertRow = new Object[ data.insertRowMeta.size() ];
-      int insertIndex = 0;
-
-      if ( !isAutoIncrement() ) {
-        insertRow[ insertIndex ] = val_key;
-        insertIndex++;
-      }
-      if ( meta.useHash() ) {
-        insertRow[ insertIndex ] = val_crc;
-        insertIndex++;
-      }
-      if ( !Utils.isEmpty( meta.getLastUpdateField() ) ) {
-        insertRow[ insertIndex ] = new Date();
-        insertIndex++;
-      }
-      for ( int i = 0; i < data.keynrs.length; i++ ) {
-        insertRow[ insertIndex ] = row[ data.keynrs[ i ] ];
-        insertIndex++;
-      }
+      Object[] insertRow = getInsertRow( row, val_key, val_crc );
 
       if ( isRowLevel() ) {
         logRowlevel( "rins=" + data.insertRowMeta.getString( insertRow ) );
@@ -653,6 +1048,145 @@ public class CombinationLookup extends BaseDatabaseStep implements StepInterface
     return val_key;
   }
 
+  /**
+   * Prepares the insert statement of the combinations, the first time only
+   */
+  private void prepareCombiInsert( RowMetaInterface rowMeta ) throws KettleDatabaseException {
+    DatabaseMeta databaseMeta = meta.getDatabaseMeta();
+    if ( data.prepStatementInsert == null ) { // first time: construct prepared statement
+      data.insertRowMeta = new RowMeta();
+
+      /*
+       * Construct the SQL statement...
+       *
+       * INSERT INTO d_test(keyfield, [crcfield,] keylookup[]) VALUES(val_key, [val_crc], row values with keynrs[]) ;
+       */
+
+      String sql = "";
+      sql += "INSERT INTO " + data.schemaTable + ( "( " );
+      boolean comma = false;
+
+      if ( !isAutoIncrement() ) {
+        // NO AUTOINCREMENT
+        sql += databaseMeta.quoteField( meta.getTechnicalKeyField() );
+        data.insertRowMeta.addValueMeta( new ValueMetaInteger( meta.getTechnicalKeyField() ) );
+        comma = true;
+      } else if ( databaseMeta.needsPlaceHolder() ) {
+        sql += "0"; // placeholder on informix! Will be replaced in table by real autoinc value.
+        data.insertRowMeta.addValueMeta( new ValueMetaInteger( meta.getTechnicalKeyField() ) );
+        comma = true;
+      }
+
+      if ( meta.useHash() ) {
+        if ( comma ) {
+          sql += ", ";
+        }
+        sql += databaseMeta.quoteField( meta.getHashField() );
+        data.insertRowMeta.addValueMeta( new ValueMetaInteger( meta.getHashField() ) );
+        comma = true;
+      }
+
+      if ( !Utils.isEmpty( meta.getLastUpdateField() ) ) {
+        if ( comma ) {
+          sql += ", ";
+        }
+        sql += databaseMeta.quoteField( meta.getLastUpdateField() );
+        data.insertRowMeta
+          .addValueMeta( new ValueMetaDate( meta.getLastUpdateField() ) );
+        comma = true;
+      }
+
+      for ( int i = 0; i < meta.getKeyLookup().length; i++ ) {
+        if ( comma ) {
+          sql += ", ";
+        }
+        sql += databaseMeta.quoteField( meta.getKeyLookup()[ i ] );
+        data.insertRowMeta.addValueMeta( rowMeta.getValueMeta( data.keynrs[ i ] ) );
+        comma = true;
+      }
+
+      sql += ") VALUES (";
+
+      comma = false;
+
+      if ( !isAutoIncrement() ) {
+        sql += '?';
+        comma = true;
+      }
+      if ( meta.useHash() ) {
+        if ( comma ) {
+          sql += ',';
+        }
+        sql += '?';
+        comma = true;
+      }
+      if ( !Utils.isEmpty( meta.getLastUpdateField() ) ) {
+        if ( comma ) {
+          sql += ',';
+        }
+        sql += '?';
+        comma = true;
+      }
+
+      for ( int i = 0; i < meta.getKeyLookup().length; i++ ) {
+        if ( comma ) {
+          sql += ',';
+        } else {
+          comma = true;
+        }
+        sql += '?';
+      }
+
+      sql += " )";
+
+      String sqlStatement = sql;
+      try {
+        if ( isAutoIncrement() && databaseMeta.supportsAutoGeneratedKeys() ) {
+          logDetailed( "SQL with return keys: " + sqlStatement );
+          data.prepStatementInsert =
+            data.db.getConnection().prepareStatement(
+              databaseMeta.stripCR( sqlStatement ), Statement.RETURN_GENERATED_KEYS );
+        } else {
+          logDetailed( "SQL without return keys: " + sqlStatement );
+          data.prepStatementInsert =
+            data.db.getConnection().prepareStatement( databaseMeta.stripCR( sqlStatement ) );
+        }
+      } catch ( SQLException ex ) {
+        throw new KettleDatabaseException( "Unable to prepare combi insert statement : "
+          + Const.CR + sqlStatement, ex );
+      } catch ( Exception ex ) {
+        throw new KettleDatabaseException( "Unable to prepare combi insert statement : "
+          + Const.CR + sqlStatement, ex );
+      }
+    }
+  }
+
+  /**
+   * @return the values of the insert statement: [technical key,] [hash code,] [last update,] keys
+   */
+  private Object[] getInsertRow( Object[] row, Long val_key, Long val_crc ) {
+    Object[] insertRow = new Object[ data.insertRowMeta.size() ];
+    int insertIndex = 0;
+
+    if ( !isAutoIncrement() ) {
+      insertRow[ insertIndex ] = val_key;
+      insertIndex++;
+    }
+    if ( meta.useHash() ) {
+      insertRow[ insertIndex ] = val_crc;
+      insertIndex++;
+    }
+    if ( !Utils.isEmpty( meta.getLastUpdateField() ) ) {
+      insertRow[ insertIndex ] = new Date();
+      insertIndex++;
+    }
+    for ( int i = 0; i < data.keynrs.length; i++ ) {
+      insertRow[ insertIndex ] = row[ data.keynrs[ i ] ];
+      insertIndex++;
+    }
+    return insertRow;
+  }
+
   public boolean isRowLevel() {
     return log.isRowLevel();
   }
@@ -681,6 +1215,10 @@ public class CombinationLookup extends BaseDatabaseStep implements StepInterface
 
     if ( data.db != null ) {
       try {
+        if ( data.prepStatementBatchLookup != null ) {
+          data.db.closePreparedStatement( data.prepStatementBatchLookup );
+          data.prepStatementBatchLookup = null;
+        }
         if ( !data.db.isAutoCommit() ) {
           if ( getErrors() == 0 ) {
             data.db.commit();
@@ -693,6 +1231,18 @@ public class CombinationLookup extends BaseDatabaseStep implements StepInterface
       }
     }
 
+    if ( data.sharedCache != null ) {
+      if ( getErrors() > 0 ) {
+        // Keys of rolled back rows could have been read back from the database
+        data.sharedCache.clear();
+        logBasic( BaseMessages.getString( PKG, "CombinationLookup.Log.SharedCacheCleared" ) );
+      }
+      logDetailed( BaseMessages.getString( PKG, "CombinationLookup.Log.SharedCache", data.sharedCache.getStats() ) );
+      SharedCacheManager.getInstance().releaseCache( data.sharedCache );
+      data.sharedCache = null;
+    }
+    data.batchRows = null;
+
     super.dispose( smi, sdi );
   }
 
@@ -764,7 +1314,7 @@ public class CombinationLookup extends BaseDatabaseStep implements StepInterface
         // Assumes the technical key is at position 0 !!
         System.arraycopy( cacheRow, 1, hashRow, 0, hashRow.length );
         // Potential Cache Overflow is ahndled inside
-        addToCache( hashRowMeta, hashRow, (Long) cacheRow[ 0 ] );
+        addReadKeyToCache( hashRowMeta, hashRow, (Long) cacheRow[ 0 ] );
         incrementLinesInput();
       }
 
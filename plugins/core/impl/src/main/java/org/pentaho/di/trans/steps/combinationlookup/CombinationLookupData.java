@@ -15,9 +15,11 @@
 package org.pentaho.di.trans.steps.combinationlookup;
 
 import java.sql.PreparedStatement;
+import java.util.List;
 import java.util.Map;
 
 import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.cache.SharedCache;
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.trans.step.BaseDatabaseStepData;
@@ -33,6 +35,13 @@ public class CombinationLookupData extends BaseDatabaseStepData implements StepD
 
   public Map<RowMetaAndData, Long> cache;
 
+  /** The keys read from the database, shared with other step copies and transformations. Null if not shared. */
+  public SharedCache<RowMetaAndData, Long> sharedCache;
+  public RowMetaInterface sharedKeyMeta; // The key fields with normal storage, for the shared cache and batches
+
+  public List<Object[]> batchRows; // The input rows waiting for a batched lookup, null if not batching
+  public int uncommittedRows; // The combinations inserted by batches since the last commit
+
   public RowMetaInterface outputRowMeta;
   public RowMetaInterface lookupRowMeta;
   public RowMetaInterface insertRowMeta;
@@ -45,6 +54,8 @@ public class CombinationLookupData extends BaseDatabaseStepData implements StepD
 
   public PreparedStatement prepStatementLookup;
   public PreparedStatement prepStatementInsert;
+  public PreparedStatement prepStatementBatchLookup; // The lookup statement of a full batch
+  public int maxBatchConditions; // The combinations looked up with a single statement, 0 until the first batch
   public long smallestCacheKey;
 
   /**
@@ -146,6 +146,18 @@ public class CombinationLookupMeta extends BaseDatabaseStepMeta implements StepM
   @Injection( name = "PRELOAD_CACHE" )
   private boolean preloadCache = false;
 
+  /**
+   * Share the cache with the other copies of the step and the same lookups in other transformations, defaults to false
+   */
+  @Injection( name = "SHARED_CACHE" )
+  private boolean sharedCache = false;
+
+  /**
+   * Look up and insert the combinations of this many rows at once, 0 or 1 handles every row on its own
+   */
+  @Injection( name = "BATCH_SIZE" )
+  private int batchSize = 0;
+
   /**
    * Limit the cache size to this!
    */
@@ -307,6 +319,34 @@ public class CombinationLookupMeta extends BaseDatabaseStepMeta implements StepM
     return preloadCache;
   }
 
+  /**
+   * @param sharedCache true to share the cache with the other copies of the step and other transformations
+   */
+  public void setSharedCache( boolean sharedCache ) {
+    this.sharedCache = sharedCache;
+  }
+
+  /**
+   * @return Returns true if the cache is shared with the other copies of the step and other transformations.
+   */
+  public boolean isSharedCache() {
+    return sharedCache;
+  }
+
+  /**
+   * @param batchSize the number of rows to look up and insert at once, 0 or 1 to handle every row on its own
+   */
+  public void setBatchSize( int batchSize ) {
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * @return Returns the number of rows to look up and insert at once.
+   */
+  public int getBatchSize() {
+    return batchSize;
+  }
+
   /**
    * @return Returns the sequenceFrom.
    */
@@ -417,6 +457,8 @@ public class CombinationLookupMeta extends BaseDatabaseStepMeta implements StepM
 
       replaceFields = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "replace" ) );
       preloadCache = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "preloadCache" ) );
+      sharedCache = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "sharedCache" ) );
+      batchSize = Const.toInt( XMLHandler.getTagValue( stepnode, "batch_size" ), 0 );
       useHash = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "crc" ) );
 
       hashField = XMLHandler.getTagValue( stepnode, "crcfield" );
@@ -458,6 +500,8 @@ public class CombinationLookupMeta extends BaseDatabaseStepMeta implements StepM
     cacheSize = DEFAULT_CACHE_SIZE;
     replaceFields = false;
     preloadCache = false;
+    sharedCache = false;
+    batchSize = 0;
     useHash = false;
     hashField = "hashcode";
     int nrkeys = 0;
@@ -505,6 +549,8 @@ public class CombinationLookupMeta extends BaseDatabaseStepMeta implements StepM
     retval.append( "      " ).append( XMLHandler.addTagValue( "cache_size", cacheSize ) );
     retval.append( "      " ).append( XMLHandler.addTagValue( "replace", replaceFields ) );
     retval.append( "      " ).append( XMLHandler.addTagValue( "preloadCache", preloadCache ) );
+    retval.append( "      " ).append( XMLHandler.addTagValue( "sharedCache", sharedCache ) );
+    retval.append( "      " ).append( XMLHandler.addTagValue( "batch_size", batchSize ) );
     retval.append( "      " ).append( XMLHandler.addTagValue( "crc", useHash ) );
     retval.append( "      " ).append( XMLHandler.addTagValue( "crcfield", hashField ) );
 
@@ -544,6 +590,8 @@ public class CombinationLookupMeta extends BaseDatabaseStepMeta implements StepM
       cacheSize = (int) rep.getStepAttributeInteger( id_step, "cache_size" );
       replaceFields = rep.getStepAttributeBoolean( id_step, "replace" );
       preloadCache = rep.getStepAttributeBoolean( id_step, "preloadCache" );
+      sharedCache = rep.getStepAttributeBoolean( id_step, "sharedCache" );
+      batchSize = (int) rep.getStepAttributeInteger( id_step, "batch_size" );
       useHash = rep.getStepAttributeBoolean( id_step, "crc" );
       hashField = rep.getStepAttributeString( id_step, "crcfield" );
 
@@ -578,6 +626,8 @@ public class CombinationLookupMeta extends BaseDatabaseStepMeta implements StepM
       rep.saveStepAttribute( id_transformation, id_step, "cache_size", cacheSize );
       rep.saveStepAttribute( id_transformation, id_step, "replace", replaceFields );
       rep.saveStepAttribute( id_transformation, id_step, "preloadCache", preloadCache );
+      rep.saveStepAttribute( id_transformation, id_step, "sharedCache", sharedCache );
+      rep.saveStepAttribute( id_transformation, id_step, "batch_size", batchSize );
 
       rep.saveStepAttribute( id_transformation, id_step, "crc", useHash );
       rep.saveStepAttribute( id_transformation, id_step, "crcfield", hashField );
@@ -1074,6 +1124,12 @@ public class CombinationLookupMeta extends BaseDatabaseStepMeta implements StepM
     if ( getPreloadCache() != o.getPreloadCache() ) {
       return false;
     }
+    if ( isSharedCache() != o.isSharedCache() ) {
+      return false;
+    }
+    if ( getBatchSize() != o.getBatchSize() ) {
+      return false;
+    }
     if ( ( getSequenceFrom() == null && o.getSequenceFrom() != null )
       || ( getSequenceFrom() != null && o.getSequenceFrom() == null )
       || ( getSequenceFrom() != null && o.getSequenceFrom() != null && !getSequenceFrom().equals(
@@ -1117,7 +1173,8 @@ public class CombinationLookupMeta extends BaseDatabaseStepMeta implements StepM
   @Override
   public int hashCode() {
     return Objects.hash( getCommitSize(), getCacheSize(), getTechKeyCreation(), replaceFields(), useHash(),
-      getPreloadCache(), getSequenceFrom(), getSchemaName(), getTableName(), getHashField(), getTechnicalKeyField() );
+      getPreloadCache(), isSharedCache(), getBatchSize(), getSequenceFrom(), getSchemaName(), getTableName(),
+      getHashField(), getTechnicalKeyField() );
   }
 
   /**
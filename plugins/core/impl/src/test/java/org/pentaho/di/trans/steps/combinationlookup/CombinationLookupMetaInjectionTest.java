@@ -85,6 +85,16 @@ public class CombinationLookupMetaInjectionTest extends BaseMetadataInjectionTes
         return meta.getPreloadCache();
       }
     } );
+    check( "SHARED_CACHE", new BooleanGetter() {
+      public boolean get() {
+        return meta.isSharedCache();
+      }
+    } );
+    check( "BATCH_SIZE", new IntGetter() {
+      public int get() {
+        return meta.getBatchSize();
+      }
+    } );
     check( "CACHE_SIZE", new IntGetter() {
       public int get() {
         return meta.getCacheSize();
@@ -17,26 +17,51 @@ package org.pentaho.di.trans.steps.combinationlookup;
 import org.junit.Before;
 import org.junit.ClassRule;
 import org.junit.Test;
+import org.pentaho.di.core.RowMetaAndData;
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.exception.KettleDatabaseException;
+import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaString;
 import org.pentaho.di.junit.rules.RestorePDIEnvironment;
 import org.pentaho.di.trans.Trans;
 import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.step.RowHandler;
 import org.pentaho.di.trans.step.StepMeta;
 import org.pentaho.di.trans.step.StepPartitioningMeta;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class CombinationLookupTest {
   @ClassRule public static RestorePDIEnvironment env = new RestorePDIEnvironment();
@@ -52,6 +77,7 @@ public class CombinationLookupTest {
   public void setup() {
     databaseMeta = mock( DatabaseMeta.class );
     doReturn( "" ).when( databaseMeta ).quoteField( anyString() );
+    doReturn( Integer.MAX_VALUE ).when( databaseMeta ).getMaxLookupKeys( anyInt(), anyBoolean() );
 
     combinationLookupMeta = mock( CombinationLookupMeta.class );
     doReturn( databaseMeta ).when( combinationLookupMeta ).getDatabaseMeta();
@@ -85,4 +111,203 @@ public class CombinationLookupTest {
     combinationLookup.combiInsert( any( RowMetaInterface.class ), any( Object[].class ), anyLong(), anyLong() );
     verify( databaseMeta, times( 2 ) ).supportsAutoGeneratedKeys();
   }
+
+  @Test
+  public void testBatchLookupSqlWithHash() {
+    doAnswer( returnsFirstArg() ).when( databaseMeta ).quoteField( anyString() );
+    doReturn( new String[] { "k1", "k2" } ).when( combinationLookupMeta ).getKeyLookup();
+    doReturn( true ).when( combinationLookupMeta ).useHash();
+    doReturn( "hashcode" ).when( combinationLookupMeta ).getHashField();
+    combinationLookupData.schemaTable = "dim";
+
+    assertEquals( "SELECT sasas, k1, k2 FROM dim WHERE hashcode IN ( ?, ?, ? )",
+      combinationLookup.getBatchLookupSQL( 3 ) );
+  }
+
+  @Test
+  public void testBatchLookupSqlWithoutHash() {
+    doAnswer( returnsFirstArg() ).when( databaseMeta ).quoteField( anyString() );
+    doReturn( new String[] { "k1", "k2" } ).when( combinationLookupMeta ).getKeyLookup();
+    combinationLookupData.schemaTable = "dim";
+
+    assertEquals( "SELECT sasas, k1, k2 FROM dim WHERE "
+        + "( ( k1 = ? OR ( k1 IS NULL AND ? IS NULL ) ) AND ( k2 = ? OR ( k2 IS NULL AND ? IS NULL ) ) ) OR "
+        + "( ( k1 = ? OR ( k1 IS NULL AND ? IS NULL ) ) AND ( k2 = ? OR ( k2 IS NULL AND ? IS NULL ) ) )",
+      combinationLookup.getBatchLookupSQL( 2 ) );
+  }
+
+  @Test
+  public void testLookupCombinationsMatchesTheKeysAndKeepsTheSmallestKey() throws Exception {
+    doReturn( new String[] { "k1" } ).when( combinationLookupMeta ).getKeyLookup();
+    doReturn( new String[] { "f1" } ).when( combinationLookupMeta ).getKeyField();
+    doReturn( true ).when( combinationLookupMeta ).useHash();
+    doReturn( "hashcode" ).when( combinationLookupMeta ).getHashField();
+    doReturn( 100 ).when( combinationLookupMeta ).getBatchSize();
+    combinationLookupData.schemaTable = "dim";
+    combinationLookupData.keynrs = new int[] { 0 };
+    combinationLookupData.hashRowMeta = new RowMeta();
+    combinationLookupData.hashRowMeta.addValueMeta( new ValueMetaString( "f1" ) );
+    combinationLookupData.sharedKeyMeta = combinationLookupData.hashRowMeta.clone();
+
+    RowMetaInterface resultMeta = new RowMeta();
+    resultMeta.addValueMeta( new ValueMetaInteger( "sasas" ) );
+    resultMeta.addValueMeta( new ValueMetaString( "k1" ) );
+    Database db = combinationLookupData.db;
+    PreparedStatement ps = mock( PreparedStatement.class );
+    ResultSet rs = mock( ResultSet.class );
+    doReturn( ps ).when( db ).prepareSQL( anyString() );
+    doReturn( rs ).when( db ).openQuery( any( PreparedStatement.class ), any( RowMetaInterface.class ),
+      any( Object[].class ) );
+    doReturn( resultMeta ).when( db ).getReturnRowMeta();
+    // A combination with the same hash code and a combination that was inserted twice
+    when( db.getRow( rs ) ).thenReturn( new Object[] { 5L, "a" }, new Object[] { 7L, "c" },
+      new Object[] { 3L, "a" }, null );
+
+    Map<RowMetaAndData, Long> found =
+      combinationLookup.lookupCombinations( Arrays.asList( new Object[] { "a" }, new Object[] { "b" } ) );
+
+    assertEquals( 2, found.size() );
+    assertEquals( Long.valueOf( 3L ), found.get( new RowMetaAndData( combinationLookupData.sharedKeyMeta, "a" ) ) );
+    assertEquals( Long.valueOf( 7L ), found.get( new RowMetaAndData( combinationLookupData.sharedKeyMeta, "c" ) ) );
+    verify( db ).closeQuery( rs );
+    verify( db ).closePreparedStatement( ps );
+  }
+
+  @Test
+  public void testLookupCombinationsSplitsTheConditionsOverTheStatementsTheDatabaseAllows() throws Exception {
+    doReturn( new String[] { "k1" } ).when( combinationLookupMeta ).getKeyLookup();
+    doReturn( new String[] { "f1" } ).when( combinationLookupMeta ).getKeyField();
+    doReturn( true ).when( combinationLookupMeta ).useHash();
+    doReturn( "hashcode" ).when( combinationLookupMeta ).getHashField();
+    doReturn( 100 ).when( combinationLookupMeta ).getBatchSize();
+    doReturn( 1 ).when( databaseMeta ).getMaxLookupKeys( 1, true );
+    combinationLookupData.schemaTable = "dim";
+    combinationLookupData.keynrs = new int[] { 0 };
+    combinationLookupData.hashRowMeta = new RowMeta();
+    combinationLookupData.hashRowMeta.addValueMeta( new ValueMetaString( "f1" ) );
+    combinationLookupData.sharedKeyMeta = combinationLookupData.hashRowMeta.clone();
+
+    RowMetaInterface resultMeta = new RowMeta();
+    resultMeta.addValueMeta( new ValueMetaInteger( "sasas" ) );
+    resultMeta.addValueMeta( new ValueMetaString( "k1" ) );
+    Database db = combinationLookupData.db;
+    PreparedStatement ps = mock( PreparedStatement.class );
+    ResultSet rs = mock( ResultSet.class );
+    doReturn( ps ).when( db ).prepareSQL( anyString() );
+    doReturn( rs ).when( db ).openQuery( any( PreparedStatement.class ), any( RowMetaInterface.class ),
+      any( Object[].class ) );
+    doReturn( resultMeta ).when( db ).getReturnRowMeta();
+    when( db.getRow( rs ) ).thenReturn( new Object[] { 1L, "a" }, null, new Object[] { 2L, "b" }, null );
+
+    Map<RowMetaAndData, Long> found =
+      combinationLookup.lookupCombinations( Arrays.asList( new Object[] { "a" }, new Object[] { "b" } ) );
+
+    assertEquals( 2, found.size() );
+    assertEquals( Long.valueOf( 1L ), found.get( new RowMetaAndData( combinationLookupData.sharedKeyMeta, "a" ) ) );
+    assertEquals( Long.valueOf( 2L ), found.get( new RowMetaAndData( combinationLookupData.sharedKeyMeta, "b" ) ) );
+    // Two queries with the statement of a full batch
+    verify( db, times( 2 ) ).closeQuery( rs );
+    verify( db, times( 1 ) ).prepareSQL( anyString() );
+    verify( db, never() ).closePreparedStatement( ps );
+  }
+
+  @Test
+  public void testNoBatchForStringKeysTheDatabaseComparesDifferently() throws Exception {
+    doReturn( new String[] { "k1", "k2" } ).when( combinationLookupMeta ).getKeyLookup();
+    doReturn( true ).when( databaseMeta ).isStringComparisonExact();
+    combinationLookupData.schemaTable = "dim";
+    RowMetaInterface tableFields = new RowMeta();
+    tableFields.addValueMeta( new ValueMetaInteger( "k1" ) );
+    ValueMetaString k2 = new ValueMetaString( "k2" );
+    k2.setOriginalColumnType( Types.VARCHAR );
+    tableFields.addValueMeta( k2 );
+    doReturn( tableFields ).when( combinationLookupData.db ).getTableFields( "dim" );
+
+    assertTrue( combinationLookup.isBatchPossible() );
+
+    // Fixed length columns are padded with spaces
+    k2.setOriginalColumnType( Types.CHAR );
+    assertFalse( combinationLookup.isBatchPossible() );
+
+    // Case insensitive collations
+    k2.setOriginalColumnType( Types.VARCHAR );
+    doReturn( false ).when( databaseMeta ).isStringComparisonExact();
+    assertFalse( combinationLookup.isBatchPossible() );
+
+    // Other keys are compared exactly
+    doReturn( new String[] { "k1" } ).when( combinationLookupMeta ).getKeyLookup();
+    assertTrue( combinationLookup.isBatchPossible() );
+  }
+
+  @Test
+  public void testFailedBatchIsRolledBackAndItsCombinationsLookedUpAgain() throws Exception {
+    doReturn( new String[] { "k1" } ).when( combinationLookupMeta ).getKeyLookup();
+    doReturn( new String[] { "f1" } ).when( combinationLookupMeta ).getKeyField();
+    doReturn( true ).when( combinationLookupMeta ).useHash();
+    doReturn( "hashcode" ).when( combinationLookupMeta ).getHashField();
+    doReturn( 2 ).when( combinationLookupMeta ).getBatchSize();
+    doReturn( true ).when( stepMeta ).isDoingErrorHandling();
+
+    RowMetaInterface inputRowMeta = new RowMeta();
+    inputRowMeta.addValueMeta( new ValueMetaString( "f1" ) );
+    combinationLookup.setInputRowMeta( inputRowMeta );
+    combinationLookupData.outputRowMeta = inputRowMeta.clone();
+    combinationLookupData.outputRowMeta.addValueMeta( new ValueMetaInteger( "sasas" ) );
+    combinationLookupData.schemaTable = "dim";
+    combinationLookupData.keynrs = new int[] { 0 };
+    combinationLookupData.hashRowMeta = inputRowMeta.clone();
+    combinationLookupData.sharedKeyMeta = inputRowMeta.clone();
+    combinationLookupData.insertRowMeta = new RowMeta();
+    combinationLookupData.prepStatementInsert = mock( PreparedStatement.class );
+    combinationLookupData.cache = new HashMap<>();
+    combinationLookupData.cache.put( new RowMetaAndData( inputRowMeta, "inserted before" ), 1L );
+    combinationLookupData.batchRows = new ArrayList<>( Arrays.asList( new Object[] { "a" }, new Object[] { "b" } ) );
+    combinationLookup.first = false;
+
+    RowMetaInterface resultMeta = new RowMeta();
+    resultMeta.addValueMeta( new ValueMetaInteger( "sasas" ) );
+    resultMeta.addValueMeta( new ValueMetaString( "k1" ) );
+    Database db = combinationLookupData.db;
+    ResultSet rs = mock( ResultSet.class );
+    doReturn( mock( PreparedStatement.class ) ).when( db ).prepareSQL( anyString() );
+    doReturn( rs ).when( db ).openQuery( any( PreparedStatement.class ), any( RowMetaInterface.class ),
+      any( Object[].class ) );
+    doReturn( resultMeta ).when( db ).getReturnRowMeta();
+    // Nothing is found before the insert, another transformation inserted "a" by the time it failed
+    when( db.getRow( rs ) ).thenReturn( null, new Object[] { 5L, "a" }, null );
+    doThrow( new KettleDatabaseException( "Duplicate key" ) ).when( db )
+      .executeAndClearBatch( combinationLookupData.prepStatementInsert );
+
+    List<Object[]> output = new ArrayList<>();
+    List<Object[]> errors = new ArrayList<>();
+    combinationLookup.setRowHandler( new RowHandler() {
+      @Override
+      public Object[] getRow() {
+        return null;
+      }
+
+      @Override
+      public void putRow( RowMetaInterface rowMeta, Object[] row ) {
+        output.add( row );
+      }
+
+      @Override
+      public void putError( RowMetaInterface rowMeta, Object[] row, long nrErrors, String errorDescriptions,
+                            String fieldNames, String errorCodes ) {
+        errors.add( row );
+      }
+    } );
+
+    assertFalse( combinationLookup.processRow( combinationLookupMeta, combinationLookupData ) );
+
+    verify( db ).clearBatch( combinationLookupData.prepStatementInsert );
+    verify( db ).rollback();
+    assertEquals( 1, output.size() );
+    assertArrayEquals( new Object[] { "a", 5L }, output.get( 0 ) );
+    assertEquals( 1, errors.size() );
+    assertArrayEquals( new Object[] { "b" }, errors.get( 0 ) );
+    // The keys of rolled back rows are gone, the key found again is cached
+    assertEquals( 1, combinationLookupData.cache.size() );
+    assertEquals( Long.valueOf( 5L ), combinationLookupData.cache.get( new RowMetaAndData( inputRowMeta, "a" ) ) );
+  }
 }
@@ -19,6 +19,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.BitSet;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.NotImplementedException;
 import org.apache.commons.vfs2.FileObject;
 import org.apache.commons.vfs2.FileSystemException;
@@ -44,6 +45,7 @@ import org.pentaho.di.trans.steps.jsoninput.exception.JsonInputException;
 import org.pentaho.di.trans.steps.jsoninput.reader.FastJsonReader;
 import org.pentaho.di.trans.steps.jsoninput.reader.InputsReader;
 import org.pentaho.di.trans.steps.jsoninput.reader.RowOutputConverter;
+import org.pentaho.di.trans.steps.jsoninput.reader.StreamingJsonReader;
 
 /**
  * Read Json files, parse them and convert them to rows and writes these to one or more output streams.
@@ -80,9 +82,20 @@ public class JsonInput extends BaseFileInputStep<JsonInputMeta, JsonInputData> i
     }
     try {
       // Init a new JSON reader
-      data.reader =
-        new FastJsonReader( this, meta.getInputFields(), meta.isDefaultPathLeafToNull(), meta.isIgnoreMissingPath(),
-          meta.isIncludeNulls(), log );
+      if ( meta.isStreaming() ) {
+        StreamingJsonReader streamingReader = new StreamingJsonReader( this, meta.getInputFields(),
+          meta.isIgnoreMissingPath(), meta.isIncludeNulls(), log );
+        if ( streamingReader.isSupported() ) {
+          data.reader = streamingReader;
+        } else {
+          logBasic( BaseMessages.getString( PKG, "JsonInput.Log.StreamingNotSupported" ) );
+        }
+      }
+      if ( data.reader == null ) {
+        data.reader =
+          new FastJsonReader( this, meta.getInputFields(), meta.isDefaultPathLeafToNull(), meta.isIgnoreMissingPath(),
+            meta.isIncludeNulls(), log );
+      }
     } catch ( KettleException e ) {
       logError( e.getMessage() );
       return false;
@@ -250,16 +263,36 @@ public class JsonInput extends BaseFileInputStep<JsonInputMeta, JsonInputData> i
   private void parseNextInputToRowSet( InputStream input ) throws KettleException {
     try {
       data.readerRowSet = data.reader.parse( input );
-      input.close();
+      if ( !data.reader.isStreaming() ) {
+        input.close();
+      }
     } catch ( KettleException ke ) {
+      IOUtils.closeQuietly( input );
       logInputError( ke );
       throw new JsonInputException( ke );
     } catch ( Exception e ) {
+      IOUtils.closeQuietly( input );
       logInputError( e );
       throw new JsonInputException( e );
     }
   }
 
+  /**
+   * A streaming reader reads its input while the rows are fetched, so the errors show up here
+   */
+  private Object[] getReaderRow() throws KettleException {
+    try {
+      return data.readerRowSet.getRow();
+    } catch ( StreamingJsonReader.ReadException e ) {
+      if ( e.getCause() instanceof KettleException ) {
+        logInputError( (KettleException) e.getCause() );
+      } else {
+        logInputError( (Exception) e.getCause() );
+      }
+      throw new JsonInputException( e.getCause() );
+    }
+  }
+
   private void logInputError( KettleException e ) {
     logError( e.getLocalizedMessage(), e );
     inputError( e.getLocalizedMessage() );
@@ -315,19 +348,14 @@ public class JsonInput extends BaseFileInputStep<JsonInputMeta, JsonInputData> i
       return null;
     }
     Object[] rawReaderRow;
-    while ( ( rawReaderRow = data.readerRowSet.getRow() ) == null ) {
+    while ( ( rawReaderRow = getReaderRow() ) == null ) {
       if ( data.inputs.hasNext() && data.readerRowSet.isDone() ) {
-        try ( InputStream nextIn = data.inputs.next() ) {
-
-          if ( nextIn != null ) {
-            parseNextInputToRowSet( nextIn );
-          } else {
-            parseNextInputToRowSet( new ByteArrayInputStream( EMPTY_JSON ) );
-          }
-
-        } catch ( IOException e ) {
-          logError( BaseMessages.getString( PKG, "JsonInput.Log.UnexpectedError", e.toString() ), e );
-          incrementErrors();
+        // the reader closes the input
+        InputStream nextIn = data.inputs.next();
+        if ( nextIn != null ) {
+          parseNextInputToRowSet( nextIn );
+        } else {
+          parseNextInputToRowSet( new ByteArrayInputStream( EMPTY_JSON ) );
         }
       } else {
         if ( isDetailed() ) {
@@ -463,6 +491,10 @@ public class JsonInput extends BaseFileInputStep<JsonInputMeta, JsonInputData> i
     }
     data.previousRow = null;
     data.readrow = null;
+    if ( null != data.readerRowSet ) {
+      // Stop reading a streamed input
+      data.readerRowSet.clear();
+    }
     if ( null != data.inputs ) {
       // Make sure everything was closed.
       try {
@@ -81,6 +81,7 @@ public class JsonInputMeta extends
     BaseMessages.getString( PKG, "System.Combo.No" ), BaseMessages.getString( PKG, "System.Combo.Yes" ) };
 
   private static final String INCLUDE_NULLS = "includeNulls";
+  private static final String STREAMING = "streaming";
 
   // TextFileInputMeta.Content.includeFilename
   /** Flag indicating that we should include the filename in the output */
@@ -234,6 +235,10 @@ public class JsonInputMeta extends
 
   private boolean includeNulls;
 
+  /** Flag : read the input while the rows are produced instead of parsing it as a whole first */
+  @Injection( name = "STREAMING" )
+  private boolean streaming;
+
   public JsonInputMeta() {
     additionalOutputFields = new JsonInputMeta.AdditionalFileOutputFields();
     inputFiles = new JsonInputMeta.InputFiles();
@@ -268,6 +273,20 @@ public class JsonInputMeta extends
     this.includeNulls = includeNulls;
   }
 
+  /** Returns the streaming boolean
+   * @return streaming
+   */
+  public boolean isStreaming() {
+    return streaming;
+  }
+
+  /** Sets the streaming boolean
+   * @param streaming the streaming to set
+   */
+  public void setStreaming( boolean streaming ) {
+    this.streaming = streaming;
+  }
+
   /**
    * @return Returns the shortFileFieldName.
    */
@@ -638,6 +657,7 @@ public class JsonInputMeta extends
     retval.append( "    " + XMLHandler.addTagValue( "ignoreMissingPath", ignoreMissingPath ) );
     retval.append( "    " + XMLHandler.addTagValue( "defaultPathLeafToNull", defaultPathLeafToNull ) );
     retval.append( "    " + XMLHandler.addTagValue( INCLUDE_NULLS, includeNulls ) );
+    retval.append( "    " + XMLHandler.addTagValue( STREAMING, streaming ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "rownum_field", rowNumberField ) );
 
     retval.append( "    <file>" ).append( Const.CR );
@@ -698,6 +718,7 @@ public class JsonInputMeta extends
       ignoreMissingPath = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "ignoreMissingPath" ) );
       defaultPathLeafToNull = getDefaultPathLeafToNull( stepnode );
       includeNulls = getincludeNulls( stepnode );
+      streaming = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, STREAMING ) );
       doNotFailIfNoFile = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "doNotFailIfNoFile" ) );
       includeRowNumber = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "rownum" ) );
       rowNumberField = XMLHandler.getTagValue( stepnode, "rownum_field" );
@@ -792,6 +813,7 @@ public class JsonInputMeta extends
     ignoreMissingPath = true;
     defaultPathLeafToNull = true;
     includeNulls = getIncludeNullsProperty();
+    streaming = false;
     doNotFailIfNoFile = true;
     includeFilename = false;
     filenameField = "";
@@ -876,6 +898,7 @@ public class JsonInputMeta extends
       ignoreMissingPath = rep.getStepAttributeBoolean( id_step, "ignoreMissingPath" );
       defaultPathLeafToNull = rep.getStepAttributeBoolean( id_step, 0, "defaultPathLeafToNull", true );
       includeNulls = rep.getStepAttributeBoolean( id_step, 0, INCLUDE_NULLS, getIncludeNullsProperty() );
+      streaming = rep.getStepAttributeBoolean( id_step, STREAMING );
 
       doNotFailIfNoFile = rep.getStepAttributeBoolean( id_step, "doNotFailIfNoFile" );
 
@@ -948,6 +971,7 @@ public class JsonInputMeta extends
       rep.saveStepAttribute( id_transformation, id_step, "ignoreMissingPath", ignoreMissingPath );
       rep.saveStepAttribute( id_transformation, id_step, "defaultPathLeafToNull", defaultPathLeafToNull );
       rep.saveStepAttribute( id_transformation, id_step, INCLUDE_NULLS, includeNulls );
+      rep.saveStepAttribute( id_transformation, id_step, STREAMING, streaming );
 
       rep.saveStepAttribute( id_transformation, id_step, "doNotFailIfNoFile", doNotFailIfNoFile );
 
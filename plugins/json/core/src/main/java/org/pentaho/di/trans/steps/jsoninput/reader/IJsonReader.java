@@ -25,4 +25,12 @@ public interface IJsonReader {
    * Parse compiled Json Paths into a rowset
    */
   RowSet parse( InputStream in ) throws KettleException;
+
+  /**
+   * @return true if the input is read while the rows are fetched from the rowset, which closes it once all rows are
+   * read; false if the input is read by {@link #parse(InputStream)}
+   */
+  default boolean isStreaming() {
+    return false;
+  }
 }
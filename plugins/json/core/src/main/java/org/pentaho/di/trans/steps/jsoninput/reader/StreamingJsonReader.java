@@ -0,0 +1,548 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.trans.steps.jsoninput.reader;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import net.minidev.json.JSONArray;
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.RowSet;
+import org.pentaho.di.core.SingleRowRowSet;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.logging.LogChannelInterface;
+import org.pentaho.di.i18n.BaseMessages;
+import org.pentaho.di.trans.steps.jsoninput.JsonInput;
+import org.pentaho.di.trans.steps.jsoninput.JsonInputField;
+import org.pentaho.di.trans.steps.jsoninput.JsonInputMeta;
+import org.pentaho.di.trans.steps.jsoninput.exception.JsonInputException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the rows from a stream of JSON tokens while they are fetched, without building the document first. A row is
+ * returned as soon as the element it is read from is complete, so only the values of the current row are kept in
+ * memory. Several documents in one input, like newline delimited JSON, are read one after the other.<br>
+ * <br>
+ * Only paths made of names ({@code .name} or {@code ['name']}), array indexes ({@code [0]}) and wildcards
+ * ({@code [*]} or {@code .*}) are supported. The paths with a wildcard have to be the same up to and including their
+ * last wildcard: every element found there gives a row, the rest of each path is looked up inside that element and
+ * gives null when it is missing. Without wildcards every document gives a row. See {@link #isSupported()}.
+ *
+ * @since 11.1
+ */
+public class StreamingJsonReader implements IJsonReader {
+  private static Class<?> PKG = JsonInputMeta.class; // for i18n purposes, needed by Translator2!!
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  private final boolean ignoreMissingPath;
+  private final boolean includeNulls;
+  private final LogChannelInterface log;
+
+  private JsonInputField[] inputFields;
+
+  /**
+   * The steps to the elements the rows are read from, null if the paths aren't supported
+   */
+  private PathStep[] rowPath;
+
+  /**
+   * The rest of the paths, starting at the elements the rows are read from
+   */
+  private FieldNode fieldTree;
+
+  public StreamingJsonReader( JsonInput step, JsonInputField[] inputFields, boolean ignoreMissingPath,
+                              boolean includeNulls, LogChannelInterface log ) {
+    this.ignoreMissingPath = ignoreMissingPath;
+    this.includeNulls = includeNulls;
+    this.log = log;
+
+    setInputFields( step, inputFields );
+  }
+
+  private void setInputFields( JsonInput step, JsonInputField[] inputFields ) {
+    this.inputFields = inputFields == null ? new JsonInputField[ 0 ] : inputFields;
+
+    List<PathStep[]> paths = new ArrayList<>( this.inputFields.length );
+    for ( JsonInputField inputField : this.inputFields ) {
+      String path;
+      if ( System.getProperty( Const.KETTLE_COMPATIBILITY_JSON_INPUT_LEGACY_MODE, "N" ).equals( "Y" ) ) {
+        path = step.environmentSubstitute( inputField.getPath(), false ).trim();
+      } else {
+        path = step.environmentSubstitute( inputField.getPath(), true );
+      }
+      PathStep[] steps = compile( path );
+      if ( steps == null ) {
+        return;
+      }
+      paths.add( steps );
+    }
+
+    // All paths with a wildcard share the steps up to their last wildcard, the others have no wildcards at all
+    //
+    PathStep[] prefix = null;
+    for ( PathStep[] steps : paths ) {
+      PathStep[] stepsPrefix = Arrays.copyOf( steps, lastWildcard( steps ) + 1 );
+      if ( prefix != null && !Arrays.equals( prefix, stepsPrefix ) ) {
+        return;
+      }
+      prefix = stepsPrefix;
+    }
+    rowPath = prefix == null ? new PathStep[ 0 ] : prefix;
+
+    fieldTree = new FieldNode();
+    for ( int i = 0; i < paths.size(); i++ ) {
+      PathStep[] steps = paths.get( i );
+      FieldNode node = fieldTree;
+      for ( int s = rowPath.length; s < steps.length; s++ ) {
+        node = node.getChild( steps[ s ] );
+      }
+      node.fields.set( i );
+    }
+  }
+
+  /**
+   * @return true if the paths of all fields can be read from a stream, false if the input has to be read with
+   * {@link FastJsonReader}
+   */
+  public boolean isSupported() {
+    return rowPath != null;
+  }
+
+  @Override
+  public boolean isStreaming() {
+    return true;
+  }
+
+  @Override
+  public RowSet parse( InputStream in ) throws KettleException {
+    if ( !isSupported() ) {
+      throw new KettleException( BaseMessages.getString( PKG, "JsonInput.Error.StreamingNotSupported" ) );
+    }
+    try {
+      JsonParser parser = JSON_FACTORY.createParser( in );
+      parser.enable( JsonParser.Feature.ALLOW_COMMENTS );
+      return new StreamingRowSet( parser );
+    } catch ( IOException e ) {
+      try {
+        in.close();
+      } catch ( IOException ignored ) {
+        // the error of the parser is reported
+      }
+      throw new JsonInputException( e );
+    }
+  }
+
+  /**
+   * Thrown when the input can't be read while the rows are fetched, the cause is the actual error.
+   */
+  public static class ReadException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    ReadException( Exception cause ) {
+      super( cause );
+    }
+  }
+
+  private class StreamingRowSet extends SingleRowRowSet {
+    private JsonParser parser;
+    private final Deque<Frame> frames = new ArrayDeque<>();
+
+    private boolean inDocument;
+    private long elements;
+    private long documentRows;
+    private final BitSet found = new BitSet();
+
+    StreamingRowSet( JsonParser parser ) {
+      super();
+      this.parser = parser;
+    }
+
+    @Override
+    public Object[] getRow() {
+      if ( parser == null ) {
+        return null;
+      }
+      try {
+        Object[] row = nextRow();
+        if ( row == null ) {
+          clear();
+        }
+        return row;
+      } catch ( IOException | KettleException e ) {
+        clear();
+        throw new ReadException( e );
+      }
+    }
+
+    @Override
+    public boolean isDone() {
+      // the rows are read on request
+      return true;
+    }
+
+    @Override
+    public void clear() {
+      if ( parser != null ) {
+        try {
+          parser.close();
+        } catch ( IOException e ) {
+          log.logError( e.getLocalizedMessage(), e );
+        }
+        parser = null;
+      }
+    }
+
+    private Object[] nextRow() throws IOException, KettleException {
+      while ( true ) {
+        if ( frames.isEmpty() ) {
+          if ( inDocument ) {
+            inDocument = false;
+            Object[] row = endDocument();
+            if ( row != null ) {
+              return row;
+            }
+          }
+          JsonToken token = parser.nextToken();
+          if ( token == null ) {
+            return null;
+          }
+          inDocument = true;
+          elements = 0;
+          documentRows = 0;
+          found.clear();
+          if ( rowPath.length == 0 ) {
+            Object[] row = readElement();
+            if ( row != null ) {
+              return row;
+            }
+          } else if ( token.isStructStart() ) {
+            frames.push( new Frame( 0, token == JsonToken.START_ARRAY ) );
+          }
+          continue;
+        }
+
+        Frame frame = frames.peek();
+        JsonToken token = parser.nextToken();
+        if ( token == null ) {
+          throw new IOException( "Unexpected end of input" );
+        }
+        if ( token.isStructEnd() ) {
+          frames.pop();
+          continue;
+        }
+        boolean matches;
+        if ( frame.array ) {
+          matches = rowPath[ frame.depth ].matches( ++frame.index );
+        } else {
+          matches = rowPath[ frame.depth ].matches( parser.getCurrentName() );
+          token = parser.nextToken();
+        }
+        if ( !matches ) {
+          parser.skipChildren();
+          continue;
+        }
+        int depth = frame.depth + 1;
+        if ( depth == rowPath.length ) {
+          Object[] row = readElement();
+          if ( row != null ) {
+            return row;
+          }
+        } else if ( token.isStructStart() ) {
+          frames.push( new Frame( depth, token == JsonToken.START_ARRAY ) );
+        } else {
+          // a value where more steps are expected
+          parser.skipChildren();
+        }
+      }
+    }
+
+    /**
+     * @return the row of the element at the current token or null if it is skipped
+     */
+    private Object[] readElement() throws IOException {
+      elements++;
+      Object[] row = new Object[ inputFields.length ];
+      readFields( fieldTree, row );
+
+      boolean allNulls = true;
+      for ( int i = 0; i < row.length; i++ ) {
+        if ( row[ i ] != null ) {
+          found.set( i );
+          allNulls = false;
+        }
+      }
+      if ( allNulls && !includeNulls && row.length > 0 ) {
+        return null;
+      }
+      documentRows++;
+      return row;
+    }
+
+    /**
+     * Like the whole document being parsed: a single row of nulls when nothing was found
+     *
+     * @return the last row of the document or null if there is none
+     */
+    private Object[] endDocument() throws KettleException {
+      if ( log.isDetailed() ) {
+        log.logDetailed( BaseMessages.getString( PKG, "JsonInput.Log.NrRecords", elements ) );
+      }
+      if ( !ignoreMissingPath ) {
+        for ( int i = 0; i < inputFields.length; i++ ) {
+          if ( !found.get( i ) ) {
+            throw new JsonInputException(
+              BaseMessages.getString( PKG, "JsonReader.Error.CanNotFindPath", inputFields[ i ].getPath() ) );
+          }
+        }
+      }
+      return documentRows == 0 && elements <= 1 ? new Object[ inputFields.length ] : null;
+    }
+
+    private void readFields( FieldNode node, Object[] row ) throws IOException {
+      if ( !node.fields.isEmpty() ) {
+        // A field takes the whole value: look up the others in the value read
+        setFields( node, readValue(), row );
+        return;
+      }
+      JsonToken token = parser.currentToken();
+      if ( token == JsonToken.START_OBJECT ) {
+        while ( parser.nextToken() == JsonToken.FIELD_NAME ) {
+          FieldNode child = node.names.get( parser.getCurrentName() );
+          parser.nextToken();
+          if ( child == null ) {
+            parser.skipChildren();
+          } else {
+            readFields( child, row );
+          }
+        }
+      } else if ( token == JsonToken.START_ARRAY ) {
+        int index = 0;
+        while ( parser.nextToken() != JsonToken.END_ARRAY ) {
+          FieldNode child = node.indexes.get( index++ );
+          if ( child == null ) {
+            parser.skipChildren();
+          } else {
+            readFields( child, row );
+          }
+        }
+      }
+    }
+
+    private void setFields( FieldNode node, Object value, Object[] row ) {
+      for ( int i = node.fields.nextSetBit( 0 ); i >= 0; i = node.fields.nextSetBit( i + 1 ) ) {
+        row[ i ] = value;
+      }
+      if ( value instanceof Map ) {
+        Map<?, ?> map = (Map<?, ?>) value;
+        for ( Map.Entry<String, FieldNode> child : node.names.entrySet() ) {
+          setFields( child.getValue(), map.get( child.getKey() ), row );
+        }
+      } else if ( value instanceof List ) {
+        List<?> list = (List<?>) value;
+        for ( Map.Entry<Integer, FieldNode> child : node.indexes.entrySet() ) {
+          setFields( child.getValue(), child.getKey() < list.size() ? list.get( child.getKey() ) : null, row );
+        }
+      }
+    }
+
+    /**
+     * Reads the value at the current token into the same types the whole document would be parsed to
+     */
+    private Object readValue() throws IOException {
+      switch ( parser.currentToken() ) {
+        case START_OBJECT:
+          Map<String, Object> map = new LinkedHashMap<>();
+          while ( parser.nextToken() == JsonToken.FIELD_NAME ) {
+            String name = parser.getCurrentName();
+            parser.nextToken();
+            map.put( name, readValue() );
+          }
+          return map;
+        case START_ARRAY:
+          JSONArray array = new JSONArray();
+          while ( parser.nextToken() != JsonToken.END_ARRAY ) {
+            array.add( readValue() );
+          }
+          return array;
+        case VALUE_STRING:
+          return parser.getText();
+        case VALUE_NUMBER_INT:
+          switch ( parser.getNumberType() ) {
+            case INT:
+              return parser.getIntValue();
+            case LONG:
+              return parser.getLongValue();
+            default:
+              return parser.getBigIntegerValue();
+          }
+        case VALUE_NUMBER_FLOAT:
+          return parser.getDoubleValue();
+        case VALUE_TRUE:
+          return Boolean.TRUE;
+        case VALUE_FALSE:
+          return Boolean.FALSE;
+        default:
+          return null;
+      }
+    }
+  }
+
+  private static class Frame {
+    private final int depth;
+    private final boolean array;
+    private int index = -1;
+
+    Frame( int depth, boolean array ) {
+      this.depth = depth;
+      this.array = array;
+    }
+  }
+
+  /**
+   * The fields found at a place inside the elements the rows are read from and the places below it
+   */
+  private static class FieldNode {
+    private final BitSet fields = new BitSet();
+    private final Map<String, FieldNode> names = new HashMap<>();
+    private final Map<Integer, FieldNode> indexes = new HashMap<>();
+
+    FieldNode getChild( PathStep step ) {
+      return step.name != null
+        ? names.computeIfAbsent( step.name, name -> new FieldNode() )
+        : indexes.computeIfAbsent( step.index, index -> new FieldNode() );
+    }
+  }
+
+  private static class PathStep {
+    private static final PathStep WILDCARD = new PathStep( null, -1 );
+
+    private final String name;
+    private final int index;
+
+    PathStep( String name, int index ) {
+      this.name = name;
+      this.index = index;
+    }
+
+    boolean matches( String fieldName ) {
+      return this == WILDCARD || ( name != null && name.equals( fieldName ) );
+    }
+
+    boolean matches( int arrayIndex ) {
+      return this == WILDCARD || ( name == null && index == arrayIndex );
+    }
+
+    @Override
+    public boolean equals( Object obj ) {
+      if ( !( obj instanceof PathStep ) ) {
+        return false;
+      }
+      PathStep other = (PathStep) obj;
+      return index == other.index && ( name == null ? other.name == null : name.equals( other.name ) );
+    }
+
+    @Override
+    public int hashCode() {
+      return name == null ? index : name.hashCode();
+    }
+  }
+
+  private static int lastWildcard( PathStep[] steps ) {
+    for ( int i = steps.length - 1; i >= 0; i-- ) {
+      if ( steps[ i ] == PathStep.WILDCARD ) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @return the steps of the path or null if the path isn't supported
+   */
+  static PathStep[] compile( String path ) {
+    if ( path == null || path.isEmpty() ) {
+      return null;
+    }
+    List<PathStep> steps = new ArrayList<>();
+    int i = 0;
+    if ( path.charAt( 0 ) == '$' ) {
+      i = 1;
+    } else if ( path.charAt( 0 ) != '[' ) {
+      // like "$." in front of it
+      path = "." + path;
+    }
+    int length = path.length();
+    while ( i < length ) {
+      char c = path.charAt( i );
+      if ( c == '.' ) {
+        int start = ++i;
+        while ( i < length && path.charAt( i ) != '.' && path.charAt( i ) != '[' ) {
+          i++;
+        }
+        String name = path.substring( start, i );
+        if ( name.isEmpty() || name.indexOf( '(' ) >= 0 ) {
+          // deep scan or function
+          return null;
+        }
+        steps.add( "*".equals( name ) ? PathStep.WILDCARD : new PathStep( name, -1 ) );
+      } else if ( c == '[' ) {
+        int end;
+        char quote = i + 1 < length ? path.charAt( i + 1 ) : 0;
+        if ( quote == '\'' || quote == '"' ) {
+          int close = path.indexOf( quote, i + 2 );
+          if ( close < 0 || close + 1 >= length || path.charAt( close + 1 ) != ']' ) {
+            return null;
+          }
+          steps.add( new PathStep( path.substring( i + 2, close ), -1 ) );
+          end = close + 1;
+        } else {
+          end = path.indexOf( ']', i );
+          if ( end < 0 ) {
+            return null;
+          }
+          String selector = path.substring( i + 1, end ).trim();
+          if ( "*".equals( selector ) ) {
+            steps.add( PathStep.WILDCARD );
+          } else if ( isIndex( selector ) ) {
+            steps.add( new PathStep( null, Integer.parseInt( selector ) ) );
+          } else {
+            // filters, slices, unions and negative indexes
+            return null;
+          }
+        }
+        i = end + 1;
+      } else {
+        return null;
+      }
+    }
+    return steps.toArray( new PathStep[ 0 ] );
+  }
+
+  private static boolean isIndex( String selector ) {
+    return !selector.isEmpty() && selector.length() < 10 && selector.chars().allMatch( Character::isDigit );
+  }
+}
@@ -137,6 +137,9 @@ public class JsonInputDialog extends BaseStepDialog implements StepDialogInterfa
   // include null values
   private Button wIncludeNulls;
 
+  // stream the input
+  private Button wStreaming;
+
   // do not fail if no files?
   private Button wdoNotFailIfNoFile;
 
@@ -608,13 +611,38 @@ public class JsonInputDialog extends BaseStepDialog implements StepDialogInterfa
     wIncludeNulls.setLayoutData( fdIncludeNulls );
     // Include nulls - end
 
+    Label wlStreaming = new Label( wConf, SWT.RIGHT );
+    wlStreaming.setText( BaseMessages.getString( PKG, "JsonInputDialog.Streaming.Label" ) );
+    props.setLook( wlStreaming );
+
+    FormData fdlStreaming = new FormData();
+    fdlStreaming.left = new FormAttachment( 0, 0 );
+    fdlStreaming.top = new FormAttachment( wIncludeNulls, margin );
+    fdlStreaming.right = new FormAttachment( middle, -margin );
+    wlStreaming.setLayoutData( fdlStreaming );
+    wStreaming = new Button( wConf, SWT.CHECK );
+    props.setLook( wStreaming );
+    wStreaming.addSelectionListener( new SelectionAdapter() {
+      @Override
+      public void widgetSelected( SelectionEvent e ) {
+        input.setChanged();
+      }
+    } );
+    wStreaming.setToolTipText( BaseMessages.getString( PKG, "JsonInputDialog.Streaming.Tooltip" ) );
+
+    FormData fdStreaming = new FormData();
+    fdStreaming.left = new FormAttachment( middle, 0 );
+    fdStreaming.top = new FormAttachment( wIncludeNulls, margin );
+    wStreaming.setLayoutData( fdStreaming );
+    // Streaming - end
+
     wlLimit = new Label( wConf, SWT.RIGHT );
     wlLimit.setText( BaseMessages.getString( PKG, "JsonInputDialog.Limit.Label" ) );
     props.setLook( wlLimit );
 
     FormData fdlLimit = new FormData();
     fdlLimit.left = new FormAttachment( 0, 0 );
-    fdlLimit.top = new FormAttachment( wIncludeNulls, margin );
+    fdlLimit.top = new FormAttachment( wStreaming, margin );
     fdlLimit.right = new FormAttachment( middle, -margin );
     wlLimit.setLayoutData( fdlLimit );
     wLimit = new Text( wConf, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
@@ -623,7 +651,7 @@ public class JsonInputDialog extends BaseStepDialog implements StepDialogInterfa
 
     FormData fdLimit = new FormData();
     fdLimit.left = new FormAttachment( middle, 0 );
-    fdLimit.top = new FormAttachment( wIncludeNulls, margin );
+    fdLimit.top = new FormAttachment( wStreaming, margin );
     fdLimit.right = new FormAttachment( 100, 0 );
     wLimit.setLayoutData( fdLimit );
 
@@ -1251,6 +1279,7 @@ public class JsonInputDialog extends BaseStepDialog implements StepDialogInterfa
     wIgnoreMissingPath.setSelection( in.isIgnoreMissingPath() );
     wDefaultPathLeafToNull.setSelection( in.isDefaultPathLeafToNull() );
     wIncludeNulls.setSelection( in.isIncludeNulls() || JsonInputMeta.getIncludeNullsProperty() );
+    wStreaming.setSelection( in.isStreaming() );
     wremoveSourceField.setSelection( in.isRemoveSourceField() );
     wSourceStreamField.setSelection( in.isInFields() );
     wSourceIsAFile.setSelection( in.getIsAFile() );
@@ -1393,6 +1422,7 @@ public class JsonInputDialog extends BaseStepDialog implements StepDialogInterfa
     in.setIgnoreMissingPath( wIgnoreMissingPath.getSelection() );
     in.setDefaultPathLeafToNull( wDefaultPathLeafToNull.getSelection() );
     in.setIncludeNulls( wIncludeNulls.getSelection() );
+    in.setStreaming( wStreaming.getSelection() );
     in.setRemoveSourceField( wremoveSourceField.getSelection() );
     in.setInFields( wSourceStreamField.getSelection() );
     in.setIsAFile( wSourceIsAFile.getSelection() );
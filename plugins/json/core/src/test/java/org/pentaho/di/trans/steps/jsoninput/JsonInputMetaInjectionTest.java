@@ -78,6 +78,11 @@ public class JsonInputMetaInjectionTest extends BaseMetadataInjectionTest<JsonIn
         return meta.isIgnoreMissingPath();
       }
     } );
+    check( "STREAMING", new BooleanGetter() {
+      public boolean get() {
+        return meta.isStreaming();
+      }
+    } );
     check( "READ_SOURCE_AS_URL", new BooleanGetter() {
       public boolean get() {
         return meta.isReadUrl();
@@ -52,6 +52,8 @@ import org.pentaho.di.trans.step.RowAdapter;
 import org.pentaho.di.trans.step.StepErrorMeta;
 import org.pentaho.di.trans.step.StepInterface;
 import org.pentaho.di.trans.steps.jsoninput.reader.FastJsonReader;
+import org.pentaho.di.trans.steps.jsoninput.reader.IJsonReader;
+import org.pentaho.di.trans.steps.jsoninput.reader.StreamingJsonReader;
 import org.pentaho.di.trans.steps.mock.StepMockHelper;
 import org.springframework.test.util.ReflectionTestUtils;
 
@@ -1518,4 +1520,122 @@ public class JsonInputTest {
     Assert.assertEquals( "error", 0, jsonInput.getErrors() );
   }
 
+  @Test
+  public void testStreamingGivesTheSameRows() throws Exception {
+    JsonInputMeta meta = createSimpleMeta( "json",
+      createField( "author", "$.store.book[*].author", ValueMetaInterface.TYPE_STRING ),
+      createField( "isbn", "$['store']['book'][*]['isbn']", ValueMetaInterface.TYPE_STRING ),
+      createField( "price", "$.store.book[*].price", ValueMetaInterface.TYPE_NUMBER ) );
+    Object[][] input = { new Object[] { getBasicTestJson() }, new Object[] { getBasicTestJson() } };
+    List<Object[]> expected = collectRows( createJsonInput( "json", meta, input ) );
+
+    meta.setStreaming( true );
+    JsonInput jsonInput = createJsonInput( "json", meta, input );
+    assertTrue( getReader( jsonInput ) instanceof StreamingJsonReader );
+    assertSameRows( expected, collectRows( jsonInput ) );
+    assertEquals( 8, expected.size() );
+    assertEquals( "errors", 0, jsonInput.getErrors() );
+  }
+
+  @Test
+  public void testStreamingFallsBackForDeepScan() throws Exception {
+    JsonInputMeta meta = createSimpleMeta( "json",
+      createField( "title", "$..book[*].title", ValueMetaInterface.TYPE_STRING ) );
+    List<Object[]> expected = collectRows( createJsonInput( "json", meta, new Object[] { getBasicTestJson() } ) );
+
+    meta.setStreaming( true );
+    JsonInput jsonInput = createJsonInput( "json", meta, new Object[] { getBasicTestJson() } );
+    assertTrue( getReader( jsonInput ) instanceof FastJsonReader );
+    assertSameRows( expected, collectRows( jsonInput ) );
+    assertEquals( 4, expected.size() );
+  }
+
+  @Test
+  public void testStreamingReadErrorAfterRows() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    helper.redirectLog( out, LogLevel.ERROR );
+    JsonInputMeta meta = createSimpleMeta( "json",
+      createField( "a", "$.data[*].a", ValueMetaInterface.TYPE_INTEGER ) );
+    meta.setStreaming( true );
+
+    JsonInput jsonInput =
+      createJsonInput( "json", meta, new Object[] { "{ \"data\": [ { \"a\": 1 }, { \"a\": 2 }, { \"a\"" } );
+    List<Object[]> rows = collectRows( jsonInput );
+
+    // the rows read before the end of the input are passed on, the end is an input error
+    assertEquals( 2, rows.size() );
+    assertEquals( 2L, rows.get( 1 )[ 1 ] );
+    assertEquals( "errors", 1, jsonInput.getErrors() );
+    assertTrue( jsonInput.isStopped() );
+  }
+
+  @Test
+  public void testStreamingMissingPathAfterRows() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    helper.redirectLog( out, LogLevel.ERROR );
+    JsonInputMeta meta = createSimpleMeta( "json",
+      createField( "a", "$.data[*].a", ValueMetaInterface.TYPE_INTEGER ),
+      createField( "b", "$.data[*].b", ValueMetaInterface.TYPE_INTEGER ) );
+    meta.setIgnoreMissingPath( false );
+    Object[] input = { "{ \"data\": [ { \"a\": 1 }, { \"a\": 2 } ] }" };
+
+    JsonInput jsonInput = createJsonInput( "json", meta, input );
+    assertEquals( 0, collectRows( jsonInput ).size() );
+    assertEquals( "errors", 1, jsonInput.getErrors() );
+
+    // the missing path is only known at the end of the document
+    meta.setStreaming( true );
+    jsonInput = createJsonInput( "json", meta, input );
+    assertEquals( 2, collectRows( jsonInput ).size() );
+    assertEquals( "errors", 1, jsonInput.getErrors() );
+  }
+
+  @Test
+  public void testDisposeClosesTheStreamedInput() throws Exception {
+    JsonInputMeta meta = createSimpleMeta( "json",
+      createField( "title", "$.store.book[*].title", ValueMetaInterface.TYPE_STRING ) );
+    meta.setStreaming( true );
+    JsonInput jsonInput = createJsonInput( "json", meta, new Object[] { getBasicTestJson() } );
+
+    processRows( jsonInput, 1 );
+    assertEquals( 1, jsonInput.getLinesWritten() );
+    JsonInputData data = (JsonInputData) ReflectionTestUtils.getField( jsonInput, "data" );
+    RowSet readerRowSet = data.readerRowSet;
+    assertNotNull( ReflectionTestUtils.getField( readerRowSet, "parser" ) );
+
+    jsonInput.dispose( meta, data );
+    Assert.assertNull( ReflectionTestUtils.getField( readerRowSet, "parser" ) );
+    Assert.assertNull( readerRowSet.getRow() );
+  }
+
+  private static JsonInputField createField( String name, String path, int type ) {
+    JsonInputField field = new JsonInputField( name );
+    field.setPath( path );
+    field.setType( type );
+    return field;
+  }
+
+  private static IJsonReader getReader( JsonInput jsonInput ) {
+    JsonInputData data = (JsonInputData) ReflectionTestUtils.getField( jsonInput, "data" );
+    return data.reader;
+  }
+
+  private List<Object[]> collectRows( JsonInput jsonInput ) throws Exception {
+    List<Object[]> rows = new ArrayList<>();
+    jsonInput.addRowListener( new RowAdapter() {
+      @Override
+      public void rowWrittenEvent( RowMetaInterface rowMeta, Object[] row ) {
+        rows.add( row );
+      }
+    } );
+    processRows( jsonInput, 20 );
+    return rows;
+  }
+
+  private static void assertSameRows( List<Object[]> expected, List<Object[]> actual ) {
+    assertEquals( expected.size(), actual.size() );
+    for ( int i = 0; i < expected.size(); i++ ) {
+      Assert.assertArrayEquals( "row " + i, expected.get( i ), actual.get( i ) );
+    }
+  }
 }
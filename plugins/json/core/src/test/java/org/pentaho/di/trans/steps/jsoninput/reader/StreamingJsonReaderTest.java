@@ -0,0 +1,386 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.trans.steps.jsoninput.reader;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.RowSet;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.logging.LogChannelInterface;
+import org.pentaho.di.trans.steps.jsoninput.JsonInput;
+import org.pentaho.di.trans.steps.jsoninput.JsonInputField;
+import org.pentaho.di.trans.steps.jsoninput.exception.JsonInputException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class StreamingJsonReaderTest {
+  private static final String STORE = "{ \"store\": { \"book\": ["
+    + "{ \"title\": \"Sayings\", \"price\": 8.95, \"tags\": [ \"a\", \"b\" ], \"author\": { \"name\": \"Rees\" } },"
+    + "{ \"title\": \"Sword\", \"price\": 12, \"tags\": [ \"c\" ], \"author\": { \"name\": \"Waugh\" } },"
+    + "{ \"title\": \"Moby Dick\", \"price\": 9, \"tags\": [], \"author\": { \"name\": \"Melville\" } } ],"
+    + "\"bicycle\": { \"color\": \"red\" } } }";
+
+  private final LogChannelInterface logMock = mock( LogChannelInterface.class );
+  private final JsonInput stepMock = mock( JsonInput.class );
+
+  @Before
+  public void setUp() {
+    when( stepMock.environmentSubstitute( anyString(), anyBoolean() ) )
+      .thenAnswer( invocation -> invocation.getArguments()[ 0 ] );
+  }
+
+  @Test
+  public void testRowsOfRepeatedElements() throws Exception {
+    List<Object[]> rows = read( STORE, true, false,
+      "$.store.book[*].title", "$['store']['book'][*]['price']", "$.store.book[*].tags[0]",
+      "$.store.book[*].author.name", "$.store.book[*].missing" );
+
+    assertEquals( 3, rows.size() );
+    assertArrayEquals( new Object[] { "Sayings", 8.95, "a", "Rees", null }, rows.get( 0 ) );
+    assertArrayEquals( new Object[] { "Sword", 12, "c", "Waugh", null }, rows.get( 1 ) );
+    assertArrayEquals( new Object[] { "Moby Dick", 9, null, "Melville", null }, rows.get( 2 ) );
+  }
+
+  @Test
+  public void testSameRowsAsFastJsonReader() throws Exception {
+    assertSameRowsAsFastJsonReader( STORE, false,
+      "$.store.book[*].title", "$.store.book[*].price", "$.store.book[*].author.name" );
+    assertSameRowsAsFastJsonReader( STORE, false,
+      "$['store']['book'][*]['title']", "$['store'].book[*].author['name']" );
+  }
+
+  @Test
+  public void testIndexesGiveTheSameRowAsFastJsonReader() throws Exception {
+    assertSameRowsAsFastJsonReader( STORE, false,
+      "$.store.book[0].title", "$['store']['book'][1]['price']", "$.store.bicycle.color" );
+  }
+
+  @Test
+  public void testRepeatedElementsWithMissingValuesGiveTheSameRowsAsFastJsonReader() throws Exception {
+    String json = "{ \"a\": [ { \"b\": 1 }, { \"c\": 2 }, { \"b\": null }, { \"b\": \"x\" } ] }";
+
+    assertSameRowsAsFastJsonReader( json, false, "$.a[*].b" );
+    assertSameRowsAsFastJsonReader( json, true, "$.a[*].b" );
+    assertEquals( 2, read( json, true, false, "$.a[*].b" ).size() );
+    assertEquals( 4, read( json, true, true, "$.a[*].b" ).size() );
+  }
+
+  @Test
+  public void testMemberWildcardsGiveTheSameRowsAsFastJsonReader() throws Exception {
+    String json = "{ \"prices\": { \"a\": 1, \"b\": 2.5, \"c\": \"x\" },"
+      + "\"items\": { \"p\": { \"b\": 1 }, \"q\": { \"b\": 2 }, \"r\": { \"c\": 3 } } }";
+
+    assertSameRowsAsFastJsonReader( json, false, "$.prices.*" );
+    assertSameRowsAsFastJsonReader( json, false, "$.items.*.b" );
+    assertSameRowsAsFastJsonReader( json, true, "$.items.*.b" );
+    assertEquals( 3, read( json, true, false, "$.prices.*" ).size() );
+  }
+
+  @Test
+  public void testNullElementsGiveTheSameRowsAsFastJsonReader() throws Exception {
+    String json = "[ { \"a\": null }, { \"b\": 1 } ]";
+
+    // every row is null: none without includeNulls, a single element still gives a row of nulls
+    assertSameRowsAsFastJsonReader( json, false, "$[*].a" );
+    assertSameRowsAsFastJsonReader( json, true, "$[*].a" );
+    assertSameRowsAsFastJsonReader( "[ { \"b\": 1 } ]", false, "$[*].a" );
+    assertSameRowsAsFastJsonReader( "[ { \"b\": 1 } ]", true, "$[*].a" );
+    assertEquals( 0, read( json, true, false, "$[*].a" ).size() );
+    assertEquals( 2, read( json, true, true, "$[*].a" ).size() );
+    assertEquals( 1, read( "[ { \"b\": 1 } ]", true, false, "$[*].a" ).size() );
+  }
+
+  @Test
+  public void testScalarRootsGiveTheSameRowsAsFastJsonReader() throws Exception {
+    assertSameRowsAsFastJsonReader( "\"text\"", false, "$" );
+    assertSameRowsAsFastJsonReader( "42", false, "$" );
+    assertSameRowsAsFastJsonReader( "42", false, "$.a" );
+    assertSameRowsAsFastJsonReader( "[ 1, \"two\", null ]", false, "$[*]" );
+    assertSameRowsAsFastJsonReader( "[ 1, \"two\", null ]", true, "$[*]" );
+  }
+
+  @Test
+  public void testEveryDocumentGivesTheSameRowsAsFastJsonReader() throws Exception {
+    assertSameRowsAsFastJsonReader( new String[] {
+      "{\"id\":1,\"name\":\"one\"}", "{\"id\":2}", "{\"other\":true}", "{\"name\":\"four\",\"id\":4}" },
+      "$.id", "$.name" );
+    assertSameRowsAsFastJsonReader( new String[] {
+      "{\"lines\":[{\"sku\":\"a\"},{\"sku\":\"b\"}]}", "{\"lines\":[]}", "{\"lines\":[{\"sku\":\"c\"}]}" },
+      "$.lines[*].sku" );
+    assertSameRowsAsFastJsonReader( new String[] { "\"one\"", "2", "[ 3 ]" }, "$" );
+  }
+
+  @Test
+  public void testWholeValues() throws Exception {
+    List<Object[]> rows = read( STORE, true, false, "$.store.book[*].tags", "$.store.book[*].author" );
+
+    assertEquals( 3, rows.size() );
+    assertEquals( Arrays.asList( "a", "b" ), rows.get( 0 )[ 0 ] );
+    assertEquals( "[\"a\",\"b\"]", rows.get( 0 )[ 0 ].toString() );
+    assertEquals( Collections.singletonMap( "name", "Rees" ), rows.get( 0 )[ 1 ] );
+    assertEquals( Collections.emptyList(), rows.get( 2 )[ 0 ] );
+  }
+
+  @Test
+  public void testNewlineDelimitedJson() throws Exception {
+    String json = "{\"id\":1,\"name\":\"one\"}\n{\"id\":2}\n\n{\"name\":\"three\",\"id\":30000000000}\n";
+
+    List<Object[]> rows = read( json, true, false, "$.id", "name" );
+
+    assertEquals( 3, rows.size() );
+    assertArrayEquals( new Object[] { 1, "one" }, rows.get( 0 ) );
+    assertArrayEquals( new Object[] { 2, null }, rows.get( 1 ) );
+    assertArrayEquals( new Object[] { 30000000000L, "three" }, rows.get( 2 ) );
+  }
+
+  @Test
+  public void testNewlineDelimitedJsonWithRepeatedElements() throws Exception {
+    String json = "{\"order\":1,\"lines\":[{\"sku\":\"a\"},{\"sku\":\"b\"}]}\n{\"order\":2,\"lines\":[]}\n"
+      + "{\"order\":3,\"lines\":[{\"sku\":\"c\"}]}";
+
+    List<Object[]> rows = read( json, true, false, "$.lines[*].sku" );
+
+    // like a document that is parsed as a whole, a document without lines gives a row of nulls
+    assertEquals( 4, rows.size() );
+    assertArrayEquals( new Object[] { "a" }, rows.get( 0 ) );
+    assertArrayEquals( new Object[] { "b" }, rows.get( 1 ) );
+    assertArrayEquals( new Object[] { null }, rows.get( 2 ) );
+    assertArrayEquals( new Object[] { "c" }, rows.get( 3 ) );
+  }
+
+  @Test
+  public void testNullRows() throws Exception {
+    String json = "[ { \"a\": 1 }, { \"b\": 2 }, { \"a\": null } ]";
+
+    assertEquals( 1, read( json, true, false, "$[*].a" ).size() );
+    assertEquals( 3, read( json, true, true, "$[*].a" ).size() );
+  }
+
+  @Test
+  public void testRowsAreReadWhileFetched() throws Exception {
+    InputStream in = new SequenceInputStream( toStream( "{ \"data\": [ { \"a\": 1 }, { \"a\": 2 }, " ),
+      new InputStream() {
+        @Override
+        public int read() throws IOException {
+          throw new IOException( "Not there yet" );
+        }
+      } );
+    RowSet rowSet = createReader( true, false, "$.data[*].a" ).parse( in );
+
+    assertArrayEquals( new Object[] { 1 }, rowSet.getRow() );
+    assertArrayEquals( new Object[] { 2 }, rowSet.getRow() );
+    try {
+      rowSet.getRow();
+      fail( "The error reading the rest of the input should be reported" );
+    } catch ( StreamingJsonReader.ReadException e ) {
+      assertTrue( e.getCause() instanceof IOException );
+    }
+    assertNull( rowSet.getRow() );
+  }
+
+  @Test
+  public void testMissingPath() throws Exception {
+    RowSet rowSet = createReader( false, false, "$.data[*].a", "$.data[*].b" )
+      .parse( toStream( "{ \"data\": [ { \"a\": 1 } ] }" ) );
+
+    assertArrayEquals( new Object[] { 1, null }, rowSet.getRow() );
+    try {
+      rowSet.getRow();
+      fail( "The missing path should be reported" );
+    } catch ( StreamingJsonReader.ReadException e ) {
+      assertTrue( e.getCause() instanceof JsonInputException );
+    }
+  }
+
+  @Test
+  public void testInvalidJson() throws Exception {
+    RowSet rowSet = createReader( true, false, "$[*].a" ).parse( toStream( "[ { \"a\": 1 }, { \"a\": } ]" ) );
+
+    assertArrayEquals( new Object[] { 1 }, rowSet.getRow() );
+    try {
+      rowSet.getRow();
+      fail( "The invalid JSON should be reported" );
+    } catch ( StreamingJsonReader.ReadException e ) {
+      assertTrue( e.getCause() instanceof IOException );
+    }
+  }
+
+  @Test
+  public void testMissingPathIsReportedLikeFastJsonReaderAfterTheRows() throws Exception {
+    String json = "{ \"data\": [ { \"a\": 1 }, { \"a\": 2 } ] }";
+    String[] paths = { "$.data[*].a", "$.data[*].b" };
+    String expected = null;
+    try {
+      new FastJsonReader( stepMock, createFields( paths ), true, false, false, logMock ).parse( toStream( json ) );
+      fail( "The missing path should be reported" );
+    } catch ( JsonInputException e ) {
+      expected = e.getMessage();
+    }
+
+    RowSet rowSet = createReader( false, false, paths ).parse( toStream( json ) );
+    assertArrayEquals( new Object[] { 1, null }, rowSet.getRow() );
+    assertArrayEquals( new Object[] { 2, null }, rowSet.getRow() );
+    try {
+      rowSet.getRow();
+      fail( "The missing path should be reported" );
+    } catch ( StreamingJsonReader.ReadException e ) {
+      assertTrue( e.getCause() instanceof JsonInputException );
+      assertEquals( expected, e.getCause().getMessage() );
+    }
+    assertNull( rowSet.getRow() );
+  }
+
+  @Test
+  public void testTruncatedInput() throws Exception {
+    RowSet rowSet = createReader( true, false, "$.data[*].a" )
+      .parse( toStream( "{ \"data\": [ { \"a\": 1 }, { \"a\": 2 }, { \"a\"" ) );
+
+    assertArrayEquals( new Object[] { 1 }, rowSet.getRow() );
+    assertArrayEquals( new Object[] { 2 }, rowSet.getRow() );
+    try {
+      rowSet.getRow();
+      fail( "The end of the input should be reported" );
+    } catch ( StreamingJsonReader.ReadException e ) {
+      assertTrue( e.getCause() instanceof IOException );
+    }
+    assertNull( rowSet.getRow() );
+  }
+
+  @Test
+  public void testClearClosesTheInput() throws Exception {
+    AtomicBoolean closed = new AtomicBoolean();
+    InputStream in = new ByteArrayInputStream( STORE.getBytes( StandardCharsets.UTF_8 ) ) {
+      @Override
+      public void close() throws IOException {
+        closed.set( true );
+        super.close();
+      }
+    };
+    RowSet rowSet = createReader( true, false, "$.store.book[*].title" ).parse( in );
+
+    assertArrayEquals( new Object[] { "Sayings" }, rowSet.getRow() );
+    assertFalse( closed.get() );
+    rowSet.clear();
+    assertTrue( closed.get() );
+    assertNull( rowSet.getRow() );
+  }
+
+  @Test
+  public void testSupportedPaths() {
+    assertTrue( createReader( true, false, "$.a[*].b", "$.a[*].c[1].d", "$.a[*]" ).isSupported() );
+    assertTrue( createReader( true, false, "$.a.*.b", "$['a'].*['c']" ).isSupported() );
+    assertTrue( createReader( true, false, "$[*][*].b", "$[*][*]" ).isSupported() );
+    assertTrue( createReader( true, false, "a.b", "$.c" ).isSupported() );
+
+    assertFalse( createReader( true, false, "$..b" ).isSupported() );
+    assertFalse( createReader( true, false, "$.a[?(@.b)]" ).isSupported() );
+    assertFalse( createReader( true, false, "$.a[0:2]" ).isSupported() );
+    assertFalse( createReader( true, false, "$.a[-1]" ).isSupported() );
+    assertFalse( createReader( true, false, "$.a['b','c']" ).isSupported() );
+    assertFalse( createReader( true, false, "$.a.length()" ).isSupported() );
+    assertFalse( createReader( true, false, "$.a[*].b", "$.c[*].d" ).isSupported() );
+    assertFalse( createReader( true, false, "$.a[*].b", "$.c" ).isSupported() );
+    assertFalse( createReader( true, false, "" ).isSupported() );
+  }
+
+  @Test( expected = KettleException.class )
+  public void testDeepScanIsLeftToFastJsonReader() throws Exception {
+    StreamingJsonReader reader = createReader( true, false, "$..x" );
+
+    assertFalse( reader.isSupported() );
+    reader.parse( toStream( "{ \"x\": 1 }" ) );
+  }
+
+  /**
+   * Compares the rows with those of {@link FastJsonReader} with the leaves that are missing read as null
+   */
+  private void assertSameRowsAsFastJsonReader( String json, boolean includeNulls, String... paths )
+    throws Exception {
+    FastJsonReader fastReader =
+      new FastJsonReader( stepMock, createFields( paths ), true, true, includeNulls, logMock );
+    assertSameRows( getRows( fastReader.parse( toStream( json ) ) ), read( json, true, includeNulls, paths ) );
+  }
+
+  /**
+   * Compares the rows of the documents read one after the other with those of each document read by
+   * {@link FastJsonReader}
+   */
+  private void assertSameRowsAsFastJsonReader( String[] documents, String... paths ) throws Exception {
+    FastJsonReader fastReader = new FastJsonReader( stepMock, createFields( paths ), true, true, false, logMock );
+    List<Object[]> expected = new ArrayList<>();
+    for ( String document : documents ) {
+      expected.addAll( getRows( fastReader.parse( toStream( document ) ) ) );
+    }
+    assertSameRows( expected, read( String.join( "\n", documents ), true, false, paths ) );
+  }
+
+  private static void assertSameRows( List<Object[]> expected, List<Object[]> actual ) {
+    assertEquals( expected.size(), actual.size() );
+    for ( int i = 0; i < expected.size(); i++ ) {
+      assertArrayEquals( "row " + i, expected.get( i ), actual.get( i ) );
+    }
+  }
+
+  private List<Object[]> read( String json, boolean ignoreMissingPath, boolean includeNulls, String... paths )
+    throws Exception {
+    return getRows( createReader( ignoreMissingPath, includeNulls, paths ).parse( toStream( json ) ) );
+  }
+
+  private StreamingJsonReader createReader( boolean ignoreMissingPath, boolean includeNulls, String... paths ) {
+    return new StreamingJsonReader( stepMock, createFields( paths ), ignoreMissingPath, includeNulls, logMock );
+  }
+
+  private static JsonInputField[] createFields( String... paths ) {
+    JsonInputField[] fields = new JsonInputField[ paths.length ];
+    for ( int i = 0; i < paths.length; i++ ) {
+      fields[ i ] = new JsonInputField( "field" + i );
+      fields[ i ].setPath( paths[ i ] );
+    }
+    return fields;
+  }
+
+  private static List<Object[]> getRows( RowSet rowSet ) {
+    List<Object[]> rows = new ArrayList<>();
+    Object[] row;
+    while ( ( row = rowSet.getRow() ) != null ) {
+      rows.add( row );
+    }
+    return rows;
+  }
+
+  private static InputStream toStream( String json ) {
+    return new ByteArrayInputStream( json.getBytes( StandardCharsets.UTF_8 ) );
+  }
+}
@@ -0,0 +1,255 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.pgbulkloader;
+
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+
+/**
+ * Encodes rows in the binary format of the COPY command. Every value is sent in the internal representation of the
+ * type of its column, so numbers and dates don't need to be formatted as text and parsed by the server again.
+ * <p>
+ * The binary format has to match the column types exactly, see {@link #isSupported(String)} for the types that can be
+ * loaded this way. The date masks of the fields don't apply, the type of the column decides.
+ *
+ * @since 11.1
+ */
+public class PGBinaryRowEncoder implements PGCopyRowEncoder {
+
+  private static final byte[] SIGNATURE = { 'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xff, '\r', '\n', 0 };
+
+  private static final List<String> SUPPORTED_TYPES = Arrays.asList( "int2", "int4", "int8", "float4", "float8",
+    "numeric", "bool", "text", "varchar", "bpchar", "name", "date", "timestamp", "timestamptz", "bytea", "uuid" );
+
+  // PostgreSQL counts dates and timestamps from 2000-01-01
+  private static final long POSTGRES_EPOCH_DAYS = LocalDate.of( 2000, 1, 1 ).toEpochDay();
+  private static final long POSTGRES_EPOCH_MICROS = POSTGRES_EPOCH_DAYS * 86400L * 1000000L;
+
+  private static final int NUMERIC_POSITIVE = 0x0000;
+  private static final int NUMERIC_NEGATIVE = 0x4000;
+
+  private final int[] keynrs;
+  private final String[] columnTypes;
+  private final Charset clientEncoding;
+  private final ZoneId zone = ZoneId.systemDefault();
+
+  /**
+   * @param keynrs
+   *          the indexes of the fields to load in the input row
+   * @param columnTypes
+   *          the PostgreSQL type names of the columns to load, like int4 or timestamptz
+   */
+  public PGBinaryRowEncoder( int[] keynrs, String[] columnTypes, Charset clientEncoding ) throws KettleException {
+    for ( String columnType : columnTypes ) {
+      if ( !isSupported( columnType ) ) {
+        throw new KettleException( "The binary COPY format doesn't support columns of type " + columnType );
+      }
+    }
+    this.keynrs = keynrs;
+    this.columnTypes = columnTypes;
+    this.clientEncoding = clientEncoding;
+  }
+
+  public static boolean isSupported( String columnType ) {
+    return columnType != null && SUPPORTED_TYPES.contains( columnType.toLowerCase() );
+  }
+
+  @Override
+  public byte[] getHeader() {
+    PGCopyBuffer header = new PGCopyBuffer( SIGNATURE.length + 8 );
+    header.write( SIGNATURE );
+    header.writeInt( 0 ); // flags
+    header.writeInt( 0 ); // header extension length
+    return Arrays.copyOf( header.getBytes(), header.size() );
+  }
+
+  @Override
+  public byte[] getTrailer() {
+    return new byte[] { (byte) 0xff, (byte) 0xff };
+  }
+
+  @Override
+  public void encodeRow( RowMetaInterface rowMeta, Object[] r, PGCopyBuffer buffer ) throws KettleException {
+    buffer.writeShort( keynrs.length );
+    for ( int i = 0; i < keynrs.length; i++ ) {
+      ValueMetaInterface valueMeta = rowMeta.getValueMeta( keynrs[i] );
+      Object valueData = r[keynrs[i]];
+      if ( valueMeta.isNull( valueData ) ) {
+        buffer.writeInt( -1 );
+      } else {
+        encodeValue( columnTypes[i].toLowerCase(), valueMeta, valueData, buffer );
+      }
+    }
+  }
+
+  private void encodeValue( String columnType, ValueMetaInterface valueMeta, Object valueData, PGCopyBuffer buffer )
+    throws KettleException {
+    switch ( columnType ) {
+      case "int2":
+        buffer.writeInt( 2 );
+        buffer.writeShort( (int) checkRange( valueMeta, valueMeta.getInteger( valueData ), Short.MIN_VALUE,
+          Short.MAX_VALUE ) );
+        break;
+      case "int4":
+        buffer.writeInt( 4 );
+        buffer.writeInt( (int) checkRange( valueMeta, valueMeta.getInteger( valueData ), Integer.MIN_VALUE,
+          Integer.MAX_VALUE ) );
+        break;
+      case "int8":
+        buffer.writeInt( 8 );
+        buffer.writeLong( valueMeta.getInteger( valueData ) );
+        break;
+      case "float4":
+        buffer.writeInt( 4 );
+        buffer.writeInt( Float.floatToIntBits( valueMeta.getNumber( valueData ).floatValue() ) );
+        break;
+      case "float8":
+        buffer.writeInt( 8 );
+        buffer.writeLong( Double.doubleToLongBits( valueMeta.getNumber( valueData ) ) );
+        break;
+      case "numeric":
+        encodeNumeric( valueMeta.getBigNumber( valueData ), buffer );
+        break;
+      case "bool":
+        buffer.writeInt( 1 );
+        buffer.write( valueMeta.getBoolean( valueData ) ? 1 : 0 );
+        break;
+      case "date":
+        buffer.writeInt( 4 );
+        buffer.writeInt( (int) ( toInstant( valueMeta.getDate( valueData ) ).atZone( zone ).toLocalDate().toEpochDay()
+          - POSTGRES_EPOCH_DAYS ) );
+        break;
+      case "timestamp":
+        // The local date and time, without a time zone
+        LocalDateTime local = LocalDateTime.ofInstant( toInstant( valueMeta.getDate( valueData ) ), zone );
+        buffer.writeInt( 8 );
+        buffer.writeLong( toMicros( local.toInstant( ZoneOffset.UTC ) ) - POSTGRES_EPOCH_MICROS );
+        break;
+      case "timestamptz":
+        buffer.writeInt( 8 );
+        buffer.writeLong( toMicros( toInstant( valueMeta.getDate( valueData ) ) ) - POSTGRES_EPOCH_MICROS );
+        break;
+      case "bytea":
+        byte[] binary = valueMeta.getBinary( valueData );
+        buffer.writeInt( binary.length );
+        buffer.write( binary );
+        break;
+      case "uuid":
+        UUID uuid = UUID.fromString( valueMeta.getString( valueData ) );
+        buffer.writeInt( 16 );
+        buffer.writeLong( uuid.getMostSignificantBits() );
+        buffer.writeLong( uuid.getLeastSignificantBits() );
+        break;
+      default:
+        // The text types
+        byte[] string = valueMeta.getString( valueData ).getBytes( clientEncoding );
+        buffer.writeInt( string.length );
+        buffer.write( string );
+        break;
+    }
+  }
+
+  private static long checkRange( ValueMetaInterface valueMeta, long value, long min, long max )
+    throws KettleException {
+    if ( value < min || value > max ) {
+      throw new KettleException( "Value " + value + " of field " + valueMeta.getName()
+        + " doesn't fit in the column" );
+    }
+    return value;
+  }
+
+  private static Instant toInstant( Date date ) {
+    // Timestamps keep their nanoseconds
+    return date instanceof Timestamp ? ( (Timestamp) date ).toInstant() : Instant.ofEpochMilli( date.getTime() );
+  }
+
+  private static long toMicros( Instant instant ) {
+    return instant.getEpochSecond() * 1000000L + instant.getNano() / 1000;
+  }
+
+  /**
+   * Writes a numeric as base 10000 digits: the number of digits, the weight of the first digit, the sign, the display
+   * scale and the digits themselves.
+   */
+  static void encodeNumeric( BigDecimal value, PGCopyBuffer buffer ) {
+    int sign = value.signum() < 0 ? NUMERIC_NEGATIVE : NUMERIC_POSITIVE;
+    BigDecimal abs = value.abs();
+    if ( abs.scale() < 0 ) {
+      abs = abs.setScale( 0 );
+    }
+    int scale = abs.scale();
+    String unscaled = abs.unscaledValue().toString();
+
+    // Split in the integer and fraction digits, padded to groups of 4 digits
+    //
+    int integerLength = unscaled.length() - scale;
+    StringBuilder digits = new StringBuilder();
+    int integerGroups = 0;
+    if ( integerLength > 0 ) {
+      integerGroups = ( integerLength + 3 ) / 4;
+      for ( int i = integerLength; i < integerGroups * 4; i++ ) {
+        digits.append( '0' );
+      }
+      digits.append( unscaled, 0, integerLength );
+    }
+    for ( int i = integerLength; i < 0; i++ ) {
+      digits.append( '0' );
+    }
+    digits.append( unscaled, Math.max( integerLength, 0 ), unscaled.length() );
+    while ( digits.length() % 4 != 0 ) {
+      digits.append( '0' );
+    }
+
+    short[] groups = new short[digits.length() / 4];
+    for ( int i = 0; i < groups.length; i++ ) {
+      groups[i] = Short.parseShort( digits.substring( i * 4, i * 4 + 4 ) );
+    }
+    int first = 0;
+    int last = groups.length;
+    int weight = integerGroups - 1;
+    while ( first < last && groups[first] == 0 ) {
+      first++;
+      weight--;
+    }
+    while ( last > first && groups[last - 1] == 0 ) {
+      last--;
+    }
+    if ( first == last ) {
+      weight = 0;
+    }
+
+    buffer.writeInt( 8 + 2 * ( last - first ) );
+    buffer.writeShort( last - first );
+    buffer.writeShort( weight );
+    buffer.writeShort( sign );
+    buffer.writeShort( scale );
+    for ( int i = first; i < last; i++ ) {
+      buffer.writeShort( groups[i] );
+    }
+  }
+}
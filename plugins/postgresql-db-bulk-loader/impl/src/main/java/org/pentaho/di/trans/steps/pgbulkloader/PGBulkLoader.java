@@ -23,12 +23,14 @@ package org.pentaho.di.trans.steps.pgbulkloader;
 //
 
 import java.io.IOException;
-import java.math.BigDecimal;
 import java.nio.charset.Charset;
 import java.sql.Connection;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.util.Utils;
@@ -37,7 +39,6 @@ import org.pentaho.di.core.database.DatabaseMeta;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.logging.LoggingObjectInterface;
 import org.pentaho.di.core.row.RowMetaInterface;
-import org.pentaho.di.core.row.ValueMetaInterface;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.trans.Trans;
 import org.pentaho.di.trans.TransMeta;
@@ -63,6 +64,12 @@ import org.postgresql.PGConnection;
 public class PGBulkLoader extends BaseStep implements StepInterface {
   private static Class<?> PKG = PGBulkLoaderMeta.class; // for i18n purposes, needed by Translator2!!
 
+  /** The COPY streams get the encoded rows in buffers of about this size */
+  static final int COPY_BUFFER_SIZE = 1024 * 1024;
+
+  /** The initial size of the buffer of a row of the single COPY stream, it grows with larger rows */
+  private static final int ROW_BUFFER_SIZE = 1024;
+
   private Charset clientEncoding = Charset.defaultCharset();
   private PGBulkLoaderMeta meta;
   private PGBulkLoaderData data;
@@ -122,9 +129,13 @@ public class PGBulkLoader extends BaseStep implements StepInterface {
     contents.append( " FROM STDIN" ); // FIFO file
 
     // The "FORMAT" clause
-    contents.append( " WITH CSV DELIMITER AS '" ).append( environmentSubstitute( meta.getDelimiter() ) )
-        .append( "' QUOTE AS '" ).append(
-      environmentSubstitute( meta.getEnclosure() ) ).append( "'" );
+    if ( data != null && data.rowEncoder instanceof PGBinaryRowEncoder ) {
+      contents.append( " WITH BINARY" );
+    } else {
+      contents.append( " WITH CSV DELIMITER AS '" ).append( environmentSubstitute( meta.getDelimiter() ) )
+          .append( "' QUOTE AS '" ).append(
+        environmentSubstitute( meta.getEnclosure() ) ).append( "'" );
+    }
     contents.append( ";" ).append( Const.CR );
 
     return contents.toString();
@@ -163,14 +174,121 @@ public class PGBulkLoader extends BaseStep implements StepInterface {
 
       processTruncate();
 
-      logBasic( "Launching command: " + copyCmd );
-      pgCopyOut = new PGCopyOutputStream( (PGConnection) data.db.getConnection(), copyCmd );
+      int nrCopyStreams = getNrCopyStreams();
+      if ( nrCopyStreams > 0 ) {
+        // The format of the COPY depends on the types of the columns
+        //
+        data.rowEncoder = createRowEncoder();
+        copyCmd = getCopyCommand();
+        startCopyStreams( copyCmd, nrCopyStreams );
+      } else {
+        logBasic( "Launching command: " + copyCmd );
+        pgCopyOut = new PGCopyOutputStream( (PGConnection) data.db.getConnection(), copyCmd );
+      }
 
     } catch ( Exception ex ) {
       throw new KettleException( "Error while preparing the COPY " + copyCmd, ex );
     }
   }
 
+  /**
+   * @return the number of parallel COPY streams to load with, 0 to write the rows one by one
+   */
+  int getNrCopyStreams() {
+    int nrCopyStreams = Const.toInt( environmentSubstitute( meta.getCopyStreams() ), 0 );
+    if ( nrCopyStreams > 1 && getTransMeta().isUsingUniqueConnections() ) {
+      // All the steps share one connection and its transaction
+      return 1;
+    }
+    return Math.max( nrCopyStreams, 0 );
+  }
+
+  PGCopyRowEncoder createRowEncoder() throws Exception {
+    if ( meta.isBinaryFormat() ) {
+      String[] columnTypes = getColumnTypes();
+      for ( int i = 0; i < columnTypes.length; i++ ) {
+        if ( !PGBinaryRowEncoder.isSupported( columnTypes[i] ) ) {
+          logBasic( BaseMessages.getString( PKG, "PGBulkLoader.Log.BinaryFormatNotPossible", meta.getFieldTable()[i],
+            columnTypes[i] ) );
+          return new PGTextRowEncoder( data, clientEncoding );
+        }
+      }
+      return new PGBinaryRowEncoder( data.keynrs, columnTypes, clientEncoding );
+    }
+    return new PGTextRowEncoder( data, clientEncoding );
+  }
+
+  /**
+   * @return the PostgreSQL type names of the columns to load
+   */
+  String[] getColumnTypes() throws Exception {
+    DatabaseMeta dm = meta.getDatabaseMeta();
+    String tableName =
+      dm.getQuotedSchemaTableCombination( environmentSubstitute( meta.getSchemaName() ),
+        environmentSubstitute( meta.getTableName() ) );
+
+    StringBuilder sql = new StringBuilder( "SELECT " );
+    String[] tableFields = meta.getFieldTable();
+    for ( int i = 0; i < tableFields.length; i++ ) {
+      if ( i != 0 ) {
+        sql.append( ", " );
+      }
+      sql.append( dm.quoteField( tableFields[i] ) );
+    }
+    sql.append( " FROM " ).append( tableName ).append( " WHERE 1 = 0" );
+
+    try ( Statement statement = data.db.getConnection().createStatement();
+          ResultSet rs = statement.executeQuery( sql.toString() ) ) {
+      ResultSetMetaData rsmd = rs.getMetaData();
+      String[] columnTypes = new String[rsmd.getColumnCount()];
+      for ( int i = 0; i < columnTypes.length; i++ ) {
+        columnTypes[i] = rsmd.getColumnTypeName( i + 1 );
+      }
+      return columnTypes;
+    }
+  }
+
+  private void startCopyStreams( String copyCmd, int nrCopyStreams ) throws KettleException {
+    // The first stream uses the connection the table was truncated on
+    //
+    List<Database> databases = new ArrayList<>();
+    databases.add( data.db );
+    data.copyDatabases = new ArrayList<>();
+    for ( int i = 1; i < nrCopyStreams; i++ ) {
+      Database db = getDatabase( this, meta );
+      data.copyDatabases.add( db );
+      db.connect( getPartitionID() );
+      databases.add( db );
+    }
+
+    logBasic( BaseMessages.getString( PKG, "PGBulkLoader.Log.CopyStreams", nrCopyStreams,
+      data.rowEncoder instanceof PGBinaryRowEncoder ? "binary" : "CSV" ) );
+    logBasic( "Launching command: " + copyCmd );
+    data.copyStreams =
+      new PGCopyStreams( databases, copyCmd, data.rowEncoder, COPY_BUFFER_SIZE, meta.isSingleTransaction()
+        && !getTransMeta().isUsingUniqueConnections() );
+    data.copyBuffer = data.copyStreams.getBuffer();
+  }
+
+  /**
+   * Encodes a row into the current buffer and hands the buffer to the COPY streams once it's full.
+   */
+  @VisibleForTesting
+  void writeRowToCopyStreams( RowMetaInterface rowMeta, Object[] r ) throws KettleException {
+    data.rowEncoder.encodeRow( rowMeta, r, data.copyBuffer );
+    if ( data.copyBuffer.size() >= COPY_BUFFER_SIZE ) {
+      data.copyStreams.submit( data.copyBuffer );
+      data.copyBuffer = data.copyStreams.getBuffer();
+    }
+  }
+
+  private void finishCopyStreams() throws KettleException {
+    data.copyStreams.submit( data.copyBuffer );
+    data.copyBuffer = null;
+    long rows = data.copyStreams.finish();
+    logBasic( BaseMessages.getString( PKG, "PGBulkLoader.Log.RowsCopied", rows ) );
+  }
+
   @VisibleForTesting
   Database getDatabase( LoggingObjectInterface parentObject, PGBulkLoaderMeta pgBulkLoaderMeta ) {
     DatabaseMeta dbMeta = pgBulkLoaderMeta.getDatabaseMeta();
@@ -231,7 +349,9 @@ public class PGBulkLoader extends BaseStep implements StepInterface {
 
         // Close the output stream...
         // will be null if no records (empty stream)
-        if ( data != null && pgCopyOut != null ) {
+        if ( data != null && data.copyStreams != null ) {
+          finishCopyStreams();
+        } else if ( data != null && pgCopyOut != null ) {
           pgCopyOut.flush();
           pgCopyOut.endCopy();
 
@@ -259,7 +379,11 @@ public class PGBulkLoader extends BaseStep implements StepInterface {
         //
       }
 
-      writeRowToPostgres( getInputRowMeta(), r );
+      if ( data.copyStreams != null ) {
+        writeRowToCopyStreams( getInputRowMeta(), r );
+      } else {
+        writeRowToPostgres( getInputRowMeta(), r );
+      }
 
       putRow( getInputRowMeta(), r );
       incrementLinesOutput();
@@ -274,155 +398,22 @@ public class PGBulkLoader extends BaseStep implements StepInterface {
     }
   }
 
+  /**
+   * Writes a row to the single COPY stream, in the CSV format of {@link PGTextRowEncoder}.
+   */
   @VisibleForTesting
   void writeRowToPostgres( RowMetaInterface rowMeta, Object[] r ) throws KettleException {
-
+    if ( data.rowEncoder == null ) {
+      data.rowEncoder = new PGTextRowEncoder( data, clientEncoding );
+      data.copyBuffer = new PGCopyBuffer( ROW_BUFFER_SIZE );
+    }
+    data.copyBuffer.reset();
+    data.rowEncoder.encodeRow( rowMeta, r, data.copyBuffer );
     try {
-      // So, we have this output stream to which we can write CSV data to.
-      // Basically, what we need to do is write the binary data (from strings to it as part of this proof of concept)
-      //
-      // Let's assume the data is in the correct format here too.
-      //
-      for ( int i = 0; i < data.keynrs.length; i++ ) {
-        if ( i > 0 ) {
-          // Write a separator
-          //
-          pgCopyOut.write( data.separator );
-        }
-
-        int index = data.keynrs[i];
-        ValueMetaInterface valueMeta = rowMeta.getValueMeta( index );
-        Object valueData = r[index];
-
-        if ( valueData != null ) {
-          switch ( valueMeta.getType() ) {
-            case ValueMetaInterface.TYPE_STRING:
-              pgCopyOut.write( data.quote );
-
-              // No longer dump the bytes for a Lazy Conversion;
-              // We need to escape the quote characters in every string
-              String quoteStr = new String( data.quote );
-              String escapedString = valueMeta.getString( valueData ).replace( quoteStr, quoteStr + quoteStr );
-              pgCopyOut.write( escapedString.getBytes( clientEncoding ) );
-
-              pgCopyOut.write( data.quote );
-              break;
-            case ValueMetaInterface.TYPE_INTEGER:
-            case ValueMetaInterface.TYPE_BOOLEAN:
-              if ( valueMeta.isStorageBinaryString() ) {
-                pgCopyOut.write( (byte[]) valueData );
-              } else {
-                pgCopyOut.write( Long.toString( valueMeta.getInteger( valueData ) ).getBytes( clientEncoding ) );
-              }
-              break;
-            case ValueMetaInterface.TYPE_DATE:
-              // Format the date in the right format.
-              //
-              switch ( data.dateFormatChoices[i] ) {
-              // Pass the data along in the format chosen by the user OR in binary format...
-              //
-                case PGBulkLoaderMeta.NR_DATE_MASK_PASS_THROUGH:
-                  if ( valueMeta.isStorageBinaryString() ) {
-                    pgCopyOut.write( (byte[]) valueData );
-                  } else {
-                    String dateString = valueMeta.getString( valueData );
-                    if ( dateString != null ) {
-                      pgCopyOut.write( dateString.getBytes( clientEncoding ) );
-                    }
-                  }
-                  break;
-
-                // Convert to a "YYYY-MM-DD" format
-                //
-                case PGBulkLoaderMeta.NR_DATE_MASK_DATE:
-                  String dateString = data.dateMeta.getString( valueMeta.getDate( valueData ) );
-                  if ( dateString != null ) {
-                    pgCopyOut.write( dateString.getBytes( clientEncoding ) );
-                  }
-                  break;
-
-                // Convert to a "YYYY-MM-DD HH:MM:SS.mmm" format
-                //
-                case PGBulkLoaderMeta.NR_DATE_MASK_DATETIME:
-                  String dateTimeString = data.dateTimeMeta.getString( valueMeta.getDate( valueData ) );
-                  if ( dateTimeString != null ) {
-                    pgCopyOut.write( dateTimeString.getBytes( clientEncoding ) );
-                  }
-                  break;
-
-                default:
-                  throw new KettleException( "PGBulkLoader doesn't know how to handle date (neither passthrough, nor date or datetime for field " + valueMeta.getName() );
-              }
-              break;
-            case ValueMetaInterface.TYPE_TIMESTAMP:
-              // Format the date in the right format.
-              //
-              switch ( data.dateFormatChoices[i] ) {
-              // Pass the data along in the format chosen by the user OR in binary format...
-              //
-                case PGBulkLoaderMeta.NR_DATE_MASK_PASS_THROUGH:
-                  if ( valueMeta.isStorageBinaryString() ) {
-                    pgCopyOut.write( (byte[]) valueData );
-                  } else {
-                    String dateString = valueMeta.getString( valueData );
-                    if ( dateString != null ) {
-                      pgCopyOut.write( dateString.getBytes( clientEncoding ) );
-                    }
-                  }
-                  break;
-
-                // Convert to a "YYYY-MM-DD" format
-                //
-                case PGBulkLoaderMeta.NR_DATE_MASK_DATE:
-                  String dateString = data.dateMeta.getString( valueMeta.getDate( valueData ) );
-                  if ( dateString != null ) {
-                    pgCopyOut.write( dateString.getBytes( clientEncoding ) );
-                  }
-                  break;
-
-                // Convert to a "YYYY-MM-DD HH:MM:SS.mmm" format
-                //
-                case PGBulkLoaderMeta.NR_DATE_MASK_DATETIME:
-                  String dateTimeString = data.dateTimeMeta.getString( valueMeta.getDate( valueData ) );
-                  if ( dateTimeString != null ) {
-                    pgCopyOut.write( dateTimeString.getBytes( clientEncoding ) );
-                  }
-                  break;
-
-                default:
-                  throw new KettleException( "PGBulkLoader doesn't know how to handle timestamp (neither passthrough, nor date or datetime for field " + valueMeta.getName() );
-              }
-              break;
-            case ValueMetaInterface.TYPE_NUMBER:
-              if ( valueMeta.isStorageBinaryString() ) {
-                pgCopyOut.write( (byte[]) valueData );
-              } else {
-                pgCopyOut.write( Double.toString( valueMeta.getNumber( valueData ) ).getBytes( clientEncoding ) );
-              }
-              break;
-            case ValueMetaInterface.TYPE_BIGNUMBER:
-              if ( valueMeta.isStorageBinaryString() ) {
-                pgCopyOut.write( (byte[]) valueData );
-              } else {
-                BigDecimal big = valueMeta.getBigNumber( valueData );
-                if ( big != null ) {
-                  pgCopyOut.write( big.toString().getBytes( clientEncoding ) );
-                }
-              }
-              break;
-            default:
-              throw new KettleException( "PGBulkLoader doesn't handle the type " + valueMeta.getTypeDesc() );
-          }
-        }
-      }
-
-      // Now write a newline
-      //
-      pgCopyOut.write( data.newline );
+      pgCopyOut.write( data.copyBuffer.getBytes(), 0, data.copyBuffer.size() );
     } catch ( Exception e ) {
       throw new KettleException( "Error serializing rows of data to the COPY command", e );
     }
-
   }
 
   protected void verifyDatabaseConnection() throws KettleException {
@@ -492,6 +483,15 @@ public class PGBulkLoader extends BaseStep implements StepInterface {
       logError( "Error while closing the Postgres Output Stream", e.getMessage() );
     }
 
+    if ( data.copyStreams != null && !data.copyStreams.isFinished() ) {
+      data.copyStreams.cancel();
+    }
+    if ( data.copyDatabases != null ) {
+      for ( Database db : data.copyDatabases ) {
+        db.close();
+      }
+    }
+
     if ( data.db != null ) {
       data.db.close();
     }
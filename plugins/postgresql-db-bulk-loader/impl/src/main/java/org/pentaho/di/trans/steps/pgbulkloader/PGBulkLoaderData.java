@@ -15,6 +15,7 @@
 package org.pentaho.di.trans.steps.pgbulkloader;
 
 import java.io.OutputStream;
+import java.util.List;
 
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.row.ValueMetaInterface;
@@ -54,6 +55,13 @@ public class PGBulkLoaderData extends BaseStepData implements StepDataInterface
   public ValueMetaInterface dateMeta;
   public ValueMetaInterface dateTimeMeta;
 
+  /** The parallel COPY streams, null when the rows are written one by one */
+  public PGCopyStreams copyStreams;
+  public PGCopyRowEncoder rowEncoder;
+  public PGCopyBuffer copyBuffer;
+  /** The connections of the COPY streams besides db */
+  public List<Database> copyDatabases;
+
   /**
    * Default constructor.
    */
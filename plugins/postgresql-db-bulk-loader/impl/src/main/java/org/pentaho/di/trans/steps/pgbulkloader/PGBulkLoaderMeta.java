@@ -103,6 +103,15 @@ public class PGBulkLoaderMeta extends BaseStepMeta implements StepMetaInjectionI
   /** Stop On Error */
   private boolean stopOnError;
 
+  /** The number of parallel COPY streams, 0 writes the rows one by one on a single connection */
+  private String copyStreams;
+
+  /** Use the binary format of the COPY command in the COPY streams */
+  private boolean binaryFormat;
+
+  /** Commit all the COPY streams together at the end */
+  private boolean singleTransaction;
+
   /*
    * Do not translate following values!!! They are will end up in the job export.
    */
@@ -227,6 +236,9 @@ public class PGBulkLoaderMeta extends BaseStepMeta implements StepMetaInjectionI
       loadAction = XMLHandler.getTagValue( stepnode, "load_action" );
       dbNameOverride = XMLHandler.getTagValue( stepnode, "dbname_override" );
       stopOnError = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "stop_on_error" ) );
+      copyStreams = XMLHandler.getTagValue( stepnode, "copy_streams" );
+      binaryFormat = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "binary_format" ) );
+      singleTransaction = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "single_transaction" ) );
 
       int nrvalues = XMLHandler.countNodes( stepnode, "mapping" );
       allocate( nrvalues );
@@ -267,6 +279,9 @@ public class PGBulkLoaderMeta extends BaseStepMeta implements StepMetaInjectionI
     delimiter = ";";
     enclosure = "\"";
     stopOnError = false;
+    copyStreams = "0";
+    binaryFormat = false;
+    singleTransaction = false;
     int nrvalues = 0;
     allocate( nrvalues );
   }
@@ -284,6 +299,9 @@ public class PGBulkLoaderMeta extends BaseStepMeta implements StepMetaInjectionI
     retval.append( "    " ).append( XMLHandler.addTagValue( "enclosure", enclosure ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "delimiter", delimiter ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "stop_on_error", stopOnError ) );
+    retval.append( "    " ).append( XMLHandler.addTagValue( "copy_streams", copyStreams ) );
+    retval.append( "    " ).append( XMLHandler.addTagValue( "binary_format", binaryFormat ) );
+    retval.append( "    " ).append( XMLHandler.addTagValue( "single_transaction", singleTransaction ) );
 
     for ( int i = 0; i < fieldTable.length; i++ ) {
       retval.append( "      <mapping>" ).append( Const.CR );
@@ -303,6 +321,9 @@ public class PGBulkLoaderMeta extends BaseStepMeta implements StepMetaInjectionI
       tableName = rep.getStepAttributeString( id_step, "table" );
       loadAction = rep.getStepAttributeString( id_step, "load_action" );
       stopOnError = rep.getStepAttributeBoolean( id_step, "stop_on_error" );
+      copyStreams = rep.getStepAttributeString( id_step, "copy_streams" );
+      binaryFormat = rep.getStepAttributeBoolean( id_step, "binary_format" );
+      singleTransaction = rep.getStepAttributeBoolean( id_step, "single_transaction" );
 
       dbNameOverride = rep.getStepAttributeString( id_step, "dbname_override" );
       enclosure = rep.getStepAttributeString( id_step, "enclosure" );
@@ -336,6 +357,9 @@ public class PGBulkLoaderMeta extends BaseStepMeta implements StepMetaInjectionI
       rep.saveStepAttribute( id_transformation, id_step, "enclosure", enclosure );
       rep.saveStepAttribute( id_transformation, id_step, "delimiter", delimiter );
       rep.saveStepAttribute( id_transformation, id_step, "stop_on_error", stopOnError );
+      rep.saveStepAttribute( id_transformation, id_step, "copy_streams", copyStreams );
+      rep.saveStepAttribute( id_transformation, id_step, "binary_format", binaryFormat );
+      rep.saveStepAttribute( id_transformation, id_step, "single_transaction", singleTransaction );
 
       for ( int i = 0; i < fieldTable.length; i++ ) {
         rep.saveStepAttribute( id_transformation, id_step, i, "stream_name", fieldTable[i] );
@@ -682,6 +706,43 @@ public class PGBulkLoaderMeta extends BaseStepMeta implements StepMetaInjectionI
     this.stopOnError = value;
   }
 
+  /**
+   * @return the number of parallel COPY streams, 0 writes the rows one by one on a single connection
+   */
+  public String getCopyStreams() {
+    return copyStreams;
+  }
+
+  /**
+   * @param copyStreams
+   *          the number of parallel COPY streams, 0 writes the rows one by one on a single connection
+   */
+  public void setCopyStreams( String copyStreams ) {
+    this.copyStreams = copyStreams;
+  }
+
+  /**
+   * @return true if the COPY streams use the binary format instead of CSV
+   */
+  public boolean isBinaryFormat() {
+    return binaryFormat;
+  }
+
+  public void setBinaryFormat( boolean binaryFormat ) {
+    this.binaryFormat = binaryFormat;
+  }
+
+  /**
+   * @return true if all the COPY streams are committed together at the end, false if every COPY commits on its own
+   */
+  public boolean isSingleTransaction() {
+    return singleTransaction;
+  }
+
+  public void setSingleTransaction( boolean singleTransaction ) {
+    this.singleTransaction = singleTransaction;
+  }
+
   public StepMetaInjectionInterface getStepMetaInjectionInterface() {
     return this;
   }
@@ -715,6 +776,12 @@ public class PGBulkLoaderMeta extends BaseStepMeta implements StepMetaInjectionI
           delimiter = (String) entry.getValue();
         } else if ( entry.getKey().equals( "STOPONERROR" ) ) {
           stopOnError = (Boolean) entry.getValue();
+        } else if ( entry.getKey().equals( "COPYSTREAMS" ) ) {
+          copyStreams = (String) entry.getValue();
+        } else if ( entry.getKey().equals( "BINARYFORMAT" ) ) {
+          binaryFormat = (Boolean) entry.getValue();
+        } else if ( entry.getKey().equals( "SINGLETRANSACTION" ) ) {
+          singleTransaction = (Boolean) entry.getValue();
         } else {
           throw new RuntimeException( "Unhandled metadata injection of attribute: "
             + attr.toString() + " - " + attr.getDescription() );
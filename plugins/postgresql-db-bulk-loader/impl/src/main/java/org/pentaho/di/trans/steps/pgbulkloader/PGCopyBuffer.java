@@ -0,0 +1,121 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.pgbulkloader;
+
+import java.util.Arrays;
+
+/**
+ * A reusable byte buffer that rows are encoded into before they are sent to a COPY stream in one go. Numbers are
+ * written big endian, the way the PostgreSQL binary COPY format expects them.
+ *
+ * @since 11.1
+ */
+public class PGCopyBuffer {
+  private byte[] bytes;
+  private int size;
+
+  public PGCopyBuffer( int capacity ) {
+    bytes = new byte[capacity];
+  }
+
+  public void write( int b ) {
+    ensureCapacity( 1 );
+    bytes[size++] = (byte) b;
+  }
+
+  public void write( byte[] b ) {
+    write( b, 0, b.length );
+  }
+
+  public void write( byte[] b, int offset, int length ) {
+    ensureCapacity( length );
+    System.arraycopy( b, offset, bytes, size, length );
+    size += length;
+  }
+
+  public void writeShort( int value ) {
+    ensureCapacity( 2 );
+    bytes[size++] = (byte) ( value >>> 8 );
+    bytes[size++] = (byte) value;
+  }
+
+  public void writeInt( int value ) {
+    ensureCapacity( 4 );
+    bytes[size++] = (byte) ( value >>> 24 );
+    bytes[size++] = (byte) ( value >>> 16 );
+    bytes[size++] = (byte) ( value >>> 8 );
+    bytes[size++] = (byte) value;
+  }
+
+  public void writeLong( long value ) {
+    writeInt( (int) ( value >>> 32 ) );
+    writeInt( (int) value );
+  }
+
+  /**
+   * Writes the decimal digits of a number without creating a String, every client encoding of PostgreSQL encodes them
+   * as ASCII.
+   */
+  public void writeDecimal( long value ) {
+    if ( value == Long.MIN_VALUE ) {
+      writeAscii( Long.toString( value ) );
+      return;
+    }
+    if ( value < 0 ) {
+      write( '-' );
+      value = -value;
+    }
+    int digits = 1;
+    for ( long v = value; v >= 10; v /= 10 ) {
+      digits++;
+    }
+    ensureCapacity( digits );
+    for ( int i = size + digits - 1; i >= size; i-- ) {
+      bytes[i] = (byte) ( '0' + value % 10 );
+      value /= 10;
+    }
+    size += digits;
+  }
+
+  /**
+   * Writes a string that only holds ASCII characters, like a formatted number.
+   */
+  public void writeAscii( String value ) {
+    ensureCapacity( value.length() );
+    for ( int i = 0; i < value.length(); i++ ) {
+      bytes[size++] = (byte) value.charAt( i );
+    }
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public void reset() {
+    size = 0;
+  }
+
+  /**
+   * @return the internal array, only the first {@link #size()} bytes are used
+   */
+  public byte[] getBytes() {
+    return bytes;
+  }
+
+  private void ensureCapacity( int extra ) {
+    if ( size + extra > bytes.length ) {
+      bytes = Arrays.copyOf( bytes, Math.max( bytes.length * 2, size + extra ) );
+    }
+  }
+}
@@ -0,0 +1,40 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.pgbulkloader;
+
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMetaInterface;
+
+/**
+ * Encodes rows in one of the formats of the PostgreSQL COPY command.
+ *
+ * @since 11.1
+ */
+public interface PGCopyRowEncoder {
+
+  /**
+   * @return the bytes every COPY stream starts with
+   */
+  byte[] getHeader();
+
+  /**
+   * @return the bytes every COPY stream ends with
+   */
+  byte[] getTrailer();
+
+  /**
+   * Appends the fields to load of a row to the buffer.
+   */
+  void encodeRow( RowMetaInterface rowMeta, Object[] r, PGCopyBuffer buffer ) throws KettleException;
+}
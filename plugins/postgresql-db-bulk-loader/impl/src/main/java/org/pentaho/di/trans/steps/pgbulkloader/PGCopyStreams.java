@@ -0,0 +1,241 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.pgbulkloader;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.pentaho.di.core.database.Database;
+import org.pentaho.di.core.exception.KettleException;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+
+/**
+ * Runs a COPY command on several connections at the same time. The step thread encodes rows into buffers taken from
+ * {@link #getBuffer()} and hands the full ones to {@link #submit(PGCopyBuffer)}, a writer thread per connection sends
+ * them to its COPY stream and gives the buffer back. A few buffers more than there are connections keep the encoding
+ * and the writing going in parallel, with a bounded amount of memory.
+ * <p>
+ * Without a single transaction every COPY commits on its own when it ends. With a single transaction the connections
+ * don't auto commit and they are all committed after every COPY ended without errors, or rolled back otherwise.
+ *
+ * @since 11.1
+ */
+public class PGCopyStreams {
+
+  /** Tells a writer thread there is no more data */
+  private static final PGCopyBuffer END_OF_DATA = new PGCopyBuffer( 0 );
+
+  private final List<Database> databases;
+  private final PGCopyRowEncoder encoder;
+  private final boolean singleTransaction;
+  private final PGCopyOutputStream[] streams;
+  private final long[] rowsCopied;
+  private final List<Thread> writers = new ArrayList<>();
+
+  private final BlockingQueue<PGCopyBuffer> freeBuffers;
+  private final BlockingQueue<PGCopyBuffer> fullBuffers;
+  private final AtomicReference<Exception> failure = new AtomicReference<>();
+  private boolean finished;
+
+  /**
+   * Starts the COPY command on all the connected databases.
+   *
+   * @param databases
+   *          the connected databases, one COPY stream each
+   * @param bufferSize
+   *          the size of the buffers, a buffer is submitted once it holds this many bytes
+   * @param singleTransaction
+   *          commit the COPY streams together at the end
+   */
+  public PGCopyStreams( List<Database> databases, String copyCommand, PGCopyRowEncoder encoder, int bufferSize,
+    boolean singleTransaction ) throws KettleException {
+    this.databases = databases;
+    this.encoder = encoder;
+    this.singleTransaction = singleTransaction;
+
+    int nrStreams = databases.size();
+    int nrBuffers = 2 * nrStreams + 1;
+    freeBuffers = new ArrayBlockingQueue<>( nrBuffers );
+    for ( int i = 0; i < nrBuffers; i++ ) {
+      freeBuffers.add( new PGCopyBuffer( bufferSize + bufferSize / 8 ) );
+    }
+    // Room for all the buffers and the end markers, so nothing ever blocks on a full queue
+    fullBuffers = new ArrayBlockingQueue<>( nrBuffers + nrStreams );
+
+    streams = new PGCopyOutputStream[nrStreams];
+    rowsCopied = new long[nrStreams];
+    try {
+      for ( int i = 0; i < nrStreams; i++ ) {
+        Database db = databases.get( i );
+        if ( singleTransaction ) {
+          db.setAutoCommit( false );
+        }
+        streams[i] = openCopyStream( db, copyCommand );
+        byte[] header = encoder.getHeader();
+        streams[i].write( header, 0, header.length );
+      }
+    } catch ( Exception e ) {
+      cancel();
+      throw new KettleException( "Error while starting the COPY streams", e );
+    }
+
+    for ( int i = 0; i < nrStreams; i++ ) {
+      final int stream = i;
+      Thread writer = new Thread( () -> copy( stream ), "PGCopyStream-" + i );
+      writer.setDaemon( true );
+      writers.add( writer );
+      writer.start();
+    }
+  }
+
+  PGCopyOutputStream openCopyStream( Database db, String copyCommand ) throws SQLException {
+    return new PGCopyOutputStream( (PGConnection) db.getConnection(), copyCommand );
+  }
+
+  /**
+   * @return an empty buffer to encode rows into, waits until a writer gave one back
+   */
+  public PGCopyBuffer getBuffer() throws KettleException {
+    checkFailure();
+    try {
+      return freeBuffers.take();
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new KettleException( "Interrupted while waiting for a COPY buffer", e );
+    }
+  }
+
+  /**
+   * Hands a buffer to the first free COPY stream.
+   */
+  public void submit( PGCopyBuffer buffer ) throws KettleException {
+    checkFailure();
+    fullBuffers.add( buffer );
+  }
+
+  /**
+   * Ends the COPY on all the streams after the submitted buffers were written and commits them when they share a
+   * single transaction.
+   *
+   * @return the number of rows the database copied
+   */
+  public long finish() throws KettleException {
+    finished = true;
+    for ( int i = 0; i < writers.size(); i++ ) {
+      fullBuffers.add( END_OF_DATA );
+    }
+    try {
+      for ( Thread writer : writers ) {
+        writer.join();
+      }
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      failure.compareAndSet( null, e );
+    }
+
+    if ( failure.get() != null ) {
+      cancel();
+      checkFailure();
+    }
+
+    if ( singleTransaction ) {
+      for ( Database db : databases ) {
+        db.commit( true );
+      }
+    }
+    long rows = 0;
+    for ( long copied : rowsCopied ) {
+      rows += copied;
+    }
+    return rows;
+  }
+
+  /**
+   * Cancels the COPY streams that didn't end yet and rolls back a single transaction, used when the step stops
+   * before {@link #finish()}.
+   */
+  public void cancel() {
+    failure.compareAndSet( null, new KettleException( "The COPY streams were cancelled" ) );
+    for ( Thread writer : writers ) {
+      writer.interrupt();
+    }
+    for ( PGCopyOutputStream stream : streams ) {
+      try {
+        if ( stream != null && stream.isActive() ) {
+          stream.cancelCopy();
+        }
+      } catch ( SQLException e ) {
+        // The connection is closed next anyway
+      }
+    }
+    if ( singleTransaction ) {
+      for ( Database db : databases ) {
+        try {
+          db.rollback( true );
+        } catch ( KettleException e ) {
+          // The connection is closed next anyway
+        }
+      }
+    }
+  }
+
+  public boolean isFinished() {
+    return finished;
+  }
+
+  private void copy( int stream ) {
+    PGCopyOutputStream out = streams[stream];
+    try {
+      PGCopyBuffer buffer = fullBuffers.take();
+      while ( buffer != END_OF_DATA ) {
+        try {
+          // Keep taking buffers after an error, the step thread waits for them
+          if ( failure.get() == null ) {
+            out.write( buffer.getBytes(), 0, buffer.size() );
+          }
+        } catch ( Exception e ) {
+          failure.compareAndSet( null, e );
+        } finally {
+          buffer.reset();
+          freeBuffers.add( buffer );
+        }
+        buffer = fullBuffers.take();
+      }
+
+      if ( failure.get() == null ) {
+        byte[] trailer = encoder.getTrailer();
+        out.write( trailer, 0, trailer.length );
+        rowsCopied[stream] = out.endCopy();
+      }
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    } catch ( Exception e ) {
+      failure.compareAndSet( null, e );
+    }
+  }
+
+  private void checkFailure() throws KettleException {
+    Exception e = failure.get();
+    if ( e instanceof KettleException ) {
+      throw (KettleException) e;
+    } else if ( e != null ) {
+      throw new KettleException( "Error while writing to a COPY stream", e );
+    }
+  }
+}
@@ -0,0 +1,145 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.pgbulkloader;
+
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+
+/**
+ * Encodes rows in the CSV format of the COPY command into a buffer, for the parallel COPY streams as well as for the
+ * single stream of {@link PGBulkLoader#writeRowToPostgres}. Integers are written as digits without going through a
+ * String.
+ *
+ * @since 11.1
+ */
+public class PGTextRowEncoder implements PGCopyRowEncoder {
+  private final PGBulkLoaderData data;
+  private final Charset clientEncoding;
+  private final String quote;
+
+  public PGTextRowEncoder( PGBulkLoaderData data, Charset clientEncoding ) {
+    this.data = data;
+    this.clientEncoding = clientEncoding;
+    this.quote = new String( data.quote );
+  }
+
+  @Override
+  public byte[] getHeader() {
+    return new byte[0];
+  }
+
+  @Override
+  public byte[] getTrailer() {
+    return new byte[0];
+  }
+
+  @Override
+  public void encodeRow( RowMetaInterface rowMeta, Object[] r, PGCopyBuffer buffer ) throws KettleException {
+    for ( int i = 0; i < data.keynrs.length; i++ ) {
+      if ( i > 0 ) {
+        buffer.write( data.separator );
+      }
+
+      int index = data.keynrs[i];
+      ValueMetaInterface valueMeta = rowMeta.getValueMeta( index );
+      Object valueData = r[index];
+      if ( valueData == null ) {
+        continue;
+      }
+
+      switch ( valueMeta.getType() ) {
+        case ValueMetaInterface.TYPE_STRING:
+          buffer.write( data.quote );
+          String string = valueMeta.getString( valueData );
+          if ( quote.length() > 0 && string.contains( quote ) ) {
+            string = string.replace( quote, quote + quote );
+          }
+          buffer.write( string.getBytes( clientEncoding ) );
+          buffer.write( data.quote );
+          break;
+        case ValueMetaInterface.TYPE_INTEGER:
+        case ValueMetaInterface.TYPE_BOOLEAN:
+          if ( valueMeta.isStorageBinaryString() ) {
+            buffer.write( (byte[]) valueData );
+          } else {
+            buffer.writeDecimal( valueMeta.getInteger( valueData ) );
+          }
+          break;
+        case ValueMetaInterface.TYPE_DATE:
+        case ValueMetaInterface.TYPE_TIMESTAMP:
+          encodeDate( valueMeta, valueData, data.dateFormatChoices[i], buffer );
+          break;
+        case ValueMetaInterface.TYPE_NUMBER:
+          if ( valueMeta.isStorageBinaryString() ) {
+            buffer.write( (byte[]) valueData );
+          } else {
+            buffer.writeAscii( Double.toString( valueMeta.getNumber( valueData ) ) );
+          }
+          break;
+        case ValueMetaInterface.TYPE_BIGNUMBER:
+          if ( valueMeta.isStorageBinaryString() ) {
+            buffer.write( (byte[]) valueData );
+          } else {
+            BigDecimal big = valueMeta.getBigNumber( valueData );
+            if ( big != null ) {
+              buffer.writeAscii( big.toString() );
+            }
+          }
+          break;
+        default:
+          throw new KettleException( "PGBulkLoader doesn't handle the type " + valueMeta.getTypeDesc() );
+      }
+    }
+    buffer.write( data.newline );
+  }
+
+  private void encodeDate( ValueMetaInterface valueMeta, Object valueData, int dateFormatChoice,
+    PGCopyBuffer buffer ) throws KettleException {
+    String dateString;
+    switch ( dateFormatChoice ) {
+      // Pass the data along in the format chosen by the user OR in binary format...
+      //
+      case PGBulkLoaderMeta.NR_DATE_MASK_PASS_THROUGH:
+        if ( valueMeta.isStorageBinaryString() ) {
+          buffer.write( (byte[]) valueData );
+          return;
+        }
+        dateString = valueMeta.getString( valueData );
+        break;
+
+      // Convert to a "YYYY-MM-DD" format
+      //
+      case PGBulkLoaderMeta.NR_DATE_MASK_DATE:
+        dateString = data.dateMeta.getString( valueMeta.getDate( valueData ) );
+        break;
+
+      // Convert to a "YYYY-MM-DD HH:MM:SS.mmm" format
+      //
+      case PGBulkLoaderMeta.NR_DATE_MASK_DATETIME:
+        dateString = data.dateTimeMeta.getString( valueMeta.getDate( valueData ) );
+        break;
+
+      default:
+        throw new KettleException( "PGBulkLoader doesn't know how to handle date (neither passthrough, nor date or "
+          + "datetime for field " + valueMeta.getName() );
+    }
+    if ( dateString != null ) {
+      buffer.write( dateString.getBytes( clientEncoding ) );
+    }
+  }
+}
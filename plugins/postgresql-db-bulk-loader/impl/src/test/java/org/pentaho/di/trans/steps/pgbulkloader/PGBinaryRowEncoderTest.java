@@ -0,0 +1,138 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.pgbulkloader;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Date;
+
+import org.junit.Test;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.value.ValueMetaBigNumber;
+import org.pentaho.di.core.row.value.ValueMetaDate;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.core.row.value.ValueMetaTimestamp;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PGBinaryRowEncoderTest {
+
+  @Test
+  public void testHeaderAndTrailer() throws Exception {
+    PGBinaryRowEncoder encoder =
+      new PGBinaryRowEncoder( new int[] { 0 }, new String[] { "int4" }, StandardCharsets.UTF_8 );
+
+    byte[] header = encoder.getHeader();
+    assertEquals( 19, header.length );
+    assertArrayEquals( "PGCOPY\n".getBytes( StandardCharsets.US_ASCII ), Arrays.copyOf( header, 7 ) );
+    assertArrayEquals( new byte[] { -1, -1 }, encoder.getTrailer() );
+  }
+
+  @Test
+  public void testEncodeRow() throws Exception {
+    RowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "name" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "missing" ) );
+    rowMeta.addValueMeta( new ValueMetaDate( "day" ) );
+    rowMeta.addValueMeta( new ValueMetaTimestamp( "moment" ) );
+
+    Date day = Date.from( LocalDate.of( 2000, 1, 3 ).atStartOfDay( ZoneId.systemDefault() ).toInstant() );
+    Timestamp moment = Timestamp.valueOf( "2000-01-01 00:00:01.000002" );
+    // The fields are loaded in another order than they come in
+    PGBinaryRowEncoder encoder = new PGBinaryRowEncoder( new int[] { 1, 0, 2, 3, 4 },
+      new String[] { "int8", "varchar", "int4", "date", "timestamp" }, StandardCharsets.UTF_8 );
+    PGCopyBuffer buffer = new PGCopyBuffer( 16 );
+    encoder.encodeRow( rowMeta, new Object[] { "é", 42L, null, day, moment }, buffer );
+
+    ByteBuffer bytes = ByteBuffer.wrap( buffer.getBytes(), 0, buffer.size() );
+    assertEquals( 5, bytes.getShort() );
+    assertEquals( 8, bytes.getInt() );
+    assertEquals( 42L, bytes.getLong() );
+    assertEquals( 2, bytes.getInt() );
+    assertEquals( (byte) 0xc3, bytes.get() );
+    assertEquals( (byte) 0xa9, bytes.get() );
+    assertEquals( -1, bytes.getInt() );
+    assertEquals( 4, bytes.getInt() );
+    assertEquals( 2, bytes.getInt() );
+    assertEquals( 8, bytes.getInt() );
+    assertEquals( 1000002L, bytes.getLong() );
+    assertFalse( bytes.hasRemaining() );
+  }
+
+  @Test( expected = KettleException.class )
+  public void testIntegerOutOfRange() throws Exception {
+    RowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    PGBinaryRowEncoder encoder =
+      new PGBinaryRowEncoder( new int[] { 0 }, new String[] { "int2" }, StandardCharsets.UTF_8 );
+    encoder.encodeRow( rowMeta, new Object[] { 40000L }, new PGCopyBuffer( 16 ) );
+  }
+
+  @Test
+  public void testEncodeNumeric() throws Exception {
+    assertNumeric( "12345.678", 1, 0x0000, 3, 1, 2345, 6780 );
+    assertNumeric( "-0.0001", -1, 0x4000, 4, 1 );
+    assertNumeric( "0.00001", -2, 0x0000, 5, 1000 );
+    assertNumeric( "1E+5", 1, 0x0000, 0, 10 );
+    assertNumeric( "0", 0, 0x0000, 0 );
+
+    RowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaBigNumber( "amount" ) );
+    PGBinaryRowEncoder encoder =
+      new PGBinaryRowEncoder( new int[] { 0 }, new String[] { "numeric" }, StandardCharsets.UTF_8 );
+    PGCopyBuffer buffer = new PGCopyBuffer( 16 );
+    encoder.encodeRow( rowMeta, new Object[] { new BigDecimal( "10000" ) }, buffer );
+    assertEquals( 2 + 4 + 8 + 2, buffer.size() );
+  }
+
+  @Test
+  public void testSupportedTypes() throws Exception {
+    assertTrue( PGBinaryRowEncoder.isSupported( "INT4" ) );
+    assertTrue( PGBinaryRowEncoder.isSupported( "timestamptz" ) );
+    assertFalse( PGBinaryRowEncoder.isSupported( "jsonb" ) );
+    assertFalse( PGBinaryRowEncoder.isSupported( null ) );
+  }
+
+  @Test( expected = KettleException.class )
+  public void testUnsupportedType() throws Exception {
+    new PGBinaryRowEncoder( new int[] { 0 }, new String[] { "jsonb" }, StandardCharsets.UTF_8 );
+  }
+
+  private static void assertNumeric( String value, int weight, int sign, int scale, int... digits ) {
+    PGCopyBuffer buffer = new PGCopyBuffer( 16 );
+    PGBinaryRowEncoder.encodeNumeric( new BigDecimal( value ), buffer );
+
+    ByteBuffer bytes = ByteBuffer.wrap( buffer.getBytes(), 0, buffer.size() );
+    assertEquals( value, 8 + 2 * digits.length, bytes.getInt() );
+    assertEquals( value, digits.length, bytes.getShort() );
+    assertEquals( value, weight, bytes.getShort() );
+    assertEquals( value, sign, bytes.getShort() );
+    assertEquals( value, scale, bytes.getShort() );
+    for ( int digit : digits ) {
+      assertEquals( value, digit, bytes.getShort() );
+    }
+    assertFalse( value, bytes.hasRemaining() );
+  }
+}
@@ -66,7 +66,8 @@ public class PGBulkLoaderMetaTest {
     PluginRegistry.init( false );
     List<String> attributes =
         Arrays.asList( "schemaName", "tableName", "loadAction", "dbNameOverride", "delimiter",
-            "enclosure", "stopOnError", "fieldTable", "fieldStream", "dateMask", "databaseMeta" );
+            "enclosure", "stopOnError", "fieldTable", "fieldStream", "dateMask", "databaseMeta", "copyStreams",
+            "binaryFormat", "singleTransaction" );
 
     Map<String, String> getterMap = new HashMap<String, String>() {
       {
@@ -81,6 +82,9 @@ public class PGBulkLoaderMetaTest {
         put( "fieldStream", "getFieldStream" );
         put( "dateMask", "getDateMask" );
         put( "databaseMeta", "getDatabaseMeta" );
+        put( "copyStreams", "getCopyStreams" );
+        put( "binaryFormat", "isBinaryFormat" );
+        put( "singleTransaction", "isSingleTransaction" );
       }
     };
     Map<String, String> setterMap = new HashMap<String, String>() {
@@ -96,6 +100,9 @@ public class PGBulkLoaderMetaTest {
         put( "fieldStream", "setFieldStream" );
         put( "dateMask", "setDateMask" );
         put( "databaseMeta", "setDatabaseMeta" );
+        put( "copyStreams", "setCopyStreams" );
+        put( "binaryFormat", "setBinaryFormat" );
+        put( "singleTransaction", "setSingleTransaction" );
       }
     };
     FieldLoadSaveValidator<String[]> stringArrayLoadSaveValidator =
@@ -153,7 +160,8 @@ public class PGBulkLoaderMetaTest {
       List<StepInjectionMetaEntry> entries =
         loader.getStepMeta().getStepMetaInterface().getStepMetaInjectionInterface().getStepInjectionMetadataEntries();
 
-      String masterKeys = "SCHEMA TABLE LOADACTION STOPONERROR DELIMITER ENCLOSURE DBNAMEOVERRIDE MAPPINGS ";
+      String masterKeys = "SCHEMA TABLE LOADACTION STOPONERROR DELIMITER ENCLOSURE DBNAMEOVERRIDE MAPPINGS "
+        + "COPYSTREAMS BINARYFORMAT SINGLETRANSACTION ";
 
       for ( StepInjectionMetaEntry entry : entries ) {
         String key = entry.getKey();
@@ -248,6 +256,9 @@ public class PGBulkLoaderMetaTest {
       assertEquals( "Enclosure not properly injected... ", "new_ENCLOSURE", lm.getEnclosure() );
       assertEquals( "Load action not properly injected... ", "new_LOADACTION", lm.getLoadAction() );
       assertEquals( "Stop on error not properly injected... ", Boolean.TRUE, lm.isStopOnError() );
+      assertEquals( "Copy streams not properly injected... ", "new_COPYSTREAMS", lm.getCopyStreams() );
+      assertEquals( "Binary format not properly injected... ", Boolean.TRUE, lm.isBinaryFormat() );
+      assertEquals( "Single transaction not properly injected... ", Boolean.TRUE, lm.isSingleTransaction() );
 
       assertEquals( "Field name not properly injected... ", "new_FIELDNAME", lm.getFieldTable()[0] );
       assertEquals( "Stream name not properly injected... ", "new_STREAMNAME", lm.getFieldStream()[0] );
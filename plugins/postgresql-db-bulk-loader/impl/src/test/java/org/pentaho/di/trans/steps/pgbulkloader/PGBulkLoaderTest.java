@@ -43,6 +43,7 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
@@ -51,6 +52,7 @@ import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.pentaho.di.core.row.ValueMetaInterface.TYPE_BOOLEAN;
+import static org.pentaho.di.core.row.ValueMetaInterface.TYPE_STRING;
 
 public class PGBulkLoaderTest {
   @ClassRule public static RestorePDIEngineEnvironment env = new RestorePDIEngineEnvironment();
@@ -195,13 +197,32 @@ public class PGBulkLoaderTest {
     assertEquals( "false", "0" + Const.CR, out.toString() );
   }
 
+  @Test
+  public void writeQuotedStringToPgOutput() throws Exception {
+    final ByteArrayOutputStream out = initPGCopyOutputStream();
+
+    final PGBulkLoaderMeta meta = initMeta( "tested value" );
+    when( meta.getEnclosure() ).thenReturn( "\"" );
+    pgBulkLoader.init( meta, initData() );
+    final RowMeta rowMeta = initRowMeta( "tested value", TYPE_STRING );
+
+    pgBulkLoader.writeRowToPostgres( rowMeta, new Object[] {"say \"hi\""} );
+    assertEquals( "\"say \"\"hi\"\"\"" + Const.CR, out.toString() );
+
+    // A null is an empty field
+    out.reset();
+    pgBulkLoader.writeRowToPostgres( rowMeta, new Object[] {null} );
+    assertEquals( Const.CR, out.toString() );
+  }
+
   private ByteArrayOutputStream initPGCopyOutputStream() throws IOException, NoSuchFieldException, IllegalAccessException {
     final ByteArrayOutputStream out = new ByteArrayOutputStream();
     final PGCopyOutputStream pgCopy = mock( PGCopyOutputStream.class );
     doAnswer( invocation -> {
-      out.write( (byte[]) invocation.getArguments()[0] );
+      out.write( (byte[]) invocation.getArguments()[0], (int) invocation.getArguments()[1],
+        (int) invocation.getArguments()[2] );
       return null;
-    } ).when( pgCopy ).write( any() );
+    } ).when( pgCopy ).write( any( byte[].class ), anyInt(), anyInt() );
     final Field pgCopyOut = pgBulkLoader.getClass().getDeclaredField( "pgCopyOut" );
     pgCopyOut.setAccessible( true );
     pgCopyOut.set( pgBulkLoader, pgCopy );
@@ -0,0 +1,151 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.pgbulkloader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.database.Database;
+import org.pentaho.di.core.exception.KettleException;
+import org.postgresql.copy.PGCopyOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PGCopyStreamsTest {
+
+  private Database db1;
+  private Database db2;
+  private PGCopyOutputStream out1;
+  private PGCopyOutputStream out2;
+  private ByteArrayOutputStream written;
+  private PGCopyRowEncoder encoder;
+
+  @Before
+  public void setUp() throws Exception {
+    db1 = mock( Database.class );
+    db2 = mock( Database.class );
+    written = new ByteArrayOutputStream();
+    out1 = mockCopyStream();
+    out2 = mockCopyStream();
+
+    encoder = mock( PGCopyRowEncoder.class );
+    when( encoder.getHeader() ).thenReturn( new byte[] { 'H' } );
+    when( encoder.getTrailer() ).thenReturn( new byte[] { 'T' } );
+  }
+
+  @Test
+  public void testBuffersAreWrittenToAllStreams() throws Exception {
+    PGCopyStreams streams = createStreams( true );
+
+    List<String> rows = new ArrayList<>();
+    for ( int i = 0; i < 10; i++ ) {
+      PGCopyBuffer buffer = streams.getBuffer();
+      buffer.writeAscii( "r" + i );
+      rows.add( "r" + i );
+      streams.submit( buffer );
+    }
+    assertEquals( 6, streams.finish() );
+
+    String copied = written.toString();
+    for ( String row : rows ) {
+      assertTrue( row, copied.contains( row ) );
+    }
+    assertEquals( 2, copied.chars().filter( c -> c == 'H' ).count() );
+    assertEquals( 2, copied.chars().filter( c -> c == 'T' ).count() );
+    verify( db1 ).setAutoCommit( false );
+    verify( db1 ).commit( true );
+    verify( db2 ).commit( true );
+    verify( db1, never() ).rollback( true );
+  }
+
+  @Test
+  public void testStreamsCommitOnTheirOwn() throws Exception {
+    PGCopyStreams streams = createStreams( false );
+    streams.submit( streams.getBuffer() );
+    streams.finish();
+
+    verify( db1, never() ).setAutoCommit( false );
+    verify( db1, never() ).commit( true );
+    verify( out1 ).endCopy();
+    verify( out2 ).endCopy();
+  }
+
+  @Test
+  public void testHeaderErrorRollsBackAllStreams() throws Exception {
+    doThrow( new IOException( "broken pipe" ) ).when( out1 ).write( any( byte[].class ), anyInt(), anyInt() );
+    when( out1.isActive() ).thenReturn( true );
+    try {
+      createStreams( true );
+      fail( "The header can't be written" );
+    } catch ( KettleException e ) {
+      verify( out1 ).cancelCopy();
+      verify( db1 ).rollback( true );
+      verify( db2 ).rollback( true );
+      verify( db1, never() ).commit( true );
+    }
+  }
+
+  @Test( expected = KettleException.class )
+  public void testEndCopyErrorFailsFinish() throws Exception {
+    when( out2.endCopy() ).thenThrow( new SQLException( "constraint violation" ) );
+    PGCopyStreams streams = createStreams( true );
+    streams.submit( streams.getBuffer() );
+    try {
+      streams.finish();
+    } finally {
+      verify( db1, never() ).commit( true );
+      verify( db1 ).rollback( true );
+    }
+  }
+
+  private PGCopyStreams createStreams( boolean singleTransaction ) throws KettleException {
+    List<PGCopyOutputStream> outs = Collections.synchronizedList( new ArrayList<>( Arrays.asList( out1, out2 ) ) );
+    return new PGCopyStreams( Arrays.asList( db1, db2 ), "COPY", encoder, 16, singleTransaction ) {
+      @Override
+      PGCopyOutputStream openCopyStream( Database db, String copyCommand ) {
+        return outs.remove( 0 );
+      }
+    };
+  }
+
+  private PGCopyOutputStream mockCopyStream() throws Exception {
+    PGCopyOutputStream out = mock( PGCopyOutputStream.class );
+    doAnswer( invocation -> {
+      synchronized ( written ) {
+        written.write( (byte[]) invocation.getArguments()[0], (int) invocation.getArguments()[1],
+          (int) invocation.getArguments()[2] );
+      }
+      return null;
+    } ).when( out ).write( any( byte[].class ), anyInt(), anyInt() );
+    when( out.endCopy() ).thenReturn( 3L );
+    return out;
+  }
+}
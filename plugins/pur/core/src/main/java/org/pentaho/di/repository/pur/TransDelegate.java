@@ -41,6 +41,7 @@ import org.pentaho.di.shared.SharedObjectInterface;
 import org.pentaho.di.trans.TransDependency;
 import org.pentaho.di.trans.TransHopMeta;
 import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.TransMeta.StepThreadingType;
 import org.pentaho.di.trans.TransMeta.TransformationType;
 import org.pentaho.di.trans.step.RowDistributionInterface;
 import org.pentaho.di.trans.step.RowDistributionPluginType;
@@ -84,6 +85,8 @@ public class TransDelegate extends AbstractDelegate implements ITransformer, ISh
 
   private static final String PROP_TRANSFORMATION_TYPE = "TRANSFORMATION_TYPE";
 
+  private static final String PROP_STEP_THREADING_TYPE = "STEP_THREADING_TYPE";
+
   public static final String PROP_TRANS_DATA_SERVICE_NAME = "DATA_SERVICE_NAME";
 
   private static final String PROP_STEP_PERFORMANCE_LOG_TABLE = "STEP_PERFORMANCE_LOG_TABLE";
@@ -98,6 +101,8 @@ public class TransDelegate extends AbstractDelegate implements ITransformer, ISh
 
   private static final String PROP_USING_THREAD_PRIORITIES = "USING_THREAD_PRIORITIES";
 
+  private static final String PROP_USING_LOCK_FREE_ROWSETS = "USING_LOCK_FREE_ROWSETS";
+
   static final String PROP_FEEDBACK_SIZE = "FEEDBACK_SIZE";
 
   private static final String PROP_FEEDBACK_SHOWN = "FEEDBACK_SHOWN";
@@ -570,8 +575,15 @@ public class TransDelegate extends AbstractDelegate implements ITransformer, ISh
       usingThreadPriorityManagement = rootNode.getProperty( PROP_USING_THREAD_PRIORITIES ).getBoolean();
     }
     transMeta.setUsingThreadPriorityManagment( usingThreadPriorityManagement );
+    boolean usingLockFreeRowSets = true;
+    if ( rootNode.hasProperty( PROP_USING_LOCK_FREE_ROWSETS ) ) {
+      usingLockFreeRowSets = rootNode.getProperty( PROP_USING_LOCK_FREE_ROWSETS ).getBoolean();
+    }
+    transMeta.setUsingLockFreeRowSets( usingLockFreeRowSets );
     String transTypeCode = getString( rootNode, PROP_TRANSFORMATION_TYPE );
     transMeta.setTransformationType( TransformationType.getTransformationTypeByCode( transTypeCode ) );
+    String threadingTypeCode = getString( rootNode, PROP_STEP_THREADING_TYPE );
+    transMeta.setStepThreadingType( StepThreadingType.getStepThreadingTypeByCode( threadingTypeCode ) );
 
     // Performance monitoring for steps...
     //
@@ -817,6 +829,7 @@ public class TransDelegate extends AbstractDelegate implements ITransformer, ISh
     rootNode.setProperty( PROP_FEEDBACK_SHOWN, transMeta.isFeedbackShown() );
     rootNode.setProperty( PROP_FEEDBACK_SIZE, transMeta.getFeedbackSize() );
     rootNode.setProperty( PROP_USING_THREAD_PRIORITIES, transMeta.isUsingThreadPriorityManagment() );
+    rootNode.setProperty( PROP_USING_LOCK_FREE_ROWSETS, transMeta.isUsingLockFreeRowSets() );
 
     rootNode.setProperty( PROP_CAPTURE_STEP_PERFORMANCE, transMeta.isCapturingStepPerformanceSnapShots() );
     rootNode.setProperty( PROP_STEP_PERFORMANCE_CAPTURING_DELAY, transMeta.getStepPerformanceCapturingDelay() );
@@ -827,6 +840,7 @@ public class TransDelegate extends AbstractDelegate implements ITransformer, ISh
     rootNode.setProperty( PROP_LOG_INTERVAL, transMeta.getTransLogTable().getLogInterval() );
 
     rootNode.setProperty( PROP_TRANSFORMATION_TYPE, transMeta.getTransformationType().getCode() );
+    rootNode.setProperty( PROP_STEP_THREADING_TYPE, transMeta.getStepThreadingType().getCode() );
 
     // Save the logging tables too..
     //
@@ -67,6 +67,7 @@ import org.pentaho.di.repository.RepositoryDirectoryInterface;
 import org.pentaho.di.shared.DatabaseManagementInterface;
 import org.pentaho.di.trans.TransDependency;
 import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.TransMeta.StepThreadingType;
 import org.pentaho.di.trans.TransMeta.TransformationType;
 import org.pentaho.di.trans.step.StepMeta;
 import org.pentaho.di.trans.step.StepMetaInterface;
@@ -192,6 +193,8 @@ public class TransDialog extends Dialog {
 
   private Button wManageThreads;
 
+  private Button wLockFreeRowSets;
+
   private boolean directoryChangeAllowed;
 
   private Label wlDirectory;
@@ -202,6 +205,8 @@ public class TransDialog extends Dialog {
 
   private CCombo wTransformationType;
 
+  private CCombo wStepThreadingType;
+
   private Tabs currentTab = null;
 
   protected boolean changed;
@@ -1955,6 +1960,26 @@ public class TransDialog extends Dialog {
     fdManageThreads.right = new FormAttachment( 100, 0 );
     wManageThreads.setLayoutData( fdManageThreads );
 
+    // Use lock-free row sets for hops between single step copies?
+    Label wlLockFreeRowSets = new Label( wMiscComp, SWT.RIGHT );
+    wlLockFreeRowSets.setText( BaseMessages.getString( PKG, "TransDialog.LockFreeRowSets.Label" ) );
+    wlLockFreeRowSets.setToolTipText( BaseMessages.getString( PKG, "TransDialog.LockFreeRowSets.Tooltip" ) );
+    props.setLook( wlLockFreeRowSets );
+    FormData fdlLockFreeRowSets = new FormData();
+    fdlLockFreeRowSets.left = new FormAttachment( 0, 0 );
+    fdlLockFreeRowSets.top = new FormAttachment( wManageThreads, margin );
+    fdlLockFreeRowSets.right = new FormAttachment( middle, -margin );
+    wlLockFreeRowSets.setLayoutData( fdlLockFreeRowSets );
+    wLockFreeRowSets = new Button( wMiscComp, SWT.CHECK );
+    wLockFreeRowSets.setToolTipText( BaseMessages.getString( PKG, "TransDialog.LockFreeRowSets.Tooltip" ) );
+    wLockFreeRowSets.addSelectionListener( lsModSel );
+    props.setLook( wLockFreeRowSets );
+    FormData fdLockFreeRowSets = new FormData();
+    fdLockFreeRowSets.left = new FormAttachment( middle, 0 );
+    fdLockFreeRowSets.top = new FormAttachment( wManageThreads, margin );
+    fdLockFreeRowSets.right = new FormAttachment( 100, 0 );
+    wLockFreeRowSets.setLayoutData( fdLockFreeRowSets );
+
     // Single threaded option ...
     Label wlTransformationType = new Label( wMiscComp, SWT.RIGHT );
     wlTransformationType.setText( BaseMessages.getString( PKG, "TransDialog.TransformationType.Label" ) );
@@ -1964,7 +1989,7 @@ public class TransDialog extends Dialog {
     FormData fdlTransformationType = new FormData();
     fdlTransformationType.left = new FormAttachment( 0, 0 );
     fdlTransformationType.right = new FormAttachment( middle, -margin );
-    fdlTransformationType.top = new FormAttachment( wManageThreads, margin );
+    fdlTransformationType.top = new FormAttachment( wLockFreeRowSets, margin );
     wlTransformationType.setLayoutData( fdlTransformationType );
     wTransformationType = new CCombo( wMiscComp, SWT.NORMAL );
     wTransformationType.setToolTipText( BaseMessages.getString(
@@ -1973,11 +1998,34 @@ public class TransDialog extends Dialog {
     props.setLook( wTransformationType );
     FormData fdTransformationType = new FormData();
     fdTransformationType.left = new FormAttachment( middle, 0 );
-    fdTransformationType.top = new FormAttachment( wManageThreads, margin );
+    fdTransformationType.top = new FormAttachment( wLockFreeRowSets, margin );
     fdTransformationType.right = new FormAttachment( 100, 0 );
     wTransformationType.setLayoutData( fdTransformationType );
     wTransformationType.setItems( TransformationType.getTransformationTypesDescriptions() );
 
+    // Step threading type
+    Label wlStepThreadingType = new Label( wMiscComp, SWT.RIGHT );
+    wlStepThreadingType.setText( BaseMessages.getString( PKG, "TransDialog.StepThreadingType.Label" ) );
+    wlStepThreadingType.setToolTipText( BaseMessages.getString(
+      PKG, "TransDialog.StepThreadingType.Tooltip", Const.CR ) );
+    props.setLook( wlStepThreadingType );
+    FormData fdlStepThreadingType = new FormData();
+    fdlStepThreadingType.left = new FormAttachment( 0, 0 );
+    fdlStepThreadingType.right = new FormAttachment( middle, -margin );
+    fdlStepThreadingType.top = new FormAttachment( wTransformationType, margin );
+    wlStepThreadingType.setLayoutData( fdlStepThreadingType );
+    wStepThreadingType = new CCombo( wMiscComp, SWT.NORMAL );
+    wStepThreadingType.setToolTipText( BaseMessages.getString(
+      PKG, "TransDialog.StepThreadingType.Tooltip", Const.CR ) );
+    wStepThreadingType.addSelectionListener( lsModSel );
+    props.setLook( wStepThreadingType );
+    FormData fdStepThreadingType = new FormData();
+    fdStepThreadingType.left = new FormAttachment( middle, 0 );
+    fdStepThreadingType.top = new FormAttachment( wTransformationType, margin );
+    fdStepThreadingType.right = new FormAttachment( 100, 0 );
+    wStepThreadingType.setLayoutData( fdStepThreadingType );
+    wStepThreadingType.setItems( StepThreadingType.getStepThreadingTypesDescriptions() );
+
     FormData fdMiscComp = new FormData();
     fdMiscComp.left = new FormAttachment( 0, 0 );
     fdMiscComp.top = new FormAttachment( 0, 0 );
@@ -2180,7 +2228,9 @@ public class TransDialog extends Dialog {
     wShowFeedback.setSelection( transMeta.isFeedbackShown() );
     wFeedbackSize.setText( Integer.toString( transMeta.getFeedbackSize() ) );
     wManageThreads.setSelection( transMeta.isUsingThreadPriorityManagment() );
+    wLockFreeRowSets.setSelection( transMeta.isUsingLockFreeRowSets() );
     wTransformationType.setText( transMeta.getTransformationType().getDescription() );
+    wStepThreadingType.setText( transMeta.getStepThreadingType().getDescription() );
 
     wFields.setRowNums();
     wFields.optWidth( true );
@@ -2317,8 +2367,13 @@ public class TransDialog extends Dialog {
     transMeta.setFeedbackShown( wShowFeedback.getSelection() );
     transMeta.setFeedbackSize( Const.toInt( wFeedbackSize.getText(), Const.ROWS_UPDATE ) );
     transMeta.setUsingThreadPriorityManagment( wManageThreads.getSelection() );
+    transMeta.setUsingLockFreeRowSets( wLockFreeRowSets.getSelection() );
     transMeta.setTransformationType( TransformationType.values()[Const.indexOfString( wTransformationType
       .getText(), TransformationType.getTransformationTypesDescriptions() )] );
+    int threadingTypeIndex =
+      Const.indexOfString( wStepThreadingType.getText(), StepThreadingType.getStepThreadingTypesDescriptions() );
+    transMeta.setStepThreadingType( threadingTypeIndex < 0 ? StepThreadingType.Platform
+      : StepThreadingType.values()[threadingTypeIndex] );
 
     if ( directoryChangeAllowed && transMeta.getObjectId() != null ) {
       if ( newDirectory != null ) {